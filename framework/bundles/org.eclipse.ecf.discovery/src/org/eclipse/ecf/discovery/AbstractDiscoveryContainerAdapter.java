@@ -28,7 +28,9 @@ public abstract class AbstractDiscoveryContainerAdapter extends AbstractContaine
 
 	/**
 	 * Collection of service listeners. NOTE: Access to this collection is
-	 * synchronized, so subclasses should take this into account.
+	 * synchronized, so subclasses should take this into account. Subclasses
+	 * that change it other than through add, remove or clear must call
+	 * {@link #listenersChanged()}.
 	 */
 	protected final Set allServiceListeners;
 
@@ -37,6 +39,9 @@ public abstract class AbstractDiscoveryContainerAdapter extends AbstractContaine
 	/**
 	 * Map of service type to collection of service listeners. NOTE: Access to
 	 * this map is synchronized, so subclasses should take this into account.
+	 * Changes to the map, to its views and to the collections of listeners it
+	 * is given by this class are tracked. Subclasses that put their own
+	 * collections in it and change them must call {@link #listenersChanged()}.
 	 */
 	protected final Map serviceListeners;
 	protected final String servicesNamespaceName;
@@ -48,7 +53,16 @@ public abstract class AbstractDiscoveryContainerAdapter extends AbstractContaine
 
 	private DiscoveryServiceListener discoveryServiceListener;
 	private DiscoveryServiceListener discoveryServiceTypeListener;
-	private ServiceTypeComparator discoveryServiceListenerComparator;
+
+	/**
+	 * Index of serviceListeners and allServiceListeners for event dispatch.
+	 * Built on first use after a change of the listeners. Each change
+	 * increments the version, so that an index built concurrently with a
+	 * change is not kept.
+	 */
+	private volatile ServiceListenerIndex listenerIndex;
+	private int listenerIndexVersion;
+	private final Object listenerIndexLock = new Object();
 
 	private final IServiceInfoServiceListener iServiceInfoServiceListener;
 
@@ -64,14 +78,12 @@ public abstract class AbstractDiscoveryContainerAdapter extends AbstractContaine
 		config = aConfig;
 		Assert.isNotNull(config);
 		serviceTypeListeners = Collections.synchronizedSet(new HashSet());
-		serviceListeners = Collections.synchronizedMap(new HashMap());
-		allServiceListeners = Collections.synchronizedSet(new HashSet());
+		serviceListeners = Collections.synchronizedMap(new ListenerMap());
+		allServiceListeners = Collections.synchronizedSet(new ListenerSet());
 
 		discoveryServiceListener = new DiscoveryServiceListener(this, IServiceListener.class);
 		discoveryServiceTypeListener = new DiscoveryServiceListener(this, IServiceTypeListener.class);
 
-		discoveryServiceListenerComparator = new ServiceTypeComparator();
-
 		iServiceInfoServiceListener = new IServiceInfoServiceListener(this);
 	}
 
@@ -160,7 +172,7 @@ public abstract class AbstractDiscoveryContainerAdapter extends AbstractContaine
 											// condition
 			Collection v = (Collection) serviceListeners.get(aType);
 			if (v == null) {
-				v = Collections.synchronizedSet(new HashSet());
+				v = Collections.synchronizedSet(new ListenerSet());
 				serviceListeners.put(aType, v);
 			}
 			v.add(aListener);
@@ -296,9 +308,6 @@ public abstract class AbstractDiscoveryContainerAdapter extends AbstractContaine
 	 */
 	public abstract String getContainerName();
 
-	// merges the allServiceListener with the serviceListeners for the given
-	// type
-
 	/**
 	 * Joins the {@link Collection} of {@link IServiceListener}s interested in
 	 * any {@link IServiceTypeID} with the {@link Collection} of the
@@ -312,23 +321,184 @@ public abstract class AbstractDiscoveryContainerAdapter extends AbstractContaine
 	 */
 	protected Collection getListeners(IServiceTypeID aServiceType) {
 		Assert.isNotNull(aServiceType);
-		Collection listeners = new HashSet();
+		return getListenerIndex().getListeners(aServiceType);
+	}
+
+	private ServiceListenerIndex getListenerIndex() {
+		ServiceListenerIndex index = listenerIndex;
+		if (index != null) {
+			return index;
+		}
+		int version;
+		synchronized (listenerIndexLock) {
+			version = listenerIndexVersion;
+		}
 		synchronized (serviceListeners) {
-			for (Iterator itr = serviceListeners.keySet().iterator(); itr.hasNext();) {
-				final IServiceTypeID typeID = (IServiceTypeID) itr.next();
-				int compare = discoveryServiceListenerComparator.compare(aServiceType, typeID);
-				if (compare == 0) {
-					Collection collection = (Collection) serviceListeners.get(typeID);
-					if (collection != null) {
-						listeners.addAll(collection);
-					}
-				}
+			index = new ServiceListenerIndex(serviceListeners, allServiceListeners);
+		}
+		synchronized (listenerIndexLock) {
+			if (version == listenerIndexVersion) {
+				listenerIndex = index;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Called when the service listeners have changed. Drops the index used to
+	 * find the listeners for an event, which is then rebuilt on the next
+	 * event. The collections of listeners call this method themselves, so
+	 * subclasses only need to call it after changing them in other ways.
+	 * 
+	 * @since 5.3
+	 */
+	protected void listenersChanged() {
+		synchronized (listenerIndexLock) {
+			listenerIndexVersion++;
+			listenerIndex = null;
+		}
+	}
+
+	private class ListenerSet extends HashSet {
+		private static final long serialVersionUID = 6440296773658651624L;
+
+		public boolean add(Object o) {
+			final boolean result = super.add(o);
+			if (result) {
+				listenersChanged();
+			}
+			return result;
+		}
+
+		public boolean remove(Object o) {
+			final boolean result = super.remove(o);
+			if (result) {
+				listenersChanged();
 			}
+			return result;
+		}
+
+		public void clear() {
+			super.clear();
+			listenersChanged();
+		}
+
+		public Iterator iterator() {
+			final Iterator itr = super.iterator();
+			return new Iterator() {
+				public boolean hasNext() {
+					return itr.hasNext();
+				}
+
+				public Object next() {
+					return itr.next();
+				}
+
+				public void remove() {
+					itr.remove();
+					listenersChanged();
+				}
+			};
 		}
-		synchronized (allServiceListeners) {
-			listeners.addAll(allServiceListeners);
+	}
+
+	/**
+	 * Map that calls {@link #listenersChanged()} on every change, including
+	 * changes made through its key set, values, entry set, their iterators and
+	 * its entries. All of these are implemented by {@link AbstractMap} on top
+	 * of {@link #entrySet()}.
+	 */
+	private class ListenerMap extends AbstractMap {
+		private final Map map = new HashMap();
+
+		public int size() {
+			return map.size();
+		}
+
+		public boolean containsKey(Object key) {
+			return map.containsKey(key);
+		}
+
+		public Object get(Object key) {
+			return map.get(key);
+		}
+
+		public Object put(Object key, Object value) {
+			final Object result = map.put(key, value);
+			listenersChanged();
+			return result;
+		}
+
+		public Object remove(Object key) {
+			final Object result = map.remove(key);
+			listenersChanged();
+			return result;
+		}
+
+		public void clear() {
+			map.clear();
+			listenersChanged();
+		}
+
+		public Set entrySet() {
+			return new AbstractSet() {
+				public int size() {
+					return map.size();
+				}
+
+				public Iterator iterator() {
+					final Iterator itr = map.entrySet().iterator();
+					return new Iterator() {
+						public boolean hasNext() {
+							return itr.hasNext();
+						}
+
+						public Object next() {
+							return new ListenerMapEntry((Map.Entry) itr.next());
+						}
+
+						public void remove() {
+							itr.remove();
+							listenersChanged();
+						}
+					};
+				}
+			};
+		}
+	}
+
+	private class ListenerMapEntry implements Map.Entry {
+		private final Map.Entry entry;
+
+		ListenerMapEntry(Map.Entry entry) {
+			this.entry = entry;
+		}
+
+		public Object getKey() {
+			return entry.getKey();
+		}
+
+		public Object getValue() {
+			return entry.getValue();
+		}
+
+		public Object setValue(Object value) {
+			final Object result = entry.setValue(value);
+			listenersChanged();
+			return result;
+		}
+
+		public boolean equals(Object o) {
+			return entry.equals(o);
+		}
+
+		public int hashCode() {
+			return entry.hashCode();
+		}
+
+		public String toString() {
+			return entry.toString();
 		}
-		return Collections.unmodifiableCollection(listeners);
 	}
 
 	/*
@@ -0,0 +1,148 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.discovery;
+
+import java.util.*;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+
+/**
+ * Immutable index of the service listeners of a discovery container. Listeners
+ * registered for a service type are kept in nested buckets keyed by the type's
+ * naming authority, services, protocols and scopes. A component of "*" is a
+ * wildcard and is kept in its own bucket at each level. Looking up the
+ * listeners for a type visits at most the exact and the wildcard bucket of
+ * each component, and matches the same listeners as
+ * {@link ServiceTypeComparator}. The result of a lookup is remembered for the
+ * type.
+ */
+public class ServiceListenerIndex {
+
+	static final String WILDCARD = "*"; //$NON-NLS-1$
+
+	private static final int MAX_CACHED_LOOKUPS = 1024;
+
+	// naming authority -> services -> protocols -> scopes -> Set of listeners
+	private final Map root = new HashMap();
+	// IServiceTypeID -> Set of listeners, for types that are equal but whose
+	// components differ
+	private final Map byType = new HashMap();
+	private final Set allListeners;
+	// IServiceTypeID -> Collection of listeners
+	private final Map lookups = new HashMap();
+
+	/**
+	 * @param serviceListeners
+	 *            map of IServiceTypeID to collection of IServiceListener. The
+	 *            caller must hold the lock of the map. Each collection is
+	 *            copied while holding its lock.
+	 * @param allServiceListeners
+	 *            listeners for all service types. Copied while holding its
+	 *            lock.
+	 */
+	public ServiceListenerIndex(Map serviceListeners, Collection allServiceListeners) {
+		for (final Iterator itr = serviceListeners.entrySet().iterator(); itr.hasNext();) {
+			final Map.Entry entry = (Map.Entry) itr.next();
+			final Collection value = (Collection) entry.getValue();
+			if (value == null)
+				continue;
+			final List listeners;
+			synchronized (value) {
+				listeners = new ArrayList(value);
+			}
+			if (listeners.isEmpty())
+				continue;
+			final IServiceTypeID type = (IServiceTypeID) entry.getKey();
+			Map level = getChild(root, type.getNamingAuthority());
+			level = getChild(level, getKey(type.getServices()));
+			level = getChild(level, getKey(type.getProtocols()));
+			Set leaf = (Set) level.get(getKey(type.getScopes()));
+			if (leaf == null) {
+				leaf = new HashSet();
+				level.put(getKey(type.getScopes()), leaf);
+			}
+			leaf.addAll(listeners);
+			Set equal = (Set) byType.get(type);
+			if (equal == null) {
+				equal = new HashSet();
+				byType.put(type, equal);
+			}
+			equal.addAll(listeners);
+		}
+		synchronized (allServiceListeners) {
+			this.allListeners = new HashSet(allServiceListeners);
+		}
+	}
+
+	private static Map getChild(Map level, Object key) {
+		Map child = (Map) level.get(key);
+		if (child == null) {
+			child = new HashMap();
+			level.put(key, child);
+		}
+		return child;
+	}
+
+	private static Object getKey(String[] components) {
+		if (components.length > 0 && WILDCARD.equals(components[0]))
+			return WILDCARD;
+		return Arrays.asList(components);
+	}
+
+	/**
+	 * @param type
+	 *            the service type of an event. Must not be <code>null</code>.
+	 * @return unmodifiable collection of the listeners for all service types
+	 *         plus the listeners for service types matching the given type
+	 */
+	public Collection getListeners(IServiceTypeID type) {
+		synchronized (lookups) {
+			final Collection cached = (Collection) lookups.get(type);
+			if (cached != null)
+				return cached;
+		}
+		final Set result = new HashSet(allListeners);
+		final Object[] keys = new Object[] {type.getNamingAuthority(), getKey(type.getServices()), getKey(type.getProtocols()), getKey(type.getScopes())};
+		collect(root, keys, 0, result);
+		final Set equal = (Set) byType.get(type);
+		if (equal != null)
+			result.addAll(equal);
+		final Collection listeners = Collections.unmodifiableCollection(result);
+		synchronized (lookups) {
+			if (lookups.size() >= MAX_CACHED_LOOKUPS)
+				lookups.clear();
+			lookups.put(type, listeners);
+		}
+		return listeners;
+	}
+
+	private static void collect(Map level, Object[] keys, int depth, Set result) {
+		final Object key = keys[depth];
+		if (WILDCARD.equals(key)) {
+			// a wildcard in the event type matches every bucket
+			for (final Iterator itr = level.values().iterator(); itr.hasNext();)
+				collectBucket(itr.next(), keys, depth, result);
+			return;
+		}
+		collectBucket(level.get(key), keys, depth, result);
+		collectBucket(level.get(WILDCARD), keys, depth, result);
+	}
+
+	private static void collectBucket(Object bucket, Object[] keys, int depth, Set result) {
+		if (bucket == null)
+			return;
+		if (depth == keys.length - 1)
+			result.addAll((Set) bucket);
+		else
+			collect((Map) bucket, keys, depth + 1, result);
+	}
+}
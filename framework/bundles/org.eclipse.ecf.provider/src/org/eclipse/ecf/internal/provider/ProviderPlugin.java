@@ -20,8 +20,8 @@ import javax.net.ssl.SSLSocketFactory;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.ContainerTypeDescription;
 import org.eclipse.ecf.core.util.*;
-import org.eclipse.ecf.provider.generic.GenericContainerInstantiator;
-import org.eclipse.ecf.provider.generic.SSLGenericContainerInstantiator;
+import org.eclipse.ecf.provider.comm.tcp.NIOEventLoopGroup;
+import org.eclipse.ecf.provider.generic.*;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.log.LogService;
@@ -79,6 +79,8 @@ public class ProviderPlugin implements BundleActivator {
 				context1.registerService(ContainerTypeDescription.class, new ContainerTypeDescription(GenericContainerInstantiator.TCPCLIENT_NAME, new GenericContainerInstantiator(), "ECF Generic Client", true, true), null); //$NON-NLS-1$
 				context1.registerService(ContainerTypeDescription.class, new ContainerTypeDescription(SSLGenericContainerInstantiator.SSLSERVER_NAME, new SSLGenericContainerInstantiator(), "ECF SSL Generic Server", true, false), null); //$NON-NLS-1$
 				context1.registerService(ContainerTypeDescription.class, new ContainerTypeDescription(SSLGenericContainerInstantiator.SSLCLIENT_NAME, new SSLGenericContainerInstantiator(), "ECF SSL Generic Client", true, true), null); //$NON-NLS-1$
+				context1.registerService(ContainerTypeDescription.class, new ContainerTypeDescription(NIOGenericContainerInstantiator.NIOSERVER_NAME, new NIOGenericContainerInstantiator(), "ECF Generic NIO Server", true, false), null); //$NON-NLS-1$
+				context1.registerService(ContainerTypeDescription.class, new ContainerTypeDescription(NIOGenericContainerInstantiator.NIOCLIENT_NAME, new NIOGenericContainerInstantiator(), "ECF Generic NIO Client", true, true), null); //$NON-NLS-1$
 			}
 		});
 		if (genericClassResolverOverride) {
@@ -96,6 +98,8 @@ public class ProviderPlugin implements BundleActivator {
 	 * This method is called when the plug-in is stopped
 	 */
 	public void stop(BundleContext context1) throws Exception {
+		NIOEventLoopGroup.shutdownDefault();
+		SODispatchExecutor.shutdownDefault();
 		if (logServiceTracker != null) {
 			logServiceTracker.close();
 			logServiceTracker = null;
@@ -0,0 +1,43 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm;
+
+import java.io.IOException;
+import org.eclipse.ecf.core.identity.ID;
+
+/**
+ * Asynchronous connection that can send a message given in two parts without
+ * first copying them into one array.  This allows a body that is shared by the
+ * messages to many receivers to be encoded once and written after each
+ * receiver's header.
+ *
+ * @since 4.10
+ */
+public interface IGatheringAsynchConnection extends IAsynchConnection {
+	/**
+	 * Send data asynchronously.  The receiver gets the same data as if
+	 * {@link #sendAsynch(ID, byte[])} had been called with the concatenation
+	 * of header and body.  Neither array is modified, so the same body may be
+	 * given to many connections.
+	 *
+	 * @param receiver
+	 *            the ID of the intended receiver
+	 * @param header
+	 *            the first part of the data to send
+	 * @param body
+	 *            the second part of the data to send
+	 * @throws IOException
+	 *             thrown if data cannot be sent (e.g. disconnected)
+	 */
+	public void sendAsynch(ID receiver, byte[] header, byte[] body) throws IOException;
+}
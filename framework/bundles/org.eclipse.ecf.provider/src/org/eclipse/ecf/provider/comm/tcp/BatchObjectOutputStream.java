@@ -0,0 +1,73 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.*;
+
+/**
+ * Object output stream that buffers everything written to it until
+ * {@link #flush()} is called.  When a {@link Client} is given one of these
+ * its send thread writes all queued messages before flushing, so that a
+ * burst of messages results in one socket write rather than one per message.
+ *
+ * @since 4.10
+ */
+public class BatchObjectOutputStream extends ObjectOutputStream {
+
+	private final CountingOutputStream buffer;
+
+	public BatchObjectOutputStream(OutputStream out, int bufferSize) throws IOException {
+		this(new CountingOutputStream(out, bufferSize));
+	}
+
+	private BatchObjectOutputStream(CountingOutputStream out) throws IOException {
+		super(out);
+		this.buffer = out;
+	}
+
+	/**
+	 * @return int the number of bytes written to the underlying buffer since
+	 * the last flush.  Does not include data still held by this object stream's
+	 * own block buffer.
+	 */
+	public int getBufferedCount() {
+		return buffer.getCount();
+	}
+
+	static class CountingOutputStream extends BufferedOutputStream {
+		private int written = 0;
+
+		CountingOutputStream(OutputStream out, int size) {
+			super(out, size);
+		}
+
+		public synchronized void write(int b) throws IOException {
+			super.write(b);
+			written++;
+		}
+
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			super.write(b, off, len);
+			written += len;
+		}
+
+		public synchronized void flush() throws IOException {
+			super.flush();
+			written = 0;
+		}
+
+		synchronized int getCount() {
+			return written;
+		}
+	}
+}
@@ -37,6 +37,16 @@ public final class Client implements ISynchAsynchConnection {
 	// Default maximum cached messages on object stream is 50
 	public static final int DEFAULT_MAX_BUFFER_MSG = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.maxmsgs", "50")); //$NON-NLS-1$ //$NON-NLS-2$
 	public static final int DEFAULT_WAIT_INTERVAL = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.waitinterval", "10")); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Maximum number of bytes written in one batch before it is flushed.  Default is 64K.
+	 * @since 4.10
+	 */
+	public static final int DEFAULT_BATCH_MAX_BYTES = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.batchmaxbytes", "65536")); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Time (ms) to wait for more messages to arrive before flushing a batch.  Default is 0 (flush as soon as the queue is empty).
+	 * @since 4.10
+	 */
+	public static final long DEFAULT_BATCH_LINGER = Long.parseLong(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.batchlinger", "0")); //$NON-NLS-1$ //$NON-NLS-2$
 	protected Socket socket;
 	private String addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
 	// Underlying streams
@@ -45,7 +55,7 @@ public final class Client implements ISynchAsynchConnection {
 	// Event handler
 	protected ISynchAsynchEventHandler handler;
 	// Our queue
-	protected SimpleFIFOQueue queue = new SimpleFIFOQueue();
+	protected SimpleFIFOQueue queue = SimpleFIFOQueue.createSingleConsumerQueue();
 	protected int keepAlive = 0;
 	protected Thread sendThread;
 	protected Thread rcvThread;
@@ -62,6 +72,13 @@ public final class Client implements ISynchAsynchConnection {
 	private final Object disconnectLock = new Object();
 	protected final Object outputStreamLock = new Object();
 	private int maxmsgs = DEFAULT_MAX_BUFFER_MSG;
+	private boolean batchSend = false;
+	private int batchMaxBytes = DEFAULT_BATCH_MAX_BYTES;
+	private long batchLinger = DEFAULT_BATCH_LINGER;
+	// Batch counters.  Only updated by send thread
+	private volatile long batchCount = 0;
+	private volatile long batchMessageCount = 0;
+	private volatile int maxBatchSize = 0;
 
 	private String getHostNameForAddressWithoutLookup(InetAddress inetAddress) {
 		// First get InetAddress.toString(), which returns
@@ -122,6 +139,18 @@ public final class Client implements ISynchAsynchConnection {
 		this.properties = new HashMap();
 	}
 
+	/**
+	 * @param handler the event handler
+	 * @param keepAlive the keep alive interval
+	 * @param batchSend if true the connection uses a {@link BatchObjectOutputStream}
+	 * and the send thread writes all queued messages before flushing
+	 * @since 4.10
+	 */
+	public Client(ISynchAsynchEventHandler handler, int keepAlive, boolean batchSend) {
+		this(handler, keepAlive);
+		this.batchSend = batchSend;
+	}
+
 	public synchronized ID getLocalID() {
 		if (containerID != null)
 			return containerID;
@@ -215,7 +244,7 @@ public final class Client implements ISynchAsynchConnection {
 			setSocketOptions(s);
 			// Now we've got a connection so set our socket
 			setSocket(s);
-			outputStream = new ObjectOutputStream(s.getOutputStream());
+			outputStream = batchSend ? new BatchObjectOutputStream(s.getOutputStream(), batchMaxBytes) : new ObjectOutputStream(s.getOutputStream());
 			outputStream.flush();
 			inputStream = ProviderPlugin.getDefault().createObjectInputStream(s.getInputStream());
 			debug("connect;" + anURI); //$NON-NLS-1$
@@ -267,10 +296,15 @@ public final class Client implements ISynchAsynchConnection {
 					if (me.isInterrupted() || aMsg == null)
 						break;
 					try {
-						// Actually send message
-						send(aMsg);
-						// Successful...remove message from queue
-						queue.removeHead();
+						if (outputStream instanceof BatchObjectOutputStream)
+							// Send aMsg along with whatever else is queued
+							sendBatch(aMsg);
+						else {
+							// Actually send message
+							send(aMsg);
+							// Successful...remove message from queue
+							queue.removeHead();
+						}
 					} catch (Exception e) {
 						handleException(e);
 						break;
@@ -313,6 +347,16 @@ public final class Client implements ISynchAsynchConnection {
 
 	private int resetCounter = 0;
 
+	// Unlike send, any reset is written before the batch is flushed
+	private void write(Serializable snd) throws IOException {
+		outputStream.writeObject(snd);
+		if (resetCounter > this.maxmsgs) {
+			outputStream.reset();
+			resetCounter = 0;
+		} else
+			resetCounter++;
+	}
+
 	void send(Serializable snd) throws IOException {
 		synchronized (outputStreamLock) {
 			outputStream.writeObject(snd);
@@ -325,6 +369,91 @@ public final class Client implements ISynchAsynchConnection {
 		}
 	}
 
+	/**
+	 * Write first, which must be at the head of the queue, and then any other
+	 * queued messages until the queue is empty or batchMaxBytes have been written.
+	 * Then flush once.  Messages are removed from the queue as they are written.
+	 */
+	private void sendBatch(Serializable first) throws IOException {
+		final BatchObjectOutputStream bos = (BatchObjectOutputStream) outputStream;
+		final long lingerEnd = (batchLinger > 0) ? System.currentTimeMillis() + batchLinger : 0;
+		int count = 0;
+		Serializable aMsg = first;
+		while (aMsg != null) {
+			synchronized (outputStreamLock) {
+				write(aMsg);
+			}
+			queue.removeHead();
+			count++;
+			if (bos.getBufferedCount() >= batchMaxBytes)
+				break;
+			aMsg = nextBatchMessage(lingerEnd);
+		}
+		// Counted before the flush, so they include this batch once the peer has it
+		batchCount++;
+		batchMessageCount += count;
+		if (count > maxBatchSize)
+			maxBatchSize = count;
+		synchronized (outputStreamLock) {
+			outputStream.flush();
+		}
+	}
+
+	private Serializable nextBatchMessage(long lingerEnd) {
+		// Only the send thread removes from the queue, so if it's
+		// not empty peekQueue will return without waiting
+		if (!queue.isEmpty())
+			return (Serializable) queue.peekQueue();
+		if (lingerEnd == 0)
+			return null;
+		final long wait = lingerEnd - System.currentTimeMillis();
+		if (wait <= 0)
+			return null;
+		return (Serializable) queue.peekQueue(wait);
+	}
+
+	/**
+	 * @param batchMaxBytes the number of bytes written in one batch before it is flushed
+	 * @since 4.10
+	 */
+	public void setBatchMaxBytes(int batchMaxBytes) {
+		this.batchMaxBytes = batchMaxBytes;
+	}
+
+	/**
+	 * @param batchLinger the time (ms) to wait for more messages to arrive before
+	 * flushing a batch.  0 to flush as soon as the queue is empty
+	 * @since 4.10
+	 */
+	public void setBatchLinger(long batchLinger) {
+		this.batchLinger = batchLinger;
+	}
+
+	/**
+	 * @return long the number of batches flushed by the send thread.  Always 0
+	 * unless the connection uses a {@link BatchObjectOutputStream}.
+	 * @since 4.10
+	 */
+	public long getBatchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * @return long the total number of messages sent in batches
+	 * @since 4.10
+	 */
+	public long getBatchMessageCount() {
+		return batchMessageCount;
+	}
+
+	/**
+	 * @return int the largest number of messages sent in one batch
+	 * @since 4.10
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
 	private void handlePingResp() {
 		synchronized (pingLock) {
 			waitForPing = false;
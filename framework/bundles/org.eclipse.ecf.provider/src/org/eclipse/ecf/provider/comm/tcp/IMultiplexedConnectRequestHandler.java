@@ -0,0 +1,35 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.Serializable;
+
+/**
+ * Handler for session connect requests received over a {@link MultiplexedLink}.
+ * Called once per session, on a new thread rather than the link's receive thread.
+ *
+ * @since 4.10
+ */
+public interface IMultiplexedConnectRequestHandler {
+	/**
+	 * @param connection the new session.  The handler must set the session's event handler
+	 * via {@link MultiplexedConnection#setEventHandler(org.eclipse.ecf.provider.comm.ISynchAsynchEventHandler)}
+	 * before returning.  Messages sent on the session before this method returns are
+	 * held until the connect result has been sent.
+	 * @param request the session's connect request
+	 * @return Serializable the data to send back to the client as the connect result
+	 * @throws Exception if the request is refused.  The exception is sent back to the client.
+	 */
+	public Serializable handleConnectRequest(MultiplexedConnection connection, ConnectRequestMessage request) throws Exception;
+}
@@ -0,0 +1,35 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.Serializable;
+
+/**
+ * Handler for connect requests received by a {@link NIOServer}.  Called once
+ * per accepted connection, on a dispatch thread rather than the selector
+ * thread, with the first message read from the new connection.
+ *
+ * @since 4.10
+ */
+public interface INIOConnectRequestHandler {
+	/**
+	 * @param client the newly accepted connection.  The handler must
+	 * set the connection's event handler via {@link NIOClient#setEventHandler(org.eclipse.ecf.provider.comm.ISynchAsynchEventHandler)}
+	 * before returning.
+	 * @param request the connect request read from the connection
+	 * @return Serializable the data to send back to the client in the ConnectResultMessage
+	 * @throws Exception if the request is refused.  The connection is then closed.
+	 */
+	public Serializable handleConnectRequest(NIOClient client, ConnectRequestMessage request) throws Exception;
+}
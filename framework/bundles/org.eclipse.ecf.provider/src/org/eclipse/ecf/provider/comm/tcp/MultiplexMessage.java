@@ -0,0 +1,79 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.Serializable;
+
+/**
+ * Frame sent over a {@link MultiplexedLink}.  Each frame carries the id of the
+ * {@link MultiplexedConnection} session it belongs to.
+ *
+ * @since 4.10
+ */
+public final class MultiplexMessage implements Serializable {
+	private static final long serialVersionUID = -2412829318727340157L;
+
+	/**
+	 * Link acknowledgement, sent as the data of the ConnectResultMessage for a {@link MultiplexedLink#LINK_REQUEST}
+	 */
+	public static final byte LINK = 0;
+	/**
+	 * Session connect request.  Data is a ConnectRequestMessage
+	 */
+	public static final byte CONNECT = 1;
+	/**
+	 * Session connect result.  Data is the connect response, or the Exception that refused the connect
+	 */
+	public static final byte CONNECT_RESULT = 2;
+	/**
+	 * Asynchronous session message
+	 */
+	public static final byte ASYNCH = 3;
+	/**
+	 * Synchronous session message
+	 */
+	public static final byte SYNCH = 4;
+	/**
+	 * Session closed.  Data is null or the Exception that closed the session
+	 */
+	public static final byte CLOSE = 5;
+
+	final byte type;
+	final int session;
+	final Serializable data;
+
+	public MultiplexMessage(byte type, int session, Serializable data) {
+		this.type = type;
+		this.session = session;
+		this.data = data;
+	}
+
+	public byte getType() {
+		return type;
+	}
+
+	public int getSession() {
+		return session;
+	}
+
+	public Serializable getData() {
+		return data;
+	}
+
+	public String toString() {
+		StringBuffer buf = new StringBuffer("MultiplexMessage["); //$NON-NLS-1$
+		buf.append(type).append(";").append(session).append(";").append(data).append("]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return buf.toString();
+	}
+}
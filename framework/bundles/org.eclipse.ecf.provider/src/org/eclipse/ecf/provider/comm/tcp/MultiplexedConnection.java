@@ -0,0 +1,422 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.*;
+import java.util.*;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.sharedobject.util.SimpleFIFOQueue;
+import org.eclipse.ecf.core.util.ECFException;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.*;
+
+/**
+ * A logical connection carried by a {@link MultiplexedLink}.  Client containers
+ * connecting to the same host and port share one link, and so one socket and one
+ * keepalive, instead of each opening their own {@link Client}.
+ * <p>
+ * Messages received for a session are delivered on the session's own thread,
+ * so a container that is slow to handle its messages does not hold up the
+ * other sessions on the link.  If the server does not support multiplexed links,
+ * {@link #connect(ID, Object, int)} falls back to a plain {@link Client}.
+ *
+ * @since 4.10
+ */
+public class MultiplexedConnection implements ISynchAsynchConnection {
+
+	private static final int DEFAULT_CONNECT_TIMEOUT = 30000;
+
+	private final Object lock = new Object();
+	protected ISynchAsynchEventHandler handler;
+	private final int keepAlive;
+	private final SimpleFIFOQueue inbound = SimpleFIFOQueue.createSingleConsumerQueue();
+	protected Map properties = new HashMap();
+	protected long closeTimeout = Client.DEFAULT_CLOSE_TIMEOUT;
+	// Used if the server does not support multiplexed links
+	private Client fallback;
+	private MultiplexedLink link;
+	private int session;
+	// Held until the connect result has been sent.  Server sessions only
+	private List<MultiplexMessage> pendingSends;
+	private Thread deliveryThread;
+	private boolean connecting;
+	private boolean hasConnectResult;
+	private Object connectResult;
+	private boolean isClosing;
+	private volatile boolean connected;
+	private volatile boolean closed;
+
+	/**
+	 * Create a client session.
+	 * @param handler the event handler.  Must not be <code>null</code>.
+	 * @param keepAlive keepalive for a new link, or for the fallback Client
+	 */
+	public MultiplexedConnection(ISynchAsynchEventHandler handler, int keepAlive) {
+		if (handler == null)
+			throw new NullPointerException("event handler cannot be null"); //$NON-NLS-1$
+		this.handler = handler;
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * Create a server session
+	 */
+	MultiplexedConnection(MultiplexedLink link, int session) {
+		this.link = link;
+		this.session = session;
+		this.keepAlive = 0;
+		this.pendingSends = new ArrayList<MultiplexMessage>();
+		this.connected = true;
+	}
+
+	/**
+	 * @param handler the event handler for a server session
+	 */
+	public void setEventHandler(ISynchAsynchEventHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * @return Socket the socket of the link carrying this session.  May be <code>null</code>.
+	 */
+	public Socket getSocket() {
+		if (fallback != null)
+			return fallback.socket;
+		final MultiplexedLink l = link;
+		return (l == null) ? null : l.getSocket();
+	}
+
+	/**
+	 * @return MultiplexedLink the link carrying this session, or <code>null</code> if not
+	 * connected or if connected with a plain Client
+	 */
+	public MultiplexedLink getLink() {
+		return link;
+	}
+
+	public void setCloseTimeout(long t) {
+		closeTimeout = t;
+	}
+
+	public Object connect(ID targetID, Object data, int timeout) throws ECFException {
+		debug("connect(" + targetID + "," + data + "," + timeout + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		if (targetID == null)
+			throw new ECFException("remote cannot be null"); //$NON-NLS-1$
+		synchronized (lock) {
+			if (link != null || fallback != null)
+				throw new ECFException("Already connected"); //$NON-NLS-1$
+		}
+		URI uri;
+		try {
+			uri = new URI(targetID.getName());
+		} catch (final URISyntaxException e) {
+			throw new ECFException("Invalid URI for remoteID=" + targetID, e); //$NON-NLS-1$
+		}
+		final MultiplexedLink l = MultiplexedLink.getLink(targetID, uri, keepAlive, timeout);
+		if (l == null) {
+			final Client c = new Client(handler, keepAlive);
+			synchronized (lock) {
+				fallback = c;
+			}
+			return c.connect(targetID, data, timeout);
+		}
+		final int id = l.addSession(this);
+		synchronized (lock) {
+			link = l;
+			session = id;
+			connecting = true;
+		}
+		final long end = System.currentTimeMillis() + ((timeout > 0) ? timeout : DEFAULT_CONNECT_TIMEOUT);
+		Object result;
+		synchronized (lock) {
+			try {
+				l.send(new MultiplexMessage(MultiplexMessage.CONNECT, id, new ConnectRequestMessage(uri, (Serializable) data)));
+				long wait = end - System.currentTimeMillis();
+				while (!hasConnectResult && wait > 0) {
+					lock.wait(wait);
+					wait = end - System.currentTimeMillis();
+				}
+			} catch (final Exception e) {
+				connectResult = e;
+				hasConnectResult = true;
+			}
+			connecting = false;
+			result = hasConnectResult ? connectResult : new SocketTimeoutException("Timeout connecting to " + targetID); //$NON-NLS-1$
+			if (!(result instanceof Exception))
+				connected = true;
+		}
+		if (result instanceof Exception) {
+			disconnect();
+			throw new ECFException("Exception during connection to " + targetID.getName(), (Exception) result); //$NON-NLS-1$
+		}
+		debug("connect;returning:" + result); //$NON-NLS-1$
+		return result;
+	}
+
+	/**
+	 * Send the connect result for a server session, followed by anything sent
+	 * on the session while the connect request was being handled.
+	 */
+	void connectResult(Serializable result) {
+		synchronized (lock) {
+			try {
+				link.send(new MultiplexMessage(MultiplexMessage.CONNECT_RESULT, session, result));
+				for (final Iterator<MultiplexMessage> i = pendingSends.iterator(); i.hasNext();)
+					link.send(i.next());
+			} catch (final IOException e) {
+				traceStack("Exception sending connect result", e); //$NON-NLS-1$
+			}
+			pendingSends = null;
+			if (result instanceof Exception)
+				closed = true;
+		}
+	}
+
+	/**
+	 * Called on the link's receive thread with each frame for this session
+	 */
+	void handleMessage(MultiplexMessage message) {
+		switch (message.getType()) {
+			case MultiplexMessage.CONNECT_RESULT :
+				synchronized (lock) {
+					connectResult = message.getData();
+					hasConnectResult = true;
+					lock.notifyAll();
+				}
+				break;
+			case MultiplexMessage.ASYNCH :
+			case MultiplexMessage.SYNCH :
+				inbound.enqueue(message);
+				break;
+			case MultiplexMessage.CLOSE :
+				final Object data = message.getData();
+				handleClosed((data instanceof IOException) ? (IOException) data : new IOException("Session closed by remote")); //$NON-NLS-1$
+				break;
+			default :
+				debug("unexpected message " + message); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Called when the remote closes this session, or the link fails
+	 */
+	void handleClosed(IOException e) {
+		final boolean started;
+		synchronized (lock) {
+			if (closed)
+				return;
+			closed = true;
+			connected = false;
+			if (connecting && !hasConnectResult) {
+				connectResult = e;
+				hasConnectResult = true;
+			}
+			started = deliveryThread != null;
+		}
+		final MultiplexedLink l = link;
+		if (l != null)
+			l.removeSession(session);
+		// Wake connect and sendSynch only once the session is gone from the link
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+		// Delivered after any messages already received, as for a Client's receive thread
+		if (started)
+			inbound.enqueue(new DisconnectEvent(this, e, null));
+		else
+			inbound.close();
+	}
+
+	public void start() {
+		if (fallback != null) {
+			fallback.start();
+			return;
+		}
+		synchronized (lock) {
+			if (deliveryThread != null || closed)
+				return;
+			deliveryThread = new Thread(new Runnable() {
+				public void run() {
+					deliver();
+				}
+			}, getLocalID() + ":mux:" + session); //$NON-NLS-1$
+			deliveryThread.start();
+		}
+	}
+
+	void deliver() {
+		for (;;) {
+			final Object o = inbound.dequeue();
+			if (o == null)
+				break;
+			if (o instanceof DisconnectEvent) {
+				handler.handleDisconnectEvent((DisconnectEvent) o);
+				break;
+			}
+			final MultiplexMessage m = (MultiplexMessage) o;
+			try {
+				if (m.getType() == MultiplexMessage.ASYNCH)
+					handler.handleAsynchEvent(new AsynchEvent(this, m.getData()));
+				else
+					handler.handleSynchEvent(new SynchEvent(this, m.getData()));
+			} catch (final IOException e) {
+				// As for a Client, a failure to handle a message ends the session
+				traceStack("Exception handling message", e); //$NON-NLS-1$
+				disconnect();
+				handler.handleDisconnectEvent(new DisconnectEvent(this, e, null));
+				break;
+			}
+		}
+		inbound.close();
+		debug("DELIVERY TERMINATING"); //$NON-NLS-1$
+	}
+
+	public void stop() {
+		debug("stop()"); //$NON-NLS-1$
+	}
+
+	public void disconnect() {
+		debug("disconnect()"); //$NON-NLS-1$
+		if (fallback != null) {
+			fallback.disconnect();
+			return;
+		}
+		final MultiplexedLink l;
+		synchronized (lock) {
+			if (closed)
+				return;
+			closed = true;
+			connected = false;
+			l = link;
+			lock.notifyAll();
+		}
+		inbound.close();
+		if (l != null) {
+			try {
+				l.send(new MultiplexMessage(MultiplexMessage.CLOSE, session, null));
+			} catch (final IOException e) {
+				// link already closed
+			}
+			l.removeSession(session);
+		}
+	}
+
+	public boolean isConnected() {
+		if (fallback != null)
+			return fallback.isConnected();
+		return connected && !closed;
+	}
+
+	public boolean isStarted() {
+		if (fallback != null)
+			return fallback.isStarted();
+		synchronized (lock) {
+			return deliveryThread != null && deliveryThread.isAlive();
+		}
+	}
+
+	public ID getLocalID() {
+		if (fallback != null)
+			return fallback.getLocalID();
+		final ISynchAsynchEventHandler h = handler;
+		return (h == null) ? null : h.getEventHandlerID();
+	}
+
+	private void send(byte type, Object obj) throws IOException {
+		final MultiplexMessage message = new MultiplexMessage(type, session, (Serializable) obj);
+		synchronized (lock) {
+			if (closed || isClosing || link == null)
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+			if (pendingSends != null)
+				pendingSends.add(message);
+			else
+				link.send(message);
+		}
+	}
+
+	public void sendAsynch(ID receiver, byte[] data) throws IOException {
+		sendAsynch(receiver, (Object) data);
+	}
+
+	public void sendAsynch(ID receiver, Object data) throws IOException {
+		if (fallback != null) {
+			fallback.sendAsynch(receiver, data);
+			return;
+		}
+		send(MultiplexMessage.ASYNCH, data);
+	}
+
+	public Object sendSynch(ID receiver, byte[] data) throws IOException {
+		return sendSynch(receiver, (Object) data);
+	}
+
+	/**
+	 * As for a {@link Client}, a synch message is only sent to leave the group, so after
+	 * sending it this waits up to the close timeout for the remote to close the session.
+	 */
+	public Object sendSynch(ID receiver, Object data) throws IOException {
+		if (fallback != null)
+			return fallback.sendSynch(receiver, data);
+		send(MultiplexMessage.SYNCH, data);
+		synchronized (lock) {
+			isClosing = true;
+			final long end = System.currentTimeMillis() + closeTimeout;
+			long wait = closeTimeout;
+			try {
+				while (!closed && wait > 0) {
+					lock.wait(wait);
+					wait = end - System.currentTimeMillis();
+				}
+			} catch (final InterruptedException e) {
+				traceStack("sendSynch wait", e); //$NON-NLS-1$
+			}
+		}
+		return null;
+	}
+
+	public Map getProperties() {
+		if (fallback != null)
+			return fallback.getProperties();
+		return properties;
+	}
+
+	public void addListener(IConnectionListener listener) {
+		// does not support listeners
+	}
+
+	public void removeListener(IConnectionListener listener) {
+		// does not support listeners
+	}
+
+	@SuppressWarnings("unchecked")
+	public Object getAdapter(Class clazz) {
+		return null;
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, getLocalID() + ".mux." + msg); //$NON-NLS-1$
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, MultiplexedConnection.class, msg, e);
+	}
+
+	public String toString() {
+		return "MultiplexedConnection[session=" + session + ";link=" + link + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
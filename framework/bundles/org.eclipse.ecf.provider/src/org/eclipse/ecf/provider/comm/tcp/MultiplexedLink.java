@@ -0,0 +1,309 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.util.ECFException;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.*;
+
+/**
+ * A physical {@link Client} connection shared by any number of
+ * {@link MultiplexedConnection} sessions.  Every frame sent over the link is a
+ * {@link MultiplexMessage} carrying its session id.  The link does its own
+ * keepalive, so keepalive traffic and file descriptors are per link rather
+ * than per session.  If the link fails, all of its sessions are disconnected,
+ * and the next session to connect to the same host and port opens a new link.
+ * <p>
+ * On the client side links are shared by host and port, and closed when their
+ * last session disconnects.  The keepalive of a link is that of the session
+ * that opened it.
+ *
+ * @since 4.10
+ */
+public class MultiplexedLink implements ISynchAsynchEventHandler {
+
+	/**
+	 * Data of the ConnectRequestMessage that opens a link.  A String, so that servers from before
+	 * multiplexing can read it, and refuse it as an invalid container connect.
+	 */
+	public static final String LINK_REQUEST = "org.eclipse.ecf.provider.comm.tcp.MultiplexedLink"; //$NON-NLS-1$
+
+	// Client links, by host:port
+	private static final Map<String, MultiplexedLink> links = new HashMap<String, MultiplexedLink>();
+	// host:port of servers that do not support multiplexed links
+	private static final Set<String> unsupported = Collections.synchronizedSet(new HashSet<String>());
+
+	private final String key;
+	private final IMultiplexedConnectRequestHandler connectHandler;
+	private final Map<Integer, MultiplexedConnection> sessions = new ConcurrentHashMap<Integer, MultiplexedConnection>();
+	private final AtomicInteger nextSession = new AtomicInteger();
+	private Client client;
+	// Client links only, guarded by links
+	private int users;
+	private boolean connected;
+	private ECFException failure;
+	private volatile boolean closed;
+
+	MultiplexedLink(String key, IMultiplexedConnectRequestHandler connectHandler) {
+		this.key = key;
+		this.connectHandler = connectHandler;
+	}
+
+	/**
+	 * @param req a connect request read from a newly accepted socket
+	 * @return true if the request is for a multiplexed link rather than a single container connection
+	 */
+	public static boolean isLinkRequest(ConnectRequestMessage req) {
+		return LINK_REQUEST.equals(req.getData());
+	}
+
+	/**
+	 * Accept a multiplexed link on a server socket.  Session connect requests
+	 * received over the link are passed to the given handler.
+	 *
+	 * @param aSocket the accepted socket
+	 * @param iStream object input stream for the socket
+	 * @param oStream object output stream for the socket
+	 * @param handler handler for session connect requests.  Must not be <code>null</code>.
+	 * @return MultiplexedLink the new link.  Will not be <code>null</code>.
+	 * @throws IOException if the link acknowledgement cannot be sent
+	 */
+	public static MultiplexedLink accept(Socket aSocket, ObjectInputStream iStream, ObjectOutputStream oStream, IMultiplexedConnectRequestHandler handler) throws IOException {
+		final MultiplexedLink link = new MultiplexedLink(null, handler);
+		final Client newClient = new Client(aSocket, iStream, oStream, link);
+		link.client = newClient;
+		synchronized (newClient.getOutputStreamLock()) {
+			oStream.writeObject(new ConnectResultMessage(new MultiplexMessage(MultiplexMessage.LINK, 0, null)));
+			oStream.flush();
+		}
+		newClient.start();
+		return link;
+	}
+
+	static String getKey(URI uri) {
+		return uri.getHost() + ":" + uri.getPort(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Get the client link to the host and port of the given target, connecting a new
+	 * link if there is none.  Each successful call must be balanced by a call to
+	 * {@link #release()}.
+	 *
+	 * @return MultiplexedLink the link, or <code>null</code> if the server does not support multiplexed links
+	 */
+	static MultiplexedLink getLink(ID targetID, URI uri, int keepAlive, int timeout) throws ECFException {
+		final String key = getKey(uri);
+		if (unsupported.contains(key))
+			return null;
+		MultiplexedLink link;
+		synchronized (links) {
+			link = links.get(key);
+			if (link == null) {
+				link = new MultiplexedLink(key, null);
+				links.put(key, link);
+			}
+			link.users++;
+		}
+		// Only the first session to get a new link connects it, the others wait here
+		synchronized (link) {
+			if (!link.connected && link.failure == null && !link.closed)
+				link.connect(targetID, keepAlive, timeout);
+			if (link.connected && !link.closed)
+				return link;
+		}
+		link.release();
+		if (link.failure != null)
+			throw link.failure;
+		if (unsupported.contains(key))
+			return null;
+		throw new ECFException("Link to " + key + " closed"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private void connect(ID targetID, int keepAlive, int timeout) {
+		final Client c = new Client(this, keepAlive);
+		try {
+			final Object res = c.connect(targetID, LINK_REQUEST, timeout);
+			if (!(res instanceof MultiplexMessage)) {
+				debug("server does not support multiplexed links: " + key); //$NON-NLS-1$
+				c.disconnect();
+				unsupported.add(key);
+				return;
+			}
+		} catch (final ECFException e) {
+			c.disconnect();
+			failure = e;
+			return;
+		}
+		client = c;
+		connected = true;
+		c.start();
+	}
+
+	/**
+	 * Release a link returned by {@link #getLink(ID, URI, int, int)}.  The
+	 * link is closed when it has no more users.
+	 */
+	void release() {
+		synchronized (links) {
+			if (--users > 0)
+				return;
+			if (links.get(key) == this)
+				links.remove(key);
+		}
+		close(null);
+	}
+
+	int addSession(MultiplexedConnection connection) {
+		final int id = nextSession.incrementAndGet();
+		sessions.put(Integer.valueOf(id), connection);
+		return id;
+	}
+
+	void removeSession(int session) {
+		if (sessions.remove(Integer.valueOf(session)) != null && key != null)
+			release();
+	}
+
+	void send(MultiplexMessage message) throws IOException {
+		final Client c = client;
+		if (c == null || closed)
+			throw new IOException("Link closed"); //$NON-NLS-1$
+		c.sendAsynch(null, message);
+	}
+
+	Socket getSocket() {
+		final Client c = client;
+		return (c == null) ? null : c.socket;
+	}
+
+	/**
+	 * @return int the number of sessions using this link
+	 */
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * @return boolean true if this link has been closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Close the link and disconnect all of its sessions.
+	 * @param e the exception that caused the link to close.  May be <code>null</code>.
+	 */
+	void close(Throwable e) {
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+		}
+		if (key != null) {
+			synchronized (links) {
+				if (links.get(key) == this)
+					links.remove(key);
+			}
+		}
+		final Client c = client;
+		if (c != null)
+			c.disconnect();
+		final IOException linkClosed = (e == null) ? new IOException("Link closed") : (e instanceof IOException) ? (IOException) e : new IOException(e.getMessage()); //$NON-NLS-1$
+		for (final Iterator<MultiplexedConnection> i = sessions.values().iterator(); i.hasNext();)
+			i.next().handleClosed(linkClosed);
+		sessions.clear();
+	}
+
+	public ID getEventHandlerID() {
+		return null;
+	}
+
+	public void handleConnectEvent(ConnectionEvent event) {
+		// nothing to do
+	}
+
+	public void handleDisconnectEvent(DisconnectEvent event) {
+		debug("link disconnected: " + event); //$NON-NLS-1$
+		close(event.getException());
+	}
+
+	public Object handleSynchEvent(SynchEvent event) throws IOException {
+		throw new IOException("Unexpected synch message on multiplexed link"); //$NON-NLS-1$
+	}
+
+	public void handleAsynchEvent(AsynchEvent event) throws IOException {
+		final Object data = event.getData();
+		if (!(data instanceof MultiplexMessage))
+			throw new IOException("Invalid message received on multiplexed link"); //$NON-NLS-1$
+		final MultiplexMessage message = (MultiplexMessage) data;
+		if (message.getType() == MultiplexMessage.CONNECT) {
+			handleConnect(message);
+			return;
+		}
+		final MultiplexedConnection session = sessions.get(Integer.valueOf(message.getSession()));
+		if (session == null) {
+			debug("message for unknown session: " + message); //$NON-NLS-1$
+			return;
+		}
+		session.handleMessage(message);
+	}
+
+	private void handleConnect(final MultiplexMessage message) throws IOException {
+		if (connectHandler == null)
+			throw new IOException("Unexpected connect request on multiplexed link"); //$NON-NLS-1$
+		final Integer id = Integer.valueOf(message.getSession());
+		if (sessions.containsKey(id))
+			throw new IOException("Duplicate session id " + id); //$NON-NLS-1$
+		final MultiplexedConnection session = new MultiplexedConnection(this, message.getSession());
+		sessions.put(id, session);
+		// Handle connect off the receive thread, so other sessions are not held up
+		final Thread t = new Thread(new Runnable() {
+			public void run() {
+				Serializable result;
+				try {
+					result = connectHandler.handleConnectRequest(session, (ConnectRequestMessage) message.getData());
+				} catch (final Exception e) {
+					traceStack("Exception in session connect", e); //$NON-NLS-1$
+					sessions.remove(id);
+					result = new IOException(e.getMessage());
+				}
+				session.connectResult(result);
+			}
+		}, "MultiplexedLink:connect:" + id); //$NON-NLS-1$
+		t.setDaemon(true);
+		t.start();
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, "MultiplexedLink." + msg); //$NON-NLS-1$
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, MultiplexedLink.class, msg, e);
+	}
+
+	public String toString() {
+		return "MultiplexedLink[" + ((key == null) ? String.valueOf(getSocket()) : key) + ";sessions=" + sessions.size() + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
@@ -0,0 +1,729 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.util.ECFException;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.*;
+
+/**
+ * Non-blocking implementation of {@link ISynchAsynchConnection}.  Unlike {@link Client},
+ * which uses dedicated sender, receiver and keep alive threads for every connection,
+ * all NIOClient instances share the selector threads and dispatch executor of a
+ * {@link NIOEventLoopGroup}.
+ * <p>
+ * Messages are sent as length prefixed frames.  The byte[] payloads of asynchronous
+ * messages (i.e. serialized container messages) are written as-is without any
+ * additional object serialization.  All other messages (connect, synch) are written
+ * with java serialization.  Because of this, an NIOClient can only communicate
+ * with a {@link NIOServer}, and not with a {@link Server}.  This connection does not
+ * use the {@link SocketFactory}, and does not support SSL.
+ * </p>
+ * <p>
+ * Received messages for a given connection are delivered to the event handler in order,
+ * and one at a time, on the dispatch executor of the event loop group.
+ * </p>
+ * <p>
+ * {@link #stop()} stops reading from the socket and holds back any messages already
+ * received, until the connection is started again.  A disconnect is delivered, after
+ * the messages held back, even while stopped.
+ * </p>
+ *
+ * @since 4.10
+ */
+public final class NIOClient implements ISynchAsynchConnection, IGatheringAsynchConnection {
+	public static final String PROTOCOL = Client.PROTOCOL;
+	public static final long DEFAULT_CLOSE_TIMEOUT = Client.DEFAULT_CLOSE_TIMEOUT;
+	public static final int DEFAULT_WAIT_INTERVAL = Client.DEFAULT_WAIT_INTERVAL;
+	// Frames larger than this are considered a protocol violation
+	public static final int DEFAULT_MAX_FRAME_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.maxFrameSize", String.valueOf(64 * 1024 * 1024))); //$NON-NLS-1$
+	public static final int DEFAULT_READ_BUFFER_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.readBufferSize", "16384")); //$NON-NLS-1$ //$NON-NLS-2$
+	// Max number of queued buffers given to a single gathering write
+	static final int MAX_GATHER = 64;
+	// Max number of received messages delivered per dispatch task
+	static final int MAX_DISPATCH = 64;
+
+	// Frame layout: 4 byte payload length, 1 byte frame type, payload
+	static final int HEADER_LENGTH = 5;
+	static final byte FRAME_OBJECT = 0;
+	static final byte FRAME_BYTES = 1;
+	static final byte FRAME_PING = 2;
+	static final byte FRAME_PING_RESPONSE = 3;
+
+	private NIOEventLoopGroup group;
+	private SocketChannel channel;
+	private String addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
+	protected ISynchAsynchEventHandler handler;
+	// Non-null for server side connections until the connect request has been handled
+	private volatile INIOConnectRequestHandler connectHandler;
+	protected int keepAlive = 0;
+	protected long closeTimeout = DEFAULT_CLOSE_TIMEOUT;
+	protected Map properties;
+	protected ID containerID = null;
+
+	// Loop and key are set on the selector thread when registered
+	private volatile NIOEventLoop loop;
+	private volatile SelectionKey key;
+	private boolean registrationRequested = false;
+
+	private final Object writeLock = new Object();
+	private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<ByteBuffer>();
+	private boolean flushScheduled = false;
+	private ByteBuffer readBuffer;
+
+	private final Queue<Runnable> inbound = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicBoolean dispatching = new AtomicBoolean();
+
+	private volatile long lastRead;
+	private volatile long lastWrite;
+	private volatile boolean started = false;
+	// Set when stopped after having been started
+	private volatile boolean stopped = false;
+	private volatile boolean closed = false;
+	protected volatile boolean isClosing = false;
+	private final Object closeLock = new Object();
+	boolean disconnectHandled = false;
+	private final Object disconnectLock = new Object();
+
+	/**
+	 * Create client side connection using the default {@link NIOEventLoopGroup}.
+	 * @param handler the event handler.  Must not be <code>null</code>.
+	 * @param keepAlive keep alive interval in ms.  If &lt;= 0, keep alive is disabled.
+	 */
+	public NIOClient(ISynchAsynchEventHandler handler, int keepAlive) {
+		this(null, handler, keepAlive);
+	}
+
+	/**
+	 * Create client side connection.
+	 * @param group the event loop group.  If <code>null</code> the default group will be used.
+	 * @param handler the event handler.  Must not be <code>null</code>.
+	 * @param keepAlive keep alive interval in ms.  If &lt;= 0, keep alive is disabled.
+	 */
+	public NIOClient(NIOEventLoopGroup group, ISynchAsynchEventHandler handler, int keepAlive) {
+		if (handler == null)
+			throw new NullPointerException("event handler cannot be null"); //$NON-NLS-1$
+		this.group = group;
+		this.handler = handler;
+		this.keepAlive = keepAlive;
+		containerID = handler.getEventHandlerID();
+		this.properties = new HashMap();
+	}
+
+	// Server side connection, created by NIOServer on accept
+	NIOClient(NIOEventLoopGroup group, SocketChannel channel, int keepAlive, INIOConnectRequestHandler connectHandler) throws IOException {
+		this.group = group;
+		this.keepAlive = keepAlive;
+		this.connectHandler = connectHandler;
+		this.properties = new Properties();
+		setChannel(channel);
+		setChannelOptions(channel);
+		channel.configureBlocking(false);
+		lastRead = lastWrite = System.currentTimeMillis();
+	}
+
+	private void setChannel(SocketChannel ch) {
+		channel = ch;
+		if (ch != null) {
+			Socket s = ch.socket();
+			addressPort = s.getLocalPort() + ":" //$NON-NLS-1$
+					+ s.getInetAddress().getHostAddress() + ":" + s.getPort(); //$NON-NLS-1$
+		} else
+			addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
+	}
+
+	private void setChannelOptions(SocketChannel ch) throws IOException {
+		ch.socket().setTcpNoDelay(true);
+		if (keepAlive > 0)
+			ch.socket().setKeepAlive(true);
+	}
+
+	SocketChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * @return Socket the socket associated with this connection.  May be <code>null</code> if not connected.
+	 */
+	public Socket getSocket() {
+		SocketChannel ch = channel;
+		return (ch == null) ? null : ch.socket();
+	}
+
+	/**
+	 * Set the event handler for a server side connection.  Intended to be called by
+	 * {@link INIOConnectRequestHandler#handleConnectRequest(NIOClient, ConnectRequestMessage)}.
+	 * @param handler the event handler.  Must not be <code>null</code>.
+	 */
+	public synchronized void setEventHandler(ISynchAsynchEventHandler handler) {
+		if (handler == null)
+			throw new NullPointerException("event handler cannot be null"); //$NON-NLS-1$
+		this.handler = handler;
+		this.containerID = handler.getEventHandlerID();
+	}
+
+	public synchronized ID getLocalID() {
+		if (containerID != null)
+			return containerID;
+		Socket s = getSocket();
+		if (s == null)
+			return null;
+		try {
+			return IDFactory.getDefault().createStringID(PROTOCOL + "://" + s.getLocalAddress().getHostAddress() + ":" + s.getLocalPort()); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (final Exception e) {
+			traceStack("Exception in getLocalID()", e); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	public void removeListener(IConnectionListener l) {
+		// XXX does not support listeners
+	}
+
+	public void addListener(IConnectionListener l) {
+		// XXX does not support listeners
+	}
+
+	public boolean isConnected() {
+		SocketChannel ch = channel;
+		return ch != null && !closed && ch.isConnected();
+	}
+
+	public boolean isStarted() {
+		return started && !closed;
+	}
+
+	public synchronized Object connect(ID remote, Object data, int timeout) throws ECFException {
+		debug("connect(" + remote + "," + data + "," + timeout + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		if (channel != null)
+			throw new ECFException("Already connected"); //$NON-NLS-1$
+		if (remote == null)
+			throw new ECFException("remote cannot be null"); //$NON-NLS-1$
+		URI anURI = null;
+		try {
+			anURI = new URI(remote.getName());
+		} catch (final URISyntaxException e) {
+			throw new ECFException("Invalid URI for remoteID=" + remote, e); //$NON-NLS-1$
+		}
+		ConnectResultMessage res = null;
+		SocketChannel ch = null;
+		try {
+			if (group == null)
+				group = NIOEventLoopGroup.getDefault();
+			ch = SocketChannel.open();
+			setChannelOptions(ch);
+			// Connect and handshake are done in blocking mode on the calling thread
+			ch.socket().connect(new InetSocketAddress(anURI.getHost(), anURI.getPort()), timeout);
+			ch.socket().setSoTimeout((timeout > 0) ? timeout : keepAlive);
+			setChannel(ch);
+			debug("connect;" + anURI); //$NON-NLS-1$
+			ByteBuffer req = encodeObject(new ConnectRequestMessage(anURI, (Serializable) data));
+			while (req.hasRemaining())
+				ch.write(req);
+			// The socket adapter input stream honors the socket timeout, reading directly from the channel does not
+			final DataInputStream ins = new DataInputStream(ch.socket().getInputStream());
+			final int length = ins.readInt();
+			final byte type = ins.readByte();
+			if (type != FRAME_OBJECT || length < 0 || length > DEFAULT_MAX_FRAME_SIZE)
+				throw new IOException("Invalid connect response frame"); //$NON-NLS-1$
+			final byte[] payload = new byte[length];
+			ins.readFully(payload);
+			res = (ConnectResultMessage) decodeObject(payload);
+			ch.socket().setSoTimeout(0);
+			ch.configureBlocking(false);
+		} catch (final IOException e) {
+			closeChannel(ch);
+			setChannel(null);
+			throw new ECFException("Exception during connection to " + remote.getName(), e); //$NON-NLS-1$
+		}
+		debug("connect;rcv:" + res); //$NON-NLS-1$
+		if (res == null)
+			throw new ECFException("Result cannot be null"); //$NON-NLS-1$
+		lastRead = lastWrite = System.currentTimeMillis();
+		final Object ret = res.getData();
+		debug("connect;returning:" + ret); //$NON-NLS-1$
+		return ret;
+	}
+
+	public synchronized void start() {
+		debug("start()"); //$NON-NLS-1$
+		if (started || channel == null || closed)
+			return;
+		started = true;
+		if (stopped) {
+			stopped = false;
+			// Nothing was read while stopped
+			lastRead = System.currentTimeMillis();
+			// Resume reading and deliver the messages held back
+			scheduleFlush();
+			scheduleDispatch();
+			return;
+		}
+		// Server side connections are registered when accepted
+		register();
+	}
+
+	synchronized void register() {
+		if (registrationRequested)
+			return;
+		registrationRequested = true;
+		group.next().register(this);
+	}
+
+	public synchronized void stop() {
+		debug("stop()"); //$NON-NLS-1$
+		if (!started || closed)
+			return;
+		started = false;
+		stopped = true;
+		// Stop reading
+		scheduleFlush();
+	}
+
+	// Called on selector thread
+	void registered(NIOEventLoop l, SelectionKey k) {
+		this.key = k;
+		this.loop = l;
+		if (closed) {
+			k.cancel();
+			l.deregister(this);
+			return;
+		}
+		flush();
+	}
+
+	// Called on selector thread
+	void handleSelected(SelectionKey k) {
+		if (k.isValid() && k.isReadable())
+			read();
+		if (k.isValid() && k.isWritable())
+			flush();
+	}
+
+	private void read() {
+		try {
+			if (readBuffer == null)
+				readBuffer = ByteBuffer.allocate(DEFAULT_READ_BUFFER_SIZE);
+			final int n = channel.read(readBuffer);
+			if (n < 0)
+				throw new EOFException("Connection closed by remote " + getAddressPort()); //$NON-NLS-1$
+			if (n == 0)
+				return;
+			lastRead = System.currentTimeMillis();
+			readBuffer.flip();
+			while (readBuffer.remaining() >= HEADER_LENGTH) {
+				final int start = readBuffer.position();
+				final int length = readBuffer.getInt(start);
+				if (length < 0 || length > DEFAULT_MAX_FRAME_SIZE)
+					throw new IOException("Invalid frame length=" + length + " from " + getAddressPort()); //$NON-NLS-1$ //$NON-NLS-2$
+				if (readBuffer.remaining() < HEADER_LENGTH + length) {
+					// Make sure the rest of a large frame will fit
+					if (HEADER_LENGTH + length > readBuffer.capacity()) {
+						final ByteBuffer larger = ByteBuffer.allocate(HEADER_LENGTH + length);
+						larger.put(readBuffer);
+						readBuffer = larger;
+						return;
+					}
+					break;
+				}
+				final byte type = readBuffer.get(start + 4);
+				readBuffer.position(start + HEADER_LENGTH);
+				final byte[] payload = new byte[length];
+				readBuffer.get(payload);
+				handleFrame(type, payload);
+			}
+			if (readBuffer.hasRemaining() || readBuffer.capacity() == DEFAULT_READ_BUFFER_SIZE)
+				readBuffer.compact();
+			else
+				// Release any buffer that was enlarged for a large frame
+				readBuffer = null;
+		} catch (final IOException e) {
+			close(e);
+		}
+	}
+
+	private void handleFrame(byte type, final byte[] payload) throws IOException {
+		switch (type) {
+			case FRAME_PING :
+				// Respond to ping immediately, without going through dispatch
+				enqueue(encodeHeader(FRAME_PING_RESPONSE, 0));
+				break;
+			case FRAME_PING_RESPONSE :
+				// lastRead has already been updated
+				break;
+			case FRAME_BYTES :
+			case FRAME_OBJECT :
+				final boolean bytes = (type == FRAME_BYTES);
+				dispatch(() -> deliver(bytes, payload));
+				break;
+			default :
+				throw new IOException("Invalid frame type=" + type + " from " + getAddressPort()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private void dispatch(Runnable r) {
+		inbound.add(r);
+		scheduleDispatch();
+	}
+
+	private void scheduleDispatch() {
+		if (dispatching.compareAndSet(false, true)) {
+			try {
+				group.getDispatchExecutor().execute(() -> drainInbound());
+			} catch (RejectedExecutionException e) {
+				// group has been shut down
+				dispatching.set(false);
+			}
+		}
+	}
+
+	private void drainInbound() {
+		try {
+			Runnable r;
+			for (int i = 0; i < MAX_DISPATCH && isDelivering() && (r = inbound.poll()) != null; i++)
+				r.run();
+		} finally {
+			dispatching.set(false);
+		}
+		// Don't hog a dispatch thread, re-submit if there is more work
+		if (isDelivering() && !inbound.isEmpty())
+			scheduleDispatch();
+	}
+
+	// Received messages are held back while stopped, unless closed
+	private boolean isDelivering() {
+		return !stopped || closed;
+	}
+
+	// Called on dispatch thread, one message at a time for this connection
+	private void deliver(boolean bytes, byte[] payload) {
+		if (closed && disconnectHandled)
+			return;
+		try {
+			if (connectHandler != null) {
+				handleConnectRequest(payload);
+				return;
+			}
+			if (bytes) {
+				handler.handleAsynchEvent(new AsynchEvent(this, payload));
+				return;
+			}
+			final Object rcv = decodeObject(payload);
+			if (rcv instanceof SynchMessage) {
+				// Handle synch message. The only valid synch message is 'close'.
+				handler.handleSynchEvent(new SynchEvent(this, ((SynchMessage) rcv).getData()));
+			} else if (rcv instanceof AsynchMessage) {
+				handler.handleAsynchEvent(new AsynchEvent(this, ((AsynchMessage) rcv).getData()));
+			} else
+				throw new IOException("Invalid message received"); //$NON-NLS-1$
+		} catch (final Exception e) {
+			disconnect();
+			handleException(e);
+		}
+	}
+
+	private void handleConnectRequest(byte[] payload) throws Exception {
+		final Object o = decodeObject(payload);
+		if (!(o instanceof ConnectRequestMessage))
+			throw new InvalidObjectException("Invalid connect request"); //$NON-NLS-1$
+		Serializable resp = null;
+		try {
+			resp = connectHandler.handleConnectRequest(this, (ConnectRequestMessage) o);
+			if (handler == null)
+				throw new IllegalStateException("Connect request handler did not set event handler"); //$NON-NLS-1$
+		} catch (final Exception e) {
+			traceStack("Unexpected exception in handleConnectRequest...closing", e); //$NON-NLS-1$
+			// Nobody to notify of the disconnect
+			disconnectHandled = true;
+			connectHandler = null;
+			disconnect();
+			return;
+		}
+		final ByteBuffer result = encodeObject(new ConnectResultMessage(resp));
+		synchronized (writeLock) {
+			// The connect result must be the first message written on this connection
+			writeQueue.addFirst(result);
+			connectHandler = null;
+		}
+		scheduleFlush();
+	}
+
+	private void enqueue(ByteBuffer... frame) throws IOException {
+		synchronized (writeLock) {
+			if (closed || channel == null)
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+			for (int i = 0; i < frame.length; i++)
+				writeQueue.add(frame[i]);
+		}
+		scheduleFlush();
+	}
+
+	private void scheduleFlush() {
+		final NIOEventLoop l = loop;
+		// If not yet registered, the queue will be flushed on registration
+		if (l == null)
+			return;
+		if (l.inLoop()) {
+			flush();
+			return;
+		}
+		synchronized (writeLock) {
+			if (flushScheduled)
+				return;
+			flushScheduled = true;
+		}
+		l.execute(() -> {
+			synchronized (writeLock) {
+				flushScheduled = false;
+			}
+			flush();
+		});
+	}
+
+	// Called on selector thread
+	private void flush() {
+		// Nothing is written until the connect request has been handled
+		if (connectHandler != null || closed)
+			return;
+		try {
+			synchronized (writeLock) {
+				while (!writeQueue.isEmpty()) {
+					final ByteBuffer[] bufs = new ByteBuffer[Math.min(MAX_GATHER, writeQueue.size())];
+					final Iterator<ByteBuffer> it = writeQueue.iterator();
+					for (int i = 0; i < bufs.length; i++)
+						bufs[i] = it.next();
+					channel.write(bufs);
+					lastWrite = System.currentTimeMillis();
+					while (!writeQueue.isEmpty() && !writeQueue.peek().hasRemaining())
+						writeQueue.poll();
+					// Socket send buffer is full
+					if (bufs[bufs.length - 1].hasRemaining())
+						break;
+				}
+				if (key != null && key.isValid()) {
+					final int ops = stopped ? 0 : SelectionKey.OP_READ;
+					key.interestOps(writeQueue.isEmpty() ? ops : (ops | SelectionKey.OP_WRITE));
+				}
+			}
+		} catch (final IOException e) {
+			close(e);
+		}
+	}
+
+	// Called on selector thread
+	void checkKeepAlive(long now) {
+		if (keepAlive <= 0 || closed)
+			return;
+		// Nothing is read while stopped, but pings are still sent so the remote keeps the connection
+		if (!stopped && now - lastRead > keepAlive) {
+			close(new IOException(getAddressPort() + " remote not reachable by ping")); //$NON-NLS-1$
+			return;
+		}
+		if ((started || stopped) && connectHandler == null && now - lastWrite >= keepAlive / 2) {
+			try {
+				enqueue(encodeHeader(FRAME_PING, 0));
+			} catch (final IOException e) {
+				close(e);
+			}
+		}
+	}
+
+	private void close(Throwable e) {
+		synchronized (closeLock) {
+			if (closed)
+				return;
+			closed = true;
+			closeLock.notifyAll();
+		}
+		debug("close(" + e + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (key != null)
+			key.cancel();
+		final NIOEventLoop l = loop;
+		if (l != null)
+			l.deregister(this);
+		closeChannel(channel);
+		synchronized (writeLock) {
+			writeQueue.clear();
+		}
+		// Deliver disconnect after any messages already received
+		if (handler != null && group != null)
+			dispatch(() -> handleException(e));
+		else
+			handleException(e);
+	}
+
+	private void closeChannel(SocketChannel ch) {
+		if (ch == null)
+			return;
+		try {
+			ch.close();
+		} catch (final IOException e) {
+			traceStack("closeChannel Exception", e); //$NON-NLS-1$
+		}
+	}
+
+	void handleException(Throwable e) {
+		synchronized (disconnectLock) {
+			if (!disconnectHandled) {
+				disconnectHandled = true;
+				if (e != null)
+					traceStack("handleException in thread=" //$NON-NLS-1$
+							+ Thread.currentThread().getName(), e);
+				if (handler != null)
+					handler.handleDisconnectEvent(new DisconnectEvent(this, e, null));
+			}
+		}
+		synchronized (NIOClient.this) {
+			NIOClient.this.notifyAll();
+		}
+	}
+
+	public void setCloseTimeout(long t) {
+		closeTimeout = t;
+	}
+
+	public void disconnect() {
+		debug("disconnect()"); //$NON-NLS-1$
+		close(null);
+	}
+
+	public void sendAsynch(ID recipient, byte[] obj) throws IOException {
+		queueObject(recipient, obj);
+	}
+
+	public void sendAsynch(ID recipient, Object obj) throws IOException {
+		queueObject(recipient, (Serializable) obj);
+	}
+
+	public void sendAsynch(ID recipient, byte[] header, byte[] body) throws IOException {
+		if (closed || isClosing)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		// Both parts follow the frame header in one gathering write, neither is copied
+		enqueue(encodeHeader(FRAME_BYTES, header.length + body.length), ByteBuffer.wrap(header), ByteBuffer.wrap(body));
+	}
+
+	public void queueObject(ID recipient, Serializable obj) throws IOException {
+		if (closed || isClosing)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		if (obj instanceof byte[]) {
+			final byte[] bytes = (byte[]) obj;
+			// Header and payload are written with a single gathering write, payload is not copied
+			enqueue(encodeHeader(FRAME_BYTES, bytes.length), ByteBuffer.wrap(bytes));
+		} else
+			enqueue(encodeObject(new AsynchMessage(obj)));
+	}
+
+	public Serializable sendObject(ID recipient, Serializable obj) throws IOException {
+		if (closed || isClosing)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		isClosing = true;
+		debug("sendClose(" + obj + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+		enqueue(encodeObject(new SynchMessage(obj)));
+		// Wait for remote to close connection
+		synchronized (closeLock) {
+			int count = 0;
+			final int interval = DEFAULT_WAIT_INTERVAL;
+			while (!closed && count < interval) {
+				try {
+					closeLock.wait(closeTimeout / interval);
+					count++;
+				} catch (final InterruptedException e) {
+					traceStack("sendClose wait", e); //$NON-NLS-1$
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		return null;
+	}
+
+	public Object sendSynch(ID rec, Object obj) throws IOException {
+		return sendObject(rec, (Serializable) obj);
+	}
+
+	public Object sendSynch(ID rec, byte[] obj) throws IOException {
+		return sendObject(rec, obj);
+	}
+
+	static ByteBuffer encodeHeader(byte type, int length) {
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		header.putInt(length).put(type).flip();
+		return header;
+	}
+
+	static ByteBuffer encodeObject(Serializable obj) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		// Reserve space for header
+		bos.write(new byte[HEADER_LENGTH]);
+		final ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(obj);
+		oos.close();
+		final ByteBuffer frame = ByteBuffer.wrap(bos.toByteArray());
+		frame.putInt(0, frame.capacity() - HEADER_LENGTH).put(4, FRAME_OBJECT);
+		return frame;
+	}
+
+	static Object decodeObject(byte[] payload) throws IOException {
+		final ObjectInputStream ois = ProviderPlugin.getDefault().createObjectInputStream(new ByteArrayInputStream(payload));
+		try {
+			return ois.readObject();
+		} catch (final ClassNotFoundException e) {
+			final IOException except = new IOException("Protocol violation due to class load failure"); //$NON-NLS-1$
+			except.setStackTrace(e.getStackTrace());
+			throw except;
+		} finally {
+			ois.close();
+		}
+	}
+
+	public Map getProperties() {
+		return properties;
+	}
+
+	public void setProperties(Map props) {
+		this.properties = props;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Object getAdapter(Class clazz) {
+		return null;
+	}
+
+	String getAddressPort() {
+		return addressPort;
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, containerID + "." + msg); //$NON-NLS-1$
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOClient.class, msg, e);
+	}
+
+	public String toString() {
+		return "NIOClient[" + containerID + ";" + getAddressPort() + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
@@ -0,0 +1,158 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.IOException;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * Single selector thread servicing the accept, read and write readiness of
+ * many channels.  All selection key manipulation happens on the loop thread;
+ * other threads submit work via {@link #execute(Runnable)}.
+ */
+class NIOEventLoop implements Runnable {
+
+	// Interval for checking keep alive of registered connections
+	static final long TICK_INTERVAL = 1000;
+
+	private final Selector selector;
+	private final Thread thread;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+	// only accessed by loop thread
+	private final Set<NIOClient> connections = new HashSet<NIOClient>();
+	private volatile int connectionCount = 0;
+	private volatile boolean closed = false;
+
+	NIOEventLoop(String name) throws IOException {
+		selector = Selector.open();
+		thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	boolean inLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	void execute(Runnable task) {
+		tasks.add(task);
+		if (!inLoop())
+			selector.wakeup();
+	}
+
+	int getConnectionCount() {
+		return connectionCount;
+	}
+
+	void register(final NIOClient client) {
+		execute(() -> {
+			try {
+				SelectionKey key = client.getChannel().register(selector, SelectionKey.OP_READ, client);
+				connections.add(client);
+				connectionCount = connections.size();
+				client.registered(this, key);
+			} catch (IOException e) {
+				client.handleException(e);
+			}
+		});
+	}
+
+	void deregister(final NIOClient client) {
+		execute(() -> {
+			connections.remove(client);
+			connectionCount = connections.size();
+		});
+	}
+
+	void register(final NIOServer server) {
+		execute(() -> {
+			try {
+				server.registered(this, server.getChannel().register(selector, SelectionKey.OP_ACCEPT, server));
+			} catch (IOException e) {
+				traceStack("Could not register server channel", e); //$NON-NLS-1$
+			}
+		});
+	}
+
+	public void run() {
+		long lastTick = System.currentTimeMillis();
+		while (!closed) {
+			try {
+				selector.select(TICK_INTERVAL);
+				Set<SelectionKey> selected = selector.selectedKeys();
+				for (Iterator<SelectionKey> i = selected.iterator(); i.hasNext();) {
+					SelectionKey key = i.next();
+					i.remove();
+					Object attachment = key.attachment();
+					if (attachment instanceof NIOServer)
+						((NIOServer) attachment).handleSelected(key);
+					else if (attachment instanceof NIOClient)
+						((NIOClient) attachment).handleSelected(key);
+				}
+				// Includes any tasks submitted while handling selected keys
+				runTasks();
+				long now = System.currentTimeMillis();
+				if (now - lastTick >= TICK_INTERVAL) {
+					lastTick = now;
+					for (NIOClient c : connections.toArray(new NIOClient[connections.size()]))
+						c.checkKeepAlive(now);
+				}
+			} catch (ClosedSelectorException e) {
+				break;
+			} catch (Exception e) {
+				// Never let a single misbehaving channel kill the loop
+				traceStack("Exception in selector loop", e); //$NON-NLS-1$
+			}
+		}
+		runTasks();
+		for (NIOClient c : connections.toArray(new NIOClient[connections.size()]))
+			c.disconnect();
+		connections.clear();
+		connectionCount = 0;
+		try {
+			selector.close();
+		} catch (IOException e) {
+			traceStack("Exception closing selector", e); //$NON-NLS-1$
+		}
+		debug("SELECTOR TERMINATING"); //$NON-NLS-1$
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (Exception e) {
+				traceStack("Exception in selector task", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	void close() {
+		closed = true;
+		selector.wakeup();
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, thread.getName() + "." + msg); //$NON-NLS-1$
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOEventLoop.class, msg, e);
+	}
+}
@@ -0,0 +1,118 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small, fixed set of selector event loops shared by all {@link NIOClient}
+ * and {@link NIOServer} instances, plus the executor used to deliver received
+ * messages to connection event handlers.  The number of threads used by
+ * this group is independent of the number of connections.
+ *
+ * @since 4.10
+ */
+public class NIOEventLoopGroup {
+
+	public static final int DEFAULT_SELECTOR_THREADS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.selectorThreads", String.valueOf(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()))))); //$NON-NLS-1$
+
+	public static final int DEFAULT_DISPATCH_THREADS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.dispatchThreads", String.valueOf(Math.max(2, 2 * Runtime.getRuntime().availableProcessors())))); //$NON-NLS-1$
+
+	private static NIOEventLoopGroup defaultGroup;
+
+	private final String name;
+	private final NIOEventLoop[] loops;
+	private final ExecutorService dispatchExecutor;
+	private final AtomicInteger nextLoop = new AtomicInteger();
+
+	public NIOEventLoopGroup(String name, int selectorThreads, int dispatchThreads) throws IOException {
+		if (selectorThreads < 1 || dispatchThreads < 1)
+			throw new IllegalArgumentException("selectorThreads and dispatchThreads must be > 0"); //$NON-NLS-1$
+		this.name = name;
+		this.loops = new NIOEventLoop[selectorThreads];
+		try {
+			for (int i = 0; i < loops.length; i++)
+				loops[i] = new NIOEventLoop(name + ":selector-" + i); //$NON-NLS-1$
+		} catch (IOException e) {
+			for (int i = 0; i < loops.length; i++)
+				if (loops[i] != null)
+					loops[i].close();
+			throw e;
+		}
+		final AtomicInteger threadCount = new AtomicInteger();
+		this.dispatchExecutor = Executors.newFixedThreadPool(dispatchThreads, r -> {
+			Thread t = new Thread(r, name + ":dispatch-" + threadCount.getAndIncrement()); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * @return the default event loop group, created on first use and sized by
+	 * the <code>org.eclipse.ecf.provider.comm.tcp.nio.selectorThreads</code> and
+	 * <code>org.eclipse.ecf.provider.comm.tcp.nio.dispatchThreads</code> system properties.
+	 * @throws IOException if the selectors cannot be opened
+	 */
+	public static synchronized NIOEventLoopGroup getDefault() throws IOException {
+		if (defaultGroup == null)
+			defaultGroup = new NIOEventLoopGroup("ecf.nio", DEFAULT_SELECTOR_THREADS, DEFAULT_DISPATCH_THREADS); //$NON-NLS-1$
+		return defaultGroup;
+	}
+
+	/**
+	 * Shut down the default event loop group, if it has been created.
+	 */
+	public static synchronized void shutdownDefault() {
+		if (defaultGroup != null) {
+			defaultGroup.shutdown();
+			defaultGroup = null;
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	NIOEventLoop next() {
+		return loops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+	}
+
+	Executor getDispatchExecutor() {
+		return dispatchExecutor;
+	}
+
+	/**
+	 * @return the number of connections currently registered with all event loops of this group
+	 */
+	public int getConnectionCount() {
+		int count = 0;
+		for (int i = 0; i < loops.length; i++)
+			count += loops[i].getConnectionCount();
+		return count;
+	}
+
+	public void shutdown() {
+		for (int i = 0; i < loops.length; i++)
+			loops[i].close();
+		dispatchExecutor.shutdown();
+	}
+
+	public String toString() {
+		StringBuffer buf = new StringBuffer("NIOEventLoopGroup["); //$NON-NLS-1$
+		buf.append(name).append(";selectors=").append(loops.length); //$NON-NLS-1$
+		buf.append(";connections=").append(getConnectionCount()).append("]"); //$NON-NLS-1$ //$NON-NLS-2$
+		return buf.toString();
+	}
+}
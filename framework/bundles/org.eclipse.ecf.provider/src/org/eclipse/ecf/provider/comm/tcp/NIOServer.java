@@ -0,0 +1,126 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.comm.tcp;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * Non-blocking server socket.  Accepted connections are spread across the
+ * selector threads of a {@link NIOEventLoopGroup} rather than being given
+ * their own threads.
+ *
+ * @since 4.10
+ */
+public class NIOServer {
+
+	public static final int DEFAULT_BACKLOG = Server.DEFAULT_BACKLOG;
+
+	private final NIOEventLoopGroup group;
+	private final ServerSocketChannel channel;
+	private final int keepAlive;
+	private final INIOConnectRequestHandler connectHandler;
+	private SelectionKey key;
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, msg);
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOServer.class, msg, e);
+	}
+
+	/**
+	 * @param group the event loop group to use for the server and accepted connections
+	 * @param port port
+	 * @param backlog backlog
+	 * @param bindAddress a bindAddress.  May be <code>null</code>.
+	 * @param keepAlive keep alive for accepted connections
+	 * @param handler the connect request handler.  Must not be <code>null</code>.
+	 * @throws IOException if server setup cannot be done
+	 */
+	public NIOServer(NIOEventLoopGroup group, int port, int backlog, InetAddress bindAddress, int keepAlive, INIOConnectRequestHandler handler) throws IOException {
+		if (group == null)
+			throw new NullPointerException("Event loop group cannot be null"); //$NON-NLS-1$
+		if (handler == null)
+			throw new NullPointerException("Connect request handler cannot be null"); //$NON-NLS-1$
+		this.group = group;
+		this.keepAlive = keepAlive;
+		this.connectHandler = handler;
+		channel = ServerSocketChannel.open();
+		try {
+			channel.socket().setReuseAddress(true);
+			channel.bind((bindAddress == null) ? new InetSocketAddress(port) : new InetSocketAddress(bindAddress, port), backlog);
+			channel.configureBlocking(false);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		group.next().register(this);
+	}
+
+	ServerSocketChannel getChannel() {
+		return channel;
+	}
+
+	void registered(NIOEventLoop loop, SelectionKey k) {
+		this.key = k;
+	}
+
+	public int getLocalPort() {
+		return channel.socket().getLocalPort();
+	}
+
+	void handleSelected(SelectionKey k) {
+		if (!k.isValid() || !k.isAcceptable())
+			return;
+		for (;;) {
+			SocketChannel sc = null;
+			try {
+				sc = channel.accept();
+				if (sc == null)
+					return;
+				debug("accept:" + sc.socket().getInetAddress()); //$NON-NLS-1$
+				new NIOClient(group, sc, keepAlive, connectHandler).register();
+			} catch (IOException e) {
+				traceStack("Exception in accept", e); //$NON-NLS-1$
+				if (sc != null) {
+					try {
+						sc.close();
+					} catch (IOException e1) {
+						// ignore
+					}
+				}
+				return;
+			}
+		}
+	}
+
+	public synchronized void close() throws IOException {
+		if (key != null) {
+			key.cancel();
+			key = null;
+		}
+		channel.close();
+	}
+
+	public String toString() {
+		return "NIOServer[" + getLocalPort() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -49,7 +49,7 @@ public final class SSLClient implements ISynchAsynchConnection {
 	// Event handler
 	protected ISynchAsynchEventHandler handler;
 	// Our queue
-	protected SimpleFIFOQueue queue = new SimpleFIFOQueue();
+	protected SimpleFIFOQueue queue = SimpleFIFOQueue.createSingleConsumerQueue();
 	protected int keepAlive = 0;
 	protected Thread sendThread;
 	protected Thread rcvThread;
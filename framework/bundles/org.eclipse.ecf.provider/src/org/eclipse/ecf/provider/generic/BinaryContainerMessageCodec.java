@@ -0,0 +1,382 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.*;
+import org.eclipse.ecf.core.identity.*;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * Compact codec for {@link ContainerMessage}s.  The message envelope (from and to
+ * container IDs, sequence number and message type) and the fields of the
+ * standard message types are written directly.  Java serialization is only used
+ * for opaque payloads, such as the data of a join group message, and for
+ * IDs that cannot be written as namespace/name pairs.  Shared object
+ * message payloads, which are already serialized to byte arrays by the
+ * container, are written as is.
+ * <p>
+ * The recipient dependent fields (to container ID and sequence) come first, so
+ * that when a message is sent to many recipients the rest of the message is only
+ * encoded once, and can be shared by all of them.
+ *
+ * @since 4.10
+ */
+public class BinaryContainerMessageCodec implements IContainerMessageCodec {
+
+	public static final String NAME = "ecf.binary"; //$NON-NLS-1$
+
+	private static final int MAGIC = 0xEC;
+	private static final int VERSION = 1;
+
+	// Message types
+	private static final int SERIALIZED = 0;
+	private static final int VIEW_CHANGE = 1;
+	private static final int CREATE = 2;
+	private static final int CREATE_RESPONSE = 3;
+	private static final int SHARED_OBJECT = 4;
+	private static final int SHARED_OBJECT_DISPOSE = 5;
+	private static final int JOIN_GROUP = 6;
+	private static final int LEAVE_GROUP = 7;
+	private static final int OTHER = 8;
+
+	// ID tags
+	private static final int ID_NULL = 0;
+	private static final int ID_STRING = 1;
+	private static final int ID_SERIALIZED = 2;
+
+	// Payload tags
+	private static final int DATA_NULL = 0;
+	private static final int DATA_BYTES = 1;
+	private static final int DATA_STRING = 2;
+	private static final int DATA_SERIALIZED = 3;
+
+	// Longest String guaranteed to fit in writeUTF
+	private static final int MAX_UTF_CHARS = 65535 / 3;
+
+	public String getName() {
+		return NAME;
+	}
+
+	public byte[] encode(ContainerMessage message) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+		final DataOutputStream out = new DataOutputStream(bos);
+		if (message.getClass() != ContainerMessage.class)
+			writeSerializedMessage(out, message);
+		else {
+			final int type = getType(message.getData());
+			writeHeader(out, type, message.getToContainerID(), message.getSequence());
+			writeBody(out, type, message);
+		}
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	public byte[][] encode(ContainerMessage message, ID[] toIDs, long[] sequences) throws IOException {
+		final byte[][] results = new byte[toIDs.length + 1][];
+		if (message.getClass() != ContainerMessage.class) {
+			for (int i = 0; i < toIDs.length; i++) {
+				message.setToContainerID(toIDs[i]);
+				message.setSequence(sequences[i]);
+				results[i] = encode(message);
+			}
+			results[toIDs.length] = new byte[0];
+			return results;
+		}
+		final int type = getType(message.getData());
+		// Only the small header is encoded for each recipient
+		final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(64);
+		final DataOutputStream headerOut = new DataOutputStream(headerBytes);
+		for (int i = 0; i < toIDs.length; i++) {
+			headerBytes.reset();
+			writeHeader(headerOut, type, toIDs[i], sequences[i]);
+			headerOut.flush();
+			results[i] = headerBytes.toByteArray();
+		}
+		// The from ID and message body are the same for all recipients, so are encoded once
+		final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(256);
+		final DataOutputStream bodyOut = new DataOutputStream(bodyBytes);
+		writeBody(bodyOut, type, message);
+		bodyOut.flush();
+		results[toIDs.length] = bodyBytes.toByteArray();
+		return results;
+	}
+
+	private void writeSerializedMessage(DataOutputStream out, ContainerMessage message) throws IOException {
+		out.writeByte(MAGIC);
+		out.writeByte(VERSION);
+		// Subclasses may have additional state, so they are serialized as a whole
+		out.writeByte(SERIALIZED);
+		writeSerialized(out, message);
+	}
+
+	/**
+	 * Write the per-recipient part of the message.
+	 */
+	private void writeHeader(DataOutputStream out, int type, ID toID, long sequence) throws IOException {
+		out.writeByte(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(type);
+		writeID(out, toID);
+		out.writeLong(sequence);
+	}
+
+	/**
+	 * Write the part of the message that does not depend upon the recipient.
+	 */
+	private void writeBody(DataOutputStream out, int type, ContainerMessage message) throws IOException {
+		writeID(out, message.getFromContainerID());
+		final Serializable data = message.getData();
+		switch (type) {
+			case VIEW_CHANGE :
+				final ContainerMessage.ViewChangeMessage vcm = (ContainerMessage.ViewChangeMessage) data;
+				out.writeBoolean(vcm.isAdd());
+				writeIDs(out, vcm.getChangeIDs());
+				writeData(out, vcm.getData());
+				writeStrings(out, (vcm.getCodec() == null) ? null : new String[] {vcm.getCodec()});
+				break;
+			case CREATE :
+				writeData(out, ((ContainerMessage.CreateMessage) data).getData());
+				break;
+			case CREATE_RESPONSE :
+				final ContainerMessage.CreateResponseMessage crm = (ContainerMessage.CreateResponseMessage) data;
+				writeID(out, crm.getSharedObjectID());
+				out.writeLong(crm.getSequence());
+				writeData(out, crm.getException());
+				break;
+			case SHARED_OBJECT :
+				final ContainerMessage.SharedObjectMessage som = (ContainerMessage.SharedObjectMessage) data;
+				writeID(out, som.getFromSharedObjectID());
+				writeData(out, som.getData());
+				break;
+			case SHARED_OBJECT_DISPOSE :
+				writeID(out, ((ContainerMessage.SharedObjectDisposeMessage) data).getSharedObjectID());
+				break;
+			case JOIN_GROUP :
+				final ContainerMessage.JoinGroupMessage jgm = (ContainerMessage.JoinGroupMessage) data;
+				writeData(out, jgm.getData());
+				writeStrings(out, jgm.getCodecs());
+				break;
+			case LEAVE_GROUP :
+				writeData(out, ((ContainerMessage.LeaveGroupMessage) data).getData());
+				break;
+			default :
+				writeData(out, data);
+		}
+	}
+
+	public ContainerMessage decode(byte[] bytes) throws IOException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		final int magic = in.readUnsignedByte();
+		if (magic != MAGIC)
+			throw new StreamCorruptedException("Invalid container message header " + magic); //$NON-NLS-1$
+		final int version = in.readUnsignedByte();
+		if (version != VERSION)
+			throw new StreamCorruptedException("Unsupported container message version " + version); //$NON-NLS-1$
+		final int type = in.readUnsignedByte();
+		if (type == SERIALIZED) {
+			final Object o = readSerialized(in);
+			if (!(o instanceof ContainerMessage))
+				throw new InvalidObjectException("object " + o + " not appropriate type"); //$NON-NLS-1$ //$NON-NLS-2$
+			return (ContainerMessage) o;
+		}
+		final ID toID = readID(in);
+		final long sequence = in.readLong();
+		final ID fromID = readID(in);
+		Serializable data = null;
+		switch (type) {
+			case VIEW_CHANGE :
+				final boolean add = in.readBoolean();
+				final ID[] ids = readIDs(in);
+				final Serializable vcData = readData(in);
+				final String[] codec = readStrings(in);
+				data = new ContainerMessage.ViewChangeMessage(ids, add, vcData, (codec == null) ? null : codec[0]);
+				break;
+			case CREATE :
+				data = new ContainerMessage.CreateMessage(readData(in));
+				break;
+			case CREATE_RESPONSE :
+				final ID soID = readID(in);
+				final long soSequence = in.readLong();
+				data = new ContainerMessage.CreateResponseMessage(soID, (Throwable) readData(in), soSequence);
+				break;
+			case SHARED_OBJECT :
+				final ID fromSharedObjectID = readID(in);
+				data = new ContainerMessage.SharedObjectMessage(fromSharedObjectID, readData(in));
+				break;
+			case SHARED_OBJECT_DISPOSE :
+				data = new ContainerMessage.SharedObjectDisposeMessage(readID(in));
+				break;
+			case JOIN_GROUP :
+				final Serializable jgData = readData(in);
+				data = new ContainerMessage.JoinGroupMessage(jgData, readStrings(in));
+				break;
+			case LEAVE_GROUP :
+				data = new ContainerMessage.LeaveGroupMessage(readData(in));
+				break;
+			case OTHER :
+				data = readData(in);
+				break;
+			default :
+				throw new StreamCorruptedException("Invalid container message type " + type); //$NON-NLS-1$
+		}
+		return new ContainerMessage(fromID, toID, sequence, data);
+	}
+
+	private int getType(Serializable data) {
+		if (data instanceof ContainerMessage.SharedObjectMessage)
+			return SHARED_OBJECT;
+		if (data instanceof ContainerMessage.ViewChangeMessage)
+			return VIEW_CHANGE;
+		if (data instanceof ContainerMessage.CreateMessage)
+			return CREATE;
+		if (data instanceof ContainerMessage.CreateResponseMessage)
+			return CREATE_RESPONSE;
+		if (data instanceof ContainerMessage.SharedObjectDisposeMessage)
+			return SHARED_OBJECT_DISPOSE;
+		if (data instanceof ContainerMessage.JoinGroupMessage)
+			return JOIN_GROUP;
+		if (data instanceof ContainerMessage.LeaveGroupMessage)
+			return LEAVE_GROUP;
+		return OTHER;
+	}
+
+	private void writeID(DataOutputStream out, ID id) throws IOException {
+		if (id == null)
+			out.writeByte(ID_NULL);
+		else if (id.getClass() == StringID.class || id.getClass() == GUID.class) {
+			// These can be recreated from their namespace and name
+			out.writeByte(ID_STRING);
+			out.writeUTF(id.getNamespace().getName());
+			out.writeUTF(id.getName());
+		} else {
+			out.writeByte(ID_SERIALIZED);
+			writeSerialized(out, id);
+		}
+	}
+
+	private ID readID(DataInputStream in) throws IOException {
+		final int tag = in.readUnsignedByte();
+		switch (tag) {
+			case ID_NULL :
+				return null;
+			case ID_STRING :
+				final String namespace = in.readUTF();
+				final String name = in.readUTF();
+				try {
+					return IDFactory.getDefault().createID(namespace, name);
+				} catch (final IDCreateException e) {
+					throw new IOException("Could not create ID namespace=" + namespace + " name=" + name, e); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			case ID_SERIALIZED :
+				return (ID) readSerialized(in);
+			default :
+				throw new StreamCorruptedException("Invalid ID tag " + tag); //$NON-NLS-1$
+		}
+	}
+
+	private void writeIDs(DataOutputStream out, ID[] ids) throws IOException {
+		if (ids == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(ids.length);
+		for (int i = 0; i < ids.length; i++)
+			writeID(out, ids[i]);
+	}
+
+	private ID[] readIDs(DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0)
+			return null;
+		final ID[] ids = new ID[length];
+		for (int i = 0; i < length; i++)
+			ids[i] = readID(in);
+		return ids;
+	}
+
+	private void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+		if (strings == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(strings.length);
+		for (int i = 0; i < strings.length; i++)
+			out.writeUTF(strings[i]);
+	}
+
+	private String[] readStrings(DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0)
+			return null;
+		final String[] strings = new String[length];
+		for (int i = 0; i < length; i++)
+			strings[i] = in.readUTF();
+		return strings;
+	}
+
+	private void writeData(DataOutputStream out, Object data) throws IOException {
+		if (data == null)
+			out.writeByte(DATA_NULL);
+		else if (data instanceof byte[]) {
+			final byte[] bytes = (byte[]) data;
+			out.writeByte(DATA_BYTES);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		} else if (data instanceof String && ((String) data).length() <= MAX_UTF_CHARS) {
+			out.writeByte(DATA_STRING);
+			out.writeUTF((String) data);
+		} else {
+			out.writeByte(DATA_SERIALIZED);
+			writeSerialized(out, data);
+		}
+	}
+
+	private Serializable readData(DataInputStream in) throws IOException {
+		final int tag = in.readUnsignedByte();
+		switch (tag) {
+			case DATA_NULL :
+				return null;
+			case DATA_BYTES :
+				final byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				return bytes;
+			case DATA_STRING :
+				return in.readUTF();
+			case DATA_SERIALIZED :
+				return (Serializable) readSerialized(in);
+			default :
+				throw new StreamCorruptedException("Invalid data tag " + tag); //$NON-NLS-1$
+		}
+	}
+
+	private void writeSerialized(DataOutputStream out, Object o) throws IOException {
+		final byte[] bytes = SOContainer.serialize((Serializable) o);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private Object readSerialized(DataInputStream in) throws IOException {
+		final byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		final ObjectInputStream ois = ProviderPlugin.getDefault().createObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return ois.readObject();
+		} catch (final ClassNotFoundException e) {
+			throw new IOException("Class not found reading container message", e); //$NON-NLS-1$
+		}
+	}
+
+	public String toString() {
+		return "BinaryContainerMessageCodec"; //$NON-NLS-1$
+	}
+}
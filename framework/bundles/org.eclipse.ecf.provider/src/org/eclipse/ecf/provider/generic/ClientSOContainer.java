@@ -36,6 +36,9 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 
 	protected IConnectInitiatorPolicy connectPolicy = null;
 
+	// Codec agreed with the server for the current connection
+	private volatile IContainerMessageCodec containerMessageCodec = null;
+
 	public static final byte DISCONNECTED = 0;
 
 	public static final byte CONNECTING = 1;
@@ -101,6 +104,7 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 		connectionState = DISCONNECTED;
 		connection = null;
 		remoteServerID = null;
+		containerMessageCodec = null;
 	}
 
 	private void setStateConnecting(ISynchAsynchConnection conn) {
@@ -165,6 +169,7 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 						setStateDisconnected(aConnection);
 						throw e;
 					}
+					containerMessageCodec = getCodecFromConnectResponse(response);
 					setStateConnected(serverID, aConnection);
 					// notify listeners
 					fireContainerEvent(new ContainerConnectedEvent(this.getID(), remoteServerID));
@@ -197,7 +202,27 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 					handler.handle(callbacks);
 			}
 		}
-		return ContainerMessage.createJoinGroupMessage(getID(), remote, getNextSequenceNumber(), (Serializable) connectData);
+		return ContainerMessage.createJoinGroupMessage(getID(), remote, getNextSequenceNumber(), (Serializable) connectData, getContainerMessageCodecNames());
+	}
+
+	private IContainerMessageCodec getCodecFromConnectResponse(Object response) {
+		if (response instanceof ContainerMessage) {
+			final Object data = ((ContainerMessage) response).getData();
+			if (data instanceof ContainerMessage.ViewChangeMessage) {
+				final String codec = ((ContainerMessage.ViewChangeMessage) data).getCodec();
+				if (codec != null)
+					return selectContainerMessageCodec(new String[] {codec});
+			}
+		}
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.ecf.provider.generic.SOContainer#getContainerMessageCodec(org.eclipse.ecf.provider.comm.IConnection)
+	 */
+	protected IContainerMessageCodec getContainerMessageCodec(IConnection conn) {
+		final IContainerMessageCodec codec = containerMessageCodec;
+		return (codec == null) ? super.getContainerMessageCodec(conn) : codec;
 	}
 
 	protected int getConnectTimeout() {
@@ -310,7 +335,7 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 	 */
 	protected void queueContainerMessage(ContainerMessage message) throws IOException {
 		// Do it
-		connection.sendAsynch(message.getToContainerID(), serialize(message));
+		connection.sendAsynch(message.getToContainerID(), encodeContainerMessage(connection, message));
 	}
 
 	/**
@@ -448,7 +473,7 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 					fireContainerEvent(new ContainerDisconnectingEvent(this.getID(), groupID));
 				synchronized (connection) {
 					try {
-						connection.sendSynch(groupID, serialize(ContainerMessage.createLeaveGroupMessage(getID(), groupID, getNextSequenceNumber(), getLeaveData(groupID))));
+						connection.sendSynch(groupID, encodeContainerMessage(connection, ContainerMessage.createLeaveGroupMessage(getID(), groupID, getNextSequenceNumber(), getLeaveData(groupID))));
 					} catch (final Exception e) {
 						// This is not necessary to log
 						// see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=476263
@@ -91,6 +91,34 @@ public class ContainerMessage implements Serializable {
 		return new ContainerMessage(from, to, seq, new JoinGroupMessage(data));
 	}
 
+	/**
+	 * @param from from
+	 * @param to to
+	 * @param seq sequence
+	 * @param data data
+	 * @param codecs names of the {@link IContainerMessageCodec}s supported by the joining container, in order of preference.  May be <code>null</code>.
+	 * @return ContainerMessage the join group message
+	 * @since 4.10
+	 */
+	public static ContainerMessage createJoinGroupMessage(ID from, ID to, long seq, Serializable data, String[] codecs) {
+		return new ContainerMessage(from, to, seq, new JoinGroupMessage(data, codecs));
+	}
+
+	/**
+	 * @param from from
+	 * @param to to
+	 * @param seq sequence
+	 * @param ids ids
+	 * @param add add
+	 * @param data data
+	 * @param codec name of the {@link IContainerMessageCodec} selected by the server.  May be <code>null</code>.
+	 * @return ContainerMessage the view change message
+	 * @since 4.10
+	 */
+	public static ContainerMessage createViewChangeMessage(ID from, ID to, long seq, ID ids[], boolean add, Serializable data, String codec) {
+		return new ContainerMessage(from, to, seq, new ViewChangeMessage(ids, add, data, codec));
+	}
+
 	public static ContainerMessage createLeaveGroupMessage(ID from, ID to, long seq, Serializable data) {
 		return new ContainerMessage(from, to, seq, new LeaveGroupMessage(data));
 	}
@@ -131,11 +159,18 @@ public class ContainerMessage implements Serializable {
 		private final ID changeIDs[];
 		private final boolean add;
 		private final Serializable data;
+		// Added in 4.10.  Will be null when sent by earlier versions
+		private final String codec;
 
 		ViewChangeMessage(ID id[], boolean a, Serializable data) {
+			this(id, a, data, null);
+		}
+
+		ViewChangeMessage(ID id[], boolean a, Serializable data, String codec) {
 			this.changeIDs = id;
 			this.add = a;
 			this.data = data;
+			this.codec = codec;
 		}
 
 		protected String printChangeIDs() {
@@ -177,6 +212,14 @@ public class ContainerMessage implements Serializable {
 		public Serializable getData() {
 			return data;
 		}
+
+		/**
+		 * @return String the name of the container message codec selected by the server.  May be <code>null</code>.
+		 * @since 4.10
+		 */
+		public String getCodec() {
+			return codec;
+		}
 	}
 
 	public static final class CreateMessage implements Serializable {
@@ -295,15 +338,35 @@ public class ContainerMessage implements Serializable {
 	public static final class JoinGroupMessage implements Serializable {
 		private static final long serialVersionUID = 3257564022885855287L;
 		private final Serializable data;
+		// Added in 4.10.  Will be null when sent by earlier versions
+		private final String[] codecs;
 
 		public JoinGroupMessage(Serializable data) {
+			this(data, null);
+		}
+
+		/**
+		 * @param data data
+		 * @param codecs codec names
+		 * @since 4.10
+		 */
+		public JoinGroupMessage(Serializable data, String[] codecs) {
 			this.data = data;
+			this.codecs = codecs;
 		}
 
 		public Serializable getData() {
 			return data;
 		}
 
+		/**
+		 * @return String[] the names of the container message codecs supported by the joining container.  May be <code>null</code>.
+		 * @since 4.10
+		 */
+		public String[] getCodecs() {
+			return codecs;
+		}
+
 		public String toString() {
 			final StringBuffer sb = new StringBuffer("JoinGroupMessage["); //$NON-NLS-1$
 			sb.append(data).append("]"); //$NON-NLS-1$
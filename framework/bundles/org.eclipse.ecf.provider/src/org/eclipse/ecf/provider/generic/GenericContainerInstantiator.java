@@ -48,6 +48,8 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 
 	private static final String BINDADDRESS_PROP = "bindAddress"; //$NON-NLS-1$
 
+	private static final String BATCHSEND_PROP = "batchSend"; //$NON-NLS-1$
+
 	public GenericContainerInstantiator() {
 		super();
 	}
@@ -88,6 +90,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 		ID id;
 		Integer keepAlive;
 		InetAddress bindAddress;
+		boolean batchSend;
 
 		public GenericContainerArgs(ID id, Integer keepAlive) {
 			this.id = id;
@@ -115,6 +118,14 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 		public InetAddress getBindAddress() {
 			return bindAddress;
 		}
+
+		/**
+		 * @return boolean true if a client container should batch its sends
+		 * @since 4.10
+		 */
+		public boolean isBatchSend() {
+			return batchSend;
+		}
 	}
 
 	/**
@@ -126,6 +137,7 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 	protected GenericContainerArgs getClientArgs(Object[] args) throws IDCreateException {
 		ID newID = null;
 		Integer ka = null;
+		boolean batchSend = false;
 		if (args != null && args.length > 0) {
 			if (args[0] instanceof Map) {
 				Map map = (Map) args[0];
@@ -138,6 +150,8 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 				if (o == null)
 					o = map.get(KEEPALIVE_PROP.toLowerCase());
 				ka = getIntegerFromArg(o);
+				o = map.get(BATCHSEND_PROP);
+				batchSend = o != null && Boolean.valueOf(o.toString()).booleanValue();
 			} else if (args.length > 1) {
 				if (args[0] instanceof String || args[0] instanceof ID)
 					newID = getIDFromArg(args[0]);
@@ -150,7 +164,9 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 			newID = IDFactory.getDefault().createStringID(IDFactory.getDefault().createGUID().getName());
 		if (ka == null)
 			ka = Integer.valueOf(TCPServerSOContainer.DEFAULT_KEEPALIVE);
-		return new GenericContainerArgs(newID, ka);
+		GenericContainerArgs gcargs = new GenericContainerArgs(newID, ka);
+		gcargs.batchSend = batchSend;
+		return gcargs;
 	}
 
 	protected boolean isClient(ContainerTypeDescription description) {
@@ -293,7 +309,10 @@ public class GenericContainerInstantiator implements IContainerInstantiator, IRe
 	 * @since 4.5
 	 */
 	protected IContainer createClientContainer(GenericContainerArgs gcargs) throws Exception {
-		return new TCPClientSOContainer(new SOContainerConfig(gcargs.getID()), gcargs.getKeepAlive().intValue());
+		Map props = new HashMap();
+		if (gcargs.isBatchSend())
+			props.put(TCPClientSOContainer.BATCH_SEND_PROPERTY, Boolean.TRUE);
+		return new TCPClientSOContainer(new SOContainerConfig(gcargs.getID(), props), gcargs.getKeepAlive().intValue());
 	}
 
 	/**
@@ -0,0 +1,71 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import org.eclipse.ecf.core.identity.ID;
+
+/**
+ * Encodes {@link ContainerMessage}s to and from the byte arrays sent between
+ * generic containers.  The codec used for a connection is agreed between
+ * client and server when the client connects: the client offers the names of
+ * its codecs in the join group request, and the server answers with the name of
+ * the one it picked.  Peers that do not take part in this exchange use
+ * {@link JavaContainerMessageCodec}.
+ *
+ * @see SOContainer#setContainerMessageCodecs(IContainerMessageCodec[])
+ * @since 4.10
+ */
+public interface IContainerMessageCodec {
+
+	/**
+	 * @return String the name of this codec, used during connect negotiation.  Must not be <code>null</code>.
+	 */
+	public String getName();
+
+	/**
+	 * @param message the message to encode.  Will not be <code>null</code>.
+	 * @return byte[] the encoded message
+	 * @throws IOException if the message cannot be encoded
+	 */
+	public byte[] encode(ContainerMessage message) throws IOException;
+
+	/**
+	 * Encode message for each of a number of recipients.  The parts common to all
+	 * recipients should be encoded only once, into a body that is shared by all of
+	 * them.  The result has one more element than toIDs: element i is the header
+	 * for recipient i, and the last element is the shared body.  The encoded message
+	 * for recipient i is header i followed by the body, and must be the same as
+	 * encoding message with its to container ID set to toIDs[i] and its sequence
+	 * set to sequences[i].  Codecs that cannot share a part of the message return
+	 * the whole message as the header and an empty body.
+	 * 
+	 * @param message the message to encode.  Its to container ID and sequence are
+	 * ignored, and may be changed by this method.  Will not be <code>null</code>.
+	 * @param toIDs the recipients.  Will not be <code>null</code>.
+	 * @param sequences the sequence number for each recipient.  Will not be <code>null</code>, and
+	 * will be the same length as toIDs.
+	 * @return byte[][] the header for each recipient, in the same order as toIDs, followed
+	 * by the shared body.  The body must not be modified by the caller.
+	 * @throws IOException if the message cannot be encoded
+	 */
+	public byte[][] encode(ContainerMessage message, ID[] toIDs, long[] sequences) throws IOException;
+
+	/**
+	 * @param bytes the bytes to decode.  Will not be <code>null</code>.
+	 * @return ContainerMessage the decoded message, or <code>null</code> if the message
+	 * could not be decoded and should be ignored
+	 * @throws IOException if the bytes are not a valid encoded message
+	 */
+	public ContainerMessage decode(byte[] bytes) throws IOException;
+}
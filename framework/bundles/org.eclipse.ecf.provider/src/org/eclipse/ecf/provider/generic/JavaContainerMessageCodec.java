@@ -0,0 +1,56 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import org.eclipse.ecf.core.identity.ID;
+
+/**
+ * Codec that uses java.io serialization for the entire {@link ContainerMessage}.  This is
+ * the encoding used by previous versions, and is used when the peer does not
+ * support any other codec.
+ *
+ * @since 4.10
+ */
+public class JavaContainerMessageCodec implements IContainerMessageCodec {
+
+	public static final String NAME = "java"; //$NON-NLS-1$
+
+	public String getName() {
+		return NAME;
+	}
+
+	public byte[] encode(ContainerMessage message) throws IOException {
+		return SOContainer.serialize(message);
+	}
+
+	public byte[][] encode(ContainerMessage message, ID[] toIDs, long[] sequences) throws IOException {
+		// The whole message is serialized for each recipient, nothing is shared
+		final byte[][] results = new byte[toIDs.length + 1][];
+		for (int i = 0; i < toIDs.length; i++) {
+			message.setToContainerID(toIDs[i]);
+			message.setSequence(sequences[i]);
+			results[i] = encode(message);
+		}
+		results[toIDs.length] = new byte[0];
+		return results;
+	}
+
+	public ContainerMessage decode(byte[] bytes) throws IOException {
+		return SOContainer.deserializeContainerMessage(bytes);
+	}
+
+	public String toString() {
+		return "JavaContainerMessageCodec"; //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,50 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.generic;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectContainerConfig;
+import org.eclipse.ecf.provider.comm.ConnectionCreateException;
+import org.eclipse.ecf.provider.comm.ISynchAsynchConnection;
+import org.eclipse.ecf.provider.comm.tcp.NIOClient;
+
+/**
+ * Generic client container using a non-blocking {@link NIOClient} connection.
+ * May only connect to a {@link NIOServerSOContainer}.
+ *
+ * @since 4.10
+ */
+public class NIOClientSOContainer extends TCPClientSOContainer {
+
+	public static final String DEFAULT_COMM_NAME = org.eclipse.ecf.provider.comm.tcp.NIOClient.class.getName();
+
+	public NIOClientSOContainer(ISharedObjectContainerConfig config) {
+		super(config);
+	}
+
+	public NIOClientSOContainer(ISharedObjectContainerConfig config, int ka) {
+		super(config, ka);
+	}
+
+	/**
+	 * @param remoteSpace remote space
+	 * @param data and data
+	 * @return ISynchAsynchConnection a non-<code>null</code> instance.
+	 * @throws ConnectionCreateException not thrown by this implementation.
+	 */
+	protected ISynchAsynchConnection createConnection(ID remoteSpace, Object data) throws ConnectionCreateException {
+		debug("createClientConnection:" + remoteSpace + ":" + data); //$NON-NLS-1$ //$NON-NLS-2$
+		return new NIOClient(receiver, keepAlive);
+	}
+}
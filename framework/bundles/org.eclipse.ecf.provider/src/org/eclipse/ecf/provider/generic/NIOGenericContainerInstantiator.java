@@ -0,0 +1,75 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.util.*;
+import org.eclipse.ecf.core.ContainerTypeDescription;
+import org.eclipse.ecf.core.IContainer;
+
+/**
+ * Container instantiator for the generic provider with non-blocking (NIO) connections.
+ * Accepts the same arguments as {@link GenericContainerInstantiator}.
+ *
+ * @since 4.10
+ */
+public class NIOGenericContainerInstantiator extends GenericContainerInstantiator {
+
+	public static final String NIOCLIENT_NAME = "ecf.generic.nio.client"; //$NON-NLS-1$
+
+	public static final String NIOSERVER_NAME = "ecf.generic.nio.server"; //$NON-NLS-1$
+
+	public NIOGenericContainerInstantiator() {
+		super();
+	}
+
+	protected boolean isClient(ContainerTypeDescription description) {
+		if (description.getName().equals(NIOSERVER_NAME))
+			return false;
+		return true;
+	}
+
+	protected IContainer createClientContainer(GenericContainerArgs gcargs) throws Exception {
+		return new NIOClientSOContainer(new SOContainerConfig(gcargs.getID()), gcargs.getKeepAlive().intValue());
+	}
+
+	protected IContainer createServerContainer(GenericContainerArgs gcargs) throws Exception {
+		return new NIOServerSOContainer(new SOContainerConfig(gcargs.getID()), gcargs.getBindAddress(), gcargs.getKeepAlive().intValue());
+	}
+
+	public String[] getSupportedAdapterTypes(ContainerTypeDescription description) {
+		if (!isClient(description))
+			return getInterfacesAndAdaptersForClass(NIOServerSOContainer.class);
+		return getInterfacesAndAdaptersForClass(NIOClientSOContainer.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	public String[] getImportedConfigs(ContainerTypeDescription description, String[] exporterSupportedConfigs) {
+		if (exporterSupportedConfigs == null)
+			return null;
+		List results = new ArrayList();
+		List supportedConfigs = Arrays.asList(exporterSupportedConfigs);
+		// For a server, if exporter is a client then we can be an importer
+		if (NIOSERVER_NAME.equals(description.getName())) {
+			if (supportedConfigs.contains(NIOCLIENT_NAME))
+				results.add(NIOSERVER_NAME);
+			// For a client, if exporter is server we can import
+			// or if remote is either nio server or nio client
+		} else if (NIOCLIENT_NAME.equals(description.getName())) {
+			if (supportedConfigs.contains(NIOSERVER_NAME) || supportedConfigs.contains(NIOCLIENT_NAME))
+				results.add(NIOCLIENT_NAME);
+		}
+		if (results.size() == 0)
+			return null;
+		return (String[]) results.toArray(new String[] {});
+	}
+}
@@ -0,0 +1,54 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import java.net.*;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectContainerConfig;
+import org.eclipse.ecf.provider.comm.tcp.NIOServer;
+
+/**
+ * Generic server container using non-blocking connections.  See {@link NIOServerSOContainerGroup}.
+ *
+ * @since 4.10
+ */
+public class NIOServerSOContainer extends TCPServerSOContainer {
+
+	/**
+	 * @param config config
+	 * @param bindAddress bind address.  May be <code>null</code>.
+	 * @param keepAlive keep alive
+	 * @throws IOException if some problem creating
+	 * @throws URISyntaxException if the container id is not a valid URI
+	 */
+	public NIOServerSOContainer(ISharedObjectContainerConfig config, InetAddress bindAddress, int keepAlive) throws IOException, URISyntaxException {
+		super(config, createGroup(config, bindAddress, keepAlive), keepAlive);
+		isSingle = true;
+		this.group.putOnTheAir();
+	}
+
+	public NIOServerSOContainer(ISharedObjectContainerConfig config, NIOServerSOContainerGroup group, int keepAlive) throws IOException, URISyntaxException {
+		super(config, group, keepAlive);
+	}
+
+	public NIOServerSOContainer(ISharedObjectContainerConfig config, NIOServerSOContainerGroup group, String path, int keepAlive) {
+		super(config, group, path, keepAlive);
+	}
+
+	private static NIOServerSOContainerGroup createGroup(ISharedObjectContainerConfig config, InetAddress bindAddress, int keepAlive) throws URISyntaxException {
+		final URI uri = new URI(config.getID().getName());
+		uri.parseServerAuthority();
+		return new NIOServerSOContainerGroup(NIOServerSOContainerGroup.DEFAULT_GROUP_NAME, null, uri.getPort(), NIOServer.DEFAULT_BACKLOG, bindAddress, keepAlive);
+	}
+}
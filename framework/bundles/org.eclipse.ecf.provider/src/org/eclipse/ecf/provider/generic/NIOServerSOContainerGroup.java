@@ -0,0 +1,113 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.URI;
+import org.eclipse.ecf.provider.comm.IConnectRequestHandler;
+import org.eclipse.ecf.provider.comm.tcp.*;
+
+/**
+ * Server container group that accepts connections with a non-blocking {@link NIOServer}
+ * instead of a {@link Server}.  Connections are handled by the selector threads of a
+ * {@link NIOEventLoopGroup}, so the number of threads is independent of the number of
+ * connected clients.  Clients must use {@link NIOClientSOContainer}.
+ *
+ * @since 4.10
+ */
+public class NIOServerSOContainerGroup extends TCPServerSOContainerGroup implements INIOConnectRequestHandler {
+
+	public static final String DEFAULT_GROUP_NAME = NIOServerSOContainerGroup.class.getName();
+
+	private int port;
+	private final int backlog;
+	private final InetAddress bindAddress;
+	private final int keepAlive;
+	private NIOEventLoopGroup eventLoopGroup;
+	private NIOServer listener;
+	private boolean isOnTheAir = false;
+
+	/**
+	 * @param name name
+	 * @param eventLoopGroup the event loop group to use.  If <code>null</code>, the default group is used.
+	 * @param port port
+	 * @param backlog backlog
+	 * @param bindAddress bind address.  May be <code>null</code>.
+	 * @param keepAlive keep alive for accepted connections
+	 */
+	public NIOServerSOContainerGroup(String name, NIOEventLoopGroup eventLoopGroup, int port, int backlog, InetAddress bindAddress, int keepAlive) {
+		super(name, null, port, backlog, bindAddress);
+		this.eventLoopGroup = eventLoopGroup;
+		this.port = port;
+		this.backlog = backlog;
+		this.bindAddress = bindAddress;
+		this.keepAlive = keepAlive;
+	}
+
+	public NIOServerSOContainerGroup(String name, int port, InetAddress bindAddress) {
+		this(name, null, port, NIOServer.DEFAULT_BACKLOG, bindAddress, TCPServerSOContainer.DEFAULT_KEEPALIVE);
+	}
+
+	public NIOServerSOContainerGroup(int port) {
+		this(DEFAULT_GROUP_NAME, port, null);
+	}
+
+	public synchronized void putOnTheAir() throws IOException {
+		trace("NIOServerSOContainerGroup at port " + port + " on the air"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (eventLoopGroup == null)
+			eventLoopGroup = NIOEventLoopGroup.getDefault();
+		listener = new NIOServer(eventLoopGroup, port, backlog, bindAddress, keepAlive, this);
+		port = listener.getLocalPort();
+		isOnTheAir = true;
+	}
+
+	public synchronized boolean isOnTheAir() {
+		return isOnTheAir;
+	}
+
+	public synchronized void takeOffTheAir() {
+		if (listener != null) {
+			trace("Taking " + getName() + " off the air."); //$NON-NLS-1$ //$NON-NLS-2$
+			try {
+				listener.close();
+			} catch (final IOException e) {
+				traceStack("Exception in closeListener", e); //$NON-NLS-1$
+			}
+			listener = null;
+		}
+		isOnTheAir = false;
+	}
+
+	public synchronized int getPort() {
+		return port;
+	}
+
+	public Serializable handleConnectRequest(NIOClient client, ConnectRequestMessage req) throws Exception {
+		final URI uri = req.getTarget();
+		if (uri == null)
+			throw new InvalidObjectException(INVALID_CONNECT + " URI connect target cannot be null"); //$NON-NLS-1$
+		final String path = uri.getPath();
+		if (path == null)
+			throw new InvalidObjectException(INVALID_CONNECT + " Path cannot be null"); //$NON-NLS-1$
+
+		// Given path, lookup associated container
+		final SOContainer srs = get(path);
+		if (srs == null)
+			throw new InvalidObjectException("Container not found for path=" + path); //$NON-NLS-1$
+
+		client.setEventHandler(srs.getMessageReceiver());
+		// Nothing is written to the client until this method returns the connect response
+		return ((IConnectRequestHandler) srs).handleConnectRequest(client.getSocket(), path, req.getData(), client);
+	}
+}
@@ -0,0 +1,113 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.*;
+
+/**
+ * Shared object message whose bytes were written by the shared object itself.
+ * Normally {@link SOContainer} serializes the object passed to
+ * ISharedObjectContext.sendMessage, and on the receiving side deserializes it
+ * before delivery.  A RawSharedObjectMessage skips both steps: its bytes are
+ * sent as they are, and the receiving shared object is delivered a
+ * RawSharedObjectMessage to read with its own class loading rules.  This lets
+ * a shared object encode a message exactly once.
+ * <p>
+ * Raw messages start with a two byte header that cannot begin a Java
+ * serialization stream.  The container only sends the bytes as they are, and
+ * only checks received bytes for the header, if raw messages are enabled (see
+ * {@link SOContainer#setRawMessages(boolean)}) and no custom shared object
+ * message serializer is set.  Otherwise a RawSharedObjectMessage is serialized
+ * like any other message, and is still delivered as a RawSharedObjectMessage.
+ * Receivers from before this class existed cannot read raw messages.
+ *
+ * @since 4.10
+ */
+public class RawSharedObjectMessage implements Serializable {
+
+	private static final long serialVersionUID = 7383925096398131823L;
+
+	private static final byte MAGIC0 = (byte) 0xEC;
+	private static final byte MAGIC1 = (byte) 0x52;
+
+	/**
+	 * Length of the header that precedes the shared object's own bytes.
+	 */
+	public static final int HEADER_LENGTH = 2;
+
+	private final byte[] bytes;
+
+	RawSharedObjectMessage(byte[] bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Output stream for writing a raw message.  The header has already been
+	 * written.
+	 */
+	public static class Output extends ByteArrayOutputStream {
+
+		Output(int size) {
+			super(Math.max(size, HEADER_LENGTH));
+			buf[0] = MAGIC0;
+			buf[1] = MAGIC1;
+			count = HEADER_LENGTH;
+		}
+
+		/**
+		 * @return RawSharedObjectMessage holding everything written to this stream
+		 */
+		public synchronized RawSharedObjectMessage toMessage() {
+			// Hand over the buffer itself when it is exactly full
+			return new RawSharedObjectMessage(count == buf.length ? buf : toByteArray());
+		}
+	}
+
+	/**
+	 * @param initialSize initial buffer size, in bytes
+	 * @return Output a new stream for writing a raw message
+	 */
+	public static Output createOutput(int initialSize) {
+		return new Output(initialSize);
+	}
+
+	/**
+	 * @param bytes received shared object message bytes.  May be <code>null</code>.
+	 * @return true if the given bytes are a raw message
+	 */
+	public static boolean isRaw(byte[] bytes) {
+		return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC0 && bytes[1] == MAGIC1;
+	}
+
+	static RawSharedObjectMessage fromBytes(byte[] bytes) {
+		return new RawSharedObjectMessage(bytes);
+	}
+
+	/**
+	 * @return byte[] the message bytes, including the header.  Not copied.
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return InputStream for reading the shared object's bytes, after the header
+	 */
+	public InputStream getInputStream() {
+		return new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+	}
+
+	public String toString() {
+		return "RawSharedObjectMessage[length=" + bytes.length + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -15,6 +15,7 @@ import java.io.*;
 import java.security.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.AbstractContainer;
 import org.eclipse.ecf.core.ContainerConnectException;
@@ -155,10 +156,7 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 
 	protected ThreadGroup sharedObjectThreadGroup = null;
 
-	/**
-	 * @since 2.0
-	 */
-	protected ISharedObjectMessageSerializer sharedObjectMessageSerializer = new ISharedObjectMessageSerializer() {
+	private final ISharedObjectMessageSerializer defaultSharedObjectMessageSerializer = new ISharedObjectMessageSerializer() {
 
 		public Object deserializeMessage(byte[] data) throws IOException, ClassNotFoundException {
 			return defaultDeserializeSharedObjectMessage(data);
@@ -170,6 +168,11 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 
 	};
 
+	/**
+	 * @since 2.0
+	 */
+	protected ISharedObjectMessageSerializer sharedObjectMessageSerializer = defaultSharedObjectMessageSerializer;
+
 	/**
 	 * @since 2.0
 	 */
@@ -187,6 +190,125 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 		return this.sharedObjectMessageSerializer;
 	}
 
+	/**
+	 * Whether {@link BinaryContainerMessageCodec} is offered during connect.  Default is true.
+	 * @since 4.10
+	 */
+	public static final boolean DEFAULT_BINARY_CODEC = Boolean.valueOf(System.getProperty("org.eclipse.ecf.provider.generic.binarycodec", "true")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final IContainerMessageCodec javaCodec = new JavaContainerMessageCodec();
+
+	/**
+	 * Whether {@link RawSharedObjectMessage}s are sent and received as their own
+	 * bytes.  Default is false.  All peers must have the same setting.
+	 * @since 4.10
+	 */
+	public static final boolean DEFAULT_RAW_MESSAGES = Boolean.getBoolean("org.eclipse.ecf.provider.generic.rawMessages"); //$NON-NLS-1$
+
+	private volatile boolean rawMessages = DEFAULT_RAW_MESSAGES;
+
+	/**
+	 * Set whether {@link RawSharedObjectMessage}s are sent and received as their
+	 * own bytes.  If not, they are serialized like any other message.
+	 * @param enabled true to send and receive raw messages as their own bytes
+	 * @since 4.10
+	 */
+	public void setRawMessages(boolean enabled) {
+		this.rawMessages = enabled;
+	}
+
+	/**
+	 * @return true if raw messages are enabled and the default shared object message
+	 * serializer is in use.  Received bytes are only checked for the raw message
+	 * header if this returns true.
+	 * @since 4.10
+	 */
+	protected boolean isRawMessages() {
+		return rawMessages && sharedObjectMessageSerializer == defaultSharedObjectMessageSerializer;
+	}
+
+	private IContainerMessageCodec[] containerMessageCodecs = DEFAULT_BINARY_CODEC ? new IContainerMessageCodec[] {new BinaryContainerMessageCodec(), javaCodec} : new IContainerMessageCodec[] {javaCodec};
+
+	/**
+	 * Set the container message codecs supported by this container, in order of preference.  The
+	 * Java serialization codec is always supported, whether or not it is included.  Only affects
+	 * connections made after this call.
+	 * @param codecs the codecs.  If <code>null</code>, only Java serialization is supported.
+	 * @since 4.10
+	 */
+	public void setContainerMessageCodecs(IContainerMessageCodec[] codecs) {
+		this.containerMessageCodecs = (codecs == null) ? new IContainerMessageCodec[] {javaCodec} : codecs;
+	}
+
+	/**
+	 * @return IContainerMessageCodec[] the container message codecs supported by this container, in order of preference
+	 * @since 4.10
+	 */
+	public IContainerMessageCodec[] getContainerMessageCodecs() {
+		return this.containerMessageCodecs;
+	}
+
+	/**
+	 * @return String[] the names of the supported container message codecs, in order of preference
+	 * @since 4.10
+	 */
+	protected String[] getContainerMessageCodecNames() {
+		final IContainerMessageCodec[] codecs = getContainerMessageCodecs();
+		final String[] names = new String[codecs.length];
+		for (int i = 0; i < codecs.length; i++)
+			names[i] = codecs[i].getName();
+		return names;
+	}
+
+	/**
+	 * @param names codec names in order of preference.  May be <code>null</code>.
+	 * @return IContainerMessageCodec the first codec in names that is supported by this container, or
+	 * the Java serialization codec if none are.  Will not be <code>null</code>.
+	 * @since 4.10
+	 */
+	protected IContainerMessageCodec selectContainerMessageCodec(String[] names) {
+		if (names != null) {
+			final IContainerMessageCodec[] codecs = getContainerMessageCodecs();
+			for (int i = 0; i < names.length; i++)
+				for (int j = 0; j < codecs.length; j++)
+					if (codecs[j].getName().equals(names[i]))
+						return codecs[j];
+		}
+		return javaCodec;
+	}
+
+	/**
+	 * @param conn the connection a message is to be sent on or was received from.  May be <code>null</code>.
+	 * @return IContainerMessageCodec the codec agreed for conn.  This implementation returns the
+	 * Java serialization codec.
+	 * @since 4.10
+	 */
+	protected IContainerMessageCodec getContainerMessageCodec(IConnection conn) {
+		return javaCodec;
+	}
+
+	/**
+	 * @param conn the connection message will be sent on
+	 * @param message the message to encode
+	 * @return byte[] message encoded with the codec agreed for conn
+	 * @throws IOException if message cannot be encoded
+	 * @since 4.10
+	 */
+	protected byte[] encodeContainerMessage(IConnection conn, ContainerMessage message) throws IOException {
+		return getContainerMessageCodec(conn).encode(message);
+	}
+
+	/**
+	 * @param conn the connection bytes were received from
+	 * @param bytes the bytes to decode
+	 * @return ContainerMessage the decoded message.  May be <code>null</code>.
+	 * @throws IOException if bytes cannot be decoded
+	 * @since 4.10
+	 */
+	protected ContainerMessage decodeContainerMessage(IConnection conn, byte[] bytes) throws IOException {
+		return getContainerMessageCodec(conn).decode(bytes);
+	}
+
 	protected ISynchAsynchEventHandler receiver = new ISynchAsynchEventHandler() {
 		public Object handleSynchEvent(SynchEvent event) throws IOException {
 			return processSynch(event);
@@ -516,6 +638,17 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 		return new Thread(sharedObjectThreadGroup, runnable, sharedObjectID.getName() + ":run"); //$NON-NLS-1$
 	}
 
+	/**
+	 * Get the executor used to dispatch events to this container's shared objects.
+	 * If <code>null</code>, each shared object is given its own thread via
+	 * {@link #getNewSharedObjectThread(ID, Runnable)}.
+	 * @return Executor the executor, or <code>null</code>.  Default is {@link SODispatchExecutor#getDefault()}.
+	 * @since 4.10
+	 */
+	protected Executor getSharedObjectExecutor() {
+		return SODispatchExecutor.getDefault();
+	}
+
 	protected long getNextSequenceNumber() {
 		if (sequenceNumber == Long.MAX_VALUE) {
 			sequenceNumber = 0;
@@ -873,7 +1006,7 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 				debug("Ignoring event without valid data " + event); //$NON-NLS-1$
 				return;
 			}
-			final ContainerMessage mess = validateContainerMessage(deserializeContainerMessage((byte[]) obj));
+			final ContainerMessage mess = validateContainerMessage(decodeContainerMessage(event.getConnection(), (byte[]) obj));
 			if (mess == null) {
 				debug("event not validated: " + event); //$NON-NLS-1$
 				return;
@@ -906,7 +1039,7 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	protected abstract void processDisconnect(DisconnectEvent event);
 
 	protected Serializable processSynch(SynchEvent e) throws IOException {
-		final ContainerMessage mess = deserializeContainerMessage((byte[]) e.getData());
+		final ContainerMessage mess = decodeContainerMessage(e.getConnection(), (byte[]) e.getData());
 		final Serializable data = mess.getData();
 		// Must be non null
 		if (data != null && data instanceof ContainerMessage.LeaveGroupMessage)
@@ -989,6 +1122,9 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	}
 
 	protected byte[] serializeSharedObjectMessage(ID sharedObjectID, Object message) throws IOException {
+		// Already encoded by the shared object
+		if (message instanceof RawSharedObjectMessage && isRawMessages())
+			return ((RawSharedObjectMessage) message).getBytes();
 		// If there is a serializer set, use it
 		return getSharedObjectMessageSerializer().serializeMessage(sharedObjectID, message);
 	}
@@ -1059,6 +1195,9 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	}
 
 	protected Object deserializeSharedObjectMessage(byte[] bytes) throws IOException, ClassNotFoundException {
+		// Left for the shared object to read
+		if (isRawMessages() && RawSharedObjectMessage.isRaw(bytes))
+			return RawSharedObjectMessage.fromBytes(bytes);
 		return getSharedObjectMessageSerializer().deserializeMessage(bytes);
 	}
 
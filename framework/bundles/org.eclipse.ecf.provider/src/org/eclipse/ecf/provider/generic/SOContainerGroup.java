@@ -21,7 +21,7 @@ import org.eclipse.ecf.internal.provider.ProviderPlugin;
 import org.eclipse.ecf.provider.comm.IConnectRequestHandler;
 import org.eclipse.ecf.provider.comm.tcp.*;
 
-public class SOContainerGroup implements ISocketAcceptHandler {
+public class SOContainerGroup implements ISocketAcceptHandler, IMultiplexedConnectRequestHandler {
 
 	/**
 	 * @since 4.7
@@ -117,6 +117,12 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 
 		final ConnectRequestMessage req = readConnectRequestMessage(iStream);
 
+		// A link shared by many client containers, which then connect over it
+		if (MultiplexedLink.isLinkRequest(req)) {
+			MultiplexedLink.accept(aSocket, iStream, oStream, this);
+			return;
+		}
+
 		final URI uri = req.getTarget();
 		if (uri == null)
 			throw new InvalidObjectException(INVALID_CONNECT + " URI connect target cannot be null"); //$NON-NLS-1$
@@ -144,4 +150,25 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 		}
 	}
 
+	/**
+	 * @since 4.10
+	 */
+	public Serializable handleConnectRequest(MultiplexedConnection connection, ConnectRequestMessage req) throws Exception {
+		final URI uri = req.getTarget();
+		if (uri == null)
+			throw new InvalidObjectException(INVALID_CONNECT + " URI connect target cannot be null"); //$NON-NLS-1$
+		final String path = uri.getPath();
+		if (path == null)
+			throw new InvalidObjectException(INVALID_CONNECT + " Path cannot be null"); //$NON-NLS-1$
+
+		// Given path, lookup associated container
+		final SOContainer srs = get(path);
+		if (srs == null)
+			throw new InvalidObjectException("Container not found for path=" + path); //$NON-NLS-1$
+
+		connection.setEventHandler(srs.getMessageReceiver());
+		// Nothing is sent on the session until this method returns the connect response
+		return ((IConnectRequestHandler) srs).handleConnectRequest(connection.getSocket(), path, req.getData(), connection);
+	}
+
 }
\ No newline at end of file
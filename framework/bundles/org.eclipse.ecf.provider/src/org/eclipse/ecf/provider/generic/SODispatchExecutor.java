@@ -0,0 +1,114 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * Holds the shared executor used to dispatch shared object events when
+ * {@link #DISPATCH_PROP} selects pool or virtual thread dispatch.  In these modes
+ * each {@link SOWrapper} is a serial mailbox that is scheduled on the executor
+ * only while it has events, so the number of threads does not depend on the
+ * number of shared objects.  Events for any one shared object are still
+ * delivered in order, and never concurrently.
+ * <p>
+ * Shared objects that block for long periods in handleEvent tie up a pool
+ * thread while doing so.  The "pool" mode should only be used when the hosted
+ * shared objects do not, or with a pool large enough to absorb it.
+ *
+ * @since 4.10
+ */
+public class SODispatchExecutor {
+
+	/**
+	 * System property selecting how shared object events are dispatched.
+	 * <ul>
+	 * <li>"thread" (default): each shared object has its own thread</li>
+	 * <li>"pool": shared objects are scheduled on a shared ForkJoinPool with {@link #DEFAULT_POOL_THREADS} threads</li>
+	 * <li>"virtual": shared objects are scheduled on virtual threads where the runtime supports them, otherwise as for "pool"</li>
+	 * </ul>
+	 */
+	public static final String DISPATCH_PROP = "org.eclipse.ecf.provider.generic.sharedobjectdispatch"; //$NON-NLS-1$
+
+	public static final String DISPATCH_THREAD = "thread"; //$NON-NLS-1$
+	public static final String DISPATCH_POOL = "pool"; //$NON-NLS-1$
+	public static final String DISPATCH_VIRTUAL = "virtual"; //$NON-NLS-1$
+
+	public static final String DEFAULT_DISPATCH = System.getProperty(DISPATCH_PROP, DISPATCH_THREAD);
+
+	public static final int DEFAULT_POOL_THREADS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.generic.sharedobjectdispatch.threads", String.valueOf(Math.max(4, 2 * Runtime.getRuntime().availableProcessors())))); //$NON-NLS-1$
+
+	private static ExecutorService defaultExecutor;
+
+	private SODispatchExecutor() {
+		// no instances
+	}
+
+	/**
+	 * @return Executor the shared executor for the dispatch mode given by {@link #DISPATCH_PROP}, or
+	 * <code>null</code> if each shared object should have its own thread
+	 */
+	public static synchronized Executor getDefault() {
+		if (DISPATCH_THREAD.equals(DEFAULT_DISPATCH))
+			return null;
+		if (defaultExecutor == null) {
+			if (DISPATCH_VIRTUAL.equals(DEFAULT_DISPATCH))
+				defaultExecutor = createVirtualThreadExecutor();
+			if (defaultExecutor == null)
+				defaultExecutor = createPool(DEFAULT_POOL_THREADS);
+		}
+		return defaultExecutor;
+	}
+
+	/**
+	 * Shut down the default executor, if it has been created.
+	 */
+	public static synchronized void shutdownDefault() {
+		if (defaultExecutor != null) {
+			defaultExecutor.shutdown();
+			defaultExecutor = null;
+		}
+	}
+
+	/**
+	 * Create a pool suitable for shared object dispatch.  Tasks are run in
+	 * submission order and the pool threads are daemon threads.
+	 * @param threads the number of pool threads
+	 * @return ExecutorService the new pool.  Will not be <code>null</code>.
+	 */
+	public static ExecutorService createPool(int threads) {
+		return new ForkJoinPool(threads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				final ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				t.setName("ecf.so.dispatch-" + t.getPoolIndex()); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			}
+		}, null, true);
+	}
+
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			// Executors.newVirtualThreadPerTaskExecutor() is Java 21+
+			final Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor", (Class[]) null); //$NON-NLS-1$
+			return (ExecutorService) m.invoke(null, (Object[]) null);
+		} catch (final Exception e) {
+			Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, SODispatchExecutor.class, "createVirtualThreadExecutor", e); //$NON-NLS-1$
+			return null;
+		}
+	}
+}
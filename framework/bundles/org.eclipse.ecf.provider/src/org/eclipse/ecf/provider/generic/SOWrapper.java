@@ -16,12 +16,16 @@ package org.eclipse.ecf.provider.generic;
 import java.io.Serializable;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.ecf.core.events.ContainerConnectedEvent;
 import org.eclipse.ecf.core.events.ContainerDisconnectedEvent;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.sharedobject.ISharedObject;
 import org.eclipse.ecf.core.sharedobject.SharedObjectInitException;
 import org.eclipse.ecf.core.sharedobject.events.*;
+import org.eclipse.ecf.core.sharedobject.util.MPSCFIFOQueue;
 import org.eclipse.ecf.core.sharedobject.util.QueueEnqueueImpl;
 import org.eclipse.ecf.core.sharedobject.util.SimpleFIFOQueue;
 import org.eclipse.ecf.core.util.Event;
@@ -38,6 +42,20 @@ public class SOWrapper {
 	private ID containerID;
 	private Thread thread;
 	SimpleFIFOQueue queue;
+	/**
+	 * Maximum number of events dispatched in one executor task before the
+	 * mailbox is rescheduled, so that one busy shared object cannot starve others.
+	 */
+	private static final int DISPATCH_BATCH = 64;
+	// Non-null if events are dispatched on a shared executor rather than our own thread
+	private final Executor executor;
+	private volatile boolean dispatching;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Runnable dispatchTask = new Runnable() {
+		public void run() {
+			dispatchQueued();
+		}
+	};
 
 	protected SOWrapper(SOContainer.LoadingSharedObject obj, SOContainer cont) {
 		sharedObjectID = obj.getID();
@@ -46,7 +64,8 @@ public class SOWrapper {
 		containerID = cont.getID();
 		sharedObjectConfig = null;
 		thread = null;
-		queue = new SimpleFIFOQueue();
+		executor = cont.getSharedObjectExecutor();
+		queue = createQueue();
 	}
 
 	public SOWrapper(SOConfig aConfig, ISharedObject obj, SOContainer cont) {
@@ -56,7 +75,23 @@ public class SOWrapper {
 		container = cont;
 		containerID = cont.getID();
 		thread = null;
-		queue = new SimpleFIFOQueue();
+		executor = cont.getSharedObjectExecutor();
+		queue = createQueue();
+	}
+
+	private SimpleFIFOQueue createQueue() {
+		if (executor == null)
+			return SimpleFIFOQueue.createSingleConsumerQueue();
+		// Events may also be enqueued directly through the IQueueEnqueue given
+		// to the shared object's config, so schedule from the queue itself
+		return new MPSCFIFOQueue() {
+			public boolean enqueue(Object obj) {
+				if (!super.enqueue(obj))
+					return false;
+				schedule();
+				return true;
+			}
+		};
 	}
 
 	protected void init() throws SharedObjectInitException {
@@ -78,6 +113,14 @@ public class SOWrapper {
 	}
 
 	protected void activated() {
+		if (executor != null) {
+			container.notifySharedObjectActivated(sharedObjectID);
+			dispatching = true;
+			// Dispatch anything queued before activation
+			schedule();
+			send(new SharedObjectActivatedEvent(containerID, sharedObjectID));
+			return;
+		}
 		thread = (Thread) AccessController.doPrivileged(new PrivilegedAction() {
 			public Object run() {
 				Thread aThread = getThread();
@@ -100,14 +143,14 @@ public class SOWrapper {
 
 	protected void destroyed() {
 		if (!queue.isStopped()) {
-			if (thread != null)
+			if (isDispatching())
 				queue.enqueue(new DisposeEvent());
 			queue.close();
 		}
 	}
 
 	protected void otherChanged(ID otherID, boolean activated) {
-		if (activated && thread != null) {
+		if (activated && isDispatching()) {
 			send(new SharedObjectActivatedEvent(containerID, otherID));
 		} else {
 			send(new SharedObjectDeactivatedEvent(containerID, otherID));
@@ -115,7 +158,7 @@ public class SOWrapper {
 	}
 
 	protected void memberChanged(Member m, boolean add) {
-		if (thread != null) {
+		if (isDispatching()) {
 			if (add) {
 				send(new ContainerConnectedEvent(containerID, m.getID()));
 			} else {
@@ -135,17 +178,7 @@ public class SOWrapper {
 					evt = (Event) queue.dequeue();
 					if (Thread.currentThread().isInterrupted() || evt == null)
 						break;
-					try {
-						if (evt instanceof ProcEvent) {
-							SOWrapper.this.svc(((ProcEvent) evt).getEvent());
-						} else if (evt instanceof DisposeEvent) {
-							SOWrapper.this.doDestroy();
-						} else {
-							SOWrapper.this.svc(evt);
-						}
-					} catch (Throwable t) {
-						handleRuntimeException(t);
-					}
+					dispatch(evt);
 				}
 				if (Thread.currentThread().isInterrupted()) {
 					debug("runner(" + sharedObjectID //$NON-NLS-1$
@@ -158,6 +191,55 @@ public class SOWrapper {
 		});
 	}
 
+	private boolean isDispatching() {
+		return thread != null || dispatching;
+	}
+
+	void dispatch(Event evt) {
+		try {
+			if (evt instanceof ProcEvent) {
+				svc(((ProcEvent) evt).getEvent());
+			} else if (evt instanceof DisposeEvent) {
+				doDestroy();
+			} else {
+				svc(evt);
+			}
+		} catch (Throwable t) {
+			handleRuntimeException(t);
+		}
+	}
+
+	/**
+	 * Submit the dispatch task to the executor, unless it is already
+	 * submitted or running.  At most one dispatch task per shared object
+	 * exists at any time, which keeps delivery serial and in order.
+	 */
+	void schedule() {
+		if (!dispatching || queue.isEmpty() || !scheduled.compareAndSet(false, true))
+			return;
+		try {
+			executor.execute(dispatchTask);
+		} catch (RejectedExecutionException e) {
+			scheduled.set(false);
+			traceStack("schedule rejected", e); //$NON-NLS-1$
+		}
+	}
+
+	void dispatchQueued() {
+		try {
+			for (int i = 0; i < DISPATCH_BATCH; i++) {
+				final Event evt = (Event) queue.removeHead();
+				if (evt == null)
+					break;
+				dispatch(evt);
+			}
+		} finally {
+			scheduled.set(false);
+		}
+		// Events enqueued while we were running, or left over from this batch
+		schedule();
+	}
+
 	private void send(Event evt) {
 		queue.enqueue(new ProcEvent(evt));
 	}
@@ -16,6 +16,8 @@ package org.eclipse.ecf.provider.generic;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.ecf.core.ContainerConnectException;
 import org.eclipse.ecf.core.events.*;
 import org.eclipse.ecf.core.identity.ID;
@@ -30,6 +32,9 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 
 	protected IConnectHandlerPolicy connectHandlerPolicy;
 
+	// Codecs agreed with each member connection
+	private final Map<IConnection, IContainerMessageCodec> connectionCodecs = new ConcurrentHashMap<IConnection, IContainerMessageCodec>();
+
 	public ServerSOContainer(ISharedObjectContainerConfig config) {
 		super(config);
 	}
@@ -76,7 +81,7 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 			if (conn == null)
 				return;
 			try {
-				conn.sendSynch(memberID, serialize(ContainerMessage.createLeaveGroupMessage(getID(), memberID, getNextSequenceNumber(), reason)));
+				conn.sendSynch(memberID, encodeContainerMessage(conn, ContainerMessage.createLeaveGroupMessage(getID(), memberID, getNextSequenceNumber(), reason)));
 			} catch (final Exception e) {
 				traceStack("Exception in ejectGroupMember.sendAsynch()", e); //$NON-NLS-1$
 			}
@@ -139,7 +144,7 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 		} else {
 			final IAsynchConnection conn = getConnectionForID(message.getToContainerID());
 			if (conn != null)
-				conn.sendAsynch(message.getToContainerID(), serialize(message));
+				conn.sendAsynch(message.getToContainerID(), encodeContainerMessage(conn, message));
 		}
 	}
 
@@ -151,6 +156,9 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 		if (excluding == null) {
 			queueContainerMessage(new ContainerMessage(from, null, getNextSequenceNumber(), data.getData()));
 		} else {
+			// Group recipients by codec, so that each codec only encodes the
+			// parts of the message common to all recipients once
+			final Map<IContainerMessageCodec, List<Member>> recipients = new LinkedHashMap<IContainerMessageCodec, List<Member>>();
 			final Object ms[] = groupManager.getMembers();
 			for (int i = 0; i < ms.length; i++) {
 				final Member m = (Member) ms[i];
@@ -158,18 +166,60 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 				if (!excluding.equals(oldID) && !from.equals(oldID)) {
 					final IAsynchConnection conn = (IAsynchConnection) m.getData();
 					if (conn != null) {
-						try {
-							conn.sendAsynch(oldID, serialize(new ContainerMessage(from, oldID, getNextSequenceNumber(), data.getData())));
-						} catch (final IOException e) {
-							traceStack("Exception in forwardExcluding from " //$NON-NLS-1$
-									+ from + " with oldID " + oldID, e); //$NON-NLS-1$
+						final IContainerMessageCodec codec = getContainerMessageCodec(conn);
+						List<Member> l = recipients.get(codec);
+						if (l == null) {
+							l = new ArrayList<Member>();
+							recipients.put(codec, l);
 						}
+						l.add(m);
 					}
 				}
 			}
+			for (final Map.Entry<IContainerMessageCodec, List<Member>> entry : recipients.entrySet())
+				forwardToMembers(entry.getKey(), from, data, entry.getValue());
 		}
 	}
 
+	private void forwardToMembers(IContainerMessageCodec codec, ID from, ContainerMessage data, List<Member> members) {
+		final ID[] toIDs = new ID[members.size()];
+		final long[] sequences = new long[toIDs.length];
+		for (int i = 0; i < toIDs.length; i++) {
+			toIDs[i] = members.get(i).getID();
+			sequences[i] = getNextSequenceNumber();
+		}
+		byte[][] encoded = null;
+		try {
+			encoded = codec.encode(new ContainerMessage(from, null, 0, data.getData()), toIDs, sequences);
+		} catch (final IOException e) {
+			traceStack("Exception in forwardExcluding encoding message from " + from, e); //$NON-NLS-1$
+			return;
+		}
+		final byte[] body = encoded[toIDs.length];
+		for (int i = 0; i < toIDs.length; i++) {
+			try {
+				final IAsynchConnection conn = (IAsynchConnection) members.get(i).getData();
+				if (body.length == 0)
+					conn.sendAsynch(toIDs[i], encoded[i]);
+				else if (conn instanceof IGatheringAsynchConnection)
+					// The connection writes the header and the shared body without copying
+					((IGatheringAsynchConnection) conn).sendAsynch(toIDs[i], encoded[i], body);
+				else
+					conn.sendAsynch(toIDs[i], concat(encoded[i], body));
+			} catch (final IOException e) {
+				traceStack("Exception in forwardExcluding from " //$NON-NLS-1$
+						+ from + " with oldID " + toIDs[i], e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private static byte[] concat(byte[] header, byte[] body) {
+		final byte[] result = new byte[header.length + body.length];
+		System.arraycopy(header, 0, result, 0, header.length);
+		System.arraycopy(body, 0, result, header.length, body.length);
+		return result;
+	}
+
 	/**
 	 * @param mess message
 	 * @throws IOException not thrown by this implementation.
@@ -194,6 +244,7 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 			if (jgm == null)
 				throw new NullPointerException("Join group message cannot be null"); //$NON-NLS-1$
 			ID memberIDs[] = null;
+			IContainerMessageCodec codec = null;
 			synchronized (getGroupMembershipLock()) {
 				if (isClosing) {
 					final Exception e = new IllegalStateException("Server container is closing"); //$NON-NLS-1$
@@ -208,8 +259,20 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 				final ISynchConnection oldConn = getSynchConnectionForID(remoteID);
 				if (oldConn != null)
 					handleLeave(remoteID, oldConn);
+				// Use the first codec offered by the client that we also support.
+				// It is registered before the member becomes visible, so that
+				// no broadcast is encoded for it with another codec
+				codec = selectContainerMessageCodec(jgm.getCodecs());
+				connectionCodecs.put(conn, codec);
 				// Now we add the new connection
-				if (addNewRemoteMember(remoteID, conn)) {
+				boolean added = false;
+				try {
+					added = addNewRemoteMember(remoteID, conn);
+				} finally {
+					if (!added)
+						connectionCodecs.remove(conn);
+				}
+				if (added) {
 					// Notify existing remotes about new member
 					try {
 						forwardExcluding(getID(), remoteID, ContainerMessage.createViewChangeMessage(getID(), remoteID, getNextSequenceNumber(), new ID[] {remoteID}, true, null));
@@ -228,7 +291,7 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 			// notify listeners
 			fireContainerEvent(new ContainerConnectedEvent(this.getID(), remoteID));
 
-			return ContainerMessage.createViewChangeMessage(getID(), remoteID, getNextSequenceNumber(), memberIDs, true, null);
+			return ContainerMessage.createViewChangeMessage(getID(), remoteID, getNextSequenceNumber(), memberIDs, true, null, codec.getName());
 		} catch (final Exception e) {
 			traceStack("Exception in acceptNewClient(" + socket + "," //$NON-NLS-1$ //$NON-NLS-2$
 					+ target + "," + data + "," + conn, e); //$NON-NLS-1$ //$NON-NLS-2$
@@ -258,6 +321,23 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 		fireContainerEvent(new ContainerDisconnectedEvent(getID(), fromID));
 	}
 
+	/* (non-Javadoc)
+	 * @see org.eclipse.ecf.provider.generic.SOContainer#getContainerMessageCodec(org.eclipse.ecf.provider.comm.IConnection)
+	 */
+	protected IContainerMessageCodec getContainerMessageCodec(IConnection conn) {
+		final IContainerMessageCodec codec = (conn == null) ? null : connectionCodecs.get(conn);
+		return (codec == null) ? super.getContainerMessageCodec(conn) : codec;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.ecf.provider.generic.SOContainer#handleLeave(org.eclipse.ecf.core.identity.ID, org.eclipse.ecf.provider.comm.IConnection)
+	 */
+	protected void handleLeave(ID leftID, IConnection conn) {
+		super.handleLeave(leftID, conn);
+		if (conn != null)
+			connectionCodecs.remove(conn);
+	}
+
 	// Support methods
 	protected ID getIDForConnection(IAsynchConnection conn) {
 		final Object ms[] = groupManager.getMembers();
@@ -285,12 +365,21 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 	}
 
 	private final void queueToAll(ContainerMessage message) {
+		// The message is the same for every member, so it's encoded once per codec
+		// and the same bytes are given to each connection
+		final Map<IContainerMessageCodec, byte[]> encoded = new HashMap<IContainerMessageCodec, byte[]>(4);
 		final Object[] members = groupManager.getMembers();
 		for (int i = 0; i < members.length; i++) {
 			final IAsynchConnection conn = (IAsynchConnection) ((Member) members[i]).getData();
 			if (conn != null) {
 				try {
-					conn.sendAsynch(message.getToContainerID(), serialize(message));
+					final IContainerMessageCodec codec = getContainerMessageCodec(conn);
+					byte[] bytes = encoded.get(codec);
+					if (bytes == null) {
+						bytes = codec.encode(message);
+						encoded.put(codec, bytes);
+					}
+					conn.sendAsynch(message.getToContainerID(), bytes);
 				} catch (final IOException e) {
 					traceStack("Exception in queueToAll for ContainerMessage " + message, e); //$NON-NLS-1$
 				}
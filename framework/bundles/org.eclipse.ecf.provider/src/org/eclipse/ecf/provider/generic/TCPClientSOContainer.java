@@ -18,7 +18,7 @@ import org.eclipse.ecf.core.identity.IDFactory;
 import org.eclipse.ecf.core.sharedobject.ISharedObjectContainerConfig;
 import org.eclipse.ecf.provider.comm.ConnectionCreateException;
 import org.eclipse.ecf.provider.comm.ISynchAsynchConnection;
-import org.eclipse.ecf.provider.comm.tcp.Client;
+import org.eclipse.ecf.provider.comm.tcp.*;
 
 public class TCPClientSOContainer extends ClientSOContainer {
 	int keepAlive = 0;
@@ -27,6 +27,23 @@ public class TCPClientSOContainer extends ClientSOContainer {
 
 	public static final String DEFAULT_COMM_NAME = org.eclipse.ecf.provider.comm.tcp.Client.class.getName();
 
+	/**
+	 * If true, containers connecting to the same server host and port share one
+	 * socket via a {@link MultiplexedLink}, rather than each opening its own.
+	 * Servers that do not support multiplexed links are connected to as before.
+	 * Default is false.
+	 * @since 4.10
+	 */
+	public static final boolean DEFAULT_MULTIPLEX = Boolean.getBoolean("org.eclipse.ecf.provider.generic.TCPClientSOContainer.multiplex"); //$NON-NLS-1$
+
+	/**
+	 * Container config property.  If <code>Boolean.TRUE</code> or "true", this container's
+	 * connection writes all queued messages before flushing, rather than flushing once per
+	 * message.  See {@link BatchObjectOutputStream}.  Default is false.
+	 * @since 4.10
+	 */
+	public static final String BATCH_SEND_PROPERTY = "org.eclipse.ecf.provider.generic.TCPClientSOContainer.batchSend"; //$NON-NLS-1$
+
 	public TCPClientSOContainer(ISharedObjectContainerConfig config) {
 		super(config);
 	}
@@ -40,6 +57,15 @@ public class TCPClientSOContainer extends ClientSOContainer {
 		return DEFAULT_TCP_CONNECT_TIMEOUT;
 	}
 
+	/**
+	 * @return boolean true if {@link #BATCH_SEND_PROPERTY} is set in this container's config
+	 * @since 4.10
+	 */
+	protected boolean isBatchSend() {
+		final Object o = getConfig().getProperties().get(BATCH_SEND_PROPERTY);
+		return o != null && Boolean.valueOf(o.toString()).booleanValue();
+	}
+
 	/**
 	 * @param remoteSpace remote space
 	 * @param data and data
@@ -48,7 +74,9 @@ public class TCPClientSOContainer extends ClientSOContainer {
 	 */
 	protected ISynchAsynchConnection createConnection(ID remoteSpace, Object data) throws ConnectionCreateException {
 		debug("createClientConnection:" + remoteSpace + ":" + data); //$NON-NLS-1$ //$NON-NLS-2$
-		ISynchAsynchConnection conn = new Client(receiver, keepAlive);
+		if (DEFAULT_MULTIPLEX)
+			return new MultiplexedConnection(receiver, keepAlive);
+		ISynchAsynchConnection conn = new Client(receiver, keepAlive, isBatchSend());
 		return conn;
 	}
 
@@ -0,0 +1,273 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.core.sharedobject.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free multi-producer, single-consumer FIFO queue.  Any number of threads
+ * may {@link #enqueue(Object)} without contending on a lock, but only one
+ * thread at a time may consume via {@link #peekQueue()}, {@link #peekQueue(long)},
+ * {@link #dequeue()} or {@link #removeHead()}.  The consumer is parked only
+ * while the queue is empty.
+ * <p>
+ * The queue may optionally be bounded.  When a bounded queue is full,
+ * {@link #enqueue(Object)} either blocks until there is space or returns
+ * false, depending upon how the queue was created.
+ * <p>
+ * This class extends {@link SimpleFIFOQueue} so that it may be used wherever
+ * a SimpleFIFOQueue is expected; none of the superclass state is used.
+ *
+ * @since 2.7
+ */
+public class MPSCFIFOQueue extends SimpleFIFOQueue {
+
+	static final class Node {
+		volatile Object value;
+		volatile Node next;
+
+		Node(Object value) {
+			this.value = value;
+		}
+	}
+
+	// Producers swap themselves in at the tail
+	private final AtomicReference<Node> tail;
+	// Only advanced by the consumer.  head is a stub whose next is the first element
+	private volatile Node head;
+	private final AtomicInteger count = new AtomicInteger();
+	private final int capacity;
+	private final boolean blockWhenFull;
+	private volatile boolean stopped;
+	// Consumer thread parked waiting for an element, or null
+	private volatile Thread waiter;
+	// Producers blocked because the queue is full
+	private final Object notFull = new Object();
+	private final AtomicInteger blockedProducers = new AtomicInteger();
+
+	/**
+	 * Create an unbounded queue.
+	 */
+	public MPSCFIFOQueue() {
+		this(Integer.MAX_VALUE, false);
+	}
+
+	/**
+	 * @param capacity the maximum number of elements.  Must be greater than zero.
+	 * @param blockWhenFull if true {@link #enqueue(Object)} blocks until there is space when
+	 * the queue is full.  If false it returns false.
+	 */
+	public MPSCFIFOQueue(int capacity, boolean blockWhenFull) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be greater than zero"); //$NON-NLS-1$
+		this.capacity = capacity;
+		this.blockWhenFull = blockWhenFull;
+		final Node stub = new Node(null);
+		this.head = stub;
+		this.tail = new AtomicReference<Node>(stub);
+	}
+
+	public boolean enqueue(final Object obj) {
+		if (stopped || obj == null)
+			return false;
+		if (!reserve())
+			return false;
+		final Node node = new Node(obj);
+		final Node prev = tail.getAndSet(node);
+		prev.next = node;
+		final Thread w = waiter;
+		if (w != null)
+			LockSupport.unpark(w);
+		return true;
+	}
+
+	private boolean reserve() {
+		if (capacity == Integer.MAX_VALUE) {
+			count.incrementAndGet();
+			return true;
+		}
+		for (;;) {
+			final int c = count.get();
+			if (c < capacity) {
+				if (count.compareAndSet(c, c + 1))
+					return true;
+				continue;
+			}
+			if (!blockWhenFull || !awaitNotFull())
+				return false;
+		}
+	}
+
+	private boolean awaitNotFull() {
+		blockedProducers.incrementAndGet();
+		try {
+			synchronized (notFull) {
+				while (!stopped && count.get() >= capacity)
+					notFull.wait();
+			}
+			return !stopped;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			blockedProducers.decrementAndGet();
+		}
+	}
+
+	private void signalNotFull() {
+		if (blockedProducers.get() > 0) {
+			synchronized (notFull) {
+				notFull.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * @return the first node, or null if there is none.  A producer may have
+	 * reserved a slot and swapped the tail but not yet linked its node, in which
+	 * case this spins briefly until it is linked.
+	 */
+	private Node first() {
+		final Node h = head;
+		Node next = h.next;
+		if (next == null && tail.get() != h) {
+			while ((next = h.next) == null)
+				Thread.yield();
+		}
+		return next;
+	}
+
+	public Object peekQueue() {
+		return peekQueue(-1);
+	}
+
+	/**
+	 * Unlike {@link SimpleFIFOQueue#peekQueue(long)} this returns immediately if the
+	 * queue is not empty.
+	 * @param waitMS the maximum time to wait for an element.  If 0, waits until there is
+	 * an element or the queue is closed.
+	 * @return Object the head of the queue, or <code>null</code> if the queue is empty after
+	 * waitMS, if the queue is closed or if the calling thread is interrupted
+	 */
+	public Object peekQueue(final long waitMS) {
+		final Node n = first();
+		if (n != null)
+			return n.value;
+		if (waitMS <= 0)
+			return awaitFirst(0L);
+		return awaitFirst(System.nanoTime() + waitMS * 1000000L);
+	}
+
+	private Object awaitFirst(long deadline) {
+		final Thread me = Thread.currentThread();
+		for (;;) {
+			// Elements enqueued before close are still delivered
+			Node n = first();
+			if (n != null)
+				return n.value;
+			if (stopped)
+				return null;
+			waiter = me;
+			try {
+				// Recheck after publishing ourselves as waiter, so that an enqueue
+				// or close that happened in between is not missed
+				n = first();
+				if (n != null)
+					return n.value;
+				if (stopped)
+					return null;
+				if (deadline == 0L)
+					LockSupport.park(this);
+				else {
+					final long remaining = deadline - System.nanoTime();
+					if (remaining <= 0)
+						return null;
+					LockSupport.parkNanos(this, remaining);
+				}
+				if (Thread.interrupted())
+					return null;
+			} finally {
+				waiter = null;
+			}
+		}
+	}
+
+	public Object removeHead() {
+		final Node n = first();
+		if (n == null)
+			return null;
+		final Object val = n.value;
+		// n becomes the new stub
+		n.value = null;
+		head = n;
+		count.decrementAndGet();
+		signalNotFull();
+		return val;
+	}
+
+	public Object dequeue() {
+		final Object val = peekQueue();
+		if (val != null)
+			removeHead();
+		return val;
+	}
+
+	public boolean isEmpty() {
+		return count.get() == 0;
+	}
+
+	public int size() {
+		return count.get();
+	}
+
+	public void stop() {
+		stopped = true;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public void close() {
+		stop();
+		final Thread w = waiter;
+		if (w != null)
+			LockSupport.unpark(w);
+		synchronized (notFull) {
+			notFull.notifyAll();
+		}
+	}
+
+	/**
+	 * Remove and return all elements, and close the queue.  Must only be called
+	 * by the consumer, or once the consumer has stopped.
+	 */
+	public Object[] flush() {
+		close();
+		final List<Object> out = new ArrayList<Object>();
+		Object o;
+		while ((o = removeHead()) != null)
+			out.add(o);
+		return out.toArray();
+	}
+
+	public String toString() {
+		final StringBuffer sb = new StringBuffer("MPSCFIFOQueue["); //$NON-NLS-1$
+		sb.append("size=").append(size()).append(";stopped=").append(stopped).append("]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return sb.toString();
+	}
+}
@@ -21,6 +21,26 @@ public class SimpleFIFOQueue implements ISimpleFIFOQueue {
 
 	private volatile boolean stopped;
 
+	/**
+	 * System property that, when set to "false", makes
+	 * {@link #createSingleConsumerQueue()} return a {@link SimpleFIFOQueue}
+	 * rather than a {@link MPSCFIFOQueue}.
+	 * @since 2.7
+	 */
+	public static final String SINGLE_CONSUMER_MPSC_PROP = "org.eclipse.ecf.core.sharedobject.util.mpscqueue"; //$NON-NLS-1$
+
+	private static final boolean SINGLE_CONSUMER_MPSC = Boolean.valueOf(System.getProperty(SINGLE_CONSUMER_MPSC_PROP, "true")).booleanValue(); //$NON-NLS-1$
+
+	/**
+	 * Create a queue for use by any number of producers and exactly one
+	 * consumer thread.  By default this is a lock-free {@link MPSCFIFOQueue}.
+	 * @return SimpleFIFOQueue a new queue.  Will not be <code>null</code>.
+	 * @since 2.7
+	 */
+	public static SimpleFIFOQueue createSingleConsumerQueue() {
+		return SINGLE_CONSUMER_MPSC ? new MPSCFIFOQueue() : new SimpleFIFOQueue();
+	}
+
 	public SimpleFIFOQueue() {
 		list = new LinkedList();
 		stopped = false;
@@ -0,0 +1,197 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors: Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.core.util;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Per class field accessors for {@link OSGIObjectOutputStream},
+ * {@link OSGIObjectInputStream} and {@link SerDTO}, so that field lookup,
+ * modifier checks and setAccessible happen once per class rather than once
+ * per object.
+ * <p>
+ * Layouts are held in {@link ClassValue}s, which attach them to the Class
+ * itself.  When a bundle is refreshed its classes and class loader are
+ * discarded, and the cached layouts with them; classes loaded by the new
+ * class loader get new layouts.
+ */
+final class FieldAccessorCache {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+	private FieldAccessorCache() {
+		// no instances
+	}
+
+	static final class Accessor {
+		final String name;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		Accessor(String name, MethodHandle getter, MethodHandle setter) {
+			this.name = name;
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		Object get(Object obj) throws Exception {
+			try {
+				return (Object) getter.invokeExact(obj);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+
+		/**
+		 * @return false if the field cannot be set, e.g. because it is final
+		 */
+		boolean set(Object obj, Object value) throws Exception {
+			if (setter == null)
+				return false;
+			try {
+				setter.invokeExact(obj, value);
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+			return true;
+		}
+	}
+
+	static final class Layout {
+		final Class<?> clazz;
+		/**
+		 * Accessors in a fixed order
+		 */
+		final Accessor[] fields;
+		private final Map<String, Accessor> byName;
+		/**
+		 * Hash of field names and types, used to detect differing class versions when field names are not sent
+		 */
+		final int layoutHash;
+		private volatile MethodHandle constructor;
+
+		Layout(Class<?> clazz, List<Accessor> fields, int layoutHash) {
+			this.clazz = clazz;
+			this.fields = fields.toArray(new Accessor[fields.size()]);
+			this.byName = new HashMap<String, Accessor>(this.fields.length * 2);
+			for (Accessor a : this.fields)
+				byName.put(a.name, a);
+			this.layoutHash = layoutHash;
+		}
+
+		Accessor getField(String name) {
+			return byName.get(name);
+		}
+
+		/**
+		 * @return new instance created with the public no-arg constructor
+		 */
+		Object newInstance() throws Exception {
+			MethodHandle c = constructor;
+			if (c == null) {
+				c = MethodHandles.publicLookup().findConstructor(clazz, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+				constructor = c;
+			}
+			try {
+				return (Object) c.invokeExact();
+			} catch (Throwable t) {
+				throw rethrow(t);
+			}
+		}
+	}
+
+	/**
+	 * Errors thrown by a method handle are rethrown as is, so that e.g. a
+	 * StackOverflowError is not turned into an IOException by the callers.
+	 * @return Exception to be thrown for t
+	 */
+	static Exception rethrow(Throwable t) {
+		if (t instanceof Error)
+			throw (Error) t;
+		if (t instanceof Exception)
+			return (Exception) t;
+		return new UndeclaredThrowableException(t);
+	}
+
+	private static final ClassValue<Layout> PUBLIC_FIELDS = new ClassValue<Layout>() {
+		@Override
+		protected Layout computeValue(Class<?> clazz) {
+			// Sorted so that sender and receiver agree on the order
+			final Field[] fields = clazz.getFields();
+			Arrays.sort(fields, new Comparator<Field>() {
+				public int compare(Field f1, Field f2) {
+					return f1.getName().compareTo(f2.getName());
+				}
+			});
+			return createLayout(clazz, fields);
+		}
+	};
+
+	private static final ClassValue<Layout> DECLARED_FIELDS = new ClassValue<Layout>() {
+		@Override
+		protected Layout computeValue(Class<?> clazz) {
+			return createLayout(clazz, clazz.getDeclaredFields());
+		}
+	};
+
+	/**
+	 * @return Layout of the public, non-static, non-transient fields of the given class
+	 * and its superclasses, in name order
+	 */
+	static Layout getPublicFields(Class<?> clazz) {
+		return PUBLIC_FIELDS.get(clazz);
+	}
+
+	/**
+	 * @return Layout of the non-static, non-transient fields declared by the given
+	 * class, in declaration order
+	 */
+	static Layout getDeclaredFields(Class<?> clazz) {
+		return DECLARED_FIELDS.get(clazz);
+	}
+
+	static Layout createLayout(Class<?> clazz, Field[] fields) {
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+		final List<Accessor> accessors = new ArrayList<Accessor>(fields.length);
+		final StringBuilder signature = new StringBuilder();
+		for (Field f : fields) {
+			final int mod = f.getModifiers();
+			if (Modifier.isStatic(mod) || Modifier.isTransient(mod))
+				continue;
+			try {
+				f.setAccessible(true);
+			} catch (Exception e) {
+				// Public members of exported packages are still readable
+			}
+			MethodHandle getter;
+			try {
+				getter = lookup.unreflectGetter(f).asType(GETTER_TYPE);
+			} catch (Exception e) {
+				// Not accessible, skip as Field.get failures always were
+				continue;
+			}
+			MethodHandle setter = null;
+			try {
+				setter = lookup.unreflectSetter(f).asType(SETTER_TYPE);
+			} catch (Exception e) {
+				// final field
+			}
+			accessors.add(new Accessor(f.getName(), getter, setter));
+			signature.append(f.getName()).append(':').append(f.getType().getName()).append(';');
+		}
+		return new Layout(clazz, accessors, signature.toString().hashCode());
+	}
+}
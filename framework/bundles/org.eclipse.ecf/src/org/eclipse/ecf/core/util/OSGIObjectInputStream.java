@@ -233,6 +233,8 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 				return Enum.valueOf(loadClass(in.readUTF()), in.readUTF());
 			case C_OBJECT :
 				return readNonSerializedObject();
+			case C_DTO :
+				return readCompactDTO();
 			default :
 				throw new IOException("Cannot deserialize object with type=" + type); //$NON-NLS-1$
 		}
@@ -246,33 +248,68 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 		try {
 			int fieldCount = in.readInt();
 			while (fieldCount > -1) {
+				final FieldAccessorCache.Layout layout = FieldAccessorCache.getDeclaredFields(clazz);
 				for (int i = 0; i < fieldCount; i++) {
 					final String fieldName = in.readUTF();
-					final Field field = clazz.getDeclaredField(fieldName);
-					final int mod = field.getModifiers();
-					if (!Modifier.isPublic(mod))
-						field.setAccessible(true);
-
+					final FieldAccessorCache.Accessor field = layout.getField(fieldName);
+					if (field == null)
+						throw new NoSuchFieldException(fieldName);
 					//
 					final Object value = readObjectOverride();
-					field.set(inst, value);
+					if (!field.set(inst, value))
+						throw new IllegalAccessException("Cannot set field " + fieldName); //$NON-NLS-1$
 				}
 				clazz = clazz.getSuperclass();
 				fieldCount = in.readInt();
 			}
 			return inst;
 		} catch (final Exception e) {
-			IOException t = new IOException("Error while deserializing class=" + clazz.getName() + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+			IOException t = new IOException("Error while deserializing class=" + clazz.getName() + ": " + e.getMessage(), e); //$NON-NLS-1$ //$NON-NLS-2$
 			t.setStackTrace(e.getStackTrace());
 			throw t;
 		}
 	}
 
+	/**
+	 * Read an object written by {@link OSGIObjectOutputStream#writeCompactDTO(Object, Class)}.
+	 * 
+	 * @return Object the DTO
+	 * @throws IOException if the DTO class has a different field layout than the writer's,
+	 * or cannot be instantiated
+	 * @throws ClassNotFoundException if the DTO class cannot be loaded
+	 * @since 3.11
+	 */
+	protected Object readCompactDTO() throws IOException, ClassNotFoundException {
+		final String className = in.readUTF();
+		final FieldAccessorCache.Layout layout = FieldAccessorCache.getPublicFields(loadClass(className));
+		if (in.readInt() != layout.layoutHash)
+			throw new IOException("Fields of DTO class=" + className + " differ from the sender's"); //$NON-NLS-1$ //$NON-NLS-2$
+		final Object inst;
+		try {
+			inst = layout.newInstance();
+		} catch (Exception e) {
+			throw new IOException("Could not create new instance of class=" + className + ".  Class must have public no-arg constructor", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		final FieldAccessorCache.Accessor[] fields = layout.fields;
+		for (int i = 0; i < fields.length; i++) {
+			final Object value = readObjectOverride();
+			// As for SerDTO, null leaves the field's initial value
+			if (value != null) {
+				try {
+					fields[i].set(inst, value);
+				} catch (Exception e) {
+					throw new IOException("Error while deserializing class=" + className + ": " + e.getMessage(), e); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		}
+		return inst;
+	}
+
 	protected Object createInstance(Class<?> clazz) throws IOException {
 		try {
 			return clazz.getDeclaredConstructor().newInstance();
 		} catch (Exception e) {
-			throw new IOException("Could create new instance of class=" + clazz.getName() + ".  Class must have public no-arg constructor"); //$NON-NLS-1$ //$NON-NLS-2$
+			throw new IOException("Could not create new instance of class=" + clazz.getName() + ".  Class must have public no-arg constructor"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 	}
 
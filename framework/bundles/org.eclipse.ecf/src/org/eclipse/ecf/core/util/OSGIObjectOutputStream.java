@@ -26,6 +26,17 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 	protected LogService logger;
 	protected boolean allowNonSerializable = false;
 
+	/**
+	 * System property that turns on {@link #setCompactDTOs(boolean)} for new streams.
+	 * @since 3.11
+	 */
+	public static final String COMPACT_DTOS_PROP = "org.eclipse.ecf.core.util.compactDTOs"; //$NON-NLS-1$
+
+	/**
+	 * @since 3.11
+	 */
+	protected boolean compactDTOs = Boolean.getBoolean(COMPACT_DTOS_PROP);
+
 	class ReplaceableObjectOutputStream extends ObjectOutputStream {
 
 		public ReplaceableObjectOutputStream(OutputStream out) throws IOException {
@@ -67,6 +78,19 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 		this.logger = log;
 	}
 
+	/**
+	 * Write non-serializable objects with {@link #writeCompactDTO(Object, Class)}
+	 * rather than as a {@link SerDTO}.  Compact DTOs do not carry field names,
+	 * so readers must have the same version of each DTO class.  Readers from
+	 * before 3.11 cannot read them.
+	 * 
+	 * @param value true to write compact DTOs
+	 * @since 3.11
+	 */
+	public void setCompactDTOs(boolean value) {
+		this.compactDTOs = value;
+	}
+
 	protected void writeExternalizable(Externalizable obj, Class<?> clazz) throws IOException {
 		out.writeObject(obj);
 	}
@@ -82,34 +106,24 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 	protected void writeFields(Object obj, Class<?> clazz) throws IOException {
 		while (clazz != Object.class) {
 			try {
-				final Field[] allFields = clazz.getDeclaredFields();
-				final int allFieldCount = allFields.length;
-				int actualFieldCount = 0;
-				for (int i = 0; i < allFieldCount; i++) {
-					final int mod = allFields[i].getModifiers();
-					if (!(Modifier.isStatic(mod) || Modifier.isTransient(mod)))
-						actualFieldCount++;
-				}
+				final FieldAccessorCache.Accessor[] fields = FieldAccessorCache.getDeclaredFields(clazz).fields;
 				// write field count
-				out.writeInt(actualFieldCount);
-				for (int i = 0; i < allFieldCount; i++) {
-					final int mod = allFields[i].getModifiers();
-					if (Modifier.isStatic(mod) || Modifier.isTransient(mod))
-						continue;
-					else if (!Modifier.isPublic(mod))
-						allFields[i].setAccessible(true);
-					Object val = allFields[i].get(obj);
+				out.writeInt(fields.length);
+				for (int i = 0; i < fields.length; i++) {
+					Object val = fields[i].get(obj);
 					// Check to see it's not a circular ref
 					if (val != obj) {
 						// write field name
-						out.writeUTF(allFields[i].getName());
+						out.writeUTF(fields[i].name);
 						// field value
 						writeObjectOverride(val);
 					}
 				}
 			} catch (final Exception e) {
-				throw new NotSerializableException("Exception while serializing " + obj.toString() //$NON-NLS-1$
+				final NotSerializableException t = new NotSerializableException("Exception while serializing " + obj.toString() //$NON-NLS-1$
 						+ ":\n" + e.getMessage()); //$NON-NLS-1$ 
+				t.initCause(e);
+				throw t;
 			}
 			clazz = clazz.getSuperclass();
 		}
@@ -117,6 +131,36 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 		out.writeInt(-1);
 	}
 
+	/**
+	 * Write a non-serializable object as {@link #C_DTO}: its class name, a hash
+	 * of its field layout and then its public field values in name order.
+	 * Unlike {@link SerDTO}, field names are not written.
+	 * 
+	 * @param obj the object to write
+	 * @param clazz the class of obj
+	 * @throws IOException if the object cannot be written
+	 * @since 3.11
+	 */
+	protected void writeCompactDTO(Object obj, Class<?> clazz) throws IOException {
+		final FieldAccessorCache.Layout layout = FieldAccessorCache.getPublicFields(clazz);
+		out.writeByte(C_DTO);
+		out.writeUTF(clazz.getName());
+		out.writeInt(layout.layoutHash);
+		final FieldAccessorCache.Accessor[] fields = layout.fields;
+		for (int i = 0; i < fields.length; i++) {
+			Object val;
+			try {
+				val = fields[i].get(obj);
+			} catch (Exception e) {
+				final NotSerializableException t = new NotSerializableException("Exception while serializing " + clazz.getName() //$NON-NLS-1$
+						+ ":\n" + e.getMessage()); //$NON-NLS-1$
+				t.initCause(e);
+				throw t;
+			}
+			writeObjectOverride(val);
+		}
+	}
+
 	protected void writeNonSerializable(Object obj, Class<?> clazz) throws IOException {
 		// write class name
 		out.writeObject(clazz.getName());
@@ -301,6 +345,8 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 			return;
 		} else if (obj instanceof Version) {
 			writeObjectOverride(new SerVersion((Version) obj));
+		} else if (compactDTOs) {
+			writeCompactDTO(obj, clazz);
 		} else {
 			writeObjectOverride(new SerDTO(obj));
 			return;
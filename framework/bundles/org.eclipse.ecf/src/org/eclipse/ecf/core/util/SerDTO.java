@@ -13,8 +13,6 @@ package org.eclipse.ecf.core.util;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,10 +29,7 @@ public class SerDTO implements Serializable {
 		Class<?> clazz = obj.getClass();
 		this.className = clazz.getName();
 		this.fields = new HashMap<String, Object>();
-		for (Field f : clazz.getFields()) {
-			final int mod = f.getModifiers();
-			if (Modifier.isStatic(mod) || Modifier.isTransient(mod))
-				continue;
+		for (FieldAccessorCache.Accessor f : FieldAccessorCache.getPublicFields(clazz).fields) {
 			Object value = null;
 			try {
 				value = f.get(obj);
@@ -42,7 +37,7 @@ public class SerDTO implements Serializable {
 				//
 			}
 			if (value != null) {
-				fields.put(f.getName(), value);
+				fields.put(f.name, value);
 			}
 		}
 	}
@@ -58,20 +53,20 @@ public class SerDTO implements Serializable {
 	public Object readObject(Class<?> clazz) throws IOException {
 		Object result = null;
 		try {
-			result = clazz.getConstructor(new Class[] {}).newInstance();
-			for (Field f : clazz.getFields()) {
-				Object v = fields.get(f.getName());
-				if (v != null) {
-					f.setAccessible(true);
+			FieldAccessorCache.Layout layout = FieldAccessorCache.getPublicFields(clazz);
+			result = layout.newInstance();
+			for (Map.Entry<String, Object> e : fields.entrySet()) {
+				FieldAccessorCache.Accessor f = layout.getField(e.getKey());
+				if (f != null) {
 					try {
-						f.set(result, v);
-					} catch (Exception e) {
+						f.set(result, e.getValue());
+					} catch (Exception t) {
 						// ignore
 					}
 				}
 			}
-		} catch (Throwable e) {
-			throw new IOException("Unexpected exception reading DTO in SerDTO.readObject: " + e.getLocalizedMessage()); //$NON-NLS-1$
+		} catch (Exception e) {
+			throw new IOException("Unexpected exception reading DTO in SerDTO.readObject: " + e.getLocalizedMessage(), e); //$NON-NLS-1$
 		}
 		return result;
 
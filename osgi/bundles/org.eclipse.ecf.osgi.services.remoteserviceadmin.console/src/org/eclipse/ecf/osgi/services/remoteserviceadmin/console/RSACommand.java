@@ -36,7 +36,7 @@ import org.eclipse.ecf.core.identity.IIDFactory;
 import org.eclipse.ecf.osgi.services.remoteserviceadmin.DebugRemoteServiceAdminListener;
 import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescription;
 import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescriptionReader;
-import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescriptionWriter;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescriptionStreamWriter;
 import org.eclipse.ecf.osgi.services.remoteserviceadmin.RemoteServiceAdmin;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
@@ -179,10 +179,11 @@ public class RSACommand extends AbstractCommand implements Converter {
 	}
 
 	private String formatEndpoint(EndpointDescription ed) {
-		EndpointDescriptionWriter edw = new EndpointDescriptionWriter();
+		// Escapes property values, so the output can be read back as EDEF
+		EndpointDescriptionStreamWriter edw = new EndpointDescriptionStreamWriter();
 		StringWriter sw = new StringWriter();
 		try {
-			edw.writeEndpointDescription(sw, ed);
+			edw.writeEndpointDescriptions(sw, new EndpointDescription[] { ed });
 		} catch (IOException e) {
 			e.printStackTrace();
 			return null;
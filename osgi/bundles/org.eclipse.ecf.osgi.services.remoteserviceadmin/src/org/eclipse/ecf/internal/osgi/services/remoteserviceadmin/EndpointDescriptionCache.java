@@ -0,0 +1,74 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.osgi.services.remoteserviceadmin;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+
+/**
+ * Cache of the endpoint descriptions read from the EDEF files of bundles,
+ * keyed by bundle id and bundle last modified time, and then by file. When a
+ * bundle is stopped and started again, or refreshed without being updated,
+ * its EDEF files do not need to be parsed again. When a bundle is updated its
+ * last modified time changes, and all of its cached entries are dropped.
+ */
+public class EndpointDescriptionCache {
+
+	static class BundleEntry {
+		final long lastModified;
+		final Map<String, EndpointDescription[]> files = new HashMap<String, EndpointDescription[]>();
+
+		BundleEntry(long lastModified) {
+			this.lastModified = lastModified;
+		}
+	}
+
+	private final Map<Long, BundleEntry> bundles = new HashMap<Long, BundleEntry>();
+
+	/**
+	 * @param bundleId
+	 *            the bundle id
+	 * @param lastModified
+	 *            the bundle's last modified time
+	 * @param file
+	 *            the key of the file in the bundle
+	 * @return the cached endpoint descriptions, or <code>null</code> if not
+	 *         cached for the given bundle last modified time
+	 */
+	public synchronized EndpointDescription[] get(long bundleId, long lastModified, String file) {
+		BundleEntry entry = bundles.get(Long.valueOf(bundleId));
+		if (entry == null || entry.lastModified != lastModified)
+			return null;
+		return entry.files.get(file);
+	}
+
+	public synchronized void put(long bundleId, long lastModified, String file,
+			EndpointDescription[] endpointDescriptions) {
+		Long key = Long.valueOf(bundleId);
+		BundleEntry entry = bundles.get(key);
+		if (entry == null || entry.lastModified != lastModified) {
+			entry = new BundleEntry(lastModified);
+			bundles.put(key, entry);
+		}
+		entry.files.put(file, endpointDescriptions);
+	}
+
+	public synchronized void remove(long bundleId) {
+		bundles.remove(Long.valueOf(bundleId));
+	}
+
+	public synchronized void clear() {
+		bundles.clear();
+	}
+}
@@ -247,10 +247,8 @@ public class EndpointDescriptionParser {
 
 	SAXParser getParser() throws ParserConfigurationException, SAXException {
 		Activator a = Activator.getDefault();
-		if (a == null)
-			return null;
-
-		SAXParserFactory factory = a.getSAXParserFactory();
+		// Outside of a framework use the default factory
+		SAXParserFactory factory = (a == null) ? SAXParserFactory.newInstance() : a.getSAXParserFactory();
 		if (factory == null)
 			throw new SAXException("Unable to acquire sax parser"); //$NON-NLS-1$
 		factory.setNamespaceAware(true);
@@ -0,0 +1,329 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.osgi.services.remoteserviceadmin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming (StAX) parser for the Endpoint Description Extender Format. The
+ * properties of each endpoint description are read directly into a map, with
+ * no handler object per element. The properties are the same as those of
+ * {@link EndpointDescriptionParser}, except that float arrays are Float[]
+ * rather than Double[], and text and attribute values in xml properties are
+ * escaped.
+ */
+public class EndpointDescriptionStreamParser {
+
+	private static final String ENDPOINT_DESCRIPTIONS = "endpoint-descriptions"; //$NON-NLS-1$
+	private static final String ENDPOINT_DESCRIPTION = "endpoint-description"; //$NON-NLS-1$
+	private static final String ENDPOINT_PROPERTY = "property"; //$NON-NLS-1$
+	private static final String ENDPOINT_PROPERTY_NAME = "name"; //$NON-NLS-1$
+	private static final String ENDPOINT_PROPERTY_VALUE = "value"; //$NON-NLS-1$
+	private static final String ENDPOINT_PROPERTY_VALUETYPE = "value-type"; //$NON-NLS-1$
+	private static final String ENDPOINT_PROPERTY_ARRAY = "array"; //$NON-NLS-1$
+	private static final String ENDPOINT_PROPERTY_LIST = "list"; //$NON-NLS-1$
+	private static final String ENDPOINT_PROPERTY_SET = "set"; //$NON-NLS-1$
+	private static final String ENDPOINT_PROPERTY_XML = "xml"; //$NON-NLS-1$
+
+	private static final String STRING_TYPE = "String"; //$NON-NLS-1$
+
+	private static XMLInputFactory inputFactory;
+
+	private static synchronized XMLInputFactory getInputFactory() {
+		if (inputFactory == null) {
+			XMLInputFactory f = XMLInputFactory.newInstance();
+			f.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+			f.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			f.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+			inputFactory = f;
+		}
+		return inputFactory;
+	}
+
+	/**
+	 * Parse the endpoint descriptions in the given input stream. The stream is
+	 * closed when this method returns.
+	 *
+	 * @param input
+	 *            the input stream. Must not be <code>null</code>.
+	 * @return the properties of each endpoint description, in document order.
+	 *         Will not be <code>null</code>. Property names are case
+	 *         insensitive.
+	 * @throws IOException
+	 *             if the input cannot be read or is not valid
+	 */
+	public static List<Map<String, Object>> parse(InputStream input) throws IOException {
+		List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+		XMLStreamReader reader = null;
+		try {
+			reader = getInputFactory().createXMLStreamReader(input);
+			while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT)
+				;
+			if (reader.isStartElement() && ENDPOINT_DESCRIPTIONS.equals(reader.getLocalName())) {
+				while (nextChildElement(reader)) {
+					if (ENDPOINT_DESCRIPTION.equals(reader.getLocalName()))
+						results.add(parseEndpointDescription(reader));
+					else
+						skipElement(reader);
+				}
+			}
+			return results;
+		} catch (XMLStreamException e) {
+			IOException ioe = new IOException(e.getMessage());
+			ioe.initCause(e);
+			throw ioe;
+		} catch (IllegalArgumentException e) {
+			// Includes NumberFormatException for invalid values
+			IOException ioe = new IOException(e.getMessage());
+			ioe.initCause(e);
+			throw ioe;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// ignore
+				}
+			}
+			input.close();
+		}
+	}
+
+	// Move to the next child element of the current element. Returns false,
+	// with the reader at the end of the current element, if there is none
+	private static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+				return true;
+			if (event == XMLStreamConstants.END_ELEMENT)
+				return false;
+		}
+		return false;
+	}
+
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if (event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+
+	private static Map<String, Object> parseEndpointDescription(XMLStreamReader reader) throws XMLStreamException {
+		Map<String, Object> properties = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
+		while (nextChildElement(reader)) {
+			if (ENDPOINT_PROPERTY.equals(reader.getLocalName()))
+				parseProperty(reader, properties);
+			else
+				skipElement(reader);
+		}
+		return properties;
+	}
+
+	private static void parseProperty(XMLStreamReader reader, Map<String, Object> properties)
+			throws XMLStreamException {
+		String name = null;
+		String strValue = null;
+		String valueType = STRING_TYPE;
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String attrName = reader.getAttributeLocalName(i);
+			if (ENDPOINT_PROPERTY_NAME.equals(attrName))
+				name = reader.getAttributeValue(i).trim();
+			else if (ENDPOINT_PROPERTY_VALUE.equals(attrName))
+				strValue = reader.getAttributeValue(i).trim();
+			else if (ENDPOINT_PROPERTY_VALUETYPE.equals(attrName)) {
+				valueType = reader.getAttributeValue(i).trim();
+				if (getValueClass(valueType) == null)
+					throw new XMLStreamException("property element valueType=" + valueType //$NON-NLS-1$
+							+ " not allowed", reader.getLocation()); //$NON-NLS-1$
+			}
+		}
+		Object value = (strValue == null) ? null : createValue(valueType, strValue);
+		if (name != null && value != null)
+			properties.put(name, value);
+		Object complexValue = null;
+		while (nextChildElement(reader)) {
+			if (value != null)
+				throw new XMLStreamException("property element has both value attribute and sub-element", //$NON-NLS-1$
+						reader.getLocation());
+			String element = reader.getLocalName();
+			if (complexValue != null)
+				// duplicate element
+				skipElement(reader);
+			else if (ENDPOINT_PROPERTY_ARRAY.equals(element)) {
+				List<Object> values = new ArrayList<Object>();
+				parseValues(reader, valueType, values);
+				complexValue = values.toArray((Object[]) Array.newInstance(getValueClass(valueType), values.size()));
+			} else if (ENDPOINT_PROPERTY_LIST.equals(element)) {
+				List<Object> values = new ArrayList<Object>();
+				parseValues(reader, valueType, values);
+				complexValue = values;
+			} else if (ENDPOINT_PROPERTY_SET.equals(element)) {
+				HashSet<Object> values = new HashSet<Object>();
+				parseValues(reader, valueType, values);
+				complexValue = values;
+			} else if (ENDPOINT_PROPERTY_XML.equals(element))
+				complexValue = parseXML(reader);
+			else
+				skipElement(reader);
+		}
+		if (name != null && complexValue != null)
+			properties.put(name, complexValue);
+	}
+
+	private static void parseValues(XMLStreamReader reader, String valueType, Collection<Object> values)
+			throws XMLStreamException {
+		while (nextChildElement(reader)) {
+			if (ENDPOINT_PROPERTY_VALUE.equals(reader.getLocalName())) {
+				String text = reader.getElementText();
+				if (!STRING_TYPE.equals(valueType))
+					text = text.trim();
+				if (text.length() > 0)
+					values.add(createValue(valueType, text));
+			} else
+				skipElement(reader);
+		}
+	}
+
+	private static String parseXML(XMLStreamReader reader) throws XMLStreamException {
+		StringBuilder buf = new StringBuilder();
+		int depth = 0;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				buf.append('<');
+				appendName(buf, reader.getPrefix(), reader.getLocalName());
+				for (int i = 0; i < reader.getNamespaceCount(); i++) {
+					buf.append(" xmlns"); //$NON-NLS-1$
+					String prefix = reader.getNamespacePrefix(i);
+					if (prefix != null && prefix.length() > 0)
+						buf.append(':').append(prefix);
+					buf.append("=\""); //$NON-NLS-1$
+					appendEscaped(buf, reader.getNamespaceURI(i), true);
+					buf.append('"');
+				}
+				for (int i = 0; i < reader.getAttributeCount(); i++) {
+					buf.append(' ');
+					appendName(buf, reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+					buf.append("=\""); //$NON-NLS-1$
+					appendEscaped(buf, reader.getAttributeValue(i), true);
+					buf.append('"');
+				}
+				buf.append('>');
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth-- == 0)
+					break;
+				buf.append("</"); //$NON-NLS-1$
+				appendName(buf, reader.getPrefix(), reader.getLocalName());
+				buf.append('>');
+			} else if (depth > 0 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+					|| event == XMLStreamConstants.SPACE))
+				appendEscaped(buf, reader.getText(), false);
+		}
+		return buf.toString();
+	}
+
+	private static void appendName(StringBuilder buf, String prefix, String localName) {
+		if (prefix != null && prefix.length() > 0)
+			buf.append(prefix).append(':');
+		buf.append(localName);
+	}
+
+	private static void appendEscaped(StringBuilder buf, String s, boolean attribute) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '&')
+				buf.append("&amp;"); //$NON-NLS-1$
+			else if (c == '<')
+				buf.append("&lt;"); //$NON-NLS-1$
+			else if (c == '>' && !attribute)
+				buf.append("&gt;"); //$NON-NLS-1$
+			else if (c == '"' && attribute)
+				buf.append("&quot;"); //$NON-NLS-1$
+			else
+				buf.append(c);
+		}
+	}
+
+	/**
+	 * @param valueType
+	 *            an EDEF value-type
+	 * @return the class of values of the given value-type, or
+	 *         <code>null</code> if the value-type is not valid
+	 */
+	public static Class<?> getValueClass(String valueType) {
+		if (valueType.equals(STRING_TYPE))
+			return String.class;
+		else if (valueType.equals("long") || valueType.equals("Long")) //$NON-NLS-1$ //$NON-NLS-2$
+			return Long.class;
+		else if (valueType.equals("double") || valueType.equals("Double")) //$NON-NLS-1$ //$NON-NLS-2$
+			return Double.class;
+		else if (valueType.equals("float") || valueType.equals("Float")) //$NON-NLS-1$ //$NON-NLS-2$
+			return Float.class;
+		else if (valueType.equals("int") || valueType.equals("Integer")) //$NON-NLS-1$ //$NON-NLS-2$
+			return Integer.class;
+		else if (valueType.equals("byte") || valueType.equals("Byte")) //$NON-NLS-1$ //$NON-NLS-2$
+			return Byte.class;
+		else if (valueType.equals("char") || valueType.equals("Character")) //$NON-NLS-1$ //$NON-NLS-2$
+			return Character.class;
+		else if (valueType.equals("boolean") || valueType.equals("Boolean")) //$NON-NLS-1$ //$NON-NLS-2$
+			return Boolean.class;
+		else if (valueType.equals("short") || valueType.equals("Short")) //$NON-NLS-1$ //$NON-NLS-2$
+			return Short.class;
+		return null;
+	}
+
+	private static Object createValue(String valueType, String value) {
+		Class<?> c = getValueClass(valueType);
+		if (c == String.class)
+			return value;
+		else if (value.length() == 0)
+			return null;
+		else if (c == Long.class)
+			return Long.valueOf(value);
+		else if (c == Double.class)
+			return Double.valueOf(value);
+		else if (c == Float.class)
+			return Float.valueOf(value);
+		else if (c == Integer.class)
+			return Integer.valueOf(value);
+		else if (c == Byte.class)
+			return Byte.valueOf(value);
+		else if (c == Character.class)
+			return Character.valueOf(value.charAt(0));
+		else if (c == Boolean.class)
+			return Boolean.valueOf(value);
+		else if (c == Short.class)
+			return Short.valueOf(value);
+		return null;
+	}
+}
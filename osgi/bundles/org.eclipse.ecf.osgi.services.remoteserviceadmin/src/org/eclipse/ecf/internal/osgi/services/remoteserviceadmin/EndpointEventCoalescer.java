@@ -0,0 +1,241 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.osgi.services.remoteserviceadmin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.osgi.service.remoteserviceadmin.EndpointEvent;
+
+/**
+ * Collects endpoint events for a short window and delivers them as a batch,
+ * with the events for each endpoint id collapsed to their net effect. For
+ * example an endpoint that is added, removed and added again within the
+ * window is delivered as a single ADDED event, and one that is added and then
+ * removed is not delivered at all. An endpoint that was present before the
+ * window, and is removed and added again within it, is delivered as a REMOVED
+ * event followed by an ADDED event, so that a stale import is not kept.
+ * Whether an endpoint was present before the window is decided by the batches
+ * delivered so far, so a repeated ADDED event for a present endpoint does not
+ * cancel out a later REMOVED event.
+ * <p>
+ * Batches are delivered in order, on a single daemon thread. With a window
+ * of zero or less, each event is delivered as a batch of one on the calling
+ * thread.
+ */
+public class EndpointEventCoalescer {
+
+	public interface IEndpointEventBatchHandler {
+		/**
+		 * @param events
+		 *            the coalesced events, in the order that their endpoints
+		 *            were first seen in the window. At most one event per
+		 *            endpoint id, except for a REMOVED event followed by an
+		 *            ADDED event. Will not be <code>null</code> or empty.
+		 */
+		void handleEndpointEvents(List<EndpointEvent> events);
+	}
+
+	private final String name;
+	private final long window;
+	private final IEndpointEventBatchHandler handler;
+
+	// endpoint id -> pending events, guarded by this
+	private Map<String, Pending> pending = new LinkedHashMap<String, Pending>();
+	// ids of the endpoints present after the batches taken so far, guarded by this
+	private final Set<String> present = new HashSet<String>();
+	private ScheduledExecutorService scheduler;
+	private boolean flushScheduled;
+	private boolean closed;
+	// Held while a batch is taken and delivered, so that batches stay in order
+	private final Object deliveryLock = new Object();
+
+	public EndpointEventCoalescer(String name, long window, IEndpointEventBatchHandler handler) {
+		this.name = name;
+		this.window = window;
+		this.handler = handler;
+	}
+
+	static class Pending {
+		final boolean presentBefore;
+		EndpointEvent firstRemoval;
+		EndpointEvent last;
+
+		Pending(EndpointEvent first, boolean presentBefore) {
+			this.presentBefore = presentBefore || first.getType() != EndpointEvent.ADDED;
+			add(first);
+		}
+
+		void add(EndpointEvent event) {
+			if (presentBefore && firstRemoval == null && !isPresent(event))
+				firstRemoval = event;
+			last = event;
+		}
+
+		void addTo(List<EndpointEvent> events) {
+			boolean presentAfter = isPresent(last);
+			if (!presentBefore) {
+				if (presentAfter)
+					events.add(new EndpointEvent(EndpointEvent.ADDED, last.getEndpoint()));
+			} else if (presentAfter && firstRemoval != null) {
+				events.add(firstRemoval);
+				events.add(new EndpointEvent(EndpointEvent.ADDED, last.getEndpoint()));
+			} else
+				events.add(last);
+		}
+	}
+
+	static boolean isPresent(EndpointEvent event) {
+		int type = event.getType();
+		return type == EndpointEvent.ADDED || type == EndpointEvent.MODIFIED;
+	}
+
+	/**
+	 * Coalesce the given events by endpoint id.
+	 *
+	 * @param events
+	 *            the events in the order they were received
+	 * @return the coalesced events. Will not be <code>null</code>.
+	 */
+	public static List<EndpointEvent> coalesce(List<EndpointEvent> events) {
+		return coalesce(events, Collections.<String> emptySet());
+	}
+
+	/**
+	 * Coalesce the given events by endpoint id.
+	 *
+	 * @param events
+	 *            the events in the order they were received
+	 * @param present
+	 *            the ids of the endpoints that were present before the events
+	 * @return the coalesced events. Will not be <code>null</code>.
+	 */
+	public static List<EndpointEvent> coalesce(List<EndpointEvent> events, Set<String> present) {
+		Map<String, Pending> p = new LinkedHashMap<String, Pending>();
+		for (EndpointEvent event : events)
+			add(p, event, present);
+		return getEvents(p);
+	}
+
+	private static void add(Map<String, Pending> p, EndpointEvent event, Set<String> present) {
+		String id = event.getEndpoint().getId();
+		Pending pe = p.get(id);
+		if (pe == null)
+			p.put(id, new Pending(event, present.contains(id)));
+		else
+			pe.add(event);
+	}
+
+	private static List<EndpointEvent> getEvents(Map<String, Pending> p) {
+		List<EndpointEvent> results = new ArrayList<EndpointEvent>(p.size());
+		for (Iterator<Pending> i = p.values().iterator(); i.hasNext();)
+			i.next().addTo(results);
+		return results;
+	}
+
+	/**
+	 * Add an endpoint event, to be delivered with the next batch.
+	 *
+	 * @param event
+	 *            the endpoint event. Must not be <code>null</code>.
+	 */
+	public void add(EndpointEvent event) {
+		if (window <= 0) {
+			synchronized (this) {
+				if (closed)
+					return;
+			}
+			handler.handleEndpointEvents(Collections.singletonList(event));
+			return;
+		}
+		synchronized (this) {
+			if (closed)
+				return;
+			add(pending, event, present);
+			if (flushScheduled)
+				return;
+			flushScheduled = true;
+			getScheduler().schedule(new Runnable() {
+				public void run() {
+					flush();
+				}
+			}, window, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Deliver the pending events now, on the calling thread.
+	 */
+	public void flush() {
+		synchronized (deliveryLock) {
+			List<EndpointEvent> events;
+			synchronized (this) {
+				flushScheduled = false;
+				if (pending.isEmpty())
+					return;
+				events = getEvents(pending);
+				pending = new LinkedHashMap<String, Pending>();
+				// Events added from now on are coalesced against this batch
+				for (EndpointEvent event : events) {
+					String id = event.getEndpoint().getId();
+					if (isPresent(event))
+						present.add(id);
+					else
+						present.remove(id);
+				}
+			}
+			if (!events.isEmpty())
+				handler.handleEndpointEvents(events);
+		}
+	}
+
+	private ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			ScheduledThreadPoolExecutor stpe = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, name);
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			stpe.setKeepAliveTime(60, TimeUnit.SECONDS);
+			stpe.allowCoreThreadTimeOut(true);
+			scheduler = stpe;
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Discard any pending events and stop delivering batches.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			pending.clear();
+			present.clear();
+			if (scheduler != null) {
+				scheduler.shutdownNow();
+				scheduler = null;
+			}
+		}
+	}
+}
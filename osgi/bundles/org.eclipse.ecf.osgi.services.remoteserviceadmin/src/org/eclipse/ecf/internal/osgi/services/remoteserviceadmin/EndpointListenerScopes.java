@@ -0,0 +1,350 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.osgi.services.remoteserviceadmin;
+
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Filter;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.EndpointEventListener;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+/**
+ * The endpoint listener scope filters of a set of EndpointListener or
+ * EndpointEventListener service references, compiled once when the service
+ * is added or modified rather than for every endpoint.
+ * <p>
+ * Scopes are also indexed by the objectClass and endpoint.framework.uuid
+ * equality clauses that their filters require, so that for a given endpoint
+ * only the listeners that can match are evaluated. A scope is indexed only
+ * if every one of its filters requires such a clause, either as the whole
+ * filter or directly under a top level <code>&amp;</code>. Other scopes are
+ * evaluated for every endpoint.
+ */
+public class EndpointListenerScopes {
+
+	private static final String[] INDEXED_ATTRIBUTES = new String[] { Constants.OBJECTCLASS,
+			RemoteConstants.ENDPOINT_FRAMEWORK_UUID };
+
+	private final Map<ServiceReference, Scope> scopes = new ConcurrentHashMap<ServiceReference, Scope>();
+	// attribute -> value -> scopes, one per INDEXED_ATTRIBUTES entry
+	private final Map<String, Set<ServiceReference>>[] indexes;
+	private final Set<ServiceReference> unindexed = new LinkedHashSet<ServiceReference>();
+
+	@SuppressWarnings("unchecked")
+	public EndpointListenerScopes() {
+		indexes = new Map[INDEXED_ATTRIBUTES.length];
+		for (int i = 0; i < indexes.length; i++)
+			indexes[i] = new HashMap<String, Set<ServiceReference>>();
+	}
+
+	/**
+	 * The compiled scope of one listener service.
+	 */
+	public static class Scope {
+		private final String[] filters;
+		private final Filter[] compiled;
+		// attribute index -> required value, for each filter. null if the filter is not indexable
+		private final String[][] keys;
+		private final Map<String, IllegalArgumentException> invalidFilters = new LinkedHashMap<String, IllegalArgumentException>();
+
+		Scope(List<String> scopeFilters) {
+			filters = scopeFilters.toArray(new String[scopeFilters.size()]);
+			compiled = new Filter[filters.length];
+			keys = new String[filters.length][];
+			for (int i = 0; i < filters.length; i++) {
+				String filter = filters[i];
+				if (filter == null || "".equals(filter)) //$NON-NLS-1$
+					continue;
+				try {
+					compiled[i] = FrameworkUtil.createFilter(filter);
+				} catch (InvalidSyntaxException e) {
+					IllegalArgumentException iae = new IllegalArgumentException(e.getMessage());
+					iae.initCause(e);
+					invalidFilters.put(filter, iae);
+					continue;
+				}
+				for (int a = 0; a < INDEXED_ATTRIBUTES.length; a++) {
+					String value = getRequiredValue(filter, INDEXED_ATTRIBUTES[a]);
+					if (value != null) {
+						keys[i] = new String[] { INDEXED_ATTRIBUTES[a], value };
+						break;
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return the scope filters that could not be parsed, with the parse
+		 *         exception. Will not be <code>null</code>.
+		 */
+		public Map<String, IllegalArgumentException> getInvalidFilters() {
+			return Collections.unmodifiableMap(invalidFilters);
+		}
+
+		/**
+		 * @return true if this scope has at least one valid filter
+		 */
+		public boolean hasFilters() {
+			for (int i = 0; i < compiled.length; i++)
+				if (compiled[i] != null)
+					return true;
+			return false;
+		}
+
+		boolean isIndexable() {
+			boolean result = false;
+			for (int i = 0; i < compiled.length; i++) {
+				if (compiled[i] == null)
+					continue;
+				if (keys[i] == null)
+					return false;
+				result = true;
+			}
+			return result;
+		}
+
+		/**
+		 * @param description
+		 *            the endpoint description to match
+		 * @return the first filter of this scope that matches the endpoint
+		 *         description, or <code>null</code> if none match
+		 */
+		public String match(EndpointDescription description) {
+			Dictionary<String, Object> d = null;
+			for (int i = 0; i < compiled.length; i++) {
+				if (compiled[i] == null)
+					continue;
+				if (d == null)
+					d = new MapDictionary(description.getProperties());
+				// Endpoint description properties are case insensitive already
+				if (compiled[i].matchCase(d))
+					return filters[i];
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * @param reference
+	 *            the listener service reference
+	 * @return Scope the new scope for the given listener service reference
+	 */
+	public static Scope createScope(ServiceReference reference) {
+		Map<String, Object> props = new HashMap<String, Object>();
+		props.put(EndpointEventListener.ENDPOINT_LISTENER_SCOPE,
+				reference.getProperty(EndpointEventListener.ENDPOINT_LISTENER_SCOPE));
+		return new Scope(PropertiesUtil.getStringPlusProperty(props, EndpointEventListener.ENDPOINT_LISTENER_SCOPE));
+	}
+
+	/**
+	 * Compile and index the scope of a listener service. If the service
+	 * reference is already present its scope is replaced, as for a service
+	 * modification.
+	 *
+	 * @param reference
+	 *            the listener service reference
+	 * @return Scope the compiled scope
+	 */
+	public synchronized Scope add(ServiceReference reference) {
+		remove(reference);
+		Scope scope = createScope(reference);
+		scopes.put(reference, scope);
+		if (!scope.hasFilters())
+			return scope;
+		if (scope.isIndexable()) {
+			for (int i = 0; i < scope.keys.length; i++) {
+				if (scope.keys[i] == null)
+					continue;
+				Map<String, Set<ServiceReference>> index = indexes[getAttributeIndex(scope.keys[i][0])];
+				Set<ServiceReference> refs = index.get(scope.keys[i][1]);
+				if (refs == null) {
+					refs = new LinkedHashSet<ServiceReference>();
+					index.put(scope.keys[i][1], refs);
+				}
+				refs.add(reference);
+			}
+		} else
+			unindexed.add(reference);
+		return scope;
+	}
+
+	public synchronized void remove(ServiceReference reference) {
+		Scope scope = scopes.remove(reference);
+		if (scope == null)
+			return;
+		unindexed.remove(reference);
+		for (int i = 0; i < scope.keys.length; i++) {
+			if (scope.keys[i] == null)
+				continue;
+			Map<String, Set<ServiceReference>> index = indexes[getAttributeIndex(scope.keys[i][0])];
+			Set<ServiceReference> refs = index.get(scope.keys[i][1]);
+			if (refs != null) {
+				refs.remove(reference);
+				if (refs.isEmpty())
+					index.remove(scope.keys[i][1]);
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		scopes.clear();
+		unindexed.clear();
+		for (int i = 0; i < indexes.length; i++)
+			indexes[i].clear();
+	}
+
+	/**
+	 * @param reference
+	 *            the listener service reference
+	 * @return the compiled scope for the given reference. If the reference has
+	 *         not been added, a new scope is compiled and returned but not kept.
+	 */
+	public Scope getScope(ServiceReference reference) {
+		Scope scope = scopes.get(reference);
+		return (scope == null) ? createScope(reference) : scope;
+	}
+
+	/**
+	 * @param description
+	 *            the endpoint description
+	 * @return the added listener service references whose scope may match the
+	 *         given endpoint description. Will not be <code>null</code>.
+	 */
+	public synchronized ServiceReference[] getCandidates(EndpointDescription description) {
+		Set<ServiceReference> results = new LinkedHashSet<ServiceReference>(unindexed);
+		addCandidates(results, indexes[0], description.getInterfaces());
+		addCandidates(results, indexes[1], Collections.singletonList(description.getFrameworkUUID()));
+		return results.toArray(new ServiceReference[results.size()]);
+	}
+
+	private void addCandidates(Set<ServiceReference> results, Map<String, Set<ServiceReference>> index,
+			List<String> values) {
+		if (index.isEmpty())
+			return;
+		for (String value : values) {
+			if (value == null)
+				continue;
+			Set<ServiceReference> refs = index.get(value);
+			if (refs != null)
+				results.addAll(refs);
+		}
+	}
+
+	private static int getAttributeIndex(String attribute) {
+		for (int i = 0; i < INDEXED_ATTRIBUTES.length; i++)
+			if (INDEXED_ATTRIBUTES[i].equals(attribute))
+				return i;
+		throw new IllegalArgumentException(attribute);
+	}
+
+	/**
+	 * @param filter
+	 *            a valid LDAP filter
+	 * @param attribute
+	 *            the attribute name
+	 * @return the value of an equality clause on the given attribute that any
+	 *         match of the filter must satisfy, or <code>null</code> if no
+	 *         such clause is found. Only a filter that is itself such a
+	 *         clause, or that has one directly under a top level
+	 *         <code>&amp;</code>, is recognized.
+	 */
+	public static String getRequiredValue(String filter, String attribute) {
+		String f = filter.trim();
+		if (f.length() < 2 || f.charAt(0) != '(' || f.charAt(f.length() - 1) != ')')
+			return null;
+		if (f.charAt(1) != '&')
+			return getEqualityValue(f, attribute);
+		int depth = 0;
+		int start = -1;
+		for (int i = 2; i < f.length() - 1; i++) {
+			char c = f.charAt(i);
+			if (c == '\\')
+				i++;
+			else if (c == '(') {
+				if (depth++ == 0)
+					start = i;
+			} else if (c == ')') {
+				if (--depth == 0) {
+					String value = getEqualityValue(f.substring(start, i + 1), attribute);
+					if (value != null)
+						return value;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static String getEqualityValue(String clause, String attribute) {
+		int eq = clause.indexOf('=');
+		if (eq < 2)
+			return null;
+		// Also excludes ~=, <= and >=, and any nested filter
+		if (!clause.substring(1, eq).trim().equalsIgnoreCase(attribute))
+			return null;
+		String value = clause.substring(eq + 1, clause.length() - 1);
+		// Substring and present matches, escapes and whitespace are left to the filter
+		if (value.length() == 0 || value.indexOf('*') >= 0 || value.indexOf('\\') >= 0 || value.indexOf('(') >= 0
+				|| value.indexOf(')') >= 0 || !value.equals(value.trim()))
+			return null;
+		return value;
+	}
+
+	static class MapDictionary extends Dictionary<String, Object> {
+		private final Map<String, Object> map;
+
+		MapDictionary(Map<String, Object> map) {
+			this.map = map;
+		}
+
+		public int size() {
+			return map.size();
+		}
+
+		public boolean isEmpty() {
+			return map.isEmpty();
+		}
+
+		public Enumeration<String> keys() {
+			return Collections.enumeration(map.keySet());
+		}
+
+		public Enumeration<Object> elements() {
+			return Collections.enumeration(map.values());
+		}
+
+		public Object get(Object key) {
+			return map.get(key);
+		}
+
+		public Object put(String key, Object value) {
+			throw new UnsupportedOperationException();
+		}
+
+		public Object remove(Object key) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.osgi.services.remoteserviceadmin;
+
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.RemoteServiceAdmin;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.ExportReference;
+import org.osgi.service.remoteserviceadmin.ExportRegistration;
+
+/**
+ * Export registrations indexed by exported ServiceReference, by endpoint id
+ * and by remote service.
+ */
+public class ExportRegistrations extends IndexedRegistrations<ExportRegistration> {
+
+	/**
+	 * Index by {@link ExportReference#getExportedService()}
+	 */
+	public static final int SERVICE_REFERENCE = 0;
+	/**
+	 * Index by {@link EndpointDescription#getId()}
+	 */
+	public static final int ENDPOINT_ID = 1;
+	/**
+	 * Index by {@link IndexedRegistrations#getRemoteServiceKey(org.eclipse.ecf.core.identity.ID, long)}
+	 */
+	public static final int REMOTE_SERVICE = 2;
+
+	public ExportRegistrations() {
+		super(3);
+	}
+
+	protected Object[] getKeys(ExportRegistration registration) {
+		final Object[] keys = new Object[3];
+		// null for failed exports
+		final ExportReference ref = registration.getExportReference();
+		if (ref == null)
+			return keys;
+		keys[SERVICE_REFERENCE] = ref.getExportedService();
+		final EndpointDescription ed = ref.getExportedEndpoint();
+		if (ed != null)
+			keys[ENDPOINT_ID] = ed.getId();
+		if (registration instanceof RemoteServiceAdmin.ExportRegistration) {
+			final RemoteServiceAdmin.ExportRegistration reg = (RemoteServiceAdmin.ExportRegistration) registration;
+			keys[REMOTE_SERVICE] = getRemoteServiceKey(reg.getContainerID(), reg.getRemoteServiceId());
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,51 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.osgi.services.remoteserviceadmin;
+
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.RemoteServiceAdmin;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.ImportReference;
+import org.osgi.service.remoteserviceadmin.ImportRegistration;
+
+/**
+ * Import registrations indexed by endpoint id and by remote service.
+ */
+public class ImportRegistrations extends IndexedRegistrations<ImportRegistration> {
+
+	/**
+	 * Index by {@link EndpointDescription#getId()}
+	 */
+	public static final int ENDPOINT_ID = 0;
+	/**
+	 * Index by {@link IndexedRegistrations#getRemoteServiceKey(org.eclipse.ecf.core.identity.ID, long)}
+	 */
+	public static final int REMOTE_SERVICE = 1;
+
+	public ImportRegistrations() {
+		super(2);
+	}
+
+	protected Object[] getKeys(ImportRegistration registration) {
+		final Object[] keys = new Object[2];
+		// null for failed imports
+		final ImportReference ref = registration.getImportReference();
+		final EndpointDescription ed = (ref == null) ? null : ref.getImportedEndpoint();
+		if (ed != null)
+			keys[ENDPOINT_ID] = ed.getId();
+		if (ed != null && registration instanceof RemoteServiceAdmin.ImportRegistration) {
+			final RemoteServiceAdmin.ImportRegistration reg = (RemoteServiceAdmin.ImportRegistration) registration;
+			keys[REMOTE_SERVICE] = getRemoteServiceKey(reg.getContainerID(), reg.getRemoteServiceId());
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,176 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.osgi.services.remoteserviceadmin;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.ecf.core.identity.ID;
+
+/**
+ * Collection of import or export registrations, with an index per kind of
+ * key. The keys of a registration are computed once when it is added, so
+ * that it can still be removed from the indexes after it has been closed.
+ * <p>
+ * Additions and removals are synchronized on the collection itself, as
+ * RemoteServiceAdmin already does for its registration collections. Lookups
+ * and iteration do not need the lock.
+ */
+public abstract class IndexedRegistrations<R> extends AbstractCollection<R> {
+
+	private final Map<R, Object[]> registrations = new ConcurrentHashMap<R, Object[]>();
+	private final Map<Object, Set<R>>[] indexes;
+
+	@SuppressWarnings("unchecked")
+	protected IndexedRegistrations(int indexCount) {
+		indexes = new Map[indexCount];
+		for (int i = 0; i < indexCount; i++)
+			indexes[i] = new ConcurrentHashMap<Object, Set<R>>();
+	}
+
+	/**
+	 * @param containerID
+	 *            the remote container id. May be <code>null</code>.
+	 * @param remoteServiceID
+	 *            the container relative remote service id
+	 * @return key for the remote service, or <code>null</code> if containerID
+	 *         is <code>null</code>
+	 */
+	public static Object getRemoteServiceKey(ID containerID, long remoteServiceID) {
+		return (containerID == null) ? null : new RemoteServiceKey(containerID, remoteServiceID);
+	}
+
+	private static final class RemoteServiceKey {
+		private final ID containerID;
+		private final long remoteServiceID;
+
+		RemoteServiceKey(ID containerID, long remoteServiceID) {
+			this.containerID = containerID;
+			this.remoteServiceID = remoteServiceID;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof RemoteServiceKey))
+				return false;
+			final RemoteServiceKey other = (RemoteServiceKey) o;
+			return remoteServiceID == other.remoteServiceID && containerID.equals(other.containerID);
+		}
+
+		public int hashCode() {
+			return containerID.hashCode() * 31 + (int) (remoteServiceID ^ (remoteServiceID >>> 32));
+		}
+	}
+
+	/**
+	 * @param registration
+	 *            the registration being added
+	 * @return one key for each index. A key may be <code>null</code>, in
+	 *         which case the registration is not in that index.
+	 */
+	protected abstract Object[] getKeys(R registration);
+
+	/**
+	 * @param index
+	 *            the index to use
+	 * @param key
+	 *            the key to look up. May be <code>null</code>.
+	 * @return the registrations with the given key. Will not be
+	 *         <code>null</code>.
+	 */
+	public Collection<R> get(int index, Object key) {
+		if (key == null)
+			return Collections.emptySet();
+		final Set<R> result = indexes[index].get(key);
+		return (result == null) ? Collections.<R> emptySet() : Collections.unmodifiableSet(result);
+	}
+
+	public synchronized boolean add(R registration) {
+		if (registration == null || registrations.containsKey(registration))
+			return false;
+		final Object[] keys = getKeys(registration);
+		registrations.put(registration, keys);
+		for (int i = 0; i < indexes.length; i++) {
+			if (keys[i] == null)
+				continue;
+			Set<R> s = indexes[i].get(keys[i]);
+			if (s == null) {
+				s = Collections.newSetFromMap(new ConcurrentHashMap<R, Boolean>());
+				indexes[i].put(keys[i], s);
+			}
+			s.add(registration);
+		}
+		return true;
+	}
+
+	public synchronized boolean remove(Object registration) {
+		final Object[] keys = registrations.remove(registration);
+		if (keys == null)
+			return false;
+		for (int i = 0; i < indexes.length; i++) {
+			if (keys[i] == null)
+				continue;
+			final Set<R> s = indexes[i].get(keys[i]);
+			if (s != null) {
+				s.remove(registration);
+				if (s.isEmpty())
+					indexes[i].remove(keys[i]);
+			}
+		}
+		return true;
+	}
+
+	public boolean contains(Object registration) {
+		return registration != null && registrations.containsKey(registration);
+	}
+
+	public synchronized void clear() {
+		registrations.clear();
+		for (int i = 0; i < indexes.length; i++)
+			indexes[i].clear();
+	}
+
+	public int size() {
+		return registrations.size();
+	}
+
+	public boolean isEmpty() {
+		return registrations.isEmpty();
+	}
+
+	public Iterator<R> iterator() {
+		final Iterator<R> i = registrations.keySet().iterator();
+		return new Iterator<R>() {
+			private R last;
+
+			public boolean hasNext() {
+				return i.hasNext();
+			}
+
+			public R next() {
+				last = i.next();
+				return last;
+			}
+
+			public void remove() {
+				if (last == null)
+					throw new IllegalStateException();
+				IndexedRegistrations.this.remove(last);
+				last = null;
+			}
+		};
+	}
+}
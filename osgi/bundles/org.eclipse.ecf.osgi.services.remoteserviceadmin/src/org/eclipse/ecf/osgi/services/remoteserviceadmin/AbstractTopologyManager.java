@@ -343,8 +343,8 @@ public abstract class AbstractTopologyManager {
 				+ endpointDescription);
 		RemoteServiceAdmin rsa = (RemoteServiceAdmin) getRemoteServiceAdmin();
 		if (rsa != null) {
-			List<RemoteServiceAdmin.ImportRegistration> importedRegistrations = rsa.getImportedRegistrations();
 			org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescription ed = (org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescription) endpointDescription;
+			List<RemoteServiceAdmin.ImportRegistration> importedRegistrations = rsa.getImportedRegistrations(ed);
 			for (RemoteServiceAdmin.ImportRegistration importedRegistration : importedRegistrations) {
 				if (importedRegistration.match(ed)) {
 					trace("handleEndpointRemoved", "closing importedRegistration=" //$NON-NLS-1$ //$NON-NLS-2$
@@ -364,8 +364,8 @@ public abstract class AbstractTopologyManager {
 				+ endpoint);
 		RemoteServiceAdmin rsa = (RemoteServiceAdmin) getRemoteServiceAdmin();
 		if (rsa != null) {
-			List<RemoteServiceAdmin.ImportRegistration> importedRegistrations = rsa.getImportedRegistrations();
 			org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescription ed = (org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescription) endpoint;
+			List<RemoteServiceAdmin.ImportRegistration> importedRegistrations = rsa.getImportedRegistrations(ed);
 			for (RemoteServiceAdmin.ImportRegistration importedRegistration : importedRegistrations) {
 				if (importedRegistration.match(ed)) {
 					trace("handleECFEndpointModified", "updating importedRegistration=" //$NON-NLS-1$ //$NON-NLS-2$
@@ -490,7 +490,8 @@ public abstract class AbstractTopologyManager {
 	protected void handleServiceModifying(ServiceReference serviceReference) {
 		RemoteServiceAdmin rsa = (RemoteServiceAdmin) getRemoteServiceAdmin();
 		if (rsa != null) {
-			List<RemoteServiceAdmin.ExportRegistration> exportedRegistrations = rsa.getExportedRegistrations();
+			List<RemoteServiceAdmin.ExportRegistration> exportedRegistrations = rsa
+					.getExportedRegistrations(serviceReference);
 			for (RemoteServiceAdmin.ExportRegistration exportedRegistration : exportedRegistrations) {
 				if (exportedRegistration.match(serviceReference)) {
 					trace("handleServiceModifying", "modifying exportRegistration for serviceReference=" //$NON-NLS-1$ //$NON-NLS-2$
@@ -507,8 +508,8 @@ public abstract class AbstractTopologyManager {
 	protected void handleServiceUnregistering(ServiceReference serviceReference) {
 		RemoteServiceAdmin rsa = (RemoteServiceAdmin) getRemoteServiceAdmin();
 		if (rsa != null) {
-			List<RemoteServiceAdmin.ExportRegistration> exportedRegistrations = ((RemoteServiceAdmin) getRemoteServiceAdmin())
-					.getExportedRegistrations();
+			List<RemoteServiceAdmin.ExportRegistration> exportedRegistrations = rsa
+					.getExportedRegistrations(serviceReference);
 			for (RemoteServiceAdmin.ExportRegistration exportedRegistration : exportedRegistrations) {
 				if (exportedRegistration.match(serviceReference)) {
 					trace("handleServiceUnregistering", "closing exportRegistration for serviceReference=" //$NON-NLS-1$ //$NON-NLS-2$
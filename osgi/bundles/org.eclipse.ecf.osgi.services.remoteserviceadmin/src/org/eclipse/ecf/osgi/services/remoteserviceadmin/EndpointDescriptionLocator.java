@@ -48,6 +48,8 @@ import org.eclipse.ecf.discovery.IServiceListener;
 import org.eclipse.ecf.discovery.identity.IServiceID;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.Activator;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.DebugOptions;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointDescriptionCache;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointListenerScopes;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.LogUtility;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.PropertiesUtil;
 import org.eclipse.equinox.concurrent.future.IExecutor;
@@ -120,6 +122,9 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 
 	private ServiceTracker endpointListenerTracker;
 	private ServiceTracker endpointEventListenerTracker;
+	// Compiled scopes of tracked listeners
+	private EndpointListenerScopes endpointListenerScopes = new EndpointListenerScopes();
+	private EndpointListenerScopes endpointEventListenerScopes = new EndpointListenerScopes();
 
 	private ServiceTracker advertiserTracker;
 	private Object advertiserTrackerLock = new Object();
@@ -255,6 +260,7 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 						EndpointListener listener = (EndpointListener) context.getService(reference);
 						if (listener == null)
 							return null;
+						addScope(endpointListenerScopes, reference);
 						Collection<org.osgi.service.remoteserviceadmin.EndpointDescription> allDiscoveredEndpointDescriptions = getEDs();
 						for (org.osgi.service.remoteserviceadmin.EndpointDescription ed : allDiscoveredEndpointDescriptions) {
 							EndpointDescriptionLocator.EndpointListenerHolder[] endpointListenerHolders = getMatchingEndpointListenerHolders(
@@ -271,9 +277,11 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 					}
 
 					public void modifiedService(ServiceReference reference, Object service) {
+						addScope(endpointListenerScopes, reference);
 					}
 
 					public void removedService(ServiceReference reference, Object service) {
+						endpointListenerScopes.remove(reference);
 					}
 				});
 
@@ -291,6 +299,7 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 						EndpointEventListener listener = (EndpointEventListener) context.getService(reference);
 						if (listener == null)
 							return null;
+						addScope(endpointEventListenerScopes, reference);
 						Collection<org.osgi.service.remoteserviceadmin.EndpointDescription> allDiscoveredEndpointDescriptions = getEDs();
 						for (org.osgi.service.remoteserviceadmin.EndpointDescription ed : allDiscoveredEndpointDescriptions) {
 							EndpointDescriptionLocator.EndpointEventListenerHolder[] endpointEventListenerHolders = getMatchingEndpointEventListenerHolders(
@@ -308,9 +317,11 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 					}
 
 					public void modifiedService(ServiceReference reference, Object service) {
+						addScope(endpointEventListenerScopes, reference);
 					}
 
 					public void removedService(ServiceReference reference, Object service) {
+						endpointEventListenerScopes.remove(reference);
 					}
 				});
 
@@ -332,6 +343,13 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 		this.endpointLocatorReg = this.context.registerService(IEndpointDescriptionLocator.class, this, null);
 	}
 
+	private void addScope(EndpointListenerScopes scopes, ServiceReference reference) {
+		Map<String, IllegalArgumentException> invalidFilters = scopes.add(reference).getInvalidFilters();
+		for (String filter : invalidFilters.keySet())
+			logError("addScope", "invalid endpoint listener filter=" //$NON-NLS-1$ //$NON-NLS-2$
+					+ filter, invalidFilters.get(filter));
+	}
+
 	private void logError(String methodName, String message, Throwable e) {
 		LogUtility.logError(methodName, DebugOptions.ENDPOINT_DESCRIPTION_LOCATOR, this.getClass(), message, e);
 	}
@@ -383,6 +401,8 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 			endpointEventListenerTracker.close();
 			endpointEventListenerTracker = null;
 		}
+		endpointListenerScopes.clear();
+		endpointEventListenerScopes.clear();
 
 		// Shutdown asynchronous event manager
 		if (eventManager != null) {
@@ -700,7 +720,8 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 		return AccessController.doPrivileged(new PrivilegedAction<EndpointListenerHolder[]>() {
 			public EndpointListenerHolder[] run() {
 				synchronized (endpointListenerServiceTrackerLock) {
-					return getMatchingEndpointListenerHolders(endpointListenerTracker.getServiceReferences(),
+					// Only the listeners whose scope may match
+					return getMatchingEndpointListenerHolders(endpointListenerScopes.getCandidates(description),
 							description);
 				}
 			}
@@ -719,8 +740,9 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 		return AccessController.doPrivileged(new PrivilegedAction<EndpointEventListenerHolder[]>() {
 			public EndpointEventListenerHolder[] run() {
 				synchronized (endpointEventListenerServiceTrackerLock) {
-					return getMatchingEndpointEventListenerHolders(endpointEventListenerTracker.getServiceReferences(),
-							description, type);
+					// Only the listeners whose scope may match
+					return getMatchingEndpointEventListenerHolders(
+							endpointEventListenerScopes.getCandidates(description), description, type);
 				}
 			}
 		});
@@ -798,17 +820,13 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 			return null;
 		List results = new ArrayList();
 		for (int i = 0; i < refs.length; i++) {
+			String matchingFilter = endpointEventListenerScopes.getScope(refs[i]).match(description);
+			if (matchingFilter == null)
+				continue;
 			EndpointEventListener listener = (EndpointEventListener) context.getService(refs[i]);
 			if (listener == null)
 				continue;
-			List<String> filters = PropertiesUtil.getStringPlusProperty(getMapFromProperties(refs[i]),
-					EndpointEventListener.ENDPOINT_LISTENER_SCOPE);
-			// Only proceed if there is a filter present
-			if (filters.size() > 0) {
-				String matchingFilter = isMatch(description, filters);
-				if (matchingFilter != null)
-					results.add(new EndpointEventListenerHolder(listener, description, matchingFilter, type));
-			}
+			results.add(new EndpointEventListenerHolder(listener, description, matchingFilter, type));
 		}
 		return (EndpointEventListenerHolder[]) results.toArray(new EndpointEventListenerHolder[results.size()]);
 	}
@@ -819,46 +837,17 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 			return null;
 		List results = new ArrayList();
 		for (int i = 0; i < refs.length; i++) {
+			String matchingFilter = endpointListenerScopes.getScope(refs[i]).match(description);
+			if (matchingFilter == null)
+				continue;
 			EndpointListener listener = (EndpointListener) context.getService(refs[i]);
 			if (listener == null)
 				continue;
-			List<String> filters = PropertiesUtil.getStringPlusProperty(getMapFromProperties(refs[i]),
-					EndpointListener.ENDPOINT_LISTENER_SCOPE);
-			if (filters.size() > 0) {
-				String matchingFilter = isMatch(description, filters);
-				if (matchingFilter != null)
-					results.add(new EndpointListenerHolder(listener, description, matchingFilter));
-			}
+			results.add(new EndpointListenerHolder(listener, description, matchingFilter));
 		}
 		return (EndpointListenerHolder[]) results.toArray(new EndpointListenerHolder[results.size()]);
 	}
 
-	private String isMatch(EndpointDescription description, List<String> filters) {
-		for (String filter : filters) {
-			if (filter == null || "".equals(filter)) //$NON-NLS-1$
-				continue;
-			try {
-				if (description.matches(filter))
-					return filter;
-			} catch (IllegalArgumentException e) {
-				logError("isMatch", "invalid endpoint listener filter=" //$NON-NLS-1$ //$NON-NLS-2$
-						+ filters, e);
-			}
-		}
-		return null;
-	}
-
-	private Map getMapFromProperties(ServiceReference ref) {
-		Map<String, Object> results = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
-		String[] keys = ref.getPropertyKeys();
-		if (keys != null) {
-			for (int i = 0; i < keys.length; i++) {
-				results.put(keys[i], ref.getProperty(keys[i]));
-			}
-		}
-		return results;
-	}
-
 	class EndpointDescriptionBundleTrackerCustomizer implements BundleTrackerCustomizer {
 
 		private static final String REMOTESERVICE_MANIFESTHEADER = "Remote-Service"; //$NON-NLS-1$
@@ -868,6 +857,9 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 				.synchronizedMap(
 						new HashMap<Long, Collection<org.osgi.service.remoteserviceadmin.EndpointDescription>>());
 
+		// Parsed EDEF files, kept while the bundle is not updated
+		private EndpointDescriptionCache endpointDescriptionCache = new EndpointDescriptionCache();
+
 		private Object endpointDescriptionReaderTrackerLock = new Object();
 		private ServiceTracker endpointDescriptionReaderTracker;
 
@@ -923,15 +915,24 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 			// Now process any found
 			Collection<org.osgi.service.remoteserviceadmin.EndpointDescription> endpointDescriptions = new ArrayList<org.osgi.service.remoteserviceadmin.EndpointDescription>();
 			if (e != null) {
+				long lastModified = bundle.getLastModified();
 				while (e.hasMoreElements()) {
 					URL url = e.nextElement();
 					String file = url.getFile();
-					org.osgi.service.remoteserviceadmin.EndpointDescription[] eps = null;
-					if (file.endsWith(DEFAULT_PROPERTIES_FILE_SUFFIX)) {
-						eps = handlePropertiesFile(bundle, url);
-					} else {
-						eps = handleEndpointDescriptionFile(bundle, url);
-					}
+					// The override properties also depend on the local properties profile
+					String cacheKey = url.toString() + "|" + System.getProperty(LOCAL_PROPERTIES_PROFILE); //$NON-NLS-1$
+					org.osgi.service.remoteserviceadmin.EndpointDescription[] eps = endpointDescriptionCache
+							.get(bundle.getBundleId(), lastModified, cacheKey);
+					if (eps == null) {
+						if (file.endsWith(DEFAULT_PROPERTIES_FILE_SUFFIX)) {
+							eps = handlePropertiesFile(bundle, url);
+						} else {
+							eps = handleEndpointDescriptionFile(bundle, url);
+						}
+						if (eps != null)
+							endpointDescriptionCache.put(bundle.getBundleId(), lastModified, cacheKey, eps);
+					} else
+						trace("handleEndpointDescriptionPath", "using cached endpoint descriptions for fileURL=" + url); //$NON-NLS-1$ //$NON-NLS-2$
 					if (eps != null)
 						for (int i = 0; i < eps.length; i++)
 							endpointDescriptions.add(eps[i]);
@@ -984,7 +985,7 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 					"edef fileURL=" + fileURL + " found in bundleId=" + bundle.getBundleId()); //$NON-NLS-1$ //$NON-NLS-2$
 			Map<String, Object> overrideProperties = findOverrideProperties(bundle, fileURL);
 			try (InputStream ins = fileURL.openStream()) {
-				return getEndpointDescriptionReader().readEndpointDescriptions(fileURL.openStream(),
+				return getEndpointDescriptionReader().readEndpointDescriptions(ins,
 						overrideProperties);
 			} catch (Throwable e) {
 				logError("handleEndpointDescriptionFile", //$NON-NLS-1$
@@ -1005,6 +1006,8 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 
 		public void removedBundle(Bundle bundle, BundleEvent event, Object object) {
 			handleRemovedBundle(bundle);
+			if (bundle.getState() == Bundle.UNINSTALLED)
+				endpointDescriptionCache.remove(bundle.getBundleId());
 		}
 
 		private void handleRemovedBundle(Bundle bundle) {
@@ -1025,6 +1028,7 @@ public class EndpointDescriptionLocator implements IEndpointDescriptionLocator {
 				}
 			}
 			bundleDescriptionMap.clear();
+			endpointDescriptionCache.clear();
 		}
 	}
 
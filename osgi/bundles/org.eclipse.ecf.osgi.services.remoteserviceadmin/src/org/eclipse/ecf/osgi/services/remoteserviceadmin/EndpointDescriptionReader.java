@@ -19,7 +19,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.DebugOptions;
-import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointDescriptionParser;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointDescriptionStreamParser;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.LogUtility;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.PropertiesUtil;
 
@@ -39,16 +39,11 @@ public class EndpointDescriptionReader implements IEndpointDescriptionReader {
 	 */
 	public org.osgi.service.remoteserviceadmin.EndpointDescription[] readEndpointDescriptions(InputStream ins,
 			Map<String, Object> overrideProperties) throws IOException {
-		// First create parser
-		EndpointDescriptionParser parser = new EndpointDescriptionParser();
 		// Parse input stream
-		parser.parse(ins);
-		// Get possible endpoint descriptions
-		List<EndpointDescriptionParser.EndpointDescription> parsedDescriptions = parser.getEndpointDescriptions();
+		List<Map<String, Object>> parsedDescriptions = EndpointDescriptionStreamParser.parse(ins);
 		List<org.osgi.service.remoteserviceadmin.EndpointDescription> results = new ArrayList<org.osgi.service.remoteserviceadmin.EndpointDescription>();
 		// For each one parsed, get properties and
-		for (EndpointDescriptionParser.EndpointDescription ed : parsedDescriptions) {
-			Map<String, Object> parsedProperties = ed.getProperties();
+		for (Map<String, Object> parsedProperties : parsedDescriptions) {
 			LogUtility.trace("readEndpointDescriptions", DebugOptions.ENDPOINT_DESCRIPTION_READER, getClass(), //$NON-NLS-1$
 					"parsed properties=" + parsedProperties); //$NON-NLS-1$
 			Map<String, Object> mergedProperties = null;
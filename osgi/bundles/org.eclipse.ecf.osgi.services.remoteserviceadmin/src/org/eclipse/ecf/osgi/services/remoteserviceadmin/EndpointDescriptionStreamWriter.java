@@ -0,0 +1,237 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.osgi.services.remoteserviceadmin;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Streaming (StAX) writer for the Endpoint Description Extender Format
+ * (section 122.8 of the OSGi enterprise specification). Produces the same
+ * document layout as {@link EndpointDescriptionWriter}, but writes each
+ * property value directly to the stream rather than through a property
+ * object, and escapes names and values.
+ *
+ * @since 4.10
+ */
+public class EndpointDescriptionStreamWriter {
+
+	public static final String EDEF_NAMESPACE = "http://www.osgi.org/xmlns/rsa/v1.0.0"; //$NON-NLS-1$
+
+	private static XMLOutputFactory outputFactory;
+
+	private static synchronized XMLOutputFactory getOutputFactory() {
+		if (outputFactory == null)
+			outputFactory = XMLOutputFactory.newInstance();
+		return outputFactory;
+	}
+
+	protected String indent = "  "; //$NON-NLS-1$
+
+	protected List<String> xmlNames;
+
+	public EndpointDescriptionStreamWriter() {
+		this(null);
+	}
+
+	/**
+	 * @param xmlNames names of properties with a String value that is to be
+	 *                 written as xml. May be <code>null</code>.
+	 */
+	public EndpointDescriptionStreamWriter(List<String> xmlNames) {
+		this.xmlNames = xmlNames;
+	}
+
+	/**
+	 * Write a UTF-8 encoded EDEF document, with xml declaration, to the given
+	 * output stream. The stream is flushed but not closed.
+	 *
+	 * @param out                  the output stream. Must not be
+	 *                             <code>null</code>.
+	 * @param endpointDescriptions the endpoint descriptions to write. Must not
+	 *                             be <code>null</code>.
+	 * @throws IOException if the document cannot be written
+	 */
+	public void writeEndpointDescriptions(OutputStream out,
+			org.osgi.service.remoteserviceadmin.EndpointDescription[] endpointDescriptions) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8")); //$NON-NLS-1$
+		writer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"); //$NON-NLS-1$
+		writeEndpointDescriptions(writer, endpointDescriptions);
+		writer.flush();
+	}
+
+	/**
+	 * Write an endpoint-descriptions element to the given writer. The writer
+	 * is flushed but not closed.
+	 *
+	 * @param writer               the writer. Must not be <code>null</code>.
+	 * @param endpointDescriptions the endpoint descriptions to write. Must not
+	 *                             be <code>null</code>.
+	 * @throws IOException if the document cannot be written
+	 */
+	public void writeEndpointDescriptions(Writer writer,
+			org.osgi.service.remoteserviceadmin.EndpointDescription[] endpointDescriptions) throws IOException {
+		try {
+			XMLStreamWriter xml = getOutputFactory().createXMLStreamWriter(writer);
+			xml.writeStartElement("endpoint-descriptions"); //$NON-NLS-1$
+			xml.writeDefaultNamespace(EDEF_NAMESPACE);
+			for (int i = 0; i < endpointDescriptions.length; i++) {
+				if (endpointDescriptions[i] == null)
+					continue;
+				newLine(xml, 1);
+				xml.writeStartElement("endpoint-description"); //$NON-NLS-1$
+				for (Map.Entry<String, Object> entry : endpointDescriptions[i].getProperties().entrySet())
+					writeProperty(xml, writer, entry.getKey(), entry.getValue());
+				newLine(xml, 1);
+				xml.writeEndElement();
+			}
+			newLine(xml, 0);
+			xml.writeEndElement();
+			xml.writeCharacters("\n"); //$NON-NLS-1$
+			xml.flush();
+			writer.flush();
+		} catch (XMLStreamException e) {
+			IOException ioe = new IOException(e.getMessage());
+			ioe.initCause(e);
+			throw ioe;
+		}
+	}
+
+	protected void writeProperty(XMLStreamWriter xml, Writer writer, String name, Object value)
+			throws XMLStreamException, IOException {
+		if (value == null)
+			return;
+		if (xmlNames != null && xmlNames.contains(name) && value instanceof String) {
+			newLine(xml, 2);
+			xml.writeStartElement("property"); //$NON-NLS-1$
+			xml.writeAttribute("name", name); //$NON-NLS-1$
+			newLine(xml, 3);
+			xml.writeStartElement("xml"); //$NON-NLS-1$
+			newLine(xml, 4);
+			// The value is already xml, so it is written as is
+			xml.flush();
+			writer.append((String) value);
+			newLine(xml, 3);
+			xml.writeEndElement();
+			newLine(xml, 2);
+			xml.writeEndElement();
+			return;
+		}
+		String valueType = getValueType(value);
+		if (valueType != null) {
+			newLine(xml, 2);
+			xml.writeEmptyElement("property"); //$NON-NLS-1$
+			xml.writeAttribute("name", name); //$NON-NLS-1$
+			xml.writeAttribute("value-type", valueType); //$NON-NLS-1$
+			xml.writeAttribute("value", value.toString()); //$NON-NLS-1$
+			return;
+		}
+		String element = null;
+		Iterator<?> values = null;
+		Object first = null;
+		if (value instanceof Set || value instanceof List) {
+			Collection<?> c = (Collection<?>) value;
+			element = (value instanceof Set) ? "set" : "list"; //$NON-NLS-1$ //$NON-NLS-2$
+			first = c.isEmpty() ? null : c.iterator().next();
+			values = c.iterator();
+		} else if (value.getClass().isArray()) {
+			final Object a = value;
+			element = "array"; //$NON-NLS-1$
+			first = (Array.getLength(a) == 0) ? null : Array.get(a, 0);
+			values = new Iterator<Object>() {
+				int index = 0;
+
+				public boolean hasNext() {
+					return index < Array.getLength(a);
+				}
+
+				public Object next() {
+					return Array.get(a, index++);
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+		String elementType = (first == null) ? null : getValueType(first);
+		if (elementType == null) {
+			writeUnknownProperty(xml, name, value);
+			return;
+		}
+		newLine(xml, 2);
+		xml.writeStartElement("property"); //$NON-NLS-1$
+		xml.writeAttribute("name", name); //$NON-NLS-1$
+		xml.writeAttribute("value-type", elementType); //$NON-NLS-1$
+		newLine(xml, 3);
+		xml.writeStartElement(element);
+		while (values.hasNext()) {
+			Object v = values.next();
+			if (v == null)
+				continue;
+			newLine(xml, 4);
+			xml.writeStartElement("value"); //$NON-NLS-1$
+			xml.writeCharacters(v.toString());
+			xml.writeEndElement();
+		}
+		newLine(xml, 3);
+		xml.writeEndElement();
+		newLine(xml, 2);
+		xml.writeEndElement();
+	}
+
+	protected void writeUnknownProperty(XMLStreamWriter xml, String name, Object value) throws XMLStreamException {
+		// By default, do nothing
+	}
+
+	protected String getValueType(Object value) {
+		if (value instanceof String)
+			return "String"; //$NON-NLS-1$
+		else if (value instanceof Long)
+			return "Long"; //$NON-NLS-1$
+		else if (value instanceof Double)
+			return "Double"; //$NON-NLS-1$
+		else if (value instanceof Float)
+			return "Float"; //$NON-NLS-1$
+		else if (value instanceof Integer)
+			return "Integer"; //$NON-NLS-1$
+		else if (value instanceof Byte)
+			return "Byte"; //$NON-NLS-1$
+		else if (value instanceof Character)
+			return "Character"; //$NON-NLS-1$
+		else if (value instanceof Boolean)
+			return "Boolean"; //$NON-NLS-1$
+		else if (value instanceof Short)
+			return "Short"; //$NON-NLS-1$
+		return null;
+	}
+
+	protected void newLine(XMLStreamWriter xml, int indentLevel) throws XMLStreamException {
+		xml.writeCharacters("\n"); //$NON-NLS-1$
+		for (int i = 0; i < indentLevel; i++)
+			xml.writeCharacters(indent);
+	}
+}
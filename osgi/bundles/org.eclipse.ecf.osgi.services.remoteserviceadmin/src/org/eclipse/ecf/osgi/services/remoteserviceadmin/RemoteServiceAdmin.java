@@ -25,12 +25,23 @@ import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -44,6 +55,9 @@ import org.eclipse.ecf.core.identity.StringID;
 import org.eclipse.ecf.core.util.ECFException;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.Activator;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.DebugOptions;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.ExportRegistrations;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.ImportRegistrations;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.IndexedRegistrations;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.LogUtility;
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.PropertiesUtil;
 import org.eclipse.ecf.remoteservice.IExtendedRemoteServiceRegistration;
@@ -130,8 +144,20 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 	private Collection<org.osgi.service.remoteserviceadmin.ExportRegistration> exportedRegistrations;
 	private Collection<org.osgi.service.remoteserviceadmin.ImportRegistration> importedRegistrations;
 
-	private Collection<ExportRegistration> localExportedRegistrations = new ArrayList<ExportRegistration>();
-	private Collection<ImportRegistration> localImportedRegistrations = new ArrayList<ImportRegistration>();
+	private Collection<ExportRegistration> localExportedRegistrations = new LinkedHashSet<ExportRegistration>();
+	private Collection<ImportRegistration> localImportedRegistrations = new LinkedHashSet<ImportRegistration>();
+
+	// Imports in progress, by endpoint id. Guarded by importedRegistrations
+	private Map<String, CompletableFuture<ImportRegistration>> importsInProgress = new HashMap<String, CompletableFuture<ImportRegistration>>();
+	// Set by close(), after which no imports are added. Guarded by
+	// importedRegistrations
+	private boolean importsClosed = false;
+
+	private static final int importThreads = Integer
+			.getInteger("org.eclipse.ecf.osgi.services.remoteserviceadmin.importThreads", 16).intValue(); //$NON-NLS-1$
+
+	private Object importExecutorLock = new Object();
+	private ExecutorService importExecutor;
 
 	private ServiceRegistration eventListenerHookRegistration;
 
@@ -155,9 +181,62 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 		}
 	}
 
+	/**
+	 * @param serviceReference
+	 *            the exported service reference. Must not be <code>null</code>.
+	 * @return List of export registrations for the given service reference
+	 * @since 4.10
+	 */
+	public List<ExportRegistration> getExportedRegistrations(ServiceReference serviceReference) {
+		List<ExportRegistration> results = new ArrayList<ExportRegistration>();
+		for (org.osgi.service.remoteserviceadmin.ExportRegistration reg : getExportCandidates(
+				ExportRegistrations.SERVICE_REFERENCE, serviceReference))
+			if (reg instanceof ExportRegistration && ((ExportRegistration) reg).match(serviceReference))
+				results.add((ExportRegistration) reg);
+		return results;
+	}
+
+	/**
+	 * @param endpointDescription
+	 *            the imported endpoint description. Must not be
+	 *            <code>null</code>.
+	 * @return List of import registrations for the same service as the given
+	 *         endpoint description
+	 * @since 4.10
+	 */
+	public List<ImportRegistration> getImportedRegistrations(EndpointDescription endpointDescription) {
+		List<ImportRegistration> results = new ArrayList<ImportRegistration>();
+		for (org.osgi.service.remoteserviceadmin.ImportRegistration reg : getImportCandidates(
+				ImportRegistrations.ENDPOINT_ID, endpointDescription.getId()))
+			if (reg instanceof ImportRegistration && ((ImportRegistration) reg).match(endpointDescription))
+				results.add((ImportRegistration) reg);
+		return results;
+	}
+
+	/**
+	 * Registrations that may have the given key. If the registrations
+	 * collection given to the constructor is not indexed, this is all of them.
+	 */
+	private Collection<org.osgi.service.remoteserviceadmin.ImportRegistration> getImportCandidates(int index,
+			Object key) {
+		if (importedRegistrations instanceof ImportRegistrations)
+			return ((ImportRegistrations) importedRegistrations).get(index, key);
+		synchronized (importedRegistrations) {
+			return new ArrayList<org.osgi.service.remoteserviceadmin.ImportRegistration>(importedRegistrations);
+		}
+	}
+
+	private Collection<org.osgi.service.remoteserviceadmin.ExportRegistration> getExportCandidates(int index,
+			Object key) {
+		if (exportedRegistrations instanceof ExportRegistrations)
+			return ((ExportRegistrations) exportedRegistrations).get(index, key);
+		synchronized (exportedRegistrations) {
+			return new ArrayList<org.osgi.service.remoteserviceadmin.ExportRegistration>(exportedRegistrations);
+		}
+	}
+
 	public RemoteServiceAdmin(Bundle clientBundle) {
-		this(clientBundle, new ArrayList<org.osgi.service.remoteserviceadmin.ExportRegistration>(),
-				new ArrayList<org.osgi.service.remoteserviceadmin.ImportRegistration>());
+		this(clientBundle, new ExportRegistrations(), new ImportRegistrations());
 	}
 
 	/**
@@ -215,7 +294,7 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 	}
 
 	private void handleServiceUnregistering(ServiceReference serviceReference) {
-		List<ExportRegistration> ers = getExportedRegistrations();
+		List<ExportRegistration> ers = getExportedRegistrations(serviceReference);
 		for (ExportRegistration exportedRegistration : ers) {
 			if (exportedRegistration.match(serviceReference)) {
 				trace("handleServiceUnregistering", "closing exportRegistration for serviceReference=" //$NON-NLS-1$ //$NON-NLS-2$
@@ -399,9 +478,91 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 		// First, make sure that the client bundle has the IMPORT endpoint
 		// permission
 		checkEndpointPermission(endpointDescription, EndpointPermission.IMPORT);
+		return doImportService((endpointDescription instanceof EndpointDescription)
+				? (EndpointDescription) endpointDescription
+				: new EndpointDescription(endpointDescription.getProperties()));
+	}
+
+	/**
+	 * Import the given endpoint without blocking the caller. The import is done
+	 * as for {@link #importService(org.osgi.service.remoteserviceadmin.EndpointDescription)},
+	 * but on a thread from a pool owned by this RemoteServiceAdmin, so that
+	 * imports of endpoints from different hosts proceed in parallel. The size
+	 * of the pool is given by the
+	 * org.eclipse.ecf.osgi.services.remoteserviceadmin.importThreads system
+	 * property (default 16).
+	 * 
+	 * @param endpointDescription
+	 *            the endpoint description to import. Must not be
+	 *            <code>null</code>.
+	 * @return CompletionStage completed with the import registration, which may
+	 *         be <code>null</code> as for importService. If this
+	 *         RemoteServiceAdmin has been closed the stage is completed
+	 *         exceptionally with an {@link IllegalStateException}.
+	 * @throws SecurityException
+	 *             if the caller does not have IMPORT permission for the endpoint
+	 * @since 4.10
+	 */
+	public CompletionStage<org.osgi.service.remoteserviceadmin.ImportRegistration> importServiceAsync(
+			org.osgi.service.remoteserviceadmin.EndpointDescription endpointDescription) {
+		trace("importServiceAsync", "endpointDescription=" + endpointDescription); //$NON-NLS-1$ //$NON-NLS-2$
+		// Permission is checked on the calling thread
+		checkEndpointPermission(endpointDescription, EndpointPermission.IMPORT);
 		final EndpointDescription ed = (endpointDescription instanceof EndpointDescription)
 				? (EndpointDescription) endpointDescription
 				: new EndpointDescription(endpointDescription.getProperties());
+		final ExecutorService executor = getImportExecutor();
+		if (executor != null) {
+			try {
+				return CompletableFuture
+						.supplyAsync(new Supplier<org.osgi.service.remoteserviceadmin.ImportRegistration>() {
+							public org.osgi.service.remoteserviceadmin.ImportRegistration get() {
+								return doImportService(ed);
+							}
+						}, executor);
+			} catch (RejectedExecutionException e) {
+				// closed after getImportExecutor returned
+			}
+		}
+		CompletableFuture<org.osgi.service.remoteserviceadmin.ImportRegistration> result = new CompletableFuture<org.osgi.service.remoteserviceadmin.ImportRegistration>();
+		result.completeExceptionally(new IllegalStateException("RemoteServiceAdmin is closed")); //$NON-NLS-1$
+		return result;
+	}
+
+	private boolean isImportsClosed() {
+		synchronized (importedRegistrations) {
+			return importsClosed;
+		}
+	}
+
+	/**
+	 * @return the pool for asynchronous imports, or <code>null</code> if this
+	 *         RemoteServiceAdmin has been closed
+	 */
+	private ExecutorService getImportExecutor() {
+		synchronized (importExecutorLock) {
+			if (importExecutor == null && !isImportsClosed()) {
+				final AtomicInteger count = new AtomicInteger();
+				ThreadPoolExecutor tpe = new ThreadPoolExecutor(importThreads, importThreads, 60, TimeUnit.SECONDS,
+						new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+							public Thread newThread(Runnable r) {
+								Thread t = new Thread(r, "RSA Import-" + count.incrementAndGet()); //$NON-NLS-1$
+								t.setDaemon(true);
+								return t;
+							}
+						});
+				tpe.allowCoreThreadTimeOut(true);
+				importExecutor = tpe;
+			}
+			return importExecutor;
+		}
+	}
+
+	private org.osgi.service.remoteserviceadmin.ImportRegistration doImportService(final EndpointDescription ed) {
+		if (isImportsClosed()) {
+			logWarning("importService", "RemoteServiceAdmin is closed. Endpoint=" + ed + " NOT IMPORTED"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			return null;
+		}
 		// Now get IConsumerContainerSelector, to select the ECF container
 		// for the given endpointDescription
 		final IConsumerContainerSelector consumerContainerSelector = getConsumerContainerSelector();
@@ -431,7 +592,7 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 		// If none found, log an error and return null
 		if (rsContainer == null && importRegistration == null) {
 			String errorMessage = "No remote service container selected for endpoint=" //$NON-NLS-1$
-					+ endpointDescription + ". Remote service NOT IMPORTED"; //$NON-NLS-1$
+					+ ed + ". Remote service NOT IMPORTED"; //$NON-NLS-1$
 			logError("importService", errorMessage, new SelectContainerException(errorMessage, null, null)); //$NON-NLS-1$
 			// As specified in section 122.5.2, return null
 			return null;
@@ -439,14 +600,14 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 
 		// If one selected then import the service to create an import
 		// registration
-		synchronized (importedRegistrations) {
-			if (importRegistration == null) {
-				ImportEndpoint importEndpoint = findImportEndpoint(ed);
-				importRegistration = ((importEndpoint != null) ? new ImportRegistration(importEndpoint)
-						: importService(ed, rsContainer));
-			}
-			addImportRegistration(importRegistration);
-		}
+		if (importRegistration == null)
+			importRegistration = importOrJoin(ed, rsContainer);
+		else if (!addImportRegistration(importRegistration))
+			importRegistration = null;
+		// If this RemoteServiceAdmin was closed during the import, there is
+		// nothing to publish
+		if (importRegistration == null)
+			return null;
 		// publish import event
 		publishImportEvent(importRegistration);
 		trace("importService", "importRegistration=" + importRegistration); //$NON-NLS-1$ //$NON-NLS-2$
@@ -456,20 +617,23 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 
 	public Collection<org.osgi.service.remoteserviceadmin.ExportReference> getExportedServices() {
 		Collection<org.osgi.service.remoteserviceadmin.ExportReference> results = new ArrayList<org.osgi.service.remoteserviceadmin.ExportReference>();
+		// Permissions are checked without holding the registrations lock
+		List<org.osgi.service.remoteserviceadmin.ExportRegistration> regs = null;
 		synchronized (exportedRegistrations) {
-			// XXX The spec doesn't specify what is supposed to happen
-			// when the registrations is empty...but the TCK test method:
-			// RemoteServiceAdminSecure.testNoPermissions()
-			// assumes that a SecurityException is thrown when accessed without READ
-			// permission
-			if (exportedRegistrations.isEmpty())
-				checkRSAReadAccess();
-			for (org.osgi.service.remoteserviceadmin.ExportRegistration reg : exportedRegistrations) {
-				org.osgi.service.remoteserviceadmin.ExportReference eRef = reg.getExportReference();
-				if (eRef != null && checkEndpointPermissionRead("getExportedServices", //$NON-NLS-1$
-						eRef.getExportedEndpoint()))
-					results.add(eRef);
-			}
+			regs = new ArrayList<org.osgi.service.remoteserviceadmin.ExportRegistration>(exportedRegistrations);
+		}
+		// XXX The spec doesn't specify what is supposed to happen
+		// when the registrations is empty...but the TCK test method:
+		// RemoteServiceAdminSecure.testNoPermissions()
+		// assumes that a SecurityException is thrown when accessed without READ
+		// permission
+		if (regs.isEmpty())
+			checkRSAReadAccess();
+		for (org.osgi.service.remoteserviceadmin.ExportRegistration reg : regs) {
+			org.osgi.service.remoteserviceadmin.ExportReference eRef = reg.getExportReference();
+			if (eRef != null && checkEndpointPermissionRead("getExportedServices", //$NON-NLS-1$
+					eRef.getExportedEndpoint()))
+				results.add(eRef);
 		}
 		return results;
 	}
@@ -486,20 +650,23 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 
 	public Collection<org.osgi.service.remoteserviceadmin.ImportReference> getImportedEndpoints() {
 		Collection<org.osgi.service.remoteserviceadmin.ImportReference> results = new ArrayList<org.osgi.service.remoteserviceadmin.ImportReference>();
+		// Permissions are checked without holding the registrations lock
+		List<org.osgi.service.remoteserviceadmin.ImportRegistration> regs = null;
 		synchronized (importedRegistrations) {
-			// XXX The spec doesn't specify what is supposed to happen
-			// when the registrations is empty...but the TCK test method:
-			// RemoteServiceAdminSecure.testNoPermissions()
-			// assumes that a SecurityException is thrown when accessed without READ
-			// permission
-			if (importedRegistrations.isEmpty())
-				checkRSAReadAccess();
-			for (org.osgi.service.remoteserviceadmin.ImportRegistration reg : importedRegistrations) {
-				org.osgi.service.remoteserviceadmin.ImportReference iRef = reg.getImportReference();
-				if (iRef != null && checkEndpointPermissionRead("getImportedEndpoints", //$NON-NLS-1$
-						iRef.getImportedEndpoint()))
-					results.add(iRef);
-			}
+			regs = new ArrayList<org.osgi.service.remoteserviceadmin.ImportRegistration>(importedRegistrations);
+		}
+		// XXX The spec doesn't specify what is supposed to happen
+		// when the registrations is empty...but the TCK test method:
+		// RemoteServiceAdminSecure.testNoPermissions()
+		// assumes that a SecurityException is thrown when accessed without READ
+		// permission
+		if (regs.isEmpty())
+			checkRSAReadAccess();
+		for (org.osgi.service.remoteserviceadmin.ImportRegistration reg : regs) {
+			org.osgi.service.remoteserviceadmin.ImportReference iRef = reg.getImportReference();
+			if (iRef != null && checkEndpointPermissionRead("getImportedEndpoints", //$NON-NLS-1$
+					iRef.getImportedEndpoint()))
+				results.add(iRef);
 		}
 		return results;
 	}
@@ -533,10 +700,13 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 		return bc.getBundle();
 	}
 
-	private void addImportRegistration(ImportRegistration importRegistration) {
+	private boolean addImportRegistration(ImportRegistration importRegistration) {
 		synchronized (importedRegistrations) {
+			if (importsClosed)
+				return false;
 			importedRegistrations.add(importRegistration);
 			localImportedRegistrations.add(importRegistration);
+			return true;
 		}
 	}
 
@@ -1447,7 +1617,8 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 	}
 
 	private ExportEndpoint findExistingExportEndpoint(ServiceReference serviceReference, ID containerID) {
-		for (org.osgi.service.remoteserviceadmin.ExportRegistration eReg : exportedRegistrations) {
+		for (org.osgi.service.remoteserviceadmin.ExportRegistration eReg : getExportCandidates(
+				ExportRegistrations.SERVICE_REFERENCE, serviceReference)) {
 			if (eReg instanceof ExportRegistration) {
 
 				ExportEndpoint exportEndpoint = ((ExportRegistration) eReg).getExportEndpoint(serviceReference,
@@ -2218,6 +2389,69 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 						remoteRegistration, containerAdapter, endpointDescriptionProperties));
 	}
 
+	/**
+	 * Import the given endpoint, unless it has already been imported or is
+	 * being imported by another thread. The remote service lookup is done
+	 * without holding the importedRegistrations lock, so imports of different
+	 * endpoints run concurrently, while concurrent imports of the same endpoint
+	 * id share one lookup. Returns <code>null</code> if this
+	 * RemoteServiceAdmin is closed before the import completes; an import
+	 * completed after close is closed again rather than registered.
+	 */
+	private ImportRegistration importOrJoin(EndpointDescription ed, IRemoteServiceContainer rsContainer) {
+		final String endpointId = ed.getId();
+		while (true) {
+			CompletableFuture<ImportRegistration> inProgress;
+			boolean importer = false;
+			synchronized (importedRegistrations) {
+				if (importsClosed)
+					return null;
+				ImportEndpoint importEndpoint = findImportEndpoint(ed);
+				if (importEndpoint != null) {
+					ImportRegistration reg = new ImportRegistration(importEndpoint);
+					addImportRegistration(reg);
+					return reg;
+				}
+				inProgress = importsInProgress.get(endpointId);
+				if (inProgress == null) {
+					inProgress = new CompletableFuture<ImportRegistration>();
+					importsInProgress.put(endpointId, inProgress);
+					importer = true;
+				}
+			}
+			if (importer) {
+				ImportRegistration reg = null;
+				boolean added = false;
+				try {
+					reg = importService(ed, rsContainer);
+				} finally {
+					synchronized (importedRegistrations) {
+						if (reg != null)
+							added = addImportRegistration(reg);
+						importsInProgress.remove(endpointId);
+					}
+					inProgress.complete(added ? reg : null);
+				}
+				if (!added) {
+					// Closed during the import, so drop the proxy
+					if (reg != null)
+						reg.close();
+					return null;
+				}
+				return reg;
+			}
+			// Wait for the other import of this endpoint
+			ImportRegistration other = inProgress.join();
+			Throwable t = (other == null) ? null : other.getException();
+			if (t != null) {
+				ImportRegistration reg = new ImportRegistration(ed, t);
+				return addImportRegistration(reg) ? reg : null;
+			}
+			// Otherwise share its ImportEndpoint, or import again if it has
+			// been closed already
+		}
+	}
+
 	private ImportRegistration importService(final EndpointDescription endpointDescription,
 			IRemoteServiceContainer rsContainer) {
 		// Get interfaces from endpoint description
@@ -2308,6 +2542,8 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 		// close any imported and exported registrations
 		List<org.osgi.service.remoteserviceadmin.ImportRegistration> toClose = null;
 		synchronized (importedRegistrations) {
+			// No imports are added after this
+			importsClosed = true;
 			toClose = new ArrayList<org.osgi.service.remoteserviceadmin.ImportRegistration>(localImportedRegistrations);
 		}
 		for (org.osgi.service.remoteserviceadmin.ImportRegistration reg : toClose)
@@ -2324,6 +2560,13 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 		this.localExportedRegistrations.clear();
 		this.localImportedRegistrations.clear();
 
+		synchronized (importExecutorLock) {
+			if (importExecutor != null) {
+				importExecutor.shutdown();
+				importExecutor = null;
+			}
+		}
+
 		synchronized (remoteServiceAdminListenerTrackerLock) {
 			if (remoteServiceAdminListenerTracker != null) {
 				remoteServiceAdminListenerTracker.close();
@@ -2382,7 +2625,8 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 	}
 
 	private ImportEndpoint findImportEndpoint(EndpointDescription ed) {
-		for (org.osgi.service.remoteserviceadmin.ImportRegistration reg : importedRegistrations) {
+		for (org.osgi.service.remoteserviceadmin.ImportRegistration reg : getImportCandidates(
+				ImportRegistrations.ENDPOINT_ID, ed.getId())) {
 			if (reg instanceof ImportRegistration) {
 				ImportEndpoint endpoint = ((ImportRegistration) reg).getImportEndpoint(ed);
 				if (endpoint != null)
@@ -2394,15 +2638,13 @@ public class RemoteServiceAdmin implements org.osgi.service.remoteserviceadmin.R
 
 	private void unimportService(IRemoteServiceID remoteServiceID) {
 		List<ImportRegistration> removedRegistrations = new ArrayList<ImportRegistration>();
-		synchronized (importedRegistrations) {
-			for (Iterator<org.osgi.service.remoteserviceadmin.ImportRegistration> i = importedRegistrations
-					.iterator(); i.hasNext();) {
-				org.osgi.service.remoteserviceadmin.ImportRegistration iReg = i.next();
-				if (iReg instanceof ImportRegistration) {
-					ImportRegistration importRegistration = (ImportRegistration) iReg;
-					if (importRegistration.match(remoteServiceID))
-						removedRegistrations.add(importRegistration);
-				}
+		for (org.osgi.service.remoteserviceadmin.ImportRegistration iReg : getImportCandidates(
+				ImportRegistrations.REMOTE_SERVICE, IndexedRegistrations
+						.getRemoteServiceKey(remoteServiceID.getContainerID(), remoteServiceID.getContainerRelativeID()))) {
+			if (iReg instanceof ImportRegistration) {
+				ImportRegistration importRegistration = (ImportRegistration) iReg;
+				if (importRegistration.match(remoteServiceID))
+					removedRegistrations.add(importRegistration);
 			}
 		}
 		// Now close all of them
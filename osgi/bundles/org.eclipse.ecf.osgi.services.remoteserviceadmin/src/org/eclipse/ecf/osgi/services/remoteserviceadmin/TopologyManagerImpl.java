@@ -18,11 +18,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.Activator;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointEventCoalescer;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleEvent;
@@ -43,6 +52,29 @@ public class TopologyManagerImpl extends AbstractTopologyManager implements Endp
 	public static final int STARTUP_WAIT_TIME = Integer
 			.getInteger("org.eclipse.ecf.osgi.services.remoteserviceadmin.startupWaitTime", 20000); //$NON-NLS-1$
 
+	/**
+	 * Time in ms that ECF endpoint events are collected for, before the net
+	 * effect of the events for each endpoint is imported or unimported as a
+	 * batch. 0 or less (the default) to handle each event as it is received.
+	 * Coalescing is off by default because it delays every import and unimport
+	 * by up to the window, and changes the order in which the events for
+	 * different endpoints are handled, which existing deployments may rely
+	 * on. Set TopologyManagerImpl.coalesceWindow to a small value such as 100
+	 * where discovery delivers bursts of endpoint events.
+	 * 
+	 * @since 4.10
+	 */
+	public static final long COALESCE_WINDOW = Long
+			.getLong(TopologyManagerImpl.class.getName() + ".coalesceWindow", 0).longValue(); //$NON-NLS-1$
+
+	/**
+	 * Number of threads that import the endpoints of a coalesced batch.
+	 * 
+	 * @since 4.10
+	 */
+	public static final int IMPORT_THREADS = Integer
+			.getInteger(TopologyManagerImpl.class.getName() + ".importThreads", 16).intValue(); //$NON-NLS-1$
+
 	/**
 	 * @since 4.9
 	 */
@@ -64,6 +96,21 @@ public class TopologyManagerImpl extends AbstractTopologyManager implements Endp
 	
 	private boolean allowLocalHost;
 	private List<String> otherFilters;
+
+	private final EndpointEventCoalescer ecfEndpointEvents = new EndpointEventCoalescer(
+			"RSA TopologyManager Endpoint Events", COALESCE_WINDOW, //$NON-NLS-1$
+			new EndpointEventCoalescer.IEndpointEventBatchHandler() {
+				public void handleEndpointEvents(List<EndpointEvent> events) {
+					handleECFEndpointEvents(events);
+				}
+			});
+
+	// Pending work for each endpoint id, guarded by itself.  Events for an
+	// endpoint whose import is still in progress are run after it.
+	private final Map<String, CompletableFuture<Void>> endpointTasks = new HashMap<String, CompletableFuture<Void>>();
+	// Guarded by endpointTasks
+	private ExecutorService importExecutor;
+	private boolean closed;
 	
 	boolean isNonECFTopologyManager() {
 		return nonECFTopologyManager;
@@ -109,6 +156,18 @@ public class TopologyManagerImpl extends AbstractTopologyManager implements Endp
 		this.otherFilters = otherFilters == null?new ArrayList<String>():Arrays.asList(otherFilters);
 	}
 
+	public void close() {
+		ecfEndpointEvents.close();
+		synchronized (endpointTasks) {
+			closed = true;
+			if (importExecutor != null) {
+				importExecutor.shutdown();
+				importExecutor = null;
+			}
+		}
+		super.close();
+	}
+
 	protected String getFrameworkUUID() {
 		synchronized ("org.osgi.framework.uuid") { //$NON-NLS-1$
 			String result = getContext().getProperty("org.osgi.framework.uuid"); //$NON-NLS-1$
@@ -224,10 +283,10 @@ public class TopologyManagerImpl extends AbstractTopologyManager implements Endp
 		} else if (matchedFilter.equals(nonECFNonLocalEndpointListenerScope)) {
 			EndpointDescription ed = convertEndpointDescriptionFromOSGiToECF(endpoint);
 			if (ed != null) {
-				handleECFEndpointAdded(ed);
+				ecfEndpointEvents.add(new EndpointEvent(EndpointEvent.ADDED, ed));
 			}
 		} else if (matchedFilter.equals(ecfNonLocalEndpointListenerScope) || matchedFilter.equals(ecfLocalEndpointListenerScope)) {
-			handleECFEndpointAdded((EndpointDescription) endpoint);
+			ecfEndpointEvents.add(new EndpointEvent(EndpointEvent.ADDED, endpoint));
 		} else if (this.otherFilters.contains(matchedFilter)) {
 			handleOtherFilterEndpointAdded(endpoint, matchedFilter);
 		}
@@ -247,9 +306,9 @@ public class TopologyManagerImpl extends AbstractTopologyManager implements Endp
 		} else if (matchedFilter.equals(nonECFNonLocalEndpointListenerScope)) {
 			EndpointDescription ed = convertEndpointDescriptionFromOSGiToECF(endpoint);
 			if (ed != null)
-				handleECFEndpointRemoved(ed);
+				ecfEndpointEvents.add(new EndpointEvent(EndpointEvent.REMOVED, ed));
 		} else if (matchedFilter.equals(ecfNonLocalEndpointListenerScope) || matchedFilter.equals(ecfLocalEndpointListenerScope)) {
-			handleECFEndpointRemoved((EndpointDescription) endpoint);
+			ecfEndpointEvents.add(new EndpointEvent(EndpointEvent.REMOVED, endpoint));
 		} else if (this.otherFilters.contains(matchedFilter)) {
 			handleOtherFilterEndpointRemoved(endpoint,matchedFilter);
 		}
@@ -282,6 +341,134 @@ public class TopologyManagerImpl extends AbstractTopologyManager implements Endp
 			String matchedFilter) {
 	}
 
+	/**
+	 * Handle a batch of coalesced ECF endpoint events. Removed and modified
+	 * endpoints are handled first, in order, and then all of the added
+	 * endpoints are imported together. An event for an endpoint whose import
+	 * from an earlier batch is still in progress is handled after that import.
+	 * 
+	 * @param events the coalesced endpoint events. Will not be
+	 *               <code>null</code>.
+	 * @since 4.10
+	 */
+	protected void handleECFEndpointEvents(List<EndpointEvent> events) {
+		List<EndpointDescription> added = new ArrayList<EndpointDescription>();
+		for (EndpointEvent event : events) {
+			final EndpointDescription ed = (EndpointDescription) event.getEndpoint();
+			switch (event.getType()) {
+			case EndpointEvent.ADDED:
+				added.add(ed);
+				break;
+			case EndpointEvent.REMOVED:
+				runEndpointTask(ed, new Runnable() {
+					public void run() {
+						handleECFEndpointRemoved(ed);
+					}
+				}, false);
+				break;
+			case EndpointEvent.MODIFIED:
+				runEndpointTask(ed, new Runnable() {
+					public void run() {
+						handleECFEndpointModified(ed);
+					}
+				}, false);
+				break;
+			}
+		}
+		if (added.size() == 1) {
+			final EndpointDescription ed = added.get(0);
+			runEndpointTask(ed, new Runnable() {
+				public void run() {
+					handleECFEndpointAdded(ed);
+				}
+			}, false);
+		} else if (added.size() > 1)
+			handleECFEndpointsAdded(added);
+	}
+
+	/**
+	 * Import a batch of ECF endpoints concurrently. Each endpoint is imported
+	 * by {@link #handleECFEndpointAdded(EndpointDescription)} on a thread from
+	 * a pool owned by this topology manager, whose size is given by the
+	 * TopologyManagerImpl.importThreads system property (default 16). This
+	 * method does not wait for the imports to complete.
+	 * 
+	 * @param endpointDescriptions the endpoint descriptions to import. Will not
+	 *                             be <code>null</code>.
+	 * @since 4.10
+	 */
+	protected void handleECFEndpointsAdded(List<EndpointDescription> endpointDescriptions) {
+		trace("handleECFEndpointsAdded", "count=" + endpointDescriptions.size()); //$NON-NLS-1$ //$NON-NLS-2$
+		for (final EndpointDescription ed : endpointDescriptions)
+			runEndpointTask(ed, new Runnable() {
+				public void run() {
+					handleECFEndpointAdded(ed);
+				}
+			}, true);
+	}
+
+	/**
+	 * Run task for the given endpoint. If an earlier task for the same
+	 * endpoint id is still in progress, or async is true, task is run on the
+	 * import pool after the earlier task. Otherwise it is run on the calling
+	 * thread.
+	 */
+	private void runEndpointTask(EndpointDescription ed, final Runnable task, boolean async) {
+		final String id = ed.getId();
+		synchronized (endpointTasks) {
+			final CompletableFuture<Void> pending = endpointTasks.get(id);
+			if (pending != null || async) {
+				if (closed)
+					return;
+				final Runnable logged = new Runnable() {
+					public void run() {
+						try {
+							task.run();
+						} catch (Exception e) {
+							logError("runEndpointTask", "Exception handling event for endpoint id=" + id, e); //$NON-NLS-1$ //$NON-NLS-2$
+						}
+					}
+				};
+				final CompletableFuture<Void> next;
+				try {
+					next = (pending == null) ? CompletableFuture.runAsync(logged, getImportExecutor())
+							: pending.thenRunAsync(logged, getImportExecutor());
+				} catch (RejectedExecutionException e) {
+					return;
+				}
+				endpointTasks.put(id, next);
+				next.whenComplete(new BiConsumer<Void, Throwable>() {
+					public void accept(Void result, Throwable exception) {
+						synchronized (endpointTasks) {
+							if (endpointTasks.get(id) == next)
+								endpointTasks.remove(id);
+						}
+					}
+				});
+				return;
+			}
+		}
+		task.run();
+	}
+
+	// Called with endpointTasks held, and not after close
+	private ExecutorService getImportExecutor() {
+		if (importExecutor == null) {
+			final AtomicInteger count = new AtomicInteger();
+			ThreadPoolExecutor tpe = new ThreadPoolExecutor(IMPORT_THREADS, IMPORT_THREADS, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "RSA TopologyManager Import-" + count.incrementAndGet()); //$NON-NLS-1$
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			tpe.allowCoreThreadTimeOut(true);
+			importExecutor = tpe;
+		}
+		return importExecutor;
+	}
+
 	/**
 	 * @since 4.9
 	 */
@@ -316,7 +503,7 @@ public class TopologyManagerImpl extends AbstractTopologyManager implements Endp
 		} else if (matchedFilter.equals(nonECFNonLocalEndpointListenerScope)) {
 			handleNonECFEndpointModified(this, endpoint);
 		} else if (matchedFilter.equals(ecfNonLocalEndpointListenerScope) || matchedFilter.equals(ecfLocalEndpointListenerScope)) {
-			handleECFEndpointModified((EndpointDescription) endpoint);
+			ecfEndpointEvents.add(new EndpointEvent(EndpointEvent.MODIFIED, endpoint));
 		} else if (this.otherFilters.contains(matchedFilter)) {
 			handleOtherFilterEndpointModified(endpoint, matchedFilter);
 		}
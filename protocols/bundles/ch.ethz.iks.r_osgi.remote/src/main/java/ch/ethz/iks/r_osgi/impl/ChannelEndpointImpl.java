@@ -43,13 +43,17 @@ import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
 
 import org.eclipse.ecf.remoteservice.asyncproxy.AsyncReturnUtil;
 import org.objectweb.asm.Type;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleException;
 import org.osgi.framework.Constants;
 import org.osgi.framework.Filter;
@@ -69,6 +73,7 @@ import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
 import ch.ethz.iks.r_osgi.channels.NetworkChannel;
 import ch.ethz.iks.r_osgi.channels.NetworkChannelFactory;
 import ch.ethz.iks.r_osgi.messages.DeliverBundlesMessage;
+import ch.ethz.iks.r_osgi.messages.DeliverDependencyIdentitiesMessage;
 import ch.ethz.iks.r_osgi.messages.DeliverServiceMessage;
 import ch.ethz.iks.r_osgi.messages.LeaseMessage;
 import ch.ethz.iks.r_osgi.messages.LeaseUpdateMessage;
@@ -78,6 +83,7 @@ import ch.ethz.iks.r_osgi.messages.RemoteEventMessage;
 import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
 import ch.ethz.iks.r_osgi.messages.RequestBundleMessage;
 import ch.ethz.iks.r_osgi.messages.RequestDependenciesMessage;
+import ch.ethz.iks.r_osgi.messages.RequestDependencyIdentitiesMessage;
 import ch.ethz.iks.r_osgi.messages.RequestServiceMessage;
 import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
 import ch.ethz.iks.r_osgi.messages.StreamResultMessage;
@@ -88,6 +94,7 @@ import ch.ethz.iks.r_osgi.streams.OutputStreamHandle;
 import ch.ethz.iks.r_osgi.streams.OutputStreamProxy;
 import ch.ethz.iks.util.CollectionUtils;
 import ch.ethz.iks.util.StringUtils;
+import ch.ethz.iks.util.WorkerPool;
 
 /**
  * <p>
@@ -146,7 +153,7 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	/**
 	 * Timeout.
 	 */
-	private static final int TIMEOUT = Integer.parseInt(System.getProperty(
+	static final int TIMEOUT = Integer.parseInt(System.getProperty(
 			"ch.ethz.iks.r_osgi.channelEndpointImpl.timeout", "120000"));
 
 	/**
@@ -174,16 +181,55 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 */
 	private final HashMap streams = new HashMap(0);
 
+	/**
+	 * map of stream id -&gt; InputStreamPusher for the local input streams that
+	 * the peer reads through a window. Guarded by streams.
+	 */
+	private final HashMap streamPushers = new HashMap(0);
+
 	/**
 	 * next stream id.
 	 */
 	private short nextStreamID = 0;
 
+	/**
+	 * whether the peer supports remote streams with a window.
+	 */
+	private volatile boolean windowedStreams = false;
+
+	/**
+	 * whether the peer delivers the identities of dependency bundles.
+	 */
+	private volatile boolean dependencyIdentities = false;
+
+	/**
+	 * map of stream id -&gt; InputStreamWindow or OutputStreamWindow for the
+	 * proxies of remote streams.
+	 */
+	private final HashMap streamWindows = new HashMap(0);
+
+	/**
+	 * map of xid -&gt; InputStreamWindow that receives the data pushed by the
+	 * provider of the stream.
+	 */
+	private final HashMap pushedStreams = new HashMap(0);
+
+	/**
+	 * map of stream id -&gt; list of the requests for a local stream that wait
+	 * until the previous request for the same stream has been processed.
+	 */
+	private final HashMap streamRequests = new HashMap(0);
+
 	/**
 	 * the handler registration, if the remote topic space is not empty.
 	 */
 	private ServiceRegistration handlerReg = null;
 
+	/**
+	 * the location prefix of the dependency bundles fetched from peers.
+	 */
+	private static final String DEPENDENCY_LOCATION = "r-osgi://dep/"; //$NON-NLS-1$
+
 	/**
 	 * filter for events to prevent loops in the remote delivery if the peers
 	 * connected by this channel have non-disjoint topic spaces.
@@ -196,7 +242,11 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 							+ "=org/osgi/service/remoteserviceadmin/*))" //$NON-NLS-1$
 					+ ")"; //$NON-NLS-1$
 
-	private ArrayList workQueue = new ArrayList();
+	/**
+	 * the queue of incoming requests waiting for a worker thread.
+	 */
+	private final WorkerPool.Queue workQueue = RemoteOSGiServiceImpl.workerPool
+			.createQueue();
 
 	/**
 	 * used by the multiplexer and serves as a marker whether or not the channel
@@ -240,7 +290,6 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 			RemoteOSGiServiceImpl.log.log(LogService.LOG_DEBUG,
 					"opening new channel " + getRemoteAddress()); //$NON-NLS-1$
 		}
-		initThreadPool();
 		RemoteOSGiServiceImpl.registerChannelEndpoint(this);
 	}
 
@@ -254,41 +303,9 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		trace("<init>(channel="+channel+";remoteAddress="+channel.getRemoteAddress()+";localAddress="+channel.getLocalAddress()+")");
 		networkChannel = channel;
 		channel.bind(this);
-		initThreadPool();
 		RemoteOSGiServiceImpl.registerChannelEndpoint(this);
 	}
 
-	/**
-	 * initialize the thread pool
-	 */
-	private void initThreadPool() {
-		// TODO: tradeoff, could as well be central for all endpoints...
-		final ThreadGroup threadPool = new ThreadGroup("WorkerThreads"
-				+ toString());
-		for (int i = 0; i < RemoteOSGiServiceImpl.MAX_THREADS_PER_ENDPOINT; i++) {
-			final Thread t = new Thread(threadPool, "r-OSGi ChannelWorkerThread" + i) {
-				public void run() {
-					try {
-						while (!isInterrupted()) {
-							final Runnable r;
-							synchronized (workQueue) {
-								while (workQueue.isEmpty()) {
-									workQueue.wait();
-								}
-								r = (Runnable) workQueue.remove(0);
-							}
-							r.run();
-						}
-					} catch (InterruptedException ie) {
-						ie.printStackTrace();
-					}
-				}
-			};
-			t.setDaemon(true);
-			t.start();
-		}
-	}
-
 	/**
 	 * process a recieved message. Called by the channel.
 	 * 
@@ -303,36 +320,142 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 			return;
 		}
 		final Integer xid = Integer.valueOf(msg.getXID());
-		final WaitingCallback callback;
+		if (msg.getFuncID() == RemoteOSGiMessage.STREAM_RESULT) {
+			final InputStreamWindow window;
+			synchronized (streamWindows) {
+				window = (InputStreamWindow) pushedStreams.get(xid);
+			}
+			if (window != null) {
+				window.received((StreamResultMessage) msg);
+				return;
+			}
+		}
+		final AsyncCallback callback;
 		synchronized (callbacks) {
-			callback = (WaitingCallback) callbacks.remove(xid);
+			callback = (AsyncCallback) callbacks.remove(xid);
 		}
 		if (callback != null) {
 			callback.result(msg);
 			return;
+		} else if (msg.getFuncID() == RemoteOSGiMessage.STREAM_RESULT) {
+			// data pushed for a stream that has been closed in the meantime
+			return;
+		} else if (msg.getFuncID() == RemoteOSGiMessage.STREAM_REQUEST) {
+			queueStreamRequest((StreamRequestMessage) msg);
 		} else {
 			final Runnable r = new Runnable() {
 				public void run() {
-					final RemoteOSGiMessage reply = handleMessage(msg);
-					if (reply != null) {
-
-						try {
-							trace("reply(msg="+reply+";remoteAddress="+networkChannel.getRemoteAddress()+")");
-							networkChannel.sendMessage(reply);
-						} catch (final NotSerializableException nse) {
-							throw new RemoteOSGiException("Error sending " //$NON-NLS-1$
-									+ reply, nse);
-						} catch (NullPointerException npe) {
-							// channel got closed							
-						} catch (final IOException e) {
-							dispose();
+					process(msg);
+				}
+			};
+			if (!workQueue.execute(r)) {
+				reject(msg);
+			}
+		}
+	}
+
+	/**
+	 * handle a message and send the reply, if there is one.
+	 * 
+	 * @param msg
+	 *            the message.
+	 */
+	private void process(final RemoteOSGiMessage msg) {
+		final RemoteOSGiMessage reply = handleMessage(msg);
+		if (reply != null) {
+
+			try {
+				trace("reply(msg="+reply+";remoteAddress="+networkChannel.getRemoteAddress()+")");
+				networkChannel.sendMessage(reply);
+			} catch (final NotSerializableException nse) {
+				throw new RemoteOSGiException("Error sending " //$NON-NLS-1$
+						+ reply, nse);
+			} catch (NullPointerException npe) {
+				// channel got closed							
+			} catch (final IOException e) {
+				dispose();
+			}
+		}
+	}
+
+	/**
+	 * queue a request for a local stream. The requests for the same stream are
+	 * processed one after another, in the order in which they have been
+	 * received, so that writes that have been sent without waiting for the
+	 * previous ones to complete are not reordered.
+	 * 
+	 * @param msg
+	 *            the stream request message.
+	 */
+	private void queueStreamRequest(final StreamRequestMessage msg) {
+		final Integer streamID = Integer.valueOf(msg.getStreamID());
+		synchronized (streamRequests) {
+			final LinkedList pending = (LinkedList) streamRequests
+					.get(streamID);
+			if (pending != null) {
+				pending.addLast(msg);
+				return;
+			}
+			streamRequests.put(streamID, new LinkedList());
+		}
+		final Runnable r = new Runnable() {
+			public void run() {
+				RemoteOSGiMessage next = msg;
+				while (next != null) {
+					try {
+						process(next);
+					} catch (final RuntimeException e) {
+						// go on with the next request for the stream
+						if (RemoteOSGiServiceImpl.log != null) {
+							RemoteOSGiServiceImpl.log.log(
+									LogService.LOG_ERROR,
+									"Error processing " + next, e); //$NON-NLS-1$
+						}
+					}
+					synchronized (streamRequests) {
+						final LinkedList pending = (LinkedList) streamRequests
+								.get(streamID);
+						if (pending == null || pending.isEmpty()) {
+							streamRequests.remove(streamID);
+							next = null;
+						} else {
+							next = (RemoteOSGiMessage) pending.removeFirst();
 						}
 					}
 				}
-			};
-			synchronized (workQueue) {
-				workQueue.add(r);
-				workQueue.notify();
+			}
+		};
+		if (!workQueue.execute(r)) {
+			synchronized (streamRequests) {
+				streamRequests.remove(streamID);
+			}
+			reject(msg);
+		}
+	}
+
+	/**
+	 * answer a request that could not be queued because the peer has too many
+	 * pending requests. Remote calls fail right away instead of timing out at
+	 * the caller.
+	 * 
+	 * @param msg
+	 *            the rejected message.
+	 */
+	private void reject(final RemoteOSGiMessage msg) {
+		if (RemoteOSGiServiceImpl.log != null) {
+			RemoteOSGiServiceImpl.log.log(LogService.LOG_WARNING, "Rejected " //$NON-NLS-1$
+					+ msg + " from " + getRemoteAddress() + ", " //$NON-NLS-1$ //$NON-NLS-2$
+					+ RemoteOSGiServiceImpl.workerPool);
+		}
+		if (msg.getFuncID() == RemoteOSGiMessage.REMOTE_CALL) {
+			final RemoteCallResultMessage m = new RemoteCallResultMessage();
+			m.setXID(msg.getXID());
+			m.setException(new RemoteOSGiException(
+					"Too many pending requests from " + getRemoteAddress())); //$NON-NLS-1$
+			try {
+				send(m);
+			} catch (final RemoteOSGiException e) {
+				// channel got closed
 			}
 		}
 	}
@@ -565,6 +688,7 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 
 		final NetworkChannel oldchannel = networkChannel;
 		networkChannel = null;
+		workQueue.close();
 
 		try {
 			oldchannel.close();
@@ -605,7 +729,7 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		localServices.clear();
 		proxiedServices.clear();
 		closeStreams();
-		streams.clear();
+		disconnectStreamWindows();
 		handlerReg = null;
 		synchronized (callbacks) {
 			callbacks.notifyAll();
@@ -633,6 +757,9 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 *             when an IOException occurs.
 	 */
 	public int readStream(final short streamID) throws IOException {
+		if (windowedStreams) {
+			return getInputStreamWindow(streamID).read();
+		}
 		final StreamRequestMessage requestMsg = new StreamRequestMessage();
 		requestMsg.setOp(StreamRequestMessage.READ);
 		requestMsg.setStreamID(streamID);
@@ -667,6 +794,9 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		if (len == 0) {
 			return 0;
 		}
+		if (windowedStreams) {
+			return getInputStreamWindow(streamID).read(b, off, len);
+		}
 		final StreamRequestMessage requestMsg = new StreamRequestMessage();
 		requestMsg.setOp(StreamRequestMessage.READ_ARRAY);
 		requestMsg.setStreamID(streamID);
@@ -694,6 +824,10 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 */
 	public void writeStream(final short streamID, final int b)
 			throws IOException {
+		if (windowedStreams) {
+			getOutputStreamWindow(streamID).write(b);
+			return;
+		}
 		final StreamRequestMessage requestMsg = new StreamRequestMessage();
 		requestMsg.setOp(StreamRequestMessage.WRITE);
 		requestMsg.setStreamID(streamID);
@@ -725,6 +859,10 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		if ((off < 0) || (len < 0) || (len + off > b.length)) {
 			throw new IndexOutOfBoundsException();
 		}
+		if (windowedStreams) {
+			getOutputStreamWindow(streamID).write(b, off, len);
+			return;
+		}
 		final byte[] data = new byte[len];
 		System.arraycopy(b, off, data, 0, len);
 
@@ -737,6 +875,171 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		doStreamOp(requestMsg);
 	}
 
+	/**
+	 * get the number of bytes that can be read from the input stream on the
+	 * peer identified by id without blocking.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @return the number of bytes that have been pushed ahead by the peer, or
+	 *         0 if the peer does not push ahead.
+	 */
+	public int availableStream(final short streamID) {
+		if (!windowedStreams) {
+			return 0;
+		}
+		final InputStreamWindow window;
+		synchronized (streamWindows) {
+			window = (InputStreamWindow) streamWindows.get(Integer
+					.valueOf(streamID));
+		}
+		return window == null ? 0 : window.available();
+	}
+
+	/**
+	 * send the data that has been written to the output stream on the peer
+	 * identified by id and wait until the peer has written it.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @throws IOException
+	 *             when an IOException occurs.
+	 */
+	public void flushStream(final short streamID) throws IOException {
+		if (!windowedStreams) {
+			return;
+		}
+		final OutputStreamWindow window;
+		synchronized (streamWindows) {
+			window = (OutputStreamWindow) streamWindows.get(Integer
+					.valueOf(streamID));
+		}
+		if (window != null) {
+			window.flush();
+		}
+	}
+
+	/**
+	 * close the stream on the peer identified by id. Peers that do not support
+	 * windowed streams close their streams only when the channel is closed.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @throws IOException
+	 *             when the data written to an output stream could not be
+	 *             flushed.
+	 */
+	public void closeStream(final short streamID) throws IOException {
+		if (!windowedStreams) {
+			return;
+		}
+		final Object window;
+		synchronized (streamWindows) {
+			window = streamWindows.remove(Integer.valueOf(streamID));
+			if (window instanceof InputStreamWindow) {
+				pushedStreams.remove(Integer
+						.valueOf(((InputStreamWindow) window).getXID()));
+			}
+		}
+		try {
+			if (window instanceof InputStreamWindow) {
+				((InputStreamWindow) window).close();
+			} else if (window instanceof OutputStreamWindow) {
+				((OutputStreamWindow) window).close();
+			}
+		} finally {
+			if (networkChannel != null) {
+				final StreamRequestMessage requestMsg = new StreamRequestMessage();
+				requestMsg.setOp(StreamRequestMessage.CLOSE);
+				requestMsg.setStreamID(streamID);
+				try {
+					send(requestMsg);
+				} catch (final RemoteOSGiException e) {
+					// the channel is closed, and so is the stream
+				}
+			}
+		}
+	}
+
+	/**
+	 * get the window for the proxy of a remote input stream, and grant the
+	 * peer the credit to push the first window of data if the window is new.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @return the window.
+	 * @throws IOException
+	 *             if the stream is closed or the credit could not be sent.
+	 */
+	private InputStreamWindow getInputStreamWindow(final short streamID)
+			throws IOException {
+		final Integer id = Integer.valueOf(streamID);
+		final InputStreamWindow window;
+		synchronized (streamWindows) {
+			final Object w = streamWindows.get(id);
+			if (w != null) {
+				return (InputStreamWindow) w;
+			}
+			if (networkChannel == null) {
+				throw new IOException("Channel is closed"); //$NON-NLS-1$
+			}
+			window = new InputStreamWindow(this, streamID,
+					RemoteOSGiServiceImpl.STREAM_WINDOW);
+			streamWindows.put(id, window);
+			pushedStreams.put(Integer.valueOf(window.getXID()), window);
+		}
+		window.open();
+		return window;
+	}
+
+	/**
+	 * get the window for the proxy of a remote output stream.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 * @return the window.
+	 * @throws IOException
+	 *             if the channel is closed.
+	 */
+	private OutputStreamWindow getOutputStreamWindow(final short streamID)
+			throws IOException {
+		final Integer id = Integer.valueOf(streamID);
+		synchronized (streamWindows) {
+			OutputStreamWindow window = (OutputStreamWindow) streamWindows
+					.get(id);
+			if (window == null) {
+				if (networkChannel == null) {
+					throw new IOException("Channel is closed"); //$NON-NLS-1$
+				}
+				window = new OutputStreamWindow(this, streamID,
+						RemoteOSGiServiceImpl.STREAM_WINDOW,
+						RemoteOSGiServiceImpl.STREAM_CHUNK_SIZE);
+				streamWindows.put(id, window);
+			}
+			return window;
+		}
+	}
+
+	/**
+	 * fail the pending and future operations on the proxies of remote streams
+	 * after the channel has been closed.
+	 */
+	private void disconnectStreamWindows() {
+		final Object[] windows;
+		synchronized (streamWindows) {
+			windows = streamWindows.values().toArray();
+			streamWindows.clear();
+			pushedStreams.clear();
+		}
+		for (int i = 0; i < windows.length; i++) {
+			if (windows[i] instanceof InputStreamWindow) {
+				((InputStreamWindow) windows[i]).disconnected();
+			} else {
+				((OutputStreamWindow) windows[i]).disconnected();
+			}
+		}
+	}
+
 	/**
 	 * get the channel URI.
 	 * 
@@ -827,23 +1130,55 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		// declarations for the bundle.
 		final DeliverServiceMessage deliv = (DeliverServiceMessage) sendAndWait(req);
 
-		// generate a proxy bundle for the service
-		final InputStream in = new ProxyGenerator().generateProxyBundle(ref
-				.getURI(), deliv);
+		// generate a proxy bundle for the service, unless the same proxy
+		// bundle has been generated before
+		final ProxyBundleCache cache = RemoteOSGiServiceImpl.proxyBundleCache;
+		final String key = cache == null ? null : cache.getKey(ref.getURI(),
+				deliv);
+		byte[] bytes = key == null ? null : cache.getProxyBundle(key);
+		if (bytes == null) {
+			bytes = new ProxyGenerator().generateProxyBundle(ref.getURI(),
+					deliv, key);
+			if (key != null) {
+				cache.putProxyBundle(key, bytes);
+			}
+		}
 
-		installResolveAndStartBundle(ref, in, true);
+		installResolveAndStartBundle(ref, bytes, key, true);
 	}
 
+	/**
+	 * install a bundle for a remote service, together with the dependencies
+	 * it needs from the remote peer, and start it.
+	 * 
+	 * @param ref
+	 *            the remote service reference.
+	 * @param bytes
+	 *            the bundle.
+	 * @param key
+	 *            the key of a proxy bundle in the proxy bundle cache, or
+	 *            <code>null</code>.
+	 * @param isProxy
+	 *            whether the bundle is a proxy bundle.
+	 */
 	private void installResolveAndStartBundle(final RemoteServiceReference ref,
-			final InputStream in, final boolean isProxy) {
+			final byte[] bytes, final String key, final boolean isProxy) {
 		try {
 
 			final Bundle bundle = RemoteOSGiActivator.getActivator()
-					.getContext().installBundle(ref.getURI().toString(), in);
+					.getContext().installBundle(ref.getURI().toString(),
+							new ByteArrayInputStream(bytes));
+			if (key != null
+					&& !key.equals(bundle.getHeaders().get(
+							ProxyBundleCache.KEY_HEADER))) {
+				// a bundle with the same location is left from an earlier
+				// run and proxies a different version of the service
+				bundle.update(new ByteArrayInputStream(bytes));
+			}
 
 			retrieveDependencies((String) bundle.getHeaders().get(
 					Constants.IMPORT_PACKAGE), (String) bundle.getHeaders()
-					.get(Constants.EXPORT_PACKAGE));
+					.get(Constants.EXPORT_PACKAGE), key);
 
 			if (isProxy) {
 				// store the bundle for state updates and cleanup
@@ -883,8 +1218,7 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 
 		final byte[] bundleBytes = deliv.getDependencies()[0];
 
-		installResolveAndStartBundle(ref,
-				new ByteArrayInputStream(bundleBytes), false);
+		installResolveAndStartBundle(ref, bundleBytes, null, false);
 	}
 
 	/**
@@ -920,9 +1254,12 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 *            the declared package imports
 	 * @param exportString
 	 *            the declared package exports
+	 * @param key
+	 *            the key of the proxy bundle in the proxy bundle cache, or
+	 *            <code>null</code>.
 	 */
 	private void retrieveDependencies(final String importString,
-			final String exportString) {
+			final String exportString, final String key) {
 
 		final Set exports = new HashSet(Arrays.asList(getTokens(exportString)));
 		final Set imports = new HashSet(Arrays.asList(getTokens(importString)));
@@ -931,15 +1268,46 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 				imports, exports).toArray(new String[0]);
 
 		if (missing.length > 0) {
-			final RequestDependenciesMessage req = new RequestDependenciesMessage();
-			req.setPackages(missing);
-			final DeliverBundlesMessage deps = (DeliverBundlesMessage) sendAndWait(req);
-			final byte[][] depBytes = deps.getDependencies();
+			// dependencies are only taken from the cache if the peer can
+			// tell whether it still delivers the same bundles
+			final ProxyBundleCache cache = key == null
+					|| !dependencyIdentities ? null
+					: RemoteOSGiServiceImpl.proxyBundleCache;
+			String[] identities = null;
+			String[] hashes = null;
+			byte[][] depBytes = null;
+			if (cache != null) {
+				final RequestDependencyIdentitiesMessage req = new RequestDependencyIdentitiesMessage();
+				req.setPackages(missing);
+				identities = ((DeliverDependencyIdentitiesMessage) sendAndWait(req))
+						.getIdentities();
+				hashes = cache.getDependencies(key, identities);
+				depBytes = hashes == null ? null : getCachedDependencies(
+						cache, hashes);
+			}
+			if (depBytes == null) {
+				final RequestDependenciesMessage req = new RequestDependenciesMessage();
+				req.setPackages(missing);
+				final DeliverBundlesMessage deps = (DeliverBundlesMessage) sendAndWait(req);
+				depBytes = deps.getDependencies();
+				hashes = new String[depBytes.length];
+				for (int i = 0; i < depBytes.length; i++) {
+					hashes[i] = ProxyBundleCache.getHash(depBytes[i]);
+				}
+				// the bundles have been fetched after their identities, so
+				// a bundle updated in between is fetched again next time.
+				// The list comes first, so that the cache does not remove
+				// the bundles as unused while they are written
+				if (cache != null && identities.length == depBytes.length) {
+					cache.putDependencies(key, identities, hashes);
+					for (int i = 0; i < depBytes.length; i++) {
+						cache.putDependency(hashes[i], depBytes[i]);
+					}
+				}
+			}
 			for (int i = 0; i < depBytes.length; i++) {
 				try {
-					RemoteOSGiActivator.getActivator().getContext()
-							.installBundle("r-osgi://dep/" + missing[i],
-									new ByteArrayInputStream(depBytes[i]));
+					installDependency(hashes[i], depBytes[i]);
 				} catch (BundleException be) {
 					be.printStackTrace();
 				}
@@ -947,6 +1315,97 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		}
 	}
 
+	/**
+	 * install a dependency bundle. The location is the hash of the bundle, so
+	 * a bundle that is delivered again is not installed twice. Dependency
+	 * bundles with the same symbolic name that have been installed from other
+	 * bytes are uninstalled, and the bundles that used them are refreshed.
+	 * 
+	 * @param hash
+	 *            the hash of the bundle.
+	 * @param bytes
+	 *            the bundle.
+	 * @throws BundleException
+	 *             if the bundle cannot be installed.
+	 */
+	private static void installDependency(final String hash,
+			final byte[] bytes) throws BundleException {
+		final BundleContext context = RemoteOSGiActivator.getActivator()
+				.getContext();
+		final String location = DEPENDENCY_LOCATION + hash;
+		final Bundle[] bundles = context.getBundles();
+		for (int i = 0; i < bundles.length; i++) {
+			if (location.equals(bundles[i].getLocation())) {
+				return;
+			}
+		}
+		final String symbolicName = getSymbolicName(bytes);
+		final List replaced = new ArrayList();
+		for (int i = 0; symbolicName != null && i < bundles.length; i++) {
+			if (bundles[i].getLocation().startsWith(DEPENDENCY_LOCATION)
+					&& symbolicName.equals(bundles[i].getSymbolicName())) {
+				bundles[i].uninstall();
+				replaced.add(bundles[i]);
+			}
+		}
+		context.installBundle(location, new ByteArrayInputStream(bytes));
+		if (!replaced.isEmpty()) {
+			RemoteOSGiServiceImpl.refreshPackages((Bundle[]) replaced
+					.toArray(new Bundle[replaced.size()]));
+		}
+	}
+
+	/**
+	 * get the symbolic name of a bundle.
+	 * 
+	 * @param bytes
+	 *            the bundle.
+	 * @return the symbolic name, or <code>null</code> if the bundle has none.
+	 */
+	private static String getSymbolicName(final byte[] bytes) {
+		try {
+			final JarInputStream in = new JarInputStream(
+					new ByteArrayInputStream(bytes));
+			final Manifest mf = in.getManifest();
+			in.close();
+			final String name = mf == null ? null : mf.getMainAttributes()
+					.getValue(Constants.BUNDLE_SYMBOLICNAME);
+			if (name == null) {
+				return null;
+			}
+			final int pos = name.indexOf(';');
+			return (pos > -1 ? name.substring(0, pos) : name).trim();
+		} catch (final IOException ioe) {
+			return null;
+		}
+	}
+
+	/**
+	 * get the dependency bundles that have been fetched for a proxy bundle
+	 * before.
+	 * 
+	 * @param cache
+	 *            the proxy bundle cache.
+	 * @param hashes
+	 *            the hashes of the dependency bundles.
+	 * @return the dependency bundles, or <code>null</code> if they are not
+	 *         all in the cache.
+	 */
+	private byte[][] getCachedDependencies(final ProxyBundleCache cache,
+			final String[] hashes) {
+		if (hashes.length == 0) {
+			return null;
+		}
+		final byte[][] depBytes = new byte[hashes.length][];
+		for (int i = 0; i < hashes.length; i++) {
+			depBytes[i] = cache.getDependency(hashes[i]);
+			if (depBytes[i] == null) {
+				return null;
+			}
+		}
+		return depBytes;
+	}
+
 	/**
 	 * get the remote reference for a given serviceID.
 	 * 
@@ -1114,6 +1573,32 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		}
 	}
 
+	/**
+	 * send a message and register a callback for the reply.
+	 * 
+	 * @param msg
+	 *            a message.
+	 * @param callback
+	 *            the callback.
+	 */
+	void send(final RemoteOSGiMessage msg, final AsyncCallback callback) {
+		if (msg.getXID() == 0) {
+			msg.setXID(RemoteOSGiServiceImpl.nextXid());
+		}
+		final Integer xid = Integer.valueOf(msg.getXID());
+		synchronized (callbacks) {
+			callbacks.put(xid, callback);
+		}
+		try {
+			send(msg);
+		} catch (final RemoteOSGiException e) {
+			synchronized (callbacks) {
+				callbacks.remove(xid);
+			}
+			throw e;
+		}
+	}
+
 	/**
 	 * message handler method.
 	 * 
@@ -1329,10 +1814,16 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		}
 		case RemoteOSGiMessage.STREAM_REQUEST: {
 			final StreamRequestMessage reqMsg = (StreamRequestMessage) msg;
+			if (reqMsg.getOp() == StreamRequestMessage.CLOSE) {
+				closeLocalStream(Integer.valueOf(reqMsg.getStreamID()));
+				return null;
+			}
 			try {
 				// fetch stream object
-				final Object stream = streams.get(Integer.valueOf(reqMsg
-						.getStreamID()));
+				final Object stream;
+				synchronized (streams) {
+					stream = streams.get(Integer.valueOf(reqMsg.getStreamID()));
+				}
 				if (stream == null) {
 					throw new IllegalStateException(
 							"Could not get stream with ID " //$NON-NLS-1$
@@ -1374,6 +1865,12 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 					m.setResult(StreamResultMessage.RESULT_WRITE_OK);
 					return m;
 				}
+				case StreamRequestMessage.READ_WINDOW: {
+					// the data is pushed asynchronously, an exception is the
+					// final reply
+					pushStream((InputStream) stream, reqMsg);
+					return null;
+				}
 				default:
 					throw new RemoteOSGiException(
 							"Unimplemented op code for stream request " + msg); //$NON-NLS-1$
@@ -1419,6 +1916,13 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 				ioe.printStackTrace();
 				return null;
 			}
+		case RemoteOSGiMessage.REQUEST_DEPENDENCY_IDENTITIES:
+			final RequestDependencyIdentitiesMessage reqIds = (RequestDependencyIdentitiesMessage) msg;
+			final DeliverDependencyIdentitiesMessage delIds = new DeliverDependencyIdentitiesMessage();
+			delIds.setXID(reqIds.getXID());
+			delIds.setIdentities(RemoteOSGiServiceImpl
+					.getDependencyIdentities(reqIds.getPackages()));
+			return delIds;
 		default:
 			throw new RemoteOSGiException("Unimplemented message " + msg); //$NON-NLS-1$
 		}
@@ -1521,6 +2025,9 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 * @return the remote references.
 	 */
 	private RemoteServiceReference[] processLease(final LeaseMessage lease) {
+		windowedStreams = RemoteOSGiServiceImpl.STREAM_WINDOW > 0
+				&& lease.getVersion() >= 2;
+		dependencyIdentities = lease.getVersion() >= 3;
 		final String[] serviceIDs = lease.getServiceIDs();
 		final String[][] serviceInterfaces = lease.getServiceInterfaces();
 		final Dictionary[] serviceProperties = lease.getServiceProperties();
@@ -1652,7 +2159,9 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 */
 	private InputStreamHandle getInputStreamPlaceholder(final InputStream origIS) {
 		final InputStreamHandle sp = new InputStreamHandle(nextStreamID());
-		streams.put(Integer.valueOf(sp.getStreamID()), origIS);
+		synchronized (streams) {
+			streams.put(Integer.valueOf(sp.getStreamID()), origIS);
+		}
 		return sp;
 	}
 
@@ -1678,7 +2187,9 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	private OutputStreamHandle getOutputStreamPlaceholder(
 			final OutputStream origOS) {
 		final OutputStreamHandle sp = new OutputStreamHandle(nextStreamID());
-		streams.put(Integer.valueOf(sp.getStreamID()), origOS);
+		synchronized (streams) {
+			streams.put(Integer.valueOf(sp.getStreamID()), origOS);
+		}
 		return sp;
 	}
 
@@ -1711,7 +2222,17 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 * closes all streams that are still open.
 	 */
 	private void closeStreams() {
-		final Object[] s = streams.values().toArray();
+		final Object[] s;
+		final Object[] p;
+		synchronized (streams) {
+			s = streams.values().toArray();
+			streams.clear();
+			p = streamPushers.values().toArray();
+			streamPushers.clear();
+		}
+		for (int i = 0; i < p.length; i++) {
+			((InputStreamPusher) p[i]).close();
+		}
 		try {
 			for (int i = 0; i < s.length; i++) {
 				if (s[i] instanceof InputStream) {
@@ -1728,6 +2249,58 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		}
 	}
 
+	/**
+	 * grant the pusher of a local input stream the credit of the request. The
+	 * data is pushed to the peer by the pusher's own thread, so that a stream
+	 * that blocks does not hold a worker of this endpoint.
+	 * 
+	 * @param in
+	 *            the input stream.
+	 * @param reqMsg
+	 *            the request.
+	 */
+	private void pushStream(final InputStream in,
+			final StreamRequestMessage reqMsg) {
+		final Integer streamID = Integer.valueOf(reqMsg.getStreamID());
+		InputStreamPusher pusher;
+		synchronized (streams) {
+			pusher = (InputStreamPusher) streamPushers.get(streamID);
+			if (pusher == null) {
+				pusher = new InputStreamPusher(this, in, reqMsg.getStreamID());
+				streamPushers.put(streamID, pusher);
+			}
+		}
+		pusher.grant(reqMsg.getXID(), reqMsg.getLenOrVal());
+	}
+
+	/**
+	 * close a local stream at the request of the peer. Pushing data of the
+	 * stream is stopped, and closing the stream ends a read that blocks.
+	 * 
+	 * @param streamID
+	 *            the ID of the stream.
+	 */
+	private void closeLocalStream(final Integer streamID) {
+		final Object stream;
+		final InputStreamPusher pusher;
+		synchronized (streams) {
+			stream = streams.remove(streamID);
+			pusher = (InputStreamPusher) streamPushers.remove(streamID);
+		}
+		if (pusher != null) {
+			pusher.close();
+		}
+		try {
+			if (stream instanceof InputStream) {
+				((InputStream) stream).close();
+			} else if (stream instanceof OutputStream) {
+				((OutputStream) stream).close();
+			}
+		} catch (final IOException e) {
+			// the peer does not wait for the result
+		}
+	}
+
 	/**
 	 * forwards events over the channel to the remote peer.
 	 * 
@@ -0,0 +1,164 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import ch.ethz.iks.r_osgi.RemoteOSGiException;
+import ch.ethz.iks.r_osgi.messages.StreamResultMessage;
+
+/**
+ * <p>
+ * The providing side of a local input stream that is read through a window by
+ * the peer. The peer grants credit, and the data is pushed as
+ * <code>StreamResultMessage</code>s with the XID of the grant until the credit
+ * is used up, the end of the stream is reached, or reading fails.
+ * </p>
+ * <p>
+ * Reading from the stream can block for as long as the stream has no data, so
+ * the data is pushed by a thread of its own instead of a worker of the
+ * endpoint. The thread terminates when the credit is used up and is started
+ * again by the next grant. Closing the pusher interrupts it.
+ * </p>
+ *
+ * @author Composent, Inc.
+ */
+final class InputStreamPusher implements Runnable {
+
+	private final ChannelEndpointImpl endpoint;
+
+	private final InputStream in;
+
+	private final short streamID;
+
+	/**
+	 * the XID of the last grant, and of the data pushed.
+	 */
+	private int xid;
+
+	/**
+	 * the number of bytes that may be pushed.
+	 */
+	private int credit;
+
+	/**
+	 * the thread that pushes the data, or <code>null</code> if there is none.
+	 */
+	private Thread thread;
+
+	/**
+	 * whether the end of the stream has been reached, reading has failed or
+	 * the pusher has been closed.
+	 */
+	private boolean done;
+
+	/**
+	 * create a new input stream pusher.
+	 *
+	 * @param endpoint
+	 *            the channel endpoint.
+	 * @param in
+	 *            the local input stream.
+	 * @param streamID
+	 *            the ID of the stream.
+	 */
+	InputStreamPusher(final ChannelEndpointImpl endpoint, final InputStream in,
+			final short streamID) {
+		this.endpoint = endpoint;
+		this.in = in;
+		this.streamID = streamID;
+	}
+
+	/**
+	 * grant credit to push data, and start pushing if no thread does.
+	 *
+	 * @param xid
+	 *            the XID of the grant.
+	 * @param credit
+	 *            the number of bytes.
+	 */
+	synchronized void grant(final int xid, final int credit) {
+		if (done) {
+			return;
+		}
+		this.xid = xid;
+		this.credit += credit;
+		if (thread == null && this.credit > 0) {
+			thread = new Thread(this, "r-OSGi StreamPusher " + streamID); //$NON-NLS-1$
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * stop pushing. A thread blocked in reading is interrupted, closing the
+	 * stream is up to the caller.
+	 */
+	synchronized void close() {
+		done = true;
+		credit = 0;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	public void run() {
+		while (true) {
+			final byte[] b;
+			synchronized (this) {
+				if (done || credit <= 0) {
+					thread = null;
+					return;
+				}
+				b = new byte[Math.min(credit,
+						RemoteOSGiServiceImpl.STREAM_CHUNK_SIZE)];
+			}
+			final StreamResultMessage m = new StreamResultMessage();
+			int len;
+			try {
+				len = in.read(b, 0, b.length);
+				m.setResult(StreamResultMessage.RESULT_ARRAY);
+				m.setLen(len);
+				if (len > 0) {
+					m.setData(b);
+				}
+			} catch (final IOException e) {
+				// an exception is the final reply
+				len = -1;
+				m.setResult(StreamResultMessage.RESULT_EXCEPTION);
+				m.setException(e);
+			}
+			synchronized (this) {
+				if (done) {
+					// closed while reading, the peer has discarded the stream
+					thread = null;
+					return;
+				}
+				m.setXID(xid);
+				if (len > 0) {
+					credit -= len;
+				} else if (len < 0) {
+					done = true;
+				}
+			}
+			try {
+				endpoint.send(m);
+			} catch (final RemoteOSGiException e) {
+				// the channel is closed
+				close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,298 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedList;
+
+import ch.ethz.iks.r_osgi.RemoteOSGiException;
+import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
+import ch.ethz.iks.r_osgi.messages.StreamResultMessage;
+
+/**
+ * <p>
+ * The reading side of a remote input stream whose provider pushes the data
+ * ahead. The reader grants the provider the credit to send a window of bytes.
+ * The data arrives as <code>StreamResultMessage</code>s with the XID of the
+ * window and is buffered until it is read. Whenever half of the window has
+ * been read, the provider gets the credit for the consumed bytes, so the
+ * buffered and the outstanding data never exceed the window.
+ * </p>
+ *
+ * @author Composent, Inc.
+ */
+final class InputStreamWindow {
+
+	private final ChannelEndpointImpl endpoint;
+
+	private final short streamID;
+
+	private final int window;
+
+	/**
+	 * the XID of all credit grants, and of the data pushed by the provider.
+	 */
+	private final int xid;
+
+	/**
+	 * the received chunks that have not been read completely.
+	 */
+	private final LinkedList chunks = new LinkedList();
+
+	/**
+	 * the position in the first chunk.
+	 */
+	private int position;
+
+	/**
+	 * the number of buffered bytes.
+	 */
+	private int available;
+
+	/**
+	 * the number of bytes that have been read since the last credit grant.
+	 */
+	private int consumed;
+
+	private boolean eof;
+
+	private IOException exception;
+
+	private boolean closed;
+
+	/**
+	 * create a new input stream window.
+	 *
+	 * @param endpoint
+	 *            the channel endpoint.
+	 * @param streamID
+	 *            the ID of the remote stream.
+	 * @param window
+	 *            the window in bytes.
+	 */
+	InputStreamWindow(final ChannelEndpointImpl endpoint, final short streamID,
+			final int window) {
+		this.endpoint = endpoint;
+		this.streamID = streamID;
+		this.window = window;
+		this.xid = RemoteOSGiServiceImpl.nextXid();
+	}
+
+	/**
+	 * get the XID of the messages that belong to this window.
+	 *
+	 * @return the XID.
+	 */
+	int getXID() {
+		return xid;
+	}
+
+	/**
+	 * grant the provider the credit for the initial window.
+	 *
+	 * @throws IOException
+	 *             if the channel is closed.
+	 */
+	void open() throws IOException {
+		grant(window);
+	}
+
+	/**
+	 * read a byte.
+	 *
+	 * @return the byte, or -1 at the end of the stream.
+	 * @throws IOException
+	 *             if the remote stream has thrown an exception.
+	 */
+	int read() throws IOException {
+		final int b;
+		final int credit;
+		synchronized (this) {
+			if (!await()) {
+				return -1;
+			}
+			final byte[] chunk = (byte[]) chunks.getFirst();
+			b = chunk[position] & 0xFF;
+			consume(chunk, 1);
+			credit = credit();
+		}
+		if (credit > 0) {
+			grant(credit);
+		}
+		return b;
+	}
+
+	/**
+	 * read bytes into an array.
+	 *
+	 * @param b
+	 *            the array.
+	 * @param off
+	 *            the offset in the array.
+	 * @param len
+	 *            the maximum number of bytes to read.
+	 * @return the number of bytes read, or -1 at the end of the stream.
+	 * @throws IOException
+	 *             if the remote stream has thrown an exception.
+	 */
+	int read(final byte[] b, final int off, final int len) throws IOException {
+		int n = 0;
+		final int credit;
+		synchronized (this) {
+			if (!await()) {
+				return -1;
+			}
+			while (n < len && available > 0) {
+				final byte[] chunk = (byte[]) chunks.getFirst();
+				final int count = Math.min(len - n, chunk.length - position);
+				System.arraycopy(chunk, position, b, off + n, count);
+				consume(chunk, count);
+				n += count;
+			}
+			credit = credit();
+		}
+		if (credit > 0) {
+			grant(credit);
+		}
+		return n;
+	}
+
+	/**
+	 * get the number of bytes that can be read without blocking.
+	 *
+	 * @return the number of buffered bytes.
+	 */
+	synchronized int available() {
+		return available;
+	}
+
+	/**
+	 * close the window. Data that arrives afterwards is discarded.
+	 */
+	synchronized void close() {
+		closed = true;
+		chunks.clear();
+		available = 0;
+		notifyAll();
+	}
+
+	/**
+	 * called when the channel has been closed.
+	 */
+	synchronized void disconnected() {
+		if (exception == null) {
+			exception = new IOException("Channel is closed"); //$NON-NLS-1$
+		}
+		notifyAll();
+	}
+
+	/**
+	 * called when the provider has pushed data, reached the end of the
+	 * stream, or failed.
+	 *
+	 * @param msg
+	 *            the stream result message.
+	 */
+	synchronized void received(final StreamResultMessage msg) {
+		if (closed) {
+			return;
+		}
+		if (msg.causedException()) {
+			exception = msg.getException();
+		} else if (msg.getLen() > 0) {
+			final int len = msg.getLen();
+			byte[] data = msg.getData();
+			if (data.length != len) {
+				data = new byte[len];
+				System.arraycopy(msg.getData(), 0, data, 0, len);
+			}
+			chunks.addLast(data);
+			available += len;
+		} else if (msg.getLen() < 0) {
+			eof = true;
+		}
+		notifyAll();
+	}
+
+	/**
+	 * wait until data is available.
+	 *
+	 * @return <code>false</code> at the end of the stream.
+	 */
+	private boolean await() throws IOException {
+		final long timeout = System.currentTimeMillis()
+				+ ChannelEndpointImpl.TIMEOUT;
+		while (available == 0 && !eof && exception == null && !closed) {
+			final long remaining = timeout - System.currentTimeMillis();
+			if (remaining <= 0) {
+				throw new IOException("Timeout while reading from stream " //$NON-NLS-1$
+						+ streamID);
+			}
+			try {
+				wait(remaining);
+			} catch (final InterruptedException ie) {
+				throw new InterruptedIOException();
+			}
+		}
+		if (available > 0) {
+			return true;
+		}
+		if (closed) {
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+		}
+		if (exception != null) {
+			throw exception;
+		}
+		return false;
+	}
+
+	private void consume(final byte[] chunk, final int count) {
+		position += count;
+		available -= count;
+		consumed += count;
+		if (position == chunk.length) {
+			chunks.removeFirst();
+			position = 0;
+		}
+	}
+
+	/**
+	 * get the credit that has to be granted to the provider, once half of the
+	 * window has been consumed.
+	 */
+	private int credit() {
+		if (consumed < window / 2 || eof || exception != null) {
+			return 0;
+		}
+		final int credit = consumed;
+		consumed = 0;
+		return credit;
+	}
+
+	private void grant(final int credit) throws IOException {
+		final StreamRequestMessage msg = new StreamRequestMessage();
+		msg.setOp(StreamRequestMessage.READ_WINDOW);
+		msg.setStreamID(streamID);
+		msg.setLenOrVal(credit);
+		msg.setXID(xid);
+		try {
+			endpoint.send(msg);
+		} catch (final RemoteOSGiException e) {
+			throw new IOException("Invocation of operation " //$NON-NLS-1$
+					+ StreamRequestMessage.READ_WINDOW + " on stream " //$NON-NLS-1$
+					+ streamID + " failed.", e); //$NON-NLS-1$
+		}
+	}
+
+}
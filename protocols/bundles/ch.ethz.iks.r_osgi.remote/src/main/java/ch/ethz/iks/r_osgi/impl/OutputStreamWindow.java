@@ -0,0 +1,259 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import ch.ethz.iks.r_osgi.RemoteOSGiException;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
+import ch.ethz.iks.r_osgi.messages.StreamResultMessage;
+
+/**
+ * <p>
+ * The writing side of a remote output stream. Writes are collected into
+ * chunks, and full chunks are sent without waiting for the provider to
+ * acknowledge them, as long as the unacknowledged data does not exceed the
+ * window. <code>flush()</code> sends the collected data and waits until the
+ * provider has written all of it. A failed write is reported by the next
+ * operation on the stream.
+ * </p>
+ *
+ * @author Composent, Inc.
+ */
+final class OutputStreamWindow {
+
+	private final ChannelEndpointImpl endpoint;
+
+	private final short streamID;
+
+	private final int window;
+
+	private final int chunkSize;
+
+	/**
+	 * the data that has not been sent yet.
+	 */
+	private byte[] buffer;
+
+	private int count;
+
+	private boolean closed;
+
+	/**
+	 * the lock for the state that is updated by the acknowledgements, so that
+	 * they are not blocked by a writer that is sending a chunk.
+	 */
+	private final Object acks = new Object();
+
+	/**
+	 * the number of bytes that have been sent but not acknowledged.
+	 */
+	private int inFlight;
+
+	private IOException exception;
+
+	/**
+	 * create a new output stream window.
+	 *
+	 * @param endpoint
+	 *            the channel endpoint.
+	 * @param streamID
+	 *            the ID of the remote stream.
+	 * @param window
+	 *            the window in bytes.
+	 * @param chunkSize
+	 *            the maximum number of bytes sent in one message.
+	 */
+	OutputStreamWindow(final ChannelEndpointImpl endpoint,
+			final short streamID, final int window, final int chunkSize) {
+		this.endpoint = endpoint;
+		this.streamID = streamID;
+		this.window = window;
+		this.chunkSize = chunkSize;
+		this.buffer = new byte[chunkSize];
+	}
+
+	/**
+	 * write a byte.
+	 *
+	 * @param b
+	 *            the value.
+	 * @throws IOException
+	 *             if a previous write has failed.
+	 */
+	synchronized void write(final int b) throws IOException {
+		checkState();
+		buffer[count++] = (byte) b;
+		if (count == chunkSize) {
+			sendBuffer();
+		}
+	}
+
+	/**
+	 * write bytes from an array.
+	 *
+	 * @param b
+	 *            the array.
+	 * @param off
+	 *            the offset in the array.
+	 * @param len
+	 *            the number of bytes to write.
+	 * @throws IOException
+	 *             if a previous write has failed.
+	 */
+	synchronized void write(final byte[] b, final int off, final int len)
+			throws IOException {
+		checkState();
+		int pos = off;
+		int remaining = len;
+		while (remaining > 0) {
+			final int n = Math.min(remaining, chunkSize - count);
+			System.arraycopy(b, pos, buffer, count, n);
+			count += n;
+			pos += n;
+			remaining -= n;
+			if (count == chunkSize) {
+				sendBuffer();
+			}
+		}
+	}
+
+	/**
+	 * send the collected data and wait until the provider has written all
+	 * data.
+	 *
+	 * @throws IOException
+	 *             if a write has failed.
+	 */
+	synchronized void flush() throws IOException {
+		checkState();
+		if (count > 0) {
+			sendBuffer();
+		}
+		synchronized (acks) {
+			await(0);
+		}
+	}
+
+	/**
+	 * flush and close the window.
+	 *
+	 * @throws IOException
+	 *             if a write has failed.
+	 */
+	synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			closed = true;
+		}
+	}
+
+	/**
+	 * called when the channel has been closed.
+	 */
+	void disconnected() {
+		synchronized (acks) {
+			if (exception == null) {
+				exception = new IOException("Channel is closed"); //$NON-NLS-1$
+			}
+			acks.notifyAll();
+		}
+	}
+
+	private void checkState() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+		}
+		synchronized (acks) {
+			if (exception != null) {
+				throw exception;
+			}
+		}
+	}
+
+	/**
+	 * send the collected data once the window has space for it.
+	 */
+	private void sendBuffer() throws IOException {
+		final int len = count;
+		synchronized (acks) {
+			await(window - len);
+			inFlight += len;
+		}
+
+		final byte[] data;
+		if (len == chunkSize) {
+			data = buffer;
+			buffer = new byte[chunkSize];
+		} else {
+			data = new byte[len];
+			System.arraycopy(buffer, 0, data, 0, len);
+		}
+		count = 0;
+
+		final StreamRequestMessage msg = new StreamRequestMessage();
+		msg.setOp(StreamRequestMessage.WRITE_ARRAY);
+		msg.setStreamID(streamID);
+		msg.setData(data);
+		msg.setLenOrVal(len);
+		try {
+			endpoint.send(msg, new AsyncCallback() {
+				public void result(final RemoteOSGiMessage reply) {
+					synchronized (acks) {
+						inFlight -= len;
+						final StreamResultMessage result = (StreamResultMessage) reply;
+						if (result.causedException() && exception == null) {
+							exception = result.getException();
+						}
+						acks.notifyAll();
+					}
+				}
+			});
+		} catch (final RemoteOSGiException e) {
+			throw new IOException("Invocation of operation " //$NON-NLS-1$
+					+ StreamRequestMessage.WRITE_ARRAY + " on stream " //$NON-NLS-1$
+					+ streamID + " failed.", e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * wait until no more than the given number of bytes are unacknowledged.
+	 * The caller holds the lock of <code>acks</code>.
+	 */
+	private void await(final int maxInFlight) throws IOException {
+		final long timeout = System.currentTimeMillis()
+				+ ChannelEndpointImpl.TIMEOUT;
+		while (inFlight > 0 && inFlight > maxInFlight && exception == null) {
+			final long remaining = timeout - System.currentTimeMillis();
+			if (remaining <= 0) {
+				throw new IOException("Timeout while writing to stream " //$NON-NLS-1$
+						+ streamID);
+			}
+			try {
+				acks.wait(remaining);
+			} catch (final InterruptedException ie) {
+				throw new InterruptedIOException();
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+}
@@ -0,0 +1,544 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.osgi.service.log.LogService;
+
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.messages.DeliverServiceMessage;
+
+/**
+ * <p>
+ * A persistent cache of generated proxy bundles and of the dependency bundles
+ * delivered by remote peers. The entries are content addressed: a proxy
+ * bundle is stored under a hash of the service URI, which the generated
+ * classes refer to, of the interface and injected class bytes, of the smart
+ * proxy and of the package declarations, so a service that is fetched again
+ * with the same description does not have to be generated again, also after
+ * a restart. The dependency bundles are stored under the hash of their bytes,
+ * and each proxy bundle entry remembers the dependencies that had to be
+ * fetched for it, together with the identities the peer has given for them.
+ * The dependencies are only used again while the peer gives the same
+ * identities, that is, as long as it has not installed or updated the bundles
+ * again.
+ * </p>
+ * <p>
+ * Every entry, including the list of dependencies of a proxy bundle, ends with
+ * the hash of its content, an entry that does not match its hash is removed.
+ * Entries are written to temporary files of their own first, so processes and
+ * threads that share the cache never see a partial entry. The least recently
+ * used entries are removed once there are more than a maximum number of them,
+ * except for dependency bundles that a cached proxy bundle still refers to.
+ * </p>
+ *
+ * @author Composent, Inc.
+ */
+final class ProxyBundleCache {
+
+	/**
+	 * the manifest header of a generated proxy bundle that holds its key.
+	 */
+	static final String KEY_HEADER = "R-OSGi-Proxy-Key"; //$NON-NLS-1$
+
+	private static final String BUNDLE_SUFFIX = ".jar"; //$NON-NLS-1$
+
+	private static final String DEPENDENCIES_SUFFIX = ".deps"; //$NON-NLS-1$
+
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	/**
+	 * the length of the hash at the end of an entry.
+	 */
+	private static final int HASH_LENGTH = 32;
+
+	/**
+	 * the age in ms after which a temporary file is left from a process that
+	 * has not completed writing it.
+	 */
+	private static final long STALE_TEMP_AGE = 60 * 60 * 1000;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	private final File proxyDir;
+
+	private final File dependencyDir;
+
+	/**
+	 * the version of the proxy generator, different versions do not share
+	 * entries.
+	 */
+	private final String generatorVersion;
+
+	private final int maxEntries;
+
+	/**
+	 * create a new cache.
+	 *
+	 * @param dir
+	 *            the directory of the cache.
+	 * @param generatorVersion
+	 *            the version of the proxy generator.
+	 * @param maxEntries
+	 *            the maximum number of proxy bundles and of dependency
+	 *            bundles that are kept.
+	 */
+	ProxyBundleCache(final File dir, final String generatorVersion,
+			final int maxEntries) {
+		proxyDir = new File(dir, "proxies"); //$NON-NLS-1$
+		dependencyDir = new File(dir, "dependencies"); //$NON-NLS-1$
+		proxyDir.mkdirs();
+		dependencyDir.mkdirs();
+		removeStaleTempFiles(proxyDir);
+		removeStaleTempFiles(dependencyDir);
+		this.generatorVersion = generatorVersion;
+		this.maxEntries = Math.max(1, maxEntries);
+	}
+
+	/**
+	 * get the key of the proxy bundle for a service.
+	 *
+	 * @param service
+	 *            the service URI.
+	 * @param deliv
+	 *            the description of the service.
+	 * @return the key.
+	 */
+	String getKey(final URI service, final DeliverServiceMessage deliv) {
+		final MessageDigest digest = newDigest();
+		update(digest, generatorVersion);
+		update(digest, service.toString());
+		final String[] interfaceNames = deliv.getInterfaceNames();
+		for (int i = 0; i < interfaceNames.length; i++) {
+			update(digest, interfaceNames[i]);
+		}
+		update(digest, deliv.getSmartProxyName());
+		update(digest, deliv.getImports());
+		update(digest, deliv.getOptionalImports());
+		update(digest, deliv.getExports());
+		final Map injections = deliv.getInjections();
+		final String[] names = (String[]) injections.keySet().toArray(
+				new String[injections.size()]);
+		Arrays.sort(names);
+		for (int i = 0; i < names.length; i++) {
+			update(digest, names[i]);
+			final byte[] bytes = (byte[]) injections.get(names[i]);
+			update(digest, String.valueOf(bytes.length));
+			digest.update(bytes);
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * get the hash of a dependency bundle.
+	 *
+	 * @param bytes
+	 *            the bundle.
+	 * @return the hash.
+	 */
+	static String getHash(final byte[] bytes) {
+		return toHex(newDigest().digest(bytes));
+	}
+
+	/**
+	 * get a proxy bundle.
+	 *
+	 * @param key
+	 *            the key.
+	 * @return the bundle, or <code>null</code> if there is no entry.
+	 */
+	byte[] getProxyBundle(final String key) {
+		return read(new File(proxyDir, key + BUNDLE_SUFFIX), true);
+	}
+
+	/**
+	 * get the hashes of the dependency bundles that have been fetched for a
+	 * proxy bundle, if the peer still delivers the same bundles.
+	 *
+	 * @param key
+	 *            the key of the proxy bundle.
+	 * @param identities
+	 *            the identities of the dependency bundles that the peer
+	 *            delivers now.
+	 * @return the hashes, or <code>null</code> if none are known or the
+	 *         identities have changed.
+	 */
+	String[] getDependencies(final String key, final String[] identities) {
+		final String[][] lines = readDependencies(new File(proxyDir, key
+				+ DEPENDENCIES_SUFFIX), true);
+		if (lines == null || lines[0].length != identities.length) {
+			return null;
+		}
+		if (!Arrays.equals(lines[1], identities)) {
+			return null;
+		}
+		return lines[0];
+	}
+
+	/**
+	 * read the list of dependencies of a proxy bundle. Each line holds the
+	 * hash and the identity of a bundle.
+	 *
+	 * @return the hashes and the identities, or <code>null</code> if there is
+	 *         no valid entry.
+	 */
+	private String[][] readDependencies(final File file, final boolean touch) {
+		final byte[] bytes = read(file, touch);
+		if (bytes == null) {
+			return null;
+		}
+		final List hashes = new ArrayList();
+		final List identities = new ArrayList();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(
+					new ByteArrayInputStream(bytes), ENCODING));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final int pos = line.indexOf(' ');
+				if (pos < 0) {
+					return null;
+				}
+				hashes.add(line.substring(0, pos));
+				identities.add(line.substring(pos + 1));
+			}
+		} catch (final IOException ioe) {
+			return null;
+		} finally {
+			close(reader);
+		}
+		return new String[][] {
+				(String[]) hashes.toArray(new String[hashes.size()]),
+				(String[]) identities.toArray(new String[identities.size()]) };
+	}
+
+	/**
+	 * store a proxy bundle.
+	 *
+	 * @param key
+	 *            the key.
+	 * @param bundle
+	 *            the bundle.
+	 */
+	void putProxyBundle(final String key, final byte[] bundle) {
+		if (write(new File(proxyDir, key + BUNDLE_SUFFIX), bundle, false)) {
+			prune(proxyDir, null);
+		}
+	}
+
+	/**
+	 * remember the dependency bundles that have been fetched for a proxy
+	 * bundle.
+	 *
+	 * @param key
+	 *            the key of the proxy bundle.
+	 * @param identities
+	 *            the identities of the dependency bundles.
+	 * @param hashes
+	 *            the hashes of the dependency bundles.
+	 */
+	void putDependencies(final String key, final String[] identities,
+			final String[] hashes) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			final PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+					bytes, ENCODING));
+			for (int i = 0; i < hashes.length; i++) {
+				writer.print(hashes[i] + ' ' + identities[i] + '\n');
+			}
+			writer.close();
+		} catch (final IOException ioe) {
+			log(ioe);
+			return;
+		}
+		write(new File(proxyDir, key + DEPENDENCIES_SUFFIX), bytes
+				.toByteArray(), true);
+	}
+
+	/**
+	 * get a dependency bundle.
+	 *
+	 * @param hash
+	 *            the hash of the bundle.
+	 * @return the bundle, or <code>null</code> if there is no entry.
+	 */
+	byte[] getDependency(final String hash) {
+		return read(new File(dependencyDir, hash + BUNDLE_SUFFIX), true);
+	}
+
+	/**
+	 * store a dependency bundle.
+	 *
+	 * @param hash
+	 *            the hash of the bundle.
+	 * @param bundle
+	 *            the bundle.
+	 */
+	void putDependency(final String hash, final byte[] bundle) {
+		if (write(new File(dependencyDir, hash + BUNDLE_SUFFIX), bundle, false)) {
+			final Set keep = getReferencedDependencies();
+			keep.add(hash + BUNDLE_SUFFIX);
+			prune(dependencyDir, keep);
+		}
+	}
+
+	/**
+	 * get the file names of the dependency bundles that the cached proxy
+	 * bundles refer to.
+	 */
+	private Set getReferencedDependencies() {
+		final Set referenced = new HashSet();
+		final File[] files = proxyDir.listFiles();
+		if (files == null) {
+			return referenced;
+		}
+		for (int i = 0; i < files.length; i++) {
+			if (files[i].getName().endsWith(DEPENDENCIES_SUFFIX)) {
+				final String[][] lines = readDependencies(files[i], false);
+				for (int j = 0; lines != null && j < lines[0].length; j++) {
+					referenced.add(lines[0][j] + BUNDLE_SUFFIX);
+				}
+			}
+		}
+		return referenced;
+	}
+
+	/**
+	 * read an entry and, if requested, mark it as recently used. An entry
+	 * that does not match its hash is removed.
+	 */
+	private byte[] read(final File file, final boolean touch) {
+		if (!file.exists()) {
+			return null;
+		}
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			final byte[] bytes = new byte[(int) file.length()];
+			int pos = 0;
+			int read;
+			while (pos < bytes.length
+					&& (read = in.read(bytes, pos, bytes.length - pos)) > 0) {
+				pos += read;
+			}
+			close(in);
+			in = null;
+			final int len = bytes.length - HASH_LENGTH;
+			if (pos < bytes.length || len < 0) {
+				file.delete();
+				return null;
+			}
+			final MessageDigest digest = newDigest();
+			digest.update(bytes, 0, len);
+			final byte[] hash = new byte[HASH_LENGTH];
+			System.arraycopy(bytes, len, hash, 0, HASH_LENGTH);
+			if (!MessageDigest.isEqual(digest.digest(), hash)) {
+				file.delete();
+				return null;
+			}
+			if (touch) {
+				file.setLastModified(System.currentTimeMillis());
+			}
+			final byte[] content = new byte[len];
+			System.arraycopy(bytes, 0, content, 0, len);
+			return content;
+		} catch (final IOException ioe) {
+			log(ioe);
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * write an entry, followed by its hash, unless it exists and is not to be
+	 * replaced. The entry is written to a temporary file of its own first, so
+	 * that concurrent writers and readers never see a partial entry.
+	 *
+	 * @return <code>true</code> if a new entry has been written.
+	 */
+	private boolean write(final File file, final byte[] bytes,
+			final boolean replace) {
+		if (!replace && file.exists()) {
+			file.setLastModified(System.currentTimeMillis());
+			return false;
+		}
+		File tmp = null;
+		OutputStream out = null;
+		try {
+			tmp = File.createTempFile(file.getName(), TEMP_SUFFIX, file
+					.getParentFile());
+			out = new FileOutputStream(tmp);
+			out.write(bytes);
+			out.write(newDigest().digest(bytes));
+			out.close();
+			out = null;
+			if (replace) {
+				file.delete();
+			}
+			if (tmp.renameTo(file)) {
+				return true;
+			}
+		} catch (final IOException ioe) {
+			log(ioe);
+		} finally {
+			close(out);
+		}
+		if (tmp != null) {
+			tmp.delete();
+		}
+		return false;
+	}
+
+	/**
+	 * remove the temporary files of a directory that have been left by
+	 * writers that did not complete.
+	 */
+	private static void removeStaleTempFiles(final File dir) {
+		final File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		final long stale = System.currentTimeMillis() - STALE_TEMP_AGE;
+		for (int i = 0; i < files.length; i++) {
+			if (files[i].getName().endsWith(TEMP_SUFFIX)
+					&& files[i].lastModified() < stale) {
+				files[i].delete();
+			}
+		}
+	}
+
+	/**
+	 * remove the least recently used bundles of a directory if there are too
+	 * many.
+	 *
+	 * @param keep
+	 *            the names of the bundles that must not be removed, or
+	 *            <code>null</code>.
+	 */
+	private void prune(final File dir, final Set keep) {
+		final File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		final List bundles = new ArrayList();
+		int count = 0;
+		for (int i = 0; i < files.length; i++) {
+			final String name = files[i].getName();
+			if (name.endsWith(BUNDLE_SUFFIX)) {
+				count++;
+				if (keep == null || !keep.contains(name)) {
+					bundles.add(files[i]);
+				}
+			}
+		}
+		if (count <= maxEntries || bundles.isEmpty()) {
+			return;
+		}
+		final File[] sorted = (File[]) bundles.toArray(new File[bundles
+				.size()]);
+		final long[] lastModified = new long[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			lastModified[i] = sorted[i].lastModified();
+		}
+		// a selection of the oldest entries is enough, there are only a few
+		for (int n = Math.min(count - maxEntries, sorted.length); n > 0; n--) {
+			int oldest = -1;
+			for (int i = 0; i < sorted.length; i++) {
+				if (sorted[i] != null
+						&& (oldest == -1 || lastModified[i] < lastModified[oldest])) {
+					oldest = i;
+				}
+			}
+			final String name = sorted[oldest].getName();
+			sorted[oldest].delete();
+			new File(dir, name.substring(0, name.length()
+					- BUNDLE_SUFFIX.length())
+					+ DEPENDENCIES_SUFFIX).delete();
+			sorted[oldest] = null;
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (final NoSuchAlgorithmException nsae) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(nsae.getMessage());
+		}
+	}
+
+	private static void update(final MessageDigest digest, final String s) {
+		if (s != null) {
+			final int len = s.length();
+			for (int i = 0; i < len; i++) {
+				final char c = s.charAt(i);
+				digest.update((byte) (c >> 8));
+				digest.update((byte) c);
+			}
+		}
+		// separates the fields
+		digest.update((byte) 0xFF);
+		digest.update((byte) 0xFF);
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0F];
+			chars[2 * i + 1] = HEX[bytes[i] & 0x0F];
+		}
+		return new String(chars);
+	}
+
+	private static void close(final Closeable stream) {
+		if (stream != null) {
+			try {
+				stream.close();
+			} catch (final IOException ioe) {
+				// ignore
+			}
+		}
+	}
+
+	private static void log(final IOException ioe) {
+		if (RemoteOSGiServiceImpl.log != null) {
+			RemoteOSGiServiceImpl.log.log(LogService.LOG_WARNING,
+					"Could not access the proxy bundle cache", ioe); //$NON-NLS-1$
+		}
+	}
+
+}
@@ -28,10 +28,8 @@
  */
 package ch.ethz.iks.r_osgi.impl;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -192,12 +190,16 @@ class ProxyGenerator extends ClassVisitor implements Opcodes {
 	 *            ServiceURL
 	 * @param deliv
 	 *            DeliverServiceMessage
-	 * @return bundle location
+	 * @param key
+	 *            the key of the bundle in the proxy bundle cache, or
+	 *            <code>null</code>.
+	 * @return the proxy bundle
 	 * @throws IOException
 	 *             in case of proxy generation error
 	 */
-	protected InputStream generateProxyBundle(final URI service,
-			final DeliverServiceMessage deliv) throws IOException {
+	protected byte[] generateProxyBundle(final URI service,
+			final DeliverServiceMessage deliv, final String key)
+			throws IOException {
 
 		uri = service.toString();
 		sourceID = generateSourceID(uri);
@@ -232,6 +234,9 @@ class ProxyGenerator extends ClassVisitor implements Opcodes {
 		if (!"".equals(deliv.getExports())) { //$NON-NLS-1$
 			attr.putValue("Export-Package", deliv.getExports()); //$NON-NLS-1$
 		}
+		if (key != null) {
+			attr.putValue(ProxyBundleCache.KEY_HEADER, key);
+		}
 		final ByteArrayOutputStream bout = new ByteArrayOutputStream();
 		final JarOutputStream out = new JarOutputStream(bout, mf);
 
@@ -301,7 +306,7 @@ class ProxyGenerator extends ClassVisitor implements Opcodes {
 			// "Created Proxy Bundle " + file);
 		}
 
-		return new ByteArrayInputStream(bout.toByteArray());
+		return bout.toByteArray();
 	}
 
 	/**
@@ -57,6 +57,8 @@ import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.framework.Filter;
+import org.osgi.framework.FrameworkEvent;
+import org.osgi.framework.FrameworkListener;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.event.EventAdmin;
@@ -84,6 +86,7 @@ import ch.ethz.iks.r_osgi.messages.LeaseUpdateMessage;
 import ch.ethz.iks.r_osgi.service_discovery.ServiceDiscoveryHandler;
 import ch.ethz.iks.util.CollectionUtils;
 import ch.ethz.iks.util.StringUtils;
+import ch.ethz.iks.util.WorkerPool;
 
 /**
  * <p>
@@ -150,11 +153,53 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 	static final String REGISTER_DEFAULT_TCP_CHANNEL = "ch.ethz.iks.r_osgi.registerDefaultChannel"; //$NON-NLS-1$
 
 	/**
-	 * register the default tcp channel? If not set to "false", the channel gets
-	 * registered.
+	 * the maximum number of worker threads that process the requests of one
+	 * endpoint at the same time.
 	 */
 	static final String THREADS_PER_ENDPOINT = "ch.ethz.iks.r_osgi.threadsPerEndpoint"; //$NON-NLS-1$
 
+	/**
+	 * the maximum number of worker threads shared by all endpoints. Unlimited
+	 * if not set or not positive, since a request handler can block on a
+	 * nested remote call whose reply needs a worker of its own.
+	 */
+	static final String WORKER_THREADS = "ch.ethz.iks.r_osgi.workerThreads"; //$NON-NLS-1$
+
+	/**
+	 * the maximum number of requests of one endpoint that wait for a worker
+	 * thread.
+	 */
+	static final String WORK_QUEUE_SIZE = "ch.ethz.iks.r_osgi.workQueueSize"; //$NON-NLS-1$
+
+	/**
+	 * the time in milliseconds that a request waits for space in the full
+	 * queue of its endpoint before it is rejected. The thread that reads from
+	 * the endpoint's channel waits with it and does not see the replies to
+	 * pending remote calls in the meantime, so the default is 1000.
+	 */
+	static final String WORK_QUEUE_TIMEOUT = "ch.ethz.iks.r_osgi.workQueueTimeout"; //$NON-NLS-1$
+
+	/**
+	 * the number of bytes that the provider of a remote input stream may push
+	 * ahead of the reader, and that may be written to a remote output stream
+	 * before the provider has acknowledged them. If set to 0, every stream
+	 * operation is a separate round trip.
+	 */
+	static final String STREAM_WINDOW_PROPERTY = "ch.ethz.iks.r_osgi.streamWindow"; //$NON-NLS-1$
+
+	/**
+	 * keep the generated proxy bundles and the dependency bundles delivered by
+	 * remote peers in a cache in the data area of this bundle? If not set to
+	 * "false", the cache is used.
+	 */
+	static final String PROXY_CACHE_PROPERTY = "ch.ethz.iks.r_osgi.proxyCache"; //$NON-NLS-1$
+
+	/**
+	 * the maximum number of proxy bundles, and of dependency bundles, in the
+	 * cache.
+	 */
+	static final String PROXY_CACHE_SIZE_PROPERTY = "ch.ethz.iks.r_osgi.proxyCacheSize"; //$NON-NLS-1$
+
 	/**
 	 * constant that holds the property string for proxy debug option.
 	 */
@@ -198,6 +243,28 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 	static final int MAX_THREADS_PER_ENDPOINT = Integer.getInteger(
 			THREADS_PER_ENDPOINT, 2).intValue();
 
+	/**
+	 * the window of remote streams, in bytes.
+	 */
+	static final int STREAM_WINDOW = Integer.getInteger(
+			STREAM_WINDOW_PROPERTY, 1024 * 1024).intValue();
+
+	/**
+	 * the maximum size of the messages that carry the data of remote streams
+	 * with a window.
+	 */
+	static final int STREAM_CHUNK_SIZE = 65536;
+
+	/**
+	 * the worker threads shared by all endpoints.
+	 */
+	static WorkerPool workerPool;
+
+	/**
+	 * the cache of proxy bundles, or <code>null</code> if it is disabled.
+	 */
+	static ProxyBundleCache proxyBundleCache;
+
 	/**
 	 * log proxy generation debug output.
 	 */
@@ -301,6 +368,20 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 		// https://bugs.eclipse.org/418740
 		topicFilters.add("org/osgi/service/remoteserviceadmin/*");
 		
+		workerPool = new WorkerPool(Integer.getInteger(WORKER_THREADS, 0)
+				.intValue(), MAX_THREADS_PER_ENDPOINT, Integer.getInteger(
+				WORK_QUEUE_SIZE, 1024).intValue(), Integer.getInteger(
+				WORK_QUEUE_TIMEOUT, 1000).intValue()) {
+			protected void handleError(final Throwable t) {
+				if (log != null) {
+					log.log(LogService.LOG_ERROR,
+							"Error processing a request", t); //$NON-NLS-1$
+				} else {
+					t.printStackTrace();
+				}
+			}
+		};
+
 		// find out own IP address
 		try {
 			MY_ADDRESS = InetAddress.getAllByName(InetAddress.getLocalHost()
@@ -341,6 +422,15 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 			}
 		}
 
+		// set up the proxy bundle cache, entries of other versions of the
+		// proxy generator are not used
+		prop = context.getProperty(PROXY_CACHE_PROPERTY);
+		final File cacheDir = context.getDataFile("proxycache"); //$NON-NLS-1$
+		proxyBundleCache = cacheDir == null || "false".equals(prop) ? null //$NON-NLS-1$
+				: new ProxyBundleCache(cacheDir, context.getBundle()
+						.getVersion().toString(), Integer.getInteger(
+						PROXY_CACHE_SIZE_PROPERTY, 1024).intValue());
+
 		// set port
 		prop = context.getProperty(R_OSGi_PORT_PROPERTY);
 		R_OSGI_PORT = prop != null ? Integer.parseInt(prop) : 9278;
@@ -976,6 +1066,10 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 		for (int i = 0; i < c.length; i++) {
 			c[i].dispose();
 		}
+		if (DEBUG) {
+			log.log(LogService.LOG_DEBUG, "STOPPING " + workerPool); //$NON-NLS-1$
+		}
+		workerPool.shutdown();
 		final Object[] factories = networkChannelFactoryTracker.getServices();
 		if (factories != null) {
 			for (int i = 0; i < factories.length; i++) {
@@ -1211,6 +1305,76 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 		}
 	}
 
+	/**
+	 * get the identities of the bundles that export a set of packages. The
+	 * identity of a bundle changes when it is installed or updated again.
+	 * 
+	 * @param packages
+	 *            the packages.
+	 * @return the identities, in the order of the bundles returned by
+	 *         {@link #getBundlesForPackages(String[])}.
+	 */
+	static String[] getDependencyIdentities(final String[] packages) {
+		final HashSet visitedBundles = new HashSet(packages.length);
+		final ArrayList identities = new ArrayList(packages.length);
+		for (int i = 0; i < packages.length; i++) {
+			final Bundle bundle = pkgAdmin.getExportedPackage(packages[i])
+					.getExportingBundle();
+			if (visitedBundles.contains(bundle)) {
+				continue;
+			}
+			visitedBundles.add(bundle);
+			identities.add(bundle.getSymbolicName() + ';'
+					+ bundle.getBundleId() + ';' + bundle.getLastModified());
+		}
+		return (String[]) identities.toArray(new String[identities.size()]);
+	}
+
+	/**
+	 * refresh the packages of bundles that have been uninstalled, so that the
+	 * bundles which used them are wired to the bundles that replace them.
+	 * Waits until the refresh has completed, or for at most the timeout of
+	 * remote calls.
+	 * 
+	 * @param bundles
+	 *            the uninstalled bundles.
+	 */
+	static void refreshPackages(final Bundle[] bundles) {
+		if (pkgAdmin == null) {
+			return;
+		}
+		final BundleContext context = RemoteOSGiActivator.getActivator()
+				.getContext();
+		final boolean[] refreshed = new boolean[1];
+		final FrameworkListener listener = new FrameworkListener() {
+			public void frameworkEvent(final FrameworkEvent event) {
+				if (event.getType() == FrameworkEvent.PACKAGES_REFRESHED) {
+					synchronized (refreshed) {
+						refreshed[0] = true;
+						refreshed.notifyAll();
+					}
+				}
+			}
+		};
+		context.addFrameworkListener(listener);
+		try {
+			pkgAdmin.refreshPackages(bundles);
+			synchronized (refreshed) {
+				final long end = System.currentTimeMillis()
+						+ ChannelEndpointImpl.TIMEOUT;
+				long remaining = ChannelEndpointImpl.TIMEOUT;
+				while (!refreshed[0] && remaining > 0) {
+					refreshed.wait(remaining);
+					remaining = end - System.currentTimeMillis();
+				}
+			}
+		} catch (final InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		} finally {
+			context.removeFrameworkListener(listener);
+		}
+	}
+
 	static byte[][] getBundlesForPackages(final String[] packages)
 			throws IOException {
 		final HashSet visitedBundles = new HashSet(packages.length);
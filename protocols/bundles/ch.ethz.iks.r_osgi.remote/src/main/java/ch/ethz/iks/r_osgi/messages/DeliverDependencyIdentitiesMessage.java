@@ -0,0 +1,100 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.messages;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+/**
+ * Deliver the identities of dependency bundles, in the order in which a
+ * <code>DeliverBundlesMessage</code> delivers the bundles. An identity changes
+ * whenever the bundle is installed or updated again, so a peer can tell
+ * whether dependency bundles it has received before are still current.
+ * 
+ * @author Composent, Inc.
+ * @since 1.1
+ */
+public class DeliverDependencyIdentitiesMessage extends RemoteOSGiMessage {
+
+	/**
+	 * the identities.
+	 */
+	private String[] identities;
+
+	/**
+	 * create a new message.
+	 */
+	public DeliverDependencyIdentitiesMessage() {
+		super(RemoteOSGiMessage.DELIVER_DEPENDENCY_IDENTITIES);
+	}
+
+	/**
+	 * create a new message from the wire.
+	 * 
+	 * @param input
+	 *            the input stream.
+	 * @throws IOException
+	 *             in case of IO problems.
+	 */
+	public DeliverDependencyIdentitiesMessage(final ObjectInputStream input)
+			throws IOException {
+		super(RemoteOSGiMessage.DELIVER_DEPENDENCY_IDENTITIES);
+		identities = readStringArray(input);
+	}
+
+	/**
+	 * write the body of the message to the wire.
+	 */
+	protected void writeBody(final ObjectOutputStream output)
+			throws IOException {
+		writeStringArray(output, identities);
+	}
+
+	/**
+	 * get the identities of the dependency bundles.
+	 * 
+	 * @return the identities.
+	 */
+	public String[] getIdentities() {
+		return identities;
+	}
+
+	/**
+	 * set the identities of the dependency bundles.
+	 * 
+	 * @param identities
+	 *            the identities.
+	 */
+	public void setIdentities(final String[] identities) {
+		this.identities = identities;
+	}
+
+	/**
+	 * String representation for debug outputs.
+	 * 
+	 * @return a string representation.
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		final StringBuffer buffer = new StringBuffer();
+		buffer.append("[DELIVER_DEPENDENCY_IDENTITIES]"); //$NON-NLS-1$
+		buffer.append("- XID: "); //$NON-NLS-1$
+		buffer.append(xid);
+		buffer.append(", identities: "); //$NON-NLS-1$
+		buffer.append(Arrays.asList(identities));
+		return buffer.toString();
+	}
+
+}
@@ -117,7 +117,29 @@ public abstract class RemoteOSGiMessage {
 	 */
 	public static final short DELIVER_BUNDLES = 14;
 
-	
+	/**
+	 * type code for request dependency identities message.
+	 * 
+	 * @since 1.1
+	 */
+	public static final short REQUEST_DEPENDENCY_IDENTITIES = 15;
+
+	/**
+	 * type code for deliver dependency identities message.
+	 * 
+	 * @since 1.1
+	 */
+	public static final short DELIVER_DEPENDENCY_IDENTITIES = 16;
+
+	/**
+	 * the version of the protocol that is written into the header of every
+	 * message. Peers of version 2 or later support windowed streams, peers of
+	 * version 3 or later deliver the identities of dependency bundles.
+	 * 
+	 * @since 1.1
+	 */
+	public static final byte VERSION = 3;
+
 	/**
 	 * the type code or functionID in SLP notation.
 	 */
@@ -128,6 +150,11 @@ public abstract class RemoteOSGiMessage {
 	 */
 	protected int xid;
 
+	/**
+	 * the protocol version of the peer that has sent the message.
+	 */
+	private byte version = VERSION;
+
 	/**
 	 * hides the default constructor.
 	 */
@@ -165,6 +192,17 @@ public abstract class RemoteOSGiMessage {
 		return funcID;
 	}
 
+	/**
+	 * get the protocol version of the peer that has sent the message. Peers
+	 * older than version 2 always send version 1.
+	 * 
+	 * @return the version.
+	 * @since 1.1
+	 */
+	public final byte getVersion() {
+		return version;
+	}
+
 	/**
 	 * reads in a network packet and constructs the corresponding subtype of
 	 * RemoteOSGiMessage from it. The header is:
@@ -191,7 +229,7 @@ public abstract class RemoteOSGiMessage {
 	 */
 	public static RemoteOSGiMessage parse(final ObjectInputStream input)
 			throws IOException, ClassNotFoundException {
-		input.readByte(); // version, currently unused
+		final byte version = input.readByte();
 		final short funcID = input.readByte();
 		final int xid = input.readInt();
 		RemoteOSGiMessage msg;
@@ -235,12 +273,19 @@ public abstract class RemoteOSGiMessage {
 		case DELIVER_BUNDLES:
 			msg = new DeliverBundlesMessage(input);
 			break;
+		case REQUEST_DEPENDENCY_IDENTITIES:
+			msg = new RequestDependencyIdentitiesMessage(input);
+			break;
+		case DELIVER_DEPENDENCY_IDENTITIES:
+			msg = new DeliverDependencyIdentitiesMessage(input);
+			break;
 		default:
 			throw new RemoteOSGiException("funcID " + funcID //$NON-NLS-1$
 					+ " not supported."); //$NON-NLS-1$ 
 		}
 		msg.funcID = funcID;
 		msg.xid = xid;
+		msg.version = version;
 		return msg;
 	}
 
@@ -254,7 +299,7 @@ public abstract class RemoteOSGiMessage {
 	 */
 	public final void send(final ObjectOutputStream out) throws IOException {
 		synchronized (out) {
-			out.write(1);
+			out.write(VERSION);
 			out.write(funcID);
 			out.writeInt(xid);
 			writeBody(out);
@@ -0,0 +1,99 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.messages;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+/**
+ * Request the identities of the bundles that a
+ * <code>RequestDependenciesMessage</code> for the same packages would
+ * deliver. Only sent to peers of protocol version 3 or later.
+ * 
+ * @author Composent, Inc.
+ * @since 1.1
+ */
+public class RequestDependencyIdentitiesMessage extends RemoteOSGiMessage {
+
+	/**
+	 * the packages.
+	 */
+	private String[] packages;
+
+	/**
+	 * create a new message.
+	 */
+	public RequestDependencyIdentitiesMessage() {
+		super(RemoteOSGiMessage.REQUEST_DEPENDENCY_IDENTITIES);
+	}
+
+	/**
+	 * create a new message from the wire.
+	 * 
+	 * @param input
+	 *            the input stream.
+	 * @throws IOException
+	 *             in case of IO problems.
+	 */
+	public RequestDependencyIdentitiesMessage(final ObjectInputStream input)
+			throws IOException {
+		super(RemoteOSGiMessage.REQUEST_DEPENDENCY_IDENTITIES);
+		packages = readStringArray(input);
+	}
+
+	/**
+	 * write the body of the message to the wire.
+	 */
+	protected void writeBody(final ObjectOutputStream output)
+			throws IOException {
+		writeStringArray(output, packages);
+	}
+
+	/**
+	 * get the packages whose dependencies are requested.
+	 * 
+	 * @return the packages.
+	 */
+	public String[] getPackages() {
+		return packages;
+	}
+
+	/**
+	 * set the packages whose dependencies are requested.
+	 * 
+	 * @param packages
+	 *            the packages.
+	 */
+	public void setPackages(final String[] packages) {
+		this.packages = packages;
+	}
+
+	/**
+	 * String representation for debug outputs.
+	 * 
+	 * @return a string representation.
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		final StringBuffer buffer = new StringBuffer();
+		buffer.append("[REQUEST_DEPENDENCY_IDENTITIES]"); //$NON-NLS-1$
+		buffer.append("- XID: "); //$NON-NLS-1$
+		buffer.append(xid);
+		buffer.append(", packages: "); //$NON-NLS-1$
+		buffer.append(Arrays.asList(packages));
+		return buffer.toString();
+	}
+
+}
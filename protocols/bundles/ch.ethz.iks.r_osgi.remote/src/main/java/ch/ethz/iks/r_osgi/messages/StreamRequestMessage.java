@@ -62,6 +62,25 @@ public final class StreamRequestMessage extends RemoteOSGiMessage {
 	 */
 	public static final byte WRITE_ARRAY = 3;
 
+	/**
+	 * operation identifier for granting the provider of an input stream the
+	 * credit to push the given number of bytes ahead. The provider sends the
+	 * data as <code>StreamResultMessage</code>s with the XID of the request,
+	 * so all requests for the same stream should use the same XID. Only
+	 * supported by peers of protocol version 2 or later.
+	 * 
+	 * @since 1.1
+	 */
+	public static final byte READ_WINDOW = 4;
+
+	/**
+	 * operation identifier for closing the stream. The request is not
+	 * answered. Only supported by peers of protocol version 2 or later.
+	 * 
+	 * @since 1.1
+	 */
+	public static final byte CLOSE = 5;
+
 	/**
 	 * stream ID of the target stream.
 	 */
@@ -73,7 +92,7 @@ public final class StreamRequestMessage extends RemoteOSGiMessage {
 	private byte op;
 
 	/**
-	 * length argument (read) or value (write).
+	 * length argument (read), value (write), or credit (read window).
 	 */
 	private int lenOrVal;
 
@@ -123,6 +142,8 @@ public final class StreamRequestMessage extends RemoteOSGiMessage {
 			break;
 		case READ_ARRAY:
 		case WRITE:
+		case READ_WINDOW:
+		case CLOSE:
 			lenOrVal = input.readInt();
 			b = null;
 			break;
@@ -83,4 +83,22 @@ public class InputStreamProxy extends InputStream {
 		return endpoint.readStream(streamID, b, off, len);
 	}
 
+	/**
+	 * Get the number of bytes that can be read without blocking.
+	 * 
+	 * @see java.io.InputStream#available()
+	 */
+	public int available() throws IOException {
+		return endpoint.availableStream(streamID);
+	}
+
+	/**
+	 * Close the stream.
+	 * 
+	 * @see java.io.InputStream#close()
+	 */
+	public void close() throws IOException {
+		endpoint.closeStream(streamID);
+	}
+
 }
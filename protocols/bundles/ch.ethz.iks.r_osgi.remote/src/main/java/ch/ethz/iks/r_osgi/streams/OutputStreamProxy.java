@@ -91,4 +91,25 @@ public class OutputStreamProxy extends OutputStream {
 		endpoint.writeStream(streamID, b, off, len);
 	}
 
+	/**
+	 * flush the stream. Returns when all data has been written to the remote
+	 * stream.
+	 * 
+	 * @throws IOException
+	 *             in case of IO failures.
+	 */
+	public void flush() throws IOException {
+		endpoint.flushStream(streamID);
+	}
+
+	/**
+	 * flush and close the stream.
+	 * 
+	 * @throws IOException
+	 *             in case of IO failures.
+	 */
+	public void close() throws IOException {
+		endpoint.closeStream(streamID);
+	}
+
 }
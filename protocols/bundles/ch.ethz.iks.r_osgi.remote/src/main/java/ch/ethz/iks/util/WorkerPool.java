@@ -0,0 +1,414 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.util;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * <p>
+ * A pool of worker threads that process the tasks of many sources, such as the
+ * incoming requests of all channel endpoints. Each source has its own bounded
+ * queue of tasks. The queues that have tasks are served in round-robin order,
+ * and no source occupies more than a fixed number of workers at a time, so
+ * that a busy source cannot starve the others.
+ * </p>
+ * <p>
+ * Threads are started when there is work and no idle worker, up to an
+ * optional maximum, and terminate after they have been idle for a while.
+ * Without a maximum, the number of threads is bounded by the number of
+ * queues times the number of workers per queue. If a queue is full, the
+ * submitting thread is blocked until there is space again or a timeout
+ * expires. The task is rejected in the latter case.
+ * </p>
+ * <p>
+ * When the submitting thread is the one that reads from a network channel, it
+ * reads nothing else while it is blocked. Replies that arrive on the channel
+ * in the meantime, including the replies to remote calls made by the tasks of
+ * the full queue, are only seen after the timeout. The timeout should
+ * therefore be short; a rejected request can be answered right away, whereas
+ * a reply that is held back stalls the call waiting for it.
+ * </p>
+ *
+ * @author Composent, Inc.
+ * @since 1.1
+ */
+public class WorkerPool {
+
+	/**
+	 * the time in milliseconds after which an idle worker terminates.
+	 */
+	private static final long KEEP_ALIVE = 60000;
+
+	/**
+	 * the maximum number of worker threads.
+	 */
+	private final int maxThreads;
+
+	/**
+	 * the maximum number of workers that process the tasks of one queue at the
+	 * same time.
+	 */
+	private final int maxThreadsPerQueue;
+
+	/**
+	 * the maximum number of tasks per queue.
+	 */
+	private final int queueSize;
+
+	/**
+	 * the time in milliseconds that a task waits for space in a full queue.
+	 */
+	private final long queueTimeout;
+
+	/**
+	 * the queues that have tasks which can be processed, in the order in which
+	 * they are served.
+	 */
+	private final LinkedList ready = new LinkedList();
+
+	private int threads;
+
+	private int idleThreads;
+
+	private int activeThreads;
+
+	private int queuedTasks;
+
+	/**
+	 * the number of threads that wait for space in a full queue.
+	 */
+	private int blocked;
+
+	private long rejectedTasks;
+
+	private long completedTasks;
+
+	private int nextThreadID;
+
+	private boolean shutdown;
+
+	/**
+	 * create a new worker pool.
+	 *
+	 * @param maxThreads
+	 *            the maximum number of worker threads, or zero or less for no
+	 *            limit.
+	 * @param maxThreadsPerQueue
+	 *            the maximum number of workers per queue.
+	 * @param queueSize
+	 *            the maximum number of tasks per queue.
+	 * @param queueTimeout
+	 *            the time in milliseconds that a task waits for space in a
+	 *            full queue before it is rejected.
+	 */
+	public WorkerPool(final int maxThreads, final int maxThreadsPerQueue,
+			final int queueSize, final long queueTimeout) {
+		this.maxThreads = maxThreads > 0 ? maxThreads : Integer.MAX_VALUE;
+		this.maxThreadsPerQueue = Math.max(1, maxThreadsPerQueue);
+		this.queueSize = Math.max(1, queueSize);
+		this.queueTimeout = queueTimeout;
+	}
+
+	/**
+	 * create a new queue for the tasks of one source.
+	 *
+	 * @return the queue.
+	 */
+	public Queue createQueue() {
+		return new Queue();
+	}
+
+	/**
+	 * stop the pool. Queued tasks are discarded, the workers terminate once
+	 * they have finished their current task.
+	 */
+	public synchronized void shutdown() {
+		shutdown = true;
+		for (final Iterator iter = ready.iterator(); iter.hasNext();) {
+			((Queue) iter.next()).discard();
+		}
+		ready.clear();
+		notifyAll();
+	}
+
+	/**
+	 * make a queue that has tasks available to the workers and wake up or
+	 * start a worker for it.
+	 */
+	private void schedule(final Queue queue) {
+		if (queue.scheduled || queue.closed || queue.tasks.isEmpty()
+				|| queue.running >= maxThreadsPerQueue) {
+			return;
+		}
+		queue.scheduled = true;
+		ready.addLast(queue);
+		if (idleThreads >= ready.size() || threads >= maxThreads) {
+			// the idle workers take care of it
+			if (blocked > 0) {
+				notifyAll();
+			} else {
+				notify();
+			}
+		} else {
+			startWorker();
+		}
+	}
+
+	private void startWorker() {
+		final Thread t = new Thread(new Worker(),
+				"r-OSGi ChannelWorkerThread" + nextThreadID++); //$NON-NLS-1$
+		t.setDaemon(true);
+		threads++;
+		t.start();
+	}
+
+	/**
+	 * get the number of worker threads.
+	 *
+	 * @return the number of threads.
+	 */
+	public synchronized int getWorkerThreads() {
+		return threads;
+	}
+
+	/**
+	 * get the number of workers that are processing a task.
+	 *
+	 * @return the number of active workers.
+	 */
+	public synchronized int getActiveWorkers() {
+		return activeThreads;
+	}
+
+	/**
+	 * get the number of tasks waiting in all queues.
+	 *
+	 * @return the queue depth.
+	 */
+	public synchronized int getQueueDepth() {
+		return queuedTasks;
+	}
+
+	/**
+	 * get the number of tasks that have been rejected because their queue
+	 * stayed full.
+	 *
+	 * @return the number of rejected tasks.
+	 */
+	public synchronized long getRejectedTasks() {
+		return rejectedTasks;
+	}
+
+	/**
+	 * get the number of tasks that have been processed.
+	 *
+	 * @return the number of completed tasks.
+	 */
+	public synchronized long getCompletedTasks() {
+		return completedTasks;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	public synchronized String toString() {
+		return "WorkerPool[threads=" + threads + ", active=" + activeThreads //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", queued=" + queuedTasks + ", rejected=" + rejectedTasks //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", completed=" + completedTasks + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * the queue of tasks of one source.
+	 */
+	public final class Queue {
+
+		final LinkedList tasks = new LinkedList();
+
+		/**
+		 * the number of workers processing tasks of this queue.
+		 */
+		int running;
+
+		/**
+		 * whether the queue is in the list of ready queues.
+		 */
+		boolean scheduled;
+
+		boolean closed;
+
+		/**
+		 * add a task to the queue. If the queue is full, the calling thread
+		 * waits until there is space.
+		 *
+		 * @param task
+		 *            the task.
+		 * @return <code>false</code> if the task was rejected because the
+		 *         queue stayed full, or because the calling thread was
+		 *         interrupted while waiting.
+		 */
+		public boolean execute(final Runnable task) {
+			synchronized (WorkerPool.this) {
+				if (closed || shutdown) {
+					// the source is gone, nobody waits for the task
+					return true;
+				}
+				if (tasks.size() >= queueSize) {
+					final long end = System.currentTimeMillis() + queueTimeout;
+					blocked++;
+					try {
+						long remaining = queueTimeout;
+						while (tasks.size() >= queueSize && !closed
+								&& !shutdown && remaining > 0) {
+							WorkerPool.this.wait(remaining);
+							remaining = end - System.currentTimeMillis();
+						}
+					} catch (final InterruptedException ie) {
+						Thread.currentThread().interrupt();
+					} finally {
+						blocked--;
+					}
+					if (closed || shutdown) {
+						return true;
+					}
+					if (tasks.size() >= queueSize) {
+						rejectedTasks++;
+						return false;
+					}
+				}
+				tasks.addLast(task);
+				queuedTasks++;
+				schedule(this);
+				return true;
+			}
+		}
+
+		/**
+		 * close the queue. Tasks that have not been started are discarded and
+		 * new tasks are ignored.
+		 */
+		public void close() {
+			synchronized (WorkerPool.this) {
+				closed = true;
+				if (scheduled) {
+					ready.remove(this);
+					scheduled = false;
+				}
+				discard();
+				WorkerPool.this.notifyAll();
+			}
+		}
+
+		private void discard() {
+			queuedTasks -= tasks.size();
+			tasks.clear();
+		}
+
+		/**
+		 * get the number of tasks waiting in this queue.
+		 *
+		 * @return the queue depth.
+		 */
+		public int getDepth() {
+			synchronized (WorkerPool.this) {
+				return tasks.size();
+			}
+		}
+	}
+
+	/**
+	 * handle an exception thrown by a task. The default implementation prints
+	 * the stack trace.
+	 *
+	 * @param t
+	 *            the exception.
+	 */
+	protected void handleError(final Throwable t) {
+		t.printStackTrace();
+	}
+
+	/**
+	 * take the next task for a worker, waiting for one if there is none.
+	 *
+	 * @param worker
+	 *            the worker.
+	 * @return the task, or <code>null</code> if the worker terminates.
+	 */
+	private synchronized Runnable next(final Worker worker) {
+		if (worker.queue != null) {
+			// the worker has finished a task of the queue
+			worker.queue.running--;
+			activeThreads--;
+			completedTasks++;
+			if (shutdown) {
+				// the queue was not ready, since it had all the workers it may
+				// have, so the shutdown has not discarded its tasks
+				worker.queue.discard();
+			} else {
+				schedule(worker.queue);
+			}
+			worker.queue = null;
+		}
+
+		final long end = System.currentTimeMillis() + KEEP_ALIVE;
+		long remaining = KEEP_ALIVE;
+		while (ready.isEmpty() && !shutdown && remaining > 0) {
+			idleThreads++;
+			try {
+				wait(remaining);
+			} catch (final InterruptedException ie) {
+				break;
+			} finally {
+				idleThreads--;
+			}
+			remaining = end - System.currentTimeMillis();
+		}
+		if (ready.isEmpty() || shutdown) {
+			threads--;
+			return null;
+		}
+
+		final Queue queue = (Queue) ready.removeFirst();
+		queue.scheduled = false;
+		final Runnable task = (Runnable) queue.tasks.removeFirst();
+		queuedTasks--;
+		queue.running++;
+		activeThreads++;
+		worker.queue = queue;
+		// the queue goes to the end of the line if more of its tasks can run
+		schedule(queue);
+		if (blocked > 0) {
+			notifyAll();
+		}
+		return task;
+	}
+
+	private final class Worker implements Runnable {
+
+		/**
+		 * the queue of the task that is being processed.
+		 */
+		Queue queue;
+
+		public void run() {
+			for (Runnable task = next(this); task != null; task = next(this)) {
+				try {
+					task.run();
+				} catch (final Throwable t) {
+					handleError(t);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.slp.test;
+
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import junit.framework.TestCase;
+import ch.ethz.iks.slp.ServiceLocationEnumeration;
+import ch.ethz.iks.slp.ServiceLocationException;
+import ch.ethz.iks.slp.ServiceType;
+import ch.ethz.iks.slp.ServiceURL;
+
+/**
+ * Registers many services and replays filtered service requests against them
+ * at a fixed rate from several clients. Not run by default: set the system
+ * property org.eclipse.ecf.tests.benchmarks=true to run it.
+ */
+public class LoadBenchmark extends TestCase {
+
+	private final String HOST = System.getProperty("net.slp.tests.host", "gantenbein");
+	private final int SERVICES = Integer.getInteger("net.slp.tests.loadServices", 10000).intValue();
+	private final int TYPES = Integer.getInteger("net.slp.tests.loadTypes", 100).intValue();
+	private final int RATE = Integer.getInteger("net.slp.tests.loadRate", 1000).intValue();
+	private final int DURATION = Integer.getInteger("net.slp.tests.loadDuration", 10000).intValue();
+	private final int CLIENTS = Integer.getInteger("net.slp.tests.loadClients", 8).intValue();
+
+	private ServiceURL[] services;
+
+	private ServiceType getType(int i) {
+		return new ServiceType("service:jslp-load-" + (i % TYPES));
+	}
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#setUp()
+	 */
+	public void setUp() throws ServiceLocationException {
+		services = new ServiceURL[SERVICES];
+		final long start = System.currentTimeMillis();
+		for (int i = 0; i < SERVICES; i++) {
+			services[i] = new ServiceURL(getType(i) + "://" + HOST + ":" + (1024 + i), 10800);
+			Dictionary properties = new Hashtable();
+			properties.put("index", new Integer(i));
+			properties.put("group", "group" + (i % 10));
+			TestActivator.advertiser.register(services[i], properties);
+		}
+		System.out.println("LoadBenchmark: registered " + SERVICES + " services in "
+				+ (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/* (non-Javadoc)
+	 * @see junit.framework.TestCase#tearDown()
+	 */
+	public void tearDown() throws ServiceLocationException {
+		for (int i = 0; i < services.length; i++) {
+			if (services[i] != null) {
+				TestActivator.advertiser.deregister(services[i]);
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link ch.ethz.iks.slp.Locator}.
+	 */
+	public void testFilteredRequests() throws Exception {
+		final Client[] clients = new Client[CLIENTS];
+		for (int i = 0; i < clients.length; i++) {
+			clients[i] = new Client(i);
+		}
+		final long start = System.currentTimeMillis();
+		for (int i = 0; i < clients.length; i++) {
+			clients[i].start();
+		}
+		int requests = 0;
+		long latency = 0;
+		long maxLatency = 0;
+		for (int i = 0; i < clients.length; i++) {
+			clients[i].join();
+			if (clients[i].failure instanceof Error) {
+				throw (Error) clients[i].failure;
+			} else if (clients[i].failure != null) {
+				throw (Exception) clients[i].failure;
+			}
+			requests += clients[i].requests;
+			latency += clients[i].latency;
+			maxLatency = Math.max(maxLatency, clients[i].maxLatency);
+		}
+		final long time = System.currentTimeMillis() - start;
+		System.out.println("LoadBenchmark: " + requests + " requests in " + time
+				+ "ms (" + (requests * 1000L / Math.max(1, time))
+				+ " req/s), average latency "
+				+ (latency / Math.max(1, requests)) + "ms, max latency "
+				+ maxLatency + "ms");
+		assertTrue(requests > 0);
+	}
+
+	private class Client extends Thread {
+		private final int id;
+		int requests;
+		long latency;
+		long maxLatency;
+		Throwable failure;
+
+		Client(int id) {
+			this.id = id;
+		}
+
+		public void run() {
+			// each client sends its share of the rate
+			final long interval = Math.max(1, CLIENTS * 1000L / RATE);
+			final long end = System.currentTimeMillis() + DURATION;
+			try {
+				for (int i = id; System.currentTimeMillis() < end; i += CLIENTS) {
+					final int index = (i * 7919) % SERVICES;
+					final long start = System.currentTimeMillis();
+					int count = 0;
+					for (ServiceLocationEnumeration found = TestActivator.locator
+							.findServices(getType(index), null, "(&(index=" + index
+									+ ")(group=group" + (index % 10) + "))"); found
+							.hasMoreElements();) {
+						assertEquals(services[index].toString(), found.next().toString());
+						count++;
+					}
+					assertEquals(1, count);
+					final long took = System.currentTimeMillis() - start;
+					requests++;
+					latency += took;
+					maxLatency = Math.max(maxLatency, took);
+					if (took < interval) {
+						Thread.sleep(interval - took);
+					}
+				}
+			} catch (Throwable t) {
+				failure = t;
+			}
+		}
+	}
+}
@@ -95,6 +95,9 @@ public class TestActivator implements BundleActivator {
 		// add the actual tests to the test suite
 		Collection collection = new ArrayList();
 		collection.add(SelfDiscoveryTest.class);
+		if (Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks")) {
+			collection.add(LoadBenchmark.class);
+		}
 		for (Iterator iterator = collection.iterator(); iterator.hasNext();) {
 			Class clazz = (Class) iterator.next();
 			// run all methods starting with "test*"
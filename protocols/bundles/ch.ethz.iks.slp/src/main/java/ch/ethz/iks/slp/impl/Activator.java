@@ -70,6 +70,8 @@ public class Activator implements BundleActivator {
 	 * @see org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(final BundleContext context) throws Exception {
-
+		if (ENABLE_JSLP) {
+			SLPCore.shutdownDaemon();
+		}
 	}
 }
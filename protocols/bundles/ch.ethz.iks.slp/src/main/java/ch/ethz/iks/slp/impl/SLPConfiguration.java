@@ -116,6 +116,10 @@ class SLPConfiguration {
 	private static final String CONVERGENCE_FAILERCOUNT_PROP = "net.slp.failercount";
 	
 	private static final String DEBUG_ENABLED_PROP = "ch.ethz.iks.slp.debug";
+
+	private static final String TCP_WORKERS_PROP = "net.slp.tcpWorkers";
+
+	private static final String TCP_WORKERS_DEFAULT = "4";
 	
 	private static String[] INTERFACES;
 
@@ -160,6 +164,8 @@ class SLPConfiguration {
 	private static int CONVERGENCE_FAILERCOUNT;
 
 	private static boolean DEBUG_ENABLED;
+
+	private static int TCP_WORKERS;
 	
 	/**
 	 * create a new SLPConfiguration from properties.
@@ -246,6 +252,9 @@ class SLPConfiguration {
 
 		DEBUG_ENABLED = new Boolean(props.getProperty(DEBUG_ENABLED_PROP,
 		"false")).booleanValue();
+
+		TCP_WORKERS = Integer.parseInt(props.getProperty(TCP_WORKERS_PROP,
+				TCP_WORKERS_DEFAULT));
 		
 		if (SECURITY_ENABLED) {
 			PUBLIC_KEY_CACHE = new HashMap(0);
@@ -395,6 +404,15 @@ class SLPConfiguration {
 		return DATAGRAM_TIMEOUTS;
 	}
 
+	/**
+	 * get the number of threads serving TCP connections.
+	 * 
+	 * @return the number of TCP worker threads.
+	 */
+	int getTcpWorkers() {
+		return TCP_WORKERS;
+	}
+
 	/**
 	 * get the MTU.
 	 * 
@@ -133,6 +133,12 @@ public abstract class SLPCore {
 	 */
 	private static SLPDaemon daemon;
 
+	/**
+	 * true if the daemon has been shut down and is to be started again when
+	 * the multicast socket is initialized the next time.
+	 */
+	private static boolean daemonShutdown;
+
 	/**
 	 * the multicast server thread.
 	 */
@@ -330,6 +336,7 @@ public abstract class SLPCore {
 	// a pure UA doesn't need a multicast listener which is only required by a SA or DA
 	protected static void initMulticastSocket() {
 		if(isMulticastSocketInitialized) {
+			restartDaemon();
 			return;
 		}
 		isMulticastSocketInitialized = true;
@@ -388,9 +395,16 @@ public abstract class SLPCore {
 		};
 		multicastThread.start();
 		
-		// check, if there is already a SLP daemon runnung on port 427
-		// that can be either a jSLP daemon, or an OpenSLP daemon or something
-		// else. If not, try to start a new daemon instance.
+		startDaemon();
+	}
+
+	/**
+	 * check, if there is already a SLP daemon runnung on port 427 that can be
+	 * either a jSLP daemon, or an OpenSLP daemon or something else. If not,
+	 * try to start a new daemon instance.
+	 */
+	private static synchronized void startDaemon() {
+		daemonShutdown = false;
 		if (daemonConstr != null) {
 			try {
 				daemon = (SLPDaemon) daemonConstr.newInstance(null);
@@ -401,6 +415,26 @@ public abstract class SLPCore {
 		}
 	}
 
+	/**
+	 * start the daemon again, if it has been shut down.
+	 */
+	private static synchronized void restartDaemon() {
+		if (daemonShutdown) {
+			startDaemon();
+		}
+	}
+
+	/**
+	 * shut the daemon down, if there is one.
+	 */
+	static synchronized void shutdownDaemon() {
+		if (daemon != null) {
+			daemon.shutdown();
+			daemon = null;
+			daemonShutdown = true;
+		}
+	}
+
 	/**
 	 * get my own IP.
 	 * 
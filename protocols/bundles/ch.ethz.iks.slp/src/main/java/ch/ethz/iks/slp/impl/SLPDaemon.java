@@ -44,4 +44,10 @@ public interface SLPDaemon {
 	ReplyMessage handleMessage(final SLPMessage msg)
 			throws ServiceLocationException;
 
+	/**
+	 * stop the daemon. Closes the TCP server socket and shuts the TCP workers
+	 * down.
+	 */
+	void shutdown();
+
 }
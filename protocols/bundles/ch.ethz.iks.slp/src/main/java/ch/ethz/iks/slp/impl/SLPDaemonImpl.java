@@ -28,8 +28,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import ch.ethz.iks.slp.ServiceLocationException;
 import ch.ethz.iks.slp.ServiceType;
@@ -49,21 +54,42 @@ public final class SLPDaemonImpl implements SLPDaemon {
 	/**
 	 * thread loop variable.
 	 */
-	private boolean running = true;
+	private volatile boolean running = true;
 
 	/**
 	 * Map of registered services:
 	 * 
-	 * String scope -> List of ServiceURLs services.
+	 * String scope -> ServiceIndex services.
 	 */
-	private Map registeredServices = new HashMap();
+	private final Map registeredServices = new HashMap();
 
 	/**
-	 * Sorted set for disposal of services which lifetimes have expired:
+	 * the current expiration of the services with a limited lifetime:
 	 * 
-	 * Long expirationTimestamp -> ServiceURL service.
+	 * ServiceURL service -> Long expirationTimestamp.
 	 */
-	private SortedMap serviceDisposalQueue = new TreeMap();
+	private final Map serviceExpirations = new HashMap();
+
+	/**
+	 * queue for disposal of services which lifetimes have expired. An entry
+	 * that is no longer the current expiration of its service is skipped.
+	 */
+	private final DelayQueue serviceDisposalQueue = new DelayQueue();
+
+	/**
+	 * the threads serving incoming TCP connections.
+	 */
+	private final ExecutorService tcpWorkers;
+
+	/**
+	 * the thread accepting incoming TCP connections.
+	 */
+	private final TcpServerThread tcpServer;
+
+	/**
+	 * the thread removing expired services.
+	 */
+	private final ServiceDisposalThread serviceDisposal;
 
 	/**
 	 * create a new SLPDaemon instance.
@@ -74,11 +100,34 @@ public final class SLPDaemonImpl implements SLPDaemon {
 	 *             if something goes wrong.
 	 */
 	public SLPDaemonImpl() throws Exception {
-		new TcpServerThread();
-		new ServiceDisposalThread();
+		tcpWorkers = Executors.newFixedThreadPool(Math.max(1, SLPCore.CONFIG
+				.getTcpWorkers()), new ThreadFactory() {
+			private int count;
+
+			public synchronized Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "jSLP TCP worker " + ++count);
+				// do not keep the VM alive
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		tcpServer = new TcpServerThread();
+		serviceDisposal = new ServiceDisposalThread();
 		SLPCore.platform.logDebug("jSLP daemon starting ...");
 	}
 
+	/**
+	 * 
+	 * @see ch.ethz.iks.slp.impl.SLPDaemon#shutdown()
+	 */
+	public void shutdown() {
+		running = false;
+		tcpServer.close();
+		serviceDisposal.interrupt();
+		tcpWorkers.shutdown();
+		SLPCore.platform.logDebug("jSLP daemon stopped");
+	}
+
 	/**
 	 * register a service with the SLP framework. For the scopes, where DAs are
 	 * known, the service will be registered with all DAs.
@@ -90,27 +139,22 @@ public final class SLPDaemonImpl implements SLPDaemon {
 
 		Service service = new Service(reg);
 
+		if (reg.url.getLifetime() > ServiceURL.LIFETIME_PERMANENT) {
+			scheduleDisposal(reg.url, System.currentTimeMillis()
+					+ (reg.url.getLifetime() * 1000));
+		}
+
 		for (Iterator scopeIter = reg.scopeList.iterator(); scopeIter.hasNext();) {
 			String scope = (String) scopeIter.next();
 			scope = scope.toLowerCase();
 			synchronized (registeredServices) {
-				SLPUtils.addValue(registeredServices, scope, service);
-			}
-			if (reg.url.getLifetime() > ServiceURL.LIFETIME_PERMANENT) {
-				synchronized (serviceDisposalQueue) {
-					long next = System.currentTimeMillis()
-							+ (reg.url.getLifetime() * 1000);
-					ArrayList keys = new ArrayList(serviceDisposalQueue
-							.keySet());
-					for (Iterator iter = keys.iterator(); iter.hasNext();) {
-						Object key = iter.next();
-						if (serviceDisposalQueue.get(key).equals(reg.url)) {
-							serviceDisposalQueue.remove(key);
-						}
-					}
-					serviceDisposalQueue.put(new Long(next), reg.url);
-					serviceDisposalQueue.notifyAll();
+				ServiceIndex services = (ServiceIndex) registeredServices
+						.get(scope);
+				if (services == null) {
+					services = new ServiceIndex();
+					registeredServices.put(scope, services);
 				}
+				services.add(service);
 			}
 
 			SLPCore.platform.logTraceReg("REGISTERED " + reg.url);
@@ -164,6 +208,22 @@ public final class SLPDaemonImpl implements SLPDaemon {
 
 	}
 
+	/**
+	 * schedule the disposal of a service, replacing an earlier scheduled
+	 * disposal of the same service.
+	 * 
+	 * @param url
+	 *            the service URL.
+	 * @param expiration
+	 *            the time the lifetime of the service expires.
+	 */
+	private void scheduleDisposal(final ServiceURL url, final long expiration) {
+		synchronized (serviceExpirations) {
+			serviceExpirations.put(url, new Long(expiration));
+		}
+		serviceDisposalQueue.put(new ServiceExpiration(url, expiration));
+	}
+
 	/**
 	 * deregister a service from the SLP framework. Deregisters from all DAs
 	 * within the scopes and from the local service cache.
@@ -175,49 +235,60 @@ public final class SLPDaemonImpl implements SLPDaemon {
 	private void deregisterService(final ServiceDeregistration dereg)
 			throws ServiceLocationException {
 
-		final String[] scopes = (String[]) registeredServices.keySet().toArray(
-				new String[registeredServices.size()]);
+		synchronized (serviceExpirations) {
+			serviceExpirations.remove(dereg.url);
+		}
+
+		final String[] scopes;
+		synchronized (registeredServices) {
+			scopes = (String[]) registeredServices.keySet().toArray(
+					new String[registeredServices.size()]);
+		}
 		for (int i = 0; i < scopes.length; i++) {
-			final List tmp = (List) registeredServices.get(scopes[i]);
-			final Service[] services = (Service[]) tmp.toArray(new Service[tmp
-					.size()]);
-
-			for (int j = 0; j < services.length; j++) {
-				if (dereg.url.matches(services[j].url)) {
-					List daList = (List) SLPCore.dAs.get(scopes[i].toLowerCase());
-					if (daList != null) {
-						for (Iterator daIter = daList.iterator(); daIter
-								.hasNext();) {
-							try {
-								String dA = (String) daIter.next();
-								dereg.address = InetAddress.getByName(dA);
-								dereg.port = SLPCore.SLP_RESERVED_PORT;
-								dereg.xid = SLPCore.nextXid();
-								if (SLPCore.CONFIG.getSecurityEnabled()) {
-									List spiList = (List) SLPCore.dASPIs
-											.get(dA);
-									dereg.sign(spiList);
-								}
-								ReplyMessage reply = SLPCore.sendMessage(dereg,
-										true);
-								if (reply.errorCode != 0) {
-									throw new ServiceLocationException(
-											(short) reply.errorCode,
-											"Error during deregistration: "
-													+ reply.errorCode);
-								}
-							} catch (UnknownHostException uhe) {
-								throw new ServiceLocationException(
-										ServiceLocationException.NETWORK_ERROR,
-										uhe.getMessage());
-							}
+			final Service service;
+			synchronized (registeredServices) {
+				final ServiceIndex services = (ServiceIndex) registeredServices
+						.get(scopes[i]);
+				service = services == null ? null : services.find(dereg.url);
+			}
+			if (service == null) {
+				continue;
+			}
+
+			List daList = (List) SLPCore.dAs.get(scopes[i].toLowerCase());
+			if (daList != null) {
+				for (Iterator daIter = daList.iterator(); daIter.hasNext();) {
+					try {
+						String dA = (String) daIter.next();
+						dereg.address = InetAddress.getByName(dA);
+						dereg.port = SLPCore.SLP_RESERVED_PORT;
+						dereg.xid = SLPCore.nextXid();
+						if (SLPCore.CONFIG.getSecurityEnabled()) {
+							List spiList = (List) SLPCore.dASPIs.get(dA);
+							dereg.sign(spiList);
 						}
+						ReplyMessage reply = SLPCore.sendMessage(dereg, true);
+						if (reply.errorCode != 0) {
+							throw new ServiceLocationException(
+									(short) reply.errorCode,
+									"Error during deregistration: "
+											+ reply.errorCode);
+						}
+					} catch (UnknownHostException uhe) {
+						throw new ServiceLocationException(
+								ServiceLocationException.NETWORK_ERROR, uhe
+										.getMessage());
 					}
-					synchronized (registeredServices) {
-						SLPUtils.removeValue(registeredServices, scopes[i],
-								services[j]);
+				}
+			}
+			synchronized (registeredServices) {
+				final ServiceIndex services = (ServiceIndex) registeredServices
+						.get(scopes[i]);
+				if (services != null) {
+					services.remove(service);
+					if (services.isEmpty()) {
+						registeredServices.remove(scopes[i]);
 					}
-					break;
 				}
 			}
 		}
@@ -253,21 +324,13 @@ public final class SLPDaemonImpl implements SLPDaemon {
 			List results = new ArrayList();
 			for (Iterator scopes = req.scopeList.iterator(); scopes.hasNext();) {
 				String scope = (String) scopes.next();
-				List services = (List) registeredServices.get(scope.toLowerCase());
-				if (services == null) {
-					continue;
-				}
+				final List services = getServices(scope, req.serviceType);
 
 				for (Iterator srvs = services.iterator(); srvs.hasNext();) {
 					Service service = (Service) srvs.next();
-					if (service.url.getServiceType().matches(req.serviceType)) {
-						if (req.predicate == null) {
-							results.add(service.url);
-							continue;
-						}
-						if (req.predicate.match(service.attributes)) {
-							results.add(service.url);
-						}
+					if (req.predicate == null
+							|| req.predicate.match(service.attributes)) {
+						results.add(service.url);
 					}
 				}
 			}
@@ -293,27 +356,27 @@ public final class SLPDaemonImpl implements SLPDaemon {
 			AttributeRequest attreq = (AttributeRequest) msg;
 
 			List attResult = new ArrayList();
-			for (Iterator scopes = attreq.scopeList.iterator(); scopes
-					.hasNext();) {
-				String scope = (String) scopes.next();
-				List services = (List) registeredServices.get(scope.toLowerCase());
-				if (services == null) {
-					continue;
-				}
-				// the request can either be for a ServiceURL or a ServiceType
-				Object reqService;
-				boolean fullurl = false;
-				if (attreq.url.indexOf("//") == -1) {
-					reqService = new ServiceType(attreq.url);
-				} else {
-					fullurl = true;
-					reqService = new ServiceURL(attreq.url, 0);
-				}
+			// the request can either be for a ServiceURL or a ServiceType
+			final Object reqService;
+			final ServiceType reqType;
+			boolean fullurl = false;
+			if (attreq.url.indexOf("//") == -1) {
+				reqType = new ServiceType(attreq.url);
+				reqService = reqType;
+			} else {
+				fullurl = true;
+				final ServiceURL reqURL = new ServiceURL(attreq.url, 0);
+				reqType = reqURL.getServiceType();
+				reqService = reqURL;
+			}
 
-				// if spi is sent, the request must be for a full url and
-				// the tag list has to be empty
-				if (attreq.spi.equals("")
-						|| (fullurl && attreq.tagList.isEmpty())) {
+			// if spi is sent, the request must be for a full url and
+			// the tag list has to be empty
+			if (attreq.spi.equals("") || (fullurl && attreq.tagList.isEmpty())) {
+				for (Iterator scopes = attreq.scopeList.iterator(); scopes
+						.hasNext();) {
+					String scope = (String) scopes.next();
+					final List services = getServices(scope, reqType);
 					for (Iterator srvs = services.iterator(); srvs.hasNext();) {
 						Service service = (Service) srvs.next();
 						if (service.url.matches(reqService)) {
@@ -322,7 +385,6 @@ public final class SLPDaemonImpl implements SLPDaemon {
 						}
 					}
 				}
-
 			}
 			reply = new AttributeReply(attreq, attResult);
 
@@ -340,16 +402,19 @@ public final class SLPDaemonImpl implements SLPDaemon {
 			for (Iterator scopeIter = streq.scopeList.iterator(); scopeIter
 					.hasNext();) {
 
-				// iterate over the registered services
+				// iterate over the registered service types
 				String scope = (String) scopeIter.next();
-				List services = ((List) registeredServices
-						.get(scope.toLowerCase()));
-				if (services == null) {
-					continue;
+				final List types;
+				synchronized (registeredServices) {
+					final ServiceIndex services = (ServiceIndex) registeredServices
+							.get(scope.toLowerCase());
+					if (services == null) {
+						continue;
+					}
+					types = new ArrayList(services.getServiceTypes());
 				}
-				for (Iterator iter = services.iterator(); iter.hasNext();) {
-					Service service = (Service) iter.next();
-					ServiceType type = service.url.getServiceType();
+				for (Iterator iter = types.iterator(); iter.hasNext();) {
+					ServiceType type = (ServiceType) iter.next();
 					if (streq.namingAuthority.equals("*")
 							|| streq.namingAuthority.equals("")
 							|| type.getNamingAuthority().equals(
@@ -396,6 +461,25 @@ public final class SLPDaemonImpl implements SLPDaemon {
 
 	}
 
+	/**
+	 * get the services registered in a scope whose type matches the requested
+	 * type.
+	 * 
+	 * @param scope
+	 *            the scope.
+	 * @param type
+	 *            the requested type.
+	 * @return a new list of services.
+	 */
+	private List getServices(final String scope, final ServiceType type) {
+		synchronized (registeredServices) {
+			final ServiceIndex services = (ServiceIndex) registeredServices
+					.get(scope.toLowerCase());
+			return services == null ? new ArrayList() : services
+					.getServices(type);
+		}
+	}
+
 	/**
 	 * get informed about a new discovered DA. Registers all services in the
 	 * scopes of the new DA.
@@ -407,7 +491,14 @@ public final class SLPDaemonImpl implements SLPDaemon {
 		// so find all services within the scopes of the new DA:
 		for (Iterator iter = advert.scopeList.iterator(); iter.hasNext();) {
 			String scope = (String) iter.next();
-			List services = (List) registeredServices.get(scope.toLowerCase());
+			List services = null;
+			synchronized (registeredServices) {
+				final ServiceIndex index = (ServiceIndex) registeredServices
+						.get(scope.toLowerCase());
+				if (index != null) {
+					services = index.getServices();
+				}
+			}
 			if (services != null) {
 				for (Iterator serviceIter = services.iterator(); serviceIter
 						.hasNext();) {
@@ -460,7 +551,8 @@ public final class SLPDaemonImpl implements SLPDaemon {
 	}
 
 	/**
-	 * TCP server thread.
+	 * TCP server thread. Accepts the connections and hands them to the TCP
+	 * workers.
 	 */
 	private final class TcpServerThread extends Thread {
 		private ServerSocket socket;
@@ -482,41 +574,120 @@ public final class SLPDaemonImpl implements SLPDaemon {
 		 */
 		public void run() {
 			while (running) {
+				final Socket con;
 				try {
-					Socket con = socket.accept();
-					DataInputStream in = new DataInputStream(
-							new BufferedInputStream(con.getInputStream()));
-					SLPMessage msg = SLPMessage.parse(con.getInetAddress(), con
-							.getPort(), in, true);
-
-					ReplyMessage reply = handleMessage(msg);
-					if (reply != null) {
-						SLPCore.platform.logTraceMessage("SEND REPLY ("
-									+ reply.address + ":" + reply.port + ") "
-									+ reply);
-
-						DataOutputStream out = new DataOutputStream(con
-								.getOutputStream());
-						out.write(reply.getBytes());
-						/*
-						 * TODO the RFC encourages to keep the connection open
-						 * to allow the other side to send multiple requests per
-						 * connection. So start a server thread for every
-						 * incoming connection instead of closing the connection
-						 * after the first request
-						 */
-						out.close();
+					con = socket.accept();
+				} catch (IOException ioe) {
+					if (running) {
+						SLPCore.platform.logError(
+								"Exception in TCP receiver thread", ioe);
 					}
-					in.close();
+					continue;
+				}
+				try {
+					tcpWorkers.execute(new Runnable() {
+						public void run() {
+							handleConnection(con);
+						}
+					});
+				} catch (RejectedExecutionException ree) {
+					// the daemon has been shut down
+					try {
+						con.close();
+					} catch (IOException ioe) {
+						// ignore
+					}
+				}
+			}
+		}
+
+		/**
+		 * close the server socket, which ends the thread loop.
+		 */
+		private void close() {
+			try {
+				socket.close();
+			} catch (IOException ioe) {
+				// ignore
+			}
+		}
+
+		/**
+		 * handle the request of an incoming connection.
+		 * 
+		 * @param con
+		 *            the connection.
+		 */
+		private void handleConnection(final Socket con) {
+			try {
+				DataInputStream in = new DataInputStream(
+						new BufferedInputStream(con.getInputStream()));
+				SLPMessage msg = SLPMessage.parse(con.getInetAddress(), con
+						.getPort(), in, true);
+
+				ReplyMessage reply = handleMessage(msg);
+				if (reply != null) {
+					SLPCore.platform.logTraceMessage("SEND REPLY ("
+								+ reply.address + ":" + reply.port + ") "
+								+ reply);
+
+					DataOutputStream out = new DataOutputStream(con
+							.getOutputStream());
+					out.write(reply.getBytes());
+					/*
+					 * TODO the RFC encourages to keep the connection open to
+					 * allow the other side to send multiple requests per
+					 * connection instead of closing the connection after the
+					 * first request
+					 */
+					out.close();
+				}
+				in.close();
+			} catch (Exception ioe) {
+				SLPCore.platform.logError("Exception in TCP worker thread",
+						ioe);
+			} finally {
+				try {
 					con.close();
-				} catch (Exception ioe) {
-					SLPCore.platform.logError(
-								"Exception in TCP receiver thread", ioe);
+				} catch (IOException ioe) {
+					// ignore
 				}
 			}
 		}
 	}
 
+	/**
+	 * the expiration of a service in the disposal queue.
+	 */
+	private static final class ServiceExpiration implements Delayed {
+
+		/**
+		 * the service URL.
+		 */
+		final ServiceURL url;
+
+		/**
+		 * the time the lifetime of the service expires.
+		 */
+		final long expiration;
+
+		ServiceExpiration(final ServiceURL url, final long expiration) {
+			this.url = url;
+			this.expiration = expiration;
+		}
+
+		public long getDelay(final TimeUnit unit) {
+			return unit.convert(expiration - System.currentTimeMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+
+		public int compareTo(final Delayed other) {
+			final long otherExpiration = ((ServiceExpiration) other).expiration;
+			return expiration < otherExpiration ? -1
+					: (expiration == otherExpiration ? 0 : 1);
+		}
+	}
+
 	/**
 	 * service disposal thread. Removes services from the local registry when
 	 * their lifetime has expired.
@@ -537,56 +708,29 @@ public final class SLPDaemonImpl implements SLPDaemon {
 		public void run() {
 			try {
 				while (running) {
-					synchronized (serviceDisposalQueue) {
-						if (serviceDisposalQueue.isEmpty()) {
-							// nothing to do, sleep until something arrives
-							SLPCore.platform
-										.logDebug("ServiceDisposalThread sleeping ...");
-							serviceDisposalQueue.wait();
-						} else {
-							// we have work, do everything that is due
-							Long nextActivity;
-							while (!serviceDisposalQueue.isEmpty()
-									&& (nextActivity = ((Long) serviceDisposalQueue
-											.firstKey())).longValue() <= System
-											.currentTimeMillis()) {
-								ServiceURL service = (ServiceURL) serviceDisposalQueue
-										.get(nextActivity);
-
-								ServiceDeregistration dereg = new ServiceDeregistration(
-										service, null, null,
-										SLPCore.DEFAULT_LOCALE);
-								try {
-									deregisterService(dereg);
-								} catch (ServiceLocationException sle) {
-									SLPCore.platform.logError(sle
-												.getMessage(), sle
-												.fillInStackTrace());
-								}
-								SLPCore.platform
-											.logTraceReg("disposed service "
-													+ service);
-								serviceDisposalQueue.remove(nextActivity);
-							}
-							if (!serviceDisposalQueue.isEmpty()) {
-								/*
-								 * there are some activities in the future,
-								 * sleep until the first activity becomes due
-								 */
-								nextActivity = ((Long) serviceDisposalQueue
-										.firstKey());
-								long waitTime = nextActivity.longValue()
-										- System.currentTimeMillis();
-								if (waitTime > 0) {
-									SLPCore.platform
-												.logDebug("sleeping for "
-														+ waitTime / 1000
-														+ " seconds.");
-									serviceDisposalQueue.wait(waitTime);
-								}
-							}
+					// sleep until the first expiration becomes due
+					final ServiceExpiration next = (ServiceExpiration) serviceDisposalQueue
+							.take();
+					synchronized (serviceExpirations) {
+						final Long current = (Long) serviceExpirations
+								.get(next.url);
+						if (current == null
+								|| current.longValue() != next.expiration) {
+							// deregistered or registered again meanwhile
+							continue;
 						}
 					}
+
+					ServiceDeregistration dereg = new ServiceDeregistration(
+							next.url, null, null, SLPCore.DEFAULT_LOCALE);
+					try {
+						deregisterService(dereg);
+					} catch (ServiceLocationException sle) {
+						SLPCore.platform.logError(sle.getMessage(), sle
+									.fillInStackTrace());
+					}
+					SLPCore.platform.logTraceReg("disposed service "
+								+ next.url);
 				}
 			} catch (InterruptedException ie) {
 				// let the thread stop.
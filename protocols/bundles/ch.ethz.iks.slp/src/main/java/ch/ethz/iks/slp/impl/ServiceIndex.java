@@ -0,0 +1,189 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.slp.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ch.ethz.iks.slp.ServiceType;
+import ch.ethz.iks.slp.ServiceURL;
+
+/**
+ * the services registered in one scope, indexed by service type. Not thread
+ * safe, the daemon synchronizes on its map of scopes.
+ *
+ * @author Composent, Inc.
+ */
+final class ServiceIndex {
+
+	/**
+	 * all services, in order of registration.
+	 */
+	private final Set services = new LinkedHashSet();
+
+	/**
+	 * ServiceType type -> Set of Services.
+	 */
+	private final Map byType = new HashMap();
+
+	/**
+	 * String abstract type name -> Set of Services, for services of abstract
+	 * types. A request for the abstract type matches them too.
+	 */
+	private final Map byAbstractType = new HashMap();
+
+	/**
+	 * ServiceURL url -> Set of Services.
+	 */
+	private final Map byURL = new HashMap();
+
+	private static void put(final Map map, final Object key,
+			final Service service) {
+		Set values = (Set) map.get(key);
+		if (values == null) {
+			values = new LinkedHashSet();
+			map.put(key, values);
+		}
+		values.add(service);
+	}
+
+	private static void remove(final Map map, final Object key,
+			final Service service) {
+		final Set values = (Set) map.get(key);
+		if (values != null && values.remove(service) && values.isEmpty()) {
+			map.remove(key);
+		}
+	}
+
+	/**
+	 * add a service.
+	 *
+	 * @param service
+	 *            the service.
+	 * @return false if an equal service was already registered.
+	 */
+	boolean add(final Service service) {
+		if (!services.add(service)) {
+			return false;
+		}
+		final ServiceType type = service.url.getServiceType();
+		put(byType, type, service);
+		if (type.isAbstractType()) {
+			put(byAbstractType, type.getAbstractTypeName(), service);
+		}
+		put(byURL, service.url, service);
+		return true;
+	}
+
+	/**
+	 * remove a service.
+	 *
+	 * @param service
+	 *            the service.
+	 */
+	void remove(final Service service) {
+		if (!services.remove(service)) {
+			return;
+		}
+		final ServiceType type = service.url.getServiceType();
+		remove(byType, type, service);
+		if (type.isAbstractType()) {
+			remove(byAbstractType, type.getAbstractTypeName(), service);
+		}
+		remove(byURL, service.url, service);
+	}
+
+	/**
+	 * find the first service with the given URL.
+	 *
+	 * @param url
+	 *            the service URL.
+	 * @return the service or null.
+	 */
+	Service find(final ServiceURL url) {
+		final Set candidates = (Set) byURL.get(url);
+		if (candidates != null) {
+			return (Service) candidates.iterator().next();
+		}
+		// the hash code of a ServiceURL is that of its string, which can
+		// differ for equal URLs
+		final Set ofType = (Set) byType.get(url.getServiceType());
+		if (ofType != null) {
+			for (Iterator iter = ofType.iterator(); iter.hasNext();) {
+				final Service service = (Service) iter.next();
+				if (url.matches(service.url)) {
+					return service;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * get the services whose type matches the given type, as
+	 * <code>ServiceType.matches</code> does.
+	 *
+	 * @param type
+	 *            the requested type.
+	 * @return a new list of services.
+	 */
+	List getServices(final ServiceType type) {
+		final List result = new ArrayList();
+		final Set exact = (Set) byType.get(type);
+		if (exact != null) {
+			result.addAll(exact);
+		}
+		final Set ofAbstractType = (Set) byAbstractType.get(type.toString());
+		if (ofAbstractType != null) {
+			for (Iterator iter = ofAbstractType.iterator(); iter.hasNext();) {
+				final Object service = iter.next();
+				if (exact == null || !exact.contains(service)) {
+					result.add(service);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * get all services.
+	 *
+	 * @return a new list of services.
+	 */
+	List getServices() {
+		return new ArrayList(services);
+	}
+
+	/**
+	 * get the registered service types.
+	 *
+	 * @return an unmodifiable set of the service types.
+	 */
+	Set getServiceTypes() {
+		return Collections.unmodifiableSet(byType.keySet());
+	}
+
+	boolean isEmpty() {
+		return services.isEmpty();
+	}
+
+	int size() {
+		return services.size();
+	}
+}
@@ -18,8 +18,10 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import ch.ethz.iks.slp.ServiceLocationException;
 import ch.ethz.iks.slp.ServiceType;
@@ -33,6 +35,25 @@ import ch.ethz.iks.slp.impl.filter.Filter;
  */
 class ServiceRequest extends RequestMessage {
 
+	/**
+	 * the number of compiled filters kept in the filter cache.
+	 */
+	private static final int FILTER_CACHE_SIZE = 256;
+
+	/**
+	 * the most recently used filters:
+	 * 
+	 * String filter -> Filter predicate.
+	 */
+	private static final Map FILTER_CACHE = new LinkedHashMap(
+			FILTER_CACHE_SIZE, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(final Map.Entry eldest) {
+			return size() > FILTER_CACHE_SIZE;
+		}
+	};
+
 	/**
 	 * the ServiceType.
 	 */
@@ -67,8 +88,7 @@ class ServiceRequest extends RequestMessage {
 		funcID = SRVRQST;
 		prevRespList = new ArrayList();
 		serviceType = type;
-		predicate = filterStr == null ? null : SLPCore.platform
-				.createFilter(filterStr);
+		predicate = filterStr == null ? null : getFilter(filterStr);
 		scopeList = scopes;
 		if (scopeList == null) {
 			scopeList = new ArrayList();
@@ -96,8 +116,7 @@ class ServiceRequest extends RequestMessage {
 		scopeList = stringToList(input.readUTF(), ",");
 		try {
 			final String filterStr = input.readUTF();
-			predicate = "".equals(filterStr) ? null : SLPCore.platform
-					.createFilter(filterStr);
+			predicate = "".equals(filterStr) ? null : getFilter(filterStr);
 		} catch (IllegalArgumentException ise) {
 			SLPCore.platform.logError("Invalid filter in incoming message "
 						+ xid, ise);
@@ -105,6 +124,31 @@ class ServiceRequest extends RequestMessage {
 		spi = input.readUTF();
 	}
 
+	/**
+	 * get the compiled filter for a filter String. Filters are immutable, so
+	 * the requests using the same filter share it.
+	 * 
+	 * @param filterStr
+	 *            a filter String, RFC 1960 compliant.
+	 * @return the filter.
+	 * @throws IllegalArgumentException
+	 *             if the filter is not well-formed.
+	 */
+	static Filter getFilter(final String filterStr)
+			throws IllegalArgumentException {
+		synchronized (FILTER_CACHE) {
+			final Filter filter = (Filter) FILTER_CACHE.get(filterStr);
+			if (filter != null) {
+				return filter;
+			}
+		}
+		final Filter filter = SLPCore.platform.createFilter(filterStr);
+		synchronized (FILTER_CACHE) {
+			FILTER_CACHE.put(filterStr, filter);
+		}
+		return filter;
+	}
+
 	/**
 	 * get the bytes of the message body in the following RFC 2608 compliant
 	 * format:
@@ -0,0 +1,76 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+
+/**
+ * A pool of direct buffers of a fixed size that are shared by all channels
+ * for sending and receiving messages. Allocating direct buffers is expensive,
+ * so buffers are returned to the pool when they are no longer needed.
+ */
+final class BufferPool {
+
+	/**
+	 * The size of the pooled buffers.
+	 */
+	static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * The maximum number of buffers that are kept in the pool.
+	 */
+	private static final int MAX_POOLED = 64;
+
+	private static final LinkedList pool = new LinkedList();
+
+	private BufferPool() {
+		// not instantiated
+	}
+
+	/**
+	 * Takes a cleared direct buffer of {@link #BUFFER_SIZE} bytes from the
+	 * pool, or allocates a new one if the pool is empty.
+	 *
+	 * @return a direct buffer
+	 */
+	static ByteBuffer acquire() {
+		synchronized (pool) {
+			if (!pool.isEmpty()) {
+				return (ByteBuffer) pool.removeFirst();
+			}
+		}
+		return ByteBuffer.allocateDirect(BUFFER_SIZE);
+	}
+
+	/**
+	 * Returns a buffer to the pool. Buffers that have not been taken from the
+	 * pool are ignored, as are buffers that would exceed the pool's size.
+	 *
+	 * @param buffer
+	 *            the buffer that is no longer used
+	 */
+	static void release(ByteBuffer buffer) {
+		if (!buffer.isDirect() || buffer.capacity() != BUFFER_SIZE
+				|| buffer.isReadOnly()) {
+			return;
+		}
+		buffer.clear();
+		synchronized (pool) {
+			if (pool.size() < MAX_POOLED) {
+				pool.addLast(buffer);
+			}
+		}
+	}
+
+}
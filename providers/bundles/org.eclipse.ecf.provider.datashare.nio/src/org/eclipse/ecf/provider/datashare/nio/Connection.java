@@ -0,0 +1,383 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.eclipse.ecf.core.identity.ID;
+
+/**
+ * A socket connection that is serviced by a selector. The data read from the
+ * socket is kept in the connection's read buffer until complete objects or
+ * messages can be taken from it, and the data to be sent is queued until the
+ * socket accepts it.
+ * <p>
+ * Messages are framed either as serialized byte[]s, as they have always been
+ * sent, or with a raw header of two magic bytes and the length of the message.
+ * The framing of each received message is detected from its first byte.
+ * </p>
+ * <p>
+ * A connection is only used by the thread of the selector it is registered
+ * with.
+ * </p>
+ */
+final class Connection {
+
+	/**
+	 * The maximum number of queued buffers written at once.
+	 */
+	private static final int MAX_GATHER = 64;
+
+	/**
+	 * The serialized form of a byte[] up to its length. Messages are sent as
+	 * serialized byte[]s, so the length of a message is known once this prefix
+	 * and the length have been read.
+	 */
+	private static final byte[] ARRAY_PREFIX;
+
+	static {
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			ObjectOutputStream oos = new ObjectOutputStream(baos);
+			oos.writeObject(new byte[0]);
+			oos.flush();
+			byte[] bytes = baos.toByteArray();
+			// strip the length of the empty array
+			ARRAY_PREFIX = new byte[bytes.length - 4];
+			System.arraycopy(bytes, 0, ARRAY_PREFIX, 0, ARRAY_PREFIX.length);
+		} catch (IOException e) {
+			// may never happen
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
+	/**
+	 * The first two bytes of a raw frame. A serialized byte[] always starts
+	 * with <code>0xAC</code>.
+	 */
+	private static final byte[] RAW_MAGIC = { 'N', 'I' };
+
+	private static final int RAW_HEADER_LENGTH = RAW_MAGIC.length + 4;
+
+	private static final int ARRAY_HEADER_LENGTH = ARRAY_PREFIX.length + 4;
+
+	private final SocketChannel socketChannel;
+
+	/**
+	 * The data read from the socket. The data from {@link #readPosition} up
+	 * to the buffer's position has not been taken yet, and the buffer is kept
+	 * ready for reading more data into it.
+	 */
+	private ByteBuffer readBuffer = BufferPool.acquire();
+
+	/**
+	 * The index of the first byte in the read buffer that has not been taken.
+	 */
+	private int readPosition;
+
+	/**
+	 * The number of bytes from {@link #readPosition} that are needed for the
+	 * next message, or zero if not known.
+	 */
+	private int required;
+
+	/**
+	 * The buffers waiting to be written to the socket.
+	 */
+	private final LinkedList writeQueue = new LinkedList();
+
+	/**
+	 * The id of the remote peer, <code>null</code> until the handshake with
+	 * the peer has completed.
+	 */
+	private ID id;
+
+	Connection(SocketChannel socketChannel) {
+		this.socketChannel = socketChannel;
+	}
+
+	SocketChannel getSocketChannel() {
+		return socketChannel;
+	}
+
+	ID getId() {
+		return id;
+	}
+
+	void setId(ID id) {
+		this.id = id;
+	}
+
+	/**
+	 * Frames a message for sending. The header and the message are copied
+	 * into buffers that are returned to the {@link BufferPool} once they have
+	 * been written, so the message may be reused as soon as this method
+	 * returns.
+	 *
+	 * @param message
+	 *            the message, from its position to its limit, the position is
+	 *            not changed
+	 * @param raw
+	 *            <code>true</code> for a raw header, <code>false</code> for a
+	 *            serialized byte[]
+	 * @return the buffers to write, in order
+	 */
+	static ByteBuffer[] frame(ByteBuffer message, boolean raw) {
+		ByteBuffer source = message.duplicate();
+		int length = source.remaining();
+		int chunks = length / BufferPool.BUFFER_SIZE;
+		int head = length % BufferPool.BUFFER_SIZE;
+
+		ByteBuffer[] buffers = new ByteBuffer[chunks + 1];
+		// the header and the part of the message that does not fill a pooled
+		// buffer go into a small buffer of their own
+		buffers[0] = ByteBuffer.allocate((raw ? RAW_HEADER_LENGTH
+				: ARRAY_HEADER_LENGTH)
+				+ head);
+		buffers[0].put(raw ? RAW_MAGIC : ARRAY_PREFIX).putInt(length);
+		copy(source, buffers[0], head);
+		for (int i = 1; i < buffers.length; i++) {
+			buffers[i] = BufferPool.acquire();
+			copy(source, buffers[i], BufferPool.BUFFER_SIZE);
+		}
+		return buffers;
+	}
+
+	private static void copy(ByteBuffer source, ByteBuffer target, int length) {
+		int limit = source.limit();
+		source.limit(source.position() + length);
+		target.put(source);
+		source.limit(limit);
+		target.flip();
+	}
+
+	/**
+	 * Reads the data available from the socket into the read buffer. Messages
+	 * taken from the connection before are no longer valid afterwards.
+	 *
+	 * @return <code>true</code> if the socket is still open,
+	 *         <code>false</code> if it has reached end-of-stream
+	 * @throws IOException
+	 *             if an error occurs while reading from the socket
+	 */
+	boolean read() throws IOException {
+		int untaken = readBuffer.position() - readPosition;
+		if (readBuffer.capacity() > BufferPool.BUFFER_SIZE
+				&& untaken < BufferPool.BUFFER_SIZE
+				&& required <= BufferPool.BUFFER_SIZE) {
+			// the large message the buffer was grown for has been taken, so
+			// go back to a pooled buffer
+			moveTo(BufferPool.acquire());
+		} else if (untaken == 0) {
+			// everything has been taken
+			readBuffer.clear();
+			readPosition = 0;
+		}
+		if (required > readBuffer.capacity() - readPosition
+				|| !readBuffer.hasRemaining()) {
+			// make room for the rest of the next message
+			int available = readBuffer.position() - readPosition;
+			int capacity = Math.max(required, available + 1);
+			if (capacity > readBuffer.capacity()) {
+				grow(Math.max(capacity, readBuffer.capacity() * 2));
+			} else {
+				compact();
+			}
+		}
+		return socketChannel.read(readBuffer) != -1;
+	}
+
+	/**
+	 * Moves the data that has not been taken yet to the start of the read
+	 * buffer.
+	 */
+	private void compact() {
+		readBuffer.limit(readBuffer.position());
+		readBuffer.position(readPosition);
+		readBuffer.compact();
+		readPosition = 0;
+	}
+
+	private void grow(int capacity) {
+		moveTo(ByteBuffer.allocateDirect(capacity));
+	}
+
+	/**
+	 * Replaces the read buffer with the given buffer, into which the data that
+	 * has not been taken yet is moved. The old buffer is returned to the
+	 * {@link BufferPool} if it came from there.
+	 */
+	private void moveTo(ByteBuffer buffer) {
+		readBuffer.limit(readBuffer.position());
+		readBuffer.position(readPosition);
+		buffer.put(readBuffer);
+		BufferPool.release(readBuffer);
+		readBuffer = buffer;
+		readPosition = 0;
+	}
+
+	/**
+	 * Takes the specified number of individually serialized objects from the
+	 * data read so far.
+	 *
+	 * @param count
+	 *            the number of objects
+	 * @return the objects, or <code>null</code> if not all of them have been
+	 *         read completely yet, in which case nothing is taken
+	 * @throws IOException
+	 *             if the data is not a serialized object
+	 * @throws ClassNotFoundException
+	 *             if the class of an object could not be found
+	 */
+	Object[] readObjects(int count) throws IOException, ClassNotFoundException {
+		ByteBuffer data = readBuffer.duplicate();
+		data.limit(data.position());
+		data.position(readPosition);
+		byte[] bytes = new byte[data.remaining()];
+		data.get(bytes);
+
+		ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
+		Object[] objects = new Object[count];
+		try {
+			for (int i = 0; i < count; i++) {
+				// each object is serialized separately
+				objects[i] = new ObjectInputStream(bais).readObject();
+			}
+		} catch (EOFException e) {
+			// not read completely yet
+			return null;
+		}
+		readPosition += bytes.length - bais.available();
+		return objects;
+	}
+
+	/**
+	 * Takes the next message from the data read so far.
+	 *
+	 * @param maxMessageSize
+	 *            the maximum size of a message in bytes
+	 * @return a read-only view of the message in the read buffer, valid until
+	 *         the next call to {@link #read()}, or <code>null</code> if it has
+	 *         not been read completely yet
+	 * @throws IOException
+	 *             if the data is not a framed message, or the message is
+	 *             larger than maxMessageSize
+	 */
+	ByteBuffer readMessage(int maxMessageSize) throws IOException {
+		int available = readBuffer.position() - readPosition;
+		if (available == 0) {
+			required = 0;
+			return null;
+		}
+
+		byte[] prefix = readBuffer.get(readPosition) == RAW_MAGIC[0] ? RAW_MAGIC
+				: ARRAY_PREFIX;
+		int headerLength = prefix.length + 4;
+		if (available < headerLength) {
+			required = headerLength;
+			return null;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (readBuffer.get(readPosition + i) != prefix[i]) {
+				throw new StreamCorruptedException(
+						"Message is not framed"); //$NON-NLS-1$
+			}
+		}
+		int length = readBuffer.getInt(readPosition + prefix.length);
+		if (length < 0 || length > Integer.MAX_VALUE - headerLength) {
+			throw new StreamCorruptedException(
+					"Invalid message length: " + length); //$NON-NLS-1$
+		}
+		if (length > maxMessageSize) {
+			throw new IOException("Message of " + length //$NON-NLS-1$
+					+ " bytes exceeds the maximum size of " + maxMessageSize); //$NON-NLS-1$
+		}
+		if (available < headerLength + length) {
+			required = headerLength + length;
+			return null;
+		}
+
+		ByteBuffer message = readBuffer.duplicate();
+		message.limit(readPosition + headerLength + length);
+		message.position(readPosition + headerLength);
+		readPosition += headerLength + length;
+		required = 0;
+		return message.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Queues the buffer's remaining data for writing.
+	 *
+	 * @param buffer
+	 *            the data to write
+	 */
+	void write(ByteBuffer buffer) {
+		writeQueue.add(buffer);
+	}
+
+	/**
+	 * Writes as much of the queued data to the socket as it accepts. Queued
+	 * buffers are written together with a gathering write, and returned to
+	 * the {@link BufferPool} once written.
+	 *
+	 * @return <code>true</code> if all queued data has been written,
+	 *         <code>false</code> if the socket did not accept all of it
+	 * @throws IOException
+	 *             if an error occurs while writing to the socket
+	 */
+	boolean flush() throws IOException {
+		while (!writeQueue.isEmpty()) {
+			ByteBuffer[] buffers = new ByteBuffer[Math.min(writeQueue.size(),
+					MAX_GATHER)];
+			Iterator it = writeQueue.iterator();
+			for (int i = 0; i < buffers.length; i++) {
+				buffers[i] = (ByteBuffer) it.next();
+			}
+
+			socketChannel.write(buffers);
+
+			while (!writeQueue.isEmpty()
+					&& !((ByteBuffer) writeQueue.getFirst()).hasRemaining()) {
+				BufferPool.release((ByteBuffer) writeQueue.removeFirst());
+			}
+			if (buffers[buffers.length - 1].hasRemaining()) {
+				// the socket's send buffer is full
+				return false;
+			}
+		}
+		return true;
+	}
+
+	void close() {
+		while (!writeQueue.isEmpty()) {
+			BufferPool.release((ByteBuffer) writeQueue.removeFirst());
+		}
+		Util.closeChannel(socketChannel);
+		BufferPool.release(readBuffer);
+		// the read buffer must not be released again
+		readBuffer = ByteBuffer.allocate(0);
+		readPosition = 0;
+		required = 0;
+	}
+
+}
@@ -0,0 +1,50 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.datashare.IChannelListener;
+
+/**
+ * A channel listener that receives the messages of an {@link NIOChannel}
+ * without them being copied. Other channel events are still delivered to
+ * {@link #handleChannelEvent(org.eclipse.ecf.datashare.events.IChannelEvent)}
+ * but no <code>IChannelMessageEvent</code>s are.
+ * <p>
+ * <b>Note:</b> This class/interface is part of an interim API that is still
+ * under development and expected to change significantly before reaching
+ * stability. It is being made available at this early stage to solicit feedback
+ * from pioneering adopters on the understanding that any code that uses this
+ * API will almost certainly be broken (repeatedly) as the API evolves.
+ * </p>
+ */
+public interface IByteBufferChannelListener extends IChannelListener {
+
+	/**
+	 * Handles a message that has been received from a remote peer.
+	 * <p>
+	 * The message is a read-only view of the channel's receive buffer and is
+	 * only valid until this method returns. Implementations that need the
+	 * message afterwards must copy it.
+	 * </p>
+	 *
+	 * @param fromContainerId
+	 *            the id of the container that sent the message
+	 * @param message
+	 *            the message, from its position to its limit
+	 */
+	public void handleMessage(ID fromContainerId, ByteBuffer message);
+
+}
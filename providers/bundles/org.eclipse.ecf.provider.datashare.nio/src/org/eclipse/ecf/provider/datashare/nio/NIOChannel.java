@@ -12,14 +12,12 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.datashare.nio;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.ServerSocket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
@@ -109,14 +107,21 @@ public abstract class NIOChannel implements IChannel {
 
 	/**
 	 * A map of <code>ID</code>s to their corresponding
-	 * <code>SocketChannel</code>s.
+	 * <code>Connection</code>s.
 	 */
 	private Map connectedSockets;
 
 	/**
-	 * A list of sockets that is waiting to handshake with remote peers.
+	 * A list of connections established by the datashare container that are
+	 * waiting to be registered with this channel's selector.
 	 */
-	private List pendingSockets;
+	private List pendingRegistrations;
+
+	/**
+	 * The selector that the server socket and the connected sockets are
+	 * registered with.
+	 */
+	private Selector selector;
 
 	/**
 	 * A queue of messages that needs to be sent to remote clients.
@@ -129,8 +134,8 @@ public abstract class NIOChannel implements IChannel {
 	private IChannelListener listener;
 
 	/**
-	 * The thread responsible for processing incoming messages and sending
-	 * messages to remote peers.
+	 * The thread responsible for accepting connections, processing incoming
+	 * messages and sending messages to remote peers.
 	 */
 	private Thread processingThread;
 
@@ -186,8 +191,17 @@ public abstract class NIOChannel implements IChannel {
 
 		localPort = serverSocketChannel.socket().getLocalPort();
 
+		try {
+			selector = Selector.open();
+			serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			Util.closeChannel(serverSocketChannel);
+			throw new ECFException(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"Could not open selector", e)); //$NON-NLS-1$
+		}
+
 		connectedSockets = new HashMap();
-		pendingSockets = new ArrayList();
+		pendingRegistrations = new ArrayList();
 		messages = new LinkedList();
 
 		processingThread = new Thread(new ProcessingRunnable(), getClass()
@@ -280,207 +294,196 @@ public abstract class NIOChannel implements IChannel {
 	}
 
 	/**
-	 * Sends any pending messages we may have queued up.
+	 * Returns whether messages are sent with a raw header of their length
+	 * instead of as serialized byte[]s. Received messages are accepted in
+	 * either framing, but peers that run versions of this channel prior to
+	 * 0.10.0 only accept serialized byte[]s, so raw framing is off by
+	 * default.
+	 * 
+	 * @return <code>true</code> if messages should be sent with raw framing,
+	 *         <code>false</code> otherwise
+	 * @since 0.10.0
 	 */
-	private void sendPendingMessages() {
-		Collection deadSockets = null;
-		Collection processedMessages = null;
+	protected boolean isRawFramingEnabled() {
+		return false;
+	}
 
-		for (Iterator it = messages.iterator(); it.hasNext();) {
-			ChannelMessage message = (ChannelMessage) it.next();
-			ID id = message.getId();
-			SocketChannel channel = (SocketChannel) connectedSockets.get(id);
-			// check if we have a socket for the target of this message
-			if (channel != null) {
-				byte[] data = message.getData();
+	/**
+	 * Returns the maximum size in bytes of a message that this channel
+	 * accepts. A connection that receives a larger message is closed. The
+	 * default is given by the
+	 * <code>org.eclipse.ecf.provider.datashare.nio.maxMessageSize</code>
+	 * system property, or 64 MB if it is not set.
+	 * 
+	 * @return the maximum size of a received message in bytes
+	 * @since 0.10.0
+	 */
+	protected int getMaxMessageSize() {
+		return Integer.getInteger(Util.PLUGIN_ID + ".maxMessageSize", //$NON-NLS-1$
+				64 * 1024 * 1024).intValue();
+	}
 
-				try {
-					// flush the data directly with regular IO, this method
-					// saves us the extra work of having to constantly flip and
-					// clear a ByteBuffer and in a way ensures the message is
-					// sent in one piece instead of chunks
-					channel.configureBlocking(true);
-					channel.socket().getOutputStream().write(data);
-					channel.socket().getOutputStream().flush();
-					// turn off blocking
-					channel.configureBlocking(false);
-				} catch (IOException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Error occurred while sending message", e)); //$NON-NLS-1$
-					if (deadSockets == null) {
-						deadSockets = new HashSet();
+	/**
+	 * Queues any pending messages for the peers that we have a connection with
+	 * and writes them out.
+	 */
+	private void sendPendingMessages() {
+		Collection touched = null;
+
+		synchronized (messages) {
+			for (Iterator it = messages.iterator(); it.hasNext();) {
+				ChannelMessage message = (ChannelMessage) it.next();
+				Connection connection = getConnection(message.getId());
+				// check if we have a registered socket for the target of this
+				// message
+				if (connection != null
+						&& connection.getSocketChannel().keyFor(selector) != null) {
+					ByteBuffer[] buffers = message.getBuffers();
+					for (int i = 0; i < buffers.length; i++) {
+						connection.write(buffers[i]);
 					}
-					deadSockets.add(id);
-				}
+					it.remove();
 
-				if (processedMessages == null) {
-					processedMessages = new LinkedList();
+					if (touched == null) {
+						touched = new HashSet();
+					}
+					touched.add(connection);
 				}
-				// store the processed message
-				processedMessages.add(message);
 			}
 		}
 
-		// remove all messages that have been processed
-		if (processedMessages != null) {
-			messages.removeAll(processedMessages);
-		}
-
-		if (deadSockets != null) {
-			for (Iterator it = deadSockets.iterator(); it.hasNext();) {
-				ID id = (ID) it.next();
-				SocketChannel channel = (SocketChannel) connectedSockets
-						.remove(id);
-				Util.closeChannel(channel);
+		if (touched != null) {
+			for (Iterator it = touched.iterator(); it.hasNext();) {
+				flush((Connection) it.next());
 			}
 		}
 	}
 
 	/**
-	 * Reads in any incoming messages from remote clients.
+	 * Writes out the data queued for the connection. If the socket does not
+	 * accept all of it, the rest is written when the socket becomes writable.
 	 * 
-	 * @param buffer
-	 *            the buffer to use for reading the socket
-	 * @throws IOException
-	 *             if an error occurs while reading from the socket
+	 * @param connection
+	 *            the connection to write to
 	 */
-	private void processIncomingMessages(ByteBuffer buffer) throws IOException {
-		Collection deadSockets = null;
-
-		for (Iterator it = connectedSockets.entrySet().iterator(); it.hasNext();) {
-			Map.Entry entry = (Map.Entry) it.next();
-			SocketChannel socketChannel = (SocketChannel) entry.getValue();
-
-			try {
-				if (!processIncomingMessages(socketChannel, buffer)) {
-					if (deadSockets == null) {
-						deadSockets = new HashSet();
-					}
-					deadSockets.add(entry.getKey());
-				}
-			} catch (IOException e) {
-				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-						"Error occurred while sending message", e)); //$NON-NLS-1$
-				if (deadSockets == null) {
-					deadSockets = new HashSet();
-				}
-				deadSockets.add(entry.getKey());
-			}
-		}
-
-		if (deadSockets != null) {
-			for (Iterator it = deadSockets.iterator(); it.hasNext();) {
-				ID id = (ID) it.next();
-				SocketChannel channel = (SocketChannel) connectedSockets
-						.remove(id);
-				Util.closeChannel(channel);
+	private void flush(Connection connection) {
+		SelectionKey key = connection.getSocketChannel().keyFor(selector);
+		try {
+			if (connection.flush()) {
+				key.interestOps(SelectionKey.OP_READ);
+			} else {
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
 			}
+		} catch (IOException e) {
+			log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"Error occurred while sending message", e)); //$NON-NLS-1$
+			close(connection);
 		}
 	}
 
 	/**
-	 * Processes any incoming messages from the specified channel by reading it
-	 * into the specified buffer and returns whether the channel has reached
-	 * end-of-stream.
+	 * Reads in the data that is available from the connection and processes
+	 * the handshake or the messages that have been received completely.
 	 * 
-	 * @param socketChannel
-	 *            the channel to read messages from
-	 * @param buffer
-	 *            the buffer to use to read the messages into
-	 * @return <code>true</code> if the channel is still active,
-	 *         <code>false</code> has reached end-of-stream
+	 * @param connection
+	 *            the connection to read from
+	 * @throws ClassNotFoundException
+	 *             if deserialization failed during the handshake
 	 * @throws IOException
-	 *             if an error occurred while trying to read from the channel
+	 *             if an error occurs while reading from the socket
 	 */
-	private boolean processIncomingMessages(SocketChannel socketChannel,
-			ByteBuffer buffer) throws IOException {
-		ChannelData channelData = Util.read(socketChannel, buffer);
-		byte[] message = channelData.getData();
-
-		if (message != null) {
-			processIncomingMessage(socketChannel, message);
+	private void read(Connection connection) throws ClassNotFoundException,
+			IOException {
+		boolean open = connection.read();
+		if (connection.getId() == null) {
+			handshake(connection);
+		}
+		if (connection.getId() != null) {
+			processIncomingMessages(connection);
+		}
+		if (!open) {
+			// this channel is dead, close it
+			close(connection);
 		}
-		return channelData.isOpen();
 	}
 
 	/**
-	 * Processes the message that has been received from the specified channel.
+	 * Processes the messages that have been received completely from the
+	 * specified connection.
 	 * 
-	 * @param socketChannel
-	 *            the channel that the message was from
-	 * @param message
-	 *            the message that was received
+	 * @param connection
+	 *            the connection that the messages were from
+	 * @throws IOException
+	 *             if the data received is not a valid message or is larger
+	 *             than {@link #getMaxMessageSize()}
 	 */
-	void processIncomingMessage(SocketChannel socketChannel, byte[] message) {
-		// we read something, need to notify
-		IChannelListener listener = getListener();
-		if (listener != null) {
-			// we have a listener, convert our data and then notify
-			byte[][] messages = convert(message);
-			if (messages != null) {
-				fireMessageEvents(listener, socketChannel, messages);
+	private void processIncomingMessages(Connection connection)
+			throws IOException {
+		int maxMessageSize = getMaxMessageSize();
+		for (ByteBuffer message = connection.readMessage(maxMessageSize); message != null; message = connection
+				.readMessage(maxMessageSize)) {
+			IChannelListener listener = getListener();
+			if (listener != null) {
+				fireMessage(listener, connection.getId(), message);
 			}
 		}
 	}
 
 	/**
-	 * Converts the data that has been read from the socket into separate byte[]
-	 * instances.
+	 * Closes the connection and forgets about it if it is the connection of
+	 * its peer.
 	 * 
-	 * @param message
-	 *            the data read from the socket
-	 * @return a byte[][] containing the individual messages
+	 * @param connection
+	 *            the connection to close
 	 */
-	private byte[][] convert(byte[] message) {
-		try {
-			// back the read in data with a ByteArrayInputStream
-			ByteArrayInputStream bais = new ByteArrayInputStream(message);
-			// instantiate an ObjectInputStream and read the individual
-			// byte[]
-			byte[] bytes = (byte[]) new ObjectInputStream(bais).readObject();
-
-			if (bais.available() == 0) {
-				return new byte[][] { bytes };
-			}
-
-			Collection c = new ArrayList();
-			c.add(bytes);
-
-			while (bais.available() != 0) {
-				// instantiate an ObjectInputStream and read the individual
-				// byte[]
-				bytes = (byte[]) new ObjectInputStream(bais).readObject();
-				// store it
-				c.add(bytes);
+	private void close(Connection connection) {
+		ID peerId = connection.getId();
+		if (peerId != null) {
+			synchronized (connectedSockets) {
+				if (connectedSockets.get(peerId) == connection) {
+					connectedSockets.remove(peerId);
+				}
 			}
+		}
+		connection.close();
+	}
 
-			// return all the individual byte[]s
-			return (byte[][]) c.toArray(new byte[c.size()][]);
-		} catch (IOException e) {
-			return null;
-		} catch (ClassNotFoundException e) {
-			return null;
+	private Connection getConnection(ID peerId) {
+		synchronized (connectedSockets) {
+			return (Connection) connectedSockets.get(peerId);
 		}
 	}
 
 	/**
-	 * Fires message events to the specified listener for each of the message
-	 * that was received.
+	 * Notifies the specified listener of a message that was received. An
+	 * <code>IByteBufferChannelListener</code> is handed the message itself,
+	 * other listeners are sent a message event with a copy of it.
 	 * 
 	 * @param listener
 	 *            the listener to notify
-	 * @param socketChannel
-	 *            the socket that the message was read from
-	 * @param messages
-	 *            the messages that have been received
-	 */
-	private void fireMessageEvents(IChannelListener listener,
-			SocketChannel socketChannel, byte[][] messages) {
-		for (int i = 0; i < messages.length; i++) {
-			IChannelEvent event = createMessageEvent(socketChannel, messages[i]);
-			if (event != null) {
-				fireChannelEvent(listener, event);
-			}
+	 * @param fromId
+	 *            the id of the peer that the message was from
+	 * @param message
+	 *            a view of the message in the connection's read buffer
+	 */
+	private void fireMessage(final IChannelListener listener, final ID fromId,
+			final ByteBuffer message) {
+		if (listener instanceof IByteBufferChannelListener) {
+			SafeRunner.run(new ISafeRunnable() {
+				public void run() throws Exception {
+					((IByteBufferChannelListener) listener).handleMessage(
+							fromId, message);
+				}
+
+				public void handleException(Throwable t) {
+					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+							"Error handling channel message", t)); //$NON-NLS-1$
+				}
+			});
+		} else {
+			byte[] data = new byte[message.remaining()];
+			message.get(data);
+			fireChannelEvent(listener, createMessageEvent(fromId, data));
 		}
 	}
 
@@ -511,158 +514,140 @@ public abstract class NIOChannel implements IChannel {
 	}
 
 	/**
-	 * Creates and returns a message event corresponding to the specified
-	 * channel and the data that was read.
+	 * Creates and returns a message event corresponding to the specified peer
+	 * and the data that was read.
 	 * 
-	 * @param channel
-	 *            the socket channel that the message was from
+	 * @param fromId
+	 *            the id of the peer that the message was from
 	 * @param data
 	 *            the message from the remote peer
-	 * @return a message event describing the received message, may be
-	 *         <code>null</code> if the channel could not be identified
-	 */
-	private IChannelEvent createMessageEvent(SocketChannel channel,
-			final byte[] data) {
-		// search for the id of the corresponding channel
-		for (Iterator it = connectedSockets.entrySet().iterator(); it.hasNext();) {
-			Map.Entry entry = (Map.Entry) it.next();
-			if (channel == entry.getValue()) {
-				final ID fromId = (ID) entry.getKey();
-
-				return new IChannelMessageEvent() {
-					public byte[] getData() {
-						return data;
-					}
+	 * @return a message event describing the received message
+	 */
+	private IChannelEvent createMessageEvent(final ID fromId, final byte[] data) {
+		return new IChannelMessageEvent() {
+			public byte[] getData() {
+				return data;
+			}
 
-					public ID getFromContainerID() {
-						return fromId;
-					}
+			public ID getFromContainerID() {
+				return fromId;
+			}
 
-					public ID getChannelID() {
-						return id;
-					}
+			public ID getChannelID() {
+				return id;
+			}
 
-					public String toString() {
-						StringBuffer buffer = new StringBuffer();
-						buffer.append("IChannelMessageEvent["); //$NON-NLS-1$
-						buffer.append("container=").append(fromId); //$NON-NLS-1$
-						buffer.append(",channel=").append(id); //$NON-NLS-1$
-						buffer.append(",data=").append(data).append(']'); //$NON-NLS-1$
-						return buffer.toString();
-					}
-				};
+			public String toString() {
+				StringBuffer buffer = new StringBuffer();
+				buffer.append("IChannelMessageEvent["); //$NON-NLS-1$
+				buffer.append("container=").append(fromId); //$NON-NLS-1$
+				buffer.append(",channel=").append(id); //$NON-NLS-1$
+				buffer.append(",data=").append(data).append(']'); //$NON-NLS-1$
+				return buffer.toString();
 			}
-		}
-		return null;
+		};
 	}
 
 	/**
-	 * Stores the specified ID with its corresponding socket into this channel.
-	 * The socket will now be actively used for reading and sending messages.
+	 * Stores the specified ID with its corresponding connection into this
+	 * channel. The connection will now be actively used for reading and
+	 * sending messages. Any data already read from the connection is
+	 * processed once the connection has been registered with this channel's
+	 * selector.
 	 * 
 	 * @param id
 	 *            the target that the socket is connected with
-	 * @param socketChannel
-	 *            the socket channel to be stored
+	 * @param connection
+	 *            the connection to be stored
+	 */
+	void put(ID id, Connection connection) {
+		connection.setId(id);
+		synchronized (connectedSockets) {
+			connectedSockets.put(id, connection);
+		}
+		synchronized (pendingRegistrations) {
+			pendingRegistrations.add(connection);
+		}
+		selector.wakeup();
+	}
+
+	/**
+	 * Registers the connections established by the datashare container with
+	 * this channel's selector.
 	 */
-	void put(ID id, SocketChannel socketChannel) {
-		connectedSockets.put(id, socketChannel);
+	private void registerConnections() {
+		Connection[] connections;
+		synchronized (pendingRegistrations) {
+			if (pendingRegistrations.isEmpty()) {
+				return;
+			}
+			connections = (Connection[]) pendingRegistrations
+					.toArray(new Connection[pendingRegistrations.size()]);
+			pendingRegistrations.clear();
+		}
+
+		for (int i = 0; i < connections.length; i++) {
+			try {
+				connections[i].getSocketChannel().register(selector,
+						SelectionKey.OP_READ, connections[i]);
+				// process what has been read during the handshake
+				processIncomingMessages(connections[i]);
+			} catch (IOException e) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"An IO error occurred", e)); //$NON-NLS-1$
+				close(connections[i]);
+			}
+		}
 	}
 
 	/**
-	 * Accept the socket as a potential client and attempt to handshake with it.
+	 * Accepts an incoming connection. The connection handshakes with the
+	 * remote peer before it is used for messages.
 	 * 
-	 * @param socketChannel
-	 *            the socket to establish a connection with
-	 * @throws ClassNotFoundException
-	 *             if the class of an object being deserialized could not be
-	 *             found
 	 * @throws IOException
-	 *             if a networking error occurs with the socket while
-	 *             reading/sending messages
-	 */
-	// private boolean accept2(SocketChannel socketChannel, ByteBuffer buffer)
-	// throws ClassNotFoundException, IOException {
-	// int read = socketChannel.read(buffer);
-	// buffer.flip();
-	// byte[] bytes = new byte[read];
-	// buffer.get(bytes);
-	// buffer.clear();
-	//
-	// ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
-	// bytes));
-	// Object object = ois.readObject();
-	//
-	// if (object instanceof ID) {
-	// bytes = serialize(id);
-	// socketChannel.socket().getOutputStream().write(bytes);
-	//
-	// bytes = serialize(containerId);
-	// socketChannel.socket().getOutputStream().write(bytes);
-	// socketChannel.socket().getOutputStream().flush();
-	//
-	// socketChannel.configureBlocking(false);
-	// put((ID) object, socketChannel);
-	// }
-	// return true;
-	// }
-
-	/**
-	 * Performs a handshake with a remote peer via the provided socket channel
-	 * and returns whether <code>true</code> if no further attempts are
-	 * required. Note that <code>true</code> does not indicate that the
-	 * handshake has been successful.
-	 * <p>
-	 * For example, if the remote peer has closed this channel then
-	 * <code>true</code> would be returned as no further attempts should be
-	 * attempted.
-	 * </p>
+	 *             if an IO error occurred while accepting the connection
+	 */
+	private void accept() throws IOException {
+		SocketChannel socketChannel = serverSocketChannel.accept();
+		if (socketChannel != null) {
+			socketChannel.configureBlocking(false);
+			socketChannel.register(selector, SelectionKey.OP_READ,
+					new Connection(socketChannel));
+		}
+	}
+
+	/**
+	 * Performs a handshake with a remote peer via the provided connection once
+	 * the peer's id has been read completely. The id of this channel and of
+	 * the owner container are sent back to the peer.
 	 * 
-	 * @param socketChannel
-	 *            the channel to use to handshake with the remote peer
-	 * @param buffer
-	 *            the buffer to use for reading and writing data from the
-	 *            channel
-	 * @return <code>true</code> if no further handshake attempts are required,
-	 *         <code>false</code> otherwise
+	 * @param connection
+	 *            the connection to use to handshake with the remote peer
 	 * @throws ClassNotFoundException
 	 *             if deserialization failed during the handshake
 	 * @throws IOException
 	 *             if an IO error occurred while performing the handshake
 	 */
-	private boolean handshake(SocketChannel socketChannel, ByteBuffer buffer)
+	private void handshake(Connection connection)
 			throws ClassNotFoundException, IOException {
-		ChannelData data = Util.read(socketChannel, buffer);
-		if (!data.isOpen()) {
-			// this channel is dead, close it
-			Util.closeChannel(socketChannel);
-			return true;
-		}
-
-		byte[] bytes = data.getData();
-		if (bytes == null) {
-			return false;
+		Object[] objects = connection.readObjects(1);
+		if (objects == null) {
+			return;
 		}
 
-		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
-				bytes));
-		Object object = ois.readObject();
+		if (objects[0] instanceof ID) {
+			connection.write(ByteBuffer.wrap(Util.serialize(id)));
+			connection.write(ByteBuffer.wrap(Util.serialize(containerId)));
 
-		if (object instanceof ID) {
-			socketChannel.configureBlocking(true);
-			byte[] one = Util.serialize(id);
-			byte[] two = Util.serialize(containerId);
-			bytes = new byte[one.length + two.length];
-			System.arraycopy(one, 0, bytes, 0, one.length);
-			System.arraycopy(two, 0, bytes, one.length, two.length);
-
-			socketChannel.socket().getOutputStream().write(bytes);
-			socketChannel.socket().getOutputStream().flush();
-
-			socketChannel.configureBlocking(false);
-			put((ID) object, socketChannel);
+			ID peerId = (ID) objects[0];
+			connection.setId(peerId);
+			synchronized (connectedSockets) {
+				connectedSockets.put(peerId, connection);
+			}
+			flush(connection);
+		} else {
+			close(connection);
 		}
-		return true;
 	}
 
 	/**
@@ -721,11 +706,36 @@ public abstract class NIOChannel implements IChannel {
 	 *            the message to send, must not be <code>null</code>
 	 */
 	public void sendMessage(ID receiver, byte[] message) throws ECFException {
+		Assert.isNotNull(message, "Message cannot be null"); //$NON-NLS-1$
+		sendMessage(receiver, ByteBuffer.wrap(message));
+	}
+
+	/**
+	 * Sends the remaining bytes of the buffer as a message to a remote
+	 * instance of this channel of the target peer. The bytes are copied before
+	 * this method returns, so the buffer may be reused right away. Its
+	 * position is not changed.
+	 * <p>
+	 * The same restrictions as for {@link #sendMessage(ID, byte[])} apply.
+	 * </p>
+	 * 
+	 * @param receiver
+	 *            the receiver to send the message to, must not be
+	 *            <code>null</code>
+	 * @param message
+	 *            the message to send, must not be <code>null</code>
+	 * @throws ECFException
+	 *             if an error occurred while requesting a connection with the
+	 *             receiver
+	 * @since 0.10.0
+	 */
+	public void sendMessage(ID receiver, ByteBuffer message)
+			throws ECFException {
 		Assert.isNotNull(receiver, "A receiver must be specified"); //$NON-NLS-1$
 		Assert.isNotNull(message, "Message cannot be null"); //$NON-NLS-1$
 
 		// check if we already have a socket for this receiver
-		if (!connectedSockets.containsKey(receiver)) {
+		if (getConnection(receiver) == null) {
 			// send a request to the receiver for establishing a socket
 			// connection
 			sendRequest(receiver);
@@ -733,8 +743,10 @@ public abstract class NIOChannel implements IChannel {
 
 		synchronized (messages) {
 			// enqueue the message for processing
-			messages.add(new ChannelMessage(receiver, message));
+			messages.add(new ChannelMessage(receiver, Connection.frame(message,
+					isRawFramingEnabled())));
 		}
+		selector.wakeup();
 	}
 
 	/**
@@ -757,13 +769,7 @@ public abstract class NIOChannel implements IChannel {
 		}
 
 		synchronized (connectedSockets) {
-			// close all connections
-			for (Iterator it = connectedSockets.values().iterator(); it
-					.hasNext();) {
-				SocketChannel socket = (SocketChannel) it.next();
-				Util.closeChannel(socket);
-			}
-
+			// the processing thread closes all connections when it stops
 			connectedSockets.clear();
 		}
 
@@ -794,53 +800,101 @@ public abstract class NIOChannel implements IChannel {
 	private final class ProcessingRunnable implements Runnable {
 
 		public void run() {
-			ByteBuffer buffer = ByteBuffer.allocate(1024);
-			while (true) {
-				try {
-					Thread.sleep(50);
-
-					if (Thread.currentThread().isInterrupted()) {
-						return;
-					}
-
-					// perform handshaking for any pending sockets
-					for (int i = 0; i < pendingSockets.size(); i++) {
-						SocketChannel channel = (SocketChannel) pendingSockets
-								.get(i);
-						if (handshake(channel, buffer)) {
-							// remove if handled
-							pendingSockets.remove(i);
-							i--;
-						}
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					// wait until a socket is ready, or until woken up for
+					// new connections or messages
+					selector.select();
+
+					registerConnections();
+
+					for (Iterator it = selector.selectedKeys().iterator(); it
+							.hasNext();) {
+						SelectionKey key = (SelectionKey) it.next();
+						it.remove();
+						process(key);
 					}
 
-					processIncomingMessages(buffer);
-
 					// check if we have pending messages to send
-					synchronized (messages) {
-						if (!messages.isEmpty()) {
-							sendPendingMessages();
+					sendPendingMessages();
+				}
+			} catch (IOException e) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"An IO error occurred", e)); //$NON-NLS-1$
+			} finally {
+				// close all connections
+				for (Iterator it = selector.keys().iterator(); it.hasNext();) {
+					SelectionKey key = (SelectionKey) it.next();
+					if (key.attachment() instanceof Connection) {
+						((Connection) key.attachment()).close();
+					} else {
+						Util.closeChannel(key.channel());
+					}
+				}
+				synchronized (pendingRegistrations) {
+					for (Iterator it = pendingRegistrations.iterator(); it
+							.hasNext();) {
+						((Connection) it.next()).close();
+					}
+					pendingRegistrations.clear();
+				}
+				synchronized (messages) {
+					// return the buffers of the messages that were not sent
+					for (Iterator it = messages.iterator(); it.hasNext();) {
+						ByteBuffer[] buffers = ((ChannelMessage) it.next())
+								.getBuffers();
+						for (int i = 0; i < buffers.length; i++) {
+							BufferPool.release(buffers[i]);
 						}
 					}
+					messages.clear();
+				}
+				try {
+					selector.close();
+				} catch (IOException e) {
+					// ignored
+				}
+			}
+		}
 
-					SocketChannel socketChannel = serverSocketChannel.accept();
-					if (socketChannel != null) {
-						socketChannel.configureBlocking(false);
-						pendingSockets.add(socketChannel);
-					}
-				} catch (InterruptedException e) {
-					Thread.interrupted();
-					return;
-				} catch (ClassNotFoundException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Could not deserialize", e)); //$NON-NLS-1$
+		private void process(SelectionKey key) {
+			if (!key.isValid()) {
+				return;
+			}
+
+			if (key.isAcceptable()) {
+				try {
+					accept();
 				} catch (IOException e) {
 					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
 							"An IO error occurred", e)); //$NON-NLS-1$
-				} catch (RuntimeException e) {
+				}
+				return;
+			}
+
+			Connection connection = (Connection) key.attachment();
+			try {
+				if (key.isReadable()) {
+					read(connection);
+				}
+				if (key.isValid() && key.isWritable()) {
+					flush(connection);
+				}
+			} catch (ClassNotFoundException e) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"Could not deserialize", e)); //$NON-NLS-1$
+				close(connection);
+			} catch (IOException e) {
+				// the socket is closed if this channel is being disposed
+				if (!Thread.currentThread().isInterrupted()) {
 					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"A runtime error occurred", e)); //$NON-NLS-1$
+							"An IO error occurred", e)); //$NON-NLS-1$
 				}
+				close(connection);
+			} catch (RuntimeException e) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"A runtime error occurred", e)); //$NON-NLS-1$
+				close(connection);
 			}
 		}
 	}
@@ -848,30 +902,19 @@ public abstract class NIOChannel implements IChannel {
 	private final class ChannelMessage {
 
 		private ID fromId;
-		private byte[] data;
+		private ByteBuffer[] buffers;
 
-		ChannelMessage(ID fromId, byte[] data) throws ECFException {
+		ChannelMessage(ID fromId, ByteBuffer[] buffers) {
 			this.fromId = fromId;
-			this.data = convert(data);
-		}
-
-		private byte[] convert(byte[] data) throws ECFException {
-			try {
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				ObjectOutputStream oos = new ObjectOutputStream(baos);
-				oos.writeObject(data);
-				return baos.toByteArray();
-			} catch (IOException e) {
-				throw new ECFException(e);
-			}
+			this.buffers = buffers;
 		}
 
 		public ID getId() {
 			return fromId;
 		}
 
-		public byte[] getData() {
-			return data;
+		public ByteBuffer[] getBuffers() {
+			return buffers;
 		}
 
 	}
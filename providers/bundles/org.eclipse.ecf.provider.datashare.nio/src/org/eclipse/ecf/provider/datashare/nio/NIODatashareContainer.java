@@ -12,11 +12,11 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.datashare.nio;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -97,11 +97,17 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	private LinkedList pendingConnections;
 
 	/**
-	 * A list of socket channels that needs to be processed for handshaking with
+	 * A list of connections that needs to be processed for handshaking with
 	 * the remote peer.
 	 */
 	private List pendingSockets;
 
+	/**
+	 * The selector that the sockets connecting to remote peers are registered
+	 * with until the handshake has completed.
+	 */
+	private Selector selector;
+
 	/**
 	 * A map of datashare channels owned by this container mapped by their ids.
 	 */
@@ -281,19 +287,19 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	}
 
 	private void disconnect() {
-		if (connectionThread != null) {
-			connectionThread.interrupt();
-			connectionThread = null;
-		}
-		
 		synchronized (pendingConnections) {
+			if (connectionThread != null) {
+				connectionThread.interrupt();
+				connectionThread = null;
+			}
+
 			pendingConnections.clear();
 		}
 		
 		synchronized (pendingSockets) {
 			for (int i = 0; i < pendingSockets.size(); i++) {
-				SocketChannel channel = (SocketChannel) pendingSockets.get(i);
-				Util.closeChannel(channel);
+				Connection connection = (Connection) pendingSockets.get(i);
+				connection.close();
 			}
 			
 			pendingSockets.clear();
@@ -321,35 +327,50 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	}
 
 	/**
-	 * Attempts to connect to a remote address that has been enqueued to this
+	 * Starts to connect to the remote addresses that have been enqueued to this
 	 * channel container for processing via the {@link #enqueue(SocketAddress)}
-	 * method.
-	 * 
-	 * @param buffer
-	 *            the buffer to use for reading and writing data
-	 * @throws IOException
-	 *             if an IO error occurs while attempting to contact the peer
+	 * method. The id of the parent container is sent to the remote peer once
+	 * the connection has been established.
 	 */
-	private void connect(ByteBuffer buffer) throws IOException {
-		while (!pendingConnections.isEmpty()) {
-			// retrieve an IP address to connect to
-			SocketAddress remote = (SocketAddress) pendingConnections
-					.removeFirst();
-
-			// open a socket channel to the remote address
-			SocketChannel socketChannel = SocketChannel.open(remote);
-
-			byte[] bytes = Util.serialize(container.getConnectedID());
-			if (bytes == null) {
-				// serialization failed, close the socket
-				Util.closeChannel(socketChannel);
-				return;
+	private void connect() {
+		while (true) {
+			SocketAddress remote;
+			synchronized (pendingConnections) {
+				if (pendingConnections.isEmpty()) {
+					return;
+				}
+				// retrieve an IP address to connect to
+				remote = (SocketAddress) pendingConnections.removeFirst();
 			}
 
-			socketChannel.configureBlocking(false);
-			Util.write(socketChannel, buffer, bytes);
+			Connection connection = null;
+			try {
+				// open a socket channel to the remote address
+				SocketChannel socketChannel = SocketChannel.open();
+				connection = new Connection(socketChannel);
+				socketChannel.configureBlocking(false);
 
-			pendingSockets.add(socketChannel);
+				connection.write(ByteBuffer.wrap(Util.serialize(container
+						.getConnectedID())));
+
+				synchronized (pendingSockets) {
+					pendingSockets.add(connection);
+				}
+
+				if (socketChannel.connect(remote)) {
+					socketChannel.register(selector, SelectionKey.OP_READ
+							| SelectionKey.OP_WRITE, connection);
+				} else {
+					socketChannel.register(selector, SelectionKey.OP_CONNECT,
+							connection);
+				}
+			} catch (IOException e) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"An IO error occurred", e)); //$NON-NLS-1$
+				if (connection != null) {
+					close(connection);
+				}
+			}
 		}
 	}
 
@@ -364,39 +385,57 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	public void enqueue(SocketAddress address) {
 		Assert.isNotNull(address, "Socket address cannot be null"); //$NON-NLS-1$
 
-		if (connectionThread == null) {
-			connectionThread = new Thread(new ConnectionRunnable(), getClass()
-					.getName()
-					+ "Thread-" + container.getID().toString()); //$NON-NLS-1$
-			connectionThread.start();
-		}
+		synchronized (pendingConnections) {
+			if (connectionThread == null) {
+				try {
+					selector = Selector.open();
+				} catch (IOException e) {
+					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+							"Could not open selector", e)); //$NON-NLS-1$
+					return;
+				}
+
+				connectionThread = new Thread(new ConnectionRunnable(selector),
+						getClass().getName()
+								+ "Thread-" + container.getID().toString()); //$NON-NLS-1$
+				connectionThread.start();
+			}
 
-		pendingConnections.add(address);
+			pendingConnections.add(address);
+		}
+		selector.wakeup();
 	}
 
 	/**
-	 * Performs a handshake operation with the remote peer.
+	 * Performs a handshake operation with the remote peer once its response
+	 * has been read completely. The connection is then handed over to the
+	 * channel that the peer has responded for.
 	 * 
-	 * @param socketChannel
-	 *            the socket channel to handshake with
-	 * @param data
-	 *            the data sent from the channel thus far
+	 * @param key
+	 *            the selection key of the connection
+	 * @param connection
+	 *            the connection to handshake with
 	 * @throws ClassNotFoundException
 	 *             if a deserialization error occurs
 	 * @throws IOException
 	 *             if an IO error occurs while reading or writing data
 	 */
-	private void handshake(SocketChannel socketChannel, ChannelData data)
+	private void handshake(SelectionKey key, Connection connection)
 			throws ClassNotFoundException, IOException {
-		// retrieve the data that was sent
-		byte[] message = data.getData();
+		// the response is the channel id followed by the id of the remote
+		// user, each serialized separately
+		Object[] response = connection.readObjects(2);
+		if (response == null) {
+			return;
+		}
 
-		// read in the response
-		ByteArrayInputStream bais = new ByteArrayInputStream(message);
-		ObjectInputStream ois = new ObjectInputStream(bais);
+		// this socket has been processed, the channel takes it over
+		key.cancel();
+		synchronized (pendingSockets) {
+			pendingSockets.remove(connection);
+		}
 
-		// first response should be the channel id
-		ID channelId = (ID) ois.readObject();
+		ID channelId = (ID) response[0];
 
 		synchronized (channels) {
 			// retrieve the channel that corresponds to that id
@@ -404,75 +443,64 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 			if (channel == null) {
 				// can't find a channel that corresponds to the id, close the
 				// socket
-				Util.closeChannel(socketChannel);
+				connection.close();
 			} else {
-				// open another ObjectInputStream because each object is
-				// serialized separately
-				ois = new ObjectInputStream(bais);
-
-				// next id is the id of the remote user
-				ID peerId = (ID) ois.readObject();
-
-				// store the peer id and the corresponding socket in the
-				// retrieved NIO channel
-				NIOChannel datashare = (NIOChannel) channel;
-				datashare.put(peerId, socketChannel);
-
-				// check if we have any bytes left to read
-				int available = bais.available();
-				if (available != 0) {
-					// if there are extra bytes that means this is data that
-					// the sender has sent to us, we must process these messages
-					byte[] received = new byte[available];
-					// copy the remaining information
-					System.arraycopy(message, message.length - available,
-							received, 0, available);
-					// process the received data
-					datashare.processIncomingMessage(socketChannel, received);
-				}
+				// store the peer id and the corresponding connection in the
+				// retrieved NIO channel, any bytes read after the response
+				// are messages that the sender has sent to us
+				ID peerId = (ID) response[1];
+				((NIOChannel) channel).put(peerId, connection);
 			}
 		}
 	}
 
 	/**
-	 * Processes any pending sockets that are currently queued up in this
-	 * channel container and is waiting to initiate the handshake process with
-	 * the remote peer.
+	 * Processes the selected key of a connection that is waiting to initiate
+	 * the handshake process with the remote peer.
 	 * 
-	 * @param buffer
-	 *            the buffer to use for reading and writing data
+	 * @param key
+	 *            the selected key
 	 * @throws ClassNotFoundException
-	 *             if a serialization or deserialization operation encountered
-	 *             errors
+	 *             if a deserialization operation encountered errors
 	 * @throws IOException
 	 *             if an IO error occurs while reading or writing data
 	 */
-	private void processPendingSockets(ByteBuffer buffer)
+	private void processPendingSocket(SelectionKey key)
 			throws ClassNotFoundException, IOException {
-		for (int i = 0; i < pendingSockets.size(); i++) {
-			SocketChannel socketChannel = (SocketChannel) pendingSockets.get(i);
+		Connection connection = (Connection) key.attachment();
+		SocketChannel socketChannel = connection.getSocketChannel();
+
+		if (key.isConnectable()) {
+			if (!socketChannel.finishConnect()) {
+				return;
+			}
+			key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		}
+
+		if (key.isValid() && key.isWritable()) {
+			if (connection.flush()) {
+				key.interestOps(SelectionKey.OP_READ);
+			}
+		}
 
-			buffer.clear();
+		if (key.isValid() && key.isReadable()) {
 			// read in the response
-			ChannelData data = Util.read(socketChannel, buffer);
-			if (!data.isOpen()) {
+			boolean open = connection.read();
+			handshake(key, connection);
+			if (!open && key.isValid()) {
 				// the channel isn't open, we should close it on our end also
-				Util.closeChannel(socketChannel);
-				// remove this channel
-				pendingSockets.remove(i);
-				i--;
-			} else if (data.getData() != null) {
-				try {
-					handshake(socketChannel, data);
-				} finally {
-					// this socket has been processed, remove it
-					pendingSockets.remove(i);
-					i--;
-				}
+				close(connection);
 			}
 		}
 	}
 
+	private void close(Connection connection) {
+		synchronized (pendingSockets) {
+			pendingSockets.remove(connection);
+		}
+		connection.close();
+	}
+
 	/**
 	 * Creates a new NIO-capable channel within this container.
 	 * 
@@ -577,37 +605,54 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 
 	private class ConnectionRunnable implements Runnable {
 
-		public void run() {
-			ByteBuffer buffer = ByteBuffer.allocate(1024);
-			while (true) {
-				try {
-					buffer.clear();
-
-					if (Thread.currentThread().isInterrupted()) {
-						return;
-					}
+		private final Selector selector;
 
-					synchronized (pendingConnections) {
-						if (!pendingConnections.isEmpty()) {
-							connect(buffer);
-						}	
-					}
+		ConnectionRunnable(Selector selector) {
+			this.selector = selector;
+		}
 
-					processPendingSockets(buffer);
+		public void run() {
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					connect();
+
+					// wait until a socket is ready, or until woken up for new
+					// connections
+					selector.select();
+
+					for (Iterator it = selector.selectedKeys().iterator(); it
+							.hasNext();) {
+						SelectionKey key = (SelectionKey) it.next();
+						it.remove();
+						if (!key.isValid()) {
+							continue;
+						}
 
-					Thread.sleep(50);
-				} catch (InterruptedException e) {
-					Thread.interrupted();
-					return;
-				} catch (ClassNotFoundException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Could not deserialize", e)); //$NON-NLS-1$
+						try {
+							processPendingSocket(key);
+						} catch (ClassNotFoundException e) {
+							log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+									"Could not deserialize", e)); //$NON-NLS-1$
+							close((Connection) key.attachment());
+						} catch (IOException e) {
+							log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+									"An IO error occurred", e)); //$NON-NLS-1$
+							close((Connection) key.attachment());
+						} catch (RuntimeException e) {
+							log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+									"A runtime error occurred", e)); //$NON-NLS-1$
+							close((Connection) key.attachment());
+						}
+					}
+				}
+			} catch (IOException e) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"An IO error occurred", e)); //$NON-NLS-1$
+			} finally {
+				try {
+					selector.close();
 				} catch (IOException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"An IO error occurred", e)); //$NON-NLS-1$
-				} catch (RuntimeException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"A runtime error occurred", e)); //$NON-NLS-1$
+					// ignored
 				}
 			}
 		}
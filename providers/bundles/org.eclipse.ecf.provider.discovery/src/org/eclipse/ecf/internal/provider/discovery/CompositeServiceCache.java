@@ -0,0 +1,270 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.provider.discovery;
+
+import java.util.*;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.discovery.IServiceInfo;
+import org.eclipse.ecf.discovery.identity.IServiceID;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+
+/**
+ * Merged view of the services and service types of the child containers of a
+ * composite discovery container. Each child has its own view, which is seeded
+ * by a full query of the child and then kept up to date from the child's
+ * discovered/undiscovered events. Events that arrive while a full query is
+ * running are recorded and replayed over its result, as the result may have
+ * been taken before them. The merged result of all children is kept as an
+ * array, which is only rebuilt after a change.
+ */
+public class CompositeServiceCache {
+
+	static class ChildView {
+		// IServiceTypeID -> Map(IServiceID -> IServiceInfo)
+		final Map servicesByType = new HashMap();
+		final Set serviceTypes = new HashSet();
+		boolean servicesSeeded;
+		boolean serviceTypesSeeded;
+		// Service events since the start of a full services query, or null
+		// if there is none. IServiceInfo for discovered, IServiceID for
+		// undiscovered
+		List servicesQueryEvents;
+
+		void addService(IServiceInfo serviceInfo) {
+			final IServiceID sid = serviceInfo.getServiceID();
+			final IServiceTypeID type = sid.getServiceTypeID();
+			Map services = (Map) servicesByType.get(type);
+			if (services == null) {
+				services = new LinkedHashMap();
+				servicesByType.put(type, services);
+			}
+			services.put(sid, serviceInfo);
+			serviceTypes.add(type);
+		}
+
+		boolean removeService(IServiceID sid) {
+			final IServiceTypeID type = sid.getServiceTypeID();
+			final Map services = (Map) servicesByType.get(type);
+			if (services == null || services.remove(sid) == null)
+				return false;
+			if (services.isEmpty())
+				servicesByType.remove(type);
+			return true;
+		}
+	}
+
+	// child container ID -> ChildView
+	private final Map children = new LinkedHashMap();
+
+	private IServiceInfo[] services;
+	private IServiceTypeID[] serviceTypes;
+
+	private void changed() {
+		services = null;
+		serviceTypes = null;
+	}
+
+	/**
+	 * Start keeping a view for the given child. Does nothing if there is
+	 * already a view for the child.
+	 */
+	public synchronized void addChild(ID child) {
+		if (!children.containsKey(child))
+			children.put(child, new ChildView());
+	}
+
+	public synchronized void removeChild(ID child) {
+		if (children.remove(child) != null)
+			changed();
+	}
+
+	public synchronized boolean containsChild(ID child) {
+		return children.containsKey(child);
+	}
+
+	public synchronized void clear() {
+		children.clear();
+		changed();
+	}
+
+	/**
+	 * Drop the contents of all views, so that each child is queried again.
+	 */
+	public synchronized void invalidate() {
+		for (final Iterator itr = children.entrySet().iterator(); itr.hasNext();) {
+			final Map.Entry entry = (Map.Entry) itr.next();
+			final ChildView view = new ChildView();
+			// a running query still seeds the new view
+			view.servicesQueryEvents = ((ChildView) entry.getValue()).servicesQueryEvents;
+			entry.setValue(view);
+		}
+		changed();
+	}
+
+	public synchronized boolean isServicesSeeded(ID child) {
+		final ChildView view = (ChildView) children.get(child);
+		return view != null && view.servicesSeeded;
+	}
+
+	public synchronized boolean isServiceTypesSeeded(ID child) {
+		final ChildView view = (ChildView) children.get(child);
+		return view != null && view.serviceTypesSeeded;
+	}
+
+	/**
+	 * Start recording the service events of the given child, to be replayed by
+	 * {@link #seedServices(ID, IServiceInfo[])}. To be called before the full
+	 * services query of the child is sent.
+	 */
+	public synchronized void servicesQueryStarted(ID child) {
+		final ChildView view = (ChildView) children.get(child);
+		if (view != null && view.servicesQueryEvents == null)
+			view.servicesQueryEvents = new ArrayList();
+	}
+
+	/**
+	 * Stop recording the service events of the given child after its full
+	 * services query failed.
+	 */
+	public synchronized void servicesQueryFailed(ID child) {
+		final ChildView view = (ChildView) children.get(child);
+		if (view != null)
+			view.servicesQueryEvents = null;
+	}
+
+	/**
+	 * Replace the services of the given child with the result of a full query,
+	 * then replay the events of the child that arrived since the query was
+	 * started.
+	 *
+	 * @return <code>false</code> if there is no view for the child
+	 */
+	public synchronized boolean seedServices(ID child, IServiceInfo[] serviceInfos) {
+		final ChildView view = (ChildView) children.get(child);
+		if (view == null)
+			return false;
+		view.servicesByType.clear();
+		for (int i = 0; i < serviceInfos.length; i++)
+			view.addService(serviceInfos[i]);
+		if (view.servicesQueryEvents != null) {
+			for (final Iterator itr = view.servicesQueryEvents.iterator(); itr.hasNext();) {
+				final Object event = itr.next();
+				if (event instanceof IServiceInfo)
+					view.addService((IServiceInfo) event);
+				else
+					view.removeService((IServiceID) event);
+			}
+			view.servicesQueryEvents = null;
+		}
+		view.servicesSeeded = true;
+		changed();
+		return true;
+	}
+
+	/**
+	 * Add the result of a full service type query to the types of the given
+	 * child.
+	 *
+	 * @return <code>false</code> if there is no view for the child
+	 */
+	public synchronized boolean seedServiceTypes(ID child, IServiceTypeID[] types) {
+		final ChildView view = (ChildView) children.get(child);
+		if (view == null)
+			return false;
+		view.serviceTypes.addAll(Arrays.asList(types));
+		view.serviceTypesSeeded = true;
+		changed();
+		return true;
+	}
+
+	public synchronized void serviceDiscovered(ID child, IServiceInfo serviceInfo) {
+		final ChildView view = (ChildView) children.get(child);
+		if (view == null)
+			return;
+		view.addService(serviceInfo);
+		if (view.servicesQueryEvents != null)
+			view.servicesQueryEvents.add(serviceInfo);
+		changed();
+	}
+
+	public synchronized void serviceUndiscovered(ID child, IServiceID serviceID) {
+		final ChildView view = (ChildView) children.get(child);
+		if (view == null)
+			return;
+		if (view.servicesQueryEvents != null)
+			view.servicesQueryEvents.add(serviceID);
+		if (view.removeService(serviceID))
+			changed();
+	}
+
+	public synchronized void serviceTypeDiscovered(ID child, IServiceTypeID type) {
+		final ChildView view = (ChildView) children.get(child);
+		if (view != null && view.serviceTypes.add(type))
+			changed();
+	}
+
+	/**
+	 * @return the services of all seeded children. The array is shared and
+	 *         must not be modified.
+	 */
+	public synchronized IServiceInfo[] getServices() {
+		if (services == null) {
+			final List result = new ArrayList();
+			for (final Iterator itr = children.values().iterator(); itr.hasNext();) {
+				final ChildView view = (ChildView) itr.next();
+				if (!view.servicesSeeded)
+					continue;
+				for (final Iterator itr2 = view.servicesByType.values().iterator(); itr2.hasNext();)
+					result.addAll(((Map) itr2.next()).values());
+			}
+			services = (IServiceInfo[]) result.toArray(new IServiceInfo[result.size()]);
+		}
+		return services;
+	}
+
+	/**
+	 * Add the services of the given type known for the given child to the
+	 * given collection.
+	 *
+	 * @param child the child container ID
+	 * @param type the service type in the child's namespace
+	 * @param result the collection to add to
+	 * @return <code>false</code> if the services of the child are not seeded
+	 */
+	public synchronized boolean getServices(ID child, IServiceTypeID type, Collection result) {
+		final ChildView view = (ChildView) children.get(child);
+		if (view == null || !view.servicesSeeded)
+			return false;
+		final Map services = (Map) view.servicesByType.get(type);
+		if (services != null)
+			result.addAll(services.values());
+		return true;
+	}
+
+	/**
+	 * @return the service types of all children with seeded service types. The
+	 *         array is shared and must not be modified.
+	 */
+	public synchronized IServiceTypeID[] getServiceTypes() {
+		if (serviceTypes == null) {
+			final Set result = new LinkedHashSet();
+			for (final Iterator itr = children.values().iterator(); itr.hasNext();) {
+				final ChildView view = (ChildView) itr.next();
+				if (view.serviceTypesSeeded)
+					result.addAll(view.serviceTypes);
+			}
+			serviceTypes = (IServiceTypeID[]) result.toArray(new IServiceTypeID[result.size()]);
+		}
+		return serviceTypes;
+	}
+}
@@ -14,6 +14,7 @@ package org.eclipse.ecf.provider.discovery;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.core.ContainerConnectException;
 import org.eclipse.ecf.core.IContainer;
@@ -27,17 +28,31 @@ import org.eclipse.ecf.discovery.identity.*;
 import org.eclipse.ecf.discovery.service.IDiscoveryService;
 import org.eclipse.ecf.internal.provider.discovery.Activator;
 import org.eclipse.ecf.internal.provider.discovery.CompositeNamespace;
+import org.eclipse.ecf.internal.provider.discovery.CompositeServiceCache;
 
 public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapter implements IDiscoveryService {
 
 	public static final String NAME = "ecf.discovery.composite"; //$NON-NLS-1$
 
+	/**
+	 * Default time in milliseconds that {@link #getServices()},
+	 * {@link #getServices(IServiceTypeID)} and {@link #getServiceTypes()} wait
+	 * for the child containers that have to be queried. Children that do not
+	 * answer in time are left out of the result. A value of 0 or less means
+	 * wait without a deadline.
+	 * 
+	 * @since 3.1
+	 */
+	public static final long QUERY_TIMEOUT = Long.getLong(CompositeDiscoveryContainer.class.getName() + ".queryTimeout", 5000).longValue(); //$NON-NLS-1$
+
 	protected class CompositeContainerServiceListener implements IServiceListener {
 
 		/* (non-Javadoc)
 		 * @see org.eclipse.ecf.discovery.IServiceListener#serviceDiscovered(org.eclipse.ecf.discovery.IServiceEvent)
 		 */
 		public void serviceDiscovered(final IServiceEvent event) {
+			final ID containerId = event.getLocalContainerID();
+			cache.serviceDiscovered(containerId, new CompositeServiceInfoWrapper(event.getServiceInfo(), containerId));
 			final Collection col = getListeners(event.getServiceInfo().getServiceID().getServiceTypeID());
 			if (!col.isEmpty()) {
 				for (final Iterator itr = col.iterator(); itr.hasNext();) {
@@ -58,6 +73,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		 * @see org.eclipse.ecf.discovery.IServiceListener#serviceUndiscovered(org.eclipse.ecf.discovery.IServiceEvent)
 		 */
 		public void serviceUndiscovered(final IServiceEvent event) {
+			cache.serviceUndiscovered(event.getLocalContainerID(), event.getServiceInfo().getServiceID());
 			final Collection col = getListeners(event.getServiceInfo().getServiceID().getServiceTypeID());
 			if (!col.isEmpty()) {
 				for (final Iterator itr = col.iterator(); itr.hasNext();) {
@@ -88,6 +104,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		 * @see org.eclipse.ecf.discovery.IServiceTypeListener#serviceTypeDiscovered(org.eclipse.ecf.discovery.IServiceEvent)
 		 */
 		public synchronized void serviceTypeDiscovered(final IServiceTypeEvent event) {
+			cache.serviceTypeDiscovered(event.getLocalContainerID(), event.getServiceTypeID());
 			// notify our listeners first so they get a chance to register for
 			// the type before the underlying provider fires service added
 			synchronized (serviceTypeListeners) {
@@ -131,6 +148,30 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 
 	protected final Collection containers;
 
+	/**
+	 * Time in milliseconds that queries wait for the child containers.
+	 * 
+	 * @see #QUERY_TIMEOUT
+	 * @since 3.1
+	 */
+	protected long queryTimeout = QUERY_TIMEOUT;
+
+	/**
+	 * Merged view of the services of the children this container listens to
+	 */
+	private final CompositeServiceCache cache = new CompositeServiceCache();
+
+	// Maximum number of threads that query the child containers
+	private static final int QUERY_THREADS = Integer.getInteger(CompositeDiscoveryContainer.class.getName() + ".queryThreads", 4).intValue(); //$NON-NLS-1$
+
+	// child container ID -> Future of the query seeding its services/service types
+	private final Map pendingServiceQueries = new HashMap();
+	private final Map pendingServiceTypeQueries = new HashMap();
+	// [child container ID, service type ID] -> Future of the query for the services of the type
+	private final Map pendingTypedQueries = new HashMap();
+
+	private ExecutorService queryExecutor;
+
 	private ID targetID;
 
 	/**
@@ -168,6 +209,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 				final IDiscoveryLocator idca = (IDiscoveryLocator) container;
 				idca.addServiceListener(ccsl);
 				idca.addServiceTypeListener(ccstl);
+				cache.addChild(container.getID());
 			}
 			// remove all containers that failed to connect and thus are unusable subsequently
 			containers.removeAll(containersFailedToConnect);
@@ -187,6 +229,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 				container.disconnect();
 			}
 			containers.clear();
+			cache.clear();
 		}
 		synchronized (registeredServices) {
 			registeredServices.clear();
@@ -265,6 +308,13 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 				container.dispose();
 			}
 			containers.clear();
+			cache.clear();
+		}
+		synchronized (pendingServiceQueries) {
+			if (queryExecutor != null) {
+				queryExecutor.shutdownNow();
+				queryExecutor = null;
+			}
 		}
 		targetID = null;
 		super.dispose();
@@ -310,23 +360,176 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		return new ServiceInfo(serviceId.getLocation(), aSi.getServiceName(), serviceTypeID, aSi.getPriority(), aSi.getWeight(), aSi.getServiceProperties());
 	}
 
+	/**
+	 * The queries run on a bounded number of threads, further queries wait for
+	 * one of them. Children that do not answer thus cannot make the composite
+	 * start ever more threads. A query that is still running is shared by the
+	 * callers that ask for the same thing.
+	 */
+	private ExecutorService getQueryExecutor() {
+		synchronized (pendingServiceQueries) {
+			if (queryExecutor == null) {
+				final ThreadPoolExecutor executor = new ThreadPoolExecutor(QUERY_THREADS, QUERY_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue(), new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r, NAME + " query"); //$NON-NLS-1$
+						t.setDaemon(true);
+						return t;
+					}
+				});
+				executor.allowCoreThreadTimeOut(true);
+				queryExecutor = executor;
+			}
+			return queryExecutor;
+		}
+	}
+
+	private static IServiceInfo[] wrap(final IServiceInfo[] services, final ID containerId) {
+		final IServiceInfo[] result = new IServiceInfo[services.length];
+		for (int i = 0; i < services.length; i++) {
+			result[i] = new CompositeServiceInfoWrapper(services[i], containerId);
+		}
+		return result;
+	}
+
+	/**
+	 * Query the services of the given child in the background, unless such a
+	 * query is already running. If the child is in the merged view, the result
+	 * seeds its services there and the future's value is <code>null</code>.
+	 * Otherwise the future's value is the wrapped services of the child.
+	 */
+	private Future queryServices(final ID containerId, final IDiscoveryLocator idca) {
+		synchronized (pendingServiceQueries) {
+			Future future = (Future) pendingServiceQueries.get(containerId);
+			if (future == null) {
+				future = getQueryExecutor().submit(new Callable() {
+					public Object call() throws Exception {
+						cache.servicesQueryStarted(containerId);
+						try {
+							final IServiceInfo[] services = wrap(idca.getServices(), containerId);
+							return cache.seedServices(containerId, services) ? null : services;
+						} catch (final Exception e) {
+							cache.servicesQueryFailed(containerId);
+							throw e;
+						} finally {
+							synchronized (pendingServiceQueries) {
+								pendingServiceQueries.remove(containerId);
+							}
+						}
+					}
+				});
+				pendingServiceQueries.put(containerId, future);
+			}
+			return future;
+		}
+	}
+
+	/**
+	 * Like {@link #queryServices(ID, IDiscoveryLocator)}, for service types.
+	 */
+	private Future queryServiceTypes(final ID containerId, final IDiscoveryLocator idca) {
+		synchronized (pendingServiceQueries) {
+			Future future = (Future) pendingServiceTypeQueries.get(containerId);
+			if (future == null) {
+				future = getQueryExecutor().submit(new Callable() {
+					public Object call() throws Exception {
+						try {
+							final IServiceTypeID[] types = idca.getServiceTypes();
+							return cache.seedServiceTypes(containerId, types) ? null : types;
+						} finally {
+							synchronized (pendingServiceQueries) {
+								pendingServiceTypeQueries.remove(containerId);
+							}
+						}
+					}
+				});
+				pendingServiceTypeQueries.put(containerId, future);
+			}
+			return future;
+		}
+	}
+
+	/**
+	 * Query the services of the given type of the given child in the
+	 * background, unless such a query is already running. The future's value
+	 * is the wrapped services.
+	 */
+	private Future queryServices(final ID containerId, final IDiscoveryLocator idca, final IServiceTypeID type) {
+		final List key = Arrays.asList(new Object[] {containerId, type});
+		synchronized (pendingServiceQueries) {
+			Future future = (Future) pendingTypedQueries.get(key);
+			if (future == null) {
+				future = getQueryExecutor().submit(new Callable() {
+					public Object call() throws Exception {
+						try {
+							return wrap(idca.getServices(type), containerId);
+						} finally {
+							synchronized (pendingServiceQueries) {
+								pendingTypedQueries.remove(key);
+							}
+						}
+					}
+				});
+				pendingTypedQueries.put(key, future);
+			}
+			return future;
+		}
+	}
+
+	/**
+	 * Wait for the given queries until {@link #queryTimeout} has passed, and
+	 * add the non-<code>null</code> results of the queries that completed in
+	 * time to the given list. Queries that did not complete keep running and
+	 * still update the merged view when they complete.
+	 */
+	private void waitForQueries(final List queries, final List results, final String methodName) {
+		final long deadline = System.currentTimeMillis() + queryTimeout;
+		for (final Iterator itr = queries.iterator(); itr.hasNext();) {
+			final Future future = (Future) itr.next();
+			try {
+				final Object result;
+				if (queryTimeout > 0) {
+					result = future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				} else {
+					result = future.get();
+				}
+				if (result != null) {
+					results.add(result);
+				}
+			} catch (final TimeoutException e) {
+				Trace.trace(Activator.PLUGIN_ID, METHODS_TRACING, this.getClass(), methodName, "child container did not answer within " //$NON-NLS-1$
+						+ queryTimeout + "ms"); //$NON-NLS-1$
+			} catch (final ExecutionException e) {
+				Trace.catching(Activator.PLUGIN_ID, METHODS_CATCHING, this.getClass(), methodName, e.getCause());
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.ecf.discovery.IDiscoveryContainerAdapter#getServices()
 	 */
 	public IServiceInfo[] getServices() {
-		final Set set = new HashSet();
+		final List queries = new ArrayList();
 		synchronized (containers) {
 			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
 				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
 				final ID containerId = ((IContainer) idca).getID();
-				final IServiceInfo[] services = idca.getServices();
-				for (int i = 0; i < services.length; i++) {
-					IServiceInfo iServiceInfo = services[i];
-					services[i] = new CompositeServiceInfoWrapper(iServiceInfo, containerId);
+				if (!cache.isServicesSeeded(containerId)) {
+					queries.add(queryServices(containerId, idca));
 				}
-				set.addAll(Arrays.asList(services));
 			}
 		}
+		if (queries.isEmpty()) {
+			return (IServiceInfo[]) cache.getServices().clone();
+		}
+		final List results = new ArrayList();
+		waitForQueries(queries, results, "getServices"); //$NON-NLS-1$
+		final Set set = new LinkedHashSet(Arrays.asList(cache.getServices()));
+		for (final Iterator itr = results.iterator(); itr.hasNext();) {
+			set.addAll(Arrays.asList((IServiceInfo[]) itr.next()));
+		}
 		return (IServiceInfo[]) set.toArray(new IServiceInfo[set.size()]);
 	}
 
@@ -335,13 +538,29 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 */
 	public IServiceInfo[] getServices(final IServiceTypeID type) {
 		Assert.isNotNull(type);
-		final Set set = new HashSet();
+		final Set set = new LinkedHashSet();
+		final List queries = new ArrayList();
 		synchronized (containers) {
 			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
 				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
+				final ID containerId = ((IContainer) idca).getID();
 				final IServiceTypeID isti = getServiceTypeIDForDiscoveryContainer(type, idca);
-				final IServiceInfo[] services = idca.getServices(isti);
-				set.addAll(Arrays.asList(services));
+				if (cache.getServices(containerId, isti, set)) {
+					continue;
+				}
+				// ask the child for just this type, and seed its view in the
+				// background so that later queries are answered from memory
+				if (cache.containsChild(containerId)) {
+					queryServices(containerId, idca);
+				}
+				queries.add(queryServices(containerId, idca, isti));
+			}
+		}
+		if (!queries.isEmpty()) {
+			final List results = new ArrayList();
+			waitForQueries(queries, results, "getServices(IServiceTypeID)"); //$NON-NLS-1$
+			for (final Iterator itr = results.iterator(); itr.hasNext();) {
+				set.addAll(Arrays.asList((IServiceInfo[]) itr.next()));
 			}
 		}
 		return (IServiceInfo[]) set.toArray(new IServiceInfo[set.size()]);
@@ -359,14 +578,25 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 * @see org.eclipse.ecf.discovery.IDiscoveryContainerAdapter#getServiceTypes()
 	 */
 	public IServiceTypeID[] getServiceTypes() {
-		final Set set = new HashSet();
+		final List queries = new ArrayList();
 		synchronized (containers) {
 			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
 				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
-				final IServiceTypeID[] services = idca.getServiceTypes();
-				set.addAll(Arrays.asList(services));
+				final ID containerId = ((IContainer) idca).getID();
+				if (!cache.isServiceTypesSeeded(containerId)) {
+					queries.add(queryServiceTypes(containerId, idca));
+				}
 			}
 		}
+		if (queries.isEmpty()) {
+			return (IServiceTypeID[]) cache.getServiceTypes().clone();
+		}
+		final List results = new ArrayList();
+		waitForQueries(queries, results, "getServiceTypes"); //$NON-NLS-1$
+		final Set set = new LinkedHashSet(Arrays.asList(cache.getServiceTypes()));
+		for (final Iterator itr = results.iterator(); itr.hasNext();) {
+			set.addAll(Arrays.asList((IServiceTypeID[]) itr.next()));
+		}
 		return (IServiceTypeID[]) set.toArray(new IServiceTypeID[set.size()]);
 	}
 
@@ -436,6 +666,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 				final IServiceInfo[] services = idca.purgeCache();
 				set.addAll(Arrays.asList(services));
 			}
+			cache.invalidate();
 		}
 		return (IServiceInfo[]) set.toArray(new IServiceInfo[set.size()]);
 	}
@@ -476,6 +707,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		synchronized (containers) {
 			Trace.trace(Activator.PLUGIN_ID, METHODS_TRACING, this.getClass(), "addContainer(Object)", "addContainer " //$NON-NLS-1$ //$NON-NLS-2$
 					+ object.toString());
+			cache.addChild(iContainer.getID());
 			return containers.add(object);
 		}
 	}
@@ -492,6 +724,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		synchronized (containers) {
 			Trace.trace(Activator.PLUGIN_ID, METHODS_TRACING, this.getClass(), "removeContainer(Object)", "removeContainer " //$NON-NLS-1$ //$NON-NLS-2$
 					+ object.toString());
+			cache.removeChild(((IContainer) object).getID());
 			return containers.remove(object);
 		}
 	}
@@ -12,6 +12,7 @@
 package org.eclipse.ecf.internal.provider.remoteservice;
 
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.identity.Namespace;
 import org.eclipse.ecf.core.util.*;
@@ -47,6 +48,13 @@ public class Activator implements BundleActivator {
 
 	private List rscAdapterFactories;
 
+	private TimerWheel requestTimeouts;
+
+	private ExecutorService requestTimeoutExecutor;
+
+	// Set once the bundle has stopped, so that late callers don't start a new timer
+	private static volatile boolean stopped;
+
 	private static IAdapterManager getAdapterManager(BundleContext ctx) {
 		AdapterManagerTracker t = new AdapterManagerTracker(ctx);
 		t.open();
@@ -56,6 +64,7 @@ public class Activator implements BundleActivator {
 	}
 
 	public void start(final BundleContext ctxt) throws Exception {
+		stopped = false;
 		this.context = ctxt;
 		BundleStarter.startDependents(this.context, new String[] {"org.eclipse.ecf.provider", "org.eclipse.ecf.sharedobject"}, Bundle.RESOLVED | Bundle.STARTING); //$NON-NLS-1$ //$NON-NLS-2$
 		SafeRunner.run(new ExtensionRegistryRunnable(this.context) {
@@ -95,10 +104,54 @@ public class Activator implements BundleActivator {
 			}
 			rscAdapterFactories = null;
 		}
+		synchronized (this) {
+			stopped = true;
+			if (requestTimeouts != null) {
+				requestTimeouts.stop();
+				requestTimeouts = null;
+			}
+			if (requestTimeoutExecutor != null) {
+				requestTimeoutExecutor.shutdown();
+				requestTimeoutExecutor = null;
+			}
+		}
 		this.context = null;
 		plugin = null;
 	}
 
+	/**
+	 * @return TimerWheel the single timer shared by all registries for
+	 * expiring remote call requests, or <code>null</code> if the bundle has stopped
+	 */
+	public synchronized TimerWheel getRequestTimeouts() {
+		if (stopped)
+			return null;
+		if (requestTimeouts == null)
+			requestTimeouts = new TimerWheel("ECF Remote Call Timeouts", 100, 512); //$NON-NLS-1$
+		return requestTimeouts;
+	}
+
+	/**
+	 * @return ExecutorService the executor on which the listeners and futures of
+	 * timed out requests are notified, so that they don't hold up the timer thread,
+	 * or <code>null</code> if the bundle has stopped
+	 */
+	public synchronized ExecutorService getRequestTimeoutExecutor() {
+		if (stopped)
+			return null;
+		if (requestTimeoutExecutor == null)
+			requestTimeoutExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+				private int count;
+
+				public synchronized Thread newThread(Runnable r) {
+					final Thread t = new Thread(r, "ECF Remote Call Timeout Notifier-" + count++); //$NON-NLS-1$
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		return requestTimeoutExecutor;
+	}
+
 	public BundleContext getContext() {
 		return context;
 	}
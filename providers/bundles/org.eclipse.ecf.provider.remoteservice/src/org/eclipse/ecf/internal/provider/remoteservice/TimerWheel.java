@@ -0,0 +1,158 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors: Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.provider.remoteservice;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Hashed timer wheel for request timeouts.  Scheduling and cancelling are
+ * O(1) and never wake the timer thread, which simply advances one bucket per
+ * tick.  Timeouts fire up to one tick late, which is fine for remote call
+ * timeouts measured in seconds.
+ */
+public class TimerWheel {
+
+	public static class Timeout {
+		final long deadline;
+		volatile Runnable task;
+		long rounds;
+
+		Timeout(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancel this timeout.  Has no effect if it has already fired.
+		 */
+		public void cancel() {
+			// Drop the task so a cancelled timeout holds nothing until its bucket is swept
+			task = null;
+		}
+
+		public boolean isCancelled() {
+			return task == null;
+		}
+	}
+
+	private final String name;
+	private final long tickMillis;
+	private final List<Timeout>[] wheel;
+	private final int mask;
+	private final Queue<Timeout> added = new ConcurrentLinkedQueue<Timeout>();
+	private Thread worker;
+	private volatile boolean stopped;
+	private long startTime;
+	private long tick;
+
+	@SuppressWarnings("unchecked")
+	public TimerWheel(String name, long tickMillis, int wheelSize) {
+		if (tickMillis <= 0 || wheelSize <= 0)
+			throw new IllegalArgumentException("tickMillis and wheelSize must be > 0"); //$NON-NLS-1$
+		int size = 1;
+		while (size < wheelSize)
+			size <<= 1;
+		this.name = name;
+		this.tickMillis = tickMillis;
+		this.wheel = new List[size];
+		for (int i = 0; i < size; i++)
+			wheel[i] = new ArrayList<Timeout>();
+		this.mask = size - 1;
+	}
+
+	/**
+	 * @param task the task to run on the timer thread when the delay has elapsed.  Must not block.
+	 * @param delayMillis the delay
+	 * @return Timeout that may be used to cancel the task
+	 */
+	public Timeout schedule(Runnable task, long delayMillis) {
+		start();
+		final Timeout timeout = new Timeout(task, System.currentTimeMillis() + Math.max(0, delayMillis));
+		added.add(timeout);
+		return timeout;
+	}
+
+	private synchronized void start() {
+		if (worker != null || stopped)
+			return;
+		startTime = System.currentTimeMillis();
+		worker = new Thread(new Runnable() {
+			public void run() {
+				runWheel();
+			}
+		}, name);
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	public synchronized void stop() {
+		stopped = true;
+		if (worker != null)
+			worker.interrupt();
+	}
+
+	void runWheel() {
+		while (!stopped) {
+			final long next = startTime + (tick + 1) * tickMillis;
+			long sleep = next - System.currentTimeMillis();
+			try {
+				while (sleep > 0) {
+					Thread.sleep(sleep);
+					sleep = next - System.currentTimeMillis();
+				}
+			} catch (final InterruptedException e) {
+				return;
+			}
+			transferAdded();
+			expire(wheel[(int) (tick & mask)]);
+			tick++;
+		}
+	}
+
+	private void transferAdded() {
+		Timeout t;
+		while ((t = added.poll()) != null) {
+			if (t.isCancelled())
+				continue;
+			final long ticks = Math.max(tick, (t.deadline - startTime) / tickMillis);
+			t.rounds = (ticks - tick) / wheel.length;
+			wheel[(int) (ticks & mask)].add(t);
+		}
+	}
+
+	private void expire(List<Timeout> bucket) {
+		// Compact in place rather than Iterator.remove, which is O(n) per removal
+		int kept = 0;
+		final int size = bucket.size();
+		for (int i = 0; i < size; i++) {
+			final Timeout t = bucket.get(i);
+			final Runnable task = t.task;
+			if (task == null)
+				continue;
+			if (t.rounds > 0) {
+				t.rounds--;
+				bucket.set(kept++, t);
+				continue;
+			}
+			t.task = null;
+			try {
+				task.run();
+			} catch (final Throwable e) {
+				Activator.getDefault().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, name + " task failed", e)); //$NON-NLS-1$
+			}
+		}
+		bucket.subList(kept, size).clear();
+	}
+}
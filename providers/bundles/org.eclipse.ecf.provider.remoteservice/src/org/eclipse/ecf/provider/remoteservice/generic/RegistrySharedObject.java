@@ -16,6 +16,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.ContainerConnectException;
 import org.eclipse.ecf.core.events.*;
@@ -24,11 +28,14 @@ import org.eclipse.ecf.core.jobs.JobsExecutor;
 import org.eclipse.ecf.core.security.IConnectContext;
 import org.eclipse.ecf.core.sharedobject.*;
 import org.eclipse.ecf.core.sharedobject.events.ISharedObjectActivatedEvent;
+import org.eclipse.ecf.core.sharedobject.events.ISharedObjectMessageEvent;
 import org.eclipse.ecf.core.status.SerializableStatus;
 import org.eclipse.ecf.core.util.*;
 import org.eclipse.ecf.core.util.reflection.ClassUtil;
 import org.eclipse.ecf.internal.provider.remoteservice.Activator;
 import org.eclipse.ecf.internal.provider.remoteservice.IRemoteServiceProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.remoteservice.TimerWheel;
+import org.eclipse.ecf.provider.generic.RawSharedObjectMessage;
 import org.eclipse.ecf.remoteservice.*;
 import org.eclipse.ecf.remoteservice.asyncproxy.AsyncReturnUtil;
 import org.eclipse.ecf.remoteservice.events.*;
@@ -50,6 +57,18 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 */
 	protected static final boolean PROPAGATE_RESPONSE_ERROR = new Boolean(System.getProperty("org.eclipse.ecf.provider.remoteservice.propagateResponseError", "true")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
 
+	/**
+	 * If true, call requests and responses are written once, directly into a
+	 * {@link RawSharedObjectMessage}, rather than being serialized to bytes,
+	 * wrapped in a SharedObjectMsg and serialized again by the container.
+	 * The container only sends the raw bytes as they are if raw messages are
+	 * enabled for it, with org.eclipse.ecf.provider.generic.rawMessages=true
+	 * on all peers.  Otherwise it serializes the raw message once more.
+	 * Default is false.
+	 * @since 4.7
+	 */
+	protected static final boolean SINGLE_PASS_CALLS = Boolean.valueOf(System.getProperty("org.eclipse.ecf.provider.remoteservice.singlePassCalls", "false")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+
 	private static int uniqueRequestId = 0;
 
 	private static synchronized Integer createNextRequestId() {
@@ -81,9 +100,15 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	protected int addRegistrationRequestTimeout = ADD_REGISTRATION_REQUEST_TIMEOUT;
 	/**
 	 * List of invocation requests...instances of Request
+	 * @deprecated pending requests are held in {@link #pendingRequests}.  This list is no longer used.
 	 */
 	@SuppressWarnings("unchecked")
 	protected List requests = Collections.synchronizedList(new ArrayList());
+	/**
+	 * Map of pending call requests.  key:  Long (unique Request id), value: Request
+	 * @since 4.7
+	 */
+	protected final Map<Long, Request> pendingRequests = new ConcurrentHashMap<Long, Request>();
 
 	/**
 	 * Connect context to be used for connect.
@@ -459,6 +484,9 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 					// If it's us that's being activated, then we do something about it
 					if (getID().equals(((ISharedObjectActivatedEvent) arg0).getActivatedID()))
 						handleRegistryActivatedEvent();
+				} else if (arg0 instanceof ISharedObjectMessageEvent && ((ISharedObjectMessageEvent) arg0).getData() instanceof RawSharedObjectMessage) {
+					handleRawSharedObjectMessage((RawSharedObjectMessage) ((ISharedObjectMessageEvent) arg0).getData());
+					return true;
 				}
 				return false;
 			}
@@ -489,9 +517,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		synchronized (addRegistrationRequests) {
 			addRegistrationRequests.clear();
 		}
-		synchronized (requests) {
-			requests.clear();
-		}
+		abandonPendingRequests();
 		synchronized (pendingUpdateContainers) {
 			pendingUpdateContainers.clear();
 		}
@@ -939,36 +965,34 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	}
 
 	protected Object callSynch(RemoteServiceRegistrationImpl registration, IRemoteCall call) throws ECFException {
-		boolean doneWaiting = false;
 		Response response = null;
+		Request request = null;
 		try {
 			// First send request
-			final Request request = sendCallRequest(registration, call);
-			long requestId = request.getRequestId();
-			// Then get the specified timeout and calculate when we should
-			// timeout in real time
-			final long timeout = call.getTimeout() + System.currentTimeMillis();
-			// Now loop until timeout time has elapsed
-			while ((timeout - System.currentTimeMillis()) > 0 && !doneWaiting) {
-				synchronized (request) {
-					if (request.isDone()) {
-						doneWaiting = true;
-						response = request.getResponse();
-						if (response == null)
-							throw new ECFException("Invalid response for requestId=" + requestId); //$NON-NLS-1$
-					} else {
-						request.wait(RESPONSE_WAIT_INTERVAL);
-					}
-				}
-			}
-			if (!doneWaiting)
-				throw new ServiceException("Request timed out after " + Long.toString(call.getTimeout()) + "ms", ServiceException.REMOTE, new TimeoutException(call.getTimeout())); //$NON-NLS-1$ //$NON-NLS-2$
+			request = sendCallRequest(registration, call);
+			// The response future is completed when the response arrives, or
+			// exceptionally by the request timeout.  The wait is bounded all the
+			// same, so that the call still times out if the timer never fires,
+			// for example because it was stopped with this bundle
+			final long wait = call.getTimeout() + (request.hasTimeout() ? RESPONSE_TIMEOUT_SLACK : 0);
+			response = request.getResponseFuture().get(wait, java.util.concurrent.TimeUnit.MILLISECONDS);
+			if (response == null)
+				throw new ECFException("Invalid response for requestId=" + request.getRequestId()); //$NON-NLS-1$
 		} catch (final IOException e) {
 			log(CALL_REQUEST_ERROR_CODE, CALL_REQUEST_ERROR_MESSAGE, e);
 			throw new ECFException("Error sending request", e); //$NON-NLS-1$
 		} catch (final InterruptedException e) {
+			removeRequest(request);
 			log(CALL_REQUEST_TIMEOUT_ERROR_CODE, CALL_REQUEST_TIMEOUT_ERROR_MESSAGE, e);
 			throw new ECFException("Wait for response interrupted", e); //$NON-NLS-1$
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof TimeoutException)
+				throw new ServiceException("Request timed out after " + Long.toString(call.getTimeout()) + "ms", ServiceException.REMOTE, cause); //$NON-NLS-1$ //$NON-NLS-2$
+			throw new ECFException("Request failed", cause); //$NON-NLS-1$
+		} catch (final java.util.concurrent.TimeoutException e) {
+			removeRequest(request);
+			throw new ServiceException("Request timed out after " + Long.toString(call.getTimeout()) + "ms", ServiceException.REMOTE, new TimeoutException(call.getTimeout())); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 		// Success...now get values and return
 		if (response.hadException())
@@ -1106,7 +1130,8 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	private static final int REQUEST_NOT_FOUND_ERROR_CODE = 211;
 
-	private static final long RESPONSE_WAIT_INTERVAL = 500;
+	// How long a synchronous call waits past its timeout for the timer to fail it
+	private static final long RESPONSE_TIMEOUT_SLACK = 1000;
 
 	private static final String ADD_REGISTRATION = "handleAddRegistration"; //$NON-NLS-1$
 
@@ -1132,6 +1157,10 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	private static final int DEFAULT_REMOTE_REQUEST_SIZE = 4096;
 
+	private static final int RAW_CALL_REQUEST = 1;
+
+	private static final int RAW_CALL_RESPONSE = 2;
+
 	private static final String CALL_RESPONSE_BYTES = "handleCallResponseBytes"; //$NON-NLS-1$
 
 	/**
@@ -1412,7 +1441,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		final Request request = createRequest(remoteRegistration, call, null);
 		addRequest(request);
 		try {
-			sendSharedObjectMsgTo(remoteRegistration.getContainerID(), SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+			sendCallRequestMessage(remoteRegistration.getContainerID(), request);
 		} catch (final IOException e) {
 			removeRequest(request);
 			throw e;
@@ -1424,16 +1453,21 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 4.6
 	 */
 	protected byte[] serializeCallRequest(Request request) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(DEFAULT_REMOTE_REQUEST_SIZE);
+		writeCallRequest(bos, request);
+		return bos.toByteArray();
+	}
+
+	private void writeCallRequest(final OutputStream os, final Request request) throws IOException {
 		try {
-			return AccessController.doPrivileged(new PrivilegedExceptionAction<byte[]>() {
+			AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
 				@Override
-				public byte[] run() throws Exception {
-					ByteArrayOutputStream bos = new ByteArrayOutputStream(DEFAULT_REMOTE_REQUEST_SIZE);
-					OSGIObjectOutputStream outs = new OSGIObjectOutputStream(bos);
+				public Object run() throws Exception {
+					OSGIObjectOutputStream outs = new OSGIObjectOutputStream(os);
 					outs.writeLong(request.getServiceId());
 					outs.writeObject(request);
 					outs.close();
-					return bos.toByteArray();
+					return null;
 				}
 			});
 		} catch (PrivilegedActionException e) {
@@ -1451,11 +1485,15 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 4.6
 	 */
 	protected Request deserializeCallRequest(byte[] requestBytes) throws IOException {
+		return readCallRequest(new ByteArrayInputStream(requestBytes));
+	}
+
+	private Request readCallRequest(final InputStream is) throws IOException {
 		try {
 			return AccessController.doPrivileged(new PrivilegedExceptionAction<Request>() {
 				@Override
 				public Request run() throws Exception {
-					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), new ByteArrayInputStream(requestBytes));
+					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), is);
 					long svcId = oins.readLong();
 					RemoteServiceRegistrationImpl reg = null;
 					// Find registration for this call request
@@ -1489,17 +1527,22 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 4.6
 	 */
 	protected byte[] serializeCallResponse(Response response) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(DEFAULT_REMOTE_REQUEST_SIZE);
+		writeCallResponse(bos, response);
+		return bos.toByteArray();
+	}
+
+	private void writeCallResponse(final OutputStream os, final Response response) throws IOException {
 		try {
-			return AccessController.doPrivileged(new PrivilegedExceptionAction<byte[]>() {
+			AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
 				@Override
-				public byte[] run() throws Exception {
-					ByteArrayOutputStream bos = new ByteArrayOutputStream(DEFAULT_REMOTE_REQUEST_SIZE);
-					OSGIObjectOutputStream outs = new OSGIObjectOutputStream(bos);
+				public Object run() throws Exception {
+					OSGIObjectOutputStream outs = new OSGIObjectOutputStream(os);
 					outs.writeObject(getLocalContainerID());
 					outs.writeLong(response.getRequestId());
 					outs.writeObject(response);
 					outs.close();
-					return bos.toByteArray();
+					return null;
 				}
 			});
 		} catch (PrivilegedActionException e) {
@@ -1517,12 +1560,15 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 4.6
 	 */
 	protected Response deserializeCallResponse(byte[] responseBytes) throws IOException {
+		return readCallResponse(new ByteArrayInputStream(responseBytes));
+	}
 
+	private Response readCallResponse(final InputStream is) throws IOException {
 		try {
 			return AccessController.doPrivileged(new PrivilegedExceptionAction<Response>() {
 				@Override
 				public Response run() throws Exception {
-					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), new ByteArrayInputStream(responseBytes));
+					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), is);
 
 					ID targetContainerID;
 					try {
@@ -1763,7 +1809,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		fireCallStartEvent(listener, request.getRequestId(), remoteRegistration.getReference(), call);
 		try {
 			addRequest(request);
-			sendSharedObjectMsgTo(remoteRegistration.getContainerID(), SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+			sendCallRequestMessage(remoteRegistration.getContainerID(), request);
 		} catch (final IOException e) {
 			log(CALL_REQUEST_ERROR_CODE, CALL_REQUEST_ERROR_MESSAGE, e);
 			removeRequest(request);
@@ -1775,9 +1821,75 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		Activator.getDefault().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, code, method, e));
 	}
 
+	/**
+	 * @return boolean true if call requests and responses are written in a single
+	 * pass as {@link RawSharedObjectMessage}s.  Returns {@link #SINGLE_PASS_CALLS}
+	 * unless overridden.
+	 * @since 4.7
+	 */
+	protected boolean isSinglePassCalls() {
+		return SINGLE_PASS_CALLS;
+	}
+
+	private void sendCallRequestMessage(ID target, Request request) throws IOException {
+		if (isSinglePassCalls()) {
+			final RawSharedObjectMessage.Output out = RawSharedObjectMessage.createOutput(DEFAULT_REMOTE_REQUEST_SIZE);
+			out.write(RAW_CALL_REQUEST);
+			writeCallRequest(out, request);
+			sendRawMessage(target, out.toMessage());
+		} else
+			sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+	}
+
+	private void sendCallResponseMessage(ID target, Response response) throws IOException {
+		if (isSinglePassCalls()) {
+			final RawSharedObjectMessage.Output out = RawSharedObjectMessage.createOutput(DEFAULT_REMOTE_REQUEST_SIZE);
+			out.write(RAW_CALL_RESPONSE);
+			writeCallResponse(out, response);
+			sendRawMessage(target, out.toMessage());
+		} else
+			sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(response)));
+	}
+
+	/**
+	 * Send a call request or response written in a single pass.
+	 * @param target the receiver
+	 * @param message the raw message
+	 * @throws IOException if the message cannot be sent
+	 * @since 4.7
+	 */
+	protected void sendRawMessage(ID target, RawSharedObjectMessage message) throws IOException {
+		final ISharedObjectContext context = getContext();
+		if (context != null)
+			context.sendMessage(target, message);
+	}
+
+	/**
+	 * Handle a call request or response written in a single pass by a peer
+	 * with {@link #isSinglePassCalls()} set.
+	 * @param message the raw message
+	 * @since 4.7
+	 */
+	protected void handleRawSharedObjectMessage(RawSharedObjectMessage message) {
+		final InputStream ins = message.getInputStream();
+		try {
+			final int kind = ins.read();
+			if (kind == RAW_CALL_REQUEST)
+				handleCallRequest(readCallRequest(ins));
+			else if (kind == RAW_CALL_RESPONSE) {
+				final Response response = readCallResponse(ins);
+				if (response != null)
+					handleCallResponse(response);
+			} else
+				log(MSG_INVOKE_ERROR_CODE, "Unknown raw message kind=" + kind, new IOException()); //$NON-NLS-1$
+		} catch (final IOException e) {
+			log(MSG_INVOKE_ERROR_CODE, "handleRawSharedObjectMessage", e); //$NON-NLS-1$
+		}
+	}
+
 	protected void sendCallResponse(ID responseTarget, Response response) {
 		try {
-			sendSharedObjectMsgTo(responseTarget, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(response)));
+			sendCallResponseMessage(responseTarget, response);
 		} catch (final IOException e) {
 			log(CALL_RESPONSE_ERROR_CODE, CALL_RESPONSE_ERROR_MESSAGE, e);
 			// Also print to standard error, just in case
@@ -1785,7 +1897,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			// added to address bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=470245
 			if (PROPAGATE_RESPONSE_ERROR)
 				try {
-					sendSharedObjectMsgTo(responseTarget, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(new Response(response.getRequestId(), getSerializableException(e)))));
+					sendCallResponseMessage(responseTarget, new Response(response.getRequestId(), getSerializableException(e)));
 				} catch (final IOException e1) {
 					log(CALL_RESPONSE_ERROR_CODE, "Exception propagating response error", e1); //$NON-NLS-1$
 					e1.printStackTrace(System.err);
@@ -1799,7 +1911,8 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
 			return;
 		}
-		removeRequest(request);
+		if (!removeRequest(request))
+			return;
 		final IRemoteCallListener listener = request.getListener();
 		if (listener != null) {
 			fireCallCompleteEvent(listener, request.getRequestId(), response.getResponse(), response.hadException(), response.getException());
@@ -1810,6 +1923,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			request.setDone(true);
 			request.notify();
 		}
+		request.getResponseFuture().complete(response);
 	}
 
 	/**
@@ -1830,7 +1944,8 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
 			return;
 		}
-		removeRequest(request);
+		if (!removeRequest(request))
+			return;
 		final IRemoteCallListener listener = request.getListener();
 		if (listener != null) {
 			fireCallCompleteEvent(listener, request.getRequestId(), response.getResponse(), response.hadException(), response.getException());
@@ -1841,6 +1956,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			request.setDone(true);
 			request.notify();
 		}
+		request.getResponseFuture().complete(response);
 	}
 
 	protected Request sendFireRequest(RemoteServiceRegistrationImpl remoteRegistration, IRemoteCall call) throws ECFException {
@@ -2071,11 +2187,20 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @return true if added, false if not added
 	 * @since 3.2
 	 */
-	@SuppressWarnings("unchecked")
-	protected boolean addRequest(Request request) {
-		synchronized (requests) {
-			return requests.add(request);
-		}
+	protected boolean addRequest(final Request request) {
+		if (pendingRequests.putIfAbsent(Long.valueOf(request.getRequestId()), request) != null)
+			return false;
+		final Activator activator = Activator.getDefault();
+		final TimerWheel timeouts = (activator == null) ? null : activator.getRequestTimeouts();
+		// Without the timer (bundle stopping or stopped) synchronous calls
+		// time out by their own bounded wait, as they did before the timer
+		if (timeouts != null)
+			request.setTimeout(timeouts.schedule(new Runnable() {
+				public void run() {
+					handleRequestTimeout(request);
+				}
+			}, request.getCall().getTimeout()));
+		return true;
 	}
 
 	/**
@@ -2084,16 +2209,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 3.2
 	 */
 	protected Request getRequest(long requestId) {
-		synchronized (requests) {
-			for (final Iterator i = requests.iterator(); i.hasNext();) {
-				final Request req = (Request) i.next();
-				final long reqId = req.getRequestId();
-				if (reqId == requestId) {
-					return req;
-				}
-			}
-		}
-		return null;
+		return pendingRequests.get(Long.valueOf(requestId));
 	}
 
 	/**
@@ -2102,8 +2218,56 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 3.2
 	 */
 	protected boolean removeRequest(Request request) {
-		synchronized (requests) {
-			return requests.remove(request);
+		if (request == null || !pendingRequests.remove(Long.valueOf(request.getRequestId()), request))
+			return false;
+		request.cancelTimeout();
+		return true;
+	}
+
+	/**
+	 * Called by the shared request timeout scheduler when no response has
+	 * arrived for the given request within its call timeout.
+	 * @param request the request that has timed out
+	 * @since 4.7
+	 */
+	protected void handleRequestTimeout(final Request request) {
+		if (!pendingRequests.remove(Long.valueOf(request.getRequestId()), request))
+			return;
+		final Runnable notifier = new Runnable() {
+			public void run() {
+				failRequest(request, new TimeoutException(request.getCall().getTimeout()));
+			}
+		};
+		// Listeners and future dependents run user code, which must not hold up
+		// the timer thread shared by all pending requests
+		final Activator activator = Activator.getDefault();
+		final ExecutorService executor = (activator == null) ? null : activator.getRequestTimeoutExecutor();
+		if (executor == null) {
+			// Bundle is stopped
+			notifier.run();
+			return;
+		}
+		try {
+			executor.execute(notifier);
+		} catch (final RejectedExecutionException e) {
+			// Bundle is stopping
+			notifier.run();
+		}
+	}
+
+	private void failRequest(Request request, Throwable t) {
+		final IRemoteCallListener listener = request.getListener();
+		if (listener != null)
+			fireCallCompleteEvent(listener, request.getRequestId(), null, true, t);
+		else
+			request.getResponseFuture().completeExceptionally(t);
+	}
+
+	private void abandonPendingRequests() {
+		for (final Iterator<Request> i = pendingRequests.values().iterator(); i.hasNext();) {
+			final Request request = i.next();
+			if (removeRequest(request))
+				failRequest(request, new ECFException("Remote service registry disposed")); //$NON-NLS-1$
 		}
 	}
 
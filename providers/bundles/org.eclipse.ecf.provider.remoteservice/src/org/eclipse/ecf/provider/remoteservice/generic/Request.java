@@ -12,7 +12,9 @@
 package org.eclipse.ecf.provider.remoteservice.generic;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.internal.provider.remoteservice.TimerWheel;
 import org.eclipse.ecf.remoteservice.IRemoteCallListener;
 
 public class Request implements Serializable {
@@ -35,6 +37,10 @@ public class Request implements Serializable {
 
 	transient IRemoteCallListener listener = null;
 
+	transient CompletableFuture<Response> responseFuture;
+
+	transient TimerWheel.Timeout timeout;
+
 	private synchronized static long getNextRequestId() {
 		long result = nextRequestId;
 		nextRequestId = (nextRequestId == Long.MAX_VALUE) ? 0L : nextRequestId + 1;
@@ -89,6 +95,33 @@ public class Request implements Serializable {
 		return listener;
 	}
 
+	/**
+	 * @return CompletableFuture completed with the response to this request, or
+	 * completed exceptionally if the request times out or is abandoned.  Only
+	 * meaningful on the requesting side.
+	 * @since 4.7
+	 */
+	protected synchronized CompletableFuture<Response> getResponseFuture() {
+		if (responseFuture == null)
+			responseFuture = new CompletableFuture<Response>();
+		return responseFuture;
+	}
+
+	synchronized void setTimeout(TimerWheel.Timeout timeout) {
+		this.timeout = timeout;
+	}
+
+	synchronized boolean hasTimeout() {
+		return timeout != null;
+	}
+
+	synchronized void cancelTimeout() {
+		if (timeout != null) {
+			timeout.cancel();
+			timeout = null;
+		}
+	}
+
 	public String toString() {
 		final StringBuffer buf = new StringBuffer("Request["); //$NON-NLS-1$
 		buf.append("requestId=").append(requestId).append(";cont=").append( //$NON-NLS-1$ //$NON-NLS-2$
@@ -13,9 +13,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.zookeeper.core;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.net.URI;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,6 +30,7 @@ import org.eclipse.ecf.discovery.identity.ServiceIDFactory;
 import org.eclipse.ecf.provider.zookeeper.core.internal.Configurator;
 import org.eclipse.ecf.provider.zookeeper.core.internal.IService;
 import org.eclipse.ecf.provider.zookeeper.node.internal.INode;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeCodec;
 import org.eclipse.ecf.provider.zookeeper.util.Geo;
 import org.eclipse.ecf.provider.zookeeper.util.Logger;
 import org.osgi.framework.Constants;
@@ -149,34 +148,13 @@ public class AdvertisedService extends ServiceInfo implements INode, IService {
 	}
 
 	public byte[] getPropertiesAsBytes() {
-		ByteArrayOutputStream baout = new ByteArrayOutputStream();
-		ObjectOutputStream oout = null;
-		byte[] bytes = null;
 		try {
-			oout = new ObjectOutputStream(baout);
-			oout.writeObject(nodeProperties);
-			oout.flush();
-			bytes = baout.toByteArray();
+			return NodeCodec.encode(nodeProperties);
 		} catch (IOException e) {
 			Logger.log(LogService.LOG_ERROR,
 					"Error while serializing node data ", e);//$NON-NLS-1$
-		} finally {
-			if (oout != null) {
-				try {
-					oout.close();
-				} catch (IOException e) {
-					// ignore
-				}
-			}
-			if (baout != null) {
-				try {
-					baout.close();
-				} catch (IOException e) {
-					// ignore
-				}
-			}
+			return null;
 		}
-		return bytes;
 	}
 
 	public String getPath() {
@@ -13,6 +13,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.zookeeper.core;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
 import java.util.UUID;
@@ -22,12 +23,14 @@ import org.eclipse.ecf.core.identity.Namespace;
 import org.eclipse.ecf.core.util.SystemLogService;
 import org.eclipse.ecf.discovery.IServiceProperties;
 import org.eclipse.ecf.discovery.ServiceInfo;
+import org.eclipse.ecf.discovery.ServiceProperties;
 import org.eclipse.ecf.discovery.identity.IServiceTypeID;
 import org.eclipse.ecf.discovery.identity.ServiceIDFactory;
 import org.eclipse.ecf.provider.zookeeper.core.internal.IService;
 import org.eclipse.ecf.provider.zookeeper.core.internal.Localizer;
 import org.eclipse.ecf.provider.zookeeper.core.internal.Notification;
 import org.eclipse.ecf.provider.zookeeper.node.internal.INode;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeCodec;
 import org.eclipse.ecf.provider.zookeeper.util.Geo;
 import org.eclipse.ecf.provider.zookeeper.util.Logger;
 import org.eclipse.ecf.provider.zookeeper.util.PrettyPrinter;
@@ -38,6 +41,8 @@ public class DiscoverdService extends ServiceInfo implements IService, INode {
 	private String uuid;
 	private URI location;
 	private IServiceTypeID serviceTypeID;
+	// the service properties, until they are first asked for
+	private NodeCodec.EncodedProperties encodedProperties;
 
 	public DiscoverdService(String path, Map<String, Object> serviceData) {
 		Assert.isNotNull(serviceData);
@@ -46,7 +51,11 @@ public class DiscoverdService extends ServiceInfo implements IService, INode {
 		super.priority = (Integer) serviceData.remove(IService.PRIORITY);
 		super.weight = (Integer) serviceData.remove(IService.WEIGHT);
 		super.serviceName = (String) serviceData.get(IService.SERVICE_NAME);
-		super.properties = (IServiceProperties) serviceData.remove(INode.NODE_SERVICE_PROPERTIES);
+		Object properties = serviceData.remove(INode.NODE_SERVICE_PROPERTIES);
+		if (properties instanceof NodeCodec.EncodedProperties)
+			this.encodedProperties = (NodeCodec.EncodedProperties) properties;
+		else
+			super.properties = (IServiceProperties) properties;
 		String[] services = (String[]) serviceData.remove(INode.NODE_PROPERTY_SERVICES);
 		String na = (String) serviceData.remove(INode.NODE_PROPERTY_NAME_NA);
 		String[] protocols = (String[]) serviceData.remove(INode.NODE_PROPERTY_NAME_PROTOCOLS);
@@ -57,6 +66,24 @@ public class DiscoverdService extends ServiceInfo implements IService, INode {
 				this.location);
 	}
 
+	public synchronized IServiceProperties getServiceProperties() {
+		if (this.encodedProperties != null) {
+			try {
+				super.properties = this.encodedProperties.decode();
+			} catch (IOException e) {
+				Logger.log(SystemLogService.LOG_ERROR, "Error while decoding service properties of " + getServiceName(), e); //$NON-NLS-1$
+				super.properties = new ServiceProperties();
+			}
+			this.encodedProperties = null;
+		}
+		return super.properties;
+	}
+
+	public String toString() {
+		getServiceProperties();
+		return super.toString();
+	}
+
 	public void dispose() {
 		Logger.log(SystemLogService.LOG_DEBUG, PrettyPrinter.prompt(PrettyPrinter.REMOTE_UNAVAILABLE, this), null);
 		Localizer.getSingleton().localize(new Notification(this, Notification.UNAVAILABLE));
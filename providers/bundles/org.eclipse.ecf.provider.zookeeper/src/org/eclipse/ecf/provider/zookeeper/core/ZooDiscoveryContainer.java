@@ -47,6 +47,7 @@ import org.eclipse.ecf.provider.zookeeper.core.internal.Configuration;
 import org.eclipse.ecf.provider.zookeeper.core.internal.Configurator;
 import org.eclipse.ecf.provider.zookeeper.core.internal.Localizer;
 import org.eclipse.ecf.provider.zookeeper.core.internal.Notification;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeCache;
 import org.eclipse.ecf.provider.zookeeper.node.internal.WatchManager;
 import org.eclipse.ecf.provider.zookeeper.util.Geo;
 import org.eclipse.ecf.provider.zookeeper.util.Logger;
@@ -332,7 +333,10 @@ public class ZooDiscoveryContainer extends AbstractDiscoveryContainerAdapter {
 
 	public IServiceInfo getServiceInfo(IServiceID serviceID) {
 		Assert.isNotNull(serviceID);
-		return watchManager.getAllKnownServices().get(serviceID.getName());
+		IServiceInfo serviceInfo = watchManager.getAllKnownServices().get(serviceID.getName());
+		if (serviceInfo == null)
+			serviceInfo = NodeCache.getSingleton().getService(serviceID.getName());
+		return serviceInfo;
 	}
 
 	public IServiceTypeID[] getServiceTypes() {
@@ -347,7 +351,18 @@ public class ZooDiscoveryContainer extends AbstractDiscoveryContainerAdapter {
 		if (watchManager == null) {
 			return new IServiceInfo[0];
 		}
-		return watchManager.getAllKnownServices().values().toArray(new IServiceInfo[watchManager.getAllKnownServices().size()]);
+		List<IServiceInfo> services = getKnownServices();
+		return services.toArray(new IServiceInfo[services.size()]);
+	}
+
+	/**
+	 * @return the services published from here followed by the services
+	 *         discovered from the servers
+	 */
+	private List<IServiceInfo> getKnownServices() {
+		List<IServiceInfo> services = new ArrayList<IServiceInfo>(watchManager.getAllKnownServices().values());
+		services.addAll(NodeCache.getSingleton().getServices());
+		return services;
 	}
 
 	public IServiceInfo[] getServices(IServiceTypeID type) {
@@ -356,7 +371,7 @@ public class ZooDiscoveryContainer extends AbstractDiscoveryContainerAdapter {
 			return new IServiceInfo[0];
 		}
 		List<IServiceInfo> services = new ArrayList<IServiceInfo>();
-		for (IServiceInfo sinfo : watchManager.getAllKnownServices().values()) {
+		for (IServiceInfo sinfo : getKnownServices()) {
 			if (sinfo.getServiceID().getServiceTypeID().getInternal() == type.getInternal())
 				services.add(sinfo);
 		}
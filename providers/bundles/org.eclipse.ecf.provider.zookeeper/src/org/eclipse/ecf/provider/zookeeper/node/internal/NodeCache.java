@@ -0,0 +1,179 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.zookeeper.node.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.ecf.discovery.IServiceInfo;
+
+/**
+ * The service nodes read from the ZooKeeper servers, shared by all readers in
+ * this VM. Each node is kept by its path together with the version it was read
+ * at, the modification zxid of its stat. A reader that finds a node at the
+ * version it has cached takes the cached service instead of fetching the
+ * node's data again, so a resync after reconnecting only fetches the nodes
+ * that changed meanwhile.
+ * <p>
+ * A node stays cached while the connection to its server is lost, but its
+ * service is not available until a reader has seen the node again.
+ */
+public final class NodeCache {
+
+	private static final NodeCache SINGLETON = new NodeCache();
+
+	private static class Entry {
+		final long version;
+		final String ip;
+		final IServiceInfo service;
+		boolean isAvailable;
+
+		Entry(long version, String ip, IServiceInfo service) {
+			this.version = version;
+			this.ip = ip;
+			this.service = service;
+			this.isAvailable = true;
+		}
+	}
+
+	// node path -> Entry
+	private final Map<String, Entry> nodes = new HashMap<String, Entry>();
+	// service ID name -> node path
+	private final Map<String, String> paths = new HashMap<String, String>();
+
+	public static NodeCache getSingleton() {
+		return SINGLETON;
+	}
+
+	/**
+	 * @param path
+	 *            the node path, relative to {@link INode#ROOT}
+	 * @param version
+	 *            the modification zxid of the node's stat
+	 * @return the cached service of the node, if it was read at the given
+	 *         version, otherwise <code>null</code>. The service is available
+	 *         again.
+	 */
+	public synchronized IServiceInfo get(String path, long version) {
+		Entry entry = nodes.get(path);
+		if (entry == null || entry.version != version)
+			return null;
+		entry.isAvailable = true;
+		return entry.service;
+	}
+
+	/**
+	 * Cache the service read from a node, replacing the service read at an
+	 * earlier version.
+	 *
+	 * @param path
+	 *            the node path, relative to {@link INode#ROOT}
+	 * @param version
+	 *            the modification zxid of the node's stat
+	 * @param ip
+	 *            the server the node was read from
+	 * @param service
+	 *            the service of the node
+	 */
+	public synchronized void put(String path, long version, String ip,
+			IServiceInfo service) {
+		Assert.isNotNull(path);
+		Assert.isNotNull(service);
+		remove(path);
+		nodes.put(path, new Entry(version, ip, service));
+		paths.put(service.getServiceID().getName(), path);
+	}
+
+	/**
+	 * Keep the node, but do not offer its service until it is seen again.
+	 */
+	public synchronized void setUnavailable(String path) {
+		Entry entry = nodes.get(path);
+		if (entry != null)
+			entry.isAvailable = false;
+	}
+
+	public synchronized IServiceInfo remove(String path) {
+		Entry entry = nodes.remove(path);
+		if (entry == null)
+			return null;
+		String name = entry.service.getServiceID().getName();
+		if (path.equals(paths.get(name)))
+			paths.remove(name);
+		return entry.service;
+	}
+
+	/**
+	 * Drop the nodes read from the given server that are not among its
+	 * current children.
+	 *
+	 * @param ip
+	 *            the server
+	 * @param children
+	 *            the node paths the server has now
+	 */
+	public synchronized void retain(String ip, Collection<String> children) {
+		Set<String> current = new HashSet<String>(children);
+		List<String> gone = new ArrayList<String>();
+		for (Iterator<Map.Entry<String, Entry>> itr = nodes.entrySet()
+				.iterator(); itr.hasNext();) {
+			Map.Entry<String, Entry> node = itr.next();
+			if (node.getValue().ip != null && node.getValue().ip.equals(ip)
+					&& !current.contains(node.getKey()))
+				gone.add(node.getKey());
+		}
+		for (String path : gone)
+			remove(path);
+	}
+
+	/**
+	 * @param serviceName
+	 *            the name of the service's ID
+	 * @return the available service of that name, or <code>null</code>
+	 */
+	public synchronized IServiceInfo getService(String serviceName) {
+		String path = paths.get(serviceName);
+		if (path == null)
+			return null;
+		Entry entry = nodes.get(path);
+		return entry != null && entry.isAvailable ? entry.service : null;
+	}
+
+	/**
+	 * @return the available services
+	 */
+	public synchronized List<IServiceInfo> getServices() {
+		List<IServiceInfo> result = new ArrayList<IServiceInfo>(nodes.size());
+		for (Entry entry : nodes.values()) {
+			if (entry.isAvailable)
+				result.add(entry.service);
+		}
+		return result;
+	}
+
+	public synchronized int size() {
+		return nodes.size();
+	}
+
+	public synchronized void clear() {
+		nodes.clear();
+		paths.clear();
+	}
+}
@@ -0,0 +1,367 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.zookeeper.node.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.ecf.discovery.IServiceProperties;
+import org.eclipse.ecf.discovery.ServiceProperties;
+import org.eclipse.ecf.provider.zookeeper.core.DefaultDiscoveryConfig;
+
+/**
+ * Encoding of the data of a service node. Two encodings are read: the
+ * Java-serialized map written by all versions of this provider, and a compact,
+ * versioned binary format: the two magic bytes "ZD", a format version, and the
+ * node properties as tagged values. In the compact format, values of types
+ * without a tag are written with Java serialization, and the service
+ * properties are written as a sized block, so that decoding them can be
+ * deferred until they are asked for.
+ * <p>
+ * Nodes are written as a Java-serialized map, which earlier versions of this
+ * provider can read, so that a cluster can be upgraded one member at a time.
+ * Once no member runs an earlier version, setting the system property
+ * <code>zoodiscovery.nodeEncoding</code> to <code>compact</code> writes the
+ * compact format instead.
+ */
+public final class NodeCodec {
+
+	public static final String NODE_ENCODING = DefaultDiscoveryConfig.ZOODISCOVERY_PREFIX + "nodeEncoding"; //$NON-NLS-1$
+	public static final String NODE_ENCODING_LEGACY = "legacy"; //$NON-NLS-1$
+	public static final String NODE_ENCODING_COMPACT = "compact"; //$NON-NLS-1$
+
+	static final int MAGIC = 0x5A44; // "ZD"
+	static final int VERSION = 2;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte BOOLEAN = 4;
+	private static final byte DOUBLE = 5;
+	private static final byte FLOAT = 6;
+	private static final byte SHORT = 7;
+	private static final byte BYTE = 8;
+	private static final byte CHARACTER = 9;
+	private static final byte BYTES = 10;
+	private static final byte STRING_ARRAY = 11;
+	private static final byte URI_VALUE = 12;
+	private static final byte SERVICE_PROPERTIES = 13;
+	// a property set with IServiceProperties#setPropertyBytes
+	private static final byte PROPERTY_BYTES = 14;
+	private static final byte SERIALIZED = 15;
+	// version 2: SERVICE_PROPERTIES preceded by its size
+	private static final byte SERVICE_PROPERTIES_BLOCK = 16;
+
+	/**
+	 * Service properties whose decoding was deferred.
+	 */
+	public static final class EncodedProperties implements Serializable {
+		private static final long serialVersionUID = -4181457413232066531L;
+		private final byte[] data;
+
+		EncodedProperties(byte[] data) {
+			this.data = data;
+		}
+
+		public IServiceProperties decode() throws IOException {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+					data));
+			try {
+				in.readByte();
+				return (IServiceProperties) readValue(in, SERVICE_PROPERTIES);
+			} catch (ClassNotFoundException e) {
+				IOException ioe = new IOException(e.getMessage());
+				ioe.initCause(e);
+				throw ioe;
+			}
+		}
+	}
+
+	private NodeCodec() {
+		// static only
+	}
+
+	public static boolean isLegacyEncoding() {
+		return !NODE_ENCODING_COMPACT.equals(System.getProperty(NODE_ENCODING));
+	}
+
+	/**
+	 * @param nodeProperties
+	 *            the node properties
+	 * @return the node data, in the legacy encoding if
+	 *         {@link #isLegacyEncoding()}, otherwise in the compact encoding
+	 * @throws IOException
+	 *             if a value cannot be written
+	 */
+	public static byte[] encode(Map<String, Object> nodeProperties) throws IOException {
+		return isLegacyEncoding() ? encodeLegacy(nodeProperties) : encodeCompact(nodeProperties);
+	}
+
+	public static byte[] encodeLegacy(Map<String, Object> nodeProperties) throws IOException {
+		return serialize((Serializable) nodeProperties);
+	}
+
+	public static byte[] encodeCompact(Map<String, Object> nodeProperties) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeShort(MAGIC);
+		out.writeByte(VERSION);
+		out.writeInt(nodeProperties.size());
+		for (Map.Entry<String, Object> entry : nodeProperties.entrySet()) {
+			writeString(out, entry.getKey());
+			writeValue(out, entry.getValue());
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @param data
+	 *            node data in the compact or the legacy encoding
+	 * @return the node properties
+	 * @throws IOException
+	 *             if the data cannot be read, or is of a later format version
+	 * @throws ClassNotFoundException
+	 *             if a serialized value's class cannot be found
+	 */
+	public static Map<String, Object> decode(byte[] data) throws IOException, ClassNotFoundException {
+		return decode(data, false);
+	}
+
+	/**
+	 * @param data
+	 *            node data in the compact or the legacy encoding
+	 * @param deferProperties
+	 *            <code>true</code> to leave the service properties of compact
+	 *            data encoded, as an {@link EncodedProperties}
+	 * @return the node properties
+	 * @throws IOException
+	 *             if the data cannot be read, or is of a later format version
+	 * @throws ClassNotFoundException
+	 *             if a serialized value's class cannot be found
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> decode(byte[] data, boolean deferProperties) throws IOException, ClassNotFoundException {
+		if (!isCompact(data))
+			return (Map<String, Object>) deserialize(data);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		in.readShort();
+		int version = in.readUnsignedByte();
+		if (version > VERSION)
+			throw new IOException("Unsupported node format version " + version); //$NON-NLS-1$
+		int size = in.readInt();
+		Map<String, Object> result = new HashMap<String, Object>();
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			byte tag = in.readByte();
+			if (tag == SERVICE_PROPERTIES_BLOCK && deferProperties)
+				result.put(key, new EncodedProperties(readBytes(in)));
+			else
+				result.put(key, readValue(in, tag));
+		}
+		return result;
+	}
+
+	static boolean isCompact(byte[] data) {
+		// Java serialization streams start with 0xACED
+		return data.length >= 3 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF)) == MAGIC;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8"); //$NON-NLS-1$
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INTEGER);
+			out.writeInt(((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong(((Long) value).longValue());
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean(((Boolean) value).booleanValue());
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble(((Double) value).doubleValue());
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat(((Float) value).floatValue());
+		} else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort(((Short) value).shortValue());
+		} else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte(((Byte) value).byteValue());
+		} else if (value instanceof Character) {
+			out.writeByte(CHARACTER);
+			out.writeChar(((Character) value).charValue());
+		} else if (value instanceof byte[]) {
+			out.writeByte(BYTES);
+			writeBytes(out, (byte[]) value);
+		} else if (value instanceof String[]) {
+			String[] strings = (String[]) value;
+			out.writeByte(STRING_ARRAY);
+			out.writeInt(strings.length);
+			for (int i = 0; i < strings.length; i++)
+				writeValue(out, strings[i]);
+		} else if (value instanceof URI) {
+			out.writeByte(URI_VALUE);
+			writeString(out, value.toString());
+		} else if (value instanceof IServiceProperties) {
+			writeServiceProperties(out, (IServiceProperties) value);
+		} else if (value instanceof Serializable) {
+			out.writeByte(SERIALIZED);
+			writeBytes(out, serialize((Serializable) value));
+		} else {
+			throw new IOException("Cannot encode value of " + value.getClass()); //$NON-NLS-1$
+		}
+	}
+
+	private static void writeServiceProperties(DataOutputStream out, IServiceProperties properties) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream block = new DataOutputStream(bytes);
+		writeServicePropertiesBlock(block, properties);
+		block.flush();
+		out.writeByte(SERVICE_PROPERTIES_BLOCK);
+		writeBytes(out, bytes.toByteArray());
+	}
+
+	private static void writeServicePropertiesBlock(DataOutputStream out, IServiceProperties properties) throws IOException {
+		out.writeByte(SERVICE_PROPERTIES);
+		out.writeInt(properties.size());
+		for (Enumeration<?> names = properties.getPropertyNames(); names.hasMoreElements();) {
+			String name = (String) names.nextElement();
+			writeString(out, name);
+			byte[] bytes = properties.getPropertyBytes(name);
+			if (bytes != null) {
+				out.writeByte(PROPERTY_BYTES);
+				writeBytes(out, bytes);
+			} else {
+				writeValue(out, properties.getProperty(name));
+			}
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+		return readValue(in, in.readByte());
+	}
+
+	private static Object readValue(DataInputStream in, byte tag) throws IOException, ClassNotFoundException {
+		switch (tag) {
+		case NULL:
+			return null;
+		case STRING:
+			return readString(in);
+		case INTEGER:
+			return Integer.valueOf(in.readInt());
+		case LONG:
+			return Long.valueOf(in.readLong());
+		case BOOLEAN:
+			return Boolean.valueOf(in.readBoolean());
+		case DOUBLE:
+			return Double.valueOf(in.readDouble());
+		case FLOAT:
+			return Float.valueOf(in.readFloat());
+		case SHORT:
+			return Short.valueOf(in.readShort());
+		case BYTE:
+			return Byte.valueOf(in.readByte());
+		case CHARACTER:
+			return Character.valueOf(in.readChar());
+		case BYTES:
+			return readBytes(in);
+		case STRING_ARRAY:
+			String[] strings = new String[in.readInt()];
+			for (int i = 0; i < strings.length; i++)
+				strings[i] = (String) readValue(in);
+			return strings;
+		case URI_VALUE:
+			return URI.create(readString(in));
+		case SERVICE_PROPERTIES:
+			ServiceProperties properties = new ServiceProperties();
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				String name = readString(in);
+				byte valueTag = in.readByte();
+				if (valueTag == PROPERTY_BYTES)
+					properties.setPropertyBytes(name, readBytes(in));
+				else
+					properties.setProperty(name, readValue(in, valueTag));
+			}
+			return properties;
+		case SERIALIZED:
+			return deserialize(readBytes(in));
+		case SERVICE_PROPERTIES_BLOCK:
+			return new EncodedProperties(readBytes(in)).decode();
+		default:
+			throw new IOException("Unknown value tag " + tag); //$NON-NLS-1$
+		}
+	}
+
+	private static byte[] serialize(Serializable value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		try {
+			out.writeObject(value);
+			out.flush();
+		} finally {
+			out.close();
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+		try {
+			return in.readObject();
+		} finally {
+			in.close();
+		}
+	}
+}
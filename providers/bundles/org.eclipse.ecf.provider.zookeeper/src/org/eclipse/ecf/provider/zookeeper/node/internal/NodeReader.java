@@ -13,9 +13,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.zookeeper.node.internal;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.Map;
 
 import org.apache.zookeeper.WatchedEvent;
@@ -32,8 +30,14 @@ import org.eclipse.ecf.provider.zookeeper.util.Logger;
 import org.eclipse.ecf.provider.zookeeper.util.PrettyPrinter;
 import org.osgi.service.log.LogService;
 
+/**
+ * Reads one service node. The node's stat is read first: a node whose version
+ * is in the {@link NodeCache} is not fetched again. The service properties are
+ * only decoded when the discovered service is asked for them.
+ */
 public class NodeReader implements Watcher,
-		org.apache.zookeeper.AsyncCallback.DataCallback {
+		org.apache.zookeeper.AsyncCallback.DataCallback,
+		org.apache.zookeeper.AsyncCallback.StatCallback {
 
 	private String path;
 	private DiscoverdService discovered;
@@ -41,17 +45,14 @@ public class NodeReader implements Watcher,
 	private String ip;
 	boolean isNodePublished;
 	private boolean isDisposed;
-	private ReadRoot readRoot;
 
 	public NodeReader(String path, ReadRoot readRoot) {
 		Assert.isNotNull(path);
 		Assert.isNotNull(readRoot);
-		this.readRoot = readRoot;
 		this.path = path;
 		this.zookeeper = readRoot.getReadKeeper();
 		this.ip = readRoot.getIp();
-		this.zookeeper.getData(getAbsolutePath(), this, this, null);
-		this.zookeeper.exists(getAbsolutePath(), this, null, null);
+		this.zookeeper.exists(getAbsolutePath(), this, this, null);
 	}
 
 	public void setPath(String path) {
@@ -66,19 +67,32 @@ public class NodeReader implements Watcher,
 		return INode.ROOT_SLASH + getPath();
 	}
 
+	public synchronized void processResult(int rc, String p, Object ctx,
+			Stat stat) {
+		if (this.isDisposed || p == null || !p.equals(getAbsolutePath())
+				|| stat == null) {
+			return;
+		}
+		DiscoverdService cached = (DiscoverdService) NodeCache.getSingleton()
+				.get(getPath(), stat.getMzxid());
+		if (cached != null) {
+			discovered(cached);
+			return;
+		}
+		// new or changed since it was cached
+		this.zookeeper.getData(getAbsolutePath(), false, this, null);
+	}
+
 	public synchronized void processResult(int rc, String p, Object ctx,
 			byte[] data, Stat stat) {
-		if (p == null || !p.equals(getAbsolutePath()) || data == null) {
+		if (this.isDisposed || p == null || !p.equals(getAbsolutePath())
+				|| data == null) {
 			return;
 		}
-		ObjectInputStream objin = null;
-		ByteArrayInputStream bain = null;
 		Map<String, Object> serviceData = null;
 		try {
-			bain = new ByteArrayInputStream(data);
-			objin = new ObjectInputStream(bain);
 			try {
-				serviceData = (Map<String, Object>) objin.readObject();
+				serviceData = NodeCodec.decode(data, true);
 			} catch (ClassNotFoundException e) {
 				Logger.log(LogService.LOG_ERROR, "NodeReader.processResult: "
 						+ e.getMessage(), e);
@@ -86,34 +100,26 @@ public class NodeReader implements Watcher,
 			if (serviceData == null || serviceData.isEmpty()) {
 				return;
 			}
-			this.discovered = new DiscoverdService(getPath(), serviceData);
-			readRoot.getDiscoverdServices()
-					.put(this.discovered.getServiceID().getServiceTypeID()
-							.getName(), this.discovered);
-			Logger.log(LogService.LOG_DEBUG, PrettyPrinter.prompt(PrettyPrinter.REMOTE_AVAILABLE, this.discovered), null);
-			Localizer.getSingleton().localize(
-					new Notification(this.discovered, Notification.AVAILABLE));
-
+			DiscoverdService service = new DiscoverdService(getPath(),
+					serviceData);
+			NodeCache.getSingleton().put(getPath(), stat.getMzxid(), this.ip,
+					service);
+			discovered(service);
 		} catch (IOException e) {
 			Logger.log(LogService.LOG_DEBUG, e.getMessage(), e);
-		} finally {
-			if (objin != null) {
-				try {
-					objin.close();
-				} catch (IOException e) {
-					// ignore
-				}
-			}
-			if (bain != null) {
-				try {
-					bain.close();
-				} catch (IOException e) {
-					// ignore
-				}
-			}
 		}
 	}
 
+	private void discovered(DiscoverdService service) {
+		if (service == this.discovered) {
+			return;
+		}
+		this.discovered = service;
+		Logger.log(LogService.LOG_DEBUG, PrettyPrinter.prompt(PrettyPrinter.REMOTE_AVAILABLE, this.discovered), null);
+		Localizer.getSingleton().localize(
+				new Notification(this.discovered, Notification.AVAILABLE));
+	}
+
 	public void setIp(String ip) {
 		this.ip = ip;
 	}
@@ -128,15 +134,25 @@ public class NodeReader implements Watcher,
 			// Already disposed
 			return;
 		}
-		if (event.getState() == KeeperState.Disconnected
-				|| event.getState() == KeeperState.Expired
-				|| event.getType() == EventType.NodeDeleted) {
+		if (event.getType() == EventType.NodeDeleted) {
 			/*
-			 * This node is deleted or the connection with the server we're
-			 * reading from is down. This discovered service wrapped by this
+			 * This node is deleted. The discovered service wrapped by this
 			 * node is no more available.
 			 */
+			NodeCache.getSingleton().remove(getPath());
 			dispose();
+		} else if (event.getState() == KeeperState.Disconnected
+				|| event.getState() == KeeperState.Expired) {
+			/*
+			 * The connection with the server we're reading from is down. The
+			 * node stays cached, so that it is not read again if it is
+			 * unchanged after reconnecting.
+			 */
+			NodeCache.getSingleton().setUnavailable(getPath());
+			dispose();
+		} else if (event.getType() == EventType.NodeDataChanged) {
+			// watch again, and read the node if its version is not cached
+			this.zookeeper.exists(getAbsolutePath(), this, this, null);
 		}
 
 	}
@@ -144,12 +160,8 @@ public class NodeReader implements Watcher,
 	public synchronized void dispose() {
 		if (isDisposed || discovered == null)
 			return;
-		if (null != readRoot.getDiscoverdServices().remove(
-				this.discovered.getServiceID().getServiceTypeID().getName())) {
-			this.discovered.dispose();
-			isDisposed = true;
-
-		}
+		isDisposed = true;
+		this.discovered.dispose();
 	}
 
-}
\ No newline at end of file
+}
@@ -13,9 +13,19 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.zookeeper.node.internal;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.zookeeper.AsyncCallback.StringCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.ZooDefs.Ids;
+import org.apache.zookeeper.ZooKeeper;
 import org.apache.zookeeper.data.Stat;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.provider.zookeeper.core.AdvertisedService;
@@ -27,6 +37,11 @@ import org.osgi.service.log.LogService;
 
 public class NodeWriter {
 
+	/**
+	 * Milliseconds a batch of nodes waits for the server to acknowledge them.
+	 */
+	static final long PUBLISH_TIMEOUT = 30000;
+
 	private INode node;
 	private String ip;
 	private WriteRoot writeRoot;
@@ -51,26 +66,137 @@ public class NodeWriter {
 	}
 
 	public synchronized void publish() {
-		try {
-			String parentPath = this.getNode().getAbsolutePath();
-			Stat stat = this.writeRoot.getWriteKeeper().exists(parentPath,
-					false);
-			if (stat == null) {
-				this.writeRoot.getWriteKeeper()
-						.create(parentPath,
-								((AdvertisedService) this.getNode()
-										.getWrappedService())
-										.getPropertiesAsBytes(),
-								Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+		publish(Collections.singletonList(this));
+	}
+
+	/**
+	 * Publish the nodes of the given writers, which must share their write
+	 * root, as one batch. A node that already exists counts as published.
+	 */
+	static void publish(List<NodeWriter> nodeWriters) {
+		publishAsync(nodeWriters).await();
+	}
+
+	/**
+	 * Send the creates for the nodes of the given writers, which must share
+	 * their write root, without waiting for the server. The server handles
+	 * them before any request sent later with the same client, such as the
+	 * removal of one of the nodes.
+	 * 
+	 * @return the batch to wait for
+	 */
+	static Batch publishAsync(List<NodeWriter> nodeWriters) {
+		if (nodeWriters.isEmpty())
+			return new Batch(nodeWriters, null);
+		ZooKeeper keeper = nodeWriters.get(0).writeRoot.getWriteKeeper();
+		Map<String, byte[]> nodes = new LinkedHashMap<String, byte[]>();
+		for (NodeWriter nodeWriter : nodeWriters) {
+			nodes.put(nodeWriter.getNode().getAbsolutePath(),
+					((AdvertisedService) nodeWriter.getNode()
+							.getWrappedService()).getPropertiesAsBytes());
+		}
+		return new Batch(nodeWriters, sendCreates(keeper, nodes));
+	}
+
+	/**
+	 * Nodes whose creates have been sent.
+	 */
+	static class Batch {
+		private final List<NodeWriter> nodeWriters;
+		private final Creates creates;
+
+		Batch(List<NodeWriter> nodeWriters, Creates creates) {
+			this.nodeWriters = nodeWriters;
+			this.creates = creates;
+		}
+
+		/**
+		 * Wait for the server to acknowledge the nodes, and log the result
+		 * for each of them.
+		 */
+		void await() {
+			if (creates == null)
+				return;
+			Map<String, KeeperException.Code> results;
+			try {
+				results = creates.await(PUBLISH_TIMEOUT);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			for (NodeWriter nodeWriter : nodeWriters) {
+				KeeperException.Code code = results.get(nodeWriter.getNode()
+						.getAbsolutePath());
+				if (code == KeeperException.Code.OK
+						|| code == KeeperException.Code.NODEEXISTS) {
+					Logger.log(LogService.LOG_INFO, PrettyPrinter.prompt(PrettyPrinter.PUBLISHED, nodeWriter.getNode().getWrappedService()), null);
+				} else if (code == KeeperException.Code.CONNECTIONLOSS) {
+					Logger.log(LogService.LOG_ERROR, "Can't connect to server! " //$NON-NLS-1$
+							+ nodeWriter.getPath(), null);
+				} else {
+					Logger.log(LogService.LOG_DEBUG, "Node not published: " //$NON-NLS-1$
+							+ nodeWriter.getPath() + " " + code, null); //$NON-NLS-1$
+				}
 			}
-			Logger.log(LogService.LOG_INFO, PrettyPrinter.prompt(PrettyPrinter.PUBLISHED, this.getNode().getWrappedService()), null);
-		} catch (KeeperException e) {
-			if (e.code() == KeeperException.Code.CONNECTIONLOSS) {
-				Logger.log(LogService.LOG_ERROR, "Can't connect to server! "
-						+ e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Create the given ephemeral nodes. All creates are sent before the first
+	 * reply is awaited, so a batch costs about one round trip to the server
+	 * instead of two per node.
+	 * 
+	 * @param keeper
+	 *            the client to create the nodes with
+	 * @param nodes
+	 *            absolute node path -> node data
+	 * @param timeout
+	 *            milliseconds to wait for the replies
+	 * @return absolute node path -> result, for the nodes the server answered
+	 *         within the timeout
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the replies
+	 */
+	public static Map<String, KeeperException.Code> createNodes(
+			ZooKeeper keeper, Map<String, byte[]> nodes, long timeout)
+			throws InterruptedException {
+		return sendCreates(keeper, nodes).await(timeout);
+	}
+
+	private static Creates sendCreates(ZooKeeper keeper,
+			Map<String, byte[]> nodes) {
+		Creates creates = new Creates(nodes.size());
+		for (Map.Entry<String, byte[]> node : nodes.entrySet()) {
+			keeper.create(node.getKey(), node.getValue(), Ids.OPEN_ACL_UNSAFE,
+					CreateMode.EPHEMERAL, creates, null);
+		}
+		return creates;
+	}
+
+	/**
+	 * Collects the replies to the creates of a batch.
+	 */
+	private static class Creates implements StringCallback {
+		private final Map<String, KeeperException.Code> results = new HashMap<String, KeeperException.Code>();
+		private final CountDownLatch replies;
+
+		Creates(int count) {
+			replies = new CountDownLatch(count);
+		}
+
+		public void processResult(int rc, String path, Object ctx, String name) {
+			synchronized (results) {
+				results.put(path, KeeperException.Code.get(rc));
+			}
+			replies.countDown();
+		}
+
+		Map<String, KeeperException.Code> await(long timeout)
+				throws InterruptedException {
+			replies.await(timeout, TimeUnit.MILLISECONDS);
+			synchronized (results) {
+				return new HashMap<String, KeeperException.Code>(results);
 			}
-		} catch (InterruptedException e) {
-			// ignore
 		}
 	}
 
@@ -24,7 +24,6 @@ import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooKeeper;
 import org.eclipse.core.runtime.Assert;
-import org.eclipse.ecf.provider.zookeeper.core.DiscoverdService;
 import org.eclipse.ecf.provider.zookeeper.core.ZooDiscoveryContainer;
 import org.eclipse.ecf.provider.zookeeper.util.Geo;
 import org.eclipse.ecf.provider.zookeeper.util.Logger;
@@ -37,8 +36,6 @@ public class ReadRoot implements Watcher, ChildrenCallback {
 	private boolean isConnected;
 	private final Map<String, NodeReader> nodeReaders = Collections
 			.synchronizedMap(new HashMap<String, NodeReader>());
-	private final Map<String, DiscoverdService> discoverdServices;
-	private final Map<String, List<DiscoverdService>> perTypeDiscoverdServices;
 	private final Object connectionLock = new Object();
 
 	ReadRoot(String ip, WatchManager watchManager) {
@@ -46,10 +43,6 @@ public class ReadRoot implements Watcher, ChildrenCallback {
 		Assert.isNotNull(watchManager);
 		this.ip = ip;
 		this.watchManager = watchManager;
-		discoverdServices = Collections
-				.synchronizedMap(new HashMap<String, DiscoverdService>());
-		perTypeDiscoverdServices = Collections
-				.synchronizedMap(new HashMap<String, List<DiscoverdService>>());
 		connect();
 	}
 
@@ -143,10 +136,11 @@ public class ReadRoot implements Watcher, ChildrenCallback {
 				synchronized (connectionLock) {
 					if (watchManager.isDisposed())
 						return;
-					if (path == null || children == null
-							|| children.size() == 0) {
+					if (path == null || children == null) {
 						return;
 					}
+					/* forget the cached nodes this server no longer has */
+					NodeCache.getSingleton().retain(ReadRoot.this.ip, children);
 					for (String p : children) {
 						if (Geo.isOwnPublication(p)) {
 							/* own publications need not to be discovered */
@@ -174,12 +168,4 @@ public class ReadRoot implements Watcher, ChildrenCallback {
 	public String getIp() {
 		return this.ip;
 	}
-
-	public Map<String, DiscoverdService> getDiscoverdServices() {
-		return discoverdServices;
-	}
-
-	public Map<String, List<DiscoverdService>> getPerTypeDiscoverdServices() {
-		return perTypeDiscoverdServices;
-	}
 }
\ No newline at end of file
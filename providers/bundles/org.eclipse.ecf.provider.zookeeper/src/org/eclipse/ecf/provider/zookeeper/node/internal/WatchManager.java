@@ -16,6 +16,7 @@ package org.eclipse.ecf.provider.zookeeper.node.internal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +31,7 @@ import org.eclipse.ecf.provider.zookeeper.core.internal.BundleStoppingListener;
 import org.eclipse.ecf.provider.zookeeper.core.internal.Configuration;
 import org.eclipse.ecf.provider.zookeeper.util.Geo;
 import org.eclipse.ecf.provider.zookeeper.util.Logger;
+import org.eclipse.ecf.provider.zookeeper.util.PrettyPrinter;
 import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.log.LogService;
@@ -41,7 +43,9 @@ public class WatchManager implements BundleStoppingListener {
 	private Map<String, IServiceInfo> allKnownServices;
 	private Configuration config;
 	private WriteRoot writeRoot;
-	private Lock writeRootLock;
+	// advertisements made before the write root was open, by node writer key
+	private Map<String, AdvertisedService> pendingServices;
+	private boolean isWriteRootOpen;
 	private boolean isDisposed;
 
 	public WatchManager(Configuration config) {
@@ -50,51 +54,71 @@ public class WatchManager implements BundleStoppingListener {
 		zooKeepers = new ArrayList<ZooKeeper>();
 		nodeWriters = new HashMap<String, NodeWriter>();
 		allKnownServices = new HashMap<String, IServiceInfo>();
-		writeRootLock = new Lock().lock();
+		pendingServices = new LinkedHashMap<String, AdvertisedService>();
 		isDisposed = false;
 	}
 
 	public synchronized void publish(final ServiceReference ref) {
 		Assert.isNotNull(ref);
 		String serviceid = ref.getProperty(Constants.SERVICE_ID).toString();
-		if (WatchManager.this.getNodeWriters().containsKey(serviceid))
+		if (getNodeWriters().containsKey(serviceid)
+				|| pendingServices.containsKey(serviceid))
 			return;
-		if (!WatchManager.this.writeRootLock.isOpen()) {
-			synchronized (WatchManager.this.writeRootLock) {
-				try {
-					/* wait for the server to get ready */
-					WatchManager.this.writeRootLock.wait();
-				} catch (InterruptedException e) {
-					Logger.log(LogService.LOG_DEBUG, e.getMessage(), e);
-				}
-			}
-		}
 		AdvertisedService published = new AdvertisedService(ref);
 		allKnownServices.put(published.getServiceID().getName(), published);
-		NodeWriter nodeWriter = new NodeWriter(published,
-				WatchManager.this.writeRoot);
-		WatchManager.this.getNodeWriters().put(serviceid, nodeWriter);
-		nodeWriter.publish();
+		publish(serviceid, published);
 	}
 
-	public void publish(AdvertisedService published) {
+	public synchronized void publish(AdvertisedService published) {
 		Assert.isNotNull(published);
-		try {
-			/* wait for the server to get ready */
-			while (!writeRootLock.isOpen())
-				Thread.sleep(300);
-		} catch (InterruptedException e) {
-			Logger.log(LogService.LOG_DEBUG, e.getMessage(), e);
-		}
 		String serviceName = published.getServiceID().getName();
-		NodeWriter nodeWriter = new NodeWriter(published, writeRoot);
-		getNodeWriters().put(serviceName, nodeWriter);
 		allKnownServices.put(serviceName, published);
+		publish(serviceName, published);
+	}
+
+	private void publish(String key, AdvertisedService published) {
+		if (!isWriteRootOpen) {
+			/* published with the others once the server gets ready */
+			pendingServices.put(key, published);
+			Logger.log(LogService.LOG_DEBUG, PrettyPrinter.prompt(
+					PrettyPrinter.PUBLISH_DELAYED, published), null);
+			return;
+		}
+		NodeWriter nodeWriter = new NodeWriter(published, writeRoot);
+		getNodeWriters().put(key, nodeWriter);
 		nodeWriter.publish();
 	}
 
+	/**
+	 * Called once the write root is connected. Publishes the services
+	 * advertised until now as one batch. The creates are sent while holding
+	 * this manager's lock, so that they reach the server before the removal
+	 * of any of the nodes. The replies are awaited without it.
+	 */
+	void writeRootOpened(WriteRoot root) {
+		NodeWriter.Batch batch;
+		synchronized (this) {
+			this.writeRoot = root;
+			this.isWriteRootOpen = true;
+			if (isDisposed())
+				return;
+			List<NodeWriter> nodeWriters = new ArrayList<NodeWriter>(
+					pendingServices.size());
+			for (Map.Entry<String, AdvertisedService> pending : pendingServices
+					.entrySet()) {
+				NodeWriter nodeWriter = new NodeWriter(pending.getValue(), root);
+				getNodeWriters().put(pending.getKey(), nodeWriter);
+				nodeWriters.add(nodeWriter);
+			}
+			pendingServices.clear();
+			batch = NodeWriter.publishAsync(nodeWriters);
+		}
+		batch.await();
+	}
+
 	public synchronized void unpublish(final String id) {
 		Assert.isNotNull(id);
+		pendingServices.remove(id);
 		IServiceInfo p = AdvertisedService.removePublished(id);
 		if (p == null) {
 			return;
@@ -119,12 +143,8 @@ public class WatchManager implements BundleStoppingListener {
 		case CENTRALIZED:
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
 				public void run() {
-					WatchManager.this.writeRoot = new WriteRoot(getConfig()
-							.getServerIps(), WatchManager.this);
-					synchronized (WatchManager.this.writeRootLock) {
-						WatchManager.this.writeRootLock.unlock();
-						WatchManager.this.writeRootLock.notifyAll();
-					}
+					writeRootOpened(new WriteRoot(getConfig().getServerIps(),
+							WatchManager.this));
 				}
 			});
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
@@ -137,12 +157,8 @@ public class WatchManager implements BundleStoppingListener {
 		case REPLICATED:
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
 				public void run() {
-					WatchManager.this.writeRoot = new WriteRoot(getConfig()
-							.getServerIps(), WatchManager.this);
-					synchronized (WatchManager.this.writeRootLock) {
-						WatchManager.this.writeRootLock.unlock();
-						WatchManager.this.writeRootLock.notifyAll();
-					}
+					writeRootOpened(new WriteRoot(getConfig().getServerIps(),
+							WatchManager.this));
 				}
 			});
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
@@ -155,27 +171,24 @@ public class WatchManager implements BundleStoppingListener {
 		case STANDALONE:
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
 				public void run() {
-					WatchManager.this.writeRoot = new WriteRoot(Geo.getHost(),
+					WriteRoot root = new WriteRoot(Geo.getHost(),
 							WatchManager.this);
-					if (!WatchManager.this.writeRoot.isConnected()) {
-						synchronized (WatchManager.this.writeRoot) {
+					if (!root.isConnected()) {
+						synchronized (root) {
 							try {
 								/*
 								 * wait for connection with the server to write
 								 * to.
 								 */
-								WatchManager.this.writeRoot.wait();
+								root.wait();
 							} catch (InterruptedException e) {
 								Logger.log(LogService.LOG_DEBUG,
 										e.getMessage(), e);
 							}
 						}
 					}
-					synchronized (WatchManager.this.writeRootLock) {
-						/* resume publication */
-						WatchManager.this.writeRootLock.unlock();
-						WatchManager.this.writeRootLock.notifyAll();
-					}
+					/* resume publication */
+					writeRootOpened(root);
 				}
 			});
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
@@ -214,6 +227,7 @@ public class WatchManager implements BundleStoppingListener {
 				this.zooKeepers.clear();
 			if (this.allKnownServices != null)
 				this.allKnownServices.clear();
+			NodeCache.getSingleton().clear();
 
 		} catch (Throwable e) {
 			// Ignore. We're already down at this point.
@@ -246,24 +260,6 @@ public class WatchManager implements BundleStoppingListener {
 		return this.nodeWriters;
 	}
 
-	private class Lock {
-		boolean state;
-
-		boolean isOpen() {
-			return this.state;
-		}
-
-		Lock unlock() {
-			this.state = true;
-			return this;
-		}
-
-		Lock lock() {
-			this.state = false;
-			return this;
-		}
-	}
-
 	public void unpublishAll() {
 		for (NodeWriter nw : getNodeWriters().values()) {
 			nw.remove();
@@ -272,16 +268,16 @@ public class WatchManager implements BundleStoppingListener {
 		}
 	}
 
-	public void republishAll() {
-		NodeWriter nws[] = getNodeWriters().values().toArray(
-				new NodeWriter[getNodeWriters().size()]);
-		for (int i = 0; i < nws.length; i++) {
-			nws[i].getNode().regenerateNodeId();
-			nws[i].publish();
-			allKnownServices.put(nws[i].getNode().getWrappedService()
-					.getServiceID().getName(), nws[i].getNode()
+	public synchronized void republishAll() {
+		List<NodeWriter> nws = new ArrayList<NodeWriter>(getNodeWriters()
+				.values());
+		for (NodeWriter nw : nws) {
+			nw.getNode().regenerateNodeId();
+			allKnownServices.put(nw.getNode().getWrappedService()
+					.getServiceID().getName(), nw.getNode()
 					.getWrappedService());
 		}
+		NodeWriter.publish(nws);
 	}
 
 	public Map<String, IServiceInfo> getAllKnownServices() {
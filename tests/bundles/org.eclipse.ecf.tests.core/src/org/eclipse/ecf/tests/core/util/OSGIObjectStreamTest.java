@@ -61,6 +61,25 @@ public class OSGIObjectStreamTest extends TestCase {
 		}
 	}
 
+	public static class TestError extends Error {
+		private static final long serialVersionUID = -2185471290213571628L;
+	}
+
+	public static class FailingDTO {
+		static RuntimeException exception;
+		static Error error;
+		public String s = "failing";
+
+		public FailingDTO() {
+			if (exception != null) {
+				throw exception;
+			}
+			if (error != null) {
+				throw error;
+			}
+		}
+	}
+
 	MyDTO dto1;
 	MyDTO dto2;
 	Version v1;
@@ -155,6 +174,73 @@ public class OSGIObjectStreamTest extends TestCase {
 		return result;
 	}
 
+	private Object serializeDeserializeCompact(Object o) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		OSGIObjectOutputStream oos = new OSGIObjectOutputStream(bos);
+		oos.setCompactDTOs(true);
+		oos.writeObject(o);
+		oos.close();
+
+		ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+		OSGIObjectInputStream ois = new OSGIObjectInputStream(b, bis);
+		Object result = ois.readObject();
+		ois.close();
+		return result;
+	}
+
+	public void testCompactDTO() throws Exception {
+		assertEquals(dto1, serializeDeserializeCompact(dto1));
+		assertEquals(dto2, serializeDeserializeCompact(dto2));
+		Map<String, Object> dtos = new HashMap<String, Object>();
+		dtos.put("one", this.dto1);
+		dtos.put("two", this.dto2);
+		assertTrue(dtos.equals(serializeDeserializeCompact(dtos)));
+	}
+
+	public void testCompactDTOOmitsFieldNames() throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		OSGIObjectOutputStream oos = new OSGIObjectOutputStream(bos);
+		oos.setCompactDTOs(true);
+		oos.writeObject(dto2);
+		oos.close();
+		assertFalse(new String(bos.toByteArray(), "ISO-8859-1").contains("dto"));
+	}
+
+	private byte[] serializeCompact(Object o) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		OSGIObjectOutputStream oos = new OSGIObjectOutputStream(bos);
+		oos.setCompactDTOs(true);
+		oos.writeObject(o);
+		oos.close();
+		return bos.toByteArray();
+	}
+
+	public void testCompactDTOConstructorExceptionIsCause() throws Exception {
+		byte[] bytes = serializeCompact(new FailingDTO());
+		FailingDTO.exception = new IllegalStateException("constructor failed");
+		try {
+			new OSGIObjectInputStream(b, new ByteArrayInputStream(bytes)).readObject();
+			fail("constructor exception not reported");
+		} catch (IOException e) {
+			assertSame(FailingDTO.exception, e.getCause());
+		} finally {
+			FailingDTO.exception = null;
+		}
+	}
+
+	public void testCompactDTOConstructorErrorIsNotWrapped() throws Exception {
+		byte[] bytes = serializeCompact(new FailingDTO());
+		FailingDTO.error = new TestError();
+		try {
+			new OSGIObjectInputStream(b, new ByteArrayInputStream(bytes)).readObject();
+			fail("constructor error not reported");
+		} catch (TestError e) {
+			assertSame(FailingDTO.error, e);
+		} finally {
+			FailingDTO.error = null;
+		}
+	}
+
 	public void testSerializable() throws Exception {
 		MySerializable r = (MySerializable) serializeDeserialize(ser);
 		assertEquals(r.getFirst(), ser.getFirst());
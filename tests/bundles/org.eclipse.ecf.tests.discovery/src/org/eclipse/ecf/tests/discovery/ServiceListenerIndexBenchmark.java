@@ -0,0 +1,78 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.discovery;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.ecf.core.identity.Namespace;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+import org.eclipse.ecf.internal.discovery.ServiceListenerIndex;
+
+/**
+ * Time to dispatch events for 1000 distinct service types, with a listener
+ * registered for each type and one for a wildcard type, scanning all
+ * registered types and with the index. Not run by default: set the system
+ * property org.eclipse.ecf.tests.benchmarks=true to run it.
+ */
+public class ServiceListenerIndexBenchmark extends TestCase {
+
+	public static Test suite() {
+		if (!Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks"))
+			return new TestSuite();
+		return new TestSuite(ServiceListenerIndexBenchmark.class);
+	}
+
+	public void testDispatchTiming() throws Exception {
+		int count = 1000;
+		Namespace namespace = ServiceListenerIndexTest.createNamespace();
+		List types = ServiceListenerIndexTest.createManyTypes(namespace, count);
+		Map serviceListeners = ServiceListenerIndexTest.createListenersWithWildcard(namespace, types);
+		Set allListeners = Collections.EMPTY_SET;
+
+		// warm up
+		assertEquals(count + count / 2, scanDispatch(serviceListeners, allListeners, types));
+		assertEquals(count + count / 2, indexedDispatch(serviceListeners, allListeners, types));
+
+		long start = System.nanoTime();
+		scanDispatch(serviceListeners, allListeners, types);
+		long scanTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		indexedDispatch(serviceListeners, allListeners, types);
+		long indexTime = System.nanoTime() - start;
+		System.out.println("ServiceListenerIndexBenchmark: " + count + " type listeners, " + count + " events, " + (scanTime / 1000) + "us scanning types, " + (indexTime / 1000) + "us with index (including building it)");
+	}
+
+	private static int scanDispatch(Map serviceListeners, Collection allListeners, List types) {
+		int found = 0;
+		for (Iterator itr = types.iterator(); itr.hasNext();)
+			found += ServiceListenerIndexTest.scan(serviceListeners, allListeners, (IServiceTypeID) itr.next()).size();
+		return found;
+	}
+
+	private static int indexedDispatch(Map serviceListeners, Collection allListeners, List types) {
+		ServiceListenerIndex index = new ServiceListenerIndex(serviceListeners, allListeners);
+		int found = 0;
+		for (Iterator itr = types.iterator(); itr.hasNext();)
+			found += index.getListeners((IServiceTypeID) itr.next()).size();
+		return found;
+	}
+}
@@ -0,0 +1,165 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.discovery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.Namespace;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+import org.eclipse.ecf.discovery.identity.ServiceTypeID;
+import org.eclipse.ecf.internal.discovery.ServiceListenerIndex;
+import org.eclipse.ecf.internal.discovery.ServiceTypeComparator;
+import org.eclipse.ecf.tests.discovery.identity.TestNamespace;
+
+public class ServiceListenerIndexTest extends TestCase {
+
+	static class TestServiceTypeID extends ServiceTypeID {
+		private static final long serialVersionUID = 1L;
+
+		TestServiceTypeID(Namespace namespace, String[] services, String[] scopes, String[] protocols, String namingAuthority) {
+			super(namespace, services, scopes, protocols, namingAuthority);
+		}
+	}
+
+	private static final String[] NAMING_AUTHORITIES = new String[] {"iana", "other", "*"};
+	private static final String[][] SERVICES = new String[][] { {"ecf", "a"}, {"ecf", "b"}, {"*"}};
+	private static final String[][] PROTOCOLS = new String[][] { {"tcp"}, {"udp"}, {"*"}};
+	private static final String[][] SCOPES = new String[][] { {"default"}, {"*"}};
+
+	private Namespace namespace;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		namespace = createNamespace();
+	}
+
+	static Namespace createNamespace() {
+		Namespace namespace = new TestNamespace();
+		namespace.initialize("ecf.namespace.listenerindextest", "listener index test namespace");
+		return namespace;
+	}
+
+	private IServiceTypeID createType(String[] services, String[] scopes, String[] protocols, String namingAuthority) {
+		return new TestServiceTypeID(namespace, services, scopes, protocols, namingAuthority);
+	}
+
+	/**
+	 * Create count distinct service types, alternating between two protocols.
+	 */
+	static List createManyTypes(Namespace namespace, int count) {
+		List types = new ArrayList();
+		for (int i = 0; i < count; i++)
+			types.add(new TestServiceTypeID(namespace, new String[] {"ecf", "service" + i}, SCOPES[0], PROTOCOLS[i % 2], NAMING_AUTHORITIES[0]));
+		return types;
+	}
+
+	/**
+	 * Create listeners for each of the given types and for a wildcard type,
+	 * which matches the types with the first protocol.
+	 */
+	static Map createListenersWithWildcard(Namespace namespace, List types) {
+		Map serviceListeners = createListeners(types);
+		IServiceTypeID wildcard = new TestServiceTypeID(namespace, SERVICES[2], SCOPES[0], PROTOCOLS[0], NAMING_AUTHORITIES[0]);
+		serviceListeners.putAll(createListeners(Collections.singletonList(wildcard)));
+		return serviceListeners;
+	}
+
+	private List createAllTypes() {
+		List types = new ArrayList();
+		for (int na = 0; na < NAMING_AUTHORITIES.length; na++)
+			for (int s = 0; s < SERVICES.length; s++)
+				for (int p = 0; p < PROTOCOLS.length; p++)
+					for (int sc = 0; sc < SCOPES.length; sc++)
+						types.add(createType(SERVICES[s], SCOPES[sc], PROTOCOLS[p], NAMING_AUTHORITIES[na]));
+		return types;
+	}
+
+	static Map createListeners(List types) {
+		Map serviceListeners = new HashMap();
+		for (Iterator itr = types.iterator(); itr.hasNext();) {
+			IServiceTypeID type = (IServiceTypeID) itr.next();
+			Set listeners = new HashSet();
+			listeners.add("listener for " + type.getName());
+			serviceListeners.put(type, listeners);
+		}
+		return serviceListeners;
+	}
+
+	// the matching getListeners did before the index
+	static Set scan(Map serviceListeners, Collection allListeners, IServiceTypeID type) {
+		ServiceTypeComparator comparator = new ServiceTypeComparator();
+		Set result = new HashSet(allListeners);
+		for (Iterator itr = serviceListeners.keySet().iterator(); itr.hasNext();) {
+			IServiceTypeID typeID = (IServiceTypeID) itr.next();
+			if (comparator.compare(type, typeID) == 0)
+				result.addAll((Collection) serviceListeners.get(typeID));
+		}
+		return result;
+	}
+
+	public void testMatchesComparator() throws Exception {
+		List types = createAllTypes();
+		Map serviceListeners = createListeners(types);
+		Set allListeners = Collections.singleton("listener for all types");
+		ServiceListenerIndex index = new ServiceListenerIndex(serviceListeners, allListeners);
+		for (Iterator itr = types.iterator(); itr.hasNext();) {
+			IServiceTypeID type = (IServiceTypeID) itr.next();
+			Set expected = scan(serviceListeners, allListeners, type);
+			assertEquals(type.getName(), expected, new HashSet(index.getListeners(type)));
+			// and again from the remembered lookup
+			assertEquals(type.getName(), expected, new HashSet(index.getListeners(type)));
+		}
+		// a type without registered listeners only gets the listeners for all types
+		IServiceTypeID unknown = createType(new String[] {"unknown"}, SCOPES[0], PROTOCOLS[0], NAMING_AUTHORITIES[0]);
+		Set expected = scan(serviceListeners, allListeners, unknown);
+		assertEquals(expected, new HashSet(index.getListeners(unknown)));
+	}
+
+	public void testEmpty() throws Exception {
+		ServiceListenerIndex index = new ServiceListenerIndex(Collections.EMPTY_MAP, Collections.EMPTY_SET);
+		IServiceTypeID type = createType(SERVICES[0], SCOPES[0], PROTOCOLS[0], NAMING_AUTHORITIES[0]);
+		assertTrue(index.getListeners(type).isEmpty());
+	}
+
+	/**
+	 * With a listener registered for each of 1000 distinct service types and
+	 * one for a wildcard type, the index finds the same listeners for each
+	 * type as scanning all registered types.
+	 */
+	public void testManyTypes() throws Exception {
+		int count = 1000;
+		List types = createManyTypes(namespace, count);
+		Map serviceListeners = createListenersWithWildcard(namespace, types);
+		Set allListeners = Collections.EMPTY_SET;
+		ServiceListenerIndex index = new ServiceListenerIndex(serviceListeners, allListeners);
+		int found = 0;
+		for (Iterator itr = types.iterator(); itr.hasNext();) {
+			IServiceTypeID type = (IServiceTypeID) itr.next();
+			Set listeners = new HashSet(index.getListeners(type));
+			assertEquals(type.getName(), scan(serviceListeners, allListeners, type), listeners);
+			found += listeners.size();
+		}
+		// half of the types also get the wildcard type's listener
+		assertEquals(count + count / 2, found);
+	}
+}
@@ -0,0 +1,79 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointDescriptionStreamParser;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescriptionWriter;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+
+/**
+ * Time to write and read an EDEF document with 10,000 endpoints with the
+ * existing writer and SAX parser, and with the streaming writer and parser.
+ * Not run by default: set the system property
+ * org.eclipse.ecf.tests.benchmarks=true to run it.
+ */
+public class EndpointDescriptionStreamBenchmark extends TestCase {
+
+	public static Test suite() {
+		if (!Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks"))
+			return new TestSuite();
+		return new TestSuite(EndpointDescriptionStreamBenchmark.class);
+	}
+
+	public void testLargeDocumentTiming() throws Exception {
+		int count = 10000;
+		EndpointDescription[] eds = EndpointDescriptionStreamTest.createEndpoints(count);
+
+		// warm up. EndpointDescriptionWriter does not escape values, so its
+		// output cannot be parsed
+		writeWithWriter(eds);
+		byte[] doc = EndpointDescriptionStreamTest.writeWithStreamWriter(eds);
+		EndpointDescriptionStreamTest.parseWithSAX(doc);
+		EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(doc));
+
+		long start = System.nanoTime();
+		writeWithWriter(eds);
+		long writerTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		doc = EndpointDescriptionStreamTest.writeWithStreamWriter(eds);
+		long streamWriterTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		EndpointDescriptionStreamTest.parseWithSAX(doc);
+		long saxTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(doc));
+		long staxTime = System.nanoTime() - start;
+
+		System.out.println("EndpointDescriptionStreamBenchmark: " + count + " endpoints, " + doc.length
+				+ " bytes, write " + (writerTime / 1000000) + "ms, stream write " + (streamWriterTime / 1000000)
+				+ "ms, SAX parse " + (saxTime / 1000000) + "ms, stream parse " + (staxTime / 1000000) + "ms");
+	}
+
+	private byte[] writeWithWriter(EndpointDescription[] eds) throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		Writer w = new OutputStreamWriter(bos, "UTF-8");
+		w.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		new EndpointDescriptionWriter().writeEndpointDescriptions(w, eds);
+		w.flush();
+		return bos.toByteArray();
+	}
+}
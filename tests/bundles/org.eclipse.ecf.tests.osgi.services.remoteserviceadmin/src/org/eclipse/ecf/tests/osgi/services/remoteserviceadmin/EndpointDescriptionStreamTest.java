@@ -0,0 +1,270 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointDescriptionCache;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointDescriptionParser;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointDescriptionStreamParser;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescriptionStreamWriter;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescriptionWriter;
+import org.osgi.framework.Constants;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+public class EndpointDescriptionStreamTest extends TestCase {
+
+	private static final String EDEF = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<endpoint-descriptions xmlns=\"http://www.osgi.org/xmlns/rsa/v1.0.0\">\n"
+			+ "  <endpoint-description>\n"
+			+ "    <property name=\"endpoint.id\" value-type=\"String\" value=\" ep1 \"/>\n"
+			+ "    <property name=\"service.imported.configs\" value=\"ecf.generic.client\"/>\n"
+			+ "    <property name=\"objectClass\" value-type=\"String\">\n"
+			+ "      <array>\n"
+			+ "        <value>a.B</value>\n"
+			+ "        <value>a.C</value>\n"
+			+ "      </array>\n"
+			+ "    </property>\n"
+			+ "    <property name=\"ids\" value-type=\"long\">\n"
+			+ "      <list><value> 1 </value><value>2</value></list>\n"
+			+ "    </property>\n"
+			+ "    <property name=\"flags\" value-type=\"Boolean\">\n"
+			+ "      <set><value>true</value></set>\n"
+			+ "    </property>\n"
+			+ "    <property name=\"count\" value-type=\"Integer\" value=\"3\"/>\n"
+			+ "    <property name=\"c\" value-type=\"char\" value=\"xy\"/>\n"
+			+ "    <property name=\"config\">\n"
+			+ "      <xml>\n"
+			+ "        <foo:config xmlns:foo=\"http://foo\" a=\"b\">text</foo:config>\n"
+			+ "      </xml>\n"
+			+ "    </property>\n"
+			+ "  </endpoint-description>\n"
+			+ "  <endpoint-description>\n"
+			+ "    <property name=\"endpoint.id\" value=\"ep2\"/>\n"
+			+ "  </endpoint-description>\n"
+			+ "</endpoint-descriptions>\n";
+
+	static EndpointDescription createEndpoint(int i) {
+		Map<String, Object> props = new HashMap<String, Object>();
+		props.put(RemoteConstants.ENDPOINT_ID, "ecftcp://localhost:3282/server:" + i);
+		props.put(RemoteConstants.ENDPOINT_SERVICE_ID, Long.valueOf(i));
+		props.put(RemoteConstants.ENDPOINT_FRAMEWORK_UUID, "uuid-1");
+		props.put(Constants.OBJECTCLASS, new String[] { "org.eclipse.ecf.test.I" + i, "org.eclipse.ecf.test.J" });
+		props.put(RemoteConstants.SERVICE_IMPORTED_CONFIGS, "ecf.generic.client");
+		props.put(RemoteConstants.SERVICE_INTENTS, Arrays.asList("osgi.basic", "osgi.async"));
+		props.put("ecf.rsvc.id", Long.valueOf(i));
+		props.put("test.integer", Integer.valueOf(i));
+		props.put("test.boolean", Boolean.TRUE);
+		props.put("test.escaped", "a&b<c>\"d' " + i);
+		props.put("test.set", new HashSet<String>(Arrays.asList("x", "y")));
+		return new EndpointDescription(props);
+	}
+
+	private static void assertPropertiesEqual(Map<String, Object> expected, Map<String, Object> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String key : expected.keySet()) {
+			Object e = expected.get(key);
+			Object a = actual.get(key);
+			if (e instanceof Object[]) {
+				assertEquals(key, e.getClass(), a.getClass());
+				assertTrue(key, Arrays.deepEquals((Object[]) e, (Object[]) a));
+			} else
+				assertEquals(key, e, a);
+		}
+	}
+
+	public void testSameAsSAXParser() throws Exception {
+		List<Map<String, Object>> stax = EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(EDEF
+				.getBytes("UTF-8")));
+		EndpointDescriptionParser sax = new EndpointDescriptionParser();
+		sax.parse(new ByteArrayInputStream(EDEF.getBytes("UTF-8")));
+		assertEquals(2, stax.size());
+		assertEquals(sax.getEndpointDescriptions().size(), stax.size());
+		for (int i = 0; i < stax.size(); i++)
+			assertPropertiesEqual(sax.getEndpointDescriptions().get(i).getProperties(), stax.get(i));
+
+		Map<String, Object> props = stax.get(0);
+		assertEquals("ep1", props.get("ENDPOINT.ID"));
+		assertEquals(Arrays.asList(Long.valueOf(1), Long.valueOf(2)), props.get("ids"));
+		assertEquals(Character.valueOf('x'), props.get("c"));
+		assertEquals("<foo:config xmlns:foo=\"http://foo\" a=\"b\">text</foo:config>", props.get("config"));
+	}
+
+	public void testInvalid() throws Exception {
+		try {
+			EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(
+					"<endpoint-descriptions><endpoint-description><property name=\"a\" value-type=\"Date\" value=\"x\"/></endpoint-description></endpoint-descriptions>"
+							.getBytes("UTF-8")));
+			fail();
+		} catch (java.io.IOException e) {
+			// expected
+		}
+		try {
+			EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(
+					"<endpoint-descriptions><endpoint-description><property name=\"a\" value-type=\"Long\" value=\"x\"/></endpoint-description></endpoint-descriptions>"
+							.getBytes("UTF-8")));
+			fail();
+		} catch (java.io.IOException e) {
+			// expected
+		}
+		assertTrue(EndpointDescriptionStreamParser.parse(
+				new ByteArrayInputStream("<other><endpoint-description/></other>".getBytes("UTF-8"))).isEmpty());
+		// properties in unknown elements are ignored
+		List<Map<String, Object>> parsed = EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(
+				"<endpoint-descriptions><endpoint-description><unknown><property name=\"a\" value=\"x\"/></unknown></endpoint-description></endpoint-descriptions>"
+						.getBytes("UTF-8")));
+		assertEquals(1, parsed.size());
+		assertTrue(parsed.get(0).isEmpty());
+	}
+
+	public void testRoundTrip() throws Exception {
+		EndpointDescription[] eds = new EndpointDescription[] { createEndpoint(1), createEndpoint(2) };
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		new EndpointDescriptionStreamWriter().writeEndpointDescriptions(bos, eds);
+		List<Map<String, Object>> parsed = EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(bos
+				.toByteArray()));
+		assertEquals(2, parsed.size());
+		for (int i = 0; i < eds.length; i++)
+			assertPropertiesEqual(eds[i].getProperties(), parsed.get(i));
+	}
+
+	public void testXMLProperty() throws Exception {
+		Map<String, Object> props = new HashMap<String, Object>(createEndpoint(1).getProperties());
+		props.put("config", "<config a=\"b\">text</config>");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		new EndpointDescriptionStreamWriter(Arrays.asList("config")).writeEndpointDescriptions(bos,
+				new EndpointDescription[] { new EndpointDescription(props) });
+		Map<String, Object> parsed = EndpointDescriptionStreamParser.parse(
+				new ByteArrayInputStream(bos.toByteArray())).get(0);
+		assertEquals("<config a=\"b\">text</config>", parsed.get("config"));
+	}
+
+	/**
+	 * The streaming writer writes what {@link EndpointDescriptionWriter} does,
+	 * other than escaping values.
+	 */
+	public void testSameAsEndpointDescriptionWriter() throws Exception {
+		EndpointDescription[] eds = new EndpointDescription[2];
+		for (int i = 0; i < eds.length; i++) {
+			Map<String, Object> props = new HashMap<String, Object>(createEndpoint(i).getProperties());
+			props.remove("test.escaped");
+			props.put("test.list", Arrays.asList(Long.valueOf(1), Long.valueOf(2)));
+			props.put("config", "<config a=\"b\">text</config>");
+			eds[i] = new EndpointDescription(props);
+		}
+		List<String> xmlNames = Arrays.asList("config");
+		StringWriter writer = new StringWriter();
+		new EndpointDescriptionWriter(xmlNames).writeEndpointDescriptions(writer, eds);
+		byte[] expected = writer.toString().getBytes("UTF-8");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		new EndpointDescriptionStreamWriter(xmlNames).writeEndpointDescriptions(bos, eds);
+		byte[] actual = bos.toByteArray();
+
+		List<EndpointDescriptionParser.EndpointDescription> saxExpected = parseWithSAX(expected);
+		List<EndpointDescriptionParser.EndpointDescription> saxActual = parseWithSAX(actual);
+		List<Map<String, Object>> staxExpected = EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(expected));
+		List<Map<String, Object>> staxActual = EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(actual));
+		assertEquals(eds.length, saxActual.size());
+		assertEquals(eds.length, staxActual.size());
+		for (int i = 0; i < eds.length; i++) {
+			assertPropertiesEqual(saxExpected.get(i).getProperties(), saxActual.get(i).getProperties());
+			assertPropertiesEqual(staxExpected.get(i), staxActual.get(i));
+			assertPropertiesEqual(eds[i].getProperties(), staxActual.get(i));
+		}
+
+		// A value that needs escaping can only be read back from the streaming writer
+		EndpointDescription[] escaped = new EndpointDescription[] { createEndpoint(1) };
+		writer = new StringWriter();
+		new EndpointDescriptionWriter().writeEndpointDescriptions(writer, escaped);
+		try {
+			EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(writer.toString().getBytes("UTF-8")));
+			fail();
+		} catch (java.io.IOException e) {
+			// expected
+		}
+		assertPropertiesEqual(escaped[0].getProperties(),
+				EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(writeWithStreamWriter(escaped))).get(0));
+	}
+
+	public void testCache() throws Exception {
+		EndpointDescriptionCache cache = new EndpointDescriptionCache();
+		EndpointDescription[] eds = new EndpointDescription[] { createEndpoint(1) };
+		assertNull(cache.get(1, 100, "a.xml"));
+		cache.put(1, 100, "a.xml", eds);
+		cache.put(1, 100, "b.xml", eds);
+		assertSame(eds, cache.get(1, 100, "a.xml"));
+		assertNull(cache.get(2, 100, "a.xml"));
+		// updated bundle
+		assertNull(cache.get(1, 200, "a.xml"));
+		cache.put(1, 200, "a.xml", eds);
+		assertNull(cache.get(1, 200, "b.xml"));
+		assertNull(cache.get(1, 100, "a.xml"));
+		cache.remove(1);
+		assertNull(cache.get(1, 200, "a.xml"));
+	}
+
+	/**
+	 * An EDEF document with 10,000 endpoints written by the streaming writer
+	 * reads back the same with the SAX parser and the streaming parser.
+	 */
+	public void testLargeDocument() throws Exception {
+		int count = 10000;
+		EndpointDescription[] eds = createEndpoints(count);
+		byte[] doc = writeWithStreamWriter(eds);
+		List<EndpointDescriptionParser.EndpointDescription> saxResults = parseWithSAX(doc);
+		List<Map<String, Object>> staxResults = EndpointDescriptionStreamParser.parse(new ByteArrayInputStream(doc));
+		assertEquals(count, saxResults.size());
+		assertEquals(count, staxResults.size());
+		for (int i = 0; i < count; i += 997) {
+			assertPropertiesEqual(eds[i].getProperties(), staxResults.get(i));
+			assertPropertiesEqual(saxResults.get(i).getProperties(), staxResults.get(i));
+		}
+	}
+
+	static EndpointDescription[] createEndpoints(int count) {
+		EndpointDescription[] eds = new EndpointDescription[count];
+		for (int i = 0; i < count; i++)
+			eds[i] = createEndpoint(i);
+		return eds;
+	}
+
+	static byte[] writeWithStreamWriter(EndpointDescription[] eds) throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		new EndpointDescriptionStreamWriter().writeEndpointDescriptions(bos, eds);
+		return bos.toByteArray();
+	}
+
+	static List<EndpointDescriptionParser.EndpointDescription> parseWithSAX(byte[] doc) throws Exception {
+		EndpointDescriptionParser parser = new EndpointDescriptionParser();
+		parser.parse(new ByteArrayInputStream(doc));
+		List<EndpointDescriptionParser.EndpointDescription> results = new ArrayList<EndpointDescriptionParser.EndpointDescription>(
+				parser.getEndpointDescriptions());
+		Set<Object> ids = new HashSet<Object>();
+		for (EndpointDescriptionParser.EndpointDescription ed : results)
+			ids.add(ed.getProperties().get(RemoteConstants.ENDPOINT_ID));
+		assertEquals(results.size(), ids.size());
+		return results;
+	}
+}
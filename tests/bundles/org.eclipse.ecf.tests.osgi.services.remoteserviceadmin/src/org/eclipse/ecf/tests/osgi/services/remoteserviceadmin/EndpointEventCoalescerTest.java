@@ -0,0 +1,196 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointEventCoalescer;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.EndpointEvent;
+
+public class EndpointEventCoalescerTest extends TestCase {
+
+	static class BatchCollector implements EndpointEventCoalescer.IEndpointEventBatchHandler {
+		final List<List<EndpointEvent>> batches = new ArrayList<List<EndpointEvent>>();
+
+		public synchronized void handleEndpointEvents(List<EndpointEvent> events) {
+			batches.add(events);
+			notifyAll();
+		}
+
+		synchronized List<EndpointEvent> waitForBatch(long timeout) throws InterruptedException {
+			long end = System.currentTimeMillis() + timeout;
+			while (batches.isEmpty() && System.currentTimeMillis() < end)
+				wait(timeout);
+			return batches.isEmpty() ? null : batches.remove(0);
+		}
+	}
+
+	private static EndpointEvent event(int type, EndpointDescription ed) {
+		return new EndpointEvent(type, ed);
+	}
+
+	private static List<EndpointEvent> events(EndpointEvent... events) {
+		List<EndpointEvent> results = new ArrayList<EndpointEvent>();
+		for (EndpointEvent e : events)
+			results.add(e);
+		return results;
+	}
+
+	private static void assertEvent(int type, EndpointDescription ed, EndpointEvent event) {
+		assertEquals(type, event.getType());
+		assertSame(ed, event.getEndpoint());
+	}
+
+	public void testCoalesce() throws Exception {
+		EndpointDescription a1 = IndexedRegistrationsTest.createEndpoint("a");
+		EndpointDescription a2 = IndexedRegistrationsTest.createEndpoint("a");
+		EndpointDescription b = IndexedRegistrationsTest.createEndpoint("b");
+
+		// add/remove/add is one add of the latest description
+		List<EndpointEvent> c = EndpointEventCoalescer.coalesce(events(event(EndpointEvent.ADDED, a1),
+				event(EndpointEvent.REMOVED, a1), event(EndpointEvent.ADDED, a2)));
+		assertEquals(1, c.size());
+		assertEvent(EndpointEvent.ADDED, a2, c.get(0));
+
+		// add then remove is nothing
+		c = EndpointEventCoalescer.coalesce(events(event(EndpointEvent.ADDED, a1), event(EndpointEvent.MODIFIED, a2),
+				event(EndpointEvent.REMOVED, a2)));
+		assertTrue(c.isEmpty());
+
+		// add then modify is an add of the modified description
+		c = EndpointEventCoalescer.coalesce(events(event(EndpointEvent.ADDED, a1), event(EndpointEvent.MODIFIED, a2)));
+		assertEquals(1, c.size());
+		assertEvent(EndpointEvent.ADDED, a2, c.get(0));
+
+		// remove then add of an existing endpoint is kept as remove and add
+		c = EndpointEventCoalescer.coalesce(events(event(EndpointEvent.REMOVED, a1), event(EndpointEvent.ADDED, b),
+				event(EndpointEvent.ADDED, a2), event(EndpointEvent.REMOVED, a2), event(EndpointEvent.ADDED, a2)));
+		assertEquals(3, c.size());
+		assertEvent(EndpointEvent.REMOVED, a1, c.get(0));
+		assertEvent(EndpointEvent.ADDED, a2, c.get(1));
+		assertEvent(EndpointEvent.ADDED, b, c.get(2));
+
+		// repeated modifications are the last one
+		c = EndpointEventCoalescer.coalesce(events(event(EndpointEvent.MODIFIED, a1), event(EndpointEvent.MODIFIED, a2)));
+		assertEquals(1, c.size());
+		assertEvent(EndpointEvent.MODIFIED, a2, c.get(0));
+
+		// modify then remove is the removal
+		c = EndpointEventCoalescer.coalesce(events(event(EndpointEvent.MODIFIED, a1), event(EndpointEvent.REMOVED, a2)));
+		assertEquals(1, c.size());
+		assertEvent(EndpointEvent.REMOVED, a2, c.get(0));
+	}
+
+	public void testCoalescePresent() throws Exception {
+		EndpointDescription a = IndexedRegistrationsTest.createEndpoint("a");
+		Set<String> present = Collections.singleton(a.getId());
+
+		// a repeated add and a remove of a present endpoint is the removal
+		List<EndpointEvent> c = EndpointEventCoalescer.coalesce(
+				events(event(EndpointEvent.ADDED, a), event(EndpointEvent.REMOVED, a)), present);
+		assertEquals(1, c.size());
+		assertEvent(EndpointEvent.REMOVED, a, c.get(0));
+
+		// a repeated add of a present endpoint is kept
+		c = EndpointEventCoalescer.coalesce(events(event(EndpointEvent.ADDED, a)), present);
+		assertEquals(1, c.size());
+		assertEvent(EndpointEvent.ADDED, a, c.get(0));
+	}
+
+	public void testRemoveAfterRepeatedAdd() throws Exception {
+		BatchCollector collector = new BatchCollector();
+		// Batches are taken by flush, not by the window
+		EndpointEventCoalescer coalescer = new EndpointEventCoalescer("test", 60000, collector);
+		try {
+			EndpointDescription a = IndexedRegistrationsTest.createEndpoint("a");
+			coalescer.add(event(EndpointEvent.ADDED, a));
+			coalescer.flush();
+			assertEvent(EndpointEvent.ADDED, a, collector.waitForBatch(0).get(0));
+			// a is imported, so the removal must not be dropped
+			coalescer.add(event(EndpointEvent.ADDED, a));
+			coalescer.add(event(EndpointEvent.REMOVED, a));
+			coalescer.flush();
+			List<EndpointEvent> batch = collector.waitForBatch(0);
+			assertNotNull(batch);
+			assertEquals(1, batch.size());
+			assertEvent(EndpointEvent.REMOVED, a, batch.get(0));
+			// a is gone, so an add and a removal cancel out
+			coalescer.add(event(EndpointEvent.ADDED, a));
+			coalescer.add(event(EndpointEvent.REMOVED, a));
+			coalescer.flush();
+			assertNull(collector.waitForBatch(0));
+		} finally {
+			coalescer.close();
+		}
+	}
+
+	public void testFlapIsOneBatch() throws Exception {
+		int count = 1000;
+		BatchCollector collector = new BatchCollector();
+		EndpointEventCoalescer coalescer = new EndpointEventCoalescer("test", 200, collector);
+		try {
+			List<EndpointDescription> eds = new ArrayList<EndpointDescription>();
+			for (int i = 0; i < count; i++)
+				eds.add(IndexedRegistrationsTest.createEndpoint(String.valueOf(i)));
+			for (EndpointDescription ed : eds)
+				coalescer.add(event(EndpointEvent.ADDED, ed));
+			for (EndpointDescription ed : eds)
+				coalescer.add(event(EndpointEvent.REMOVED, ed));
+			for (EndpointDescription ed : eds)
+				coalescer.add(event(EndpointEvent.ADDED, ed));
+			List<EndpointEvent> batch = collector.waitForBatch(10000);
+			assertNotNull(batch);
+			assertEquals(count, batch.size());
+			for (int i = 0; i < count; i++)
+				assertEvent(EndpointEvent.ADDED, eds.get(i), batch.get(i));
+			// Later events are in a later batch
+			coalescer.add(event(EndpointEvent.REMOVED, eds.get(0)));
+			batch = collector.waitForBatch(10000);
+			assertNotNull(batch);
+			assertEquals(1, batch.size());
+			assertEvent(EndpointEvent.REMOVED, eds.get(0), batch.get(0));
+		} finally {
+			coalescer.close();
+		}
+	}
+
+	public void testNoWindow() throws Exception {
+		BatchCollector collector = new BatchCollector();
+		EndpointEventCoalescer coalescer = new EndpointEventCoalescer("test", 0, collector);
+		EndpointDescription ed = IndexedRegistrationsTest.createEndpoint("a");
+		coalescer.add(event(EndpointEvent.ADDED, ed));
+		coalescer.add(event(EndpointEvent.REMOVED, ed));
+		assertEquals(2, collector.batches.size());
+		assertEvent(EndpointEvent.ADDED, ed, collector.batches.get(0).get(0));
+		assertEvent(EndpointEvent.REMOVED, ed, collector.batches.get(1).get(0));
+		coalescer.close();
+		coalescer.add(event(EndpointEvent.ADDED, ed));
+		assertEquals(2, collector.batches.size());
+	}
+
+	public void testClose() throws Exception {
+		BatchCollector collector = new BatchCollector();
+		EndpointEventCoalescer coalescer = new EndpointEventCoalescer("test", 50, collector);
+		coalescer.add(event(EndpointEvent.ADDED, IndexedRegistrationsTest.createEndpoint("a")));
+		coalescer.close();
+		coalescer.add(event(EndpointEvent.ADDED, IndexedRegistrationsTest.createEndpoint("b")));
+		coalescer.flush();
+		assertNull(collector.waitForBatch(200));
+	}
+}
@@ -0,0 +1,190 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointListenerScopes;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.EndpointListener;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+public class EndpointListenerScopesTest extends TestCase {
+
+	private static final String UUID1 = "uuid-1";
+	private static final String UUID2 = "uuid-2";
+
+	static EndpointDescription createEndpoint(String id, String uuid, String... interfaces) {
+		Map<String, Object> props = new HashMap<String, Object>();
+		props.put(RemoteConstants.ENDPOINT_ID, id);
+		props.put(RemoteConstants.ENDPOINT_FRAMEWORK_UUID, uuid);
+		props.put(Constants.OBJECTCLASS, interfaces);
+		props.put(RemoteConstants.SERVICE_IMPORTED_CONFIGS, "ecf.generic.client");
+		return new EndpointDescription(props);
+	}
+
+	static ServiceReference createListenerReference(final Object scope) {
+		return (ServiceReference) Proxy.newProxyInstance(EndpointListenerScopesTest.class.getClassLoader(),
+				new Class[] { ServiceReference.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (method.getName().equals("equals"))
+							return Boolean.valueOf(proxy == args[0]);
+						if (method.getName().equals("hashCode"))
+							return Integer.valueOf(System.identityHashCode(proxy));
+						if (method.getName().equals("getProperty")
+								&& EndpointListener.ENDPOINT_LISTENER_SCOPE.equals(args[0]))
+							return scope;
+						return null;
+					}
+				});
+	}
+
+	public void testRequiredValue() throws Exception {
+		assertEquals("a.B", EndpointListenerScopes.getRequiredValue("(objectClass=a.B)", "objectClass"));
+		assertEquals("a.B", EndpointListenerScopes.getRequiredValue(" (objectclass=a.B) ", "objectClass"));
+		assertEquals("a.B",
+				EndpointListenerScopes.getRequiredValue("(&(service.imported=*)(objectClass=a.B))", "objectClass"));
+		assertEquals(UUID1, EndpointListenerScopes.getRequiredValue("(&(objectClass=a.*)(&(x=y))(endpoint.framework.uuid="
+				+ UUID1 + "))", RemoteConstants.ENDPOINT_FRAMEWORK_UUID));
+		assertNull(EndpointListenerScopes.getRequiredValue("(objectClass=a.*)", "objectClass"));
+		assertNull(EndpointListenerScopes.getRequiredValue("(objectClass~=a.B)", "objectClass"));
+		assertNull(EndpointListenerScopes.getRequiredValue("(objectClass>=a.B)", "objectClass"));
+		assertNull(EndpointListenerScopes.getRequiredValue("(|(objectClass=a.B)(objectClass=a.C))", "objectClass"));
+		assertNull(EndpointListenerScopes.getRequiredValue("(!(objectClass=a.B))", "objectClass"));
+		assertNull(EndpointListenerScopes.getRequiredValue("(&(!(objectClass=a.B)))", "objectClass"));
+		assertNull(EndpointListenerScopes.getRequiredValue("(objectClass=a\\2a)", "objectClass"));
+		assertNull(EndpointListenerScopes.getRequiredValue("(other=a.B)", "objectClass"));
+	}
+
+	public void testCandidates() throws Exception {
+		EndpointListenerScopes scopes = new EndpointListenerScopes();
+		ServiceReference byInterface = createListenerReference("(objectClass=a.B)");
+		ServiceReference byUUID = createListenerReference(new String[] { "(&(endpoint.framework.uuid=" + UUID1
+				+ ")(objectClass=*))" });
+		ServiceReference both = createListenerReference(Arrays.asList("(objectClass=a.C)", "(endpoint.framework.uuid="
+				+ UUID2 + ")"));
+		ServiceReference unindexed = createListenerReference(new String[] { "(objectClass=a.C)",
+				"(|(objectClass=a.B)(objectClass=a.D))" });
+		ServiceReference noScope = createListenerReference(null);
+		scopes.add(byInterface);
+		scopes.add(byUUID);
+		scopes.add(both);
+		scopes.add(unindexed);
+		scopes.add(noScope);
+
+		List<ServiceReference> c = Arrays.asList(scopes.getCandidates(createEndpoint("1", UUID1, "a.B")));
+		assertEquals(3, c.size());
+		assertTrue(c.contains(byInterface));
+		assertTrue(c.contains(byUUID));
+		assertTrue(c.contains(unindexed));
+
+		c = Arrays.asList(scopes.getCandidates(createEndpoint("2", UUID2, "a.X", "a.C")));
+		assertEquals(2, c.size());
+		assertTrue(c.contains(both));
+		assertTrue(c.contains(unindexed));
+
+		scopes.remove(unindexed);
+		c = Arrays.asList(scopes.getCandidates(createEndpoint("3", "other", "a.X")));
+		assertTrue(c.isEmpty());
+
+		// modified scope replaces the old one
+		scopes.add(byInterface);
+		assertEquals(1, scopes.getCandidates(createEndpoint("4", "other", "a.B")).length);
+
+		scopes.clear();
+		assertEquals(0, scopes.getCandidates(createEndpoint("5", UUID1, "a.B")).length);
+	}
+
+	public void testMatch() throws Exception {
+		EndpointListenerScopes.Scope scope = EndpointListenerScopes.createScope(createListenerReference(new String[] {
+				"(objectClass=a.C)", "(ENDPOINT.FRAMEWORK.UUID=" + UUID1 + ")", "(objectClass=a.*)" }));
+		assertTrue(scope.hasFilters());
+		assertEquals("(ENDPOINT.FRAMEWORK.UUID=" + UUID1 + ")", scope.match(createEndpoint("1", UUID1, "a.B")));
+		assertEquals("(objectClass=a.C)", scope.match(createEndpoint("2", UUID1, "a.C")));
+		assertEquals("(objectClass=a.*)", scope.match(createEndpoint("3", UUID2, "a.D")));
+		assertNull(scope.match(createEndpoint("4", UUID2, "b.D")));
+	}
+
+	public void testInvalidFilter() throws Exception {
+		EndpointListenerScopes scopes = new EndpointListenerScopes();
+		ServiceReference ref = createListenerReference(new String[] { "(objectClass=a.B", "", "(objectClass=a.C)" });
+		EndpointListenerScopes.Scope scope = scopes.add(ref);
+		assertEquals(1, scope.getInvalidFilters().size());
+		assertTrue(scope.getInvalidFilters().containsKey("(objectClass=a.B"));
+		assertEquals("(objectClass=a.C)", scope.match(createEndpoint("1", UUID1, "a.C")));
+		assertNull(scope.match(createEndpoint("2", UUID1, "a.B")));
+		// the invalid filter does not prevent indexing by the valid one
+		assertEquals(1, scopes.getCandidates(createEndpoint("3", UUID1, "a.C")).length);
+		assertEquals(0, scopes.getCandidates(createEndpoint("4", UUID1, "a.B")).length);
+
+		scope = EndpointListenerScopes.createScope(createListenerReference("(objectClass=a.B"));
+		assertFalse(scope.hasFilters());
+		assertNull(scope.match(createEndpoint("5", UUID1, "a.B")));
+	}
+
+	/**
+	 * With many listeners, the compiled and indexed scopes find the same
+	 * listeners for each endpoint as parsing every listener filter.
+	 */
+	public void testManyListeners() throws Exception {
+		int listeners = 500;
+		int endpoints = 200;
+		String[] filters = createFilters(listeners);
+		ServiceReference[] refs = new ServiceReference[listeners];
+		EndpointListenerScopes scopes = new EndpointListenerScopes();
+		for (int i = 0; i < listeners; i++) {
+			refs[i] = createListenerReference(filters[i]);
+			scopes.add(refs[i]);
+		}
+		EndpointDescription[] eds = createEndpoints(endpoints, listeners);
+		for (int e = 0; e < endpoints; e++) {
+			Set<ServiceReference> parsed = new HashSet<ServiceReference>();
+			for (int i = 0; i < listeners; i++)
+				if (eds[e].matches(filters[i]))
+					parsed.add(refs[i]);
+			Set<ServiceReference> compiled = new HashSet<ServiceReference>();
+			ServiceReference[] candidates = scopes.getCandidates(eds[e]);
+			for (int i = 0; i < candidates.length; i++)
+				if (scopes.getScope(candidates[i]).match(eds[e]) != null)
+					compiled.add(candidates[i]);
+			assertEquals(1, parsed.size());
+			assertEquals(parsed, compiled);
+		}
+	}
+
+	static String[] createFilters(int listeners) {
+		String[] filters = new String[listeners];
+		for (int i = 0; i < listeners; i++)
+			filters[i] = "(&(objectClass=a.I" + i + ")(service.imported.configs=ecf.generic.client))";
+		return filters;
+	}
+
+	static EndpointDescription[] createEndpoints(int endpoints, int listeners) {
+		EndpointDescription[] eds = new EndpointDescription[endpoints];
+		for (int i = 0; i < endpoints; i++)
+			eds[i] = createEndpoint(String.valueOf(i), UUID1, "a.I" + ((i * 7) % listeners));
+		return eds;
+	}
+}
@@ -0,0 +1,97 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.ImportRegistrations;
+import org.osgi.service.remoteserviceadmin.ImportRegistration;
+
+/**
+ * Measures the cold start time of importing many endpoints, each of whose
+ * remote service lookup takes a fixed time, with importService on one thread
+ * and with importServiceAsync. Not run by default: set the system property
+ * org.eclipse.ecf.tests.benchmarks=true to run it. The lookup time in ms is
+ * given by org.eclipse.ecf.tests.benchmarks.importLatency (default 50).
+ */
+public class ImportScalingBenchmark extends TestCase {
+
+	public static Test suite() {
+		if (!Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks"))
+			return new TestSuite();
+		return new TestSuite(ImportScalingBenchmark.class);
+	}
+
+	private static final long LATENCY = Long.getLong("org.eclipse.ecf.tests.benchmarks.importLatency", 50)
+			.longValue();
+
+	private static final int[] ENDPOINTS = { 1, 4, 16, 64 };
+
+	private ImportServiceTest.TestRemoteServiceAdmin createRSA() {
+		return new ImportServiceTest.TestRemoteServiceAdmin(new ImportRegistrations(), new ImportServiceTest.Lookup() {
+			public void lookup() throws Exception {
+				Thread.sleep(LATENCY);
+			}
+		});
+	}
+
+	private long importSequential(int count) {
+		ImportServiceTest.TestRemoteServiceAdmin rsa = createRSA();
+		try {
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++)
+				rsa.importService(ImportServiceTest.createEndpoint(i));
+			long time = System.nanoTime() - start;
+			assertEquals(count, rsa.importCount());
+			return time;
+		} finally {
+			rsa.close();
+		}
+	}
+
+	private long importAsync(int count) throws Exception {
+		ImportServiceTest.TestRemoteServiceAdmin rsa = createRSA();
+		try {
+			long start = System.nanoTime();
+			List<CompletableFuture<ImportRegistration>> futures = new ArrayList<CompletableFuture<ImportRegistration>>();
+			for (int i = 0; i < count; i++)
+				futures.add(rsa.importServiceAsync(ImportServiceTest.createEndpoint(i)).toCompletableFuture());
+			for (CompletableFuture<ImportRegistration> f : futures)
+				f.get(60, TimeUnit.SECONDS);
+			long time = System.nanoTime() - start;
+			assertEquals(count, rsa.importCount());
+			return time;
+		} finally {
+			rsa.close();
+		}
+	}
+
+	public void testColdStartScaling() throws Exception {
+		System.out.println("Import cold start, lookup latency " + LATENCY + "ms");
+		System.out.println("endpoints\timportService ms\timportServiceAsync ms");
+		for (int i = 0; i < ENDPOINTS.length; i++) {
+			int count = ENDPOINTS[i];
+			long sequential = importSequential(count);
+			long async = importAsync(count);
+			System.out.println(count + "\t" + TimeUnit.NANOSECONDS.toMillis(sequential) + "\t"
+					+ TimeUnit.NANOSECONDS.toMillis(async));
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.ContainerConnectException;
+import org.eclipse.ecf.core.IContainer;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.identity.StringID;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.ExportRegistrations;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.ImportRegistrations;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescription;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.IConsumerContainerSelector;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.RemoteConstants;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.RemoteServiceAdmin;
+import org.eclipse.ecf.remoteservice.IRSAConsumerContainerAdapter;
+import org.eclipse.ecf.remoteservice.IRemoteServiceContainer;
+import org.eclipse.ecf.remoteservice.IRemoteServiceContainerAdapter;
+import org.eclipse.ecf.remoteservice.IRemoteServiceReference;
+import org.eclipse.ecf.remoteservice.RemoteServiceContainer;
+import org.osgi.framework.Constants;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.service.remoteserviceadmin.ImportRegistration;
+
+/**
+ * Tests concurrent and asynchronous imports by {@link RemoteServiceAdmin}. The
+ * consumer container is a stub whose remote service lookup is controlled by
+ * the test and always fails, so no proxies are registered.
+ */
+public class ImportServiceTest extends TestCase {
+
+	/**
+	 * Remote service lookup done by the stub consumer container.
+	 */
+	interface Lookup {
+		void lookup() throws Exception;
+	}
+
+	static class TestRemoteServiceAdmin extends RemoteServiceAdmin {
+		final ImportRegistrations imports;
+		final AtomicInteger lookups = new AtomicInteger();
+		final IRemoteServiceContainer rsContainer;
+
+		TestRemoteServiceAdmin(ImportRegistrations imports, final Lookup lookup) {
+			super(FrameworkUtil.getBundle(ImportServiceTest.class), new ExportRegistrations(), imports);
+			this.imports = imports;
+			final IRSAConsumerContainerAdapter consumerAdapter = new IRSAConsumerContainerAdapter() {
+				public IRemoteServiceReference[] importEndpoint(Map<String, Object> properties)
+						throws ContainerConnectException {
+					lookups.incrementAndGet();
+					try {
+						lookup.lookup();
+					} catch (Exception e) {
+						throw new ContainerConnectException("lookup failed for " + properties.get(RemoteConstants.ENDPOINT_ID), e);
+					}
+					throw new ContainerConnectException("no remote service");
+				}
+			};
+			final ID containerID = IDFactory.getDefault().createGUID();
+			this.rsContainer = new RemoteServiceContainer(
+					(IContainer) stub(IContainer.class, containerID, null, null),
+					(IRemoteServiceContainerAdapter) stub(IRemoteServiceContainerAdapter.class, containerID,
+							IRSAConsumerContainerAdapter.class, consumerAdapter));
+		}
+
+		protected IConsumerContainerSelector getConsumerContainerSelector() {
+			return new IConsumerContainerSelector() {
+				public IRemoteServiceContainer selectConsumerContainer(EndpointDescription endpointDescription) {
+					return rsContainer;
+				}
+			};
+		}
+
+		int importCount() {
+			synchronized (imports) {
+				return imports.size();
+			}
+		}
+	}
+
+	/**
+	 * Create a stub of the given interface. getID returns id,
+	 * getAdapter(adapterType) returns adapter, and all other methods return a
+	 * default value.
+	 */
+	static Object stub(final Class<?> intf, final ID id, final Class<?> adapterType, final Object adapter) {
+		return Proxy.newProxyInstance(ImportServiceTest.class.getClassLoader(), new Class[] { intf },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						if (name.equals("getAdapter"))
+							return (args[0] == adapterType) ? adapter : null;
+						if (name.equals("getID"))
+							return id;
+						if (name.equals("equals"))
+							return Boolean.valueOf(proxy == args[0]);
+						if (name.equals("hashCode"))
+							return Integer.valueOf(System.identityHashCode(proxy));
+						if (name.equals("toString"))
+							return "stub " + intf.getName();
+						if (method.getReturnType() == boolean.class)
+							return Boolean.FALSE;
+						return null;
+					}
+				});
+	}
+
+	static EndpointDescription createEndpoint(int i) {
+		Map<String, Object> props = new HashMap<String, Object>();
+		props.put(org.osgi.service.remoteserviceadmin.RemoteConstants.ENDPOINT_ID, "ecftcp://host" + i + ":3282/server");
+		props.put(org.osgi.service.remoteserviceadmin.RemoteConstants.ENDPOINT_SERVICE_ID, Long.valueOf(i));
+		props.put(org.osgi.service.remoteserviceadmin.RemoteConstants.ENDPOINT_FRAMEWORK_UUID, "uuid-" + i);
+		props.put(Constants.OBJECTCLASS, new String[] { TestServiceInterface1.class.getName() });
+		props.put(org.osgi.service.remoteserviceadmin.RemoteConstants.SERVICE_IMPORTED_CONFIGS, "ecf.generic.client");
+		props.put(RemoteConstants.ENDPOINT_ID, "ecftcp://host" + i + ":3282/server");
+		props.put(RemoteConstants.ENDPOINT_CONTAINER_ID_NAMESPACE, StringID.class.getName());
+		props.put(RemoteConstants.ENDPOINT_TIMESTAMP, Long.valueOf(i));
+		props.put("ecf.rsvc.id", Long.valueOf(i));
+		return new EndpointDescription(props);
+	}
+
+	private TestRemoteServiceAdmin rsa;
+
+	protected void tearDown() throws Exception {
+		if (rsa != null) {
+			rsa.close();
+			rsa = null;
+		}
+		super.tearDown();
+	}
+
+	private TestRemoteServiceAdmin createRSA(Lookup lookup) {
+		rsa = new TestRemoteServiceAdmin(new ImportRegistrations(), lookup);
+		return rsa;
+	}
+
+	private static void waitUntilWaiting(Thread t) throws InterruptedException {
+		long end = System.currentTimeMillis() + 10000;
+		while (t.getState() != Thread.State.WAITING && System.currentTimeMillis() < end)
+			Thread.sleep(10);
+		assertEquals(Thread.State.WAITING, t.getState());
+	}
+
+	public void testImportServiceAsync() throws Exception {
+		createRSA(new Lookup() {
+			public void lookup() {
+			}
+		});
+		ImportRegistration reg = rsa.importServiceAsync(createEndpoint(1)).toCompletableFuture().get(10,
+				TimeUnit.SECONDS);
+		assertNotNull(reg);
+		assertTrue(reg.getException() instanceof ContainerConnectException);
+		assertEquals(1, rsa.lookups.get());
+		assertEquals(1, rsa.importCount());
+	}
+
+	public void testConcurrentImportsOfSameEndpointShareLookup() throws Exception {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		createRSA(new Lookup() {
+			public void lookup() throws Exception {
+				entered.countDown();
+				release.await(10, TimeUnit.SECONDS);
+			}
+		});
+		final EndpointDescription ed = createEndpoint(1);
+		final ImportRegistration[] regs = new ImportRegistration[8];
+		Thread[] threads = new Thread[regs.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					regs[index] = rsa.importService(ed);
+				}
+			});
+		}
+		threads[0].start();
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+		// All others join the import in progress
+		for (int i = 1; i < threads.length; i++) {
+			threads[i].start();
+			waitUntilWaiting(threads[i]);
+		}
+		release.countDown();
+		for (int i = 0; i < threads.length; i++)
+			threads[i].join(10000);
+
+		assertEquals(1, rsa.lookups.get());
+		Throwable exception = regs[0].getException();
+		assertNotNull(exception);
+		for (int i = 1; i < regs.length; i++)
+			assertSame(exception, regs[i].getException());
+		assertEquals(regs.length, rsa.importCount());
+	}
+
+	public void testImportsOfDifferentEndpointsRunConcurrently() throws Exception {
+		final int count = 4;
+		// Each lookup completes only when all are in progress at once
+		final CountDownLatch inProgress = new CountDownLatch(count);
+		createRSA(new Lookup() {
+			public void lookup() throws Exception {
+				inProgress.countDown();
+				if (!inProgress.await(10, TimeUnit.SECONDS))
+					throw new IllegalStateException("lookups did not run concurrently");
+			}
+		});
+		List<CompletableFuture<ImportRegistration>> futures = new ArrayList<CompletableFuture<ImportRegistration>>();
+		for (int i = 0; i < count; i++)
+			futures.add(rsa.importServiceAsync(createEndpoint(i)).toCompletableFuture());
+		for (CompletableFuture<ImportRegistration> f : futures) {
+			ImportRegistration reg = f.get(20, TimeUnit.SECONDS);
+			assertNotNull(reg);
+			// The failure is the stub's, not the concurrency check's
+			assertNull(reg.getException().getCause());
+		}
+		assertEquals(count, rsa.lookups.get());
+		assertEquals(count, rsa.importCount());
+	}
+
+	public void testImportAfterCloseIsRefused() throws Exception {
+		createRSA(new Lookup() {
+			public void lookup() {
+			}
+		});
+		rsa.close();
+		assertNull(rsa.importService(createEndpoint(1)));
+		try {
+			rsa.importServiceAsync(createEndpoint(2)).toCompletableFuture().join();
+			fail();
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(0, rsa.lookups.get());
+		assertEquals(0, rsa.importCount());
+	}
+
+	public void testImportCompletedAfterCloseIsDropped() throws Exception {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		createRSA(new Lookup() {
+			public void lookup() throws Exception {
+				entered.countDown();
+				release.await(10, TimeUnit.SECONDS);
+			}
+		});
+		CompletableFuture<ImportRegistration> f = rsa.importServiceAsync(createEndpoint(1)).toCompletableFuture();
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+		rsa.close();
+		release.countDown();
+		assertNull(f.get(10, TimeUnit.SECONDS));
+		assertEquals(0, rsa.importCount());
+	}
+}
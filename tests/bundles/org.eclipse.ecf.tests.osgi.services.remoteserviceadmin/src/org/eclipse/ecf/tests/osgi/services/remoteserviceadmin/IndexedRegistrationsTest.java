@@ -0,0 +1,203 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.ExportRegistrations;
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.ImportRegistrations;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.ExportReference;
+import org.osgi.service.remoteserviceadmin.ExportRegistration;
+import org.osgi.service.remoteserviceadmin.ImportReference;
+import org.osgi.service.remoteserviceadmin.ImportRegistration;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+public class IndexedRegistrationsTest extends TestCase {
+
+	static EndpointDescription createEndpoint(String id) {
+		Map<String, Object> props = new HashMap<String, Object>();
+		props.put(RemoteConstants.ENDPOINT_ID, id);
+		props.put(Constants.OBJECTCLASS, new String[] { TestServiceInterface1.class.getName() });
+		props.put(RemoteConstants.SERVICE_IMPORTED_CONFIGS, "ecf.generic.client");
+		return new EndpointDescription(props);
+	}
+
+	static ServiceReference createServiceReference() {
+		return (ServiceReference) Proxy.newProxyInstance(IndexedRegistrationsTest.class.getClassLoader(),
+				new Class[] { ServiceReference.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (method.getName().equals("equals"))
+							return Boolean.valueOf(proxy == args[0]);
+						if (method.getName().equals("hashCode"))
+							return Integer.valueOf(System.identityHashCode(proxy));
+						return null;
+					}
+				});
+	}
+
+	static class TestImportRegistration implements ImportRegistration, ImportReference {
+		final EndpointDescription endpoint;
+
+		TestImportRegistration(EndpointDescription endpoint) {
+			this.endpoint = endpoint;
+		}
+
+		public ImportReference getImportReference() {
+			return (endpoint == null) ? null : this;
+		}
+
+		public boolean update(EndpointDescription ed) {
+			return false;
+		}
+
+		public void close() {
+		}
+
+		public Throwable getException() {
+			return (endpoint == null) ? new Exception() : null;
+		}
+
+		public ServiceReference getImportedService() {
+			return null;
+		}
+
+		public EndpointDescription getImportedEndpoint() {
+			return endpoint;
+		}
+	}
+
+	static class TestExportRegistration implements ExportRegistration, ExportReference {
+		final ServiceReference serviceReference;
+		final EndpointDescription endpoint;
+
+		TestExportRegistration(ServiceReference serviceReference, EndpointDescription endpoint) {
+			this.serviceReference = serviceReference;
+			this.endpoint = endpoint;
+		}
+
+		public ExportReference getExportReference() {
+			return this;
+		}
+
+		public EndpointDescription update(Map properties) {
+			return null;
+		}
+
+		public void close() {
+		}
+
+		public Throwable getException() {
+			return null;
+		}
+
+		public ServiceReference getExportedService() {
+			return serviceReference;
+		}
+
+		public EndpointDescription getExportedEndpoint() {
+			return endpoint;
+		}
+	}
+
+	public void testImportLookupByEndpointId() throws Exception {
+		ImportRegistrations regs = new ImportRegistrations();
+		EndpointDescription ed1 = createEndpoint("1");
+		TestImportRegistration r1 = new TestImportRegistration(ed1);
+		TestImportRegistration r2 = new TestImportRegistration(ed1);
+		TestImportRegistration r3 = new TestImportRegistration(createEndpoint("3"));
+		TestImportRegistration failed = new TestImportRegistration(null);
+		assertTrue(regs.add(r1));
+		assertTrue(regs.add(r2));
+		assertTrue(regs.add(r3));
+		assertTrue(regs.add(failed));
+		assertFalse(regs.add(r1));
+		assertEquals(4, regs.size());
+
+		assertEquals(2, regs.get(ImportRegistrations.ENDPOINT_ID, "1").size());
+		assertTrue(regs.get(ImportRegistrations.ENDPOINT_ID, "1").contains(r2));
+		assertEquals(1, regs.get(ImportRegistrations.ENDPOINT_ID, "3").size());
+		assertTrue(regs.get(ImportRegistrations.ENDPOINT_ID, "2").isEmpty());
+		assertTrue(regs.get(ImportRegistrations.ENDPOINT_ID, null).isEmpty());
+
+		assertTrue(regs.remove(r1));
+		assertFalse(regs.remove(r1));
+		assertEquals(1, regs.get(ImportRegistrations.ENDPOINT_ID, "1").size());
+		assertTrue(regs.remove(failed));
+		assertEquals(2, regs.size());
+
+		regs.clear();
+		assertTrue(regs.isEmpty());
+		assertTrue(regs.get(ImportRegistrations.ENDPOINT_ID, "3").isEmpty());
+	}
+
+	public void testIteratorRemoveUpdatesIndex() throws Exception {
+		ImportRegistrations regs = new ImportRegistrations();
+		for (int i = 0; i < 10; i++)
+			regs.add(new TestImportRegistration(createEndpoint(String.valueOf(i))));
+		for (Iterator<ImportRegistration> i = regs.iterator(); i.hasNext();) {
+			TestImportRegistration reg = (TestImportRegistration) i.next();
+			if (reg.endpoint.getId().equals("5"))
+				i.remove();
+		}
+		assertEquals(9, regs.size());
+		assertTrue(regs.get(ImportRegistrations.ENDPOINT_ID, "5").isEmpty());
+		assertEquals(1, regs.get(ImportRegistrations.ENDPOINT_ID, "6").size());
+	}
+
+	public void testExportLookupByServiceReference() throws Exception {
+		ExportRegistrations regs = new ExportRegistrations();
+		ServiceReference sr1 = createServiceReference();
+		ServiceReference sr2 = createServiceReference();
+		TestExportRegistration r1 = new TestExportRegistration(sr1, createEndpoint("1"));
+		TestExportRegistration r2 = new TestExportRegistration(sr1, createEndpoint("2"));
+		TestExportRegistration r3 = new TestExportRegistration(sr2, createEndpoint("3"));
+		regs.add(r1);
+		regs.add(r2);
+		regs.add(r3);
+		assertEquals(2, regs.get(ExportRegistrations.SERVICE_REFERENCE, sr1).size());
+		assertEquals(1, regs.get(ExportRegistrations.SERVICE_REFERENCE, sr2).size());
+		assertTrue(regs.get(ExportRegistrations.ENDPOINT_ID, "2").contains(r2));
+		regs.remove(r3);
+		assertTrue(regs.get(ExportRegistrations.SERVICE_REFERENCE, sr2).isEmpty());
+	}
+
+	public void testLookupManyEndpoints() throws Exception {
+		int size = 50000;
+		ImportRegistrations regs = createImports(size);
+		for (int i = 0; i < size; i += 7) {
+			String id = String.valueOf(i);
+			Collection<ImportRegistration> found = regs.get(ImportRegistrations.ENDPOINT_ID, id);
+			assertEquals(1, found.size());
+			assertEquals(id, found.iterator().next().getImportReference().getImportedEndpoint().getId());
+		}
+		assertTrue(regs.get(ImportRegistrations.ENDPOINT_ID, String.valueOf(size)).isEmpty());
+	}
+
+	static ImportRegistrations createImports(int size) {
+		ImportRegistrations regs = new ImportRegistrations();
+		for (int i = 0; i < size; i++)
+			regs.add(new TestImportRegistration(createEndpoint(String.valueOf(i))));
+		return regs;
+	}
+}
@@ -0,0 +1,63 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.ImportRegistrations;
+
+/**
+ * Lookup time by endpoint id for 100 to 50,000 imported endpoints. With a
+ * linear scan the time per lookup grows with the number of endpoints, with the
+ * index it should stay about the same. Not run by default: set the system
+ * property org.eclipse.ecf.tests.benchmarks=true to run it.
+ */
+public class RegistrationLookupBenchmark extends TestCase {
+
+	public static Test suite() {
+		if (!Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks"))
+			return new TestSuite();
+		return new TestSuite(RegistrationLookupBenchmark.class);
+	}
+
+	private static final int LOOKUPS = 20000;
+
+	public void testLookupScaling() throws Exception {
+		int[] sizes = new int[] { 100, 1000, 10000, 50000 };
+		// warm up
+		lookups(IndexedRegistrationsTest.createImports(sizes[0]), sizes[0]);
+		for (int s = 0; s < sizes.length; s++) {
+			long time = lookups(IndexedRegistrationsTest.createImports(sizes[s]), sizes[s]);
+			System.out.println("RegistrationLookupBenchmark: " + sizes[s] + " endpoints, " + (time / LOOKUPS)
+					+ "ns per lookup");
+		}
+	}
+
+	private long lookups(ImportRegistrations regs, int size) {
+		List<String> ids = new ArrayList<String>(LOOKUPS);
+		for (int i = 0; i < LOOKUPS; i++)
+			ids.add(String.valueOf((i * 7919) % size));
+		long start = System.nanoTime();
+		int found = 0;
+		for (String id : ids)
+			found += regs.get(ImportRegistrations.ENDPOINT_ID, id).size();
+		long time = System.nanoTime() - start;
+		assertEquals(LOOKUPS, found);
+		return time;
+	}
+}
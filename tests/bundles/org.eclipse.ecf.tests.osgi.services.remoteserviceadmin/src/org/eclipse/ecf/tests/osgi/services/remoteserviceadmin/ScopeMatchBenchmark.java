@@ -0,0 +1,80 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.ecf.internal.osgi.services.remoteserviceadmin.EndpointListenerScopes;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+
+/**
+ * Time to find the matching listeners of each of a number of endpoints,
+ * parsing every listener filter for every endpoint as
+ * EndpointDescription.matches does, and with the compiled and indexed scopes.
+ * Not run by default: set the system property
+ * org.eclipse.ecf.tests.benchmarks=true to run it.
+ */
+public class ScopeMatchBenchmark extends TestCase {
+
+	public static Test suite() {
+		if (!Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks"))
+			return new TestSuite();
+		return new TestSuite(ScopeMatchBenchmark.class);
+	}
+
+	public void testMatchTiming() throws Exception {
+		int listeners = 500;
+		int endpoints = 200;
+		String[] filters = EndpointListenerScopesTest.createFilters(listeners);
+		EndpointListenerScopes scopes = new EndpointListenerScopes();
+		for (int i = 0; i < listeners; i++)
+			scopes.add(EndpointListenerScopesTest.createListenerReference(filters[i]));
+		EndpointDescription[] eds = EndpointListenerScopesTest.createEndpoints(endpoints, listeners);
+
+		// warm up
+		assertEquals(endpoints, parsedMatches(filters, eds));
+		assertEquals(endpoints, compiledMatches(scopes, eds));
+
+		long start = System.nanoTime();
+		parsedMatches(filters, eds);
+		long parsedTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		compiledMatches(scopes, eds);
+		long compiledTime = System.nanoTime() - start;
+		System.out.println("ScopeMatchBenchmark: " + listeners + " listeners, " + endpoints + " endpoints, "
+				+ (parsedTime / 1000) + "us parsing filters, " + (compiledTime / 1000) + "us with compiled scopes");
+	}
+
+	private int parsedMatches(String[] filters, EndpointDescription[] eds) {
+		int found = 0;
+		for (int e = 0; e < eds.length; e++)
+			for (int i = 0; i < filters.length; i++)
+				if (eds[e].matches(filters[i]))
+					found++;
+		return found;
+	}
+
+	private int compiledMatches(EndpointListenerScopes scopes, EndpointDescription[] eds) {
+		int found = 0;
+		for (int e = 0; e < eds.length; e++) {
+			ServiceReference[] candidates = scopes.getCandidates(eds[e]);
+			for (int i = 0; i < candidates.length; i++)
+				if (scopes.getScope(candidates[i]).match(eds[e]) != null)
+					found++;
+		}
+		return found;
+	}
+}
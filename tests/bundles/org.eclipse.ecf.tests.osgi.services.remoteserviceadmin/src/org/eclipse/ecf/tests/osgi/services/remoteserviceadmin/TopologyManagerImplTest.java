@@ -0,0 +1,113 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.osgi.services.remoteserviceadmin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.EndpointDescription;
+import org.eclipse.ecf.osgi.services.remoteserviceadmin.TopologyManagerImpl;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.service.remoteserviceadmin.EndpointEvent;
+
+public class TopologyManagerImplTest extends TestCase {
+
+	static class TestTopologyManager extends TopologyManagerImpl {
+		final CountDownLatch importing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<String> handled = new ArrayList<String>();
+		String blocked;
+
+		TestTopologyManager(BundleContext context) {
+			super(context);
+		}
+
+		protected void handleECFEndpointAdded(EndpointDescription ed) {
+			if (ed.getId().equals(blocked)) {
+				importing.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+			handled("added " + ed.getId());
+		}
+
+		protected void handleECFEndpointRemoved(org.osgi.service.remoteserviceadmin.EndpointDescription ed) {
+			handled("removed " + ed.getId());
+		}
+
+		synchronized void handled(String s) {
+			handled.add(s);
+			notifyAll();
+		}
+
+		synchronized List<String> waitForHandled(int count, long timeout) throws InterruptedException {
+			long end = System.currentTimeMillis() + timeout;
+			while (handled.size() < count && System.currentTimeMillis() < end)
+				wait(timeout);
+			return new ArrayList<String>(handled);
+		}
+
+		void handleEvents(List<EndpointEvent> events) {
+			handleECFEndpointEvents(events);
+		}
+	}
+
+	private TestTopologyManager topologyManager;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		topologyManager = new TestTopologyManager(FrameworkUtil.getBundle(getClass()).getBundleContext());
+	}
+
+	protected void tearDown() throws Exception {
+		topologyManager.release.countDown();
+		topologyManager.close();
+		super.tearDown();
+	}
+
+	private static List<EndpointEvent> events(int type, EndpointDescription... eds) {
+		List<EndpointEvent> results = new ArrayList<EndpointEvent>();
+		for (EndpointDescription ed : eds)
+			results.add(new EndpointEvent(type, ed));
+		return results;
+	}
+
+	public void testRemoveWaitsForImport() throws Exception {
+		EndpointDescription a = ImportServiceTest.createEndpoint(0);
+		EndpointDescription b = ImportServiceTest.createEndpoint(1);
+		topologyManager.blocked = a.getId();
+		// A batch of more than one add is imported on the import pool
+		topologyManager.handleEvents(events(EndpointEvent.ADDED, a, b));
+		assertTrue(topologyManager.importing.await(10, TimeUnit.SECONDS));
+		assertEquals(1, topologyManager.waitForHandled(1, 10000).size());
+		// The removal of a is chained after its import, and b's is not held up
+		topologyManager.handleEvents(events(EndpointEvent.REMOVED, a, b));
+		List<String> handled = topologyManager.waitForHandled(2, 10000);
+		assertEquals(2, handled.size());
+		assertEquals("added " + b.getId(), handled.get(0));
+		assertEquals("removed " + b.getId(), handled.get(1));
+		topologyManager.release.countDown();
+		handled = topologyManager.waitForHandled(4, 10000);
+		assertEquals(4, handled.size());
+		assertEquals("added " + a.getId(), handled.get(2));
+		assertEquals("removed " + a.getId(), handled.get(3));
+	}
+}
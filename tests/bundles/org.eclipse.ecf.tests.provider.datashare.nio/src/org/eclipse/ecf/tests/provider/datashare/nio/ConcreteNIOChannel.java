@@ -12,6 +12,9 @@
  *****************************************************************************/
 package org.eclipse.ecf.tests.provider.datashare.nio;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.util.ECFException;
@@ -21,9 +24,36 @@ import org.eclipse.ecf.provider.datashare.nio.NIODatashareContainer;
 
 public class ConcreteNIOChannel extends NIOChannel {
 
+	private final boolean rawFraming;
+
+	private final int maxMessageSize;
+
+	private final List statuses = new ArrayList();
+
 	public ConcreteNIOChannel(NIODatashareContainer datashareContainer,
 			ID userId, ID id, IChannelListener listener) throws ECFException {
+		this(datashareContainer, userId, id, listener, false, 0);
+	}
+
+	/**
+	 * @param maxMessageSize
+	 *            the maximum size of a received message, or zero for the
+	 *            default
+	 */
+	public ConcreteNIOChannel(NIODatashareContainer datashareContainer,
+			ID userId, ID id, IChannelListener listener, boolean rawFraming,
+			int maxMessageSize) throws ECFException {
 		super(datashareContainer, userId, id, listener);
+		this.rawFraming = rawFraming;
+		this.maxMessageSize = maxMessageSize;
+	}
+
+	protected int getMaxMessageSize() {
+		return maxMessageSize > 0 ? maxMessageSize : super.getMaxMessageSize();
+	}
+
+	protected boolean isRawFramingEnabled() {
+		return rawFraming;
 	}
 
 	protected void log(IStatus status) {
@@ -32,6 +62,32 @@ public class ConcreteNIOChannel extends NIOChannel {
 		if (t != null) {
 			t.printStackTrace(System.err);
 		}
+		synchronized (statuses) {
+			statuses.add(status);
+			statuses.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits for this channel to log a status.
+	 * 
+	 * @param timeout
+	 *            the time to wait in milliseconds
+	 * @return the first status logged, or <code>null</code> if none has been
+	 *         logged within the timeout
+	 */
+	public IStatus waitForStatus(long timeout) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeout;
+		synchronized (statuses) {
+			while (statuses.isEmpty()) {
+				long remaining = end - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return null;
+				}
+				statuses.wait(remaining);
+			}
+			return (IStatus) statuses.get(0);
+		}
 	}
 
 	public int getPort() {
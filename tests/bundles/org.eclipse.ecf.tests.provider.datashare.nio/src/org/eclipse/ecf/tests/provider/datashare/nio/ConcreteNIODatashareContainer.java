@@ -26,6 +26,18 @@ import org.eclipse.ecf.provider.datashare.nio.NIODatashareContainer;
 
 public class ConcreteNIODatashareContainer extends NIODatashareContainer {
 
+	/**
+	 * The key of the channel property that enables raw framing if its value is
+	 * <code>Boolean.TRUE</code>.
+	 */
+	public static final String RAW_FRAMING = "rawFraming"; //$NON-NLS-1$
+
+	/**
+	 * The key of the channel property whose <code>Integer</code> value is the
+	 * maximum size of a received message.
+	 */
+	public static final String MAX_MESSAGE_SIZE = "maxMessageSize"; //$NON-NLS-1$
+
 	private IContainer container;
 
 	public ConcreteNIODatashareContainer(IContainer container) {
@@ -43,8 +55,12 @@ public class ConcreteNIODatashareContainer extends NIODatashareContainer {
 
 	protected NIOChannel createNIOChannel(ID channelId,
 			IChannelListener listener, Map properties) throws ECFException {
+		Integer maxMessageSize = properties == null ? null
+				: (Integer) properties.get(MAX_MESSAGE_SIZE);
 		return new ConcreteNIOChannel(this, container.getConnectedID(),
-				channelId, listener);
+				channelId, listener, properties != null
+						&& Boolean.TRUE.equals(properties.get(RAW_FRAMING)),
+				maxMessageSize == null ? 0 : maxMessageSize.intValue());
 	}
 
 	protected NIOChannel createNIOChannel(IChannelConfig newChannelConfig)
@@ -0,0 +1,314 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.datashare.nio;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.ecf.core.IContainer;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.util.ECFException;
+import org.eclipse.ecf.datashare.IChannelListener;
+import org.eclipse.ecf.datashare.events.IChannelEvent;
+import org.eclipse.ecf.datashare.events.IChannelMessageEvent;
+import org.eclipse.ecf.provider.datashare.nio.IByteBufferChannelListener;
+
+/**
+ * Measures the round trip latency and the throughput of messages sent between
+ * two NIO datashare containers on the loopback interface. Not run by default:
+ * set the system property org.eclipse.ecf.tests.benchmarks=true to run it.
+ */
+public class NIODatashareBenchmark extends TestCase {
+
+	public static Test suite() {
+		if (!Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks")) //$NON-NLS-1$
+			return new TestSuite();
+		return new TestSuite(NIODatashareBenchmark.class);
+	}
+
+	private static final String LOCALHOST = "127.0.0.1"; //$NON-NLS-1$
+
+	private static final String CHANNEL_NAME = "benchmark"; //$NON-NLS-1$
+
+	private static final int ROUND_TRIPS = 1000;
+
+	private static final int MESSAGES = 2000;
+
+	private static final int MESSAGE_SIZE = 65536;
+
+	private static final int RAW_MESSAGES = 2000;
+
+	private static final int RAW_MESSAGE_SIZE = 1024 * 1024;
+
+	/**
+	 * The maximum number of raw messages that have been sent but not received
+	 * yet, so that the sender does not queue all of them at once.
+	 */
+	private static final int RAW_WINDOW = 32;
+
+	private final Object waitObject = new Object();
+
+	private IContainer containerA = new ContainerImpl();
+	private IContainer containerB = new ContainerImpl();
+
+	private ConcreteNIODatashareContainer channelContainerA;
+	private ConcreteNIODatashareContainer channelContainerB;
+
+	private ConcreteNIOChannel channelA;
+	private ConcreteNIOChannel channelB;
+
+	/**
+	 * The handler of the messages received by channel A.
+	 */
+	private IChannelListener listenerA;
+
+	/**
+	 * The handler of the messages received by channel B.
+	 */
+	private IChannelListener listenerB;
+
+	private int received;
+
+	private Exception exception;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		channelContainerA = new ConcreteNIODatashareContainer(containerA);
+		channelContainerB = new ConcreteNIODatashareContainer(containerB);
+
+		// the benchmarks whose name ends with "Raw" send raw frames
+		Map properties = new HashMap();
+		properties.put(ConcreteNIODatashareContainer.RAW_FRAMING, Boolean
+				.valueOf(getName().endsWith("Raw"))); //$NON-NLS-1$
+
+		channelA = (ConcreteNIOChannel) channelContainerA.createChannel(
+				IDFactory.getDefault().createStringID(CHANNEL_NAME),
+				new IChannelListener() {
+					public void handleChannelEvent(IChannelEvent event) {
+						if (listenerA != null) {
+							listenerA.handleChannelEvent(event);
+						}
+					}
+				}, properties);
+		channelB = (ConcreteNIOChannel) channelContainerB.createChannel(
+				IDFactory.getDefault().createStringID(CHANNEL_NAME),
+				new IChannelListener() {
+					public void handleChannelEvent(IChannelEvent event) {
+						if (listenerB != null) {
+							listenerB.handleChannelEvent(event);
+						}
+					}
+				}, properties);
+
+		// establish the connection with a first message
+		listenerB = new IChannelListener() {
+			public void handleChannelEvent(IChannelEvent event) {
+				if (event instanceof IChannelMessageEvent) {
+					done();
+				}
+			}
+		};
+		channelA.sendMessage(containerB.getConnectedID(), new byte[] { 0 });
+		channelContainerB.enqueue(new InetSocketAddress(LOCALHOST, channelA
+				.getPort()));
+		waitForCompletion(5000);
+		assertEquals(1, received);
+
+		received = 0;
+		exception = null;
+	}
+
+	protected void tearDown() throws Exception {
+		containerA.disconnect();
+		containerB.disconnect();
+
+		super.tearDown();
+	}
+
+	private void done() {
+		synchronized (waitObject) {
+			received++;
+			waitObject.notifyAll();
+		}
+	}
+
+	private void waitForCompletion(long timeout) throws Exception {
+		long end = System.currentTimeMillis() + timeout;
+		synchronized (waitObject) {
+			while (received == 0 && exception == null) {
+				long remaining = end - System.currentTimeMillis();
+				if (remaining <= 0) {
+					break;
+				}
+				waitObject.wait(remaining);
+			}
+		}
+
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private void failed(Exception e) {
+		synchronized (waitObject) {
+			exception = e;
+			waitObject.notifyAll();
+		}
+	}
+
+	public void testRoundTripLatency() throws Exception {
+		final int[] roundTrips = new int[1];
+
+		// B echoes every message back to A
+		listenerB = new IChannelListener() {
+			public void handleChannelEvent(IChannelEvent event) {
+				if (event instanceof IChannelMessageEvent) {
+					try {
+						channelB.sendMessage(containerA.getConnectedID(),
+								((IChannelMessageEvent) event).getData());
+					} catch (ECFException e) {
+						failed(e);
+					}
+				}
+			}
+		};
+		// A sends the next message when the previous one has come back
+		listenerA = new IChannelListener() {
+			public void handleChannelEvent(IChannelEvent event) {
+				if (event instanceof IChannelMessageEvent) {
+					roundTrips[0]++;
+					if (roundTrips[0] == ROUND_TRIPS) {
+						done();
+						return;
+					}
+					try {
+						channelA.sendMessage(containerB.getConnectedID(),
+								new byte[8]);
+					} catch (ECFException e) {
+						failed(e);
+					}
+				}
+			}
+		};
+
+		long start = System.currentTimeMillis();
+		channelA.sendMessage(containerB.getConnectedID(), new byte[8]);
+		waitForCompletion(60000);
+		long time = System.currentTimeMillis() - start;
+
+		assertEquals(ROUND_TRIPS, roundTrips[0]);
+		System.out.println("NIODatashareBenchmark: " + ROUND_TRIPS //$NON-NLS-1$
+				+ " round trips in " + time + "ms, " //$NON-NLS-1$ //$NON-NLS-2$
+				+ (time * 1000 / ROUND_TRIPS) + "us per round trip"); //$NON-NLS-1$
+	}
+
+	public void testThroughput() throws Exception {
+		final int[] count = new int[1];
+		final long[] bytes = new long[1];
+
+		listenerB = new IChannelListener() {
+			public void handleChannelEvent(IChannelEvent event) {
+				if (event instanceof IChannelMessageEvent) {
+					byte[] data = ((IChannelMessageEvent) event).getData();
+					// messages arrive in the order they were sent
+					int sequence = ((data[0] & 0xff) << 8) | (data[1] & 0xff);
+					if (sequence != (count[0] & 0xffff)
+							|| data.length != MESSAGE_SIZE) {
+						failed(new Exception("Unexpected message " + sequence //$NON-NLS-1$
+								+ " of " + data.length + " bytes")); //$NON-NLS-1$ //$NON-NLS-2$
+						return;
+					}
+					count[0]++;
+					bytes[0] += data.length;
+					if (count[0] == MESSAGES) {
+						done();
+					}
+				}
+			}
+		};
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < MESSAGES; i++) {
+			byte[] message = new byte[MESSAGE_SIZE];
+			message[0] = (byte) (i >> 8);
+			message[1] = (byte) i;
+			channelA.sendMessage(containerB.getConnectedID(), message);
+		}
+		waitForCompletion(120000);
+		long time = Math.max(1, System.currentTimeMillis() - start);
+
+		assertEquals(MESSAGES, count[0]);
+		System.out.println("NIODatashareBenchmark: " + MESSAGES //$NON-NLS-1$
+				+ " messages of " + MESSAGE_SIZE + " bytes in " + time //$NON-NLS-1$ //$NON-NLS-2$
+				+ "ms, " + (bytes[0] * 1000 / time / 1024 / 1024) + " MB/s"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testThroughputRaw() throws Exception {
+		final int[] count = new int[1];
+		final long[] bytes = new long[1];
+
+		// receive the messages without copying them
+		channelB.setListener(new IByteBufferChannelListener() {
+			public void handleChannelEvent(IChannelEvent event) {
+				// nothing to do
+			}
+
+			public void handleMessage(ID fromContainerId, ByteBuffer message) {
+				int sequence = message.getInt(message.position());
+				if (sequence != count[0]
+						|| message.remaining() != RAW_MESSAGE_SIZE) {
+					failed(new Exception("Unexpected message " + sequence //$NON-NLS-1$
+							+ " of " + message.remaining() + " bytes")); //$NON-NLS-1$ //$NON-NLS-2$
+					return;
+				}
+				synchronized (waitObject) {
+					count[0]++;
+					bytes[0] += message.remaining();
+					waitObject.notifyAll();
+				}
+				if (count[0] == RAW_MESSAGES) {
+					done();
+				}
+			}
+		});
+
+		// the message is copied when it is sent, so it can be reused
+		ByteBuffer message = ByteBuffer.allocateDirect(RAW_MESSAGE_SIZE);
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < RAW_MESSAGES; i++) {
+			synchronized (waitObject) {
+				while (i - count[0] >= RAW_WINDOW && exception == null) {
+					waitObject.wait(1000);
+				}
+			}
+			message.putInt(0, i);
+			channelA.sendMessage(containerB.getConnectedID(), message);
+		}
+		waitForCompletion(120000);
+		long time = Math.max(1, System.currentTimeMillis() - start);
+
+		assertEquals(RAW_MESSAGES, count[0]);
+		System.out.println("NIODatashareBenchmark: " + RAW_MESSAGES //$NON-NLS-1$
+				+ " raw messages of " + RAW_MESSAGE_SIZE + " bytes in " //$NON-NLS-1$ //$NON-NLS-2$
+				+ time + "ms, " + (bytes[0] * 1000 / time / 1024 / 1024) //$NON-NLS-1$
+				+ " MB/s, " + (bytes[0] * 8 / time / 1000 / 1000) + " Gbit/s"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
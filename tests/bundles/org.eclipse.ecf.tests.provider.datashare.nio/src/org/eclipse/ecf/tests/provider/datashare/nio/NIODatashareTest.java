@@ -13,9 +13,15 @@
 package org.eclipse.ecf.tests.provider.datashare.nio;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.ecf.core.IContainer;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.identity.IDFactory;
@@ -27,6 +33,7 @@ import org.eclipse.ecf.datashare.events.IChannelConnectEvent;
 import org.eclipse.ecf.datashare.events.IChannelDisconnectEvent;
 import org.eclipse.ecf.datashare.events.IChannelEvent;
 import org.eclipse.ecf.datashare.events.IChannelMessageEvent;
+import org.eclipse.ecf.provider.datashare.nio.IByteBufferChannelListener;
 
 public class NIODatashareTest extends TestCase {
 
@@ -70,8 +77,29 @@ public class NIODatashareTest extends TestCase {
 	private static ConcreteNIOChannel createChannel(
 			IChannelContainerAdapter channelContainer, IChannelListener listener)
 			throws ECFException {
+		return createChannel(channelContainer, listener, false);
+	}
+
+	private static ConcreteNIOChannel createChannel(
+			IChannelContainerAdapter channelContainer,
+			IChannelListener listener, boolean rawFraming) throws ECFException {
+		Map properties = new HashMap();
+		properties.put(ConcreteNIODatashareContainer.RAW_FRAMING, Boolean
+				.valueOf(rawFraming));
+		return (ConcreteNIOChannel) channelContainer.createChannel(IDFactory
+				.getDefault().createStringID(CHANNEL_NAME), listener,
+				properties);
+	}
+
+	private static ConcreteNIOChannel createChannel(
+			IChannelContainerAdapter channelContainer,
+			IChannelListener listener, int maxMessageSize) throws ECFException {
+		Map properties = new HashMap();
+		properties.put(ConcreteNIODatashareContainer.MAX_MESSAGE_SIZE,
+				new Integer(maxMessageSize));
 		return (ConcreteNIOChannel) channelContainer.createChannel(IDFactory
-				.getDefault().createStringID(CHANNEL_NAME), listener, null);
+				.getDefault().createStringID(CHANNEL_NAME), listener,
+				properties);
 	}
 
 	protected void setUp() throws Exception {
@@ -285,4 +313,172 @@ public class NIODatashareTest extends TestCase {
 		assertEquals(expected1, actual[0]);
 		assertEquals(expected2, actual[1]);
 	}
+
+	public void testOneWaySendRaw1M() throws Exception {
+		final byte[][] actual = new byte[1][];
+		final boolean[] readOnly = new boolean[1];
+
+		channelA = createChannel(channelContainerA, null, true);
+
+		int targetPort = channelA.getPort();
+
+		channelB = createChannel(channelContainerB,
+				new IByteBufferChannelListener() {
+					public void handleChannelEvent(IChannelEvent event) {
+						if (event instanceof IChannelMessageEvent) {
+							exception = new Exception(
+									"Unexpected message event"); //$NON-NLS-1$
+						}
+					}
+
+					public void handleMessage(ID fromContainerId,
+							ByteBuffer message) {
+						readOnly[0] = message.isReadOnly();
+						actual[0] = new byte[message.remaining()];
+						message.get(actual[0]);
+
+						synchronized (waitObject) {
+							waitObject.notify();
+						}
+					}
+				}, true);
+
+		byte[] expected = new byte[1024 * 1024 + 3];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = (byte) (i % 251);
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(expected);
+		channelA.sendMessage(containerB.getConnectedID(), buffer);
+		assertEquals(0, buffer.position());
+
+		channelContainerB.enqueue(new InetSocketAddress(LOCALHOST, targetPort));
+
+		waitForCompletion(10000);
+
+		assertTrue(readOnly[0]);
+		assertEquals(expected, actual[0]);
+	}
+
+	public void testSendAfterLargeMessage() throws Exception {
+		final List actual = new ArrayList();
+
+		channelA = createChannel(channelContainerA, null, true);
+
+		int targetPort = channelA.getPort();
+
+		channelB = createChannel(channelContainerB,
+				new IByteBufferChannelListener() {
+					public void handleChannelEvent(IChannelEvent event) {
+					}
+
+					public void handleMessage(ID fromContainerId,
+							ByteBuffer message) {
+						byte[] data = new byte[message.remaining()];
+						message.get(data);
+						synchronized (waitObject) {
+							actual.add(data);
+							if (actual.size() == 3) {
+								waitObject.notify();
+							}
+						}
+					}
+				}, true);
+
+		byte[] large = new byte[1024 * 1024];
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) (i % 251);
+		}
+		byte[] small1 = { 1, 2, 3 };
+		byte[] small2 = { 4, 5, 6, 7 };
+
+		// the read buffer grows for the large message and shrinks afterwards
+		channelA.sendMessage(containerB.getConnectedID(), large);
+		channelA.sendMessage(containerB.getConnectedID(), small1);
+		channelA.sendMessage(containerB.getConnectedID(), small2);
+
+		synchronized (waitObject) {
+			channelContainerB.enqueue(new InetSocketAddress(LOCALHOST,
+					targetPort));
+			long end = System.currentTimeMillis() + 10000;
+			while (actual.size() < 3 && System.currentTimeMillis() < end) {
+				waitObject.wait(end - System.currentTimeMillis());
+			}
+		}
+
+		assertEquals(3, actual.size());
+		assertEquals(large, (byte[]) actual.get(0));
+		assertEquals(small1, (byte[]) actual.get(1));
+		assertEquals(small2, (byte[]) actual.get(2));
+	}
+
+	public void testSendAndReplyMixedFraming() throws Exception {
+		final byte[] expected1 = new byte[70000];
+		final byte[] expected2 = { 4, 5, 6 };
+		for (int i = 0; i < expected1.length; i++) {
+			expected1[i] = (byte) i;
+		}
+
+		final byte[][] actual = new byte[2][];
+
+		// A sends raw frames, B sends serialized byte[]s
+		channelA = createChannel(channelContainerA, new IChannelListener() {
+			public void handleChannelEvent(IChannelEvent event) {
+				if (event instanceof IChannelMessageEvent) {
+					actual[1] = ((IChannelMessageEvent) event).getData();
+
+					synchronized (waitObject) {
+						waitObject.notify();
+					}
+				}
+			}
+		}, true);
+
+		int targetPort = channelA.getPort();
+
+		channelB = createChannel(channelContainerB, new IChannelListener() {
+			public void handleChannelEvent(IChannelEvent event) {
+				if (event instanceof IChannelMessageEvent) {
+					actual[0] = ((IChannelMessageEvent) event).getData();
+
+					send(channelB, containerA.getConnectedID(), expected2);
+				}
+			}
+		}, false);
+
+		channelA.sendMessage(containerB.getConnectedID(), expected1);
+
+		channelContainerB.enqueue(new InetSocketAddress(LOCALHOST, targetPort));
+
+		waitForCompletion(5000);
+
+		assertEquals(expected1, actual[0]);
+		assertEquals(expected2, actual[1]);
+	}
+
+	public void testOversizedMessageClosesConnection() throws Exception {
+		final int[] received = new int[1];
+
+		channelA = createChannel(channelContainerA, null, true);
+
+		int targetPort = channelA.getPort();
+
+		channelB = createChannel(channelContainerB, new IChannelListener() {
+			public void handleChannelEvent(IChannelEvent event) {
+				if (event instanceof IChannelMessageEvent) {
+					received[0]++;
+				}
+			}
+		}, 1024);
+
+		channelA.sendMessage(containerB.getConnectedID(), new byte[1025]);
+
+		channelContainerB.enqueue(new InetSocketAddress(LOCALHOST, targetPort));
+
+		IStatus status = channelB.waitForStatus(5000);
+		assertNotNull(status);
+		assertTrue(status.getException().getMessage(), status.getException()
+				.getMessage().indexOf("exceeds the maximum size") != -1); //$NON-NLS-1$
+		assertEquals(0, received[0]);
+	}
 }
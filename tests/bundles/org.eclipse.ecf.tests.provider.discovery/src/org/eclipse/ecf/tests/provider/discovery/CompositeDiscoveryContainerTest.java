@@ -0,0 +1,348 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.discovery;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.ContainerConnectException;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.identity.Namespace;
+import org.eclipse.ecf.core.security.IConnectContext;
+import org.eclipse.ecf.discovery.AbstractDiscoveryContainerAdapter;
+import org.eclipse.ecf.discovery.DiscoveryContainerConfig;
+import org.eclipse.ecf.discovery.IServiceInfo;
+import org.eclipse.ecf.discovery.ServiceContainerEvent;
+import org.eclipse.ecf.discovery.ServiceInfo;
+import org.eclipse.ecf.discovery.identity.IServiceID;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+import org.eclipse.ecf.discovery.identity.ServiceTypeID;
+import org.eclipse.ecf.provider.discovery.CompositeDiscoveryContainer;
+import org.eclipse.ecf.tests.discovery.identity.TestNamespace;
+
+public class CompositeDiscoveryContainerTest extends TestCase {
+
+	private static final String NAMESPACE = "ecf.namespace.compositetest";
+
+	private static final String TYPE1 = "_ecf._junit._tests._someProtocol.someScope._someNamingAuthority";
+	private static final String TYPE2 = "_ecf._junit._other._someProtocol.someScope._someNamingAuthority";
+
+	static class TestLocator extends AbstractDiscoveryContainerAdapter {
+		final Namespace namespace;
+		final List services = new ArrayList();
+		// queries answer once this is released. Their result is taken
+		// when they are sent
+		final CountDownLatch answer;
+		int servicesQueries;
+		int typedQueries;
+		ID connectedID;
+
+		TestLocator(String name, Namespace namespace, boolean answer) {
+			super(NAMESPACE, new DiscoveryContainerConfig(IDFactory.getDefault().createStringID(name)));
+			this.namespace = namespace;
+			this.answer = new CountDownLatch(answer ? 0 : 1);
+		}
+
+		public Namespace getServicesNamespace() {
+			return namespace;
+		}
+
+		public void connect(ID targetID, IConnectContext connectContext) throws ContainerConnectException {
+			connectedID = targetID;
+		}
+
+		public void disconnect() {
+			connectedID = null;
+		}
+
+		public ID getConnectedID() {
+			return connectedID;
+		}
+
+		public String getContainerName() {
+			return "ecf.discovery.test";
+		}
+
+		public IServiceInfo getServiceInfo(IServiceID aServiceID) {
+			return null;
+		}
+
+		private void waitForAnswer() {
+			try {
+				answer.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void answer() {
+			answer.countDown();
+		}
+
+		public IServiceInfo[] getServices() {
+			IServiceInfo[] result;
+			synchronized (this) {
+				servicesQueries++;
+				result = (IServiceInfo[]) services.toArray(new IServiceInfo[services.size()]);
+			}
+			waitForAnswer();
+			return result;
+		}
+
+		public IServiceInfo[] getServices(IServiceTypeID aServiceTypeID) {
+			List result = new ArrayList();
+			synchronized (this) {
+				typedQueries++;
+				for (Iterator itr = services.iterator(); itr.hasNext();) {
+					IServiceInfo info = (IServiceInfo) itr.next();
+					if (info.getServiceID().getServiceTypeID().equals(aServiceTypeID))
+						result.add(info);
+				}
+			}
+			waitForAnswer();
+			return (IServiceInfo[]) result.toArray(new IServiceInfo[result.size()]);
+		}
+
+		public IServiceTypeID[] getServiceTypes() {
+			Set result = new HashSet();
+			synchronized (this) {
+				for (Iterator itr = services.iterator(); itr.hasNext();)
+					result.add(((IServiceInfo) itr.next()).getServiceID().getServiceTypeID());
+			}
+			waitForAnswer();
+			return (IServiceTypeID[]) result.toArray(new IServiceTypeID[result.size()]);
+		}
+
+		public void registerService(IServiceInfo serviceInfo) {
+		}
+
+		public void unregisterService(IServiceInfo serviceInfo) {
+		}
+
+		Map listenerMap() {
+			return serviceListeners;
+		}
+
+		synchronized void add(IServiceInfo info) {
+			services.add(info);
+		}
+
+		void discover(IServiceInfo info) {
+			add(info);
+			fireServiceDiscovered(new ServiceContainerEvent(info, getID()));
+		}
+
+		void undiscover(IServiceInfo info) {
+			synchronized (this) {
+				services.remove(info);
+			}
+			fireServiceUndiscovered(new ServiceContainerEvent(info, getID()));
+		}
+	}
+
+	private Namespace namespace;
+	private TestLocator fast;
+	private TestLocator slow;
+	private CompositeDiscoveryContainer composite;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		namespace = new TestNamespace();
+		namespace.initialize(NAMESPACE, "composite test namespace");
+		fast = new TestLocator("fast", namespace, true);
+		slow = new TestLocator("slow", namespace, false);
+		fast.add(createServiceInfo(TYPE1, "fast1"));
+		fast.add(createServiceInfo(TYPE2, "fast2"));
+		slow.add(createServiceInfo(TYPE1, "slow1"));
+		List containers = new ArrayList();
+		containers.add(fast);
+		containers.add(slow);
+		composite = new CompositeDiscoveryContainer(containers) {
+			{
+				queryTimeout = 200;
+			}
+		};
+		composite.connect(null, null);
+	}
+
+	protected void tearDown() throws Exception {
+		slow.answer();
+		composite.dispose();
+		super.tearDown();
+	}
+
+	private IServiceTypeID createServiceTypeID(String type) {
+		return new ServiceTypeID(namespace, type);
+	}
+
+	private IServiceInfo createServiceInfo(String type, String name) {
+		return new ServiceInfo(URI.create("ecftcp://" + name + ":3282/server"), name, createServiceTypeID(type));
+	}
+
+	private static Set getNames(IServiceInfo[] infos) {
+		Set result = new HashSet();
+		for (int i = 0; i < infos.length; i++)
+			result.add(infos[i].getServiceName());
+		return result;
+	}
+
+	private static Set set(String[] names) {
+		return new HashSet(Arrays.asList(names));
+	}
+
+	private IServiceInfo[] waitForServices(int count) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		IServiceInfo[] services = composite.getServices();
+		while (services.length < count && System.currentTimeMillis() < end) {
+			Thread.sleep(50);
+			services = composite.getServices();
+		}
+		return services;
+	}
+
+	public void testSlowChildGivesPartialResult() throws Exception {
+		// the slow child has not answered when getServices returns
+		IServiceInfo[] services = composite.getServices();
+		assertEquals(set(new String[] {"fast1", "fast2"}), getNames(services));
+
+		// the slow child's query keeps running and seeds the merged view
+		slow.answer();
+		services = waitForServices(3);
+		assertEquals(set(new String[] {"fast1", "fast2", "slow1"}), getNames(services));
+		// while it was running, no further queries were sent to the slow child
+		assertEquals(1, slow.servicesQueries);
+	}
+
+	public void testServicesAnsweredFromMemory() throws Exception {
+		slow.answer();
+		waitForServices(3);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(3, composite.getServices().length);
+			assertEquals(2, composite.getServices(createServiceTypeID(TYPE1)).length);
+		}
+		assertEquals(1, fast.servicesQueries);
+		assertEquals(1, slow.servicesQueries);
+		assertEquals(0, fast.typedQueries);
+		assertEquals(0, slow.typedQueries);
+	}
+
+	public void testMergedViewFollowsEvents() throws Exception {
+		slow.answer();
+		waitForServices(3);
+		IServiceInfo added = createServiceInfo(TYPE2, "slow2");
+		slow.discover(added);
+		assertEquals(set(new String[] {"fast1", "fast2", "slow1", "slow2"}), getNames(composite.getServices()));
+		assertEquals(set(new String[] {"fast2", "slow2"}), getNames(composite.getServices(createServiceTypeID(TYPE2))));
+
+		slow.undiscover(added);
+		fast.undiscover((IServiceInfo) fast.services.get(0));
+		assertEquals(set(new String[] {"fast2", "slow1"}), getNames(composite.getServices()));
+		assertEquals(set(new String[] {"slow1"}), getNames(composite.getServices(createServiceTypeID(TYPE1))));
+		assertEquals(1, slow.servicesQueries);
+	}
+
+	/**
+	 * Events of the slow child that arrive while its query is running are
+	 * applied over the query's older result.
+	 */
+	public void testEventsDuringQueryReplayedOverResult() throws Exception {
+		IServiceInfo slow1 = (IServiceInfo) slow.services.get(0);
+		assertEquals(set(new String[] {"fast1", "fast2"}), getNames(composite.getServices()));
+		assertEquals(1, slow.servicesQueries);
+
+		// the query's result still has slow1, and not slow2
+		slow.undiscover(slow1);
+		slow.discover(createServiceInfo(TYPE2, "slow2"));
+		slow.answer();
+		IServiceInfo[] services = waitForServices(3);
+		assertEquals(set(new String[] {"fast1", "fast2", "slow2"}), getNames(services));
+		assertEquals(set(new String[] {"fast1"}), getNames(composite.getServices(createServiceTypeID(TYPE1))));
+		assertEquals(1, slow.servicesQueries);
+	}
+
+	public void testTypedQueryShared() throws Exception {
+		// the slow child answers neither query in time
+		assertEquals(set(new String[] {"fast1"}), getNames(composite.getServices(createServiceTypeID(TYPE1))));
+		assertEquals(set(new String[] {"fast1"}), getNames(composite.getServices(createServiceTypeID(TYPE1))));
+		// the second call waited for the query of the first
+		assertEquals(1, slow.typedQueries);
+		slow.answer();
+		waitForServices(3);
+		assertEquals(set(new String[] {"fast1", "slow1"}), getNames(composite.getServices(createServiceTypeID(TYPE1))));
+		assertEquals(1, slow.typedQueries);
+	}
+
+	public void testQueryThreadsBounded() throws Exception {
+		List containers = new ArrayList();
+		TestLocator[] locators = new TestLocator[20];
+		for (int i = 0; i < locators.length; i++) {
+			locators[i] = new TestLocator("hanging" + i, namespace, false);
+			containers.add(locators[i]);
+		}
+		CompositeDiscoveryContainer hanging = new CompositeDiscoveryContainer(containers) {
+			{
+				queryTimeout = 200;
+			}
+		};
+		try {
+			hanging.connect(null, null);
+			// threads of other composites that are still finishing only
+			// make the difference smaller
+			int before = countQueryThreads();
+			assertEquals(0, hanging.getServices().length);
+			assertEquals(0, hanging.getServices(createServiceTypeID(TYPE1)).length);
+			int threads = countQueryThreads() - before;
+			assertTrue(String.valueOf(threads), threads <= 4);
+			assertEquals(1, locators[0].servicesQueries);
+		} finally {
+			for (int i = 0; i < locators.length; i++)
+				locators[i].answer();
+			hanging.dispose();
+		}
+	}
+
+	public void testServiceTypes() throws Exception {
+		// the slow child has not answered when getServiceTypes returns
+		IServiceTypeID[] types = composite.getServiceTypes();
+		assertEquals(2, types.length);
+		assertEquals(set(new String[] {TYPE1, TYPE2}), getTypeNames(composite.getServiceTypes()));
+	}
+
+	private static int countQueryThreads() {
+		int threads = 0;
+		Thread[] all = new Thread[Thread.activeCount() + 50];
+		int count = Thread.enumerate(all);
+		for (int i = 0; i < count; i++)
+			if ((CompositeDiscoveryContainer.NAME + " query").equals(all[i].getName()))
+				threads++;
+		return threads;
+	}
+
+	private static Set getTypeNames(IServiceTypeID[] types) {
+		Set result = new HashSet();
+		for (int i = 0; i < types.length; i++)
+			result.add(types[i].getName());
+		return result;
+	}
+}
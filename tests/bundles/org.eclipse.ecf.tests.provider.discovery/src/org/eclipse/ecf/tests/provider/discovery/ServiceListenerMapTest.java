@@ -0,0 +1,115 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.discovery;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.Namespace;
+import org.eclipse.ecf.discovery.IServiceEvent;
+import org.eclipse.ecf.discovery.IServiceInfo;
+import org.eclipse.ecf.discovery.IServiceListener;
+import org.eclipse.ecf.discovery.ServiceInfo;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+import org.eclipse.ecf.discovery.identity.ServiceTypeID;
+import org.eclipse.ecf.tests.discovery.identity.TestNamespace;
+
+/**
+ * Tests that events are dispatched to the right listeners after the service
+ * listeners map of a discovery container is changed through its views.
+ */
+public class ServiceListenerMapTest extends TestCase {
+
+	private static final String NAMESPACE = "ecf.namespace.listenermaptest";
+
+	private static final String TYPE = "_ecf._junit._tests._someProtocol.someScope._someNamingAuthority";
+
+	static class CountingListener implements IServiceListener {
+		int discovered;
+
+		public boolean triggerDiscovery() {
+			return false;
+		}
+
+		public void serviceDiscovered(IServiceEvent anEvent) {
+			discovered++;
+		}
+
+		public void serviceUndiscovered(IServiceEvent anEvent) {
+		}
+	}
+
+	private CompositeDiscoveryContainerTest.TestLocator locator;
+	private IServiceTypeID type;
+	private IServiceInfo info;
+	private CountingListener listener;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Namespace namespace = new TestNamespace();
+		namespace.initialize(NAMESPACE, "listener map test namespace");
+		locator = new CompositeDiscoveryContainerTest.TestLocator("locator", namespace, true);
+		type = new ServiceTypeID(namespace, TYPE);
+		info = new ServiceInfo(URI.create("ecftcp://host:3282/server"), "service", type);
+		listener = new CountingListener();
+		locator.addServiceListener(type, listener);
+		// dispatch once, so that the listener index is built
+		locator.discover(info);
+		assertEquals(1, listener.discovered);
+	}
+
+	public void testKeySetIteratorRemove() throws Exception {
+		Map map = locator.listenerMap();
+		synchronized (map) {
+			Iterator itr = map.keySet().iterator();
+			itr.next();
+			itr.remove();
+		}
+		locator.discover(info);
+		assertEquals(1, listener.discovered);
+	}
+
+	public void testValuesClear() throws Exception {
+		Map map = locator.listenerMap();
+		synchronized (map) {
+			map.values().clear();
+		}
+		locator.discover(info);
+		assertEquals(1, listener.discovered);
+	}
+
+	public void testEntrySetRemove() throws Exception {
+		Map map = locator.listenerMap();
+		synchronized (map) {
+			map.entrySet().remove(map.entrySet().iterator().next());
+		}
+		locator.discover(info);
+		assertEquals(1, listener.discovered);
+	}
+
+	public void testEntrySetValue() throws Exception {
+		CountingListener other = new CountingListener();
+		Map map = locator.listenerMap();
+		synchronized (map) {
+			Map.Entry entry = (Map.Entry) map.entrySet().iterator().next();
+			entry.setValue(Collections.singleton(other));
+		}
+		locator.discover(info);
+		assertEquals(1, listener.discovered);
+		assertEquals(1, other.discovered);
+	}
+}
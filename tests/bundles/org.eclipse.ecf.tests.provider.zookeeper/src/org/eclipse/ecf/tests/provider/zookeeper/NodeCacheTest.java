@@ -0,0 +1,126 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.zookeeper;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.Namespace;
+import org.eclipse.ecf.discovery.IServiceInfo;
+import org.eclipse.ecf.discovery.ServiceInfo;
+import org.eclipse.ecf.discovery.identity.ServiceTypeID;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeCache;
+import org.eclipse.ecf.tests.discovery.identity.TestNamespace;
+
+public class NodeCacheTest extends TestCase {
+
+	private static final String IP = "127.0.0.1";
+	private static final String TYPE = "_ecf._junit._tests._someProtocol.someScope._someNamingAuthority";
+
+	private Namespace namespace;
+	private NodeCache cache;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		namespace = new TestNamespace();
+		namespace.initialize("ecf.namespace.nodecachetest", "node cache test namespace");
+		cache = NodeCache.getSingleton();
+		cache.clear();
+	}
+
+	protected void tearDown() throws Exception {
+		cache.clear();
+		super.tearDown();
+	}
+
+	private IServiceInfo createService(int i) {
+		return new ServiceInfo(URI.create("ecftcp://host" + i + ":3282/server"), "service" + i, new ServiceTypeID(namespace, TYPE));
+	}
+
+	private static String path(int i) {
+		return "node" + i;
+	}
+
+	public void testVersions() throws Exception {
+		IServiceInfo service = createService(0);
+		cache.put(path(0), 10, IP, service);
+		assertSame(service, cache.get(path(0), 10));
+		assertNull(cache.get(path(0), 11));
+		assertSame(service, cache.getService(service.getServiceID().getName()));
+
+		IServiceInfo changed = createService(0);
+		cache.put(path(0), 11, IP, changed);
+		assertNull(cache.get(path(0), 10));
+		assertSame(changed, cache.getService(service.getServiceID().getName()));
+		assertEquals(1, cache.size());
+
+		assertSame(changed, cache.remove(path(0)));
+		assertNull(cache.getService(service.getServiceID().getName()));
+		assertEquals(0, cache.size());
+	}
+
+	public void testUnavailableUntilSeenAgain() throws Exception {
+		IServiceInfo service = createService(0);
+		cache.put(path(0), 10, IP, service);
+		cache.setUnavailable(path(0));
+		assertNull(cache.getService(service.getServiceID().getName()));
+		assertTrue(cache.getServices().isEmpty());
+
+		assertSame(service, cache.get(path(0), 10));
+		assertSame(service, cache.getService(service.getServiceID().getName()));
+		assertEquals(1, cache.getServices().size());
+	}
+
+	public void testRetain() throws Exception {
+		cache.put(path(0), 10, IP, createService(0));
+		cache.put(path(1), 10, IP, createService(1));
+		cache.put(path(2), 10, "127.0.0.2", createService(2));
+		cache.retain(IP, Arrays.asList(new String[] {path(1)}));
+		assertNull(cache.get(path(0), 10));
+		assertNotNull(cache.get(path(1), 10));
+		// nodes of other servers are kept
+		assertNotNull(cache.get(path(2), 10));
+	}
+
+	/**
+	 * Resync of 10000 nodes after reconnecting, of which 10 changed while the
+	 * connection was lost.
+	 */
+	public void testResync() throws Exception {
+		int count = 10000;
+		List<String> children = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			cache.put(path(i), i, IP, createService(i));
+			children.add(path(i));
+		}
+		for (int i = 0; i < count; i++)
+			cache.setUnavailable(path(i));
+		assertTrue(cache.getServices().isEmpty());
+
+		cache.retain(IP, children);
+		int fetched = 0;
+		for (int i = 0; i < count; i++) {
+			long version = i % 1000 == 0 ? i + count : i;
+			if (cache.get(path(i), version) == null) {
+				fetched++;
+				cache.put(path(i), version, IP, createService(i));
+			}
+		}
+		assertEquals(10, fetched);
+		assertEquals(count, cache.getServices().size());
+	}
+}
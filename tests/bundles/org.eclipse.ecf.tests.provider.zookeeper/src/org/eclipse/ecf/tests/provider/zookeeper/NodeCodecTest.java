@@ -0,0 +1,128 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.zookeeper;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.discovery.IServiceProperties;
+import org.eclipse.ecf.discovery.ServiceProperties;
+import org.eclipse.ecf.provider.zookeeper.core.internal.IService;
+import org.eclipse.ecf.provider.zookeeper.node.internal.INode;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeCodec;
+
+public class NodeCodecTest extends TestCase {
+
+	private static Map<String, Object> createNodeProperties() {
+		ServiceProperties serviceProperties = new ServiceProperties();
+		serviceProperties.setPropertyString("endpoint.id", "ecftcp://localhost:3282/server");
+		serviceProperties.setProperty("service.ranking", Integer.valueOf(5));
+		serviceProperties.setProperty("endpoint.service.id", Long.valueOf(42));
+		serviceProperties.setProperty("service.exported.configs", new String[] {"ecf.generic.server"});
+		serviceProperties.setProperty("service.imported", Boolean.TRUE);
+		serviceProperties.setPropertyBytes("some.bytes", new byte[] {1, 2, 3});
+		Map<String, Object> nodeProperties = new HashMap<String, Object>();
+		nodeProperties.put(INode.NODE_PROPERTY_SERVICE_NAME, "someService");
+		nodeProperties.put(INode.NODE_SERVICE_PROPERTIES, serviceProperties);
+		nodeProperties.put(INode.NODE_PROPERTY_NAME_PROTOCOLS, new String[] {"tcp"});
+		nodeProperties.put(INode.NODE_PROPERTY_NAME_SCOPE, new String[] {"default"});
+		nodeProperties.put(INode.NODE_PROPERTY_SERVICES, new String[] {"ecf", "junit"});
+		nodeProperties.put(INode.NODE_PROPERTY_NAME_NA, "iana");
+		nodeProperties.put(IService.LOCATION, URI.create("ecftcp://localhost:3282/server"));
+		nodeProperties.put(IService.WEIGHT, Integer.valueOf(10));
+		nodeProperties.put(IService.PRIORITY, Integer.valueOf(20));
+		return nodeProperties;
+	}
+
+	private static void assertNodeProperties(Map<String, Object> expected, Map<String, Object> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Map.Entry<String, Object> entry : expected.entrySet()) {
+			Object value = actual.get(entry.getKey());
+			if (entry.getValue() instanceof String[])
+				assertTrue(entry.getKey(), Arrays.equals((String[]) entry.getValue(), (String[]) value));
+			else if (entry.getValue() instanceof IServiceProperties)
+				assertServiceProperties((IServiceProperties) entry.getValue(), (IServiceProperties) value);
+			else
+				assertEquals(entry.getKey(), entry.getValue(), value);
+		}
+	}
+
+	private static void assertServiceProperties(IServiceProperties expected, IServiceProperties actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.getPropertyString("endpoint.id"), actual.getPropertyString("endpoint.id"));
+		assertEquals(expected.getProperty("service.ranking"), actual.getProperty("service.ranking"));
+		assertEquals(expected.getProperty("endpoint.service.id"), actual.getProperty("endpoint.service.id"));
+		assertEquals(expected.getProperty("service.imported"), actual.getProperty("service.imported"));
+		assertTrue(Arrays.equals((String[]) expected.getProperty("service.exported.configs"), (String[]) actual.getProperty("service.exported.configs")));
+		assertTrue(Arrays.equals(expected.getPropertyBytes("some.bytes"), actual.getPropertyBytes("some.bytes")));
+	}
+
+	public void testRoundTrip() throws Exception {
+		Map<String, Object> nodeProperties = createNodeProperties();
+		assertNodeProperties(nodeProperties, NodeCodec.decode(NodeCodec.encodeCompact(nodeProperties)));
+	}
+
+	public void testDeferredProperties() throws Exception {
+		Map<String, Object> nodeProperties = createNodeProperties();
+		Map<String, Object> decoded = NodeCodec.decode(NodeCodec.encodeCompact(nodeProperties), true);
+		Object properties = decoded.get(INode.NODE_SERVICE_PROPERTIES);
+		assertTrue(properties instanceof NodeCodec.EncodedProperties);
+		assertServiceProperties((IServiceProperties) nodeProperties.get(INode.NODE_SERVICE_PROPERTIES), ((NodeCodec.EncodedProperties) properties).decode());
+		decoded.put(INode.NODE_SERVICE_PROPERTIES, nodeProperties.get(INode.NODE_SERVICE_PROPERTIES));
+		assertNodeProperties(nodeProperties, decoded);
+
+		// legacy data is decoded at once
+		decoded = NodeCodec.decode(NodeCodec.encodeLegacy(nodeProperties), true);
+		assertTrue(decoded.get(INode.NODE_SERVICE_PROPERTIES) instanceof IServiceProperties);
+	}
+
+	public void testDecodeLegacy() throws Exception {
+		Map<String, Object> nodeProperties = createNodeProperties();
+		assertNodeProperties(nodeProperties, NodeCodec.decode(NodeCodec.encodeLegacy(nodeProperties)));
+	}
+
+	public void testEncodingProperty() throws Exception {
+		Map<String, Object> nodeProperties = createNodeProperties();
+		// Legacy unless compact is asked for, so that earlier versions can read the nodes
+		assertTrue(Arrays.equals(NodeCodec.encodeLegacy(nodeProperties), NodeCodec.encode(nodeProperties)));
+		System.setProperty(NodeCodec.NODE_ENCODING, NodeCodec.NODE_ENCODING_COMPACT);
+		try {
+			assertTrue(Arrays.equals(NodeCodec.encodeCompact(nodeProperties), NodeCodec.encode(nodeProperties)));
+		} finally {
+			System.getProperties().remove(NodeCodec.NODE_ENCODING);
+		}
+		System.setProperty(NodeCodec.NODE_ENCODING, NodeCodec.NODE_ENCODING_LEGACY);
+		try {
+			assertTrue(Arrays.equals(NodeCodec.encodeLegacy(nodeProperties), NodeCodec.encode(nodeProperties)));
+		} finally {
+			System.getProperties().remove(NodeCodec.NODE_ENCODING);
+		}
+	}
+
+	public void testSerializedFallback() throws Exception {
+		Map<String, Object> nodeProperties = new HashMap<String, Object>();
+		nodeProperties.put("list", new java.util.ArrayList<String>(Arrays.asList(new String[] {"a", "b"})));
+		assertEquals(nodeProperties, NodeCodec.decode(NodeCodec.encodeCompact(nodeProperties)));
+	}
+
+	public void testSize() throws Exception {
+		Map<String, Object> nodeProperties = createNodeProperties();
+		int compact = NodeCodec.encodeCompact(nodeProperties).length;
+		int legacy = NodeCodec.encodeLegacy(nodeProperties).length;
+		assertTrue("compact " + compact + " >= legacy " + legacy, compact < legacy);
+	}
+}
@@ -0,0 +1,63 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.zookeeper;
+
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.ZooDefs.Ids;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeWriter;
+
+/**
+ * Time to publish 500 service nodes against a ZooKeeper server running in
+ * this process, one at a time and batched. Not run by default: set the system
+ * property org.eclipse.ecf.tests.benchmarks=true to run it.
+ */
+public class NodePublishBenchmark extends NodePublishTest {
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite();
+		if (Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks"))
+			// the server fixture is inherited, the tests are not
+			suite.addTest(TestSuite.createTest(NodePublishBenchmark.class, "testStartupTiming"));
+		return suite;
+	}
+
+	// the exists and create per node that publishing did before
+	private void publishSequentially(Map<String, byte[]> nodes) throws Exception {
+		for (Map.Entry<String, byte[]> node : nodes.entrySet()) {
+			if (keeper.exists(node.getKey(), false) == null)
+				keeper.create(node.getKey(), node.getValue(), Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+		}
+	}
+
+	public void testStartupTiming() throws Exception {
+		// warm up
+		publishSequentially(createNodes("/warmup1"));
+		NodeWriter.createNodes(keeper, createNodes("/warmup2"), 10000);
+
+		Map<String, byte[]> sequential = createNodes("/sequential");
+		Map<String, byte[]> batched = createNodes("/batched");
+		long start = System.nanoTime();
+		publishSequentially(sequential);
+		long sequentialTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		NodeWriter.createNodes(keeper, batched, 10000);
+		long batchedTime = System.nanoTime() - start;
+		System.out.println("NodePublishBenchmark: " + NODES + " nodes published in " + (sequentialTime / 1000000) + "ms one at a time, " + (batchedTime / 1000000) + "ms batched");
+		assertEquals(NODES, keeper.getChildren("/batched", false).size());
+	}
+}
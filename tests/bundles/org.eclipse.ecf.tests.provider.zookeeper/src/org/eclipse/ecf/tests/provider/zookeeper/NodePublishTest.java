@@ -0,0 +1,103 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.zookeeper;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.ZooDefs.Ids;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.server.NIOServerCnxn;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeWriter;
+
+/**
+ * Publication of service nodes against a ZooKeeper server running in this
+ * process.
+ */
+public class NodePublishTest extends TestCase {
+
+	static final int NODES = 500;
+
+	private File dataDir;
+	private ZooKeeperServer server;
+	private NIOServerCnxn.Factory serverFactory;
+	ZooKeeper keeper;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		dataDir = File.createTempFile("zoodiscovery", "test");
+		dataDir.delete();
+		dataDir.mkdirs();
+		server = new ZooKeeperServer(dataDir, dataDir, 2000);
+		serverFactory = new NIOServerCnxn.Factory(new InetSocketAddress("127.0.0.1", 0));
+		serverFactory.startup(server);
+		final CountDownLatch connected = new CountDownLatch(1);
+		keeper = new ZooKeeper("127.0.0.1:" + serverFactory.getLocalPort(), 5000, new Watcher() {
+			public void process(WatchedEvent event) {
+				if (event.getState() == KeeperState.SyncConnected)
+					connected.countDown();
+			}
+		});
+		assertTrue("not connected", connected.await(10, TimeUnit.SECONDS));
+	}
+
+	protected void tearDown() throws Exception {
+		keeper.close();
+		serverFactory.shutdown();
+		delete(dataDir);
+		super.tearDown();
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null)
+			for (int i = 0; i < children.length; i++)
+				delete(children[i]);
+		file.delete();
+	}
+
+	Map<String, byte[]> createNodes(String parent) throws Exception {
+		keeper.create(parent, new byte[0], Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+		Map<String, byte[]> nodes = new LinkedHashMap<String, byte[]>();
+		for (int i = 0; i < NODES; i++)
+			nodes.put(parent + "/node" + i, new byte[300]);
+		return nodes;
+	}
+
+	public void testCreateNodes() throws Exception {
+		Map<String, byte[]> nodes = createNodes("/batch");
+		Map<String, KeeperException.Code> results = NodeWriter.createNodes(keeper, nodes, 10000);
+		assertEquals(NODES, results.size());
+		for (KeeperException.Code code : results.values())
+			assertEquals(KeeperException.Code.OK, code);
+		assertEquals(NODES, keeper.getChildren("/batch", false).size());
+
+		// publishing again reports the nodes as existing
+		results = NodeWriter.createNodes(keeper, nodes, 10000);
+		assertEquals(NODES, results.size());
+		for (KeeperException.Code code : results.values())
+			assertEquals(KeeperException.Code.NODEEXISTS, code);
+	}
+}
@@ -0,0 +1,218 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.generic;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.util.ECFException;
+import org.eclipse.ecf.provider.remoteservice.generic.RegistrySharedObject;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteCallImpl;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteServiceRegistrationImpl;
+import org.eclipse.ecf.provider.remoteservice.generic.Request;
+import org.eclipse.ecf.provider.remoteservice.generic.Response;
+import org.eclipse.ecf.remoteservice.IRemoteCall;
+import org.eclipse.ecf.remoteservice.IRemoteCallListener;
+import org.eclipse.ecf.remoteservice.events.IRemoteCallCompleteEvent;
+import org.eclipse.ecf.remoteservice.events.IRemoteCallEvent;
+import org.eclipse.equinox.concurrent.future.TimeoutException;
+import org.osgi.framework.ServiceException;
+
+/**
+ * Tests request/response matching in {@link RegistrySharedObject} without a
+ * connected container: requests are captured instead of being sent.
+ */
+public class PendingRequestTest extends TestCase {
+
+	static class TestRegistry extends RegistrySharedObject {
+		final LinkedList sent = new LinkedList();
+		// The request sent by each calling thread
+		final Map sentBy = new HashMap();
+
+		protected Request sendCallRequest(RemoteServiceRegistrationImpl registration, IRemoteCall call) throws IOException {
+			final Request request = new Request(null, 1L, RemoteCallImpl.createRemoteCall(null, call.getMethod(), null, call.getTimeout()));
+			addRequest(request);
+			synchronized (sent) {
+				sent.add(request);
+				sentBy.put(Thread.currentThread(), request);
+				sent.notifyAll();
+			}
+			return request;
+		}
+
+		Request nextSent() throws InterruptedException {
+			final long end = System.currentTimeMillis() + 10000;
+			synchronized (sent) {
+				while (sent.isEmpty() && System.currentTimeMillis() < end)
+					sent.wait(1000);
+				return sent.isEmpty() ? null : (Request) sent.removeFirst();
+			}
+		}
+
+		Object call(long timeout) throws ECFException {
+			return callSynch(null, RemoteCallImpl.createRemoteCall(null, "m", null, timeout)); //$NON-NLS-1$
+		}
+
+		Request sentBy(Thread caller) {
+			synchronized (sent) {
+				return (Request) sentBy.get(caller);
+			}
+		}
+
+		void addRequest(long timeout, IRemoteCallListener listener) {
+			addRequest(new Request(null, 1L, RemoteCallImpl.createRemoteCall(null, "m", null, timeout), listener)); //$NON-NLS-1$
+		}
+
+		void respond(Request request, Object result) {
+			handleCallResponse(new Response(request.getRequestId(), result));
+		}
+
+		int pending() {
+			return pendingRequests.size();
+		}
+	}
+
+	// Stands in for a registry whose request timer was lost or stopped
+	static class NoTimerRegistry extends TestRegistry {
+		protected boolean addRequest(Request request) {
+			return pendingRequests.putIfAbsent(Long.valueOf(request.getRequestId()), request) == null;
+		}
+	}
+
+	TestRegistry registry;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		registry = new TestRegistry();
+	}
+
+	public void testResponseCompletesCall() throws Exception {
+		final Thread responder = new Thread(new Runnable() {
+			public void run() {
+				try {
+					final Request request = registry.nextSent();
+					registry.respond(request, "result"); //$NON-NLS-1$
+				} catch (final InterruptedException e) {
+					// fall through, the call will time out
+				}
+			}
+		});
+		responder.start();
+		final long start = System.currentTimeMillis();
+		assertEquals("result", registry.call(30000)); //$NON-NLS-1$
+		// Completed on arrival rather than on a polling interval
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertEquals(0, registry.pending());
+	}
+
+	public void testManyOutOfOrderResponses() throws Exception {
+		final int calls = 200;
+		final Object[] results = new Object[calls];
+		final Thread[] callers = new Thread[calls];
+		for (int i = 0; i < calls; i++) {
+			final int index = i;
+			callers[i] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						results[index] = registry.call(30000);
+					} catch (final ECFException e) {
+						results[index] = e;
+					}
+				}
+			});
+			callers[i].start();
+		}
+		final Request[] requests = new Request[calls];
+		for (int i = 0; i < calls; i++)
+			requests[i] = registry.nextSent();
+		// Respond in reverse order, echoing the request id
+		for (int i = calls - 1; i >= 0; i--)
+			registry.respond(requests[i], Long.valueOf(requests[i].getRequestId()));
+		for (int i = 0; i < calls; i++)
+			callers[i].join(10000);
+		// Every caller gets the response to its own request
+		for (int i = 0; i < calls; i++)
+			assertEquals(Long.valueOf(registry.sentBy(callers[i]).getRequestId()), results[i]);
+		assertEquals(0, registry.pending());
+	}
+
+	public void testTimeout() throws Exception {
+		try {
+			registry.call(300);
+			fail("call should have timed out"); //$NON-NLS-1$
+		} catch (final ServiceException e) {
+			// expected
+		}
+		assertEquals(0, registry.pending());
+	}
+
+	public void testTimeoutWithoutTimer() throws Exception {
+		registry = new NoTimerRegistry();
+		final long start = System.currentTimeMillis();
+		try {
+			registry.call(300);
+			fail("call should have timed out"); //$NON-NLS-1$
+		} catch (final ServiceException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertEquals(0, registry.pending());
+	}
+
+	public void testSlowTimeoutListenerDoesNotDelayOtherTimeouts() throws Exception {
+		final Object lock = new Object();
+		final boolean[] released = new boolean[1];
+		final IRemoteCallCompleteEvent[] completed = new IRemoteCallCompleteEvent[1];
+		// This listener blocks until the end of the test
+		registry.addRequest(100, new IRemoteCallListener() {
+			public void handleEvent(IRemoteCallEvent event) {
+				synchronized (lock) {
+					while (!released[0]) {
+						try {
+							lock.wait();
+						} catch (final InterruptedException e) {
+							return;
+						}
+					}
+				}
+			}
+		});
+		registry.addRequest(300, new IRemoteCallListener() {
+			public void handleEvent(IRemoteCallEvent event) {
+				synchronized (lock) {
+					completed[0] = (IRemoteCallCompleteEvent) event;
+					lock.notifyAll();
+				}
+			}
+		});
+		try {
+			synchronized (lock) {
+				final long end = System.currentTimeMillis() + 10000;
+				while (completed[0] == null && System.currentTimeMillis() < end)
+					lock.wait(1000);
+			}
+			assertNotNull(completed[0]);
+			assertTrue(completed[0].hadException());
+			assertEquals(0, registry.pending());
+		} finally {
+			synchronized (lock) {
+				released[0] = true;
+				lock.notifyAll();
+			}
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.generic;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.generic.RawSharedObjectMessage;
+import org.eclipse.ecf.provider.remoteservice.generic.RegistrySharedObject;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteCallImpl;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteServiceRegistrationImpl;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteServiceRegistryImpl;
+import org.eclipse.ecf.provider.remoteservice.generic.Request;
+import org.eclipse.ecf.provider.remoteservice.generic.Response;
+
+/**
+ * Tests the single pass call path of {@link RegistrySharedObject}: call
+ * requests and responses are written as {@link RawSharedObjectMessage}s and
+ * read back by the receiving registry.  Messages are handed from one registry
+ * to the other instead of being sent through containers.
+ */
+public class SinglePassCallTest extends TestCase {
+
+	static class TestRegistry extends RegistrySharedObject {
+		final ID containerID;
+		final LinkedList sent = new LinkedList();
+		final LinkedList received = new LinkedList();
+
+		TestRegistry(ID containerID) {
+			this.containerID = containerID;
+			this.localRegistry = new RemoteServiceRegistryImpl(containerID);
+		}
+
+		protected ID getLocalContainerID() {
+			return containerID;
+		}
+
+		protected boolean isSinglePassCalls() {
+			return true;
+		}
+
+		protected void sendRawMessage(ID target, RawSharedObjectMessage message) throws IOException {
+			sent.add(message);
+		}
+
+		protected void handleCallRequest(Request request) {
+			received.add(request);
+		}
+
+		protected void handleCallResponse(Response response) {
+			received.add(response);
+		}
+
+		RemoteServiceRegistrationImpl register(Object service) {
+			final RemoteServiceRegistrationImpl registration = new RemoteServiceRegistrationImpl();
+			registration.publish(this, localRegistry, service, new String[] {service.getClass().getName()}, null);
+			return registration;
+		}
+
+		Request call(RemoteServiceRegistrationImpl registration, String method, Object[] parameters) throws IOException {
+			return sendCallRequest(registration, RemoteCallImpl.createRemoteCall(null, method, parameters, 30000));
+		}
+
+		void respond(ID target, Response response) {
+			sendCallResponse(target, response);
+		}
+
+		RawSharedObjectMessage nextSent() {
+			assertEquals(1, sent.size());
+			return (RawSharedObjectMessage) sent.removeFirst();
+		}
+
+		void receive(RawSharedObjectMessage message) {
+			handleRawSharedObjectMessage(message);
+		}
+	}
+
+	TestRegistry client;
+	TestRegistry host;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		client = new TestRegistry(IDFactory.getDefault().createGUID());
+		host = new TestRegistry(IDFactory.getDefault().createGUID());
+	}
+
+	public void testCallRequestAndResponse() throws Exception {
+		final RemoteServiceRegistrationImpl registration = host.register(this);
+		final Object[] parameters = new Object[] {"a", Integer.valueOf(2)}; //$NON-NLS-1$
+		final Request request = client.call(registration, "concat", parameters); //$NON-NLS-1$
+
+		final RawSharedObjectMessage requestMessage = client.nextSent();
+		assertTrue(RawSharedObjectMessage.isRaw(requestMessage.getBytes()));
+		host.receive(requestMessage);
+		assertEquals(1, host.received.size());
+		final Request hostRequest = (Request) host.received.removeFirst();
+		assertEquals(request.getRequestId(), hostRequest.getRequestId());
+		assertEquals(registration.getServiceId(), hostRequest.getServiceId());
+		assertEquals(client.containerID, hostRequest.getRequestContainerID());
+		assertEquals("concat", hostRequest.getCall().getMethod()); //$NON-NLS-1$
+		assertTrue(Arrays.equals(parameters, hostRequest.getCall().getParameters()));
+
+		host.respond(hostRequest.getRequestContainerID(), new Response(hostRequest.getRequestId(), "a2")); //$NON-NLS-1$
+		final RawSharedObjectMessage responseMessage = host.nextSent();
+		assertTrue(RawSharedObjectMessage.isRaw(responseMessage.getBytes()));
+		client.receive(responseMessage);
+		assertEquals(1, client.received.size());
+		final Response response = (Response) client.received.removeFirst();
+		assertEquals(request.getRequestId(), response.getRequestId());
+		assertFalse(response.hadException());
+		assertEquals("a2", response.getResponse()); //$NON-NLS-1$
+	}
+
+	public void testExceptionResponse() throws Exception {
+		final Request request = client.call(host.register(this), "fail", null); //$NON-NLS-1$
+		host.receive(client.nextSent());
+		final Request hostRequest = (Request) host.received.removeFirst();
+
+		host.respond(client.containerID, new Response(hostRequest.getRequestId(), new IllegalStateException("failed"))); //$NON-NLS-1$
+		client.receive(host.nextSent());
+		final Response response = (Response) client.received.removeFirst();
+		assertEquals(request.getRequestId(), response.getRequestId());
+		assertTrue(response.hadException());
+		assertEquals("failed", response.getException().getMessage()); //$NON-NLS-1$
+	}
+
+	public void testRequestForUnknownServiceIsDropped() throws Exception {
+		// The service is registered with another host
+		final TestRegistry other = new TestRegistry(IDFactory.getDefault().createGUID());
+		client.call(other.register(this), "concat", null); //$NON-NLS-1$
+		host.receive(client.nextSent());
+		assertTrue(host.received.isEmpty());
+	}
+
+	public void testResponseForUnknownRequestIsDropped() throws Exception {
+		host.respond(client.containerID, new Response(-1, "unknown")); //$NON-NLS-1$
+		client.receive(host.nextSent());
+		assertTrue(client.received.isEmpty());
+	}
+}
@@ -0,0 +1,22 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.r_osgi;
+
+/**
+ * Interface of the services of the peers simulated by
+ * {@link ProxyBundleCacheTest}. Not nested, because the proxy generator does
+ * not read the attributes of nested classes.
+ */
+public interface CachedService {
+	String echo(String s);
+}
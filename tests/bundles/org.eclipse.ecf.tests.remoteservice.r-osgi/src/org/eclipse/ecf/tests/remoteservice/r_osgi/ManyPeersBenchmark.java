@@ -0,0 +1,237 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.r_osgi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.ecf.tests.remoteservice.Activator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.ServiceTracker;
+
+import ch.ethz.iks.r_osgi.RemoteOSGiService;
+import ch.ethz.iks.r_osgi.Remoting;
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.channels.NetworkChannelFactory;
+import ch.ethz.iks.r_osgi.messages.LeaseMessage;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+import ch.ethz.iks.r_osgi.messages.TimeOffsetMessage;
+
+/**
+ * Measures how the r-OSGi worker threads serve many connected peers. Each
+ * peer is connected through a channel of the "bench" protocol whose remote
+ * side is simulated in this process, and sends a time offset request at a
+ * fixed interval. Reports the number of worker threads and the latency of the
+ * requests. Not run by default: set the system property
+ * org.eclipse.ecf.tests.benchmarks=true to run it. The number of peers, the
+ * number of requests per peer and the interval in ms are given by
+ * org.eclipse.ecf.tests.benchmarks.peers (default 200),
+ * org.eclipse.ecf.tests.benchmarks.rounds (default 200) and
+ * org.eclipse.ecf.tests.benchmarks.pause (default 20).
+ */
+public class ManyPeersBenchmark extends TestCase {
+
+	public static Test suite() {
+		if (!Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks"))
+			return new TestSuite();
+		return new TestSuite(ManyPeersBenchmark.class);
+	}
+
+	private static final String PROTOCOL = "bench";
+
+	private static final String WORKER_THREAD_NAME = "r-OSGi ChannelWorkerThread";
+
+	private static final int PEERS = Integer.getInteger("org.eclipse.ecf.tests.benchmarks.peers", 200).intValue();
+
+	private static final int ROUNDS = Integer.getInteger("org.eclipse.ecf.tests.benchmarks.rounds", 200).intValue();
+
+	private static final long PAUSE = Long.getLong("org.eclipse.ecf.tests.benchmarks.pause", 20).longValue();
+
+	/**
+	 * Channel to a simulated peer. The peer answers the lease of the
+	 * connection handshake as a peer without services and keeps the replies to
+	 * its time offset requests.
+	 */
+	static class PeerChannel implements NetworkChannel {
+		private final ChannelEndpoint endpoint;
+		private final URI remoteAddress;
+		private RemoteOSGiMessage reply;
+
+		PeerChannel(ChannelEndpoint endpoint, URI remoteAddress) {
+			this.endpoint = endpoint;
+			this.remoteAddress = remoteAddress;
+		}
+
+		public String getProtocol() {
+			return PROTOCOL;
+		}
+
+		public URI getRemoteAddress() {
+			return remoteAddress;
+		}
+
+		public URI getLocalAddress() {
+			return URI.create(PROTOCOL + "://127.0.0.1:9278");
+		}
+
+		public void bind(ChannelEndpoint e) {
+		}
+
+		public void close() throws IOException {
+		}
+
+		public void sendMessage(RemoteOSGiMessage message) throws IOException {
+			if (message.getFuncID() == RemoteOSGiMessage.LEASE) {
+				final LeaseMessage lease = new LeaseMessage();
+				lease.setXID(message.getXID());
+				lease.setServiceIDs(new String[0]);
+				lease.setServiceInterfaces(new String[0][]);
+				lease.setServiceProperties(new Dictionary[0]);
+				lease.setTopics(new String[0]);
+				endpoint.receivedMessage(lease);
+			} else if (message.getFuncID() == RemoteOSGiMessage.TIME_OFFSET) {
+				synchronized (this) {
+					reply = message;
+					notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Send a time offset request from the peer and wait for the reply.
+		 */
+		void call(int xid) throws InterruptedException {
+			final TimeOffsetMessage request = new TimeOffsetMessage();
+			request.setXID(xid);
+			endpoint.receivedMessage(request);
+			synchronized (this) {
+				while (reply == null)
+					wait();
+				reply = null;
+			}
+		}
+	}
+
+	static class PeerChannelFactory implements NetworkChannelFactory {
+		final List channels = new ArrayList();
+
+		public synchronized NetworkChannel getConnection(ChannelEndpoint endpoint, URI endpointURI) {
+			final PeerChannel channel = new PeerChannel(endpoint, endpointURI);
+			channels.add(channel);
+			return channel;
+		}
+
+		public void activate(Remoting remoting) {
+		}
+
+		public void deactivate(Remoting remoting) {
+		}
+
+		public int getListeningPort(String protocol) {
+			return -1;
+		}
+	}
+
+	private static int countWorkerThreads() {
+		int count = 0;
+		for (final Iterator i = Thread.getAllStackTraces().keySet().iterator(); i.hasNext();)
+			if (((Thread) i.next()).getName().startsWith(WORKER_THREAD_NAME))
+				count++;
+		return count;
+	}
+
+	private static URI peerURI(int i) {
+		return URI.create(PROTOCOL + "://10.0." + (i / 250) + "." + (i % 250 + 1) + ":9278");
+	}
+
+	public void testManyPeers() throws Exception {
+		final BundleContext context = Activator.getDefault().getContext();
+		final ServiceTracker tracker = new ServiceTracker(context, RemoteOSGiService.class.getName(), null);
+		tracker.open();
+		final PeerChannelFactory factory = new PeerChannelFactory();
+		final Dictionary properties = new Hashtable();
+		properties.put(NetworkChannelFactory.PROTOCOL_PROPERTY, PROTOCOL);
+		final ServiceRegistration registration = context.registerService(NetworkChannelFactory.class.getName(),
+				factory, properties);
+		final RemoteOSGiService remoting = (RemoteOSGiService) tracker.waitForService(10000);
+		try {
+			assertNotNull(remoting);
+			final int before = countWorkerThreads();
+			for (int i = 0; i < PEERS; i++)
+				remoting.connect(peerURI(i));
+			assertEquals(PEERS, factory.channels.size());
+			final int idle = countWorkerThreads() - before;
+
+			final long[] latencies = new long[PEERS * ROUNDS];
+			final Thread[] peers = new Thread[PEERS];
+			for (int i = 0; i < PEERS; i++) {
+				final int peer = i;
+				final PeerChannel channel = (PeerChannel) factory.channels.get(i);
+				peers[i] = new Thread("ManyPeersBenchmark peer " + i) {
+					public void run() {
+						try {
+							for (int r = 0; r < ROUNDS; r++) {
+								final long start = System.nanoTime();
+								channel.call(r + 1);
+								latencies[peer * ROUNDS + r] = System.nanoTime() - start;
+								Thread.sleep(PAUSE);
+							}
+						} catch (final InterruptedException e) {
+							// stop
+						}
+					}
+				};
+			}
+			final long start = System.nanoTime();
+			for (int i = 0; i < PEERS; i++)
+				peers[i].start();
+			int peak = 0;
+			for (int i = 0; i < PEERS; i++) {
+				while (peers[i].isAlive()) {
+					peak = Math.max(peak, countWorkerThreads() - before);
+					peers[i].join(50);
+				}
+			}
+			final long time = System.nanoTime() - start;
+
+			Arrays.sort(latencies);
+			long sum = 0;
+			for (int i = 0; i < latencies.length; i++)
+				sum += latencies[i];
+			System.out.println("ManyPeersBenchmark: " + PEERS + " peers, " + ROUNDS + " requests each, pause " + PAUSE
+					+ "ms");
+			System.out.println("worker threads: " + idle + " idle, " + peak + " peak");
+			System.out.println("requests: " + latencies.length + " in " + time / 1000000 + "ms, mean "
+					+ sum / latencies.length / 1000 + "us, p50 " + latencies[latencies.length / 2] / 1000 + "us, p99 "
+					+ latencies[latencies.length * 99 / 100] / 1000 + "us");
+		} finally {
+			if (remoting != null)
+				for (int i = 0; i < PEERS; i++)
+					remoting.disconnect(peerURI(i));
+			registration.unregister();
+			tracker.close();
+		}
+	}
+}
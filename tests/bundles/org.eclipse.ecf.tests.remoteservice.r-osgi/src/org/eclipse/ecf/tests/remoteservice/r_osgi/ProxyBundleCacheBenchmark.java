@@ -0,0 +1,112 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.r_osgi;
+
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.ecf.tests.remoteservice.Activator;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.ServiceTracker;
+
+import ch.ethz.iks.r_osgi.RemoteOSGiService;
+import ch.ethz.iks.r_osgi.RemoteServiceReference;
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.NetworkChannelFactory;
+
+/**
+ * Measures fetching remote services with a cold and with a warm proxy bundle
+ * cache. Each service is offered by a peer of its own, simulated as in
+ * {@link ProxyBundleCacheTest}, and needs a dependency bundle from the peer.
+ * The services are fetched once while the cache holds none of them, and again
+ * after all peers have been disconnected, which uninstalls the proxy bundles
+ * as a restart would. Not run by default: set the system property
+ * org.eclipse.ecf.tests.benchmarks=true to run it. The number of services, the
+ * size of the dependency bundle in bytes and the time in ms the peers take to
+ * answer a request are given by org.eclipse.ecf.tests.benchmarks.services
+ * (default 100), org.eclipse.ecf.tests.benchmarks.dependencySize (default
+ * 262144) and org.eclipse.ecf.tests.benchmarks.latency (default 2).
+ */
+public class ProxyBundleCacheBenchmark extends TestCase {
+
+	public static Test suite() {
+		if (!Boolean.getBoolean("org.eclipse.ecf.tests.benchmarks"))
+			return new TestSuite();
+		return new TestSuite(ProxyBundleCacheBenchmark.class);
+	}
+
+	private static final int SERVICES = Integer.getInteger("org.eclipse.ecf.tests.benchmarks.services", 100).intValue();
+
+	private static final int DEPENDENCY_SIZE = Integer.getInteger("org.eclipse.ecf.tests.benchmarks.dependencySize",
+			262144).intValue();
+
+	private static final long LATENCY = Long.getLong("org.eclipse.ecf.tests.benchmarks.latency", 2).longValue();
+
+	private static long fetchAll(RemoteOSGiService remoting, URI[] peers) throws Exception {
+		final long start = System.nanoTime();
+		for (int i = 0; i < peers.length; i++) {
+			final RemoteServiceReference[] refs = remoting.connect(peers[i]);
+			assertNotNull(remoting.getRemoteService(refs[0]));
+		}
+		return System.nanoTime() - start;
+	}
+
+	public void testColdAndWarmCache() throws Exception {
+		final BundleContext context = Activator.getDefault().getContext();
+		final ServiceTracker tracker = new ServiceTracker(context, RemoteOSGiService.class.getName(), null);
+		tracker.open();
+		final ProxyBundleCacheTest.PeerChannelFactory factory = new ProxyBundleCacheTest.PeerChannelFactory(
+				new ProxyBundleCacheTest.Dependency(DEPENDENCY_SIZE), LATENCY);
+		final Dictionary properties = new Hashtable();
+		properties.put(NetworkChannelFactory.PROTOCOL_PROPERTY, ProxyBundleCacheTest.PROTOCOL);
+		final ServiceRegistration registration = context.registerService(NetworkChannelFactory.class.getName(),
+				factory, properties);
+		final RemoteOSGiService remoting = (RemoteOSGiService) tracker.waitForService(10000);
+		final URI[] peers = new URI[SERVICES];
+		for (int i = 0; i < peers.length; i++)
+			peers[i] = ProxyBundleCacheTest.nextPeerURI();
+		try {
+			assertNotNull(remoting);
+			final long cold = fetchAll(remoting, peers);
+			final int coldIdentities = factory.getIdentityRequests();
+			final int coldDependencies = factory.getDependencyRequests();
+			for (int i = 0; i < peers.length; i++)
+				remoting.disconnect(peers[i]);
+			final long warm = fetchAll(remoting, peers);
+
+			System.out.println("ProxyBundleCacheBenchmark: " + SERVICES + " services, dependency of " + DEPENDENCY_SIZE
+					+ " bytes, latency " + LATENCY + "ms");
+			System.out.println("cache\tms\tidentity requests\tdependency requests");
+			System.out.println("cold\t" + cold / 1000000 + "\t" + coldIdentities + "\t" + coldDependencies);
+			System.out.println("warm\t" + warm / 1000000 + "\t" + (factory.getIdentityRequests() - coldIdentities)
+					+ "\t" + (factory.getDependencyRequests() - coldDependencies));
+		} finally {
+			if (remoting != null)
+				for (int i = 0; i < peers.length; i++)
+					remoting.disconnect(peers[i]);
+			final Bundle[] bundles = context.getBundles();
+			for (int i = 0; i < bundles.length; i++)
+				if (bundles[i].getLocation().startsWith(ProxyBundleCacheTest.DEPENDENCY_LOCATION)
+						&& "cachetest.dependency".equals(bundles[i].getSymbolicName()))
+					bundles[i].uninstall();
+			registration.unregister();
+			tracker.close();
+		}
+	}
+}
@@ -0,0 +1,533 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.r_osgi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.tests.remoteservice.Activator;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.ServiceTracker;
+
+import ch.ethz.iks.r_osgi.RemoteOSGiService;
+import ch.ethz.iks.r_osgi.RemoteServiceReference;
+import ch.ethz.iks.r_osgi.Remoting;
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.channels.NetworkChannelFactory;
+import ch.ethz.iks.r_osgi.messages.DeliverBundlesMessage;
+import ch.ethz.iks.r_osgi.messages.DeliverDependencyIdentitiesMessage;
+import ch.ethz.iks.r_osgi.messages.DeliverServiceMessage;
+import ch.ethz.iks.r_osgi.messages.LeaseMessage;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+
+/**
+ * Tests the cache of proxy bundles and dependency bundles of the local r-OSGi
+ * service. The services are fetched from peers that are simulated by the
+ * test. The peers are connected through channels of the "cachetest"
+ * protocol, which pass the messages in their serialized form. Each peer
+ * offers one service whose proxy bundle needs a dependency bundle from the
+ * peer.
+ */
+public class ProxyBundleCacheTest extends TestCase {
+
+	static final String PROTOCOL = "cachetest";
+
+	static final String DEPENDENCY_PACKAGE = "org.eclipse.ecf.tests.remoteservice.r_osgi.cachetest";
+
+	static final String DEPENDENCY_LOCATION = "r-osgi://dep/";
+
+	private static final long TIMEOUT = 10000;
+
+	private static int nextPeer;
+
+	/**
+	 * The dependency bundle that the peers deliver. The revision stands for an
+	 * update of the bundle on the peers.
+	 */
+	static class Dependency {
+		int revision;
+		int size;
+		byte[] bytes;
+
+		Dependency(int size) {
+			this.size = size;
+			setRevision(1);
+		}
+
+		synchronized void setRevision(int revision) {
+			this.revision = revision;
+			bytes = createBundle(revision, size);
+		}
+
+		synchronized String getIdentity() {
+			return "cachetest.dependency;1;" + revision;
+		}
+
+		synchronized byte[] getBytes() {
+			return bytes;
+		}
+	}
+
+	/**
+	 * Channel to a simulated peer. Answers the lease, the service request and
+	 * the dependency requests of the local endpoint.
+	 */
+	static class PeerChannel implements NetworkChannel {
+		private final PeerChannelFactory factory;
+		private final ChannelEndpoint endpoint;
+		private final URI remoteAddress;
+
+		PeerChannel(PeerChannelFactory factory, ChannelEndpoint endpoint, URI remoteAddress) {
+			this.factory = factory;
+			this.endpoint = endpoint;
+			this.remoteAddress = remoteAddress;
+		}
+
+		public String getProtocol() {
+			return PROTOCOL;
+		}
+
+		public URI getRemoteAddress() {
+			return remoteAddress;
+		}
+
+		public URI getLocalAddress() {
+			return URI.create(PROTOCOL + "://127.0.0.1:9278");
+		}
+
+		public void bind(ChannelEndpoint e) {
+		}
+
+		public void close() throws IOException {
+		}
+
+		public void sendMessage(RemoteOSGiMessage message) throws IOException {
+			final RemoteOSGiMessage msg = transfer(message);
+			final RemoteOSGiMessage reply;
+			switch (msg.getFuncID()) {
+			case RemoteOSGiMessage.LEASE:
+				final LeaseMessage lease = new LeaseMessage();
+				lease.setServiceIDs(new String[] { factory.serviceID });
+				lease.setServiceInterfaces(new String[][] { new String[] { CachedService.class.getName() } });
+				lease.setServiceProperties(new Dictionary[] { new Hashtable() });
+				lease.setTopics(new String[0]);
+				reply = lease;
+				break;
+			case RemoteOSGiMessage.REQUEST_SERVICE:
+				final DeliverServiceMessage service = new DeliverServiceMessage();
+				service.setServiceID(factory.serviceID);
+				service.setInterfaceNames(new String[] { CachedService.class.getName() });
+				final Map injections = new HashMap();
+				injections.put(CachedService.class.getName().replace('.', '/') + ".class", getInterfaceBytes());
+				service.setInjections(injections);
+				service.setImports(DEPENDENCY_PACKAGE);
+				service.setExports("");
+				reply = service;
+				break;
+			case RemoteOSGiMessage.REQUEST_DEPENDENCY_IDENTITIES:
+				factory.count(msg);
+				final DeliverDependencyIdentitiesMessage identities = new DeliverDependencyIdentitiesMessage();
+				identities.setIdentities(new String[] { factory.dependency.getIdentity() });
+				reply = identities;
+				break;
+			case RemoteOSGiMessage.REQUEST_DEPENDENCIES:
+				factory.count(msg);
+				final DeliverBundlesMessage bundles = new DeliverBundlesMessage();
+				bundles.setDependencies(new byte[][] { factory.dependency.getBytes() });
+				reply = bundles;
+				break;
+			default:
+				// lease updates and events are of no interest
+				return;
+			}
+			factory.delay();
+			reply.setXID(msg.getXID());
+			endpoint.receivedMessage(transfer(reply));
+		}
+
+		private static RemoteOSGiMessage transfer(RemoteOSGiMessage message) throws IOException {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			message.send(new ObjectOutputStream(bytes));
+			try {
+				return RemoteOSGiMessage.parse(new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			} catch (final ClassNotFoundException e) {
+				throw new IOException(e.getMessage());
+			}
+		}
+	}
+
+	static class PeerChannelFactory implements NetworkChannelFactory {
+		final Dependency dependency;
+		final long latency;
+		String serviceID;
+		int identityRequests;
+		int dependencyRequests;
+
+		PeerChannelFactory(Dependency dependency, long latency) {
+			this.dependency = dependency;
+			this.latency = latency;
+			// the services of every run are new to the cache
+			serviceID = String.valueOf(System.currentTimeMillis());
+		}
+
+		public NetworkChannel getConnection(ChannelEndpoint endpoint, URI endpointURI) {
+			return new PeerChannel(this, endpoint, endpointURI);
+		}
+
+		public void activate(Remoting remoting) {
+		}
+
+		public void deactivate(Remoting remoting) {
+		}
+
+		public int getListeningPort(String protocol) {
+			return -1;
+		}
+
+		synchronized void count(RemoteOSGiMessage msg) {
+			if (msg.getFuncID() == RemoteOSGiMessage.REQUEST_DEPENDENCIES)
+				dependencyRequests++;
+			else
+				identityRequests++;
+		}
+
+		synchronized int getIdentityRequests() {
+			return identityRequests;
+		}
+
+		synchronized int getDependencyRequests() {
+			return dependencyRequests;
+		}
+
+		void delay() {
+			if (latency > 0) {
+				try {
+					Thread.sleep(latency);
+				} catch (final InterruptedException e) {
+					// reply now
+				}
+			}
+		}
+	}
+
+	static byte[] getInterfaceBytes() throws IOException {
+		final String name = CachedService.class.getName();
+		final InputStream in = CachedService.class.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1)
+				+ ".class");
+		try {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] b = new byte[1024];
+			for (int len = in.read(b); len >= 0; len = in.read(b))
+				out.write(b, 0, len);
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Create a dependency bundle that exports the dependency package. It is a
+	 * singleton, so only one revision of it can be resolved at a time.
+	 */
+	static byte[] createBundle(int revision, int size) {
+		final Manifest mf = new Manifest();
+		final Attributes attr = mf.getMainAttributes();
+		attr.putValue("Manifest-Version", "1.0");
+		attr.putValue("Bundle-ManifestVersion", "2");
+		attr.putValue("Bundle-SymbolicName", "cachetest.dependency;singleton:=true");
+		attr.putValue("Bundle-Version", "1.0." + revision);
+		attr.putValue("Export-Package", DEPENDENCY_PACKAGE);
+		try {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final JarOutputStream out = new JarOutputStream(bytes, mf);
+			out.putNextEntry(new JarEntry("data"));
+			final byte[] data = new byte[size];
+			for (int i = 0; i < size; i++)
+				data[i] = (byte) (i * revision);
+			out.write(data);
+			out.closeEntry();
+			out.close();
+			return bytes.toByteArray();
+		} catch (final IOException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
+	static String getHash(byte[] bytes) throws Exception {
+		final byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+		final StringBuffer buffer = new StringBuffer();
+		for (int i = 0; i < hash.length; i++)
+			buffer.append(Integer.toHexString((hash[i] >> 4) & 0x0F)).append(Integer.toHexString(hash[i] & 0x0F));
+		return buffer.toString();
+	}
+
+	static synchronized URI nextPeerURI() {
+		final int peer = nextPeer++;
+		return URI.create(PROTOCOL + "://10.2." + (peer / 250 % 250) + "." + (peer % 250 + 1) + ":9278");
+	}
+
+	private BundleContext context;
+	private ServiceTracker tracker;
+	private RemoteOSGiService remoting;
+	private ServiceRegistration factoryRegistration;
+	private final Dependency dependency = new Dependency(1000);
+	private final PeerChannelFactory factory = new PeerChannelFactory(dependency, 0);
+	private final List peers = new ArrayList();
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		context = Activator.getDefault().getContext();
+		tracker = new ServiceTracker(context, RemoteOSGiService.class.getName(), null);
+		tracker.open();
+		remoting = (RemoteOSGiService) tracker.waitForService(TIMEOUT);
+		assertNotNull(remoting);
+		final Dictionary properties = new Hashtable();
+		properties.put(NetworkChannelFactory.PROTOCOL_PROPERTY, PROTOCOL);
+		factoryRegistration = context.registerService(NetworkChannelFactory.class.getName(), factory, properties);
+	}
+
+	protected void tearDown() throws Exception {
+		for (final Iterator i = peers.iterator(); i.hasNext();)
+			remoting.disconnect((URI) i.next());
+		final Bundle[] bundles = context.getBundles();
+		for (int i = 0; i < bundles.length; i++)
+			if (bundles[i].getLocation().startsWith(DEPENDENCY_LOCATION)
+					&& "cachetest.dependency".equals(bundles[i].getSymbolicName()))
+				bundles[i].uninstall();
+		if (factoryRegistration != null)
+			factoryRegistration.unregister();
+		if (tracker != null)
+			tracker.close();
+		super.tearDown();
+	}
+
+	/**
+	 * Connect to a peer and fetch its service.
+	 */
+	private Object fetch(URI peer) throws Exception {
+		final RemoteServiceReference[] refs = remoting.connect(peer);
+		synchronized (peers) {
+			if (!peers.contains(peer))
+				peers.add(peer);
+		}
+		assertNotNull(refs);
+		assertEquals(1, refs.length);
+		return remoting.getRemoteService(refs[0]);
+	}
+
+	/**
+	 * Disconnect from a peer and fetch its service again.
+	 */
+	private Object refetch(URI peer) throws Exception {
+		remoting.disconnect(peer);
+		return fetch(peer);
+	}
+
+	private boolean isInstalled(byte[] bundle) throws Exception {
+		final String location = DEPENDENCY_LOCATION + getHash(bundle);
+		final Bundle[] bundles = context.getBundles();
+		for (int i = 0; i < bundles.length; i++)
+			if (location.equals(bundles[i].getLocation()))
+				return true;
+		return false;
+	}
+
+	public void testDependenciesAreTakenFromCache() throws Exception {
+		final URI peer = nextPeerURI();
+		assertNotNull(fetch(peer));
+		assertEquals(1, factory.getIdentityRequests());
+		assertEquals(1, factory.getDependencyRequests());
+
+		assertNotNull(refetch(peer));
+		assertEquals(2, factory.getIdentityRequests());
+		assertEquals(1, factory.getDependencyRequests());
+	}
+
+	public void testChangedDependenciesAreFetched() throws Exception {
+		final URI peer = nextPeerURI();
+		assertNotNull(fetch(peer));
+		assertEquals(1, factory.getDependencyRequests());
+
+		dependency.setRevision(2);
+		assertNotNull(refetch(peer));
+		assertEquals(2, factory.getDependencyRequests());
+		assertTrue(isInstalled(dependency.getBytes()));
+
+		// the new revision is cached
+		assertNotNull(refetch(peer));
+		assertEquals(2, factory.getDependencyRequests());
+	}
+
+	public void testChangedDependencyReplacesInstalledBundle() throws Exception {
+		final URI peer = nextPeerURI();
+		assertNotNull(fetch(peer));
+		final byte[] first = dependency.getBytes();
+		assertTrue(isInstalled(first));
+
+		dependency.setRevision(2);
+		assertNotNull(refetch(peer));
+		// the old revision has made way for the new one
+		assertFalse(isInstalled(first));
+		assertTrue(isInstalled(dependency.getBytes()));
+		final Bundle[] bundles = context.getBundles();
+		Bundle installed = null;
+		for (int i = 0; i < bundles.length; i++) {
+			if (bundles[i].getLocation().startsWith(DEPENDENCY_LOCATION)
+					&& "cachetest.dependency".equals(bundles[i].getSymbolicName())) {
+				assertNull(installed);
+				installed = bundles[i];
+			}
+		}
+		assertNotNull(installed);
+		assertTrue(installed.getState() != Bundle.INSTALLED);
+		assertEquals("1.0.2", installed.getHeaders().get("Bundle-Version"));
+	}
+
+	public void testTamperedDependencyListIsNotUsed() throws Exception {
+		final URI peer = nextPeerURI();
+		assertNotNull(fetch(peer));
+		final String first = getHash(dependency.getBytes());
+		dependency.setRevision(2);
+		assertNotNull(refetch(peer));
+		assertEquals(2, factory.getDependencyRequests());
+		final String second = getHash(dependency.getBytes());
+
+		// let the list of dependencies refer to the cached first revision
+		final File proxies = new File(tracker.getServiceReference().getBundle().getDataFile("proxycache"), "proxies");
+		final File[] files = proxies.listFiles();
+		assertNotNull(files);
+		int tampered = 0;
+		for (int i = 0; i < files.length; i++) {
+			if (files[i].getName().endsWith(".deps")) {
+				final RandomAccessFile file = new RandomAccessFile(files[i], "rw");
+				try {
+					final byte[] bytes = new byte[(int) file.length()];
+					file.readFully(bytes);
+					final String content = new String(bytes, "ISO-8859-1");
+					final int pos = content.indexOf(second);
+					if (pos >= 0) {
+						file.seek(pos);
+						file.write(first.getBytes("ISO-8859-1"));
+						tampered++;
+					}
+				} finally {
+					file.close();
+				}
+			}
+		}
+		assertEquals(1, tampered);
+
+		assertNotNull(refetch(peer));
+		assertEquals(3, factory.getDependencyRequests());
+		assertTrue(isInstalled(dependency.getBytes()));
+		assertFalse(isInstalled(createBundle(1, 1000)));
+	}
+
+	public void testCorruptEntriesAreNotUsed() throws Exception {
+		final URI peer = nextPeerURI();
+		assertNotNull(fetch(peer));
+		assertEquals(1, factory.getDependencyRequests());
+
+		final File cache = tracker.getServiceReference().getBundle().getDataFile("proxycache");
+		assertNotNull(cache);
+		final File[] dirs = cache.listFiles();
+		assertNotNull(dirs);
+		// other tests may have left dependencies of other revisions
+		final String dependencyName = getHash(dependency.getBytes()) + ".jar";
+		int corrupted = 0;
+		for (int i = 0; i < dirs.length; i++) {
+			final File[] files = dirs[i].listFiles();
+			for (int j = 0; files != null && j < files.length; j++) {
+				if (files[j].getName().endsWith(".jar")
+						&& (dirs[i].getName().equals("proxies") || files[j].getName().equals(dependencyName))) {
+					final RandomAccessFile file = new RandomAccessFile(files[j], "rw");
+					try {
+						file.seek(file.length() / 2);
+						final int b = file.read();
+						file.seek(file.length() / 2);
+						file.write(b ^ 0xFF);
+					} finally {
+						file.close();
+					}
+					corrupted++;
+				}
+			}
+		}
+		assertTrue(corrupted >= 2);
+
+		assertNotNull(refetch(peer));
+		assertEquals(2, factory.getDependencyRequests());
+		// the entries have been written again
+		assertNotNull(refetch(peer));
+		assertEquals(2, factory.getDependencyRequests());
+	}
+
+	public void testConcurrentFetches() throws Exception {
+		final URI[] uris = new URI[8];
+		for (int i = 0; i < uris.length; i++)
+			uris[i] = nextPeerURI();
+		final Object[] services = new Object[uris.length];
+		final Exception[] exceptions = new Exception[uris.length];
+		final Thread[] threads = new Thread[uris.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int index = i;
+			threads[i] = new Thread("ProxyBundleCacheTest fetch " + i) {
+				public void run() {
+					try {
+						services[index] = fetch(uris[index]);
+					} catch (final Exception e) {
+						exceptions[index] = e;
+					}
+				}
+			};
+		}
+		for (int i = 0; i < threads.length; i++)
+			threads[i].start();
+		for (int i = 0; i < threads.length; i++)
+			threads[i].join(TIMEOUT);
+		for (int i = 0; i < threads.length; i++) {
+			assertNull(exceptions[i]);
+			assertNotNull(services[i]);
+		}
+		assertEquals(uris.length, factory.getDependencyRequests());
+
+		// every peer's service has its own entry, all of them are complete
+		for (int i = 0; i < uris.length; i++)
+			assertNotNull(refetch(uris[i]));
+		assertEquals(uris.length, factory.getDependencyRequests());
+	}
+}
@@ -0,0 +1,646 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.r_osgi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.tests.remoteservice.Activator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.ServiceTracker;
+
+import ch.ethz.iks.r_osgi.RemoteOSGiService;
+import ch.ethz.iks.r_osgi.Remoting;
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.channels.NetworkChannelFactory;
+import ch.ethz.iks.r_osgi.messages.LeaseMessage;
+import ch.ethz.iks.r_osgi.messages.RemoteCallMessage;
+import ch.ethz.iks.r_osgi.messages.RemoteCallResultMessage;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+import ch.ethz.iks.r_osgi.messages.StreamRequestMessage;
+import ch.ethz.iks.r_osgi.messages.StreamResultMessage;
+import ch.ethz.iks.r_osgi.messages.TimeOffsetMessage;
+import ch.ethz.iks.r_osgi.streams.InputStreamHandle;
+import ch.ethz.iks.r_osgi.streams.OutputStreamHandle;
+
+/**
+ * Tests remote streams between the local r-OSGi service and a peer that is
+ * simulated by the test. The peer is connected through a channel of the
+ * "streamtest" protocol, which passes the messages in their serialized form,
+ * and announces protocol version 2 (windowed streams) or 1 in its lease.
+ */
+public class RemoteStreamTest extends TestCase {
+
+	private static final String PROTOCOL = "streamtest";
+
+	private static final long TIMEOUT = 10000;
+
+	private static final int LENGTH = 200000;
+
+	private static final String BROKEN = "broken stream";
+
+	private static final short STREAM_ID = 1;
+
+	private static int nextPeer;
+
+	/**
+	 * Service called by the peer.
+	 */
+	public interface StreamService {
+		InputStream open(int length);
+
+		InputStream openBroken();
+
+		InputStream openBlocking();
+
+		byte[] readAll(InputStream in) throws IOException;
+
+		void write(OutputStream out, int length) throws IOException;
+	}
+
+	/**
+	 * Stream whose reads block until it is closed.
+	 */
+	static class BlockingInputStream extends InputStream {
+		private boolean closed;
+
+		public synchronized int read() throws IOException {
+			while (!closed) {
+				try {
+					wait();
+				} catch (final InterruptedException e) {
+					// wait until closed
+				}
+			}
+			throw new IOException("closed");
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			return read();
+		}
+
+		public synchronized void close() {
+			closed = true;
+			notifyAll();
+		}
+
+		synchronized boolean waitClosed(long timeout) throws InterruptedException {
+			final long end = System.currentTimeMillis() + timeout;
+			while (!closed && System.currentTimeMillis() < end)
+				wait(end - System.currentTimeMillis());
+			return closed;
+		}
+	}
+
+	class StreamServiceImpl implements StreamService {
+		final List blockingStreams = new ArrayList();
+
+		public InputStream open(int length) {
+			return new ByteArrayInputStream(createData(length));
+		}
+
+		public InputStream openBroken() {
+			return new InputStream() {
+				public int read() throws IOException {
+					throw new IOException(BROKEN);
+				}
+			};
+		}
+
+		public synchronized InputStream openBlocking() {
+			final BlockingInputStream in = new BlockingInputStream();
+			blockingStreams.add(in);
+			return in;
+		}
+
+		public byte[] readAll(InputStream in) throws IOException {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] b = new byte[1000];
+			for (int len = in.read(b); len >= 0; len = in.read(b))
+				out.write(b, 0, len);
+			in.close();
+			return out.toByteArray();
+		}
+
+		public void write(OutputStream out, int length) throws IOException {
+			final byte[] data = createData(length);
+			for (int i = 0; i < length; i += 100)
+				out.write(data, i, Math.min(100, length - i));
+			out.close();
+		}
+	}
+
+	/**
+	 * Channel to the simulated peer. Messages from the local endpoint are
+	 * queued for the test, except the lease, which is answered right away.
+	 */
+	static class PeerChannel implements NetworkChannel {
+		private final ChannelEndpoint endpoint;
+		private final URI remoteAddress;
+		private final byte version;
+		private final LinkedList received = new LinkedList();
+		private int nextXid = 0x40000000;
+
+		PeerChannel(ChannelEndpoint endpoint, URI remoteAddress, byte version) {
+			this.endpoint = endpoint;
+			this.remoteAddress = remoteAddress;
+			this.version = version;
+		}
+
+		public String getProtocol() {
+			return PROTOCOL;
+		}
+
+		public URI getRemoteAddress() {
+			return remoteAddress;
+		}
+
+		public URI getLocalAddress() {
+			return URI.create(PROTOCOL + "://127.0.0.1:9278");
+		}
+
+		public void bind(ChannelEndpoint e) {
+		}
+
+		public void close() throws IOException {
+		}
+
+		public void sendMessage(RemoteOSGiMessage message) throws IOException {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final ObjectOutputStream out = new ObjectOutputStream(bytes);
+			message.send(out);
+			final RemoteOSGiMessage msg = parse(bytes.toByteArray());
+			switch (msg.getFuncID()) {
+			case RemoteOSGiMessage.LEASE:
+				final LeaseMessage lease = new LeaseMessage();
+				lease.setXID(msg.getXID());
+				lease.setServiceIDs(new String[0]);
+				lease.setServiceInterfaces(new String[0][]);
+				lease.setServiceProperties(new Dictionary[0]);
+				lease.setTopics(new String[0]);
+				// the lease carries the version of the peer
+				final ByteArrayOutputStream leaseBytes = new ByteArrayOutputStream();
+				final ObjectOutputStream leaseOut = new ObjectOutputStream(leaseBytes);
+				leaseOut.write(version);
+				leaseOut.write(lease.getFuncID());
+				leaseOut.writeInt(lease.getXID());
+				lease.writeBody(leaseOut);
+				leaseOut.flush();
+				endpoint.receivedMessage(parse(leaseBytes.toByteArray()));
+				break;
+			case RemoteOSGiMessage.REMOTE_CALL_RESULT:
+			case RemoteOSGiMessage.STREAM_REQUEST:
+			case RemoteOSGiMessage.STREAM_RESULT:
+			case RemoteOSGiMessage.TIME_OFFSET:
+				synchronized (received) {
+					received.addLast(msg);
+					received.notifyAll();
+				}
+				break;
+			default:
+				// lease updates and events are of no interest
+			}
+		}
+
+		private static RemoteOSGiMessage parse(byte[] bytes) throws IOException {
+			try {
+				return RemoteOSGiMessage.parse(new ObjectInputStream(new ByteArrayInputStream(bytes)));
+			} catch (final ClassNotFoundException e) {
+				throw new IOException(e.getMessage());
+			}
+		}
+
+		/**
+		 * Send a message from the peer.
+		 */
+		void send(RemoteOSGiMessage message) throws IOException {
+			if (message.getXID() == 0)
+				message.setXID(nextXid++);
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			message.send(new ObjectOutputStream(bytes));
+			endpoint.receivedMessage(parse(bytes.toByteArray()));
+		}
+
+		/**
+		 * Take the next message from the local endpoint.
+		 *
+		 * @return the message, or <code>null</code> if none has arrived
+		 *         within the timeout.
+		 */
+		RemoteOSGiMessage poll(long timeout) throws InterruptedException {
+			final long end = System.currentTimeMillis() + timeout;
+			synchronized (received) {
+				while (received.isEmpty()) {
+					final long remaining = end - System.currentTimeMillis();
+					if (remaining <= 0)
+						return null;
+					received.wait(remaining);
+				}
+				return (RemoteOSGiMessage) received.removeFirst();
+			}
+		}
+
+		RemoteOSGiMessage next() throws InterruptedException {
+			final RemoteOSGiMessage msg = poll(TIMEOUT);
+			assertNotNull("no message from the local endpoint", msg);
+			return msg;
+		}
+	}
+
+	static class PeerChannelFactory implements NetworkChannelFactory {
+		byte version;
+		PeerChannel channel;
+
+		public synchronized NetworkChannel getConnection(ChannelEndpoint endpoint, URI endpointURI) {
+			channel = new PeerChannel(endpoint, endpointURI, version);
+			return channel;
+		}
+
+		public void activate(Remoting remoting) {
+		}
+
+		public void deactivate(Remoting remoting) {
+		}
+
+		public int getListeningPort(String protocol) {
+			return -1;
+		}
+	}
+
+	static byte[] createData(int length) {
+		final byte[] data = new byte[length];
+		for (int i = 0; i < length; i++)
+			data[i] = (byte) (i % 251);
+		return data;
+	}
+
+	private ServiceTracker tracker;
+	private RemoteOSGiService remoting;
+	private ServiceRegistration factoryRegistration;
+	private ServiceRegistration serviceRegistration;
+	private final PeerChannelFactory factory = new PeerChannelFactory();
+	private final StreamServiceImpl service = new StreamServiceImpl();
+	private URI peerURI;
+	private PeerChannel peer;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		final BundleContext context = Activator.getDefault().getContext();
+		tracker = new ServiceTracker(context, RemoteOSGiService.class.getName(), null);
+		tracker.open();
+		remoting = (RemoteOSGiService) tracker.waitForService(TIMEOUT);
+		assertNotNull(remoting);
+		final Dictionary properties = new Hashtable();
+		properties.put(NetworkChannelFactory.PROTOCOL_PROPERTY, PROTOCOL);
+		factoryRegistration = context.registerService(NetworkChannelFactory.class.getName(), factory, properties);
+		final Dictionary serviceProperties = new Hashtable();
+		serviceProperties.put(RemoteOSGiService.R_OSGi_REGISTRATION, Boolean.TRUE);
+		serviceRegistration = context.registerService(StreamService.class.getName(), service, serviceProperties);
+	}
+
+	protected void tearDown() throws Exception {
+		if (peerURI != null)
+			remoting.disconnect(peerURI);
+		if (serviceRegistration != null)
+			serviceRegistration.unregister();
+		if (factoryRegistration != null)
+			factoryRegistration.unregister();
+		if (tracker != null)
+			tracker.close();
+		super.tearDown();
+	}
+
+	private void connect(int version) throws Exception {
+		factory.version = (byte) version;
+		synchronized (RemoteStreamTest.class) {
+			peerURI = URI.create(PROTOCOL + "://10.1.0." + (++nextPeer % 250 + 1) + ":9278");
+		}
+		remoting.connect(peerURI);
+		peer = factory.channel;
+		assertNotNull(peer);
+	}
+
+	/**
+	 * Call a method of the local service from the peer.
+	 *
+	 * @return the XID of the call.
+	 */
+	private int call(String methodSignature, Object[] args) throws IOException {
+		final RemoteCallMessage msg = new RemoteCallMessage();
+		msg.setServiceID(serviceRegistration.getReference().getProperty(Constants.SERVICE_ID).toString());
+		msg.setMethodSignature(methodSignature);
+		msg.setArgs(args);
+		peer.send(msg);
+		return msg.getXID();
+	}
+
+	private RemoteCallResultMessage result(int xid) throws InterruptedException {
+		final RemoteOSGiMessage msg = peer.next();
+		assertEquals(RemoteOSGiMessage.REMOTE_CALL_RESULT, msg.getFuncID());
+		assertEquals(xid, msg.getXID());
+		return (RemoteCallResultMessage) msg;
+	}
+
+	private StreamResultMessage streamResult(int xid) throws InterruptedException {
+		final RemoteOSGiMessage msg = peer.next();
+		assertEquals(RemoteOSGiMessage.STREAM_RESULT, msg.getFuncID());
+		assertEquals(xid, msg.getXID());
+		return (StreamResultMessage) msg;
+	}
+
+	private void sendStreamResult(int xid, int len, byte[] data) throws IOException {
+		final StreamResultMessage m = new StreamResultMessage();
+		m.setXID(xid);
+		m.setResult(StreamResultMessage.RESULT_ARRAY);
+		m.setLen(len);
+		if (len > 0)
+			m.setData(data);
+		peer.send(m);
+	}
+
+	private void sendStreamException(int xid, String message) throws IOException {
+		final StreamResultMessage m = new StreamResultMessage();
+		m.setXID(xid);
+		m.setResult(StreamResultMessage.RESULT_EXCEPTION);
+		m.setException(new IOException(message));
+		peer.send(m);
+	}
+
+	/**
+	 * Serve the requests of the local endpoint for the peer's input stream
+	 * with the given data, until the result of the call arrives.
+	 *
+	 * @param ops
+	 *            receives the operations requested.
+	 */
+	private RemoteCallResultMessage serveInputStream(int callXid, byte[] data, boolean broken, List ops)
+			throws Exception {
+		int position = 0;
+		boolean eof = false;
+		while (true) {
+			final RemoteOSGiMessage msg = peer.next();
+			if (msg.getFuncID() == RemoteOSGiMessage.REMOTE_CALL_RESULT) {
+				assertEquals(callXid, msg.getXID());
+				return (RemoteCallResultMessage) msg;
+			}
+			assertEquals(RemoteOSGiMessage.STREAM_REQUEST, msg.getFuncID());
+			final StreamRequestMessage req = (StreamRequestMessage) msg;
+			assertEquals(STREAM_ID, req.getStreamID());
+			ops.add(new Byte(req.getOp()));
+			switch (req.getOp()) {
+			case StreamRequestMessage.READ_WINDOW: {
+				if (broken) {
+					sendStreamException(req.getXID(), BROKEN);
+					break;
+				}
+				int credit = req.getLenOrVal();
+				while (credit > 0 && position < data.length) {
+					final int len = Math.min(Math.min(credit, 8192), data.length - position);
+					final byte[] chunk = new byte[len];
+					System.arraycopy(data, position, chunk, 0, len);
+					sendStreamResult(req.getXID(), len, chunk);
+					position += len;
+					credit -= len;
+				}
+				if (position == data.length && !eof) {
+					sendStreamResult(req.getXID(), -1, null);
+					eof = true;
+				}
+				break;
+			}
+			case StreamRequestMessage.READ_ARRAY: {
+				if (broken) {
+					sendStreamException(req.getXID(), BROKEN);
+					break;
+				}
+				final int len = Math.min(req.getLenOrVal(), data.length - position);
+				if (len <= 0) {
+					sendStreamResult(req.getXID(), -1, null);
+				} else {
+					final byte[] chunk = new byte[len];
+					System.arraycopy(data, position, chunk, 0, len);
+					sendStreamResult(req.getXID(), len, chunk);
+					position += len;
+				}
+				break;
+			}
+			case StreamRequestMessage.CLOSE:
+				break;
+			default:
+				fail("unexpected request " + req);
+			}
+		}
+	}
+
+	/**
+	 * Serve the requests of the local endpoint for the peer's output stream,
+	 * until the result of the call arrives.
+	 *
+	 * @param ops
+	 *            receives the operations requested.
+	 */
+	private RemoteCallResultMessage serveOutputStream(int callXid, OutputStream out, List ops) throws Exception {
+		while (true) {
+			final RemoteOSGiMessage msg = peer.next();
+			if (msg.getFuncID() == RemoteOSGiMessage.REMOTE_CALL_RESULT) {
+				assertEquals(callXid, msg.getXID());
+				return (RemoteCallResultMessage) msg;
+			}
+			assertEquals(RemoteOSGiMessage.STREAM_REQUEST, msg.getFuncID());
+			final StreamRequestMessage req = (StreamRequestMessage) msg;
+			assertEquals(STREAM_ID, req.getStreamID());
+			ops.add(new Byte(req.getOp()));
+			switch (req.getOp()) {
+			case StreamRequestMessage.WRITE_ARRAY:
+			case StreamRequestMessage.WRITE:
+				if (req.getOp() == StreamRequestMessage.WRITE)
+					out.write(req.getLenOrVal());
+				else
+					out.write(req.getData());
+				final StreamResultMessage m = new StreamResultMessage();
+				m.setXID(req.getXID());
+				m.setResult(StreamResultMessage.RESULT_WRITE_OK);
+				peer.send(m);
+				break;
+			case StreamRequestMessage.CLOSE:
+				break;
+			default:
+				fail("unexpected request " + req);
+			}
+		}
+	}
+
+	private static int count(List ops, byte op) {
+		int count = 0;
+		for (int i = 0; i < ops.size(); i++)
+			if (((Byte) ops.get(i)).byteValue() == op)
+				count++;
+		return count;
+	}
+
+	public void testWindowedRead() throws Exception {
+		connect(2);
+		final byte[] data = createData(LENGTH);
+		final List ops = new ArrayList();
+		final int xid = call("readAll(Ljava/io/InputStream;)[B", new Object[] { new InputStreamHandle(STREAM_ID) });
+		final RemoteCallResultMessage result = serveInputStream(xid, data, false, ops);
+		assertFalse(String.valueOf(result.getException()), result.causedException());
+		assertTrue(Arrays.equals(data, (byte[]) result.getResult()));
+		// the data is pushed ahead instead of read with one request per read
+		assertEquals(0, count(ops, StreamRequestMessage.READ_ARRAY));
+		assertTrue(count(ops, StreamRequestMessage.READ_WINDOW) >= 1);
+		assertEquals(1, count(ops, StreamRequestMessage.CLOSE));
+	}
+
+	public void testReadFromVersion1Peer() throws Exception {
+		connect(1);
+		final byte[] data = createData(LENGTH);
+		final List ops = new ArrayList();
+		final int xid = call("readAll(Ljava/io/InputStream;)[B", new Object[] { new InputStreamHandle(STREAM_ID) });
+		final RemoteCallResultMessage result = serveInputStream(xid, data, false, ops);
+		assertFalse(String.valueOf(result.getException()), result.causedException());
+		assertTrue(Arrays.equals(data, (byte[]) result.getResult()));
+		// one request per read, and no operations the peer does not know
+		assertEquals(LENGTH / 1000 + 1, count(ops, StreamRequestMessage.READ_ARRAY));
+		assertEquals(ops.size(), count(ops, StreamRequestMessage.READ_ARRAY));
+	}
+
+	public void testWindowedWrite() throws Exception {
+		connect(2);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final List ops = new ArrayList();
+		final int xid = call("write(Ljava/io/OutputStream;I)V", new Object[] { new OutputStreamHandle(STREAM_ID),
+				new Integer(LENGTH) });
+		final RemoteCallResultMessage result = serveOutputStream(xid, out, ops);
+		assertFalse(String.valueOf(result.getException()), result.causedException());
+		assertTrue(Arrays.equals(createData(LENGTH), out.toByteArray()));
+		// the writes of 100 bytes are collected into larger chunks
+		assertTrue(count(ops, StreamRequestMessage.WRITE_ARRAY) < LENGTH / 1000);
+		assertEquals(1, count(ops, StreamRequestMessage.CLOSE));
+	}
+
+	public void testWriteToVersion1Peer() throws Exception {
+		connect(1);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final List ops = new ArrayList();
+		final int xid = call("write(Ljava/io/OutputStream;I)V", new Object[] { new OutputStreamHandle(STREAM_ID),
+				new Integer(LENGTH) });
+		final RemoteCallResultMessage result = serveOutputStream(xid, out, ops);
+		assertFalse(String.valueOf(result.getException()), result.causedException());
+		assertTrue(Arrays.equals(createData(LENGTH), out.toByteArray()));
+		assertEquals(LENGTH / 100, count(ops, StreamRequestMessage.WRITE_ARRAY));
+		assertEquals(ops.size(), count(ops, StreamRequestMessage.WRITE_ARRAY));
+	}
+
+	public void testRemoteExceptionOnWindowedRead() throws Exception {
+		connect(2);
+		final int xid = call("readAll(Ljava/io/InputStream;)[B", new Object[] { new InputStreamHandle(STREAM_ID) });
+		final RemoteCallResultMessage result = serveInputStream(xid, new byte[0], true, new ArrayList());
+		assertTrue(result.causedException());
+		assertEquals(BROKEN, result.getException().getMessage());
+	}
+
+	public void testPushedRead() throws Exception {
+		connect(2);
+		final RemoteCallResultMessage result = result(call("open(I)Ljava/io/InputStream;",
+				new Object[] { new Integer(LENGTH) }));
+		final short streamID = ((InputStreamHandle) result.getResult()).getStreamID();
+		final int window = 65536;
+		final StreamRequestMessage grant = new StreamRequestMessage();
+		grant.setOp(StreamRequestMessage.READ_WINDOW);
+		grant.setStreamID(streamID);
+		grant.setLenOrVal(window);
+		peer.send(grant);
+
+		final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		int credit = window;
+		while (true) {
+			final StreamResultMessage m = streamResult(grant.getXID());
+			assertFalse(String.valueOf(m.getException()), m.causedException());
+			if (m.getLen() < 0)
+				break;
+			data.write(m.getData(), 0, m.getLen());
+			credit -= m.getLen();
+			assertTrue(credit >= 0);
+			if (credit == 0) {
+				grant.setLenOrVal(window);
+				peer.send(grant);
+				credit = window;
+			}
+		}
+		assertTrue(Arrays.equals(createData(LENGTH), data.toByteArray()));
+	}
+
+	public void testRemoteExceptionOnPush() throws Exception {
+		connect(2);
+		final RemoteCallResultMessage result = result(call("openBroken()Ljava/io/InputStream;", new Object[0]));
+		final StreamRequestMessage grant = new StreamRequestMessage();
+		grant.setOp(StreamRequestMessage.READ_WINDOW);
+		grant.setStreamID(((InputStreamHandle) result.getResult()).getStreamID());
+		grant.setLenOrVal(65536);
+		peer.send(grant);
+		final StreamResultMessage m = streamResult(grant.getXID());
+		assertTrue(m.causedException());
+		assertEquals(BROKEN, m.getException().getMessage());
+	}
+
+	public void testCloseDuringPush() throws Exception {
+		connect(2);
+		// more blocked streams than the workers that an endpoint may occupy
+		final short[] streamIDs = new short[3];
+		for (int i = 0; i < streamIDs.length; i++) {
+			final RemoteCallResultMessage result = result(call("openBlocking()Ljava/io/InputStream;", new Object[0]));
+			streamIDs[i] = ((InputStreamHandle) result.getResult()).getStreamID();
+			final StreamRequestMessage grant = new StreamRequestMessage();
+			grant.setOp(StreamRequestMessage.READ_WINDOW);
+			grant.setStreamID(streamIDs[i]);
+			grant.setLenOrVal(65536);
+			peer.send(grant);
+		}
+
+		// the pending pushes do not keep other requests from being processed
+		final TimeOffsetMessage timeOffset = new TimeOffsetMessage();
+		peer.send(timeOffset);
+		final RemoteOSGiMessage reply = peer.next();
+		assertEquals(RemoteOSGiMessage.TIME_OFFSET, reply.getFuncID());
+		assertEquals(timeOffset.getXID(), reply.getXID());
+
+		for (int i = 0; i < streamIDs.length; i++) {
+			final StreamRequestMessage close = new StreamRequestMessage();
+			close.setOp(StreamRequestMessage.CLOSE);
+			close.setStreamID(streamIDs[i]);
+			peer.send(close);
+		}
+		for (int i = 0; i < streamIDs.length; i++)
+			assertTrue(((BlockingInputStream) service.blockingStreams.get(i)).waitClosed(TIMEOUT));
+		// nothing is pushed for a stream that the peer has closed
+		assertNull(peer.poll(500));
+	}
+}
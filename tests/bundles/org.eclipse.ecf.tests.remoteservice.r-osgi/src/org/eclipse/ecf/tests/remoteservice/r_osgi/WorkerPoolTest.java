@@ -0,0 +1,356 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.r_osgi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import ch.ethz.iks.util.WorkerPool;
+
+/**
+ * Tests the worker pool that processes the incoming requests of the r-OSGi
+ * channel endpoints.
+ */
+public class WorkerPoolTest extends TestCase {
+
+	private static final long TIMEOUT = 10000;
+
+	static class Gate {
+		private boolean open;
+
+		synchronized void open() {
+			open = true;
+			notifyAll();
+		}
+
+		synchronized boolean await(long timeout) throws InterruptedException {
+			final long end = System.currentTimeMillis() + timeout;
+			while (!open && System.currentTimeMillis() < end)
+				wait(Math.max(1, end - System.currentTimeMillis()));
+			return open;
+		}
+	}
+
+	// A task that records its name, tells when it has started and waits for
+	// its gate to open
+	class Task implements Runnable {
+		final String name;
+		final Gate started = new Gate();
+		final Gate gate;
+
+		Task(String name, Gate gate) {
+			this.name = name;
+			this.gate = gate;
+		}
+
+		Task(String name) {
+			this(name, null);
+		}
+
+		public void run() {
+			synchronized (order) {
+				order.add(name);
+			}
+			started.open();
+			try {
+				if (gate != null)
+					gate.await(TIMEOUT);
+			} catch (InterruptedException e) {
+				// finish
+			}
+		}
+	}
+
+	// Submits a task from a thread of its own, as the reader of a channel does
+	static class Submitter extends Thread {
+		final WorkerPool.Queue queue;
+		final Runnable task;
+		final Gate done = new Gate();
+		boolean result;
+
+		Submitter(WorkerPool.Queue queue, Runnable task) {
+			this.queue = queue;
+			this.task = task;
+			setDaemon(true);
+		}
+
+		public void run() {
+			result = queue.execute(task);
+			done.open();
+		}
+	}
+
+	final List order = new ArrayList();
+	private final List gates = new ArrayList();
+	private WorkerPool pool;
+
+	protected void tearDown() throws Exception {
+		for (int i = 0; i < gates.size(); i++)
+			((Gate) gates.get(i)).open();
+		if (pool != null)
+			pool.shutdown();
+		super.tearDown();
+	}
+
+	private Gate gate() {
+		final Gate gate = new Gate();
+		gates.add(gate);
+		return gate;
+	}
+
+	private void waitFor(long expected, String metric) throws InterruptedException {
+		final long end = System.currentTimeMillis() + TIMEOUT;
+		while (getMetric(metric) != expected && System.currentTimeMillis() < end)
+			Thread.sleep(10);
+		assertEquals(metric, expected, getMetric(metric));
+	}
+
+	private long getMetric(String metric) {
+		if ("completed".equals(metric))
+			return pool.getCompletedTasks();
+		if ("active".equals(metric))
+			return pool.getActiveWorkers();
+		if ("threads".equals(metric))
+			return pool.getWorkerThreads();
+		return pool.getQueueDepth();
+	}
+
+	private List getOrder() {
+		synchronized (order) {
+			return new ArrayList(order);
+		}
+	}
+
+	public void testRoundRobin() throws Exception {
+		pool = new WorkerPool(1, 1, 100, TIMEOUT);
+		final WorkerPool.Queue a = pool.createQueue();
+		final WorkerPool.Queue b = pool.createQueue();
+		final WorkerPool.Queue c = pool.createQueue();
+		// Hold the only worker until both queues have all their tasks
+		final Gate gate = gate();
+		final Task blocker = new Task("c", gate);
+		assertTrue(c.execute(blocker));
+		assertTrue(blocker.started.await(TIMEOUT));
+		for (int i = 0; i < 5; i++)
+			assertTrue(a.execute(new Task("a")));
+		for (int i = 0; i < 5; i++)
+			assertTrue(b.execute(new Task("b")));
+		assertEquals(5, a.getDepth());
+		assertEquals(10, pool.getQueueDepth());
+		gate.open();
+		waitFor(11, "completed");
+		final List expected = new ArrayList();
+		expected.add("c");
+		for (int i = 0; i < 5; i++) {
+			expected.add("a");
+			expected.add("b");
+		}
+		assertEquals(expected, getOrder());
+	}
+
+	public void testThreadsPerQueue() throws Exception {
+		pool = new WorkerPool(0, 2, 100, TIMEOUT);
+		final WorkerPool.Queue busy = pool.createQueue();
+		final WorkerPool.Queue other = pool.createQueue();
+		final Gate gate = gate();
+		final Task[] tasks = new Task[5];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = new Task("busy" + i, gate);
+			assertTrue(busy.execute(tasks[i]));
+		}
+		assertTrue(tasks[0].started.await(TIMEOUT));
+		assertTrue(tasks[1].started.await(TIMEOUT));
+		waitFor(2, "active");
+		assertEquals(3, busy.getDepth());
+		// The other queue gets a worker of its own despite the backlog
+		final Task task = new Task("other");
+		assertTrue(other.execute(task));
+		assertTrue(task.started.await(TIMEOUT));
+		assertFalse(tasks[2].started.await(100));
+		gate.open();
+		waitFor(6, "completed");
+		assertEquals(0, pool.getQueueDepth());
+	}
+
+	public void testBlockWhenFull() throws Exception {
+		pool = new WorkerPool(0, 1, 2, TIMEOUT);
+		final WorkerPool.Queue queue = pool.createQueue();
+		final Gate gate = gate();
+		final Task blocker = new Task("blocker", gate);
+		assertTrue(queue.execute(blocker));
+		assertTrue(blocker.started.await(TIMEOUT));
+		assertTrue(queue.execute(new Task("queued1")));
+		assertTrue(queue.execute(new Task("queued2")));
+		assertEquals(2, queue.getDepth());
+		final Submitter submitter = new Submitter(queue, new Task("late"));
+		submitter.start();
+		// The submitter waits for space in the queue
+		assertFalse(submitter.done.await(200));
+		gate.open();
+		assertTrue(submitter.done.await(TIMEOUT));
+		assertTrue(submitter.result);
+		waitFor(4, "completed");
+		assertEquals(0, pool.getRejectedTasks());
+		final List order = getOrder();
+		assertEquals("late", order.get(order.size() - 1));
+	}
+
+	public void testRejectWhenFull() throws Exception {
+		final long queueTimeout = 200;
+		pool = new WorkerPool(0, 1, 1, queueTimeout);
+		final WorkerPool.Queue queue = pool.createQueue();
+		final Gate gate = gate();
+		final Task blocker = new Task("blocker", gate);
+		assertTrue(queue.execute(blocker));
+		assertTrue(blocker.started.await(TIMEOUT));
+		assertTrue(queue.execute(new Task("queued")));
+		final long start = System.currentTimeMillis();
+		final Task rejected = new Task("rejected");
+		assertFalse(queue.execute(rejected));
+		assertTrue(System.currentTimeMillis() - start >= queueTimeout);
+		assertEquals(1, pool.getRejectedTasks());
+		assertEquals(1, pool.getQueueDepth());
+		gate.open();
+		waitFor(2, "completed");
+		assertFalse(getOrder().contains("rejected"));
+	}
+
+	public void testShutdown() throws Exception {
+		pool = new WorkerPool(0, 1, 1, TIMEOUT);
+		final WorkerPool.Queue queue = pool.createQueue();
+		final Gate gate = gate();
+		final Task blocker = new Task("blocker", gate);
+		assertTrue(queue.execute(blocker));
+		assertTrue(blocker.started.await(TIMEOUT));
+		assertTrue(queue.execute(new Task("queued")));
+		final Submitter submitter = new Submitter(queue, new Task("waiting"));
+		submitter.start();
+		assertFalse(submitter.done.await(100));
+		pool.shutdown();
+		// The waiting task is released and, like the queued one, discarded
+		assertTrue(submitter.done.await(TIMEOUT));
+		assertTrue(submitter.result);
+		// Tasks submitted after the shutdown are not rejected, but never run
+		assertTrue(queue.execute(new Task("after")));
+		gate.open();
+		waitFor(0, "threads");
+		assertEquals(0, pool.getQueueDepth());
+		assertEquals(0, pool.getRejectedTasks());
+		assertEquals(1, pool.getCompletedTasks());
+		assertEquals(1, getOrder().size());
+	}
+
+	public void testCloseQueue() throws Exception {
+		pool = new WorkerPool(0, 1, 10, TIMEOUT);
+		final WorkerPool.Queue queue = pool.createQueue();
+		final WorkerPool.Queue other = pool.createQueue();
+		final Gate gate = gate();
+		final Task blocker = new Task("blocker", gate);
+		assertTrue(queue.execute(blocker));
+		assertTrue(blocker.started.await(TIMEOUT));
+		assertTrue(queue.execute(new Task("queued")));
+		queue.close();
+		assertEquals(0, pool.getQueueDepth());
+		assertTrue(queue.execute(new Task("closed")));
+		assertEquals(0, queue.getDepth());
+		// The other queues are not affected
+		final Task task = new Task("other");
+		assertTrue(other.execute(task));
+		assertTrue(task.started.await(TIMEOUT));
+		gate.open();
+		waitFor(2, "completed");
+	}
+
+	public void testMetrics() throws Exception {
+		pool = new WorkerPool(2, 2, 10, TIMEOUT);
+		final WorkerPool.Queue queue = pool.createQueue();
+		final Gate gate = gate();
+		final Task[] tasks = new Task[4];
+		for (int i = 0; i < tasks.length; i++) {
+			tasks[i] = new Task("task" + i, gate);
+			assertTrue(queue.execute(tasks[i]));
+		}
+		assertTrue(tasks[1].started.await(TIMEOUT));
+		waitFor(2, "active");
+		assertEquals(2, pool.getWorkerThreads());
+		assertEquals(2, pool.getQueueDepth());
+		assertEquals(0, pool.getCompletedTasks());
+		gate.open();
+		waitFor(4, "completed");
+		waitFor(0, "active");
+		assertEquals(0, pool.getQueueDepth());
+		assertEquals(0, pool.getRejectedTasks());
+		// The workers stay for further tasks
+		assertEquals(2, pool.getWorkerThreads());
+		final String s = pool.toString();
+		assertTrue(s, s.indexOf("completed=4") >= 0);
+	}
+
+	public void testErrorInTask() throws Exception {
+		final List errors = new ArrayList();
+		pool = new WorkerPool(1, 1, 10, TIMEOUT) {
+			protected void handleError(Throwable t) {
+				synchronized (errors) {
+					errors.add(t);
+				}
+			}
+		};
+		final WorkerPool.Queue queue = pool.createQueue();
+		final RuntimeException error = new RuntimeException("failed");
+		assertTrue(queue.execute(new Runnable() {
+			public void run() {
+				throw error;
+			}
+		}));
+		final Task task = new Task("next");
+		assertTrue(queue.execute(task));
+		// The worker goes on with the next task
+		assertTrue(task.started.await(TIMEOUT));
+		waitFor(2, "completed");
+		synchronized (errors) {
+			assertEquals(1, errors.size());
+			assertSame(error, errors.get(0));
+		}
+	}
+
+	public void testNestedCallWithFullQueue() throws Exception {
+		final long queueTimeout = 300;
+		pool = new WorkerPool(0, 1, 1, queueTimeout);
+		final WorkerPool.Queue queue = pool.createQueue();
+		// A request that makes a remote call back to the peer and waits for
+		// the reply, which the reader of the channel delivers
+		final Gate reply = gate();
+		final Task request = new Task("request", reply);
+		assertTrue(queue.execute(request));
+		assertTrue(request.started.await(TIMEOUT));
+		assertTrue(queue.execute(new Task("queued")));
+		// Meanwhile the peer sends another request, and then the reply.  The
+		// reader blocks on the full queue and reads the reply only once the
+		// request has been rejected, so the nested call is held up for no
+		// longer than the queue timeout
+		final long start = System.currentTimeMillis();
+		assertFalse(queue.execute(new Task("rejected")));
+		reply.open();
+		final long held = System.currentTimeMillis() - start;
+		assertTrue(held >= queueTimeout);
+		assertTrue(held < TIMEOUT);
+		waitFor(2, "completed");
+		assertEquals(1, pool.getRejectedTasks());
+		final List expected = new ArrayList();
+		expected.add("request");
+		expected.add("queued");
+		assertEquals(expected, getOrder());
+	}
+}
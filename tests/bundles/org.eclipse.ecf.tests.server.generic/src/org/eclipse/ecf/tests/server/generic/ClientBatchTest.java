@@ -0,0 +1,242 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.comm.AsynchEvent;
+import org.eclipse.ecf.provider.comm.ConnectionEvent;
+import org.eclipse.ecf.provider.comm.DisconnectEvent;
+import org.eclipse.ecf.provider.comm.ISynchAsynchEventHandler;
+import org.eclipse.ecf.provider.comm.SynchEvent;
+import org.eclipse.ecf.provider.comm.tcp.AsynchMessage;
+import org.eclipse.ecf.provider.comm.tcp.BatchObjectOutputStream;
+import org.eclipse.ecf.provider.comm.tcp.Client;
+
+/**
+ * Tests what {@link Client} writes to its socket, with and without batching.
+ */
+public class ClientBatchTest extends TestCase {
+
+	private static final int MESSAGES = 20;
+	private static final int MAXMSGS = 3;
+
+	static class Handler implements ISynchAsynchEventHandler {
+		final ID id;
+
+		Handler() throws Exception {
+			id = IDFactory.getDefault().createGUID();
+		}
+
+		public ID getEventHandlerID() {
+			return id;
+		}
+
+		public void handleDisconnectEvent(DisconnectEvent event) {
+			// nothing to do
+		}
+
+		public void handleConnectEvent(ConnectionEvent event) {
+			// nothing to do
+		}
+
+		public void handleAsynchEvent(AsynchEvent event) throws IOException {
+			// nothing to do
+		}
+
+		public Object handleSynchEvent(SynchEvent event) throws IOException {
+			return null;
+		}
+	}
+
+	// Records the bytes that reach the socket
+	static class RecordingOutputStream extends OutputStream {
+		final OutputStream out;
+		final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+		int flushes;
+
+		RecordingOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		public synchronized void write(int b) throws IOException {
+			out.write(b);
+			recorded.write(b);
+		}
+
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			recorded.write(b, off, len);
+		}
+
+		public synchronized void flush() throws IOException {
+			out.flush();
+			flushes++;
+		}
+
+		synchronized byte[] getRecorded() {
+			return recorded.toByteArray();
+		}
+	}
+
+	ServerSocket serverSocket;
+	Socket clientSocket;
+	Socket peerSocket;
+	RecordingOutputStream recording;
+	ObjectInputStream peerIn;
+	Client client;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		serverSocket = new ServerSocket(0);
+		clientSocket = new Socket("localhost", serverSocket.getLocalPort());
+		peerSocket = serverSocket.accept();
+		recording = new RecordingOutputStream(clientSocket.getOutputStream());
+	}
+
+	protected void tearDown() throws Exception {
+		if (client != null)
+			client.disconnect();
+		peerSocket.close();
+		clientSocket.close();
+		serverSocket.close();
+		super.tearDown();
+	}
+
+	private void createClient(ObjectOutputStream oStream) throws Exception {
+		oStream.flush();
+		new ObjectOutputStream(peerSocket.getOutputStream()).flush();
+		final ObjectInputStream iStream = new ObjectInputStream(clientSocket.getInputStream());
+		peerIn = new ObjectInputStream(peerSocket.getInputStream());
+		client = new Client(clientSocket, iStream, oStream, new Handler(), MAXMSGS);
+	}
+
+	private void queue(Serializable[] messages) throws IOException {
+		for (int i = 0; i < messages.length; i++)
+			client.sendAsynch(null, messages[i]);
+	}
+
+	private static Serializable[] messages(int size) {
+		final Serializable[] messages = new Serializable[MESSAGES];
+		for (int i = 0; i < messages.length; i++) {
+			final byte[] data = new byte[size];
+			data[0] = (byte) i;
+			messages[i] = data;
+		}
+		return messages;
+	}
+
+	// The messages must arrive in order, each framed as one AsynchMessage
+	private void assertReceived(Serializable[] messages) throws Exception {
+		for (int i = 0; i < messages.length; i++) {
+			final AsynchMessage m = (AsynchMessage) peerIn.readObject();
+			final byte[] data = (byte[]) m.getData();
+			assertEquals(((byte[]) messages[i]).length, data.length);
+			assertEquals(i, data[0]);
+		}
+	}
+
+	// What the unbatched client has always written: each message is flushed
+	// on its own, and any reset is written after the flush
+	private static byte[] expectedUnbatched(Serializable[] messages) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.flush();
+		int resetCounter = 0;
+		for (int i = 0; i < messages.length; i++) {
+			out.writeObject(new AsynchMessage(messages[i]));
+			out.flush();
+			if (resetCounter > MAXMSGS) {
+				out.reset();
+				resetCounter = 0;
+			} else
+				resetCounter++;
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void assertBytes(byte[] expected, byte[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++)
+			assertEquals("byte " + i, expected[i], actual[i]);
+	}
+
+	public void testUnbatched() throws Exception {
+		createClient(new ObjectOutputStream(recording));
+		final Serializable[] messages = messages(100);
+		queue(messages);
+		client.start();
+		assertReceived(messages);
+		assertBytes(expectedUnbatched(messages), recording.getRecorded());
+		assertEquals(0, client.getBatchCount());
+	}
+
+	public void testBatched() throws Exception {
+		createClient(new BatchObjectOutputStream(recording, 65536));
+		final Serializable[] messages = messages(100);
+		// Queued before the send thread starts, so they all go in one batch
+		queue(messages);
+		final int flushes = recording.flushes;
+		client.start();
+		assertReceived(messages);
+		assertEquals(1, client.getBatchCount());
+		assertEquals(MESSAGES, client.getBatchMessageCount());
+		assertEquals(MESSAGES, client.getMaxBatchSize());
+		assertEquals(flushes + 1, recording.flushes);
+		// A reset follows every fifth message, so also the last one.  It is
+		// written before the flush rather than held back until the next message
+		final byte[] recorded = recording.getRecorded();
+		assertEquals(ObjectOutputStream.TC_RESET, recorded[recorded.length - 1]);
+	}
+
+	public void testBatchMaxBytes() throws Exception {
+		final int maxBytes = 4096;
+		createClient(new BatchObjectOutputStream(recording, maxBytes));
+		client.setBatchMaxBytes(maxBytes);
+		// Each batch ends with the message that reaches maxBytes
+		final Serializable[] messages = messages(maxBytes / 2 + 1);
+		queue(messages);
+		client.start();
+		assertReceived(messages);
+		assertEquals(MESSAGES / 2, client.getBatchCount());
+		assertEquals(2, client.getMaxBatchSize());
+	}
+
+	public void testBatchLinger() throws Exception {
+		createClient(new BatchObjectOutputStream(recording, 65536));
+		client.setBatchLinger(2000);
+		client.start();
+		final Serializable[] messages = messages(100);
+		final long start = System.currentTimeMillis();
+		for (int i = 0; i < messages.length; i++) {
+			client.sendAsynch(null, messages[i]);
+			Thread.sleep(10);
+		}
+		assertReceived(messages);
+		// All sent within the linger time of the first, so one flush
+		assertTrue(System.currentTimeMillis() - start >= 2000);
+		assertEquals(1, client.getBatchCount());
+		assertEquals(MESSAGES, client.getBatchMessageCount());
+	}
+}
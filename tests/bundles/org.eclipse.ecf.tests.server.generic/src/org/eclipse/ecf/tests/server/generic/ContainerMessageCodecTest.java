@@ -0,0 +1,129 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.generic.BinaryContainerMessageCodec;
+import org.eclipse.ecf.provider.generic.ContainerMessage;
+import org.eclipse.ecf.provider.generic.IContainerMessageCodec;
+import org.eclipse.ecf.provider.generic.JavaContainerMessageCodec;
+
+public class ContainerMessageCodecTest extends TestCase {
+
+	ID fromID;
+	ID toID;
+	ID sharedObjectID;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fromID = IDFactory.getDefault().createGUID();
+		toID = IDFactory.getDefault().createStringID("ecftcp://localhost:3282/server");
+		sharedObjectID = IDFactory.getDefault().createStringID("sharedobject");
+	}
+
+	protected ContainerMessage roundTrip(IContainerMessageCodec codec, ContainerMessage message) throws Exception {
+		final ContainerMessage result = codec.decode(codec.encode(message));
+		assertNotNull(result);
+		assertEquals(message.getFromContainerID(), result.getFromContainerID());
+		assertEquals(message.getToContainerID(), result.getToContainerID());
+		assertEquals(message.getSequence(), result.getSequence());
+		return result;
+	}
+
+	public void testSharedObjectMessage() throws Exception {
+		final byte[] payload = new byte[] {1, 2, 3, 4};
+		final ContainerMessage message = ContainerMessage.createSharedObjectMessage(fromID, toID, 42, sharedObjectID, payload);
+		final ContainerMessage result = roundTrip(new BinaryContainerMessageCodec(), message);
+		final ContainerMessage.SharedObjectMessage som = (ContainerMessage.SharedObjectMessage) result.getData();
+		assertEquals(sharedObjectID, som.getFromSharedObjectID());
+		assertTrue(Arrays.equals(payload, (byte[]) som.getData()));
+	}
+
+	public void testViewChangeMessage() throws Exception {
+		final ContainerMessage message = ContainerMessage.createViewChangeMessage(toID, null, 7, new ID[] {fromID, toID}, true, "data", BinaryContainerMessageCodec.NAME);
+		final ContainerMessage result = roundTrip(new BinaryContainerMessageCodec(), message);
+		final ContainerMessage.ViewChangeMessage vcm = (ContainerMessage.ViewChangeMessage) result.getData();
+		assertTrue(vcm.isAdd());
+		assertTrue(Arrays.equals(new ID[] {fromID, toID}, vcm.getChangeIDs()));
+		assertEquals("data", vcm.getData());
+		assertEquals(BinaryContainerMessageCodec.NAME, vcm.getCodec());
+	}
+
+	public void testJoinGroupMessage() throws Exception {
+		final String[] codecs = new String[] {BinaryContainerMessageCodec.NAME, JavaContainerMessageCodec.NAME};
+		final ContainerMessage message = ContainerMessage.createJoinGroupMessage(fromID, toID, 1, null, codecs);
+		final ContainerMessage.JoinGroupMessage jgm = (ContainerMessage.JoinGroupMessage) roundTrip(new JavaContainerMessageCodec(), message).getData();
+		assertTrue(Arrays.equals(codecs, jgm.getCodecs()));
+		final ContainerMessage.JoinGroupMessage jgm1 = (ContainerMessage.JoinGroupMessage) roundTrip(new BinaryContainerMessageCodec(), message).getData();
+		assertNull(jgm1.getData());
+		assertTrue(Arrays.equals(codecs, jgm1.getCodecs()));
+	}
+
+	public void testCreateResponseMessage() throws Exception {
+		final ContainerMessage message = ContainerMessage.createSharedObjectCreateResponseMessage(fromID, toID, 3, sharedObjectID, new Exception("failed"), 5);
+		final ContainerMessage.CreateResponseMessage crm = (ContainerMessage.CreateResponseMessage) roundTrip(new BinaryContainerMessageCodec(), message).getData();
+		assertEquals(sharedObjectID, crm.getSharedObjectID());
+		assertEquals(5, crm.getSequence());
+		assertEquals("failed", crm.getException().getMessage());
+	}
+
+	protected void checkMultipleRecipients(IContainerMessageCodec codec) throws Exception {
+		final ID[] toIDs = new ID[] {toID, IDFactory.getDefault().createGUID(), null};
+		final long[] sequences = new long[] {10, 11, 12};
+		final byte[] payload = new byte[] {5, 6, 7};
+		final byte[][] encoded = codec.encode(ContainerMessage.createSharedObjectMessage(fromID, null, 0, sharedObjectID, payload), toIDs, sequences);
+		assertEquals(toIDs.length + 1, encoded.length);
+		final byte[] body = encoded[toIDs.length];
+		for (int i = 0; i < toIDs.length; i++) {
+			final byte[] bytes = new byte[encoded[i].length + body.length];
+			System.arraycopy(encoded[i], 0, bytes, 0, encoded[i].length);
+			System.arraycopy(body, 0, bytes, encoded[i].length, body.length);
+			final ContainerMessage result = codec.decode(bytes);
+			assertEquals(fromID, result.getFromContainerID());
+			assertEquals(toIDs[i], result.getToContainerID());
+			assertEquals(sequences[i], result.getSequence());
+			final ContainerMessage.SharedObjectMessage som = (ContainerMessage.SharedObjectMessage) result.getData();
+			assertEquals(sharedObjectID, som.getFromSharedObjectID());
+			assertTrue(Arrays.equals(payload, (byte[]) som.getData()));
+		}
+	}
+
+	public void testMultipleRecipientsBinary() throws Exception {
+		checkMultipleRecipients(new BinaryContainerMessageCodec());
+	}
+
+	public void testMultipleRecipientsJava() throws Exception {
+		checkMultipleRecipients(new JavaContainerMessageCodec());
+	}
+
+	public void testMultipleRecipientsShareBody() throws Exception {
+		final byte[] payload = new byte[512];
+		final byte[][] encoded = new BinaryContainerMessageCodec().encode(ContainerMessage.createSharedObjectMessage(fromID, null, 0, sharedObjectID, payload), new ID[] {toID, toID}, new long[] {1, 2});
+		// The payload is only in the shared body, not in the headers
+		assertTrue(encoded[2].length > payload.length);
+		assertTrue(encoded[0].length < payload.length);
+		assertTrue(encoded[1].length < payload.length);
+	}
+
+	public void testBinarySmallerThanJava() throws Exception {
+		final ContainerMessage message = ContainerMessage.createSharedObjectMessage(fromID, toID, 42, sharedObjectID, new byte[64]);
+		final int javaLength = new JavaContainerMessageCodec().encode(message).length;
+		final int binaryLength = new BinaryContainerMessageCodec().encode(message).length;
+		assertTrue(binaryLength < javaLength);
+	}
+}
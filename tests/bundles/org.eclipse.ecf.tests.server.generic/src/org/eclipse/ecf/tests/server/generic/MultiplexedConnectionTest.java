@@ -0,0 +1,166 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.events.IContainerEjectedEvent;
+import org.eclipse.ecf.core.events.IContainerEvent;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.IContainerListener;
+import org.eclipse.ecf.provider.comm.ISynchAsynchConnection;
+import org.eclipse.ecf.provider.comm.tcp.ConnectRequestMessage;
+import org.eclipse.ecf.provider.comm.tcp.MultiplexedConnection;
+import org.eclipse.ecf.provider.comm.tcp.MultiplexedLink;
+import org.eclipse.ecf.provider.generic.SOContainerConfig;
+import org.eclipse.ecf.provider.generic.TCPClientSOContainer;
+import org.eclipse.ecf.provider.generic.TCPServerSOContainer;
+import org.eclipse.ecf.provider.generic.TCPServerSOContainerGroup;
+
+public class MultiplexedConnectionTest extends TestCase {
+
+	private static final String SERVER_PATH = "/server";
+	private static final int CLIENTS = 20;
+	private static final int KEEPALIVE = 30000;
+
+	static class MultiplexedClientContainer extends TCPClientSOContainer {
+		volatile boolean ejected;
+
+		MultiplexedClientContainer() throws Exception {
+			super(new SOContainerConfig(IDFactory.getDefault().createGUID()), KEEPALIVE);
+			addListener(new IContainerListener() {
+				public void handleEvent(IContainerEvent event) {
+					if (event instanceof IContainerEjectedEvent)
+						ejected = true;
+				}
+			});
+		}
+
+		protected ISynchAsynchConnection createConnection(ID remoteSpace, Object data) {
+			return new MultiplexedConnection(receiver, KEEPALIVE);
+		}
+
+		MultiplexedLink getLink() {
+			return ((MultiplexedConnection) getConnection()).getLink();
+		}
+	}
+
+	TCPServerSOContainerGroup group;
+	TCPServerSOContainer server;
+	ID serverID;
+	MultiplexedClientContainer[] clients;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		group = new TCPServerSOContainerGroup(0);
+		group.putOnTheAir();
+		serverID = IDFactory.getDefault().createStringID("ecftcp://localhost:" + group.getPort() + SERVER_PATH);
+		server = new TCPServerSOContainer(new SOContainerConfig(serverID), group, SERVER_PATH, KEEPALIVE);
+		clients = new MultiplexedClientContainer[CLIENTS];
+		for (int i = 0; i < CLIENTS; i++)
+			clients[i] = new MultiplexedClientContainer();
+	}
+
+	protected void tearDown() throws Exception {
+		for (int i = 0; i < CLIENTS; i++)
+			clients[i].dispose();
+		server.dispose();
+		group.takeOffTheAir();
+		super.tearDown();
+	}
+
+	private void waitForMembers(int count) throws InterruptedException {
+		for (int i = 0; i < 100 && server.getGroupMemberIDs().length != count; i++)
+			Thread.sleep(50);
+		assertEquals(count, server.getGroupMemberIDs().length);
+	}
+
+	public void testClientsShareOneLink() throws Exception {
+		for (int i = 0; i < CLIENTS; i++)
+			clients[i].connect(serverID, null);
+		final MultiplexedLink link = clients[0].getLink();
+		assertNotNull(link);
+		for (int i = 0; i < CLIENTS; i++) {
+			assertEquals(serverID, clients[i].getConnectedID());
+			assertSame(link, clients[i].getLink());
+		}
+		assertEquals(CLIENTS, link.getSessionCount());
+		// server plus all clients
+		waitForMembers(CLIENTS + 1);
+		// and each client has been told about the others
+		for (int i = 0; i < 100 && clients[0].getGroupMemberIDs().length != CLIENTS + 1; i++)
+			Thread.sleep(50);
+		assertEquals(CLIENTS + 1, clients[0].getGroupMemberIDs().length);
+	}
+
+	public void testDisconnectClosesSessionThenLink() throws Exception {
+		for (int i = 0; i < CLIENTS; i++)
+			clients[i].connect(serverID, null);
+		final MultiplexedLink link = clients[0].getLink();
+		clients[0].disconnect();
+		assertNull(clients[0].getConnectedID());
+		assertEquals(CLIENTS - 1, link.getSessionCount());
+		waitForMembers(CLIENTS);
+		assertFalse(link.isClosed());
+		for (int i = 1; i < CLIENTS; i++)
+			clients[i].disconnect();
+		assertTrue(link.isClosed());
+		waitForMembers(1);
+		// A new connect opens a new link
+		clients[0].connect(serverID, null);
+		assertNotSame(link, clients[0].getLink());
+		waitForMembers(2);
+	}
+
+	public void testEject() throws Exception {
+		for (int i = 0; i < CLIENTS; i++)
+			clients[i].connect(serverID, null);
+		final MultiplexedLink link = clients[0].getLink();
+		server.ejectGroupMember(clients[0].getID(), null);
+		for (int i = 0; i < 100 && !clients[0].ejected; i++)
+			Thread.sleep(50);
+		assertTrue(clients[0].ejected);
+		assertNull(clients[0].getConnectedID());
+		// Other sessions on the link are unaffected
+		assertEquals(CLIENTS - 1, link.getSessionCount());
+		assertEquals(serverID, clients[1].getConnectedID());
+		waitForMembers(CLIENTS);
+	}
+
+	public void testFallbackWithoutServerSupport() throws Exception {
+		// A server group that, like groups from before multiplexing, treats a link request as a container connect
+		final TCPServerSOContainerGroup oldGroup = new TCPServerSOContainerGroup(0) {
+			protected ConnectRequestMessage readConnectRequestMessage(ObjectInputStream ins) throws IOException, ClassNotFoundException {
+				final ConnectRequestMessage req = super.readConnectRequestMessage(ins);
+				return MultiplexedLink.isLinkRequest(req) ? new ConnectRequestMessage(req.getTarget(), "unknown") : req;
+			}
+		};
+		oldGroup.putOnTheAir();
+		final ID oldServerID = IDFactory.getDefault().createStringID("ecftcp://localhost:" + oldGroup.getPort() + SERVER_PATH);
+		final TCPServerSOContainer oldServer = new TCPServerSOContainer(new SOContainerConfig(oldServerID), oldGroup, SERVER_PATH, KEEPALIVE);
+		try {
+			clients[0].connect(oldServerID, null);
+			assertEquals(oldServerID, clients[0].getConnectedID());
+			// Connected with a plain Client
+			assertNull(clients[0].getLink());
+			clients[0].disconnect();
+		} finally {
+			oldServer.dispose();
+			oldGroup.takeOffTheAir();
+		}
+	}
+}
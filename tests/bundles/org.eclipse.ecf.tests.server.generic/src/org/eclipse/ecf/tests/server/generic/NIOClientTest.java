@@ -0,0 +1,323 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.comm.AsynchEvent;
+import org.eclipse.ecf.provider.comm.ConnectionEvent;
+import org.eclipse.ecf.provider.comm.DisconnectEvent;
+import org.eclipse.ecf.provider.comm.ISynchAsynchEventHandler;
+import org.eclipse.ecf.provider.comm.SynchEvent;
+import org.eclipse.ecf.provider.comm.tcp.ConnectResultMessage;
+import org.eclipse.ecf.provider.comm.tcp.NIOClient;
+import org.eclipse.ecf.provider.comm.tcp.NIOEventLoopGroup;
+
+/**
+ * Tests the framing of {@link NIOClient} against a peer that reads and writes
+ * the frames on a plain socket.
+ */
+public class NIOClientTest extends TestCase {
+
+	private static final long TIMEOUT = 10000;
+	// Frame layout: 4 byte payload length, 1 byte frame type, payload
+	private static final int HEADER_LENGTH = 5;
+	private static final byte FRAME_OBJECT = 0;
+	private static final byte FRAME_BYTES = 1;
+	private static final int BUFFER_SIZE = NIOClient.DEFAULT_READ_BUFFER_SIZE;
+
+	static class Handler implements ISynchAsynchEventHandler {
+		final ID id;
+		final List received = new ArrayList();
+		DisconnectEvent disconnect;
+
+		Handler() throws Exception {
+			id = IDFactory.getDefault().createGUID();
+		}
+
+		public ID getEventHandlerID() {
+			return id;
+		}
+
+		public synchronized void handleDisconnectEvent(DisconnectEvent event) {
+			disconnect = event;
+			notifyAll();
+		}
+
+		public void handleConnectEvent(ConnectionEvent event) {
+			// nothing to do
+		}
+
+		public synchronized void handleAsynchEvent(AsynchEvent event) throws IOException {
+			received.add(event.getData());
+			notifyAll();
+		}
+
+		public Object handleSynchEvent(SynchEvent event) throws IOException {
+			return null;
+		}
+
+		synchronized List waitForReceived(int count, long timeout) throws InterruptedException {
+			final long end = System.currentTimeMillis() + timeout;
+			while (received.size() < count && System.currentTimeMillis() < end)
+				wait(Math.max(1, end - System.currentTimeMillis()));
+			return new ArrayList(received);
+		}
+
+		synchronized DisconnectEvent waitForDisconnect(long timeout) throws InterruptedException {
+			final long end = System.currentTimeMillis() + timeout;
+			while (disconnect == null && System.currentTimeMillis() < end)
+				wait(Math.max(1, end - System.currentTimeMillis()));
+			return disconnect;
+		}
+	}
+
+	NIOEventLoopGroup group;
+	ServerSocket serverSocket;
+	Socket peerSocket;
+	DataInputStream peerIn;
+	OutputStream peerOut;
+	Handler handler;
+	NIOClient client;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		group = new NIOEventLoopGroup("NIOClientTest", 1, 1);
+		serverSocket = new ServerSocket(0);
+		handler = new Handler();
+	}
+
+	protected void tearDown() throws Exception {
+		if (client != null)
+			client.disconnect();
+		if (peerSocket != null)
+			peerSocket.close();
+		serverSocket.close();
+		group.shutdown();
+		super.tearDown();
+	}
+
+	// Connects the client and answers its connect request from the peer
+	private void connect(int peerReceiveBufferSize) throws Exception {
+		if (peerReceiveBufferSize > 0)
+			serverSocket.setReceiveBufferSize(peerReceiveBufferSize);
+		client = new NIOClient(group, handler, 0);
+		final Thread peer = new Thread() {
+			public void run() {
+				try {
+					peerSocket = serverSocket.accept();
+					peerSocket.setTcpNoDelay(true);
+					peerIn = new DataInputStream(peerSocket.getInputStream());
+					peerOut = peerSocket.getOutputStream();
+					assertEquals(FRAME_OBJECT, readFrameType(readFrame()));
+					final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					final ObjectOutputStream out = new ObjectOutputStream(bytes);
+					out.writeObject(new ConnectResultMessage(null));
+					out.close();
+					peerOut.write(frame(FRAME_OBJECT, bytes.toByteArray()));
+					peerOut.flush();
+				} catch (final Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		peer.start();
+		client.connect(IDFactory.getDefault().createStringID("ecftcp://localhost:" + serverSocket.getLocalPort() + "/server"), null, (int) TIMEOUT);
+		peer.join(TIMEOUT);
+		assertNotNull(peerIn);
+	}
+
+	private static byte[] frame(byte type, byte[] payload) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(payload.length);
+		out.writeByte(type);
+		out.write(payload);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	// Returns the frame type followed by the payload
+	byte[] readFrame() throws IOException {
+		final int length = peerIn.readInt();
+		final byte[] frame = new byte[length + 1];
+		peerIn.readFully(frame);
+		return frame;
+	}
+
+	static byte readFrameType(byte[] frame) {
+		return frame[0];
+	}
+
+	private static byte[] payload(int size, int seed) {
+		final byte[] payload = new byte[size];
+		for (int i = 0; i < size; i++)
+			payload[i] = (byte) (seed + i);
+		return payload;
+	}
+
+	private static void assertPayload(byte[] expected, byte[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++)
+			assertEquals("byte " + i, expected[i], actual[i]);
+	}
+
+	private void assertReceived(byte[][] payloads) throws InterruptedException {
+		final List received = handler.waitForReceived(payloads.length, TIMEOUT);
+		assertEquals(payloads.length, received.size());
+		for (int i = 0; i < payloads.length; i++)
+			assertPayload(payloads[i], (byte[]) received.get(i));
+	}
+
+	// Reads the frames the client has sent and checks their payloads
+	private void assertSent(byte[][] payloads) throws IOException {
+		for (int i = 0; i < payloads.length; i++) {
+			final byte[] frame = readFrame();
+			assertEquals(FRAME_BYTES, readFrameType(frame));
+			final byte[] payload = new byte[frame.length - 1];
+			System.arraycopy(frame, 1, payload, 0, payload.length);
+			assertPayload(payloads[i], payload);
+		}
+	}
+
+	public void testPartialReads() throws Exception {
+		connect(0);
+		client.start();
+		final byte[][] payloads = {payload(1, 1), payload(0, 2), payload(300, 3), payload(BUFFER_SIZE + 10, 4)};
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		for (int i = 0; i < payloads.length; i++)
+			bytes.write(frame(FRAME_BYTES, payloads[i]));
+		final byte[] data = bytes.toByteArray();
+		// Every frame, and every header, arrives in pieces
+		for (int i = 0; i < data.length; i += 3) {
+			peerOut.write(data, i, Math.min(3, data.length - i));
+			peerOut.flush();
+			if (i % 300 == 0)
+				Thread.sleep(1);
+		}
+		assertReceived(payloads);
+	}
+
+	public void testFramesAcrossBufferBoundary() throws Exception {
+		connect(0);
+		// Written before the client starts reading, so the read buffer is filled
+		final byte[][] payloads = {
+				// The next header starts two bytes before the end of the buffer
+				payload(BUFFER_SIZE - 2 * HEADER_LENGTH + 3, 1), payload(10, 2),
+				// Larger than the buffer
+				payload(4 * BUFFER_SIZE + 7, 3), payload(20, 4),
+				// Exactly one buffer, header included
+				payload(BUFFER_SIZE - HEADER_LENGTH, 5), payload(1, 6)};
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		for (int i = 0; i < payloads.length; i++)
+			bytes.write(frame(FRAME_BYTES, payloads[i]));
+		peerOut.write(bytes.toByteArray());
+		peerOut.flush();
+		client.start();
+		assertReceived(payloads);
+	}
+
+	public void testPartialWrites() throws Exception {
+		connect(4096);
+		client.start();
+		final byte[][] payloads = new byte[10][];
+		for (int i = 0; i < payloads.length; i++)
+			payloads[i] = payload((i % 2 == 0) ? 1024 * 1024 + i : 100 + i, i);
+		for (int i = 0; i < payloads.length; i++) {
+			if (i % 3 == 0) {
+				// Header and body in one gathering write
+				final byte[] header = new byte[7];
+				final byte[] body = new byte[payloads[i].length - header.length];
+				System.arraycopy(payloads[i], 0, header, 0, header.length);
+				System.arraycopy(payloads[i], header.length, body, 0, body.length);
+				client.sendAsynch(null, header, body);
+			} else
+				client.sendAsynch(null, payloads[i]);
+		}
+		// The peer is slow, so the socket send buffer fills and writes are partial
+		Thread.sleep(200);
+		assertSent(payloads);
+	}
+
+	public void testDisconnectDuringWrite() throws Exception {
+		connect(4096);
+		client.start();
+		for (int i = 0; i < 8; i++)
+			client.sendAsynch(null, payload(1024 * 1024, i));
+		// Read part of the first frame only
+		final byte[] part = new byte[1024];
+		peerIn.readFully(part);
+		peerSocket.close();
+		final DisconnectEvent disconnect = handler.waitForDisconnect(TIMEOUT);
+		assertNotNull(disconnect);
+		assertNotNull(disconnect.getException());
+		assertFalse(client.isConnected());
+		try {
+			client.sendAsynch(null, payload(10, 0));
+			fail();
+		} catch (final IOException e) {
+			// expected
+		}
+	}
+
+	public void testStopAndStart() throws Exception {
+		connect(0);
+		client.start();
+		final byte[][] payloads = {payload(10, 1), payload(BUFFER_SIZE * 2, 2), payload(20, 3)};
+		peerOut.write(frame(FRAME_BYTES, payloads[0]));
+		peerOut.flush();
+		assertEquals(1, handler.waitForReceived(1, TIMEOUT).size());
+		client.stop();
+		assertFalse(client.isStarted());
+		assertTrue(client.isConnected());
+		peerOut.write(frame(FRAME_BYTES, payloads[1]));
+		peerOut.write(frame(FRAME_BYTES, payloads[2]));
+		peerOut.flush();
+		// Nothing is delivered while stopped
+		assertEquals(1, handler.waitForReceived(2, 300).size());
+		// but messages can still be sent
+		client.sendAsynch(null, payloads[0]);
+		assertSent(new byte[][] {payloads[0]});
+		client.start();
+		assertTrue(client.isStarted());
+		assertReceived(payloads);
+	}
+
+	public void testDisconnectWhileStopped() throws Exception {
+		connect(0);
+		client.start();
+		final byte[][] payloads = {payload(10, 1), payload(20, 2)};
+		peerOut.write(frame(FRAME_BYTES, payloads[0]));
+		peerOut.write(frame(FRAME_BYTES, payloads[1]));
+		peerOut.flush();
+		assertEquals(2, handler.waitForReceived(2, TIMEOUT).size());
+		client.stop();
+		client.disconnect();
+		// The disconnect is delivered even though the client is stopped
+		assertNotNull(handler.waitForDisconnect(TIMEOUT));
+		assertReceived(payloads);
+	}
+}
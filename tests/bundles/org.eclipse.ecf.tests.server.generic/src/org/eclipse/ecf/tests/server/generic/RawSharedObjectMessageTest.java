@@ -0,0 +1,128 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.util.ISharedObjectMessageSerializer;
+import org.eclipse.ecf.provider.generic.RawSharedObjectMessage;
+import org.eclipse.ecf.provider.generic.SOContainerConfig;
+import org.eclipse.ecf.provider.generic.TCPClientSOContainer;
+
+public class RawSharedObjectMessageTest extends TestCase {
+
+	static class TestContainer extends TCPClientSOContainer {
+		TestContainer(ID id) {
+			super(new SOContainerConfig(id));
+		}
+
+		byte[] serialize(ID sharedObjectID, Object message) throws IOException {
+			return serializeSharedObjectMessage(sharedObjectID, message);
+		}
+
+		Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+			return deserializeSharedObjectMessage(bytes);
+		}
+	}
+
+	TestContainer container;
+	ID sharedObjectID;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		container = new TestContainer(IDFactory.getDefault().createGUID());
+		sharedObjectID = IDFactory.getDefault().createStringID("rawtest"); //$NON-NLS-1$
+	}
+
+	protected void tearDown() throws Exception {
+		container.dispose();
+		super.tearDown();
+	}
+
+	private static RawSharedObjectMessage createMessage() throws IOException {
+		final RawSharedObjectMessage.Output out = RawSharedObjectMessage.createOutput(64);
+		final DataOutputStream dos = new DataOutputStream(out);
+		dos.writeUTF("hello"); //$NON-NLS-1$
+		dos.writeLong(42L);
+		dos.flush();
+		return out.toMessage();
+	}
+
+	public void testRawMessagePassesThroughContainer() throws Exception {
+		container.setRawMessages(true);
+		final RawSharedObjectMessage message = createMessage();
+
+		final byte[] bytes = container.serialize(sharedObjectID, message);
+		// Not encoded a second time
+		assertSame(message.getBytes(), bytes);
+		assertTrue(RawSharedObjectMessage.isRaw(bytes));
+
+		final Object received = container.deserialize(bytes);
+		assertTrue(received instanceof RawSharedObjectMessage);
+		final DataInputStream dis = new DataInputStream(((RawSharedObjectMessage) received).getInputStream());
+		assertEquals("hello", dis.readUTF()); //$NON-NLS-1$
+		assertEquals(42L, dis.readLong());
+		assertEquals(-1, dis.read());
+	}
+
+	public void testSerializedMessageIsNotRaw() throws Exception {
+		final byte[] bytes = container.serialize(sharedObjectID, "hello"); //$NON-NLS-1$
+		assertFalse(RawSharedObjectMessage.isRaw(bytes));
+		assertFalse(RawSharedObjectMessage.isRaw(null));
+		assertFalse(RawSharedObjectMessage.isRaw(new byte[] {(byte) 0xEC}));
+	}
+
+	public void testRawMessagesNotEnabled() throws Exception {
+		final RawSharedObjectMessage message = createMessage();
+		// Serialized like any other message
+		final byte[] bytes = container.serialize(sharedObjectID, message);
+		assertFalse(RawSharedObjectMessage.isRaw(bytes));
+		// and received bytes are not checked for the raw header
+		try {
+			assertFalse(container.deserialize(message.getBytes()) instanceof RawSharedObjectMessage);
+		} catch (final Exception e) {
+			// not read as a raw message
+		}
+	}
+
+	public void testRawMessagesWithCustomSerializer() throws Exception {
+		final List serialized = new ArrayList();
+		final List deserialized = new ArrayList();
+		container.setRawMessages(true);
+		container.setSharedObjectMessageSerializer(new ISharedObjectMessageSerializer() {
+			public byte[] serializeMessage(ID sharedObjectId, Object message) {
+				serialized.add(message);
+				return new byte[] {1};
+			}
+
+			public Object deserializeMessage(byte[] data) {
+				deserialized.add(data);
+				return "custom"; //$NON-NLS-1$
+			}
+		});
+		final RawSharedObjectMessage message = createMessage();
+		// The custom serializer gets raw messages like any other
+		assertEquals(1, container.serialize(sharedObjectID, message).length);
+		assertSame(message, serialized.get(0));
+		assertEquals("custom", container.deserialize(message.getBytes())); //$NON-NLS-1$
+		assertSame(message.getBytes(), deserialized.get(0));
+	}
+}
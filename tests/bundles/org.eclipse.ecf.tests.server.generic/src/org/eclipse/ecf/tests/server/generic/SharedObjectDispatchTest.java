@@ -0,0 +1,163 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObject;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectConfig;
+import org.eclipse.ecf.core.sharedobject.SharedObjectInitException;
+import org.eclipse.ecf.core.util.Event;
+import org.eclipse.ecf.provider.generic.SOContainerConfig;
+import org.eclipse.ecf.provider.generic.SODispatchExecutor;
+import org.eclipse.ecf.provider.generic.TCPClientSOContainer;
+
+public class SharedObjectDispatchTest extends TestCase {
+
+	private static final int SHARED_OBJECTS = 200;
+	private static final int PRODUCERS = 4;
+	private static final int EVENTS = 500;
+	private static final int POOL_THREADS = 4;
+
+	ExecutorService pool;
+	TCPClientSOContainer container;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		pool = SODispatchExecutor.createPool(POOL_THREADS);
+		container = new TCPClientSOContainer(new SOContainerConfig(IDFactory.getDefault().createGUID())) {
+			protected Executor getSharedObjectExecutor() {
+				return pool;
+			}
+		};
+	}
+
+	protected void tearDown() throws Exception {
+		container.dispose();
+		pool.shutdown();
+		super.tearDown();
+	}
+
+	static class TestEvent implements Event {
+		final int producer;
+		final int seq;
+
+		TestEvent(int producer, int seq) {
+			this.producer = producer;
+			this.seq = seq;
+		}
+	}
+
+	class RecordingSharedObject implements ISharedObject {
+		ISharedObjectConfig config;
+		final int[] next = new int[PRODUCERS];
+		final AtomicInteger inHandler = new AtomicInteger();
+		volatile boolean concurrent;
+		volatile boolean outOfOrder;
+		volatile boolean disposed;
+		final CountDownLatch done = new CountDownLatch(PRODUCERS * EVENTS);
+
+		public void init(ISharedObjectConfig initData) throws SharedObjectInitException {
+			this.config = initData;
+		}
+
+		public void handleEvent(Event event) {
+			if (inHandler.incrementAndGet() != 1)
+				concurrent = true;
+			try {
+				if (event instanceof TestEvent) {
+					final TestEvent te = (TestEvent) event;
+					if (next[te.producer]++ != te.seq)
+						outOfOrder = true;
+					done.countDown();
+				}
+			} finally {
+				inHandler.decrementAndGet();
+			}
+		}
+
+		public void handleEvents(Event[] events) {
+			for (int i = 0; i < events.length; i++)
+				handleEvent(events[i]);
+		}
+
+		public void dispose(ID containerID) {
+			disposed = true;
+		}
+
+		public Object getAdapter(Class clazz) {
+			return null;
+		}
+	}
+
+	public void testSerialDispatchOnPool() throws Exception {
+		final List objects = new ArrayList();
+		for (int i = 0; i < SHARED_OBJECTS; i++) {
+			final RecordingSharedObject so = new RecordingSharedObject();
+			container.getSharedObjectManager().addSharedObject(IDFactory.getDefault().createStringID("so" + i), so, null); //$NON-NLS-1$
+			objects.add(so);
+		}
+		final Thread[] producers = new Thread[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			final int id = p;
+			producers[p] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < EVENTS; i++) {
+						for (final Iterator it = objects.iterator(); it.hasNext();) {
+							try {
+								((RecordingSharedObject) it.next()).config.getContext().getQueue().enqueue(new TestEvent(id, i));
+							} catch (final Exception e) {
+								fail(e.getMessage());
+							}
+						}
+					}
+				}
+			});
+			producers[p].start();
+		}
+		for (int p = 0; p < PRODUCERS; p++)
+			producers[p].join();
+		for (final Iterator it = objects.iterator(); it.hasNext();) {
+			final RecordingSharedObject so = (RecordingSharedObject) it.next();
+			assertTrue(so.done.await(30, TimeUnit.SECONDS));
+			assertFalse(so.concurrent);
+			assertFalse(so.outOfOrder);
+		}
+		// No per shared object threads
+		final Thread[] threads = new Thread[Thread.activeCount() * 2];
+		final int n = Thread.enumerate(threads);
+		for (int i = 0; i < n; i++)
+			assertFalse(threads[i].getName().endsWith(":run")); //$NON-NLS-1$
+	}
+
+	public void testDisposeOnPool() throws Exception {
+		final RecordingSharedObject so = new RecordingSharedObject();
+		final ID id = IDFactory.getDefault().createStringID("disposed"); //$NON-NLS-1$
+		container.getSharedObjectManager().addSharedObject(id, so, null);
+		container.getSharedObjectManager().removeSharedObject(id);
+		for (int i = 0; i < 50 && !so.disposed; i++)
+			Thread.sleep(100);
+		assertTrue(so.disposed);
+	}
+}
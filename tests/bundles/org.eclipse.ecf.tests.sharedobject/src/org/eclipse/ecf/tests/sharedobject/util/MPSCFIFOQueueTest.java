@@ -0,0 +1,136 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.sharedobject.util;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.sharedobject.util.MPSCFIFOQueue;
+import org.eclipse.ecf.core.sharedobject.util.SimpleFIFOQueue;
+
+public class MPSCFIFOQueueTest extends TestCase {
+
+	private static final int PRODUCERS = 8;
+	private static final int PER_PRODUCER = 20000;
+
+	public void testFactoryDefault() {
+		assertTrue(SimpleFIFOQueue.createSingleConsumerQueue() instanceof MPSCFIFOQueue);
+	}
+
+	public void testOrder() {
+		final MPSCFIFOQueue queue = new MPSCFIFOQueue();
+		assertTrue(queue.isEmpty());
+		for (int i = 0; i < 10; i++)
+			assertTrue(queue.enqueue(Integer.valueOf(i)));
+		assertEquals(10, queue.size());
+		for (int i = 0; i < 10; i++)
+			assertEquals(Integer.valueOf(i), queue.dequeue());
+		assertTrue(queue.isEmpty());
+		assertNull(queue.removeHead());
+	}
+
+	public void testNullRejected() {
+		final MPSCFIFOQueue queue = new MPSCFIFOQueue();
+		assertFalse(queue.enqueue(null));
+		assertEquals(0, queue.size());
+	}
+
+	public void testPeekTimeout() {
+		final MPSCFIFOQueue queue = new MPSCFIFOQueue();
+		final long start = System.currentTimeMillis();
+		assertNull(queue.peekQueue(100));
+		assertTrue(System.currentTimeMillis() - start >= 90);
+		queue.enqueue("a"); //$NON-NLS-1$
+		assertEquals("a", queue.peekQueue(10000)); //$NON-NLS-1$
+		assertEquals(1, queue.size());
+	}
+
+	public void testCloseDeliversQueued() {
+		final MPSCFIFOQueue queue = new MPSCFIFOQueue();
+		queue.enqueue("a"); //$NON-NLS-1$
+		queue.close();
+		assertFalse(queue.enqueue("b")); //$NON-NLS-1$
+		assertEquals("a", queue.dequeue()); //$NON-NLS-1$
+		assertNull(queue.dequeue());
+	}
+
+	public void testCloseWakesConsumer() throws Exception {
+		final MPSCFIFOQueue queue = new MPSCFIFOQueue();
+		final Object[] result = new Object[] {"notnull"}; //$NON-NLS-1$
+		final Thread consumer = new Thread(new Runnable() {
+			public void run() {
+				result[0] = queue.dequeue();
+			}
+		});
+		consumer.start();
+		Thread.sleep(100);
+		queue.close();
+		consumer.join(5000);
+		assertFalse(consumer.isAlive());
+		assertNull(result[0]);
+	}
+
+	public void testBoundedReject() {
+		final MPSCFIFOQueue queue = new MPSCFIFOQueue(2, false);
+		assertTrue(queue.enqueue("a")); //$NON-NLS-1$
+		assertTrue(queue.enqueue("b")); //$NON-NLS-1$
+		assertFalse(queue.enqueue("c")); //$NON-NLS-1$
+		assertEquals("a", queue.dequeue()); //$NON-NLS-1$
+		assertTrue(queue.enqueue("c")); //$NON-NLS-1$
+		assertEquals(2, queue.size());
+	}
+
+	public void testBoundedBlocks() throws Exception {
+		final MPSCFIFOQueue queue = new MPSCFIFOQueue(1, true);
+		assertTrue(queue.enqueue("a")); //$NON-NLS-1$
+		final boolean[] enqueued = new boolean[1];
+		final Thread producer = new Thread(new Runnable() {
+			public void run() {
+				enqueued[0] = queue.enqueue("b"); //$NON-NLS-1$
+			}
+		});
+		producer.start();
+		Thread.sleep(100);
+		assertTrue(producer.isAlive());
+		assertEquals("a", queue.dequeue()); //$NON-NLS-1$
+		producer.join(5000);
+		assertFalse(producer.isAlive());
+		assertTrue(enqueued[0]);
+		assertEquals("b", queue.dequeue()); //$NON-NLS-1$
+	}
+
+	public void testManyProducers() throws Exception {
+		final MPSCFIFOQueue queue = new MPSCFIFOQueue(1024, true);
+		final Thread[] producers = new Thread[PRODUCERS];
+		for (int p = 0; p < PRODUCERS; p++) {
+			final int id = p;
+			producers[p] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < PER_PRODUCER; i++)
+						queue.enqueue(new int[] {id, i});
+				}
+			});
+			producers[p].start();
+		}
+		final int[] next = new int[PRODUCERS];
+		for (int n = 0; n < PRODUCERS * PER_PRODUCER; n++) {
+			final int[] item = (int[]) queue.peekQueue(10000);
+			assertNotNull(item);
+			queue.removeHead();
+			// Per producer order must be preserved
+			assertEquals(next[item[0]]++, item[1]);
+		}
+		for (int p = 0; p < PRODUCERS; p++)
+			producers[p].join(5000);
+		assertTrue(queue.isEmpty());
+	}
+}